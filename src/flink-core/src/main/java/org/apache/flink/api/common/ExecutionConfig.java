@@ -119,6 +119,16 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
 
     private boolean objectReuse = false;
 
+    private boolean localObjectHandover = false;
+
+    private boolean adaptiveBufferTimeout = false;
+
+    private int inputBatchSize = 1;
+
+    private boolean windowSliceSharing = false;
+
+    private long timerResolution = 0L;
+
     private boolean autoTypeRegistrationEnabled = true;
 
     private boolean forceAvro = false;
@@ -699,6 +709,130 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
         return objectReuse;
     }
 
+    /**
+     * Enables handing over records as objects to consumer subtasks in the same TaskManager, instead
+     * of serializing them into the network buffers. Each handed over record is a copy created with
+     * the record's type serializer, so user code on both sides never shares an instance. This has
+     * no effect if unaligned checkpoints are enabled.
+     */
+    public ExecutionConfig enableLocalObjectHandover() {
+        localObjectHandover = true;
+        return this;
+    }
+
+    /**
+     * Disables handing over records as objects to local consumer subtasks. @see
+     * #enableLocalObjectHandover()
+     */
+    public ExecutionConfig disableLocalObjectHandover() {
+        localObjectHandover = false;
+        return this;
+    }
+
+    /**
+     * Returns whether local object handover has been enabled or disabled. @see
+     * #enableLocalObjectHandover()
+     */
+    public boolean isLocalObjectHandoverEnabled() {
+        return localObjectHandover;
+    }
+
+    /**
+     * Enables adaptive flushing of the output buffers. The buffer timeout then acts as a latency
+     * target, and the flush interval of each output channel is tuned to its record arrival rate and
+     * to the credit of its consumer, instead of flushing all channels at the fixed timeout.
+     */
+    public ExecutionConfig enableAdaptiveBufferTimeout() {
+        adaptiveBufferTimeout = true;
+        return this;
+    }
+
+    /** Disables adaptive flushing of the output buffers. @see #enableAdaptiveBufferTimeout() */
+    public ExecutionConfig disableAdaptiveBufferTimeout() {
+        adaptiveBufferTimeout = false;
+        return this;
+    }
+
+    /**
+     * Returns whether adaptive flushing of the output buffers has been enabled or disabled. @see
+     * #enableAdaptiveBufferTimeout()
+     */
+    public boolean isAdaptiveBufferTimeoutEnabled() {
+        return adaptiveBufferTimeout;
+    }
+
+    /**
+     * Sets the maximum number of records that a network input deserializes from a received buffer
+     * in one pass, before handing them to the operator. A value of 1 (the default) deserializes
+     * and processes the records one by one.
+     *
+     * @param inputBatchSize The maximum number of records deserialized in one pass.
+     */
+    public ExecutionConfig setInputBatchSize(int inputBatchSize) {
+        checkArgument(inputBatchSize > 0, "The input batch size must be greater than 0.");
+        this.inputBatchSize = inputBatchSize;
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of records that a network input deserializes in one pass. @see
+     * #setInputBatchSize(int)
+     */
+    public int getInputBatchSize() {
+        return inputBatchSize;
+    }
+
+    /**
+     * Enables slice sharing for sliding time windows with a reduce or aggregate function. Such
+     * windows then keep one partial aggregate per key and slice instead of one per window, and
+     * combine the slices of a window when it fires.
+     *
+     * <p>The state of these windows is not compatible with the state of windows that do not share
+     * slices, so savepoints cannot be restored after changing this setting.
+     */
+    public ExecutionConfig enableWindowSliceSharing() {
+        windowSliceSharing = true;
+        return this;
+    }
+
+    /** Disables slice sharing for sliding time windows. @see #enableWindowSliceSharing() */
+    public ExecutionConfig disableWindowSliceSharing() {
+        windowSliceSharing = false;
+        return this;
+    }
+
+    /**
+     * Returns whether slice sharing for sliding time windows has been enabled or disabled. @see
+     * #enableWindowSliceSharing()
+     */
+    public boolean isWindowSliceSharingEnabled() {
+        return windowSliceSharing;
+    }
+
+    /**
+     * Sets the resolution of the timers that process functions register, in milliseconds. With a
+     * positive resolution, the timers are grouped into time slots of this length, which are kept on
+     * the heap and checkpointed as a whole. The timers of a slot fire together once the time
+     * reaches the end of the slot, i.e. up to the resolution later than requested, but each timer
+     * keeps its exact timestamp. A value of 0 (the default) keeps the timers in the timer queues of
+     * the state backend.
+     *
+     * @param timerResolution The timer resolution in milliseconds.
+     */
+    public ExecutionConfig setTimerResolution(long timerResolution) {
+        checkArgument(timerResolution >= 0, "The timer resolution must not be negative.");
+        this.timerResolution = timerResolution;
+        return this;
+    }
+
+    /**
+     * Returns the resolution of the timers that process functions register, in milliseconds. @see
+     * #setTimerResolution(long)
+     */
+    public long getTimerResolution() {
+        return timerResolution;
+    }
+
     public GlobalJobParameters getGlobalJobParameters() {
         return globalJobParameters;
     }
@@ -903,6 +1037,11 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
                     && forceKryo == other.forceKryo
                     && disableGenericTypes == other.disableGenericTypes
                     && objectReuse == other.objectReuse
+                    && localObjectHandover == other.localObjectHandover
+                    && adaptiveBufferTimeout == other.adaptiveBufferTimeout
+                    && inputBatchSize == other.inputBatchSize
+                    && windowSliceSharing == other.windowSliceSharing
+                    && timerResolution == other.timerResolution
                     && autoTypeRegistrationEnabled == other.autoTypeRegistrationEnabled
                     && forceAvro == other.forceAvro
                     && Objects.equals(globalJobParameters, other.globalJobParameters)
@@ -931,6 +1070,11 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
                 forceKryo,
                 disableGenericTypes,
                 objectReuse,
+                localObjectHandover,
+                adaptiveBufferTimeout,
+                inputBatchSize,
+                windowSliceSharing,
+                timerResolution,
                 autoTypeRegistrationEnabled,
                 forceAvro,
                 globalJobParameters,
@@ -965,6 +1109,16 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
                 + enableAutoGeneratedUids
                 + ", objectReuse="
                 + objectReuse
+                + ", localObjectHandover="
+                + localObjectHandover
+                + ", adaptiveBufferTimeout="
+                + adaptiveBufferTimeout
+                + ", inputBatchSize="
+                + inputBatchSize
+                + ", windowSliceSharing="
+                + windowSliceSharing
+                + ", timerResolution="
+                + timerResolution
                 + ", autoTypeRegistrationEnabled="
                 + autoTypeRegistrationEnabled
                 + ", forceAvro="
@@ -1121,6 +1275,21 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
         configuration
                 .getOptional(PipelineOptions.OBJECT_REUSE)
                 .ifPresent(o -> this.objectReuse = o);
+        configuration
+                .getOptional(PipelineOptions.LOCAL_OBJECT_HANDOVER)
+                .ifPresent(o -> this.localObjectHandover = o);
+        configuration
+                .getOptional(ExecutionOptions.ADAPTIVE_BUFFER_TIMEOUT)
+                .ifPresent(o -> this.adaptiveBufferTimeout = o);
+        configuration
+                .getOptional(ExecutionOptions.INPUT_BATCH_SIZE)
+                .ifPresent(this::setInputBatchSize);
+        configuration
+                .getOptional(ExecutionOptions.WINDOW_SLICE_SHARING)
+                .ifPresent(o -> this.windowSliceSharing = o);
+        configuration
+                .getOptional(ExecutionOptions.TIMER_RESOLUTION)
+                .ifPresent(d -> this.setTimerResolution(d.toMillis()));
         configuration
                 .getOptional(TaskManagerOptions.TASK_CANCELLATION_INTERVAL)
                 .ifPresent(this::setTaskCancellationInterval);
@@ -78,6 +78,42 @@ public class CheckpointingOptions {
                                     + " only represents the delta checkpoint size instead of full checkpoint size."
                                     + " Some state backends may not support incremental checkpoints and ignore this option.");
 
+    /**
+     * The maximum number of incremental snapshots between two full snapshots of the heap keyed
+     * state backend, if incremental checkpoints are enabled. Each full snapshot compacts the state
+     * that is referenced by the following incremental snapshots.
+     */
+    @Documentation.Section(Documentation.Sections.EXPERT_STATE_BACKENDS)
+    public static final ConfigOption<Integer> FS_INCREMENTAL_MAX_DELTA_SNAPSHOTS =
+            ConfigOptions.key("state.backend.fs.incremental.max-delta-snapshots")
+                    .intType()
+                    .defaultValue(10)
+                    .withDescription(
+                            "The maximum number of incremental snapshots of the heap keyed state backend between two"
+                                    + " full snapshots, if incremental checkpoints are enabled. An incremental snapshot only"
+                                    + " writes the key groups that were modified since the last completed checkpoint and refers"
+                                    + " to previous checkpoints for all other key groups, while a full snapshot writes all key groups.");
+
+    /**
+     * Whether the configured state backend is wrapped by the changelog state backend. The
+     * changelog state backend logs all changes of keyed state, so that a checkpoint only needs to
+     * persist the changes since the previous checkpoint, while the state of the wrapped backend is
+     * materialized periodically in the background.
+     *
+     * <p>The changelog state backend is provided by the {@code flink-statebackend-changelog}
+     * module, which must be on the classpath if this option is enabled.
+     */
+    @Documentation.Section(Documentation.Sections.EXPERT_STATE_BACKENDS)
+    public static final ConfigOption<Boolean> ENABLE_STATE_CHANGE_LOG =
+            ConfigOptions.key("state.backend.changelog.enabled")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "Whether to wrap the configured state backend with the changelog state backend."
+                                    + " With the changelog enabled, checkpoints only persist the keyed state changes"
+                                    + " since the previous checkpoint, while the state of the wrapped backend is"
+                                    + " materialized periodically in the background.");
+
     /**
      * This option configures local recovery for this state backend. By default, local recovery is
      * deactivated.
@@ -69,6 +69,62 @@ public class ExecutionOptions {
                                                             + "throughput"))
                                     .build());
 
+    public static final ConfigOption<Boolean> ADAPTIVE_BUFFER_TIMEOUT =
+            ConfigOptions.key("execution.buffer-timeout.adaptive")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "Whether the output buffers are flushed adaptively. If enabled, a "
+                                    + "positive buffer timeout is treated as the latency target "
+                                    + "and each output channel is flushed separately, depending "
+                                    + "on its record arrival rate and on whether the consumer "
+                                    + "can take more data. Channels that receive records rarely "
+                                    + "are flushed earlier, channels whose consumer is back "
+                                    + "pressured are not flushed before the target is reached. "
+                                    + "This has no effect for broadcast outputs.");
+
+    public static final ConfigOption<Integer> INPUT_BATCH_SIZE =
+            ConfigOptions.key("execution.network-input.batch-size")
+                    .intType()
+                    .defaultValue(1)
+                    .withDescription(
+                            "The maximum number of records that a network input deserializes "
+                                    + "from a received buffer in one pass, before handing them to "
+                                    + "the operator one after the other. Larger batches reduce the "
+                                    + "per record overhead for small records, but delay timers "
+                                    + "and other actions of the task by up to one batch. The "
+                                    + "default value of 1 deserializes and processes the records "
+                                    + "one by one.");
+
+    public static final ConfigOption<Boolean> WINDOW_SLICE_SHARING =
+            ConfigOptions.key("execution.windowing.slice-sharing")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "Whether sliding time windows with a reduce or aggregate function "
+                                    + "share their state. If enabled, such windows keep one "
+                                    + "partial aggregate per key and slice of the window, and "
+                                    + "combine the slices when a window fires, instead of "
+                                    + "keeping a separate aggregate and timer for every window "
+                                    + "an element belongs to. The state layout differs from the "
+                                    + "regular window operator, so savepoints cannot be restored "
+                                    + "after changing this option.");
+
+    public static final ConfigOption<Duration> TIMER_RESOLUTION =
+            ConfigOptions.key("execution.timers.resolution")
+                    .durationType()
+                    .defaultValue(Duration.ZERO)
+                    .withDescription(
+                            "The resolution of the timers that process functions register. If "
+                                    + "set to a positive duration, the timers are grouped into "
+                                    + "time slots of this length, which are kept on the heap and "
+                                    + "checkpointed as one unit per slot and key group. The "
+                                    + "timers of a slot fire together once the time reaches the "
+                                    + "end of the slot, i.e. up to the resolution later than "
+                                    + "requested, but each timer keeps its exact timestamp. The "
+                                    + "default of 0 keeps the timers in the timer queues of the "
+                                    + "state backend.");
+
     @Documentation.ExcludeFromDocumentation(
             "This is an expert option, that we do not want to expose in" + " the documentation")
     public static final ConfigOption<Boolean> SORT_INPUTS =
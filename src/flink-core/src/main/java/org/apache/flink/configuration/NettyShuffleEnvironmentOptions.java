@@ -21,6 +21,8 @@ package org.apache.flink.configuration;
 import org.apache.flink.annotation.PublicEvolving;
 import org.apache.flink.annotation.docs.Documentation;
 
+import java.time.Duration;
+
 import static org.apache.flink.configuration.ConfigOptions.key;
 
 /** The set of configuration options relating to network stack. */
@@ -86,11 +88,29 @@ public class NettyShuffleEnvironmentOptions {
                                     + "compression is an experimental feature and the config option can be changed in the future.");
 
     /** The codec to be used when compressing shuffle data. */
-    @Documentation.ExcludeFromDocumentation("Currently, LZ4 is the only legal option.")
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
     public static final ConfigOption<String> SHUFFLE_COMPRESSION_CODEC =
             key("taskmanager.network.compression.codec")
                     .defaultValue("LZ4")
-                    .withDescription("The codec to be used when compressing shuffle data.");
+                    .withDescription(
+                            "The codec to be used when compressing shuffle data. Supported codecs are 'LZ4',"
+                                    + " 'SNAPPY' and 'ZSTD'; ZSTD achieves the highest compression ratio at the cost of"
+                                    + " more CPU time. The fully qualified class name of a custom BlockCompressionFactory"
+                                    + " can be given as well.");
+
+    /**
+     * Boolean flag indicating whether the compression ratio of each result partition is sampled
+     * to skip compressing data which does not compress well.
+     */
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+    public static final ConfigOption<Boolean> BLOCKING_SHUFFLE_COMPRESSION_ADAPTIVE =
+            key("taskmanager.network.blocking-shuffle.compression.adaptive")
+                    .defaultValue(false)
+                    .withDescription(
+                            "Boolean flag indicating whether the compression ratio of each result partition is"
+                                    + " sampled when shuffle data compression is enabled. Compression is skipped for a"
+                                    + " while if the sampled buffers do not compress well, for example if the records"
+                                    + " contain already compressed payloads, to save the CPU time of compressing them.");
 
     /**
      * Boolean flag to enable/disable more detailed metrics about inbound/outbound network queue
@@ -214,6 +234,23 @@ public class NettyShuffleEnvironmentOptions {
                                     + " direct memory for shuffle data writing and reading so just increase the size of"
                                     + " direct memory if direct memory OOM error occurs.");
 
+    /**
+     * Whether to merge the data regions of a sort-merge blocking result partition after it is
+     * finished.
+     */
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+    public static final ConfigOption<Boolean> NETWORK_SORT_SHUFFLE_MERGE_REGIONS =
+            key("taskmanager.network.sort-shuffle.merge-regions")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "Whether to merge the data regions of a sort-merge blocking result partition "
+                                    + "after the partition is finished. Every spilled sort buffer becomes a data region "
+                                    + "of the partition file, so without merging a consumer has to read a small piece of "
+                                    + "each region. Merging rewrites the file once, sequentially, so that the data of each"
+                                    + " subpartition is stored contiguously, which turns the reads of the consumers into"
+                                    + " sequential reads. This is mostly beneficial for large scale batch jobs on HDD.");
+
     /** Number of max buffers can be used for each output subparition. */
     @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
     public static final ConfigOption<Integer> NETWORK_MAX_BUFFERS_PER_CHANNEL =
@@ -227,6 +264,24 @@ public class NettyShuffleEnvironmentOptions {
                                     + " and can be ignored by things like flatMap operators, records spanning multiple buffers or single timer"
                                     + " producing large amount of data.");
 
+    /**
+     * The interval at which the network buffers not required by any buffer pool are rebalanced
+     * towards starved pools.
+     */
+    @Documentation.Section(Documentation.Sections.ALL_TASK_MANAGER_NETWORK)
+    public static final ConfigOption<Duration> NETWORK_BUFFERS_REBALANCE_INTERVAL =
+            key("taskmanager.network.memory.buffers-rebalance-interval")
+                    .durationType()
+                    .defaultValue(Duration.ZERO)
+                    .withDescription(
+                            "The interval at which the network buffers that are not required by any buffer pool"
+                                    + " are rebalanced between the buffer pools of a TaskManager. Pools whose input"
+                                    + " channels ran out of floating buffers since the last rebalancing get a larger"
+                                    + " share of these buffers, at the expense of idle pools. The required buffers of a"
+                                    + " pool are never taken away, so the in-flight data per channel stays bounded. A"
+                                    + " zero interval disables the rebalancing, then the buffers are only distributed"
+                                    + " when buffer pools are created or destroyed.");
+
     /** The timeout for requesting exclusive buffers for each channel. */
     @Documentation.ExcludeFromDocumentation(
             "This option is purely implementation related, and may be removed as the implementation changes.")
@@ -244,10 +299,12 @@ public class NettyShuffleEnvironmentOptions {
             key("taskmanager.network.blocking-shuffle.type")
                     .defaultValue("file")
                     .withDescription(
-                            "The blocking shuffle type, either \"mmap\" or \"file\". The \"auto\" means selecting the property type automatically"
+                            "The blocking shuffle type, either \"mmap\", \"file\" or \"direct\". The \"auto\" means selecting the property type automatically"
                                     + " based on system memory architecture (64 bit for mmap and 32 bit for file). Note that the memory usage of mmap is not accounted"
                                     + " by configured memory limits, but some resource frameworks like yarn would track this memory usage and kill the container once"
-                                    + " memory exceeding some threshold. Also note that this option is experimental and might be changed future.");
+                                    + " memory exceeding some threshold. The \"direct\" type writes and reads the files with direct I/O, bypassing the page cache"
+                                    + " (requires Java 10 or newer and a file system supporting it, otherwise it falls back to buffered file I/O)."
+                                    + " Also note that this option is experimental and might be changed future.");
 
     // ------------------------------------------------------------------------
     //  Netty Options
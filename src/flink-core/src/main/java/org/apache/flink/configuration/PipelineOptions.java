@@ -197,6 +197,17 @@ public class PipelineOptions {
                                     + " data to user-code functions will be reused. Keep in mind that this can lead to bugs when the"
                                     + " user-code function of an operation is not aware of this behaviour.");
 
+    public static final ConfigOption<Boolean> LOCAL_OBJECT_HANDOVER =
+            key("pipeline.local-object-handover")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "When enabled, records sent to a consumer subtask in the same TaskManager are"
+                                    + " handed over as copies of the record objects instead of being serialized into the"
+                                    + " network buffers. This saves the serialization and deserialization cost of local"
+                                    + " exchanges at the price of heap memory for the in-flight records. It has no effect"
+                                    + " if unaligned checkpoints are enabled.");
+
     public static final ConfigOption<List<String>> KRYO_DEFAULT_SERIALIZERS =
             key("pipeline.default-kryo-serializers")
                     .stringType()
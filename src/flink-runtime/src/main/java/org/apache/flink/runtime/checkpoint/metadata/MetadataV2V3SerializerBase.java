@@ -24,6 +24,7 @@ import org.apache.flink.runtime.checkpoint.MasterState;
 import org.apache.flink.runtime.checkpoint.OperatorState;
 import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
 import org.apache.flink.runtime.checkpoint.StateObjectCollection;
+import org.apache.flink.runtime.state.IncrementalKeyGroupsStateHandle;
 import org.apache.flink.runtime.state.IncrementalRemoteKeyedStateHandle;
 import org.apache.flink.runtime.state.InputChannelStateHandle;
 import org.apache.flink.runtime.state.KeyGroupRange;
@@ -36,6 +37,8 @@ import org.apache.flink.runtime.state.ResultSubpartitionStateHandle;
 import org.apache.flink.runtime.state.StateHandleID;
 import org.apache.flink.runtime.state.StateObject;
 import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.changelog.ChangelogStateBackendHandle;
+import org.apache.flink.runtime.state.changelog.StateChangelogHandle;
 import org.apache.flink.runtime.state.filesystem.AbstractFsCheckpointStorageAccess;
 import org.apache.flink.runtime.state.filesystem.FileStateHandle;
 import org.apache.flink.runtime.state.filesystem.RelativeFileStateHandle;
@@ -55,6 +58,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -91,6 +95,8 @@ public abstract class MetadataV2V3SerializerBase {
     private static final byte PARTITIONABLE_OPERATOR_STATE_HANDLE = 4;
     private static final byte INCREMENTAL_KEY_GROUPS_HANDLE = 5;
     private static final byte RELATIVE_STREAM_STATE_HANDLE = 6;
+    private static final byte CHANGELOG_KEYED_STATE_HANDLE = 7;
+    private static final byte INCREMENTAL_HEAP_KEY_GROUPS_HANDLE = 8;
 
     // ------------------------------------------------------------------------
     //  (De)serialization entry points
@@ -302,6 +308,61 @@ public abstract class MetadataV2V3SerializerBase {
 
             serializeStreamStateHandleMap(incrementalKeyedStateHandle.getSharedState(), dos);
             serializeStreamStateHandleMap(incrementalKeyedStateHandle.getPrivateState(), dos);
+        } else if (stateHandle instanceof ChangelogStateBackendHandle) {
+            ChangelogStateBackendHandle changelogStateHandle =
+                    (ChangelogStateBackendHandle) stateHandle;
+
+            dos.writeByte(CHANGELOG_KEYED_STATE_HANDLE);
+            dos.writeInt(changelogStateHandle.getKeyGroupRange().getStartKeyGroup());
+            dos.writeInt(changelogStateHandle.getKeyGroupRange().getNumberOfKeyGroups());
+
+            Map<StateHandleID, KeyedStateHandle> materializedState =
+                    changelogStateHandle.getMaterializedState();
+            dos.writeInt(materializedState.size());
+            for (Map.Entry<StateHandleID, KeyedStateHandle> entry : materializedState.entrySet()) {
+                dos.writeUTF(entry.getKey().toString());
+                serializeKeyedStateHandle(entry.getValue(), dos);
+            }
+
+            List<StateChangelogHandle> changelogHandles =
+                    changelogStateHandle.getChangelogHandles();
+            dos.writeInt(changelogHandles.size());
+            for (StateChangelogHandle changelogHandle : changelogHandles) {
+                dos.writeUTF(changelogHandle.getSegmentId());
+                dos.writeLong(changelogHandle.getSequenceNumber());
+                dos.writeInt(changelogHandle.getKeyGroupRange().getStartKeyGroup());
+                dos.writeInt(changelogHandle.getKeyGroupRange().getNumberOfKeyGroups());
+                serializeStreamStateHandle(changelogHandle.getDelegateStateHandle(), dos);
+            }
+        } else if (stateHandle instanceof IncrementalKeyGroupsStateHandle) {
+            IncrementalKeyGroupsStateHandle incrementalKeyGroupsStateHandle =
+                    (IncrementalKeyGroupsStateHandle) stateHandle;
+
+            dos.writeByte(INCREMENTAL_HEAP_KEY_GROUPS_HANDLE);
+
+            dos.writeLong(incrementalKeyGroupsStateHandle.getCheckpointId());
+            dos.writeUTF(String.valueOf(incrementalKeyGroupsStateHandle.getBackendIdentifier()));
+            dos.writeInt(incrementalKeyGroupsStateHandle.getKeyGroupRange().getStartKeyGroup());
+            dos.writeInt(
+                    incrementalKeyGroupsStateHandle.getKeyGroupRange().getNumberOfKeyGroups());
+
+            // the key-groups refer to the streams by their position
+            Map<StateHandleID, StreamStateHandle> sharedState =
+                    incrementalKeyGroupsStateHandle.getSharedState();
+            Map<StateHandleID, Integer> streamIndexes = new HashMap<>(sharedState.size());
+            dos.writeInt(sharedState.size());
+            for (Map.Entry<StateHandleID, StreamStateHandle> entry : sharedState.entrySet()) {
+                streamIndexes.put(entry.getKey(), streamIndexes.size());
+                dos.writeUTF(entry.getKey().toString());
+                serializeStreamStateHandle(entry.getValue(), dos);
+            }
+            for (int keyGroup : incrementalKeyGroupsStateHandle.getKeyGroupRange()) {
+                dos.writeInt(
+                        streamIndexes.get(
+                                incrementalKeyGroupsStateHandle.getStateHandleIdForKeyGroup(
+                                        keyGroup)));
+                dos.writeLong(incrementalKeyGroupsStateHandle.getOffsetForKeyGroup(keyGroup));
+            }
         } else {
             throw new IllegalStateException(
                     "Unknown KeyedStateHandle type: " + stateHandle.getClass());
@@ -361,6 +422,61 @@ public abstract class MetadataV2V3SerializerBase {
                     sharedStates,
                     privateStates,
                     metaDataStateHandle);
+        } else if (CHANGELOG_KEYED_STATE_HANDLE == type) {
+
+            KeyGroupRange keyGroupRange = deserializeKeyGroupRange(dis);
+
+            int numMaterializedStates = dis.readInt();
+            Map<StateHandleID, KeyedStateHandle> materializedState =
+                    new LinkedHashMap<>(numMaterializedStates);
+            for (int i = 0; i < numMaterializedStates; ++i) {
+                StateHandleID materializationId = new StateHandleID(dis.readUTF());
+                materializedState.put(
+                        materializationId, deserializeKeyedStateHandle(dis, context));
+            }
+
+            int numChangelogHandles = dis.readInt();
+            List<StateChangelogHandle> changelogHandles = new ArrayList<>(numChangelogHandles);
+            for (int i = 0; i < numChangelogHandles; ++i) {
+                String segmentId = dis.readUTF();
+                long sequenceNumber = dis.readLong();
+                KeyGroupRange segmentKeyGroupRange = deserializeKeyGroupRange(dis);
+                StreamStateHandle segmentHandle = deserializeStreamStateHandle(dis, context);
+                changelogHandles.add(
+                        new StateChangelogHandle(
+                                segmentId, sequenceNumber, segmentKeyGroupRange, segmentHandle));
+            }
+
+            return new ChangelogStateBackendHandle(
+                    keyGroupRange, materializedState, changelogHandles);
+        } else if (INCREMENTAL_HEAP_KEY_GROUPS_HANDLE == type) {
+
+            long checkpointId = dis.readLong();
+            UUID backendId = UUID.fromString(dis.readUTF());
+            KeyGroupRange keyGroupRange = deserializeKeyGroupRange(dis);
+
+            int numStreams = dis.readInt();
+            Map<StateHandleID, StreamStateHandle> sharedState = new LinkedHashMap<>(numStreams);
+            StateHandleID[] streamIds = new StateHandleID[numStreams];
+            for (int i = 0; i < numStreams; ++i) {
+                streamIds[i] = new StateHandleID(dis.readUTF());
+                sharedState.put(streamIds[i], deserializeStreamStateHandle(dis, context));
+            }
+
+            int numKeyGroups = keyGroupRange.getNumberOfKeyGroups();
+            StateHandleID[] keyGroupStateHandleIds = new StateHandleID[numKeyGroups];
+            long[] offsets = new long[numKeyGroups];
+            for (int i = 0; i < numKeyGroups; ++i) {
+                keyGroupStateHandleIds[i] = streamIds[dis.readInt()];
+                offsets[i] = dis.readLong();
+            }
+
+            return new IncrementalKeyGroupsStateHandle(
+                    backendId,
+                    checkpointId,
+                    new KeyGroupRangeOffsets(keyGroupRange, offsets),
+                    keyGroupStateHandleIds,
+                    sharedState);
         } else {
             throw new IllegalStateException("Reading invalid KeyedStateHandle, type: " + type);
         }
@@ -572,6 +688,13 @@ public abstract class MetadataV2V3SerializerBase {
         return new StateObjectCollection<>(result);
     }
 
+    private static KeyGroupRange deserializeKeyGroupRange(DataInputStream dis)
+            throws IOException {
+        int startKeyGroup = dis.readInt();
+        int numKeyGroups = dis.readInt();
+        return KeyGroupRange.of(startKeyGroup, startKeyGroup + numKeyGroups - 1);
+    }
+
     private static void serializeStreamStateHandleMap(
             Map<StateHandleID, StreamStateHandle> map, DataOutputStream dos) throws IOException {
 
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.compression;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Base class for {@link BlockCompressor}s whose codec library only works on byte arrays. It writes
+ * the same header as {@link Lz4BlockCompressor}, i.e. the compressed length followed by the
+ * original length, both as little-endian integers.
+ *
+ * <p>Direct {@link ByteBuffer}s and targets which are smaller than the worst case compressed size
+ * are staged through reusable heap arrays, so the codec never writes out of bounds.
+ */
+abstract class AbstractBlockCompressor implements BlockCompressor {
+
+    static final int HEADER_LENGTH = 8;
+
+    private byte[] srcCopyBuffer = new byte[0];
+
+    private byte[] dstCopyBuffer = new byte[0];
+
+    /** Returns the worst case length of the compressed data, excluding the header. */
+    abstract int maxCompressedLength(int srcLen);
+
+    /**
+     * Compresses the data into a target which is guaranteed to have at least {@link
+     * #maxCompressedLength(int)} bytes of space and returns the length of the compressed data.
+     */
+    abstract int compressBlock(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff)
+            throws Exception;
+
+    @Override
+    public int getMaxCompressedSize(int srcSize) {
+        return HEADER_LENGTH + maxCompressedLength(srcSize);
+    }
+
+    @Override
+    public int compress(ByteBuffer src, int srcOff, int srcLen, ByteBuffer dst, int dstOff)
+            throws InsufficientBufferException {
+        final int prevSrcOff = src.position() + srcOff;
+        final int prevDstOff = dst.position() + dstOff;
+
+        final byte[] srcArray;
+        final int srcArrayOff;
+        if (src.hasArray()) {
+            srcArray = src.array();
+            srcArrayOff = src.arrayOffset() + prevSrcOff;
+        } else {
+            srcArray = srcCopyBuffer = ensureCapacity(srcCopyBuffer, srcLen);
+            srcArrayOff = 0;
+            ByteBuffer duplicate = src.duplicate();
+            duplicate.position(prevSrcOff);
+            duplicate.get(srcArray, 0, srcLen);
+        }
+
+        final int compressedLen;
+        if (dst.hasArray()) {
+            compressedLen =
+                    compress(
+                            srcArray,
+                            srcArrayOff,
+                            srcLen,
+                            dst.array(),
+                            dst.arrayOffset() + prevDstOff,
+                            dst.capacity() - prevDstOff);
+        } else {
+            final int maxCompressedSize = getMaxCompressedSize(srcLen);
+            dstCopyBuffer = ensureCapacity(dstCopyBuffer, maxCompressedSize);
+            compressedLen =
+                    compress(srcArray, srcArrayOff, srcLen, dstCopyBuffer, 0, maxCompressedSize);
+            if (compressedLen > dst.capacity() - prevDstOff) {
+                throw new InsufficientBufferException("Buffer length too small");
+            }
+            ByteBuffer duplicate = dst.duplicate();
+            duplicate.limit(duplicate.capacity());
+            duplicate.position(prevDstOff);
+            duplicate.put(dstCopyBuffer, 0, compressedLen);
+        }
+
+        src.position(prevSrcOff + srcLen);
+        dst.position(prevDstOff + compressedLen);
+        return compressedLen;
+    }
+
+    @Override
+    public int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff)
+            throws InsufficientBufferException {
+        return compress(src, srcOff, srcLen, dst, dstOff, dst.length - dstOff);
+    }
+
+    /** Compresses into at most {@code dstLen} bytes of the target, including the header. */
+    private int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen)
+            throws InsufficientBufferException {
+        if (srcOff < 0 || srcLen < 0 || src.length - srcOff < srcLen || dstOff < 0) {
+            throw new InsufficientBufferException("Illegal offset or length of the source data.");
+        }
+        if (dstLen < HEADER_LENGTH) {
+            throw new InsufficientBufferException("Buffer length too small");
+        }
+
+        final int compressedLen;
+        try {
+            if (dstLen >= getMaxCompressedSize(srcLen)) {
+                compressedLen = compressBlock(src, srcOff, srcLen, dst, dstOff + HEADER_LENGTH);
+            } else {
+                // the codec does not check the bounds of the target, so compress into a heap
+                // array which is large enough and copy the result back if it fits
+                dstCopyBuffer = ensureCapacity(dstCopyBuffer, maxCompressedLength(srcLen));
+                compressedLen = compressBlock(src, srcOff, srcLen, dstCopyBuffer, 0);
+                if (compressedLen > dstLen - HEADER_LENGTH) {
+                    throw new InsufficientBufferException("Buffer length too small");
+                }
+                System.arraycopy(dstCopyBuffer, 0, dst, dstOff + HEADER_LENGTH, compressedLen);
+            }
+        } catch (InsufficientBufferException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new InsufficientBufferException(e);
+        }
+
+        writeIntLE(compressedLen, dst, dstOff);
+        writeIntLE(srcLen, dst, dstOff + 4);
+        return HEADER_LENGTH + compressedLen;
+    }
+
+    static byte[] ensureCapacity(byte[] buffer, int capacity) {
+        return buffer.length >= capacity ? buffer : new byte[capacity];
+    }
+
+    private static void writeIntLE(int i, byte[] buf, int offset) {
+        buf[offset++] = (byte) i;
+        buf[offset++] = (byte) (i >>> 8);
+        buf[offset++] = (byte) (i >>> 16);
+        buf[offset] = (byte) (i >>> 24);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.compression;
+
+import java.nio.ByteBuffer;
+
+import static org.apache.flink.runtime.io.compression.AbstractBlockCompressor.HEADER_LENGTH;
+import static org.apache.flink.runtime.io.compression.AbstractBlockCompressor.ensureCapacity;
+
+/**
+ * Decode data written with an {@link AbstractBlockCompressor}. Direct {@link ByteBuffer}s are
+ * staged through reusable heap arrays because the codec library only works on byte arrays.
+ */
+abstract class AbstractBlockDecompressor implements BlockDecompressor {
+
+    private byte[] srcCopyBuffer = new byte[0];
+
+    private byte[] dstCopyBuffer = new byte[0];
+
+    /**
+     * Decompresses the data into a target which is guaranteed to have at least {@code
+     * originalLen} bytes of space and returns the length of the decompressed data.
+     */
+    abstract int decompressBlock(
+            byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int originalLen)
+            throws Exception;
+
+    @Override
+    public int decompress(ByteBuffer src, int srcOff, int srcLen, ByteBuffer dst, int dstOff)
+            throws DataCorruptionException {
+        final int prevSrcOff = src.position() + srcOff;
+        final int prevDstOff = dst.position() + dstOff;
+
+        if (srcLen < HEADER_LENGTH || src.limit() - prevSrcOff < srcLen) {
+            throw new DataCorruptionException("Source data is not integral for decompression.");
+        }
+
+        final byte[] srcArray;
+        final int srcArrayOff;
+        if (src.hasArray()) {
+            srcArray = src.array();
+            srcArrayOff = src.arrayOffset() + prevSrcOff;
+        } else {
+            srcArray = srcCopyBuffer = ensureCapacity(srcCopyBuffer, srcLen);
+            srcArrayOff = 0;
+            ByteBuffer duplicate = src.duplicate();
+            duplicate.position(prevSrcOff);
+            duplicate.get(srcArray, 0, srcLen);
+        }
+
+        final int compressedLen = readIntLE(srcArray, srcArrayOff);
+        final int originalLen = readIntLE(srcArray, srcArrayOff + 4);
+        if (dst.capacity() - prevDstOff < originalLen) {
+            throw new InsufficientBufferException("Buffer length too small");
+        }
+
+        if (dst.hasArray()) {
+            decompress(
+                    srcArray,
+                    srcArrayOff,
+                    srcLen,
+                    dst.array(),
+                    dst.arrayOffset() + prevDstOff,
+                    dst.capacity() - prevDstOff);
+        } else {
+            dstCopyBuffer = ensureCapacity(dstCopyBuffer, Math.max(originalLen, 0));
+            decompress(srcArray, srcArrayOff, srcLen, dstCopyBuffer, 0, dstCopyBuffer.length);
+            ByteBuffer duplicate = dst.duplicate();
+            duplicate.limit(duplicate.capacity());
+            duplicate.position(prevDstOff);
+            duplicate.put(dstCopyBuffer, 0, originalLen);
+        }
+
+        src.position(prevSrcOff + compressedLen + HEADER_LENGTH);
+        dst.position(prevDstOff + originalLen);
+        return originalLen;
+    }
+
+    @Override
+    public int decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff)
+            throws InsufficientBufferException, DataCorruptionException {
+        return decompress(src, srcOff, srcLen, dst, dstOff, dst.length - dstOff);
+    }
+
+    /** Decompresses into at most {@code dstLen} bytes of the target. */
+    private int decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen)
+            throws InsufficientBufferException, DataCorruptionException {
+        if (srcOff < 0 || srcLen < HEADER_LENGTH || src.length - srcOff < srcLen) {
+            throw new DataCorruptionException("Source data is not integral for decompression.");
+        }
+
+        final int compressedLen = readIntLE(src, srcOff);
+        final int originalLen = readIntLE(src, srcOff + 4);
+        validateLength(compressedLen, originalLen);
+
+        if (dstOff < 0 || dstLen < originalLen) {
+            throw new InsufficientBufferException("Buffer length too small");
+        }
+
+        if (srcLen - HEADER_LENGTH < compressedLen) {
+            throw new DataCorruptionException("Source data is not integral for decompression.");
+        }
+
+        if (originalLen == 0) {
+            return 0;
+        }
+
+        final int decompressedLen;
+        try {
+            decompressedLen =
+                    decompressBlock(
+                            src, srcOff + HEADER_LENGTH, compressedLen, dst, dstOff, originalLen);
+        } catch (DataCorruptionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new DataCorruptionException("Input is corrupted", e);
+        }
+
+        if (decompressedLen != originalLen) {
+            throw new DataCorruptionException("Input is corrupted, unexpected original length.");
+        }
+        return originalLen;
+    }
+
+    private static void validateLength(int compressedLen, int originalLen)
+            throws DataCorruptionException {
+        if (originalLen < 0
+                || compressedLen < 0
+                || (originalLen == 0 && compressedLen != 0)
+                || (originalLen != 0 && compressedLen == 0)) {
+            throw new DataCorruptionException("Input is corrupted, invalid length.");
+        }
+    }
+
+    private static int readIntLE(byte[] buf, int offset) {
+        return (buf[offset] & 0xFF)
+                | ((buf[offset + 1] & 0xFF) << 8)
+                | ((buf[offset + 2] & 0xFF) << 16)
+                | ((buf[offset + 3] & 0xFF) << 24);
+    }
+}
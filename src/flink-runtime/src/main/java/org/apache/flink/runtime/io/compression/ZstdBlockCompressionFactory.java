@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.compression;
+
+/**
+ * Implementation of {@link BlockCompressionFactory} for Zstandard codec. It trades more CPU time
+ * than {@link Lz4BlockCompressionFactory} for a noticeably higher compression ratio.
+ */
+public class ZstdBlockCompressionFactory implements BlockCompressionFactory {
+
+    /** The compression level, a fast level is used as shuffle compression is on the hot path. */
+    public static final int DEFAULT_COMPRESSION_LEVEL = 1;
+
+    @Override
+    public BlockCompressor getCompressor() {
+        return new ZstdBlockCompressor(DEFAULT_COMPRESSION_LEVEL);
+    }
+
+    @Override
+    public BlockDecompressor getDecompressor() {
+        return new ZstdBlockDecompressor();
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.compression;
+
+import com.github.luben.zstd.Zstd;
+
+/** Decode data written with {@link ZstdBlockCompressor}. */
+public class ZstdBlockDecompressor extends AbstractBlockDecompressor {
+
+    @Override
+    int decompressBlock(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int originalLen)
+            throws Exception {
+        long decompressedLen =
+                Zstd.decompressByteArray(dst, dstOff, originalLen, src, srcOff, srcLen);
+        if (Zstd.isError(decompressedLen)) {
+            throw new DataCorruptionException(
+                    "Input is corrupted: " + Zstd.getErrorName(decompressedLen));
+        }
+        return (int) decompressedLen;
+    }
+}
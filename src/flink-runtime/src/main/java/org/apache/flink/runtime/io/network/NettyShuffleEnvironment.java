@@ -45,11 +45,14 @@ import org.apache.flink.runtime.shuffle.ShuffleDescriptor;
 import org.apache.flink.runtime.shuffle.ShuffleEnvironment;
 import org.apache.flink.runtime.shuffle.ShuffleIOOwnerContext;
 import org.apache.flink.runtime.taskmanager.NettyShuffleEnvironmentConfiguration;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
 import org.apache.flink.util.Preconditions;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
@@ -58,6 +61,9 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static org.apache.flink.runtime.io.network.metrics.NettyShuffleMetricFactory.METRIC_GROUP_INPUT;
 import static org.apache.flink.runtime.io.network.metrics.NettyShuffleMetricFactory.METRIC_GROUP_OUTPUT;
@@ -99,6 +105,9 @@ public class NettyShuffleEnvironment
 
     private final Executor ioExecutor;
 
+    /** Periodically rebalances the network buffers, null if rebalancing is disabled. */
+    @Nullable private ScheduledExecutorService buffersRebalancer;
+
     private boolean isClosed;
 
     NettyShuffleEnvironment(
@@ -307,6 +316,8 @@ public class NettyShuffleEnvironment
 
             LOG.info("Starting the network environment and its components.");
 
+            startBuffersRebalancer();
+
             try {
                 LOG.debug("Starting network connection manager");
                 return connectionManager.start();
@@ -316,6 +327,28 @@ public class NettyShuffleEnvironment
         }
     }
 
+    private void startBuffersRebalancer() {
+        long interval = config.getBuffersRebalanceInterval().toMillis();
+        if (interval <= 0 || buffersRebalancer != null) {
+            return;
+        }
+
+        buffersRebalancer =
+                Executors.newSingleThreadScheduledExecutor(
+                        new ExecutorThreadFactory("flink-network-buffers-rebalancer"));
+        buffersRebalancer.scheduleWithFixedDelay(
+                () -> {
+                    try {
+                        networkBufferPool.rebalanceBuffers();
+                    } catch (Throwable t) {
+                        LOG.warn("Failed to rebalance the network buffers.", t);
+                    }
+                },
+                interval,
+                interval,
+                TimeUnit.MILLISECONDS);
+    }
+
     /** Tries to shut down all network I/O components. */
     @Override
     public void close() {
@@ -326,6 +359,10 @@ public class NettyShuffleEnvironment
 
             LOG.info("Shutting down the network environment and its components.");
 
+            if (buffersRebalancer != null) {
+                buffersRebalancer.shutdownNow();
+            }
+
             // terminate all network connections
             try {
                 LOG.debug("Shutting down network connection manager");
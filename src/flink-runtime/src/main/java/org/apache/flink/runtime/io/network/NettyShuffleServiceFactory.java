@@ -132,9 +132,11 @@ public class NettyShuffleServiceFactory
                         config.networkBufferSize(),
                         config.isBlockingShuffleCompressionEnabled(),
                         config.getCompressionCodec(),
+                        config.isAdaptiveCompressionEnabled(),
                         config.getMaxBuffersPerChannel(),
                         config.sortShuffleMinBuffers(),
                         config.sortShuffleMinParallelism(),
+                        config.sortShuffleMergeRegions(),
                         config.isSSLEnabled());
 
         SingleInputGateFactory singleInputGateFactory =
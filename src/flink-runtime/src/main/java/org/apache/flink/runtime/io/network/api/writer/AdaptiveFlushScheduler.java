@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.network.api.writer;
+
+import org.apache.flink.annotation.VisibleForTesting;
+
+import java.util.Arrays;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Decides on every tick of the output flusher which subpartitions of a {@link
+ * ResultPartitionWriter} are flushed, so that records meet a latency target while buffers are
+ * filled as far as the target allows.
+ *
+ * <p>The flush timeout of each subpartition is derived from its record arrival rate: a subpartition
+ * that receives records rarely is flushed soon, because waiting for the next record would only add
+ * latency, while a busy subpartition may wait for its buffer to fill up. A subpartition whose
+ * finished buffers are still queued is not flushed before the latency target is reached, because
+ * its consumer has no credit to take the data any sooner.
+ *
+ * <p>This class is not thread safe, it is driven by the output flusher thread only.
+ */
+final class AdaptiveFlushScheduler {
+
+    /** Weight of the latest tick in the moving average of the arrival rates. */
+    private static final double RATE_SMOOTHING = 0.25;
+
+    private final ResultPartitionWriter targetPartition;
+
+    private final long latencyTarget;
+
+    private final long tickInterval;
+
+    /** Number of records emitted to each subpartition up to the last tick. */
+    private final int[] lastNumRecords;
+
+    /** Moving average of the records per millisecond emitted to each subpartition. */
+    private final double[] arrivalRates;
+
+    /** Time the records of each subpartition have been waiting for a flush, -1 if none wait. */
+    private final long[] pendingTimes;
+
+    private final long[] flushTimeouts;
+
+    AdaptiveFlushScheduler(ResultPartitionWriter targetPartition, long latencyTarget) {
+        checkArgument(latencyTarget > 0, "The latency target must be positive.");
+        this.targetPartition = checkNotNull(targetPartition);
+        this.latencyTarget = latencyTarget;
+        this.tickInterval = Math.max(1, latencyTarget / 4);
+
+        int numSubpartitions = targetPartition.getNumberOfSubpartitions();
+        this.lastNumRecords = new int[numSubpartitions];
+        this.arrivalRates = new double[numSubpartitions];
+        this.pendingTimes = new long[numSubpartitions];
+        this.flushTimeouts = new long[numSubpartitions];
+        Arrays.fill(pendingTimes, -1L);
+        Arrays.fill(flushTimeouts, latencyTarget);
+        for (int i = 0; i < numSubpartitions; i++) {
+            targetPartition.reportFlushTimeout(i, latencyTarget);
+        }
+    }
+
+    long getTickInterval() {
+        return tickInterval;
+    }
+
+    /**
+     * Flushes the subpartitions that are due.
+     *
+     * @param numRecords the number of records emitted to each subpartition so far
+     */
+    void onTick(int[] numRecords) {
+        for (int i = 0; i < pendingTimes.length; i++) {
+            int newRecords = numRecords[i] - lastNumRecords[i];
+            lastNumRecords[i] = numRecords[i];
+
+            arrivalRates[i] =
+                    RATE_SMOOTHING * newRecords / tickInterval
+                            + (1 - RATE_SMOOTHING) * arrivalRates[i];
+            long flushTimeout = computeFlushTimeout(latencyTarget, tickInterval, arrivalRates[i]);
+            if (flushTimeout != flushTimeouts[i]) {
+                flushTimeouts[i] = flushTimeout;
+                targetPartition.reportFlushTimeout(i, flushTimeout);
+            }
+
+            if (newRecords != 0 && pendingTimes[i] < 0) {
+                pendingTimes[i] = 0;
+            } else if (pendingTimes[i] < 0) {
+                continue;
+            }
+            // the records may have arrived anywhere within the last tick
+            pendingTimes[i] += tickInterval;
+
+            // flush now if the records would be late at the next tick
+            long nextPendingTime = pendingTimes[i] + tickInterval;
+            if (nextPendingTime > latencyTarget
+                    || (nextPendingTime > flushTimeout && !isBackPressured(i))) {
+                targetPartition.flush(i);
+                pendingTimes[i] = -1;
+            }
+        }
+    }
+
+    private boolean isBackPressured(int targetSubpartition) {
+        // besides the buffer being written, there are finished buffers the consumer did not take
+        return targetPartition.getNumberOfQueuedBuffers(targetSubpartition) > 1;
+    }
+
+    /**
+     * Returns the flush timeout for a subpartition with the given arrival rate. The expected time
+     * until the next record arrives is deducted from the latency target, because only the next
+     * record can make waiting worthwhile.
+     */
+    @VisibleForTesting
+    static long computeFlushTimeout(long latencyTarget, long tickInterval, double arrivalRate) {
+        if (arrivalRate <= 0) {
+            return tickInterval;
+        }
+        double interArrivalTime = Math.min(1 / arrivalRate, latencyTarget);
+        return Math.max(tickInterval, latencyTarget - (long) interArrivalTime);
+    }
+}
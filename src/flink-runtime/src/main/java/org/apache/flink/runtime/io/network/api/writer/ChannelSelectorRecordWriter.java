@@ -43,7 +43,16 @@ public final class ChannelSelectorRecordWriter<T extends IOReadableWritable>
             ChannelSelector<T> channelSelector,
             long timeout,
             String taskName) {
-        super(writer, timeout, taskName);
+        this(writer, channelSelector, timeout, false, taskName);
+    }
+
+    ChannelSelectorRecordWriter(
+            ResultPartitionWriter writer,
+            ChannelSelector<T> channelSelector,
+            long timeout,
+            boolean adaptiveTimeout,
+            String taskName) {
+        super(writer, timeout, adaptiveTimeout, taskName);
 
         this.channelSelector = checkNotNull(channelSelector);
         this.channelSelector.setup(numberOfChannels);
@@ -23,6 +23,7 @@ import org.apache.flink.core.io.IOReadableWritable;
 import org.apache.flink.core.memory.DataOutputSerializer;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.AvailabilityProvider;
+import org.apache.flink.runtime.io.network.partition.ObjectHandoverQueue;
 import org.apache.flink.runtime.metrics.groups.TaskIOMetricGroup;
 import org.apache.flink.util.XORShiftRandom;
 
@@ -35,8 +36,10 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Random;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
 
 /**
  * An abstract record-oriented runtime result writer.
@@ -67,17 +70,37 @@ public abstract class RecordWriter<T extends IOReadableWritable> implements Avai
     /** The thread that periodically flushes the output, to give an upper latency bound. */
     @Nullable private final OutputFlusher outputFlusher;
 
+    /**
+     * The number of records and events emitted to each subpartition, or null if the output is not
+     * flushed adaptively. The flusher thread reads the counts in a best-effort way.
+     */
+    @Nullable private final int[] numEmitted;
+
     /**
      * To avoid synchronization overhead on the critical path, best-effort error tracking is enough
      * here.
      */
     private Throwable flusherException;
 
+    /**
+     * Copies a record into the object that is handed over to a local consumer in place of the
+     * serialized record, or null if records are always sent serialized.
+     */
+    @Nullable private Function<T, Object> objectHandoverCopier;
+
+    /** The serialized placeholder record that is written for each handed over object. */
+    @Nullable private ByteBuffer objectHandoverPlaceholder;
+
     private volatile Throwable volatileFlusherException;
     private int volatileFlusherExceptionCheckSkipCount;
     private static final int VOLATILE_FLUSHER_EXCEPTION_MAX_CHECK_SKIP_COUNT = 100;
 
     RecordWriter(ResultPartitionWriter writer, long timeout, String taskName) {
+        this(writer, timeout, false, taskName);
+    }
+
+    RecordWriter(
+            ResultPartitionWriter writer, long timeout, boolean adaptiveTimeout, String taskName) {
         this.targetPartition = writer;
         this.numberOfChannels = writer.getNumberOfSubpartitions();
 
@@ -87,13 +110,20 @@ public abstract class RecordWriter<T extends IOReadableWritable> implements Avai
         this.flushAlways = (timeout == 0);
         if (timeout == -1 || timeout == 0) {
             outputFlusher = null;
+            numEmitted = null;
         } else {
             String threadName =
                     taskName == null
                             ? DEFAULT_OUTPUT_FLUSH_THREAD_NAME
                             : DEFAULT_OUTPUT_FLUSH_THREAD_NAME + " for " + taskName;
 
-            outputFlusher = new OutputFlusher(threadName, timeout);
+            if (adaptiveTimeout) {
+                numEmitted = new int[numberOfChannels];
+                outputFlusher = new AdaptiveOutputFlusher(threadName, timeout);
+            } else {
+                numEmitted = null;
+                outputFlusher = new OutputFlusher(threadName, timeout);
+            }
             outputFlusher.start();
         }
     }
@@ -101,13 +131,46 @@ public abstract class RecordWriter<T extends IOReadableWritable> implements Avai
     protected void emit(T record, int targetSubpartition) throws IOException {
         checkErroneous();
 
-        targetPartition.emitRecord(serializeRecord(serializer, record), targetSubpartition);
+        targetPartition.emitRecord(
+                serializeOrHandOver(record, targetSubpartition), targetSubpartition);
 
+        if (numEmitted != null) {
+            numEmitted[targetSubpartition]++;
+        }
         if (flushAlways) {
             targetPartition.flush(targetSubpartition);
         }
     }
 
+    private ByteBuffer serializeOrHandOver(T record, int targetSubpartition) throws IOException {
+        if (objectHandoverCopier != null) {
+            ObjectHandoverQueue queue = targetPartition.getObjectHandoverQueue(targetSubpartition);
+            if (queue != null && queue.hasCapacity()) {
+                queue.add(objectHandoverCopier.apply(record));
+                objectHandoverPlaceholder.rewind();
+                return objectHandoverPlaceholder;
+            }
+        }
+        return serializeRecord(serializer, record);
+    }
+
+    /**
+     * Lets this writer hand over records as objects to consumers in the same TaskManager. For every
+     * such record, the copy created by the given function is queued for the consumer and the given
+     * placeholder record is written in place of the serialized record. The consumer must replace
+     * each placeholder by the next object of the {@link ObjectHandoverQueue} of its channel.
+     *
+     * <p>Records emitted to remote consumers, broadcast records and records emitted while the
+     * queue of the consumer is full are serialized as usual.
+     */
+    public void enableObjectHandover(Function<T, Object> copier, T placeholder)
+            throws IOException {
+        ByteBuffer serialized = serializeRecord(serializer, placeholder);
+        objectHandoverPlaceholder = ByteBuffer.allocate(serialized.remaining());
+        objectHandoverPlaceholder.put(serialized).flip();
+        objectHandoverCopier = checkNotNull(copier);
+    }
+
     public void broadcastEvent(AbstractEvent event) throws IOException {
         broadcastEvent(event, false);
     }
@@ -115,6 +178,11 @@ public abstract class RecordWriter<T extends IOReadableWritable> implements Avai
     public void broadcastEvent(AbstractEvent event, boolean isPriorityEvent) throws IOException {
         targetPartition.broadcastEvent(event, isPriorityEvent);
 
+        if (numEmitted != null) {
+            for (int i = 0; i < numEmitted.length; i++) {
+                numEmitted[i]++;
+            }
+        }
         if (flushAlways) {
             flushAll();
         }
@@ -215,14 +283,14 @@ public abstract class RecordWriter<T extends IOReadableWritable> implements Avai
      */
     private class OutputFlusher extends Thread {
 
-        private final long timeout;
+        private final long interval;
 
         private volatile boolean running = true;
 
-        OutputFlusher(String name, long timeout) {
+        OutputFlusher(String name, long interval) {
             super(name);
             setDaemon(true);
-            this.timeout = timeout;
+            this.interval = interval;
         }
 
         public void terminate() {
@@ -235,7 +303,7 @@ public abstract class RecordWriter<T extends IOReadableWritable> implements Avai
             try {
                 while (running) {
                     try {
-                        Thread.sleep(timeout);
+                        Thread.sleep(interval);
                     } catch (InterruptedException e) {
                         // propagate this if we are still running, because it should not happen
                         // in that case
@@ -246,12 +314,39 @@ public abstract class RecordWriter<T extends IOReadableWritable> implements Avai
 
                     // any errors here should let the thread come to a halt and be
                     // recognized by the writer
-                    flushAll();
+                    flush();
                 }
             } catch (Throwable t) {
                 notifyFlusherException(t);
             }
         }
+
+        void flush() {
+            flushAll();
+        }
+    }
+
+    /**
+     * An output flusher that treats the timeout as a latency target and flushes each subpartition
+     * separately, as decided by an {@link AdaptiveFlushScheduler}.
+     */
+    private class AdaptiveOutputFlusher extends OutputFlusher {
+
+        private final AdaptiveFlushScheduler scheduler;
+
+        AdaptiveOutputFlusher(String name, long latencyTarget) {
+            this(name, new AdaptiveFlushScheduler(targetPartition, latencyTarget));
+        }
+
+        private AdaptiveOutputFlusher(String name, AdaptiveFlushScheduler scheduler) {
+            super(name, scheduler.getTickInterval());
+            this.scheduler = scheduler;
+        }
+
+        @Override
+        void flush() {
+            scheduler.onTick(numEmitted);
+        }
     }
 
     @VisibleForTesting
@@ -27,6 +27,8 @@ public class RecordWriterBuilder<T extends IOReadableWritable> {
 
     private long timeout = -1;
 
+    private boolean adaptiveTimeout = false;
+
     private String taskName = "test";
 
     public RecordWriterBuilder<T> setChannelSelector(ChannelSelector<T> selector) {
@@ -39,6 +41,15 @@ public class RecordWriterBuilder<T extends IOReadableWritable> {
         return this;
     }
 
+    /**
+     * Sets whether a positive timeout is treated as a latency target for flushing each channel
+     * adaptively. This has no effect for broadcast writers, which share buffers across channels.
+     */
+    public RecordWriterBuilder<T> setAdaptiveTimeout(boolean adaptiveTimeout) {
+        this.adaptiveTimeout = adaptiveTimeout;
+        return this;
+    }
+
     public RecordWriterBuilder<T> setTaskName(String taskName) {
         this.taskName = taskName;
         return this;
@@ -48,7 +59,8 @@ public class RecordWriterBuilder<T extends IOReadableWritable> {
         if (selector.isBroadcast()) {
             return new BroadcastRecordWriter<>(writer, timeout, taskName);
         } else {
-            return new ChannelSelectorRecordWriter<>(writer, selector, timeout, taskName);
+            return new ChannelSelectorRecordWriter<>(
+                    writer, selector, timeout, adaptiveTimeout, taskName);
         }
     }
 }
@@ -21,6 +21,7 @@ package org.apache.flink.runtime.io.network.api.writer;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.AvailabilityProvider;
 import org.apache.flink.runtime.io.network.partition.BufferAvailabilityListener;
+import org.apache.flink.runtime.io.network.partition.ObjectHandoverQueue;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.partition.ResultSubpartitionView;
 import org.apache.flink.runtime.metrics.groups.TaskIOMetricGroup;
@@ -53,6 +54,16 @@ public interface ResultPartitionWriter extends AutoCloseable, AvailabilityProvid
     /** Writes the given serialized record to the target subpartition. */
     void emitRecord(ByteBuffer record, int targetSubpartition) throws IOException;
 
+    /**
+     * Returns the queue through which records can be handed over as objects to the consumer of the
+     * target subpartition, or null if records must be sent serialized. The queue only exists once a
+     * consumer in the same TaskManager has requested it.
+     */
+    @Nullable
+    default ObjectHandoverQueue getObjectHandoverQueue(int targetSubpartition) {
+        return null;
+    }
+
     /**
      * Writes the given serialized record to all subpartitions. One can also achieve the same effect
      * by emitting the same record to all subpartitions one by one, however, this method can have
@@ -78,6 +89,20 @@ public interface ResultPartitionWriter extends AutoCloseable, AvailabilityProvid
     /** Manually trigger the consumption of data from the given subpartitions. */
     void flush(int subpartitionIndex);
 
+    /**
+     * Returns the number of buffers queued in the given subpartition in a best-effort way. Finished
+     * buffers stay queued while the consumer has no credit to take them.
+     */
+    default int getNumberOfQueuedBuffers(int targetSubpartition) {
+        return 0;
+    }
+
+    /**
+     * Reports the flush timeout that the writer currently applies to the given subpartition, so
+     * that it can be exposed as a metric.
+     */
+    default void reportFlushTimeout(int targetSubpartition, long timeoutMillis) {}
+
     /**
      * Fail the production of the partition.
      *
@@ -18,6 +18,7 @@
 
 package org.apache.flink.runtime.io.network.buffer;
 
+import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
@@ -27,16 +28,51 @@ import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 import static org.apache.flink.util.Preconditions.checkState;
 
-/** Compressor for {@link Buffer}. */
+/**
+ * Compressor for {@link Buffer}.
+ *
+ * <p>In adaptive mode, the compression ratio of every {@link #ADAPTIVE_SAMPLE_BUFFERS} compressed
+ * buffers is evaluated. If compression saved less than {@link #ADAPTIVE_MIN_SAVING_RATIO} of the
+ * sampled bytes, the data is considered incompressible and the next {@link
+ * #ADAPTIVE_SKIP_BUFFERS} buffers are passed through uncompressed before sampling again.
+ */
 public class BufferCompressor {
 
+    /** Number of compressed buffers whose compression ratio is evaluated at once. */
+    @VisibleForTesting static final int ADAPTIVE_SAMPLE_BUFFERS = 16;
+
+    /** Number of buffers which are not compressed after a sample turned out incompressible. */
+    @VisibleForTesting static final int ADAPTIVE_SKIP_BUFFERS = 512;
+
+    /** Minimum fraction of the sampled bytes compression must save to be worth the CPU time. */
+    @VisibleForTesting static final double ADAPTIVE_MIN_SAVING_RATIO = 0.1;
+
     /** The backing block compressor for data compression. */
     private final BlockCompressor blockCompressor;
 
     /** The intermediate buffer for the compressed data. */
     private final NetworkBuffer internalBuffer;
 
+    /** Whether compression is skipped for data which does not compress well. */
+    private final boolean adaptive;
+
+    /** Number of buffers compressed in the current sample. */
+    private int numSampledBuffers;
+
+    /** Original size of the buffers in the current sample. */
+    private long sampledOriginalBytes;
+
+    /** Compressed size of the buffers in the current sample. */
+    private long sampledCompressedBytes;
+
+    /** Number of buffers which are still to be passed through without compression. */
+    private int numBuffersToSkip;
+
     public BufferCompressor(int bufferSize, String factoryName) {
+        this(bufferSize, factoryName, false);
+    }
+
+    public BufferCompressor(int bufferSize, String factoryName, boolean adaptive) {
         checkArgument(bufferSize > 0);
         checkNotNull(factoryName);
         // the size of this intermediate heap buffer will be gotten from the
@@ -48,6 +84,7 @@ public class BufferCompressor {
                         MemorySegmentFactory.wrap(heapBuffer), FreeingBufferRecycler.INSTANCE);
         this.blockCompressor =
                 BlockCompressionFactory.createBlockCompressionFactory(factoryName).getCompressor();
+        this.adaptive = adaptive;
     }
 
     /**
@@ -106,20 +143,46 @@ public class BufferCompressor {
                 internalBuffer.refCnt() == 1,
                 "Illegal reference count, buffer need to be released.");
 
+        if (adaptive && numBuffersToSkip > 0) {
+            --numBuffersToSkip;
+            return 0;
+        }
+
+        int length = buffer.getSize();
+        int compressedLen;
         try {
-            int length = buffer.getSize();
             // compress the given buffer into the internal heap buffer
-            int compressedLen =
+            compressedLen =
                     blockCompressor.compress(
                             buffer.getNioBuffer(0, length),
                             0,
                             length,
                             internalBuffer.getNioBuffer(0, internalBuffer.capacity()),
                             0);
-            return compressedLen < length ? compressedLen : 0;
         } catch (Throwable throwable) {
             // return the original buffer if failed to compress
-            return 0;
+            compressedLen = length;
+        }
+
+        if (adaptive) {
+            sample(length, Math.min(compressedLen, length));
+        }
+        return compressedLen < length ? compressedLen : 0;
+    }
+
+    private void sample(int originalLen, int compressedLen) {
+        sampledOriginalBytes += originalLen;
+        sampledCompressedBytes += compressedLen;
+        if (++numSampledBuffers < ADAPTIVE_SAMPLE_BUFFERS) {
+            return;
+        }
+
+        long savedBytes = sampledOriginalBytes - sampledCompressedBytes;
+        if (savedBytes < ADAPTIVE_MIN_SAVING_RATIO * sampledOriginalBytes) {
+            numBuffersToSkip = ADAPTIVE_SKIP_BUFFERS;
         }
+        numSampledBuffers = 0;
+        sampledOriginalBytes = 0;
+        sampledCompressedBytes = 0;
     }
 }
@@ -51,6 +51,9 @@ public class BufferConsumerWithPartialRecordLength {
     private final BufferConsumer bufferConsumer;
     private final int partialRecordLength;
 
+    /** The {@link System#nanoTime()} since the data is available to the reader, 0 if unknown. */
+    private long availableSinceNanos;
+
     public BufferConsumerWithPartialRecordLength(
             BufferConsumer bufferConsumer, int partialRecordLength) {
         this.bufferConsumer = checkNotNull(bufferConsumer);
@@ -65,6 +68,14 @@ public class BufferConsumerWithPartialRecordLength {
         return partialRecordLength;
     }
 
+    public long getAvailableSinceNanos() {
+        return availableSinceNanos;
+    }
+
+    public void setAvailableSinceNanos(long availableSinceNanos) {
+        this.availableSinceNanos = availableSinceNanos;
+    }
+
     public Buffer build() {
         return bufferConsumer.build();
     }
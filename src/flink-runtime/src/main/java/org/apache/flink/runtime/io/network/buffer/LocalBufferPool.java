@@ -126,6 +126,14 @@ class LocalBufferPool implements BufferPool {
     @GuardedBy("availableMemorySegments")
     private boolean requestingWhenAvailable;
 
+    /**
+     * Number of buffer listeners registered since the last {@link
+     * #getAndResetNumUnsatisfiedRequests()}, i.e. of requests for floating buffers that could not
+     * be served.
+     */
+    @GuardedBy("availableMemorySegments")
+    private int numUnsatisfiedRequests;
+
     /**
      * Local buffer pool based on the given <tt>networkBufferPool</tt> with a minimal number of
      * network buffers being available.
@@ -557,10 +565,23 @@ class LocalBufferPool implements BufferPool {
             }
 
             registeredListeners.add(listener);
+            numUnsatisfiedRequests++;
             return true;
         }
     }
 
+    /**
+     * Returns the number of requests that had to wait for a buffer since the last call, as a
+     * measure of how much this pool is starved.
+     */
+    int getAndResetNumUnsatisfiedRequests() {
+        synchronized (availableMemorySegments) {
+            int result = numUnsatisfiedRequests;
+            numUnsatisfiedRequests = 0;
+            return result;
+        }
+    }
+
     @Override
     public void setNumBuffers(int numBuffers) {
         CompletableFuture<?> toNotify = null;
@@ -41,8 +41,10 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
@@ -62,6 +64,12 @@ public class NetworkBufferPool
 
     private static final Logger LOG = LoggerFactory.getLogger(NetworkBufferPool.class);
 
+    /** The weight of the excess buffers of a starved pool relative to other pools. */
+    @VisibleForTesting static final int STARVED_POOL_WEIGHT = 4;
+
+    /** The number of rebalancing rounds a starved pool keeps its weight without starving again. */
+    private static final int STARVATION_ROUNDS = 3;
+
     private final int totalNumberOfMemorySegments;
 
     private final int memorySegmentSize;
@@ -76,6 +84,12 @@ public class NetworkBufferPool
 
     private final Set<LocalBufferPool> allBufferPools = new HashSet<>();
 
+    /**
+     * The pools that were starved at one of the last {@link #STARVATION_ROUNDS} rebalancing rounds,
+     * with the number of rounds they keep their larger share of the excess buffers.
+     */
+    private final Map<LocalBufferPool, Integer> starvedBufferPools = new HashMap<>();
+
     private int numTotalRequiredBuffers;
 
     private final Duration requestSegmentsTimeout;
@@ -406,6 +420,7 @@ public class NetworkBufferPool
         synchronized (factoryLock) {
             if (allBufferPools.remove(bufferPool)) {
                 numTotalRequiredBuffers -= bufferPool.getNumberOfRequiredMemorySegments();
+                starvedBufferPools.remove(bufferPool);
 
                 redistributeBuffers();
             }
@@ -434,6 +449,52 @@ public class NetworkBufferPool
         }
     }
 
+    /**
+     * Moves the buffers that are not required by any pool towards the pools that ran out of
+     * floating buffers since the last call. Such pools get a {@link #STARVED_POOL_WEIGHT} times
+     * larger share of the excess buffers, for as long as they keep starving, while every pool keeps
+     * at least its required buffers. The total number of buffers is unchanged, so this shifts
+     * memory from idle pools to busy ones without over-provisioning.
+     *
+     * <p>This method is meant to be called periodically.
+     */
+    public void rebalanceBuffers() {
+        synchronized (factoryLock) {
+            if (isDestroyed) {
+                return;
+            }
+
+            boolean changed = false;
+            for (LocalBufferPool bufferPool : allBufferPools) {
+                if (bufferPool.getAndResetNumUnsatisfiedRequests() > 0) {
+                    changed |= starvedBufferPools.put(bufferPool, STARVATION_ROUNDS) == null;
+                } else {
+                    Integer rounds = starvedBufferPools.get(bufferPool);
+                    if (rounds == null) {
+                        continue;
+                    }
+                    if (rounds > 1) {
+                        starvedBufferPools.put(bufferPool, rounds - 1);
+                    } else {
+                        starvedBufferPools.remove(bufferPool);
+                        changed = true;
+                    }
+                }
+            }
+
+            if (changed) {
+                redistributeBuffers();
+            }
+        }
+    }
+
+    @VisibleForTesting
+    boolean isStarved(BufferPool bufferPool) {
+        synchronized (factoryLock) {
+            return starvedBufferPools.containsKey(bufferPool);
+        }
+    }
+
     // Must be called from synchronized block
     private void tryRedistributeBuffers(int numberOfSegmentsToRequest) throws IOException {
         assert Thread.holdsLock(factoryLock);
@@ -475,6 +536,11 @@ public class NetworkBufferPool
             return;
         }
 
+        if (!starvedBufferPools.isEmpty()) {
+            redistributeBuffersByStarvation(numAvailableMemorySegment);
+            return;
+        }
+
         /*
          * With buffer pools being potentially limited, let's distribute the available memory
          * segments based on the capacity of each buffer pool, i.e. the maximum number of segments
@@ -534,6 +600,75 @@ public class NetworkBufferPool
         assert (numDistributedMemorySegment == memorySegmentsToDistribute);
     }
 
+    /**
+     * Distributes the available memory segments like {@link #redistributeBuffers()}, but weighs
+     * the capacity of starved pools with {@link #STARVED_POOL_WEIGHT}. The parts that exceed the
+     * capacity of a pool are handed to the other pools, starved pools first.
+     */
+    private void redistributeBuffersByStarvation(int numAvailableMemorySegment) {
+        assert Thread.holdsLock(factoryLock);
+
+        // starved pools first, so that they get the remaining segments first
+        final List<LocalBufferPool> bufferPools = new ArrayList<>(starvedBufferPools.keySet());
+        for (LocalBufferPool bufferPool : allBufferPools) {
+            if (!starvedBufferPools.containsKey(bufferPool)) {
+                bufferPools.add(bufferPool);
+            }
+        }
+
+        final int[] capacities = new int[bufferPools.size()];
+        long totalCapacity = 0; // long to avoid int overflow
+        long totalWeight = 0;
+        for (int i = 0; i < capacities.length; i++) {
+            LocalBufferPool bufferPool = bufferPools.get(i);
+            int excessMax =
+                    bufferPool.getMaxNumberOfMemorySegments()
+                            - bufferPool.getNumberOfRequiredMemorySegments();
+            capacities[i] = Math.min(numAvailableMemorySegment, excessMax);
+            totalCapacity += capacities[i];
+            totalWeight += getWeight(bufferPool, capacities[i]);
+        }
+
+        if (totalCapacity == 0) {
+            return;
+        }
+
+        final int memorySegmentsToDistribute =
+                MathUtils.checkedDownCast(Math.min(numAvailableMemorySegment, totalCapacity));
+
+        final int[] sizes = new int[capacities.length];
+        long totalWeightUsed = 0;
+        int numDistributedMemorySegment = 0;
+        int numRemainingMemorySegment = memorySegmentsToDistribute;
+        for (int i = 0; i < capacities.length; i++) {
+            totalWeightUsed += getWeight(bufferPools.get(i), capacities[i]);
+            int share =
+                    MathUtils.checkedDownCast(
+                            memorySegmentsToDistribute * totalWeightUsed / totalWeight
+                                    - numDistributedMemorySegment);
+            numDistributedMemorySegment += share;
+            sizes[i] = Math.min(share, capacities[i]);
+            numRemainingMemorySegment -= sizes[i];
+        }
+
+        for (int i = 0; i < capacities.length && numRemainingMemorySegment > 0; i++) {
+            int extra = Math.min(numRemainingMemorySegment, capacities[i] - sizes[i]);
+            sizes[i] += extra;
+            numRemainingMemorySegment -= extra;
+        }
+
+        for (int i = 0; i < capacities.length; i++) {
+            LocalBufferPool bufferPool = bufferPools.get(i);
+            bufferPool.setNumBuffers(bufferPool.getNumberOfRequiredMemorySegments() + sizes[i]);
+        }
+    }
+
+    private long getWeight(LocalBufferPool bufferPool, int capacity) {
+        return starvedBufferPools.containsKey(bufferPool)
+                ? (long) capacity * STARVED_POOL_WEIGHT
+                : capacity;
+    }
+
     private String getConfigDescription() {
         return String.format(
                 "The total number of network buffers is currently set to %d of %d bytes each. "
@@ -175,6 +175,7 @@ public class NettyShuffleMetricFactory {
             ResultPartition[] resultPartitions) {
         if (isDetailedMetrics) {
             ResultPartitionMetrics.registerQueueLengthMetrics(outputGroup, resultPartitions);
+            ResultPartitionMetrics.registerSubpartitionMetrics(outputGroup, resultPartitions);
         }
         buffersGroup.gauge(METRIC_OUTPUT_QUEUE_LENGTH, new OutputBuffersGauge(resultPartitions));
         buffersGroup.gauge(
@@ -105,6 +105,71 @@ public class ResultPartitionMetrics {
         return partition.getNumberOfQueuedBuffers() / (float) partition.getNumberOfSubpartitions();
     }
 
+    /**
+     * Iterates over all sub-partitions and collects the minimum flush timeout chosen by adaptive
+     * flushing.
+     *
+     * @return minimum flush timeout per sub-partition (<tt>-1</tt> if not flushed adaptively)
+     */
+    long refreshAndGetMinFlushTimeout() {
+        long min = Long.MAX_VALUE;
+        int numSubpartitions = partition.getNumberOfSubpartitions();
+
+        if (numSubpartitions == 0) {
+            return -1;
+        }
+
+        for (int targetSubpartition = 0;
+                targetSubpartition < numSubpartitions;
+                ++targetSubpartition) {
+            min = Math.min(min, partition.getFlushTimeout(targetSubpartition));
+        }
+
+        return min;
+    }
+
+    /**
+     * Iterates over all sub-partitions and collects the maximum flush timeout chosen by adaptive
+     * flushing.
+     *
+     * @return maximum flush timeout per sub-partition (<tt>-1</tt> if not flushed adaptively)
+     */
+    long refreshAndGetMaxFlushTimeout() {
+        long max = -1;
+        int numSubpartitions = partition.getNumberOfSubpartitions();
+
+        for (int targetSubpartition = 0;
+                targetSubpartition < numSubpartitions;
+                ++targetSubpartition) {
+            max = Math.max(max, partition.getFlushTimeout(targetSubpartition));
+        }
+
+        return max;
+    }
+
+    /**
+     * Iterates over all sub-partitions and collects the average flush timeout chosen by adaptive
+     * flushing.
+     *
+     * @return average flush timeout per sub-partition (<tt>-1</tt> if not flushed adaptively)
+     */
+    float refreshAndGetAvgFlushTimeout() {
+        long total = 0;
+        int numSubpartitions = partition.getNumberOfSubpartitions();
+
+        if (numSubpartitions == 0) {
+            return -1;
+        }
+
+        for (int targetSubpartition = 0;
+                targetSubpartition < numSubpartitions;
+                ++targetSubpartition) {
+            total += partition.getFlushTimeout(targetSubpartition);
+        }
+
+        return total / (float) numSubpartitions;
+    }
+
     // ------------------------------------------------------------------------
     //  Gauges to access the stats
     // ------------------------------------------------------------------------
@@ -145,6 +210,33 @@ public class ResultPartitionMetrics {
         };
     }
 
+    private Gauge<Long> getMinFlushTimeoutGauge() {
+        return new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return refreshAndGetMinFlushTimeout();
+            }
+        };
+    }
+
+    private Gauge<Long> getMaxFlushTimeoutGauge() {
+        return new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return refreshAndGetMaxFlushTimeout();
+            }
+        };
+    }
+
+    private Gauge<Float> getAvgFlushTimeoutGauge() {
+        return new Gauge<Float>() {
+            @Override
+            public Float getValue() {
+                return refreshAndGetAvgFlushTimeout();
+            }
+        };
+    }
+
     // ------------------------------------------------------------------------
     //  Static access
     // ------------------------------------------------------------------------
@@ -159,6 +251,16 @@ public class ResultPartitionMetrics {
             group.gauge("minQueueLen", metrics.getMinQueueLenGauge());
             group.gauge("maxQueueLen", metrics.getMaxQueueLenGauge());
             group.gauge("avgQueueLen", metrics.getAvgQueueLenGauge());
+            group.gauge("minFlushTimeout", metrics.getMinFlushTimeoutGauge());
+            group.gauge("maxFlushTimeout", metrics.getMaxFlushTimeoutGauge());
+            group.gauge("avgFlushTimeout", metrics.getAvgFlushTimeoutGauge());
+        }
+    }
+
+    public static void registerSubpartitionMetrics(
+            MetricGroup parent, ResultPartition[] partitions) {
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i].registerSubpartitionMetrics(parent.addGroup(i));
         }
     }
 }
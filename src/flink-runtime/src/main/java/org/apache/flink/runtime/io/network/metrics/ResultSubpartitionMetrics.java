@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.network.metrics;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.MeterView;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartition;
+import org.apache.flink.runtime.metrics.DescriptiveStatisticsHistogram;
+import org.apache.flink.runtime.metrics.MetricNames;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Collects metrics of a single {@link ResultSubpartition}, i.e. of the link to one consumer.
+ *
+ * <p>The metrics are updated per buffer rather than per record, and the queueing time is only
+ * sampled for every {@link #QUEUEING_TIME_SAMPLE_INTERVAL}-th buffer, so that collecting them is
+ * cheap. The subpartition updates the metrics under its own lock.
+ */
+public class ResultSubpartitionMetrics {
+
+    private static final String METRIC_QUEUEING_TIME = "queueingTime";
+    private static final String METRIC_BACKLOG_AGE = "backlogAge";
+    private static final String METRIC_CREDIT_STARVATIONS = "creditStarvations";
+    private static final String METRIC_CREDIT_STARVATION_TIME = "creditStarvationTime";
+
+    @VisibleForTesting public static final int QUEUEING_TIME_SAMPLE_INTERVAL = 16;
+
+    private static final int QUEUEING_TIME_WINDOW_SIZE = 128;
+
+    private final Counter numBytesOut;
+
+    private final Histogram queueingTime;
+
+    private final Counter creditStarvations;
+
+    private final Counter creditStarvationTime;
+
+    private int numBuffersSinceSample;
+
+    /**
+     * Registers the metrics of a subpartition in the given group.
+     *
+     * @param group the metric group of the subpartition
+     * @param backlogAge the time in milliseconds that the oldest available buffer has been waiting
+     *     for the consumer
+     */
+    public ResultSubpartitionMetrics(MetricGroup group, Gauge<Long> backlogAge) {
+        checkNotNull(group);
+        this.numBytesOut = group.counter(MetricNames.IO_NUM_BYTES_OUT);
+        group.meter(
+                MetricNames.IO_NUM_BYTES_OUT + MetricNames.SUFFIX_RATE, new MeterView(numBytesOut));
+        this.queueingTime =
+                group.histogram(
+                        METRIC_QUEUEING_TIME,
+                        new DescriptiveStatisticsHistogram(QUEUEING_TIME_WINDOW_SIZE));
+        this.creditStarvations = group.counter(METRIC_CREDIT_STARVATIONS);
+        this.creditStarvationTime = group.counter(METRIC_CREDIT_STARVATION_TIME);
+        group.gauge(METRIC_BACKLOG_AGE, checkNotNull(backlogAge));
+    }
+
+    /**
+     * Reports that the consumer took a buffer.
+     *
+     * @param size the size of the buffer in bytes
+     * @param availableSinceNanos the {@link System#nanoTime()} at which the data of the buffer
+     *     became available to the consumer, or 0 if unknown
+     */
+    public void onBufferPolled(int size, long availableSinceNanos) {
+        numBytesOut.inc(size);
+        if (availableSinceNanos > 0 && ++numBuffersSinceSample >= QUEUEING_TIME_SAMPLE_INTERVAL) {
+            numBuffersSinceSample = 0;
+            queueingTime.update(
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - availableSinceNanos));
+        }
+    }
+
+    /** Reports that the consumer could not take available data, because it had no credit. */
+    public void onCreditStarvation() {
+        creditStarvations.inc();
+    }
+
+    /**
+     * Reports that the consumer took data again after a credit starvation.
+     *
+     * @param starvedSinceNanos the {@link System#nanoTime()} at which the starvation began
+     */
+    public void onCreditStarvationEnd(long starvedSinceNanos) {
+        creditStarvationTime.inc(
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - starvedSinceNanos));
+    }
+}
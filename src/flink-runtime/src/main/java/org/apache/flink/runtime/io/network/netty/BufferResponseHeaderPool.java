@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
+import org.apache.flink.runtime.io.network.buffer.NetworkBuffer;
+
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBuf;
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBufAllocator;
+
+import javax.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * A pool of small off-heap memory segments for the headers of {@link
+ * NettyMessage.BufferResponse}s.
+ *
+ * <p>Without the pool, every buffer response allocates its header from the {@link
+ * NettyBufferPool}, whose few arenas are shared by all event loop threads. There is one header pool
+ * per thread instead, so requesting a header does not contend with other threads. The headers are
+ * handed out as {@link NetworkBuffer}s, which return their segment to the pool that they were
+ * taken from once Netty has written and released them.
+ *
+ * <p>The segments are allocated lazily in slabs, up to {@link #MAX_HEADERS} segments per thread.
+ * If all of them are in flight, {@link #requestHeader(ByteBufAllocator)} returns null and the
+ * caller falls back to the Netty allocator.
+ */
+final class BufferResponseHeaderPool implements BufferRecycler {
+
+    /** Length of the frame header and the message header of a buffer response. */
+    static final int HEADER_LENGTH =
+            NettyMessage.FRAME_HEADER_LENGTH + NettyMessage.BufferResponse.MESSAGE_HEADER_LENGTH;
+
+    /** Maximum number of header segments of one pool. */
+    @VisibleForTesting static final int MAX_HEADERS = 1024;
+
+    /** Number of header segments that are allocated together in one off-heap slab. */
+    @VisibleForTesting static final int HEADERS_PER_SLAB = 64;
+
+    private static final ThreadLocal<BufferResponseHeaderPool> POOLS =
+            ThreadLocal.withInitial(BufferResponseHeaderPool::new);
+
+    /**
+     * The available header segments. Headers are requested by the owning thread only, but may be
+     * recycled by other threads, e.g. when a channel is closed.
+     */
+    private final ArrayDeque<MemorySegment> availableHeaders = new ArrayDeque<>();
+
+    private int numHeaders;
+
+    @VisibleForTesting
+    BufferResponseHeaderPool() {}
+
+    /** Returns the header pool of the current thread. */
+    static BufferResponseHeaderPool get() {
+        return POOLS.get();
+    }
+
+    /**
+     * Requests an empty header buffer of {@link #HEADER_LENGTH} bytes.
+     *
+     * @return the header buffer, or null if all headers of this pool are in use
+     */
+    @Nullable
+    ByteBuf requestHeader(ByteBufAllocator allocator) {
+        final MemorySegment segment;
+        synchronized (availableHeaders) {
+            if (availableHeaders.isEmpty() && numHeaders < MAX_HEADERS) {
+                allocateSlab();
+            }
+            segment = availableHeaders.poll();
+        }
+
+        if (segment == null) {
+            return null;
+        }
+        final NetworkBuffer header = new NetworkBuffer(segment, this);
+        header.setAllocator(allocator);
+        return header;
+    }
+
+    private void allocateSlab() {
+        final int numSlabHeaders = Math.min(HEADERS_PER_SLAB, MAX_HEADERS - numHeaders);
+        final ByteBuffer slab = ByteBuffer.allocateDirect(numSlabHeaders * HEADER_LENGTH);
+        for (int i = 0; i < numSlabHeaders; i++) {
+            slab.limit((i + 1) * HEADER_LENGTH).position(i * HEADER_LENGTH);
+            availableHeaders.add(MemorySegmentFactory.wrapOffHeapMemory(slab.slice()));
+        }
+        numHeaders += numSlabHeaders;
+    }
+
+    @Override
+    public void recycle(MemorySegment memorySegment) {
+        synchronized (availableHeaders) {
+            availableHeaders.add(memorySegment);
+        }
+    }
+
+    @VisibleForTesting
+    int getNumberOfAvailableHeaders() {
+        synchronized (availableHeaders) {
+            return availableHeaders.size();
+        }
+    }
+
+    @VisibleForTesting
+    int getNumberOfHeaders() {
+        synchronized (availableHeaders) {
+            return numHeaders;
+        }
+    }
+}
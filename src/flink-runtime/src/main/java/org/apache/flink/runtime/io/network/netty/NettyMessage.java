@@ -147,14 +147,27 @@ public abstract class NettyMessage {
             // FRAME_HEADER_LENGTH only):
             buffer = allocator.directBuffer();
         }
+        writeFrameHeader(buffer, id, messageHeaderLength, contentLength);
+
+        return buffer;
+    }
+
+    /**
+     * Writes the header information for the frame decoder to the given (empty) buffer.
+     *
+     * @param buffer buffer to write the frame header to
+     * @param id {@link NettyMessage} subclass ID
+     * @param messageHeaderLength additional header length that is written outside of this method
+     * @param contentLength content length (or <tt>-1</tt> if unknown)
+     */
+    private static void writeFrameHeader(
+            ByteBuf buffer, byte id, int messageHeaderLength, int contentLength) {
         buffer.writeInt(
                 FRAME_HEADER_LENGTH
                         + messageHeaderLength
                         + contentLength); // may be updated later, e.g. if contentLength == -1
         buffer.writeInt(MAGIC_NUMBER);
         buffer.writeByte(id);
-
-        return buffer;
     }
 
     // ------------------------------------------------------------------------
@@ -361,9 +374,16 @@ public abstract class NettyMessage {
         }
 
         private ByteBuf fillHeader(ByteBufAllocator allocator) {
-            // only allocate header buffer - we will combine it with the data buffer below
-            ByteBuf headerBuf =
-                    allocateBuffer(allocator, ID, MESSAGE_HEADER_LENGTH, bufferSize, false);
+            // only allocate header buffer - we will combine it with the data buffer below; the
+            // header comes from the pool of the current (event loop) thread, if possible, to avoid
+            // contention on the arenas of the allocator
+            ByteBuf headerBuf = BufferResponseHeaderPool.get().requestHeader(allocator);
+            if (headerBuf != null) {
+                writeFrameHeader(headerBuf, ID, MESSAGE_HEADER_LENGTH, bufferSize);
+            } else {
+                headerBuf =
+                        allocateBuffer(allocator, ID, MESSAGE_HEADER_LENGTH, bufferSize, false);
+            }
 
             receiverId.writeTo(headerBuf);
             headerBuf.writeInt(sequenceNumber);
@@ -325,4 +325,18 @@ final class BoundedBlockingSubpartition extends ResultSubpartition {
                 FileChannelMemoryMappedBoundedData.create(tempFile.toPath());
         return new BoundedBlockingSubpartition(index, parent, bd, false);
     }
+
+    /**
+     * Creates a BoundedBlockingSubpartition that stores the partition data in a file and bypasses
+     * the page cache for writing and reading it, where the JVM and the file system support direct
+     * I/O. Data is eagerly spilled and read in block aligned chunks.
+     */
+    public static BoundedBlockingSubpartition createWithDirectIOFile(
+            int index, ResultPartition parent, File tempFile, int readBufferSize)
+            throws IOException {
+
+        final DirectIOFileBoundedData bd =
+                DirectIOFileBoundedData.create(tempFile.toPath(), readBufferSize);
+        return new BoundedBlockingSubpartition(index, parent, bd, false);
+    }
 }
@@ -86,6 +86,28 @@ public enum BoundedBlockingSubpartitionType {
         }
     },
 
+    /**
+     * A BoundedBlockingSubpartition type that stores the partition data in a file and bypasses the
+     * page cache of the operating system when writing and reading it (direct I/O), where supported.
+     * Data is eagerly spilled and neither writing nor reading evicts the working set of other
+     * processes from the page cache.
+     */
+    FILE_DIRECT {
+
+        @Override
+        public BoundedBlockingSubpartition create(
+                int index,
+                ResultPartition parent,
+                File tempFile,
+                int readBufferSize,
+                boolean sslEnabled)
+                throws IOException {
+
+            return BoundedBlockingSubpartition.createWithDirectIOFile(
+                    index, parent, tempFile, readBufferSize);
+        }
+    },
+
     /**
      * Selects the BoundedBlockingSubpartition type based on the current memory architecture. If
      * 64-bit, the type of {@link BoundedBlockingSubpartitionType#FILE_MMAP} is recommended.
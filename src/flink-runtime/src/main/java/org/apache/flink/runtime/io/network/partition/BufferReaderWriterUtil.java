@@ -108,12 +108,7 @@ public final class BufferReaderWriterUtil {
             throws IOException {
 
         final ByteBuffer headerBuffer = arrayWithHeaderBuffer[0];
-        headerBuffer.clear();
-        headerBuffer.putShort(buffer.isBuffer() ? HEADER_VALUE_IS_BUFFER : HEADER_VALUE_IS_EVENT);
-        headerBuffer.putShort(
-                buffer.isCompressed() ? BUFFER_IS_COMPRESSED : BUFFER_IS_NOT_COMPRESSED);
-        headerBuffer.putInt(buffer.getSize());
-        headerBuffer.flip();
+        writeHeader(buffer, headerBuffer);
 
         final ByteBuffer dataBuffer = buffer.getNioBufferReadable();
         arrayWithHeaderBuffer[1] = dataBuffer;
@@ -207,7 +202,30 @@ public final class BufferReaderWriterUtil {
         }
         headerBuffer.flip();
 
-        final ByteBuffer targetBuf;
+        final Buffer buffer = readHeader(headerBuffer, memorySegment, bufferRecycler);
+        readByteBufferFully(channel, memorySegment.wrap(0, buffer.getSize()));
+        return buffer;
+    }
+
+    /** Writes the header of the given buffer into the header buffer and flips it for reading. */
+    static void writeHeader(Buffer buffer, ByteBuffer headerBuffer) {
+        headerBuffer.clear();
+        headerBuffer.putShort(buffer.isBuffer() ? HEADER_VALUE_IS_BUFFER : HEADER_VALUE_IS_EVENT);
+        headerBuffer.putShort(
+                buffer.isCompressed() ? BUFFER_IS_COMPRESSED : BUFFER_IS_NOT_COMPRESSED);
+        headerBuffer.putInt(buffer.getSize());
+        headerBuffer.flip();
+    }
+
+    /**
+     * Parses the header in the given (flipped) header buffer and creates a buffer of the described
+     * size on top of the memory segment. The caller is responsible for reading the buffer's data
+     * into the first {@link Buffer#getSize()} bytes of the memory segment.
+     */
+    static Buffer readHeader(
+            ByteBuffer headerBuffer, MemorySegment memorySegment, BufferRecycler bufferRecycler)
+            throws IOException {
+
         final boolean isEvent;
         final boolean isCompressed;
         final int size;
@@ -216,7 +234,7 @@ public final class BufferReaderWriterUtil {
             isEvent = headerBuffer.getShort() == HEADER_VALUE_IS_EVENT;
             isCompressed = headerBuffer.getShort() == BUFFER_IS_COMPRESSED;
             size = headerBuffer.getInt();
-            targetBuf = memorySegment.wrap(0, size);
+            memorySegment.wrap(0, size);
         } catch (BufferUnderflowException | IllegalArgumentException e) {
             // buffer underflow if header buffer is undersized
             // IllegalArgumentException if size is outside memory segment size
@@ -224,8 +242,6 @@ public final class BufferReaderWriterUtil {
             return null; // silence compiler
         }
 
-        readByteBufferFully(channel, targetBuf);
-
         Buffer.DataType dataType =
                 isEvent ? Buffer.DataType.EVENT_BUFFER : Buffer.DataType.DATA_BUFFER;
         return new NetworkBuffer(memorySegment, bufferRecycler, dataType, isCompressed, size);
@@ -289,7 +305,7 @@ public final class BufferReaderWriterUtil {
         }
     }
 
-    private static void throwPrematureEndOfFile() throws IOException {
+    static void throwPrematureEndOfFile() throws IOException {
         throw new IOException("The spill file is corrupt: premature end of file");
     }
 
@@ -21,6 +21,7 @@ package org.apache.flink.runtime.io.network.partition;
 import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.metrics.Meter;
 import org.apache.flink.metrics.MeterView;
+import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.metrics.SimpleCounter;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
@@ -119,6 +120,13 @@ public abstract class BufferWritingResultPartition extends ResultPartition {
         return subpartitions[targetSubpartition].unsynchronizedGetNumberOfQueuedBuffers();
     }
 
+    @Override
+    public void registerSubpartitionMetrics(MetricGroup partitionGroup) {
+        for (int i = 0; i < subpartitions.length; i++) {
+            subpartitions[i].registerMetrics(partitionGroup.addGroup(i));
+        }
+    }
+
     protected void flushSubpartition(int targetSubpartition, boolean finishProducers) {
         if (finishProducers) {
             finishBroadcastBufferBuilder();
@@ -139,6 +147,12 @@ public abstract class BufferWritingResultPartition extends ResultPartition {
         }
     }
 
+    @Nullable
+    @Override
+    public ObjectHandoverQueue getObjectHandoverQueue(int targetSubpartition) {
+        return subpartitions[targetSubpartition].getObjectHandoverQueue();
+    }
+
     @Override
     public void emitRecord(ByteBuffer record, int targetSubpartition) throws IOException {
         BufferBuilder buffer = appendUnicastDataForNewRecord(record, targetSubpartition);
@@ -0,0 +1,389 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
+import org.apache.flink.util.IOUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * An implementation of {@link BoundedData} that writes to and reads from a file while bypassing
+ * the operating system's page cache. Large partitions that are written once and read once do not
+ * benefit from the page cache, but evict the working set of other processes on the same host
+ * (like RocksDB's block cache) from it.
+ *
+ * <p>Both the writer and the readers transfer the data in chunks through block aligned off-heap
+ * buffers. The file is opened with {@code O_DIRECT} when the JVM supports it (Java 10 and newer,
+ * via {@code com.sun.nio.file.ExtendedOpenOption#DIRECT}) and the file system accepts it.
+ * Otherwise, this falls back to regular (buffered) file I/O with the same chunked access pattern.
+ */
+final class DirectIOFileBoundedData implements BoundedData {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DirectIOFileBoundedData.class);
+
+    /**
+     * The alignment of file positions, buffer addresses and transfer sizes for direct I/O. This is
+     * a multiple of the logical block size of all common block devices.
+     */
+    @VisibleForTesting static final int ALIGNMENT = 4096;
+
+    /** The direct I/O open option of the running JVM, or null, if it does not support one. */
+    @Nullable private static final OpenOption DIRECT_OPEN_OPTION = loadDirectOpenOption();
+
+    private final Path filePath;
+
+    private final FileChannel fileChannel;
+
+    private final boolean directIO;
+
+    private final int memorySegmentSize;
+
+    private final ByteBuffer headerBuffer;
+
+    private final MemorySegment writeMemory;
+
+    private final ByteBuffer writeBuffer;
+
+    private long filePosition;
+
+    private long size;
+
+    DirectIOFileBoundedData(
+            Path filePath, FileChannel fileChannel, boolean directIO, int memorySegmentSize) {
+
+        this.filePath = checkNotNull(filePath);
+        this.fileChannel = checkNotNull(fileChannel);
+        this.directIO = directIO;
+        this.memorySegmentSize = memorySegmentSize;
+        this.headerBuffer = BufferReaderWriterUtil.allocatedHeaderBuffer();
+        this.writeMemory = allocateAlignedMemory(getChunkSize(memorySegmentSize));
+        this.writeBuffer = wrapAligned(writeMemory, getChunkSize(memorySegmentSize));
+    }
+
+    @Override
+    public void writeBuffer(Buffer buffer) throws IOException {
+        checkState(fileChannel.isOpen(), "Writing has already been finished.");
+
+        BufferReaderWriterUtil.writeHeader(buffer, headerBuffer);
+        final ByteBuffer data = buffer.getNioBufferReadable();
+        size += headerBuffer.remaining() + data.remaining();
+
+        append(headerBuffer);
+        append(data);
+    }
+
+    private void append(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            final int numBytes = Math.min(source.remaining(), writeBuffer.remaining());
+            final ByteBuffer slice = source.duplicate();
+            slice.limit(slice.position() + numBytes);
+            writeBuffer.put(slice);
+            source.position(source.position() + numBytes);
+
+            if (!writeBuffer.hasRemaining()) {
+                flushWriteBuffer();
+            }
+        }
+    }
+
+    private void flushWriteBuffer() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            filePosition += fileChannel.write(writeBuffer, filePosition);
+        }
+        writeBuffer.clear();
+    }
+
+    @Override
+    public void finishWrite() throws IOException {
+        if (!fileChannel.isOpen()) {
+            return;
+        }
+
+        try {
+            if (writeBuffer.position() > 0) {
+                if (directIO) {
+                    // direct writes must cover whole blocks, the padding is truncated below
+                    writeBuffer.position(alignUp(writeBuffer.position()));
+                }
+                flushWriteBuffer();
+            }
+        } finally {
+            fileChannel.close();
+            writeMemory.free();
+        }
+
+        if (filePosition > size) {
+            try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.WRITE)) {
+                channel.truncate(size);
+            }
+        }
+    }
+
+    @Override
+    public Reader createReader(ResultSubpartitionView subpartitionView) throws IOException {
+        checkState(!fileChannel.isOpen());
+
+        final FileChannel fc;
+        if (directIO) {
+            fc = FileChannel.open(filePath, StandardOpenOption.READ, DIRECT_OPEN_OPTION);
+        } else {
+            fc = FileChannel.open(filePath, StandardOpenOption.READ);
+        }
+        return new DirectIOFileBufferReader(fc, size, memorySegmentSize, subpartitionView);
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public Path getFilePath() {
+        return filePath;
+    }
+
+    @VisibleForTesting
+    boolean isDirectIO() {
+        return directIO;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fileChannel.isOpen()) {
+            IOUtils.closeQuietly(fileChannel);
+            writeMemory.free();
+        }
+        Files.delete(filePath);
+    }
+
+    // ------------------------------------------------------------------------
+
+    public static DirectIOFileBoundedData create(Path filePath, int memorySegmentSize)
+            throws IOException {
+
+        if (DIRECT_OPEN_OPTION != null) {
+            try {
+                final FileChannel fileChannel =
+                        FileChannel.open(
+                                filePath,
+                                StandardOpenOption.CREATE_NEW,
+                                StandardOpenOption.WRITE,
+                                DIRECT_OPEN_OPTION);
+                return new DirectIOFileBoundedData(filePath, fileChannel, true, memorySegmentSize);
+            } catch (IOException | UnsupportedOperationException e) {
+                // for example tmpfs on older kernels rejects O_DIRECT
+                LOG.debug(
+                        "Could not open {} for direct I/O, falling back to buffered I/O.",
+                        filePath,
+                        e);
+            }
+        }
+
+        final FileChannel fileChannel =
+                FileChannel.open(
+                        filePath,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE);
+        return new DirectIOFileBoundedData(filePath, fileChannel, false, memorySegmentSize);
+    }
+
+    @Nullable
+    private static OpenOption loadDirectOpenOption() {
+        try {
+            final Class<?> clazz = Class.forName("com.sun.nio.file.ExtendedOpenOption");
+            return (OpenOption) clazz.getField("DIRECT").get(null);
+        } catch (Throwable t) {
+            // the option exists only since Java 10
+            return null;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    private static int getChunkSize(int memorySegmentSize) {
+        return alignUp(Math.max(memorySegmentSize, ALIGNMENT));
+    }
+
+    private static int alignUp(int numBytes) {
+        return (numBytes + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    private static MemorySegment allocateAlignedMemory(int size) {
+        return MemorySegmentFactory.allocateUnpooledOffHeapMemory(size + ALIGNMENT);
+    }
+
+    private static ByteBuffer wrapAligned(MemorySegment memory, int size) {
+        final int offset = (int) (-memory.getAddress() & (ALIGNMENT - 1));
+        return memory.wrap(offset, size).slice();
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+     * A reader that reads the file chunk by chunk into an aligned read buffer and copies the
+     * buffers out of it into a small dedicated buffer pool, like the {@link
+     * FileChannelBoundedData.FileBufferReader} does.
+     */
+    static final class DirectIOFileBufferReader implements BoundedData.Reader, BufferRecycler {
+
+        private static final int NUM_BUFFERS = 2;
+
+        private final FileChannel fileChannel;
+
+        private final long fileSize;
+
+        private final MemorySegment readMemory;
+
+        private final ByteBuffer readBuffer;
+
+        private final ByteBuffer headerBuffer;
+
+        private final ArrayDeque<MemorySegment> buffers;
+
+        private final ResultSubpartitionView subpartitionView;
+
+        /** The (aligned) position in the file from which the next chunk is read. */
+        private long filePosition;
+
+        /** The tag indicates whether we have read the end of this file. */
+        private boolean isFinished;
+
+        DirectIOFileBufferReader(
+                FileChannel fileChannel,
+                long fileSize,
+                int bufferSize,
+                ResultSubpartitionView subpartitionView) {
+
+            this.fileChannel = checkNotNull(fileChannel);
+            this.fileSize = fileSize;
+            this.readMemory = allocateAlignedMemory(getChunkSize(bufferSize));
+            this.readBuffer = wrapAligned(readMemory, getChunkSize(bufferSize));
+            this.readBuffer.limit(0);
+            this.headerBuffer = BufferReaderWriterUtil.allocatedHeaderBuffer();
+            this.buffers = new ArrayDeque<>(NUM_BUFFERS);
+
+            for (int i = 0; i < NUM_BUFFERS; i++) {
+                buffers.addLast(
+                        MemorySegmentFactory.allocateUnpooledOffHeapMemory(bufferSize, null));
+            }
+
+            this.subpartitionView = checkNotNull(subpartitionView);
+        }
+
+        @Nullable
+        @Override
+        public Buffer nextBuffer() throws IOException {
+            final MemorySegment memory = buffers.pollFirst();
+            if (memory == null) {
+                return null;
+            }
+
+            headerBuffer.clear();
+            if (!readBuffer.hasRemaining() && !readNextChunk()) {
+                isFinished = true;
+                recycle(memory);
+                return null;
+            }
+            readFully(headerBuffer);
+            headerBuffer.flip();
+
+            final Buffer next = BufferReaderWriterUtil.readHeader(headerBuffer, memory, this);
+            readFully(memory.wrap(0, next.getSize()));
+            return next;
+        }
+
+        private void readFully(ByteBuffer target) throws IOException {
+            while (target.hasRemaining()) {
+                if (!readBuffer.hasRemaining() && !readNextChunk()) {
+                    BufferReaderWriterUtil.throwPrematureEndOfFile();
+                }
+
+                final int numBytes = Math.min(target.remaining(), readBuffer.remaining());
+                final ByteBuffer slice = readBuffer.duplicate();
+                slice.limit(slice.position() + numBytes);
+                target.put(slice);
+                readBuffer.position(readBuffer.position() + numBytes);
+            }
+        }
+
+        private boolean readNextChunk() throws IOException {
+            final long remainingBytes = fileSize - filePosition;
+            if (remainingBytes <= 0) {
+                return false;
+            }
+
+            // always request whole chunks, direct reads of the last chunk are short at the end of
+            // the file
+            readBuffer.clear();
+            final int bytesToRead = (int) Math.min(readBuffer.capacity(), remainingBytes);
+            while (readBuffer.position() < bytesToRead) {
+                final int numRead =
+                        fileChannel.read(readBuffer, filePosition + readBuffer.position());
+                if (numRead == -1) {
+                    BufferReaderWriterUtil.throwPrematureEndOfFile();
+                }
+            }
+
+            filePosition += bytesToRead;
+            readBuffer.flip();
+            readBuffer.limit(bytesToRead);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                fileChannel.close();
+            } finally {
+                readMemory.free();
+            }
+        }
+
+        @Override
+        public void recycle(MemorySegment memorySegment) {
+            buffers.addLast(memorySegment);
+
+            if (!isFinished) {
+                subpartitionView.notifyDataAvailable();
+            }
+        }
+    }
+}
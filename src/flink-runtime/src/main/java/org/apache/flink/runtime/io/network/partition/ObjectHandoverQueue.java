@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.annotation.VisibleForTesting;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Queue through which a producer hands over records as objects to a consumer in the same
+ * TaskManager, bypassing serialization.
+ *
+ * <p>The producer offers the record object before writing a placeholder record to the regular
+ * buffer stream of the subpartition, and the consumer takes the object when it deserializes the
+ * placeholder. Objects are therefore taken in exactly the order they were offered, interleaved
+ * correctly with the serialized records, events and checkpoint barriers of the same subpartition.
+ *
+ * <p>The number of objects in flight is bounded. If the queue is full, the producer has to fall
+ * back to serializing the record, which keeps the order intact because the serialized record and
+ * the placeholders share the same buffer stream.
+ *
+ * <p>The queue is accessed by exactly one producer and one consumer thread.
+ */
+public class ObjectHandoverQueue {
+
+    /** Default maximum number of objects in flight per subpartition. */
+    static final int DEFAULT_CAPACITY = 1024;
+
+    private final Queue<Object> objects = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final int capacity;
+
+    ObjectHandoverQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    @VisibleForTesting
+    public ObjectHandoverQueue(int capacity) {
+        checkArgument(capacity > 0, "Capacity must be positive.");
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns whether another object can be added. As only the producer adds objects, a positive
+     * answer stays valid until the producer adds the next object.
+     */
+    public boolean hasCapacity() {
+        return size.get() < capacity;
+    }
+
+    /** Adds the object that belongs to the placeholder record which is written next. */
+    public void add(Object object) {
+        objects.add(object);
+        size.incrementAndGet();
+    }
+
+    /** Takes the object that belongs to the placeholder record which was just deserialized. */
+    public Object take() {
+        Object object = objects.poll();
+        checkState(object != null, "No object was handed over for the placeholder record.");
+        size.decrementAndGet();
+        return object;
+    }
+
+    public int size() {
+        return size.get();
+    }
+}
@@ -94,6 +94,10 @@ public class PartitionedFile {
         return numRegions;
     }
 
+    public int getNumSubpartitions() {
+        return numSubpartitions;
+    }
+
     /**
      * Returns the index entry offset of the target region and subpartition in the index file. Both
      * region index and subpartition index start from 0.
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.util.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Merges all data regions of a {@link PartitionedFile} into a single data region, which stores the
+ * data of each subpartition contiguously.
+ *
+ * <p>Every spilled sort buffer of a {@link SortMergeResultPartition} becomes a data region, so a
+ * consumer of an unmerged file reads a small piece of every region. The merge rewrites the file
+ * with one sequential pass over each subpartition, after which every consumer reads one contiguous
+ * range of the data file.
+ */
+final class PartitionedFileMerger {
+
+    /** Suffix appended to the base path of the merged {@link PartitionedFile}. */
+    static final String MERGED_FILE_SUFFIX = ".merged";
+
+    /**
+     * Merges the data regions of the given {@link PartitionedFile} into a new {@link
+     * PartitionedFile} at the given base path. The source file is left untouched.
+     *
+     * <p>Note: The caller is responsible for deleting the source file.
+     */
+    static PartitionedFile merge(PartitionedFile source, String basePath) throws IOException {
+        int numRegions = source.getNumRegions();
+        int numSubpartitions = source.getNumSubpartitions();
+        long[] offsets = new long[numRegions * numSubpartitions];
+        int[] numBuffers = new int[numRegions * numSubpartitions];
+        long[] lengths = new long[numRegions * numSubpartitions];
+
+        Path dataFilePath = new File(basePath + PartitionedFile.DATA_FILE_SUFFIX).toPath();
+        Path indexFilePath = new File(basePath + PartitionedFile.INDEX_FILE_SUFFIX).toPath();
+        ByteBuffer indexBuffer =
+                ByteBuffer.allocateDirect(numSubpartitions * PartitionedFile.INDEX_ENTRY_SIZE);
+        BufferReaderWriterUtil.configureByteBuffer(indexBuffer);
+
+        try (FileChannel sourceData = openForRead(source.getDataFilePath());
+                FileChannel sourceIndex = openForRead(source.getIndexFilePath())) {
+            readIndexEntries(source, sourceIndex, sourceData.size(), offsets, numBuffers, lengths);
+
+            try (FileChannel targetData = openForWrite(dataFilePath);
+                    FileChannel targetIndex = openForWrite(indexFilePath)) {
+                long totalBytesWritten = 0;
+                for (int subpartition = 0; subpartition < numSubpartitions; ++subpartition) {
+                    long subpartitionOffset = totalBytesWritten;
+                    int subpartitionBuffers = 0;
+
+                    for (int region = 0; region < numRegions; ++region) {
+                        int entry = region * numSubpartitions + subpartition;
+                        if (numBuffers[entry] > 0) {
+                            transferFully(sourceData, offsets[entry], lengths[entry], targetData);
+                            totalBytesWritten += lengths[entry];
+                            subpartitionBuffers += numBuffers[entry];
+                        }
+                    }
+
+                    indexBuffer.putLong(subpartitionOffset);
+                    indexBuffer.putInt(subpartitionBuffers);
+                }
+
+                indexBuffer.flip();
+                BufferReaderWriterUtil.writeBuffer(targetIndex, indexBuffer);
+                indexBuffer.rewind();
+            }
+        } catch (Throwable throwable) {
+            IOUtils.deleteFileQuietly(dataFilePath);
+            IOUtils.deleteFileQuietly(indexFilePath);
+            throw throwable;
+        }
+
+        return new PartitionedFile(1, numSubpartitions, dataFilePath, indexFilePath, indexBuffer);
+    }
+
+    /**
+     * Reads all index entries of the given {@link PartitionedFile} and derives the number of bytes
+     * of each non-empty entry from the offset of the data following it in the data file.
+     */
+    private static void readIndexEntries(
+            PartitionedFile source,
+            FileChannel sourceIndex,
+            long dataFileSize,
+            long[] offsets,
+            int[] numBuffers,
+            long[] lengths)
+            throws IOException {
+        ByteBuffer indexEntryBuf = ByteBuffer.allocateDirect(PartitionedFile.INDEX_ENTRY_SIZE);
+        BufferReaderWriterUtil.configureByteBuffer(indexEntryBuf);
+
+        int numSubpartitions = source.getNumSubpartitions();
+        long[] sortedOffsets = new long[offsets.length];
+        int numNonEmptyEntries = 0;
+        for (int region = 0; region < source.getNumRegions(); ++region) {
+            for (int subpartition = 0; subpartition < numSubpartitions; ++subpartition) {
+                source.getIndexEntry(sourceIndex, indexEntryBuf, region, subpartition);
+                int entry = region * numSubpartitions + subpartition;
+                offsets[entry] = indexEntryBuf.getLong();
+                numBuffers[entry] = indexEntryBuf.getInt();
+
+                if (numBuffers[entry] > 0) {
+                    sortedOffsets[numNonEmptyEntries++] = offsets[entry];
+                }
+            }
+        }
+        Arrays.sort(sortedOffsets, 0, numNonEmptyEntries);
+
+        for (int entry = 0; entry < offsets.length; ++entry) {
+            if (numBuffers[entry] > 0) {
+                int index =
+                        Arrays.binarySearch(sortedOffsets, 0, numNonEmptyEntries, offsets[entry]);
+                long nextOffset =
+                        index + 1 < numNonEmptyEntries ? sortedOffsets[index + 1] : dataFileSize;
+                lengths[entry] = nextOffset - offsets[entry];
+                if (lengths[entry] <= 0) {
+                    throw new IOException("Corrupted index of the partitioned file.");
+                }
+            }
+        }
+    }
+
+    private static void transferFully(
+            FileChannel source, long position, long length, FileChannel target)
+            throws IOException {
+        long transferred = 0;
+        while (transferred < length) {
+            long count = source.transferTo(position + transferred, length - transferred, target);
+            if (count <= 0) {
+                throw new IOException("Premature end of the partitioned data file.");
+            }
+            transferred += count;
+        }
+    }
+
+    private static FileChannel openForRead(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    private static FileChannel openForWrite(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    /** This is a utility class not meant to be instantiated. */
+    private PartitionedFileMerger() {}
+}
@@ -126,6 +126,16 @@ public class PartitionedFileReader implements AutoCloseable {
         return null;
     }
 
+    /**
+     * Returns the offset in the data file of the next buffer to read or -1 if all data has been
+     * read.
+     */
+    long getNextReadOffset() throws IOException {
+        checkState(!isClosed, "File reader is already closed.");
+
+        return moveToNextReadableRegion() ? dataFileChannel.position() : -1;
+    }
+
     @VisibleForTesting
     public boolean hasRemaining() throws IOException {
         checkState(!isClosed, "File reader is already closed.");
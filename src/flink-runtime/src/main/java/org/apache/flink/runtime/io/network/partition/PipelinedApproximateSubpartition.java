@@ -25,6 +25,7 @@ import org.apache.flink.runtime.io.network.buffer.BufferConsumerWithPartialRecor
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 
 import java.io.IOException;
@@ -75,6 +76,16 @@ public class PipelinedApproximateSubpartition extends PipelinedSubpartition {
         return readView;
     }
 
+    /**
+     * Handed over objects can not be replayed to a reconnecting view, so records are always sent
+     * serialized.
+     */
+    @Nullable
+    @Override
+    ObjectHandoverQueue requestObjectHandover() {
+        return null;
+    }
+
     @Override
     Buffer buildSliceBuffer(BufferConsumerWithPartialRecordLength buffer) {
         if (isPartialBufferCleanupRequired) {
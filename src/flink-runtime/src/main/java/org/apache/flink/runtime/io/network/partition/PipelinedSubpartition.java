@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.checkpoint.channel.ChannelStateWriter;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
@@ -29,6 +30,7 @@ import org.apache.flink.runtime.io.network.buffer.BufferBuilder;
 import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
 import org.apache.flink.runtime.io.network.buffer.BufferConsumerWithPartialRecordLength;
 import org.apache.flink.runtime.io.network.logger.NetworkActionsLogger;
+import org.apache.flink.runtime.io.network.metrics.ResultSubpartitionMetrics;
 import org.apache.flink.runtime.io.network.partition.consumer.EndOfChannelStateEvent;
 
 import org.apache.flink.shaded.guava18.com.google.common.collect.Iterators;
@@ -43,6 +45,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Objects.requireNonNull;
 import static org.apache.flink.util.Preconditions.checkNotNull;
@@ -110,6 +113,18 @@ public class PipelinedSubpartition extends ResultSubpartition
 
     int sequenceNumber = 0;
 
+    /** Objects handed over to a local consumer, null until such a consumer requests it. */
+    @Nullable private volatile ObjectHandoverQueue objectHandoverQueue;
+
+    /** The queueing and credit metrics, null if they are not collected. */
+    @GuardedBy("buffers")
+    @Nullable
+    private ResultSubpartitionMetrics metrics;
+
+    /** The {@link System#nanoTime()} since the reader has no credit for available data, or 0. */
+    @GuardedBy("buffers")
+    private long creditStarvedSinceNanos;
+
     // ------------------------------------------------------------------------
 
     PipelinedSubpartition(int index, ResultPartition parent) {
@@ -174,16 +189,21 @@ public class PipelinedSubpartition extends ResultSubpartition
 
     private boolean addBuffer(BufferConsumer bufferConsumer, int partialRecordLength) {
         assert Thread.holdsLock(buffers);
+        BufferConsumerWithPartialRecordLength buffer =
+                new BufferConsumerWithPartialRecordLength(bufferConsumer, partialRecordLength);
+        if (metrics != null) {
+            markAvailableUnsafe(buffer);
+        }
         if (bufferConsumer.getDataType().hasPriority()) {
-            return processPriorityBuffer(bufferConsumer, partialRecordLength);
+            return processPriorityBuffer(buffer);
         }
-        buffers.add(new BufferConsumerWithPartialRecordLength(bufferConsumer, partialRecordLength));
+        buffers.add(buffer);
         return false;
     }
 
-    private boolean processPriorityBuffer(BufferConsumer bufferConsumer, int partialRecordLength) {
-        buffers.addPriorityElement(
-                new BufferConsumerWithPartialRecordLength(bufferConsumer, partialRecordLength));
+    private boolean processPriorityBuffer(BufferConsumerWithPartialRecordLength priorityBuffer) {
+        BufferConsumer bufferConsumer = priorityBuffer.getBufferConsumer();
+        buffers.addPriorityElement(priorityBuffer);
         final int numPriorityElements = buffers.getNumPriorityElements();
 
         CheckpointBarrier barrier = parseCheckpointBarrier(bufferConsumer);
@@ -273,6 +293,7 @@ public class PipelinedSubpartition extends ResultSubpartition
             }
 
             Buffer buffer = null;
+            BufferConsumerWithPartialRecordLength polledBuffer = null;
 
             if (buffers.isEmpty()) {
                 flushRequested = false;
@@ -301,6 +322,7 @@ public class PipelinedSubpartition extends ResultSubpartition
                 }
 
                 if (buffer.readableBytes() > 0) {
+                    polledBuffer = bufferConsumerWithPartialRecordLength;
                     break;
                 }
                 buffer.recycleBuffer();
@@ -319,6 +341,9 @@ public class PipelinedSubpartition extends ResultSubpartition
             }
 
             updateStatistics(buffer);
+            if (metrics != null) {
+                updateMetricsUnsafe(buffer, polledBuffer);
+            }
             // Do not report last remaining buffer on buffers as available to read (assuming it's
             // unfinished).
             // It will be reported for reading either on flush or when the number of buffers in the
@@ -374,6 +399,22 @@ public class PipelinedSubpartition extends ResultSubpartition
         return readView;
     }
 
+    @Nullable
+    @Override
+    public ObjectHandoverQueue getObjectHandoverQueue() {
+        return objectHandoverQueue;
+    }
+
+    @Nullable
+    ObjectHandoverQueue requestObjectHandover() {
+        synchronized (buffers) {
+            if (objectHandoverQueue == null) {
+                objectHandoverQueue = new ObjectHandoverQueue();
+            }
+            return objectHandoverQueue;
+        }
+    }
+
     public boolean isAvailable(int numCreditsAvailable) {
         synchronized (buffers) {
             if (numCreditsAvailable > 0) {
@@ -381,10 +422,79 @@ public class PipelinedSubpartition extends ResultSubpartition
             }
 
             final Buffer.DataType dataType = getNextBufferTypeUnsafe();
+            if (metrics != null && dataType.isBuffer()) {
+                checkCreditStarvationUnsafe();
+            }
             return dataType.isEvent();
         }
     }
 
+    @Override
+    public void registerMetrics(MetricGroup group) {
+        synchronized (buffers) {
+            metrics = new ResultSubpartitionMetrics(group, this::getBacklogAge);
+        }
+    }
+
+    /**
+     * Returns the time in milliseconds that the oldest buffer which is available to the reader has
+     * been waiting, or 0 if there is no such buffer.
+     */
+    long getBacklogAge() {
+        synchronized (buffers) {
+            BufferConsumerWithPartialRecordLength first = buffers.peek();
+            if (first == null || first.getAvailableSinceNanos() == 0) {
+                return 0L;
+            }
+            long waitingNanos = System.nanoTime() - first.getAvailableSinceNanos();
+            return TimeUnit.NANOSECONDS.toMillis(waitingNanos);
+        }
+    }
+
+    /**
+     * Marks the data of the buffer before the given new buffer as available to the reader, because
+     * it is finished now. Events are available as soon as they are added.
+     */
+    @GuardedBy("buffers")
+    private void markAvailableUnsafe(BufferConsumerWithPartialRecordLength newBuffer) {
+        assert Thread.holdsLock(buffers);
+
+        long now = System.nanoTime();
+        BufferConsumerWithPartialRecordLength last = buffers.peekLast();
+        if (last != null && last.getAvailableSinceNanos() == 0) {
+            last.setAvailableSinceNanos(now);
+        }
+        if (!newBuffer.getBufferConsumer().isBuffer()) {
+            newBuffer.setAvailableSinceNanos(now);
+        }
+    }
+
+    @GuardedBy("buffers")
+    private void updateMetricsUnsafe(
+            Buffer buffer, BufferConsumerWithPartialRecordLength polledBuffer) {
+        assert Thread.holdsLock(buffers);
+
+        metrics.onBufferPolled(buffer.getSize(), polledBuffer.getAvailableSinceNanos());
+        // an unfinished buffer becomes available again with the next flush
+        polledBuffer.setAvailableSinceNanos(0);
+
+        if (creditStarvedSinceNanos != 0) {
+            metrics.onCreditStarvationEnd(creditStarvedSinceNanos);
+            creditStarvedSinceNanos = 0;
+        }
+    }
+
+    /** Counts a credit starvation if the reader has no credit while data is available. */
+    @GuardedBy("buffers")
+    private void checkCreditStarvationUnsafe() {
+        assert Thread.holdsLock(buffers);
+
+        if (creditStarvedSinceNanos == 0 && isDataAvailableUnsafe()) {
+            creditStarvedSinceNanos = System.nanoTime();
+            metrics.onCreditStarvation();
+        }
+    }
+
     @GuardedBy("buffers")
     private boolean isDataAvailableUnsafe() {
         assert Thread.holdsLock(buffers);
@@ -451,6 +561,14 @@ public class PipelinedSubpartition extends ResultSubpartition
                     buffers.size() == 1 && buffers.peek().getBufferConsumer().isDataAvailable();
             notifyDataAvailable = !isBlocked && isDataAvailableInUnfinishedBuffer;
             flushRequested = buffers.size() > 1 || isDataAvailableInUnfinishedBuffer;
+
+            if (metrics != null) {
+                BufferConsumerWithPartialRecordLength last = buffers.peekLast();
+                if (last.getAvailableSinceNanos() == 0
+                        && last.getBufferConsumer().isDataAvailable()) {
+                    last.setAvailableSinceNanos(System.nanoTime());
+                }
+            }
         }
         if (notifyDataAvailable) {
             notifyDataAvailable();
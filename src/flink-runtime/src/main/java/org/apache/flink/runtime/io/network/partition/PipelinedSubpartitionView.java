@@ -79,6 +79,12 @@ public class PipelinedSubpartitionView implements ResultSubpartitionView {
         parent.resumeConsumption();
     }
 
+    @Nullable
+    @Override
+    public ObjectHandoverQueue requestObjectHandover() {
+        return parent.requestObjectHandover();
+    }
+
     @Override
     public boolean isAvailable(int numCreditsAvailable) {
         return parent.isAvailable(numCreditsAvailable);
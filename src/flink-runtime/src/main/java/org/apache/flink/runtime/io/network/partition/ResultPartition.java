@@ -20,6 +20,7 @@ package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.metrics.SimpleCounter;
 import org.apache.flink.runtime.executiongraph.IntermediateResultPartition;
 import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
@@ -40,6 +41,7 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nullable;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -110,6 +112,9 @@ public abstract class ResultPartition implements ResultPartitionWriter {
 
     protected Counter numBuffersOut = new SimpleCounter();
 
+    /** The flush timeouts reported by an adaptively flushing writer, -1 if none was reported. */
+    private final long[] flushTimeouts;
+
     public ResultPartition(
             String owningTaskName,
             int partitionIndex,
@@ -131,6 +136,8 @@ public abstract class ResultPartition implements ResultPartitionWriter {
         this.partitionManager = checkNotNull(partitionManager);
         this.bufferCompressor = bufferCompressor;
         this.bufferPoolFactory = bufferPoolFactory;
+        this.flushTimeouts = new long[numSubpartitions];
+        Arrays.fill(flushTimeouts, -1L);
     }
 
     /**
@@ -177,8 +184,28 @@ public abstract class ResultPartition implements ResultPartitionWriter {
     public abstract int getNumberOfQueuedBuffers();
 
     /** Returns the number of queued buffers of the given target subpartition. */
+    @Override
     public abstract int getNumberOfQueuedBuffers(int targetSubpartition);
 
+    /**
+     * Registers per-subpartition metrics, each in a sub group of the given group named after the
+     * subpartition index.
+     */
+    public void registerSubpartitionMetrics(MetricGroup partitionGroup) {}
+
+    @Override
+    public void reportFlushTimeout(int targetSubpartition, long timeoutMillis) {
+        flushTimeouts[targetSubpartition] = timeoutMillis;
+    }
+
+    /**
+     * Returns the flush timeout last reported for the given target subpartition, or -1 if the
+     * subpartition is not flushed adaptively.
+     */
+    public long getFlushTimeout(int targetSubpartition) {
+        return flushTimeouts[targetSubpartition];
+    }
+
     /**
      * Returns the type of this result partition.
      *
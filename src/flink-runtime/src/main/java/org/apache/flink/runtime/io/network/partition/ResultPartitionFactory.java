@@ -60,12 +60,16 @@ public class ResultPartitionFactory {
 
     private final String compressionCodec;
 
+    private final boolean adaptiveCompressionEnabled;
+
     private final int maxBuffersPerChannel;
 
     private final int sortShuffleMinBuffers;
 
     private final int sortShuffleMinParallelism;
 
+    private final boolean sortShuffleMergeRegions;
+
     private final boolean sslEnabled;
 
     public ResultPartitionFactory(
@@ -78,9 +82,11 @@ public class ResultPartitionFactory {
             int networkBufferSize,
             boolean blockingShuffleCompressionEnabled,
             String compressionCodec,
+            boolean adaptiveCompressionEnabled,
             int maxBuffersPerChannel,
             int sortShuffleMinBuffers,
             int sortShuffleMinParallelism,
+            boolean sortShuffleMergeRegions,
             boolean sslEnabled) {
 
         this.partitionManager = partitionManager;
@@ -92,9 +98,11 @@ public class ResultPartitionFactory {
         this.networkBufferSize = networkBufferSize;
         this.blockingShuffleCompressionEnabled = blockingShuffleCompressionEnabled;
         this.compressionCodec = compressionCodec;
+        this.adaptiveCompressionEnabled = adaptiveCompressionEnabled;
         this.maxBuffersPerChannel = maxBuffersPerChannel;
         this.sortShuffleMinBuffers = sortShuffleMinBuffers;
         this.sortShuffleMinParallelism = sortShuffleMinParallelism;
+        this.sortShuffleMergeRegions = sortShuffleMergeRegions;
         this.sslEnabled = sslEnabled;
     }
 
@@ -123,7 +131,9 @@ public class ResultPartitionFactory {
             SupplierWithException<BufferPool, IOException> bufferPoolFactory) {
         BufferCompressor bufferCompressor = null;
         if (type.isBlocking() && blockingShuffleCompressionEnabled) {
-            bufferCompressor = new BufferCompressor(networkBufferSize, compressionCodec);
+            bufferCompressor =
+                    new BufferCompressor(
+                            networkBufferSize, compressionCodec, adaptiveCompressionEnabled);
         }
 
         ResultSubpartition[] subpartitions = new ResultSubpartition[numberOfSubpartitions];
@@ -170,6 +180,7 @@ public class ResultPartitionFactory {
                                 networkBufferSize,
                                 partitionManager,
                                 channelManager.createChannel().getPath(),
+                                sortShuffleMergeRegions,
                                 bufferCompressor,
                                 bufferPoolFactory);
             } else {
@@ -19,10 +19,13 @@
 package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.checkpoint.channel.ResultSubpartitionInfo;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
@@ -97,6 +100,21 @@ public abstract class ResultSubpartition {
 
     public abstract boolean isReleased();
 
+    /**
+     * Returns the queue through which records are handed over as objects to a local consumer, or
+     * null if the consumer of this subpartition does not accept handed over objects.
+     */
+    @Nullable
+    public ObjectHandoverQueue getObjectHandoverQueue() {
+        return null;
+    }
+
+    /**
+     * Registers the queueing and credit metrics of this subpartition in the given group. Does
+     * nothing for subpartitions that do not queue buffers for a consumer.
+     */
+    public void registerMetrics(MetricGroup group) {}
+
     /**
      * Gets the number of non-event buffers in this subpartition.
      *
@@ -56,4 +56,17 @@ public interface ResultSubpartitionView {
     boolean isAvailable(int numCreditsAvailable);
 
     int unsynchronizedGetNumberOfQueuedBuffers();
+
+    /**
+     * Requests the producer to hand over records as objects to this view, which must be consumed
+     * within the same TaskManager. Records handed over are replaced by placeholder records in the
+     * buffers returned by {@link #getNextBuffer()}.
+     *
+     * @return the queue holding the handed over objects, or null if the subpartition does not
+     *     support it.
+     */
+    @Nullable
+    default ObjectHandoverQueue requestObjectHandover() {
+        return null;
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.network.partition;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Schedules the file reads of all {@link SortMergeSubpartitionReader SortMergeSubpartitionReaders}
+ * of the same {@link PartitionedFile}.
+ *
+ * <p>Readers which need more data are collected and served in rounds. A round reads for all
+ * collected readers in the order of their next read offset in the data file, so concurrent readers
+ * sweep forward through the file instead of seeking back and forth. Only one round runs at a time;
+ * a reader which requests data while a round is running is served by the next round, which is run
+ * by its own thread unless an earlier round has served it already.
+ */
+public class SortMergeReadScheduler {
+
+    /** Guards the pending readers. */
+    private final Object lock = new Object();
+
+    /** Ensures only one read round is running at a time. */
+    private final Object readLock = new Object();
+
+    /** Readers waiting to be served by the next read round. */
+    @GuardedBy("lock")
+    private final Set<SortMergeSubpartitionReader> pendingReaders = new HashSet<>();
+
+    /**
+     * Requests more data for the given reader. Returns after the reader has been served by a read
+     * round.
+     */
+    void requestRead(SortMergeSubpartitionReader reader) {
+        synchronized (lock) {
+            pendingReaders.add(reader);
+        }
+
+        synchronized (readLock) {
+            List<SortMergeSubpartitionReader> readers;
+            synchronized (lock) {
+                if (pendingReaders.isEmpty()) {
+                    // served by the round of another thread already
+                    return;
+                }
+                readers = new ArrayList<>(pendingReaders);
+                pendingReaders.clear();
+            }
+
+            readInOffsetOrder(readers);
+        }
+    }
+
+    private static void readInOffsetOrder(List<SortMergeSubpartitionReader> readers) {
+        List<ScheduledRead> reads = new ArrayList<>(readers.size());
+        for (SortMergeSubpartitionReader reader : readers) {
+            long offset = reader.getNextReadOffset();
+            if (offset >= 0) {
+                reads.add(new ScheduledRead(reader, offset));
+            } else {
+                // nothing to read, but the reader may have failed to locate its next buffer
+                reader.notifyDataAvailable();
+            }
+        }
+        reads.sort(Comparator.comparingLong(read -> read.offset));
+
+        for (ScheduledRead read : reads) {
+            read.reader.readBuffersAndNotify();
+        }
+    }
+
+    /** A reader to serve and the offset of its next read. */
+    private static final class ScheduledRead {
+
+        private final SortMergeSubpartitionReader reader;
+
+        private final long offset;
+
+        private ScheduledRead(SortMergeSubpartitionReader reader, long offset) {
+            this.reader = reader;
+            this.offset = offset;
+        }
+    }
+}
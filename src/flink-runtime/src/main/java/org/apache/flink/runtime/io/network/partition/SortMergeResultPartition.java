@@ -18,7 +18,6 @@
 
 package org.apache.flink.runtime.io.network.partition;
 
-import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.event.AbstractEvent;
@@ -55,7 +54,7 @@ import static org.apache.flink.util.Preconditions.checkState;
  * separately.
  */
 @NotThreadSafe
-public class SortMergeResultPartition extends ResultPartition {
+public class SortMergeResultPartition extends ResultPartition implements PartitionedFileOwner {
 
     private final Object lock = new Object();
 
@@ -67,6 +66,9 @@ public class SortMergeResultPartition extends ResultPartition {
     @GuardedBy("lock")
     private PartitionedFile resultFile;
 
+    /** Schedules the reads of all readers of the produced {@link PartitionedFile}. */
+    private final SortMergeReadScheduler readScheduler = new SortMergeReadScheduler();
+
     /** Number of data buffers (excluding events) written for each subpartition. */
     private final int[] numDataBuffers;
 
@@ -79,6 +81,12 @@ public class SortMergeResultPartition extends ResultPartition {
     /** File writer for this result partition. */
     private final PartitionedFileWriter fileWriter;
 
+    /** Base path of the produced {@link PartitionedFile}. */
+    private final String resultFileBasePath;
+
+    /** Whether to merge the data regions of the produced {@link PartitionedFile} on finish. */
+    private final boolean mergeRegions;
+
     /** Current {@link SortBuffer} to append records to. */
     private SortBuffer currentSortBuffer;
 
@@ -92,6 +100,7 @@ public class SortMergeResultPartition extends ResultPartition {
             int networkBufferSize,
             ResultPartitionManager partitionManager,
             String resultFileBasePath,
+            boolean mergeRegions,
             @Nullable BufferCompressor bufferCompressor,
             SupplierWithException<BufferPool, IOException> bufferPoolFactory) {
 
@@ -107,6 +116,8 @@ public class SortMergeResultPartition extends ResultPartition {
                 bufferPoolFactory);
 
         this.networkBufferSize = networkBufferSize;
+        this.resultFileBasePath = resultFileBasePath;
+        this.mergeRegions = mergeRegions;
         this.numDataBuffers = new int[numSubpartitions];
         this.writeBuffer = MemorySegmentFactory.allocateUnpooledOffHeapMemory(networkBufferSize);
 
@@ -263,7 +274,8 @@ public class SortMergeResultPartition extends ResultPartition {
         }
     }
 
-    void releaseReader(SortMergeSubpartitionReader reader) {
+    @Override
+    public void releaseReader(SortMergeSubpartitionReader reader) {
         synchronized (lock) {
             readers.remove(reader);
 
@@ -282,13 +294,28 @@ public class SortMergeResultPartition extends ResultPartition {
         synchronized (lock) {
             checkState(!isReleased(), "Result partition is already released.");
 
-            resultFile = fileWriter.finish();
+            PartitionedFile partitionedFile = fileWriter.finish();
+            if (mergeRegions && partitionedFile.getNumRegions() > 1) {
+                partitionedFile = mergeRegions(partitionedFile);
+            }
+            resultFile = partitionedFile;
             LOG.info("New partitioned file produced: {}.", resultFile);
         }
 
         super.finish();
     }
 
+    /** Merges the data regions of the given file and deletes the unmerged file afterwards. */
+    private PartitionedFile mergeRegions(PartitionedFile partitionedFile) throws IOException {
+        try {
+            return PartitionedFileMerger.merge(
+                    partitionedFile,
+                    resultFileBasePath + PartitionedFileMerger.MERGED_FILE_SUFFIX);
+        } finally {
+            partitionedFile.deleteQuietly();
+        }
+    }
+
     @Override
     public void close() {
         releaseCurrentSortBuffer();
@@ -312,6 +339,7 @@ public class SortMergeResultPartition extends ResultPartition {
                             numDataBuffers[subpartitionIndex],
                             networkBufferSize,
                             this,
+                            readScheduler,
                             availabilityListener,
                             resultFile);
             readers.add(reader);
@@ -353,8 +381,17 @@ public class SortMergeResultPartition extends ResultPartition {
         return 0;
     }
 
-    @VisibleForTesting
-    PartitionedFile getResultFile() {
-        return resultFile;
+    /** Returns the produced {@link PartitionedFile} or null if the partition is not finished. */
+    @Nullable
+    public PartitionedFile getResultFile() {
+        synchronized (lock) {
+            return resultFile;
+        }
+    }
+
+    /** Returns the number of data buffers (excluding events) written to the given subpartition. */
+    public int getNumDataBuffers(int subpartitionIndex) {
+        checkElementIndex(subpartitionIndex, numSubpartitions, "Subpartition not found.");
+        return numDataBuffers[subpartitionIndex];
     }
 }
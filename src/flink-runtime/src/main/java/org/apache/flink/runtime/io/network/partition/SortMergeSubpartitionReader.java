@@ -23,10 +23,10 @@ import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
 import org.apache.flink.runtime.io.network.partition.ResultSubpartition.BufferAndBacklog;
-import org.apache.flink.util.ExceptionUtils;
 import org.apache.flink.util.IOUtils;
 
 import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
@@ -35,44 +35,66 @@ import java.util.Queue;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 import static org.apache.flink.util.Preconditions.checkState;
 
-/** Subpartition data reader for {@link SortMergeResultPartition}. */
+/**
+ * Subpartition data reader for the {@link PartitionedFile} of a {@link SortMergeResultPartition}.
+ * Once the consumer has consumed all buffers read before, the next buffers are read by the {@link
+ * SortMergeReadScheduler} of the {@link PartitionedFile}, possibly in the thread of another reader.
+ */
 public class SortMergeSubpartitionReader implements ResultSubpartitionView, BufferRecycler {
 
     private static final int NUM_READ_BUFFERS = 2;
 
-    /** Target {@link SortMergeResultPartition} to read data from. */
-    private final SortMergeResultPartition partition;
+    private final Object lock = new Object();
+
+    /** Owner of the {@link PartitionedFile} to read data from. */
+    private final PartitionedFileOwner partition;
+
+    /** Scheduler of the reads from the {@link PartitionedFile}. */
+    private final SortMergeReadScheduler readScheduler;
 
     /** Listener to notify when data is available. */
     private final BufferAvailabilityListener availabilityListener;
 
     /** Unmanaged memory used as read buffers. */
+    @GuardedBy("lock")
     private final Queue<MemorySegment> readBuffers = new ArrayDeque<>();
 
     /** Buffers read by the file reader. */
+    @GuardedBy("lock")
     private final Queue<Buffer> buffersRead = new ArrayDeque<>();
 
     /** File reader used to read buffer from. */
+    @GuardedBy("lock")
     private final PartitionedFileReader fileReader;
 
     /** Number of remaining non-event buffers to read. */
+    @GuardedBy("lock")
     private int dataBufferBacklog;
 
     /** Whether this reader is released or not. */
+    @GuardedBy("lock")
     private boolean isReleased;
 
+    /** Failure of a scheduled read, which is reported to the consumer. */
+    @GuardedBy("lock")
+    @Nullable
+    private Throwable failureCause;
+
     /** Sequence number of the next buffer to be sent to the consumer. */
+    @GuardedBy("lock")
     private int sequenceNumber;
 
     public SortMergeSubpartitionReader(
             int subpartitionIndex,
             int dataBufferBacklog,
             int bufferSize,
-            SortMergeResultPartition partition,
+            PartitionedFileOwner partition,
+            SortMergeReadScheduler readScheduler,
             BufferAvailabilityListener listener,
             PartitionedFile partitionedFile)
             throws IOException {
         this.partition = checkNotNull(partition);
+        this.readScheduler = checkNotNull(readScheduler);
         this.availabilityListener = checkNotNull(listener);
         this.dataBufferBacklog = dataBufferBacklog;
 
@@ -95,27 +117,30 @@ public class SortMergeSubpartitionReader implements ResultSubpartitionView, Buff
     @Nullable
     @Override
     public BufferAndBacklog getNextBuffer() {
-        checkState(!isReleased, "Reader is already released.");
+        synchronized (lock) {
+            checkState(!isReleased, "Reader is already released.");
 
-        Buffer buffer = buffersRead.poll();
-        if (buffer == null) {
-            return null;
-        }
+            Buffer buffer = buffersRead.poll();
+            if (buffer == null) {
+                return null;
+            }
 
-        if (buffer.isBuffer()) {
-            --dataBufferBacklog;
-        }
+            if (buffer.isBuffer()) {
+                --dataBufferBacklog;
+            }
 
-        final Buffer lookAhead = buffersRead.peek();
+            final Buffer lookAhead = buffersRead.peek();
 
-        return BufferAndBacklog.fromBufferAndLookahead(
-                buffer,
-                lookAhead == null ? Buffer.DataType.NONE : lookAhead.getDataType(),
-                dataBufferBacklog,
-                sequenceNumber++);
+            return BufferAndBacklog.fromBufferAndLookahead(
+                    buffer,
+                    lookAhead == null ? Buffer.DataType.NONE : lookAhead.getDataType(),
+                    dataBufferBacklog,
+                    sequenceNumber++);
+        }
     }
 
-    void readBuffers() throws IOException {
+    @GuardedBy("lock")
+    private void readBuffers() throws IOException {
         // we do not need to recycle the allocated segment here if any exception occurs
         // for this subpartition reader will be released so no resource will be leaked
         MemorySegment segment;
@@ -129,44 +154,90 @@ public class SortMergeSubpartitionReader implements ResultSubpartitionView, Buff
         }
     }
 
+    /**
+     * Returns the offset in the data file of the next buffer to read or -1 if there is nothing to
+     * read anymore.
+     */
+    long getNextReadOffset() {
+        synchronized (lock) {
+            if (isReleased || failureCause != null) {
+                return -1;
+            }
+
+            try {
+                return fileReader.getNextReadOffset();
+            } catch (Throwable throwable) {
+                failureCause = throwable;
+                return -1;
+            }
+        }
+    }
+
+    /** Reads the next buffers and notifies the consumer, called by the read scheduler. */
+    void readBuffersAndNotify() {
+        synchronized (lock) {
+            if (isReleased || failureCause != null) {
+                return;
+            }
+
+            try {
+                readBuffers();
+            } catch (Throwable throwable) {
+                failureCause = throwable;
+            }
+        }
+
+        notifyDataAvailable();
+    }
+
     @Override
     public void notifyDataAvailable() {
-        if (!buffersRead.isEmpty()) {
+        boolean isAvailable;
+        synchronized (lock) {
+            isAvailable = !buffersRead.isEmpty() || failureCause != null;
+        }
+
+        if (isAvailable) {
             availabilityListener.notifyDataAvailable();
         }
     }
 
     @Override
     public void recycle(MemorySegment segment) {
-        if (!isReleased) {
+        synchronized (lock) {
+            if (isReleased) {
+                return;
+            }
             readBuffers.add(segment);
-        }
 
-        // notify data available if the reader is unavailable currently
-        if (!isReleased && readBuffers.size() == NUM_READ_BUFFERS) {
-            try {
-                readBuffers();
-            } catch (IOException exception) {
-                ExceptionUtils.rethrow(exception, "Failed to read next buffer.");
+            // read the next buffers only after the consumer has consumed all buffers read
+            if (readBuffers.size() < NUM_READ_BUFFERS) {
+                return;
             }
-            notifyDataAvailable();
         }
+
+        readScheduler.requestRead(this);
     }
 
     @Override
     public void releaseAllResources() {
-        isReleased = true;
+        synchronized (lock) {
+            isReleased = true;
 
-        buffersRead.clear();
-        readBuffers.clear();
+            buffersRead.clear();
+            readBuffers.clear();
 
-        IOUtils.closeQuietly(fileReader);
+            IOUtils.closeQuietly(fileReader);
+        }
         partition.releaseReader(this);
     }
 
     @Override
     public boolean isReleased() {
-        return isReleased;
+        synchronized (lock) {
+            // a failed reader looks released to the consumer, which then fetches the cause
+            return isReleased || failureCause != null;
+        }
     }
 
     @Override
@@ -176,17 +247,24 @@ public class SortMergeSubpartitionReader implements ResultSubpartitionView, Buff
 
     @Override
     public Throwable getFailureCause() {
-        // we can never throw an error after this was created
-        return null;
+        synchronized (lock) {
+            return failureCause;
+        }
     }
 
     @Override
     public boolean isAvailable(int numCreditsAvailable) {
-        if (numCreditsAvailable > 0) {
-            return !buffersRead.isEmpty();
-        }
+        synchronized (lock) {
+            if (failureCause != null) {
+                return true;
+            }
 
-        return !buffersRead.isEmpty() && !buffersRead.peek().isBuffer();
+            if (numCreditsAvailable > 0) {
+                return !buffersRead.isEmpty();
+            }
+
+            return !buffersRead.isEmpty() && !buffersRead.peek().isBuffer();
+        }
     }
 
     @Override
@@ -30,6 +30,7 @@ import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.FileRegionBuffer;
 import org.apache.flink.runtime.io.network.logger.NetworkActionsLogger;
 import org.apache.flink.runtime.io.network.partition.BufferAvailabilityListener;
+import org.apache.flink.runtime.io.network.partition.ObjectHandoverQueue;
 import org.apache.flink.runtime.io.network.partition.PartitionNotFoundException;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionManager;
@@ -68,6 +69,12 @@ public class LocalInputChannel extends InputChannel implements BufferAvailabilit
     /** The consumed subpartition. */
     @Nullable private volatile ResultSubpartitionView subpartitionView;
 
+    /**
+     * Objects handed over by the producer in place of serialized records. Kept after the view is
+     * released, because the buffers with the placeholder records may still be deserialized.
+     */
+    @Nullable private volatile ObjectHandoverQueue objectHandoverQueue;
+
     private volatile boolean isReleased;
 
     private final ChannelStatePersister channelStatePersister;
@@ -159,6 +166,9 @@ public class LocalInputChannel extends InputChannel implements BufferAvailabilit
                         throw new IOException("Error requesting subpartition.");
                     }
 
+                    // the queue must be visible before any placeholder record can be read
+                    this.objectHandoverQueue = subpartitionView.requestObjectHandover();
+
                     // make the subpartition view visible
                     this.subpartitionView = subpartitionView;
 
@@ -211,6 +221,15 @@ public class LocalInputChannel extends InputChannel implements BufferAvailabilit
         }
     }
 
+    /**
+     * Returns the queue holding the records the producer handed over as objects, or null if the
+     * producer does not support it.
+     */
+    @Nullable
+    public ObjectHandoverQueue getObjectHandoverQueue() {
+        return objectHandoverQueue;
+    }
+
     @Override
     Optional<BufferAndAvailability> getNextBuffer() throws IOException {
         checkError();
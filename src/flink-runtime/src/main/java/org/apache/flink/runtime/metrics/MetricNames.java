@@ -67,4 +67,8 @@ public class MetricNames {
     }
 
     public static final String TASK_IDLE_TIME = "idleTimeMs" + SUFFIX_RATE;
+    public static final String TASK_MAIL_TIME = "mailTimeMs" + SUFFIX_RATE;
+    public static final String TASK_MAILBOX_SIZE = "mailboxQueueSize";
+    public static final String TASK_MAILBOX_LATENCY = "mailboxLatencyMs";
+    public static final String TASK_MAILBOX_PRIORITY = "mailboxPriority";
 }
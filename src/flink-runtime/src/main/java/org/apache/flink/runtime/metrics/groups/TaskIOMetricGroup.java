@@ -46,6 +46,7 @@ public class TaskIOMetricGroup extends ProxyMetricGroup<TaskMetricGroup> {
     private final Meter numRecordsOutRate;
     private final Meter numBuffersOutRate;
     private final Meter idleTimePerSecond;
+    private final Meter mailTimePerSecond;
 
     public TaskIOMetricGroup(TaskMetricGroup parent) {
         super(parent);
@@ -68,6 +69,8 @@ public class TaskIOMetricGroup extends ProxyMetricGroup<TaskMetricGroup> {
 
         this.idleTimePerSecond =
                 meter(MetricNames.TASK_IDLE_TIME, new MeterView(new SimpleCounter()));
+        this.mailTimePerSecond =
+                meter(MetricNames.TASK_MAIL_TIME, new MeterView(new SimpleCounter()));
     }
 
     public IOMetrics createSnapshot() {
@@ -102,6 +105,10 @@ public class TaskIOMetricGroup extends ProxyMetricGroup<TaskMetricGroup> {
         return idleTimePerSecond;
     }
 
+    public Meter getMailTimeMsPerSecond() {
+        return mailTimePerSecond;
+    }
+
     // ============================================================================================
     // Metric Reuse
     // ============================================================================================
@@ -18,7 +18,6 @@
 
 package org.apache.flink.runtime.shuffle;
 
-import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.runtime.clusterframework.types.ResourceID;
 import org.apache.flink.runtime.io.network.ConnectionID;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
@@ -83,7 +82,6 @@ public class NettyShuffleDescriptor implements ShuffleDescriptor {
 
         private final ConnectionID connectionID;
 
-        @VisibleForTesting
         public NetworkPartitionConnectionInfo(ConnectionID connectionID) {
             this.connectionID = connectionID;
         }
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.IllegalConfigurationException;
+import org.apache.flink.runtime.io.network.partition.PartitionedFile;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.apache.flink.runtime.shuffle.remote.RemoteShuffleMessages.PUSH_PARTITION;
+import static org.apache.flink.runtime.shuffle.remote.RemoteShuffleMessages.RELEASE_PARTITION;
+import static org.apache.flink.runtime.shuffle.remote.RemoteShuffleMessages.readResponse;
+import static org.apache.flink.runtime.shuffle.remote.RemoteShuffleMessages.writePartitionId;
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Client of the control port of the {@link RemoteShuffleServer}. Every request opens its own
+ * connection, so the client is thread-safe and holds no resources between requests.
+ */
+public class RemoteShuffleClient {
+
+    private final InetSocketAddress controlAddress;
+
+    private final InetSocketAddress dataAddress;
+
+    public RemoteShuffleClient(InetSocketAddress controlAddress, InetSocketAddress dataAddress) {
+        this.controlAddress = checkNotNull(controlAddress);
+        this.dataAddress = checkNotNull(dataAddress);
+    }
+
+    public static RemoteShuffleClient fromConfiguration(Configuration configuration) {
+        String host =
+                configuration
+                        .getOptional(RemoteShuffleOptions.HOST)
+                        .orElseThrow(
+                                () ->
+                                        new IllegalConfigurationException(
+                                                "The address of the remote shuffle service must be"
+                                                        + " configured with "
+                                                        + RemoteShuffleOptions.HOST.key()
+                                                        + '.'));
+        return new RemoteShuffleClient(
+                new InetSocketAddress(
+                        host, configuration.getInteger(RemoteShuffleOptions.CONTROL_PORT)),
+                new InetSocketAddress(
+                        host, configuration.getInteger(RemoteShuffleOptions.DATA_PORT)));
+    }
+
+    /** Returns the address consumers read the stored partitions from. */
+    public InetSocketAddress getDataAddress() {
+        return dataAddress;
+    }
+
+    /**
+     * Pushes the finished {@link PartitionedFile} of the given partition to the shuffle service.
+     * The local file can be deleted once this method returns.
+     *
+     * @param partitionId id of the pushed partition
+     * @param partitionedFile file of the finished partition
+     * @param numDataBuffers number of data buffers (excluding events) of each subpartition
+     */
+    public void pushPartition(
+            ResultPartitionID partitionId, PartitionedFile partitionedFile, int[] numDataBuffers)
+            throws IOException {
+        checkNotNull(partitionId);
+        checkNotNull(partitionedFile);
+        checkArgument(numDataBuffers.length > 0, "Illegal number of subpartitions.");
+
+        try (Socket socket = new Socket(controlAddress.getAddress(), controlAddress.getPort());
+                DataOutputStream out =
+                        new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                DataInputStream in =
+                        new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            out.writeByte(PUSH_PARTITION);
+            writePartitionId(partitionId, out);
+            out.writeInt(numDataBuffers.length);
+            out.writeInt(partitionedFile.getNumRegions());
+            for (int numBuffers : numDataBuffers) {
+                out.writeInt(numBuffers);
+            }
+            sendFile(partitionedFile.getIndexFilePath(), out);
+            sendFile(partitionedFile.getDataFilePath(), out);
+            out.flush();
+
+            readResponse(in);
+        }
+    }
+
+    /** Releases the given partition and deletes its data from the shuffle service. */
+    public void releasePartition(ResultPartitionID partitionId) throws IOException {
+        checkNotNull(partitionId);
+
+        try (Socket socket = new Socket(controlAddress.getAddress(), controlAddress.getPort());
+                DataOutputStream out =
+                        new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                DataInputStream in =
+                        new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            out.writeByte(RELEASE_PARTITION);
+            writePartitionId(partitionId, out);
+            out.flush();
+
+            readResponse(in);
+        }
+    }
+
+    private static void sendFile(Path file, DataOutputStream out) throws IOException {
+        out.writeLong(Files.size(file));
+        Files.copy(file, out);
+    }
+}
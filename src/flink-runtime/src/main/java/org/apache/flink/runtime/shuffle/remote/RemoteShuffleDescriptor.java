@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.runtime.clusterframework.types.ResourceID;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.shuffle.NettyShuffleDescriptor;
+
+import java.util.Optional;
+
+/**
+ * {@link NettyShuffleDescriptor} of a partition which is stored by the remote shuffle service.
+ * Consumers read it from the data port of the service, and it does not occupy any resources of the
+ * producing TaskManager once the production has finished.
+ */
+public class RemoteShuffleDescriptor extends NettyShuffleDescriptor {
+
+    private static final long serialVersionUID = 3317486104734513628L;
+
+    /** Location of all partitions stored by the remote shuffle service. */
+    public static final ResourceID SHUFFLE_SERVICE_LOCATION =
+            new ResourceID("remote-shuffle-service");
+
+    public RemoteShuffleDescriptor(
+            PartitionConnectionInfo partitionConnectionInfo, ResultPartitionID resultPartitionID) {
+        super(SHUFFLE_SERVICE_LOCATION, partitionConnectionInfo, resultPartitionID);
+    }
+
+    @Override
+    public Optional<ResourceID> storesLocalResourcesOn() {
+        return Optional.empty();
+    }
+}
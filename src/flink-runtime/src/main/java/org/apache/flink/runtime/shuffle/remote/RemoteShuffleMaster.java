@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.runtime.io.network.ConnectionID;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.shuffle.NettyShuffleDescriptor;
+import org.apache.flink.runtime.shuffle.NettyShuffleDescriptor.NetworkPartitionConnectionInfo;
+import org.apache.flink.runtime.shuffle.NettyShuffleMaster;
+import org.apache.flink.runtime.shuffle.PartitionDescriptor;
+import org.apache.flink.runtime.shuffle.ProducerDescriptor;
+import org.apache.flink.runtime.shuffle.ShuffleDescriptor;
+import org.apache.flink.runtime.shuffle.ShuffleMaster;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * {@link ShuffleMaster} of the remote shuffle service. Blocking partitions are stored by the remote
+ * shuffle service, all other partitions are exchanged between the TaskManagers like with the
+ * {@link NettyShuffleMaster}.
+ */
+public class RemoteShuffleMaster implements ShuffleMaster<NettyShuffleDescriptor> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RemoteShuffleMaster.class);
+
+    private final RemoteShuffleClient client;
+
+    /** Releases the partitions without blocking the main thread of the JobMaster. */
+    private final Executor releaseExecutor;
+
+    public RemoteShuffleMaster(RemoteShuffleClient client) {
+        this(
+                client,
+                Executors.newSingleThreadExecutor(
+                        new ExecutorThreadFactory("flink-remote-shuffle-release")));
+    }
+
+    RemoteShuffleMaster(RemoteShuffleClient client, Executor releaseExecutor) {
+        this.client = checkNotNull(client);
+        this.releaseExecutor = checkNotNull(releaseExecutor);
+    }
+
+    @Override
+    public CompletableFuture<NettyShuffleDescriptor> registerPartitionWithProducer(
+            PartitionDescriptor partitionDescriptor, ProducerDescriptor producerDescriptor) {
+        if (!isStoredRemotely(partitionDescriptor.getPartitionType())) {
+            return NettyShuffleMaster.INSTANCE.registerPartitionWithProducer(
+                    partitionDescriptor, producerDescriptor);
+        }
+
+        ResultPartitionID resultPartitionID =
+                new ResultPartitionID(
+                        partitionDescriptor.getPartitionId(),
+                        producerDescriptor.getProducerExecutionId());
+        ConnectionID connectionID =
+                new ConnectionID(
+                        client.getDataAddress(), partitionDescriptor.getConnectionIndex());
+
+        return CompletableFuture.completedFuture(
+                new RemoteShuffleDescriptor(
+                        new NetworkPartitionConnectionInfo(connectionID), resultPartitionID));
+    }
+
+    @Override
+    public void releasePartitionExternally(ShuffleDescriptor shuffleDescriptor) {
+        if (!(shuffleDescriptor instanceof RemoteShuffleDescriptor)) {
+            return;
+        }
+
+        ResultPartitionID partitionId = shuffleDescriptor.getResultPartitionID();
+        releaseExecutor.execute(
+                () -> {
+                    try {
+                        client.releasePartition(partitionId);
+                    } catch (Throwable t) {
+                        LOG.warn(
+                                "Failed to release partition {} from the remote shuffle service.",
+                                partitionId,
+                                t);
+                    }
+                });
+    }
+
+    /**
+     * Only non-persistent blocking partitions are stored by the shuffle service. Pipelined
+     * partitions need both sides to run at the same time, and persistent partitions are promoted
+     * to cluster partitions which are tracked by the TaskManagers.
+     */
+    static boolean isStoredRemotely(ResultPartitionType partitionType) {
+        return partitionType == ResultPartitionType.BLOCKING;
+    }
+}
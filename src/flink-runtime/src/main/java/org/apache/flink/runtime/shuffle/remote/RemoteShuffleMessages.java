@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.jobgraph.IntermediateResultPartitionID;
+
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBuf;
+import org.apache.flink.shaded.netty4.io.netty.buffer.Unpooled;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Wire format of the control connections between the {@link RemoteShuffleClient} and the {@link
+ * RemoteShuffleServer}. Each connection carries a single request which starts with one of the
+ * operation codes and is answered with one of the return codes, followed by an error message in
+ * case of {@link #RETURN_ERROR}.
+ *
+ * <p>A {@link #PUSH_PARTITION} request consists of the partition id, the number of subpartitions,
+ * the number of data regions, the number of data buffers of each subpartition, and the index file
+ * followed by the data file of the {@link
+ * org.apache.flink.runtime.io.network.partition.PartitionedFile}, each prefixed with its length.
+ * A {@link #RELEASE_PARTITION} request only consists of the partition id.
+ */
+final class RemoteShuffleMessages {
+
+    static final byte PUSH_PARTITION = 0;
+
+    static final byte RELEASE_PARTITION = 1;
+
+    static final byte RETURN_OKAY = 0;
+
+    static final byte RETURN_ERROR = 1;
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private RemoteShuffleMessages() {}
+
+    static void writePartitionId(ResultPartitionID partitionId, DataOutputStream out)
+            throws IOException {
+        ByteBuf buffer = Unpooled.buffer();
+        partitionId.getPartitionId().writeTo(buffer);
+        partitionId.getProducerId().writeTo(buffer);
+
+        out.writeInt(buffer.readableBytes());
+        out.write(buffer.array(), buffer.arrayOffset(), buffer.readableBytes());
+    }
+
+    static ResultPartitionID readPartitionId(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+
+        ByteBuf buffer = Unpooled.wrappedBuffer(bytes);
+        return new ResultPartitionID(
+                IntermediateResultPartitionID.fromByteBuf(buffer),
+                ExecutionAttemptID.fromByteBuf(buffer));
+    }
+
+    static void writeError(Throwable throwable, DataOutputStream out) throws IOException {
+        out.writeByte(RETURN_ERROR);
+        out.writeUTF(String.valueOf(throwable.getMessage()));
+    }
+
+    /** Reads the response of a request and throws an {@link IOException} on errors. */
+    static void readResponse(DataInputStream in) throws IOException {
+        int returnCode = in.readByte();
+        if (returnCode == RETURN_ERROR) {
+            throw new IOException("Remote shuffle service failed: " + in.readUTF());
+        } else if (returnCode != RETURN_OKAY) {
+            throw new IOException("Unexpected return code " + returnCode);
+        }
+    }
+
+    /** Copies exactly {@code length} bytes from the input to the output stream. */
+    static void copyBytes(InputStream in, OutputStream out, long length) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(COPY_BUFFER_SIZE, Math.max(length, 1))];
+        long remaining = length;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new EOFException("Unexpected end of stream, " + remaining + " bytes left.");
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.configuration.ConfigOption;
+
+import static org.apache.flink.configuration.ConfigOptions.key;
+
+/** Options to configure the remote shuffle service and its clients. */
+@SuppressWarnings("WeakerAccess")
+public class RemoteShuffleOptions {
+
+    private RemoteShuffleOptions() {}
+
+    /** The address of the remote shuffle service which clients connect to. */
+    public static final ConfigOption<String> HOST =
+            key("shuffle-service.remote.host")
+                    .stringType()
+                    .noDefaultValue()
+                    .withDescription(
+                            "The address of the remote shuffle service which the JobManager and the TaskManagers"
+                                    + " connect to.");
+
+    /** The network interface the remote shuffle service binds to. */
+    public static final ConfigOption<String> BIND_HOST =
+            key("shuffle-service.remote.bind-host")
+                    .stringType()
+                    .defaultValue("0.0.0.0")
+                    .withDescription("The network interface the remote shuffle service binds to.");
+
+    /** The port to push partitions to and to release partitions from the remote shuffle service. */
+    public static final ConfigOption<Integer> CONTROL_PORT =
+            key("shuffle-service.remote.control-port")
+                    .intType()
+                    .defaultValue(6130)
+                    .withDescription(
+                            "The port of the remote shuffle service which producers push finished partitions"
+                                    + " to and which partitions are released through. 0 lets the service pick a"
+                                    + " free port.");
+
+    /** The port to read partitions from the remote shuffle service. */
+    public static final ConfigOption<Integer> DATA_PORT =
+            key("shuffle-service.remote.data-port")
+                    .intType()
+                    .defaultValue(6131)
+                    .withDescription(
+                            "The port of the remote shuffle service which consumers read partitions from,"
+                                    + " using the regular network stack of the TaskManagers. 0 lets the service"
+                                    + " pick a free port.");
+
+    /** The directory the remote shuffle service stores partitions in. */
+    public static final ConfigOption<String> STORAGE_DIR =
+            key("shuffle-service.remote.storage-dir")
+                    .stringType()
+                    .noDefaultValue()
+                    .withDescription(
+                            "The directory the remote shuffle service stores partitions in. If not set, the"
+                                    + " first temporary directory of 'io.tmp.dirs' is used.");
+
+    /** The maximum number of concurrent push and release requests of the remote shuffle service. */
+    public static final ConfigOption<Integer> MAX_CONNECTIONS =
+            key("shuffle-service.remote.max-connections")
+                    .intType()
+                    .defaultValue(32)
+                    .withDescription(
+                            "The maximum number of push and release requests the remote shuffle service"
+                                    + " handles concurrently.");
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.runtime.event.AbstractEvent;
+import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
+import org.apache.flink.runtime.io.network.partition.BufferAvailabilityListener;
+import org.apache.flink.runtime.io.network.partition.PartitionedFile;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartitionView;
+import org.apache.flink.runtime.io.network.partition.SortMergeResultPartition;
+import org.apache.flink.runtime.metrics.groups.TaskIOMetricGroup;
+import org.apache.flink.runtime.shuffle.ShuffleEnvironment;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * {@link ResultPartitionWriter} which pushes the finished {@link SortMergeResultPartition} to the
+ * remote shuffle service and releases its local file afterwards.
+ */
+class RemoteShuffleResultPartitionWriter implements ResultPartitionWriter {
+
+    private final SortMergeResultPartition partition;
+
+    private final RemoteShuffleClient client;
+
+    /** Environment the partition is registered with and released from. */
+    private final ShuffleEnvironment<?, ?> localEnvironment;
+
+    RemoteShuffleResultPartitionWriter(
+            SortMergeResultPartition partition,
+            RemoteShuffleClient client,
+            ShuffleEnvironment<?, ?> localEnvironment) {
+        this.partition = checkNotNull(partition);
+        this.client = checkNotNull(client);
+        this.localEnvironment = checkNotNull(localEnvironment);
+    }
+
+    @Override
+    public ResultPartitionID getPartitionId() {
+        return partition.getPartitionId();
+    }
+
+    @Override
+    public int getNumberOfSubpartitions() {
+        return partition.getNumberOfSubpartitions();
+    }
+
+    @Override
+    public int getNumTargetKeyGroups() {
+        return partition.getNumTargetKeyGroups();
+    }
+
+    @Override
+    public void setup() throws IOException {
+        partition.setup();
+    }
+
+    @Override
+    public void emitRecord(ByteBuffer record, int targetSubpartition) throws IOException {
+        partition.emitRecord(record, targetSubpartition);
+    }
+
+    @Override
+    public void broadcastRecord(ByteBuffer record) throws IOException {
+        partition.broadcastRecord(record);
+    }
+
+    @Override
+    public void broadcastEvent(AbstractEvent event, boolean isPriorityEvent) throws IOException {
+        partition.broadcastEvent(event, isPriorityEvent);
+    }
+
+    @Override
+    public void setMetricGroup(TaskIOMetricGroup metrics) {
+        partition.setMetricGroup(metrics);
+    }
+
+    @Override
+    public ResultSubpartitionView createSubpartitionView(
+            int index, BufferAvailabilityListener availabilityListener) throws IOException {
+        return partition.createSubpartitionView(index, availabilityListener);
+    }
+
+    @Override
+    public void flushAll() {
+        partition.flushAll();
+    }
+
+    @Override
+    public void flush(int subpartitionIndex) {
+        partition.flush(subpartitionIndex);
+    }
+
+    /**
+     * Finishes the partition and pushes it to the remote shuffle service. The task only finishes
+     * once the push succeeded, so consumers are never scheduled against a missing partition.
+     */
+    @Override
+    public void finish() throws IOException {
+        partition.finish();
+
+        PartitionedFile resultFile = partition.getResultFile();
+        checkState(resultFile != null, "Partition has been released.");
+
+        int[] numDataBuffers = new int[partition.getNumberOfSubpartitions()];
+        for (int i = 0; i < numDataBuffers.length; i++) {
+            numDataBuffers[i] = partition.getNumDataBuffers(i);
+        }
+        client.pushPartition(partition.getPartitionId(), resultFile, numDataBuffers);
+
+        // consumers read from the shuffle service, the local file is not needed anymore
+        localEnvironment.releasePartitionsLocally(
+                Collections.singleton(partition.getPartitionId()));
+    }
+
+    @Override
+    public boolean isFinished() {
+        return partition.isFinished();
+    }
+
+    @Override
+    public void release(Throwable cause) {
+        partition.release(cause);
+    }
+
+    @Override
+    public boolean isReleased() {
+        return partition.isReleased();
+    }
+
+    @Override
+    public void fail(Throwable throwable) {
+        partition.fail(throwable);
+    }
+
+    @Override
+    public CompletableFuture<?> getAvailableFuture() {
+        return partition.getAvailableFuture();
+    }
+
+    @Override
+    public void close() throws Exception {
+        partition.close();
+    }
+
+    @Override
+    public String toString() {
+        return "RemoteShuffleResultPartitionWriter{" + partition + '}';
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.ConfigurationUtils;
+import org.apache.flink.runtime.io.network.netty.NettyConfig;
+import org.apache.flink.runtime.io.network.netty.NettyConnectionManager;
+import org.apache.flink.runtime.io.network.partition.BufferAvailabilityListener;
+import org.apache.flink.runtime.io.network.partition.PartitionNotFoundException;
+import org.apache.flink.runtime.io.network.partition.PartitionedFile;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionProvider;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartitionView;
+import org.apache.flink.runtime.util.ConfigurationParserUtils;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
+import org.apache.flink.util.ExceptionUtils;
+import org.apache.flink.util.FileUtils;
+import org.apache.flink.util.IOUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.apache.flink.runtime.shuffle.remote.RemoteShuffleMessages.PUSH_PARTITION;
+import static org.apache.flink.runtime.shuffle.remote.RemoteShuffleMessages.RELEASE_PARTITION;
+import static org.apache.flink.runtime.shuffle.remote.RemoteShuffleMessages.RETURN_OKAY;
+import static org.apache.flink.runtime.shuffle.remote.RemoteShuffleMessages.copyBytes;
+import static org.apache.flink.runtime.shuffle.remote.RemoteShuffleMessages.readPartitionId;
+import static org.apache.flink.runtime.shuffle.remote.RemoteShuffleMessages.writeError;
+
+/**
+ * Server of the remote shuffle service which stores the blocking result partitions of batch jobs
+ * outside of their producing TaskManagers.
+ *
+ * <p>Producers push the {@link PartitionedFile} of a finished sort-merge partition through the
+ * control port, see {@link RemoteShuffleMessages} for the wire format. Consumers read the stored
+ * partitions through the data port, which speaks the same Netty protocol as the TaskManagers, so
+ * the regular remote input channels can consume from the service. Partitions are deleted when
+ * they are released through the control port or when the server is closed.
+ *
+ * <p>The server can run in its own process, see {@link RemoteShuffleServiceEntrypoint}, or inside
+ * the JVM of a test.
+ */
+public class RemoteShuffleServer implements ResultPartitionProvider, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RemoteShuffleServer.class);
+
+    private static final String DIR_NAME_PREFIX = "flink-remote-shuffle-";
+
+    /** Stored partitions by their ids. */
+    private final Map<ResultPartitionID, StoredPartition> partitions = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean shutdownRequested = new AtomicBoolean();
+
+    private final CompletableFuture<Void> terminationFuture = new CompletableFuture<>();
+
+    /** Directory the pushed partitions are stored in. */
+    private final File storageDirectory;
+
+    /** Size of the buffers the stored partitions are read with. */
+    private final int bufferSize;
+
+    /** Serves the stored partitions to the consumers. */
+    private final NettyConnectionManager connectionManager;
+
+    /** Handles the push and release requests. */
+    private final ExecutorService connectionExecutor;
+
+    private final ServerSocket serverSocket;
+
+    private final Thread acceptorThread;
+
+    private int dataPort = -1;
+
+    public RemoteShuffleServer(Configuration configuration) throws IOException {
+        InetAddress bindAddress =
+                InetAddress.getByName(configuration.getString(RemoteShuffleOptions.BIND_HOST));
+        this.bufferSize = ConfigurationParserUtils.getPageSize(configuration);
+        this.storageDirectory = createStorageDirectory(configuration);
+
+        NettyConfig nettyConfig =
+                new NettyConfig(
+                        bindAddress,
+                        configuration.getInteger(RemoteShuffleOptions.DATA_PORT),
+                        bufferSize,
+                        1,
+                        configuration);
+        // task events are only exchanged between running tasks, which never happens here
+        this.connectionManager =
+                new NettyConnectionManager(this, (partitionId, event) -> false, nettyConfig);
+        this.connectionExecutor =
+                Executors.newFixedThreadPool(
+                        configuration.getInteger(RemoteShuffleOptions.MAX_CONNECTIONS),
+                        new ExecutorThreadFactory("flink-remote-shuffle-connection"));
+
+        try {
+            this.serverSocket =
+                    new ServerSocket(
+                            configuration.getInteger(RemoteShuffleOptions.CONTROL_PORT),
+                            0,
+                            bindAddress);
+        } catch (IOException e) {
+            connectionExecutor.shutdownNow();
+            FileUtils.deleteDirectoryQuietly(storageDirectory);
+            throw new IOException("Could not open the control port of the shuffle service.", e);
+        }
+
+        this.acceptorThread = new Thread(this::acceptConnections, "Remote Shuffle Service");
+        this.acceptorThread.setDaemon(true);
+    }
+
+    /** Starts serving the control and data connections. */
+    public void start() throws IOException {
+        dataPort = connectionManager.start();
+        acceptorThread.start();
+
+        LOG.info(
+                "Started remote shuffle service with control port {} and data port {}, storing"
+                        + " partitions in {}.",
+                getControlPort(),
+                dataPort,
+                storageDirectory);
+    }
+
+    public int getControlPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getDataPort() {
+        return dataPort;
+    }
+
+    public CompletableFuture<Void> getTerminationFuture() {
+        return terminationFuture;
+    }
+
+    @VisibleForTesting
+    int getNumberOfStoredPartitions() {
+        return partitions.size();
+    }
+
+    @Override
+    public ResultSubpartitionView createSubpartitionView(
+            ResultPartitionID partitionId,
+            int index,
+            BufferAvailabilityListener availabilityListener)
+            throws IOException {
+        StoredPartition partition = partitions.get(partitionId);
+        if (partition == null) {
+            throw new PartitionNotFoundException(partitionId);
+        }
+
+        return partition.createSubpartitionView(index, availabilityListener);
+    }
+
+    // ------------------------------------------------------------------------
+    //  Control connections
+    // ------------------------------------------------------------------------
+
+    private void acceptConnections() {
+        try {
+            while (!shutdownRequested.get()) {
+                Socket socket = serverSocket.accept();
+                try {
+                    connectionExecutor.execute(() -> handleConnection(socket));
+                } catch (RejectedExecutionException e) {
+                    IOUtils.closeQuietly(socket);
+                }
+            }
+        } catch (Throwable t) {
+            if (!shutdownRequested.get()) {
+                LOG.error("Remote shuffle service stopped working. Shutting down.", t);
+                close();
+            }
+        }
+    }
+
+    private void handleConnection(Socket socket) {
+        try (Socket ignored = socket;
+                DataInputStream in =
+                        new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out =
+                        new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            try {
+                byte operation = in.readByte();
+                switch (operation) {
+                    case PUSH_PARTITION:
+                        receivePartition(in);
+                        break;
+                    case RELEASE_PARTITION:
+                        releasePartition(readPartitionId(in));
+                        break;
+                    default:
+                        throw new IOException("Unknown operation " + operation + '.');
+                }
+                out.writeByte(RETURN_OKAY);
+            } catch (Throwable t) {
+                ExceptionUtils.rethrowIfFatalError(t);
+                LOG.error(
+                        "Failed to handle the request from {}.", socket.getRemoteSocketAddress(), t);
+                writeError(t, out);
+            }
+            out.flush();
+        } catch (Throwable t) {
+            LOG.debug("Failed to respond to {}.", socket.getRemoteSocketAddress(), t);
+        }
+    }
+
+    private void receivePartition(DataInputStream in) throws IOException {
+        ResultPartitionID partitionId = readPartitionId(in);
+        int numSubpartitions = in.readInt();
+        int numRegions = in.readInt();
+        if (numSubpartitions <= 0 || numRegions < 0) {
+            throw new IOException("Illegal number of subpartitions or regions.");
+        }
+
+        int[] numDataBuffers = new int[numSubpartitions];
+        for (int i = 0; i < numSubpartitions; i++) {
+            numDataBuffers[i] = in.readInt();
+        }
+
+        // every push gets its own files, so a retried push never overwrites a file being read
+        String fileName = UUID.randomUUID().toString();
+        Path storagePath = storageDirectory.toPath();
+        Path indexFile = storagePath.resolve(fileName + PartitionedFile.INDEX_FILE_SUFFIX);
+        Path dataFile = storagePath.resolve(fileName + PartitionedFile.DATA_FILE_SUFFIX);
+        PartitionedFile partitionedFile =
+                new PartitionedFile(numRegions, numSubpartitions, dataFile, indexFile, null);
+
+        try {
+            long expectedIndexLength =
+                    (long) numRegions * numSubpartitions * PartitionedFile.INDEX_ENTRY_SIZE;
+            if (receiveFile(in, indexFile) != expectedIndexLength) {
+                throw new IOException("Index file does not match the number of regions.");
+            }
+            receiveFile(in, dataFile);
+        } catch (Throwable t) {
+            partitionedFile.deleteQuietly();
+            throw t;
+        }
+
+        StoredPartition partition =
+                new StoredPartition(partitionId, partitionedFile, numDataBuffers, bufferSize);
+        StoredPartition previous = partitions.put(partitionId, partition);
+        if (previous != null) {
+            previous.release();
+        }
+        if (shutdownRequested.get()) {
+            partition.release();
+        }
+
+        LOG.debug("Stored partition {}.", partition);
+    }
+
+    private static long receiveFile(DataInputStream in, Path file) throws IOException {
+        long length = in.readLong();
+        try (OutputStream out =
+                new BufferedOutputStream(
+                        Files.newOutputStream(file, StandardOpenOption.CREATE_NEW))) {
+            copyBytes(in, out, length);
+        }
+        return length;
+    }
+
+    private void releasePartition(ResultPartitionID partitionId) {
+        StoredPartition partition = partitions.remove(partitionId);
+        if (partition != null) {
+            partition.release();
+            LOG.debug("Released partition {}.", partition);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    //  Lifecycle
+    // ------------------------------------------------------------------------
+
+    @Override
+    public void close() {
+        if (!shutdownRequested.compareAndSet(false, true)) {
+            return;
+        }
+
+        IOUtils.closeQuietly(serverSocket);
+        connectionExecutor.shutdownNow();
+        connectionManager.shutdown();
+
+        for (ResultPartitionID partitionId : partitions.keySet()) {
+            releasePartition(partitionId);
+        }
+        FileUtils.deleteDirectoryQuietly(storageDirectory);
+
+        LOG.info("Stopped remote shuffle service.");
+        terminationFuture.complete(null);
+    }
+
+    private static File createStorageDirectory(Configuration configuration) throws IOException {
+        Path baseDirectory =
+                Paths.get(
+                        configuration
+                                .getOptional(RemoteShuffleOptions.STORAGE_DIR)
+                                .orElseGet(
+                                        () ->
+                                                ConfigurationUtils.parseTempDirectories(
+                                                        configuration)[0]));
+        Files.createDirectories(baseDirectory);
+        return Files.createTempDirectory(baseDirectory, DIR_NAME_PREFIX).toFile();
+    }
+}
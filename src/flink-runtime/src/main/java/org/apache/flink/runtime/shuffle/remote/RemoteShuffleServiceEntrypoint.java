@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.util.ConfigurationParserUtils;
+import org.apache.flink.runtime.util.EnvironmentInformation;
+import org.apache.flink.runtime.util.JvmShutdownSafeguard;
+import org.apache.flink.runtime.util.SignalHandler;
+import org.apache.flink.util.ShutdownHookUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Entry point of a standalone {@link RemoteShuffleServer} process. */
+public class RemoteShuffleServiceEntrypoint {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RemoteShuffleServiceEntrypoint.class);
+
+    public static void main(String[] args) throws Exception {
+        // startup checks and logging
+        EnvironmentInformation.logEnvironmentInfo(LOG, "Remote Shuffle Service", args);
+        SignalHandler.register(LOG);
+        JvmShutdownSafeguard.installAsShutdownHook(LOG);
+
+        Configuration configuration =
+                ConfigurationParserUtils.loadCommonConfiguration(
+                        args, RemoteShuffleServiceEntrypoint.class.getSimpleName());
+
+        RemoteShuffleServer server = new RemoteShuffleServer(configuration);
+        ShutdownHookUtil.addShutdownHook(
+                server, RemoteShuffleServiceEntrypoint.class.getSimpleName(), LOG);
+        server.start();
+
+        server.getTerminationFuture().get();
+    }
+
+    /** This is a utility class not meant to be instantiated. */
+    private RemoteShuffleServiceEntrypoint() {}
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.NettyShuffleEnvironmentOptions;
+import org.apache.flink.runtime.io.network.NettyShuffleEnvironment;
+import org.apache.flink.runtime.io.network.NettyShuffleServiceFactory;
+import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
+import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
+import org.apache.flink.runtime.shuffle.NettyShuffleDescriptor;
+import org.apache.flink.runtime.shuffle.ShuffleEnvironmentContext;
+import org.apache.flink.runtime.shuffle.ShuffleMaster;
+import org.apache.flink.runtime.shuffle.ShuffleServiceFactory;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * {@link ShuffleServiceFactory} of the remote shuffle service, which stores blocking partitions
+ * outside of the TaskManagers. The service itself is started with {@link
+ * RemoteShuffleServiceEntrypoint} and located with the {@link RemoteShuffleOptions}.
+ */
+public class RemoteShuffleServiceFactory
+        implements ShuffleServiceFactory<
+                NettyShuffleDescriptor, ResultPartitionWriter, SingleInputGate> {
+
+    @Override
+    public ShuffleMaster<NettyShuffleDescriptor> createShuffleMaster(Configuration configuration) {
+        return new RemoteShuffleMaster(RemoteShuffleClient.fromConfiguration(configuration));
+    }
+
+    @Override
+    public RemoteShuffleEnvironment createShuffleEnvironment(
+            ShuffleEnvironmentContext shuffleEnvironmentContext) {
+        checkNotNull(shuffleEnvironmentContext);
+
+        Configuration configuration =
+                new Configuration(shuffleEnvironmentContext.getConfiguration());
+        // only the files of sort-merge partitions can be pushed to the shuffle service
+        configuration.setInteger(
+                NettyShuffleEnvironmentOptions.NETWORK_SORT_SHUFFLE_MIN_PARALLELISM, 1);
+
+        NettyShuffleEnvironment nettyShuffleEnvironment =
+                new NettyShuffleServiceFactory()
+                        .createShuffleEnvironment(
+                                new ShuffleEnvironmentContext(
+                                        configuration,
+                                        shuffleEnvironmentContext.getTaskExecutorResourceId(),
+                                        shuffleEnvironmentContext.getNetworkMemorySize(),
+                                        shuffleEnvironmentContext.isLocalCommunicationOnly(),
+                                        shuffleEnvironmentContext.getHostAddress(),
+                                        shuffleEnvironmentContext.getEventPublisher(),
+                                        shuffleEnvironmentContext.getParentMetricGroup(),
+                                        shuffleEnvironmentContext.getIoExecutor()));
+        return new RemoteShuffleEnvironment(
+                nettyShuffleEnvironment, RemoteShuffleClient.fromConfiguration(configuration));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.runtime.io.network.partition.BufferAvailabilityListener;
+import org.apache.flink.runtime.io.network.partition.PartitionNotFoundException;
+import org.apache.flink.runtime.io.network.partition.PartitionedFile;
+import org.apache.flink.runtime.io.network.partition.PartitionedFileOwner;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartitionView;
+import org.apache.flink.runtime.io.network.partition.SortMergeReadScheduler;
+import org.apache.flink.runtime.io.network.partition.SortMergeSubpartitionReader;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.apache.flink.util.Preconditions.checkElementIndex;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A {@link PartitionedFile} pushed to the {@link RemoteShuffleServer}. Its subpartitions are read
+ * with {@link SortMergeSubpartitionReader SortMergeSubpartitionReaders}, and the file is deleted
+ * once the partition is released and no reader is reading it anymore.
+ */
+final class StoredPartition implements PartitionedFileOwner {
+
+    private final Object lock = new Object();
+
+    private final ResultPartitionID partitionId;
+
+    private final PartitionedFile partitionedFile;
+
+    /** Number of data buffers (excluding events) of each subpartition. */
+    private final int[] numDataBuffers;
+
+    /** Size of the buffers to read the partitioned file with. */
+    private final int bufferSize;
+
+    /** Schedules the reads of all readers of the partitioned file. */
+    private final SortMergeReadScheduler readScheduler = new SortMergeReadScheduler();
+
+    /** All active readers which are consuming data from this partition now. */
+    @GuardedBy("lock")
+    private final Set<SortMergeSubpartitionReader> readers = new HashSet<>();
+
+    @GuardedBy("lock")
+    private boolean isReleased;
+
+    StoredPartition(
+            ResultPartitionID partitionId,
+            PartitionedFile partitionedFile,
+            int[] numDataBuffers,
+            int bufferSize) {
+        this.partitionId = checkNotNull(partitionId);
+        this.partitionedFile = checkNotNull(partitionedFile);
+        this.numDataBuffers = checkNotNull(numDataBuffers);
+        this.bufferSize = bufferSize;
+    }
+
+    ResultSubpartitionView createSubpartitionView(
+            int subpartitionIndex, BufferAvailabilityListener availabilityListener)
+            throws IOException {
+        synchronized (lock) {
+            checkElementIndex(subpartitionIndex, numDataBuffers.length, "Subpartition not found.");
+            if (isReleased) {
+                throw new PartitionNotFoundException(partitionId);
+            }
+
+            SortMergeSubpartitionReader reader =
+                    new SortMergeSubpartitionReader(
+                            subpartitionIndex,
+                            numDataBuffers[subpartitionIndex],
+                            bufferSize,
+                            this,
+                            readScheduler,
+                            availabilityListener,
+                            partitionedFile);
+            readers.add(reader);
+            return reader;
+        }
+    }
+
+    @Override
+    public void releaseReader(SortMergeSubpartitionReader reader) {
+        synchronized (lock) {
+            readers.remove(reader);
+
+            if (readers.isEmpty() && isReleased) {
+                partitionedFile.deleteQuietly();
+            }
+        }
+    }
+
+    void release() {
+        synchronized (lock) {
+            if (isReleased) {
+                return;
+            }
+            isReleased = true;
+
+            // delete the file only when no reader is reading now
+            if (readers.isEmpty()) {
+                partitionedFile.deleteQuietly();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StoredPartition{"
+                + "partitionId="
+                + partitionId
+                + ", partitionedFile="
+                + partitionedFile
+                + '}';
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Interface for keyed state backends that can read state without blocking the task thread, e.g.
+ * because their state is on disk.
+ *
+ * @param <K> Type of the key by which state is keyed.
+ */
+public interface AsyncKeyedStateBackend<K> extends KeyedStateBackend<K> {
+
+    /**
+     * Creates an accessor to read state of this backend asynchronously. The results are completed
+     * through the given executor, which is usually the mailbox of the task that owns the backend.
+     * The accessor must be closed before the backend is disposed, otherwise it is closed on
+     * disposal.
+     *
+     * @param completionExecutor The executor in which the returned futures are completed.
+     */
+    AsyncStateAccessor<K> createAsyncStateAccessor(Executor completionExecutor);
+}
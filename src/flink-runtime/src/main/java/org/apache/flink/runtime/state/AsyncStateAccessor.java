@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.runtime.state.internal.InternalValueState;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Reads the state of an {@link AsyncKeyedStateBackend} without blocking the calling thread. All
+ * methods must be called from the thread that owns the backend.
+ *
+ * <p>A read observes all writes to the backend that happened before the read was issued and none
+ * that happened afterwards. The futures of reads of the same key and namespace are completed in
+ * the order in which the reads were issued, always by the completion executor of the accessor.
+ *
+ * @param <K> Type of the key by which state is keyed.
+ */
+public interface AsyncStateAccessor<K> extends AutoCloseable {
+
+    /**
+     * Reads the value of the given value state for the given key and namespace, independent of the
+     * current key of the backend. The returned future holds the default value of the state if
+     * there is no value.
+     *
+     * @param state A value state that was created by the backend of this accessor.
+     * @param key The key to read the value for.
+     * @param namespace The namespace to read the value for.
+     * @throws IllegalArgumentException If the state does not support asynchronous reads, e.g.
+     *     because it has a time-to-live.
+     */
+    <N, V> CompletableFuture<V> asyncValue(InternalValueState<K, N, V> state, K key, N namespace);
+
+    /** Returns the number of reads whose futures have not been completed yet. */
+    int getNumberOfPendingReads();
+
+    /**
+     * Closes the accessor. Reads that are still pending are completed exceptionally, reads that
+     * are currently executed are awaited.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.util.Preconditions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The handle to the state of an incremental snapshot of the heap keyed state backend. It uses the
+ * same key-group format as a {@link KeyGroupsStateHandle}, but the key-groups are spread over
+ * several shared streams: a snapshot only writes the key-groups that were modified since the last
+ * completed checkpoint to a new stream and refers to the streams of previous snapshots for all
+ * other key-groups. Every stream starts with the serialized meta data of the backend, followed by
+ * the key-groups that it contains.
+ *
+ * <p>Like {@link IncrementalRemoteKeyedStateHandle}, the streams that were created by previous
+ * snapshots are only placeholders until the handle is registered with a {@link
+ * SharedStateRegistry}, which then replaces them with the originals and owns their cleanup.
+ */
+public class IncrementalKeyGroupsStateHandle implements IncrementalKeyedStateHandle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IncrementalKeyGroupsStateHandle.class);
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * UUID to identify the backend which created this state handle. This is in creating the key for
+     * the {@link SharedStateRegistry}.
+     */
+    private final UUID backendIdentifier;
+
+    /** The checkpoint Id. */
+    private final long checkpointId;
+
+    /** The offsets of the key-groups in the streams that contain them. */
+    private final KeyGroupRangeOffsets groupRangeOffsets;
+
+    /** The ids of the streams that contain the key-groups, by position in the key-group range. */
+    private final StateHandleID[] keyGroupStateHandleIds;
+
+    /** The shared streams that contain the key-groups. */
+    private final Map<StateHandleID, StreamStateHandle> sharedState;
+
+    /**
+     * Once the shared states are registered, it is the {@link SharedStateRegistry}'s responsibility
+     * to cleanup those shared states.
+     *
+     * <p>This variable is not null iff the handles was registered.
+     */
+    private transient SharedStateRegistry sharedStateRegistry;
+
+    public IncrementalKeyGroupsStateHandle(
+            UUID backendIdentifier,
+            long checkpointId,
+            KeyGroupRangeOffsets groupRangeOffsets,
+            StateHandleID[] keyGroupStateHandleIds,
+            Map<StateHandleID, StreamStateHandle> sharedState) {
+
+        this.backendIdentifier = Preconditions.checkNotNull(backendIdentifier);
+        this.checkpointId = checkpointId;
+        this.groupRangeOffsets = Preconditions.checkNotNull(groupRangeOffsets);
+        this.keyGroupStateHandleIds = Preconditions.checkNotNull(keyGroupStateHandleIds);
+        this.sharedState = Preconditions.checkNotNull(sharedState);
+        Preconditions.checkArgument(
+                keyGroupStateHandleIds.length
+                        == groupRangeOffsets.getKeyGroupRange().getNumberOfKeyGroups(),
+                "Every key-group must be contained in a stream.");
+        for (StateHandleID stateHandleId : keyGroupStateHandleIds) {
+            Preconditions.checkArgument(
+                    sharedState.containsKey(stateHandleId),
+                    "Unknown stream %s.",
+                    stateHandleId);
+        }
+        this.sharedStateRegistry = null;
+    }
+
+    @Nonnull
+    public UUID getBackendIdentifier() {
+        return backendIdentifier;
+    }
+
+    @Override
+    public long getCheckpointId() {
+        return checkpointId;
+    }
+
+    @Override
+    public KeyGroupRange getKeyGroupRange() {
+        return groupRangeOffsets.getKeyGroupRange();
+    }
+
+    public KeyGroupRangeOffsets getGroupRangeOffsets() {
+        return groupRangeOffsets;
+    }
+
+    /**
+     * @param keyGroupId the id of a key-group. the id must be contained in the range of this
+     *     handle.
+     * @return offset to the position of data for the provided key-group in the stream that
+     *     contains it.
+     */
+    public long getOffsetForKeyGroup(int keyGroupId) {
+        return groupRangeOffsets.getKeyGroupOffset(keyGroupId);
+    }
+
+    /**
+     * @param keyGroupId the id of a key-group. the id must be contained in the range of this
+     *     handle.
+     * @return the id of the shared stream that contains the provided key-group.
+     */
+    public StateHandleID getStateHandleIdForKeyGroup(int keyGroupId) {
+        Preconditions.checkArgument(
+                getKeyGroupRange().contains(keyGroupId),
+                "Key group %s is not in %s.",
+                keyGroupId,
+                getKeyGroupRange());
+        return keyGroupStateHandleIds[keyGroupId - getKeyGroupRange().getStartKeyGroup()];
+    }
+
+    public Map<StateHandleID, StreamStateHandle> getSharedState() {
+        return sharedState;
+    }
+
+    @Nonnull
+    @Override
+    public Set<StateHandleID> getSharedStateHandleIDs() {
+        return sharedState.keySet();
+    }
+
+    public SharedStateRegistry getSharedStateRegistry() {
+        return sharedStateRegistry;
+    }
+
+    @Override
+    public KeyedStateHandle getIntersection(KeyGroupRange keyGroupRange) {
+        return KeyGroupRange.EMPTY_KEY_GROUP_RANGE.equals(
+                        getKeyGroupRange().getIntersection(keyGroupRange))
+                ? null
+                : this;
+    }
+
+    @Override
+    public void discardState() throws Exception {
+
+        SharedStateRegistry registry = this.sharedStateRegistry;
+        final boolean isRegistered = (registry != null);
+
+        LOG.trace(
+                "Discarding IncrementalKeyGroupsStateHandle (registered = {}) for checkpoint {} from backend with id {}.",
+                isRegistered,
+                checkpointId,
+                backendIdentifier);
+
+        if (isRegistered) {
+            for (StateHandleID stateHandleID : sharedState.keySet()) {
+                registry.unregisterReference(
+                        createSharedStateRegistryKeyFromStreamId(stateHandleID));
+            }
+        } else {
+            // streams of previous snapshots are only placeholders, disposing them is a NOP
+            try {
+                StateUtil.bestEffortDiscardAllStateObjects(sharedState.values());
+            } catch (Exception e) {
+                LOG.warn("Could not properly discard new key-group streams.", e);
+            }
+        }
+    }
+
+    @Override
+    public long getStateSize() {
+        long size = 0L;
+
+        for (StreamStateHandle sharedStateHandle : sharedState.values()) {
+            size += sharedStateHandle.getStateSize();
+        }
+
+        return size;
+    }
+
+    @Override
+    public void registerSharedStates(SharedStateRegistry stateRegistry) {
+
+        // as for IncrementalRemoteKeyedStateHandle, registering again with a different registry
+        // transfers the ownership to the new registry
+        Preconditions.checkState(
+                sharedStateRegistry != stateRegistry,
+                "The state handle has already registered its shared states to the given registry.");
+
+        sharedStateRegistry = Preconditions.checkNotNull(stateRegistry);
+
+        LOG.trace(
+                "Registering IncrementalKeyGroupsStateHandle for checkpoint {} from backend with id {}.",
+                checkpointId,
+                backendIdentifier);
+
+        for (Map.Entry<StateHandleID, StreamStateHandle> sharedStateHandle :
+                sharedState.entrySet()) {
+            SharedStateRegistryKey registryKey =
+                    createSharedStateRegistryKeyFromStreamId(sharedStateHandle.getKey());
+
+            SharedStateRegistry.Result result =
+                    stateRegistry.registerReference(registryKey, sharedStateHandle.getValue());
+
+            // replaces placeholders with the handles that were registered by previous snapshots
+            sharedStateHandle.setValue(result.getReference());
+        }
+    }
+
+    /** Create a unique key to register one of our shared state handles. */
+    @VisibleForTesting
+    public SharedStateRegistryKey createSharedStateRegistryKeyFromStreamId(StateHandleID shId) {
+        return new SharedStateRegistryKey(
+                String.valueOf(backendIdentifier) + '-' + getKeyGroupRange(), shId);
+    }
+
+    /**
+     * This method is should only be called in tests! This should never serve as key in a hash map.
+     */
+    @VisibleForTesting
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        IncrementalKeyGroupsStateHandle that = (IncrementalKeyGroupsStateHandle) o;
+
+        return checkpointId == that.checkpointId
+                && backendIdentifier.equals(that.backendIdentifier)
+                && groupRangeOffsets.equals(that.groupRangeOffsets)
+                && Arrays.equals(keyGroupStateHandleIds, that.keyGroupStateHandleIds)
+                && sharedState.equals(that.sharedState);
+    }
+
+    /** This method should only be called in tests! This should never serve as key in a hash map. */
+    @VisibleForTesting
+    @Override
+    public int hashCode() {
+        int result = backendIdentifier.hashCode();
+        result = 31 * result + (int) (checkpointId ^ (checkpointId >>> 32));
+        result = 31 * result + groupRangeOffsets.hashCode();
+        result = 31 * result + Arrays.hashCode(keyGroupStateHandleIds);
+        result = 31 * result + sharedState.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "IncrementalKeyGroupsStateHandle{"
+                + "backendIdentifier="
+                + backendIdentifier
+                + ", checkpointId="
+                + checkpointId
+                + ", groupRangeOffsets="
+                + groupRangeOffsets
+                + ", sharedState="
+                + sharedState
+                + ", registered="
+                + (sharedStateRegistry != null)
+                + '}';
+    }
+}
@@ -59,6 +59,10 @@ public class StateBackendLoader {
     /** The shortcut configuration name for the RocksDB State Backend */
     public static final String ROCKSDB_STATE_BACKEND_NAME = "rocksdb";
 
+    /** The class name of the state backend that wraps other backends to log state changes. */
+    private static final String CHANGELOG_STATE_BACKEND_CLASS_NAME =
+            "org.apache.flink.state.changelog.ChangelogStateBackend";
+
     // ------------------------------------------------------------------------
     //  Loading the state backend from a configuration
     // ------------------------------------------------------------------------
@@ -239,9 +243,53 @@ public class StateBackendLoader {
             }
         }
 
+        // (4) wrap the backend with the changelog state backend, if enabled
+        if (config.get(CheckpointingOptions.ENABLE_STATE_CHANGE_LOG)) {
+            return wrapWithChangelogStateBackend(backend, config, classLoader, logger);
+        }
+
         return backend;
     }
 
+    private static StateBackend wrapWithChangelogStateBackend(
+            StateBackend backend,
+            Configuration config,
+            ClassLoader classLoader,
+            @Nullable Logger logger)
+            throws DynamicCodeLoadingException {
+
+        if (CHANGELOG_STATE_BACKEND_CLASS_NAME.equals(backend.getClass().getName())) {
+            return backend;
+        }
+
+        final StateBackend changelogStateBackend;
+        try {
+            Class<? extends StateBackend> clazz =
+                    Class.forName(CHANGELOG_STATE_BACKEND_CLASS_NAME, false, classLoader)
+                            .asSubclass(StateBackend.class);
+            changelogStateBackend = clazz.getConstructor(StateBackend.class).newInstance(backend);
+        } catch (ClassNotFoundException e) {
+            throw new DynamicCodeLoadingException(
+                    "Cannot find the changelog state backend class: "
+                            + CHANGELOG_STATE_BACKEND_CLASS_NAME
+                            + ". Please make sure flink-statebackend-changelog is on the classpath.",
+                    e);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new DynamicCodeLoadingException(
+                    "Cannot create the changelog state backend: "
+                            + CHANGELOG_STATE_BACKEND_CLASS_NAME,
+                    e);
+        }
+
+        if (logger != null) {
+            logger.info("State changelog is enabled, wrapping state backend {}", backend);
+        }
+
+        return changelogStateBackend instanceof ConfigurableStateBackend
+                ? ((ConfigurableStateBackend) changelogStateBackend).configure(config, classLoader)
+                : changelogStateBackend;
+    }
+
     /**
      * Checks whether state backend uses managed memory, without having to deserialize or load the
      * state backend.
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.changelog;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.runtime.state.IncrementalRemoteKeyedStateHandle;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupsStateHandle;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.SharedStateRegistry;
+import org.apache.flink.runtime.state.SharedStateRegistryKey;
+import org.apache.flink.runtime.state.StateHandleID;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.util.Preconditions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The keyed state handle of a changelog keyed state backend. It consists of the materialized state
+ * of the wrapped backend, written by a (possibly much older) checkpoint, and the segments of the
+ * state changelog that were written since that materialization.
+ *
+ * <p>Both parts are shared between consecutive checkpoints. Ownership is therefore always handed
+ * to the {@link SharedStateRegistry}: registering the handle acquires one reference to every
+ * materialized stream and changelog segment, discarding the handle releases them again. For a
+ * {@link KeyGroupsStateHandle} the underlying stream is tracked, so that intersections created
+ * during rescaling resolve to the same registry entry. The shared
+ * files of an {@link IncrementalRemoteKeyedStateHandle} are tracked through the handle's own
+ * registration logic, while its meta data and private files are tracked under keys derived from the
+ * materialization id. Materialized handles of other types are not reference counted and are left
+ * to the wrapped backend.
+ *
+ * <p>A handle that was never registered does not discard anything, because its parts are still
+ * referenced by the backend that created it and will be part of the next checkpoint.
+ */
+@Internal
+public class ChangelogStateBackendHandle implements KeyedStateHandle {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChangelogStateBackendHandle.class);
+
+    private final KeyGroupRange keyGroupRange;
+
+    /** The materialized state of the wrapped backend, by unique materialization id. */
+    private final Map<StateHandleID, KeyedStateHandle> materializedState;
+
+    /** The changelog segments that are not covered by the materialized state, in order. */
+    private final List<StateChangelogHandle> changelogHandles;
+
+    /**
+     * Once the shared states are registered, it is the {@link SharedStateRegistry}'s job to
+     * cleanup unreferenced parts.
+     */
+    @Nullable private transient SharedStateRegistry sharedStateRegistry;
+
+    public ChangelogStateBackendHandle(
+            KeyGroupRange keyGroupRange,
+            Map<StateHandleID, KeyedStateHandle> materializedState,
+            List<StateChangelogHandle> changelogHandles) {
+        this.keyGroupRange = Preconditions.checkNotNull(keyGroupRange);
+        this.materializedState = new LinkedHashMap<>(Preconditions.checkNotNull(materializedState));
+        this.changelogHandles = new ArrayList<>(Preconditions.checkNotNull(changelogHandles));
+    }
+
+    public Map<StateHandleID, KeyedStateHandle> getMaterializedState() {
+        return Collections.unmodifiableMap(materializedState);
+    }
+
+    public List<StateChangelogHandle> getChangelogHandles() {
+        return Collections.unmodifiableList(changelogHandles);
+    }
+
+    @Override
+    public KeyGroupRange getKeyGroupRange() {
+        return keyGroupRange;
+    }
+
+    @Nullable
+    @Override
+    public KeyedStateHandle getIntersection(KeyGroupRange otherKeyGroupRange) {
+        KeyGroupRange intersection = keyGroupRange.getIntersection(otherKeyGroupRange);
+        if (intersection.getNumberOfKeyGroups() == 0) {
+            return null;
+        }
+
+        Map<StateHandleID, KeyedStateHandle> intersectedMaterializedState = new LinkedHashMap<>();
+        for (Map.Entry<StateHandleID, KeyedStateHandle> entry : materializedState.entrySet()) {
+            KeyedStateHandle intersected = entry.getValue().getIntersection(intersection);
+            if (intersected != null) {
+                intersectedMaterializedState.put(entry.getKey(), intersected);
+            }
+        }
+
+        List<StateChangelogHandle> intersectedChangelogHandles = new ArrayList<>();
+        for (StateChangelogHandle changelogHandle : changelogHandles) {
+            KeyGroupRange changelogKeyGroups = changelogHandle.getKeyGroupRange();
+            if (changelogKeyGroups.getIntersection(intersection).getNumberOfKeyGroups() > 0) {
+                intersectedChangelogHandles.add(changelogHandle);
+            }
+        }
+
+        return new ChangelogStateBackendHandle(
+                intersection, intersectedMaterializedState, intersectedChangelogHandles);
+    }
+
+    @Override
+    public void registerSharedStates(SharedStateRegistry stateRegistry) {
+        Preconditions.checkState(
+                sharedStateRegistry != stateRegistry,
+                "The state handle has already registered its shared states to the given registry.");
+
+        sharedStateRegistry = Preconditions.checkNotNull(stateRegistry);
+
+        for (Map.Entry<StateHandleID, KeyedStateHandle> entry : materializedState.entrySet()) {
+            StateHandleID materializationId = entry.getKey();
+            KeyedStateHandle handle = entry.getValue();
+
+            if (handle instanceof KeyGroupsStateHandle) {
+                // register the underlying stream, which is the same for all intersections
+                stateRegistry.registerReference(
+                        createMaterializedRegistryKey(materializationId, "state"),
+                        ((KeyGroupsStateHandle) handle).getDelegateStateHandle());
+            } else if (handle instanceof IncrementalRemoteKeyedStateHandle) {
+                IncrementalRemoteKeyedStateHandle incrementalHandle =
+                        (IncrementalRemoteKeyedStateHandle) handle;
+                incrementalHandle.registerSharedStates(stateRegistry);
+                stateRegistry.registerReference(
+                        createMaterializedRegistryKey(materializationId, "meta"),
+                        incrementalHandle.getMetaStateHandle());
+                for (Map.Entry<StateHandleID, StreamStateHandle> privateState :
+                        incrementalHandle.getPrivateState().entrySet()) {
+                    stateRegistry.registerReference(
+                            createMaterializedRegistryKey(
+                                    materializationId, "private-" + privateState.getKey()),
+                            privateState.getValue());
+                }
+            } else {
+                handle.registerSharedStates(stateRegistry);
+            }
+        }
+
+        for (StateChangelogHandle changelogHandle : changelogHandles) {
+            stateRegistry.registerReference(
+                    changelogHandle.getRegistryKey(), changelogHandle.getDelegateStateHandle());
+        }
+    }
+
+    @Override
+    public void discardState() throws Exception {
+        SharedStateRegistry registry = this.sharedStateRegistry;
+        if (registry == null) {
+            LOG.trace(
+                    "Not discarding unregistered changelog state handle {}, its parts are still owned by the backend.",
+                    this);
+            return;
+        }
+
+        for (Map.Entry<StateHandleID, KeyedStateHandle> entry : materializedState.entrySet()) {
+            StateHandleID materializationId = entry.getKey();
+            KeyedStateHandle handle = entry.getValue();
+
+            if (handle instanceof KeyGroupsStateHandle) {
+                registry.unregisterReference(
+                        createMaterializedRegistryKey(materializationId, "state"));
+            } else if (handle instanceof IncrementalRemoteKeyedStateHandle) {
+                IncrementalRemoteKeyedStateHandle incrementalHandle =
+                        (IncrementalRemoteKeyedStateHandle) handle;
+                for (StateHandleID sharedStateId : incrementalHandle.getSharedState().keySet()) {
+                    registry.unregisterReference(
+                            incrementalHandle.createSharedStateRegistryKeyFromFileName(
+                                    sharedStateId));
+                }
+                registry.unregisterReference(
+                        createMaterializedRegistryKey(materializationId, "meta"));
+                for (StateHandleID privateStateId : incrementalHandle.getPrivateState().keySet()) {
+                    registry.unregisterReference(
+                            createMaterializedRegistryKey(
+                                    materializationId, "private-" + privateStateId));
+                }
+            }
+        }
+
+        for (StateChangelogHandle changelogHandle : changelogHandles) {
+            registry.unregisterReference(changelogHandle.getRegistryKey());
+        }
+    }
+
+    @Override
+    public long getStateSize() {
+        long size = 0L;
+        for (KeyedStateHandle handle : materializedState.values()) {
+            size += handle.getStateSize();
+        }
+        for (StateChangelogHandle changelogHandle : changelogHandles) {
+            size += changelogHandle.getStateSize();
+        }
+        return size;
+    }
+
+    private static SharedStateRegistryKey createMaterializedRegistryKey(
+            StateHandleID materializationId, String part) {
+        return new SharedStateRegistryKey(
+                "changelog-materialized-" + materializationId, new StateHandleID(part));
+    }
+
+    @Override
+    public String toString() {
+        return "ChangelogStateBackendHandle{"
+                + "keyGroupRange="
+                + keyGroupRange
+                + ", materializedState="
+                + materializedState
+                + ", changelogHandles="
+                + changelogHandles
+                + '}';
+    }
+}
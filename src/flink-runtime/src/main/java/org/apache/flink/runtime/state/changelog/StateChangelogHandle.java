@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.changelog;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.SharedStateRegistryKey;
+import org.apache.flink.runtime.state.StateObject;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.util.Preconditions;
+
+import java.util.Objects;
+
+/**
+ * A handle to one persisted segment of a keyed state changelog. A segment holds the state changes
+ * that were appended between two consecutive checkpoints of a changelog keyed state backend.
+ *
+ * <p>Segments are shared between all checkpoints that were taken after the segment was written
+ * and before the state contained in it was materialized, so they are always registered with the
+ * {@link org.apache.flink.runtime.state.SharedStateRegistry} under {@link #getRegistryKey()}.
+ */
+@Internal
+public final class StateChangelogHandle implements StateObject {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Globally unique id of the segment, used to derive the shared state registry key. */
+    private final String segmentId;
+
+    /** Position of this segment in the changelog of the backend that wrote it. */
+    private final long sequenceNumber;
+
+    /** The key-groups of the backend that wrote the segment. */
+    private final KeyGroupRange keyGroupRange;
+
+    /** Handle to the serialized state changes. */
+    private final StreamStateHandle delegateStateHandle;
+
+    public StateChangelogHandle(
+            String segmentId,
+            long sequenceNumber,
+            KeyGroupRange keyGroupRange,
+            StreamStateHandle delegateStateHandle) {
+        this.segmentId = Preconditions.checkNotNull(segmentId);
+        this.sequenceNumber = sequenceNumber;
+        this.keyGroupRange = Preconditions.checkNotNull(keyGroupRange);
+        this.delegateStateHandle = Preconditions.checkNotNull(delegateStateHandle);
+    }
+
+    public String getSegmentId() {
+        return segmentId;
+    }
+
+    public long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    public KeyGroupRange getKeyGroupRange() {
+        return keyGroupRange;
+    }
+
+    public StreamStateHandle getDelegateStateHandle() {
+        return delegateStateHandle;
+    }
+
+    /** Returns the key under which this segment is registered with the shared state registry. */
+    public SharedStateRegistryKey getRegistryKey() {
+        return new SharedStateRegistryKey("changelog-segment-" + segmentId);
+    }
+
+    @Override
+    public void discardState() throws Exception {
+        delegateStateHandle.discardState();
+    }
+
+    @Override
+    public long getStateSize() {
+        return delegateStateHandle.getStateSize();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        StateChangelogHandle that = (StateChangelogHandle) o;
+        return sequenceNumber == that.sequenceNumber
+                && segmentId.equals(that.segmentId)
+                && keyGroupRange.equals(that.keyGroupRange)
+                && delegateStateHandle.equals(that.delegateStateHandle);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(segmentId, sequenceNumber, keyGroupRange, delegateStateHandle);
+    }
+
+    @Override
+    public String toString() {
+        return "StateChangelogHandle{"
+                + "segmentId='"
+                + segmentId
+                + '\''
+                + ", sequenceNumber="
+                + sequenceNumber
+                + ", keyGroupRange="
+                + keyGroupRange
+                + ", delegateStateHandle="
+                + delegateStateHandle
+                + '}';
+    }
+}
@@ -127,6 +127,18 @@ public class FsStateBackend extends AbstractFileStateBackend implements Configur
      */
     private final int writeBufferSize;
 
+    /**
+     * Switch to enable incremental checkpoints of keyed state. A value of 'undefined' means not yet
+     * configured, in which case the default will be used.
+     */
+    private final TernaryBoolean incrementalCheckpoints;
+
+    /**
+     * The maximum number of incremental snapshots between two full snapshots. A value of '-1' means
+     * not yet configured, in which case the default will be used.
+     */
+    private final int maxIncrementalSnapshots;
+
     // -----------------------------------------------------------------------
 
     /**
@@ -358,6 +370,8 @@ public class FsStateBackend extends AbstractFileStateBackend implements Configur
         this.fileStateThreshold = fileStateSizeThreshold;
         this.writeBufferSize = writeBufferSize;
         this.asynchronousSnapshots = asynchronousSnapshots;
+        this.incrementalCheckpoints = TernaryBoolean.UNDEFINED;
+        this.maxIncrementalSnapshots = -1;
     }
 
     /**
@@ -407,6 +421,19 @@ public class FsStateBackend extends AbstractFileStateBackend implements Configur
                         : configuration.get(CheckpointingOptions.FS_WRITE_BUFFER_SIZE);
 
         this.writeBufferSize = Math.max(bufferSize, this.fileStateThreshold);
+
+        this.incrementalCheckpoints =
+                original.incrementalCheckpoints.resolveUndefined(
+                        configuration.get(CheckpointingOptions.INCREMENTAL_CHECKPOINTS));
+
+        this.maxIncrementalSnapshots =
+                original.maxIncrementalSnapshots >= 0
+                        ? original.maxIncrementalSnapshots
+                        : configuration.get(
+                                CheckpointingOptions.FS_INCREMENTAL_MAX_DELTA_SNAPSHOTS);
+        checkArgument(
+                maxIncrementalSnapshots >= 0,
+                "The number of incremental snapshots must not be negative.");
     }
 
     private int getValidFileStateThreshold(long fileStateThreshold) {
@@ -487,6 +514,32 @@ public class FsStateBackend extends AbstractFileStateBackend implements Configur
                 CheckpointingOptions.ASYNC_SNAPSHOTS.defaultValue());
     }
 
+    /**
+     * Gets whether incremental checkpoints are enabled for keyed state. Incremental checkpoints
+     * only write the key-groups that were modified since the last completed checkpoint. They
+     * require asynchronous snapshots to track the modifications, and fall back to writing all
+     * key-groups otherwise.
+     *
+     * <p>If not explicitly configured, this is the default value of {@link
+     * CheckpointingOptions#INCREMENTAL_CHECKPOINTS}.
+     */
+    public boolean isIncrementalCheckpointsEnabled() {
+        return incrementalCheckpoints.getOrDefault(
+                CheckpointingOptions.INCREMENTAL_CHECKPOINTS.defaultValue());
+    }
+
+    /**
+     * Gets the maximum number of incremental snapshots between two full snapshots.
+     *
+     * <p>If not explicitly configured, this is the default value of {@link
+     * CheckpointingOptions#FS_INCREMENTAL_MAX_DELTA_SNAPSHOTS}.
+     */
+    public int getMaxIncrementalSnapshots() {
+        return maxIncrementalSnapshots >= 0
+                ? maxIncrementalSnapshots
+                : CheckpointingOptions.FS_INCREMENTAL_MAX_DELTA_SNAPSHOTS.defaultValue();
+    }
+
     // ------------------------------------------------------------------------
     //  Reconfiguration
     // ------------------------------------------------------------------------
@@ -556,6 +609,8 @@ public class FsStateBackend extends AbstractFileStateBackend implements Configur
                         priorityQueueSetFactory,
                         isUsingAsynchronousSnapshots(),
                         cancelStreamRegistry)
+                .setIncrementalCheckpointing(
+                        isIncrementalCheckpointsEnabled(), getMaxIncrementalSnapshots())
                 .build();
     }
 
@@ -591,6 +646,8 @@ public class FsStateBackend extends AbstractFileStateBackend implements Configur
                 + asynchronousSnapshots
                 + ", fileStateThreshold: "
                 + fileStateThreshold
+                + ", incremental: "
+                + incrementalCheckpoints
                 + ")";
     }
 }
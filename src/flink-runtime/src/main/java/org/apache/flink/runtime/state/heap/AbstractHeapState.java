@@ -26,6 +26,10 @@ import org.apache.flink.queryablestate.client.state.serialization.KvStateSeriali
 import org.apache.flink.runtime.state.internal.InternalKvState;
 import org.apache.flink.util.Preconditions;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Base class for partitioned {@link State} implementations that are backed by a regular heap hash
  * map. The concrete implementations define how the state is checkpointed.
@@ -112,6 +116,18 @@ public abstract class AbstractHeapState<K, N, SV> implements InternalKvState<K,
         return KvStateSerializer.serializeValue(result, safeValueSerializer);
     }
 
+    @Override
+    public Map<K, SV> getAll(Collection<K> keys) {
+        Map<K, SV> result = new HashMap<>(keys.size());
+        for (K key : keys) {
+            SV state = stateTable.get(key, currentNamespace);
+            if (state != null) {
+                result.put(key, state);
+            }
+        }
+        return result;
+    }
+
     /** This should only be used for testing. */
     @VisibleForTesting
     public StateTable<K, N, SV> getStateTable() {
@@ -0,0 +1,627 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.runtime.state.StateEntry;
+import org.apache.flink.runtime.state.StateTransformationFunction;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.runtime.state.internal.InternalKvState;
+import org.apache.flink.util.MathUtils;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nonnull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Specialized {@link StateMap} for states with {@code Long} or {@code Integer} keys in the {@link
+ * VoidNamespace}, as used by most keyed operators that do not use windows. Keys are stored unboxed
+ * in an open addressing hash table (linear probing) of primitive arrays, so that an entry does not
+ * need a {@link CopyOnWriteStateMap.StateMapEntry} object, a boxed key and a reference to the
+ * namespace. The namespace is not stored at all.
+ *
+ * <p>Like {@link CopyOnWriteStateMap}, this map supports asynchronous snapshots through
+ * copy-on-write. The map structure is copied eagerly when a snapshot is created, which only
+ * requires copying two arrays. State objects are copied lazily, based on the version meta data
+ * that is kept per slot, before they are handed out to the user after a snapshot.
+ *
+ * <p>Removals use backward shift deletion instead of tombstones, so the map never degrades with a
+ * high number of removals. The map only grows and does not rehash incrementally.
+ *
+ * @param <K> type of key, {@code Long} or {@code Integer}.
+ * @param <N> type of namespace, always {@link VoidNamespace}.
+ * @param <S> type of value.
+ */
+public class CopyOnWritePrimitiveKeyStateMap<K, N, S> extends StateMap<K, N, S> {
+
+    /** Capacity of the first table that is allocated. Must be a power of two. */
+    private static final int MINIMUM_CAPACITY = 8;
+
+    /** Max capacity for a {@link CopyOnWritePrimitiveKeyStateMap}. Must be a power of two. */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private static final long[] EMPTY_KEYS = new long[0];
+
+    private static final Object[] EMPTY_STATES = new Object[0];
+
+    private static final int[] EMPTY_VERSIONS = new int[0];
+
+    /** Marker for null states, to distinguish them from empty slots. */
+    private static final Object NULL_STATE = new Object();
+
+    /** The serializer of the state. */
+    private final TypeSerializer<S> stateSerializer;
+
+    /** Whether the keys are {@code Integer}, otherwise they are {@code Long}. */
+    private final boolean intKeys;
+
+    /** Maintains an ordered set of version ids that are still in use by unreleased snapshots. */
+    private final TreeSet<Integer> snapshotVersions;
+
+    /** The keys of the mappings. A slot is only in use if the state at the same index is set. */
+    private long[] keys;
+
+    /** The states of the mappings. {@code null} marks an empty slot. */
+    private Object[] states;
+
+    /**
+     * The version of the state object in each slot. This is meta data for copy-on-write of the
+     * state objects.
+     */
+    private int[] stateVersions;
+
+    /** The number of mappings in this map. */
+    private int size;
+
+    /** The map is resized when its size exceeds this threshold, which is .75 * capacity. */
+    private int threshold;
+
+    /** The current version of this map. Used for copy-on-write mechanics. */
+    private int stateMapVersion;
+
+    /** The highest version of this map that is still required by any unreleased snapshot. */
+    private int highestRequiredSnapshotVersion;
+
+    /**
+     * Incremented by "structural modifications" to allow (best effort) detection of concurrent
+     * modification.
+     */
+    private int modCount;
+
+    /**
+     * Whether this map was possibly modified since the last call to {@link #resetModified()}. New
+     * maps start as modified.
+     */
+    private boolean modified;
+
+    /**
+     * Constructs a new, empty {@code CopyOnWritePrimitiveKeyStateMap}.
+     *
+     * @param keySerializer the serializer of the key, must be supported according to {@link
+     *     #isSupported(TypeSerializer, TypeSerializer)}.
+     * @param stateSerializer the serializer of the state.
+     */
+    CopyOnWritePrimitiveKeyStateMap(
+            TypeSerializer<K> keySerializer, TypeSerializer<S> stateSerializer) {
+        Preconditions.checkArgument(
+                keySerializer instanceof LongSerializer || keySerializer instanceof IntSerializer,
+                "Unsupported key serializer %s.",
+                keySerializer);
+        this.stateSerializer = Preconditions.checkNotNull(stateSerializer);
+        this.intKeys = keySerializer instanceof IntSerializer;
+        this.snapshotVersions = new TreeSet<>();
+        this.keys = EMPTY_KEYS;
+        this.states = EMPTY_STATES;
+        this.stateVersions = EMPTY_VERSIONS;
+        this.size = 0;
+        this.threshold = 0;
+        this.stateMapVersion = 0;
+        this.highestRequiredSnapshotVersion = 0;
+        this.modified = true;
+    }
+
+    /**
+     * Returns whether a {@link CopyOnWritePrimitiveKeyStateMap} can hold the state with the given
+     * key and namespace serializers.
+     */
+    static boolean isSupported(
+            TypeSerializer<?> keySerializer, TypeSerializer<?> namespaceSerializer) {
+        return (keySerializer instanceof LongSerializer || keySerializer instanceof IntSerializer)
+                && namespaceSerializer instanceof VoidNamespaceSerializer;
+    }
+
+    // Public API from StateMap
+    // ------------------------------------------------------------------------------
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public S get(K key, N namespace) {
+        final int slot = findSlot(toPrimitiveKey(key));
+        if (slot < 0) {
+            return null;
+        }
+
+        // the returned state might be modified in place
+        modified = true;
+
+        // copy-on-write check for state
+        if (stateVersions[slot] < highestRequiredSnapshotVersion) {
+            states[slot] = maskNull(getStateForUpdate(slot));
+            stateVersions[slot] = stateMapVersion;
+        }
+
+        return unmaskNull(states[slot]);
+    }
+
+    @Override
+    public boolean containsKey(K key, N namespace) {
+        return findSlot(toPrimitiveKey(key)) >= 0;
+    }
+
+    @Override
+    public void put(K key, N namespace, S state) {
+        final int slot = putSlot(toPrimitiveKey(key));
+        states[slot] = maskNull(state);
+        stateVersions[slot] = stateMapVersion;
+    }
+
+    @Override
+    public S putAndGetOld(K key, N namespace, S state) {
+        final int slot = putSlot(toPrimitiveKey(key));
+        final S oldState = getStateForUpdate(slot);
+        states[slot] = maskNull(state);
+        stateVersions[slot] = stateMapVersion;
+        return oldState;
+    }
+
+    @Override
+    public void remove(K key, N namespace) {
+        final int slot = findSlot(toPrimitiveKey(key));
+        if (slot >= 0) {
+            removeSlot(slot);
+        }
+    }
+
+    @Override
+    public S removeAndGetOld(K key, N namespace) {
+        final int slot = findSlot(toPrimitiveKey(key));
+        if (slot < 0) {
+            return null;
+        }
+
+        final S oldState = getStateForUpdate(slot);
+        removeSlot(slot);
+        return oldState;
+    }
+
+    @Override
+    public <T> void transform(
+            K key, N namespace, T value, StateTransformationFunction<S, T> transformation)
+            throws Exception {
+        final int slot = putSlot(toPrimitiveKey(key));
+        final S newState = transformation.apply(getStateForUpdate(slot), value);
+        states[slot] = maskNull(newState);
+        stateVersions[slot] = stateMapVersion;
+    }
+
+    @Override
+    public Stream<K> getKeys(N namespace) {
+        return StreamSupport.stream(spliterator(), false)
+                .filter(entry -> entry.getNamespace().equals(namespace))
+                .map(StateEntry::getKey);
+    }
+
+    @Nonnull
+    @Override
+    public Iterator<StateEntry<K, N, S>> iterator() {
+        return new StateEntryIterator();
+    }
+
+    @Override
+    public InternalKvState.StateIncrementalVisitor<K, N, S> getStateIncrementalVisitor(
+            int recommendedMaxNumberOfReturnedRecords) {
+        return new StateIncrementalVisitorImpl(recommendedMaxNumberOfReturnedRecords);
+    }
+
+    /**
+     * Creates a snapshot of this {@link CopyOnWritePrimitiveKeyStateMap}, to be written in
+     * checkpointing. The snapshot integrity is protected through copy-on-write from the {@link
+     * CopyOnWritePrimitiveKeyStateMap}. Users should call {@link
+     * #releaseSnapshot(StateMapSnapshot)} after using the returned object.
+     *
+     * @return a snapshot from this {@link CopyOnWritePrimitiveKeyStateMap}, for checkpointing.
+     */
+    @Nonnull
+    @Override
+    public CopyOnWritePrimitiveKeyStateMapSnapshot<K, N, S> stateSnapshot() {
+        return new CopyOnWritePrimitiveKeyStateMapSnapshot<>(this);
+    }
+
+    @Override
+    public void releaseSnapshot(
+            StateMapSnapshot<K, N, S, ? extends StateMap<K, N, S>> snapshotToRelease) {
+
+        CopyOnWritePrimitiveKeyStateMapSnapshot<K, N, S> copyOnWriteStateMapSnapshot =
+                (CopyOnWritePrimitiveKeyStateMapSnapshot<K, N, S>) snapshotToRelease;
+
+        Preconditions.checkArgument(
+                copyOnWriteStateMapSnapshot.isOwner(this),
+                "Cannot release snapshot which is owned by a different state map.");
+
+        releaseSnapshot(copyOnWriteStateMapSnapshot.getSnapshotVersion());
+    }
+
+    @Override
+    public boolean isModified() {
+        return modified;
+    }
+
+    @Override
+    public void resetModified() {
+        modified = false;
+    }
+
+    @Override
+    public int sizeOfNamespace(Object namespace) {
+        return VoidNamespace.INSTANCE.equals(namespace) ? size : 0;
+    }
+
+    public TypeSerializer<S> getStateSerializer() {
+        return stateSerializer;
+    }
+
+    // Snapshot support
+    // ------------------------------------------------------------------------------
+
+    /** @see #releaseSnapshot(StateMapSnapshot) */
+    @VisibleForTesting
+    void releaseSnapshot(int snapshotVersion) {
+        // we guard against concurrent modifications of highestRequiredSnapshotVersion between
+        // snapshot and release. Only stale reads of from the result of #releaseSnapshot calls are
+        // ok.
+        synchronized (snapshotVersions) {
+            Preconditions.checkState(
+                    snapshotVersions.remove(snapshotVersion),
+                    "Attempt to release unknown snapshot version");
+            highestRequiredSnapshotVersion =
+                    snapshotVersions.isEmpty() ? 0 : snapshotVersions.last();
+        }
+    }
+
+    /**
+     * Registers a new snapshot and returns its version. This method must be called by the same
+     * Thread that does modifications to the {@link CopyOnWritePrimitiveKeyStateMap}, before the
+     * arrays of the map are copied.
+     */
+    int registerSnapshotVersion() {
+        synchronized (snapshotVersions) {
+            // increase the map version for copy-on-write and register the snapshot
+            if (++stateMapVersion < 0) {
+                // this is just a safety net against overflows, but should never happen in practice
+                // (i.e., only after 2^31 snapshots)
+                throw new IllegalStateException(
+                        "Version count overflow in CopyOnWritePrimitiveKeyStateMap. Enforcing restart.");
+            }
+
+            highestRequiredSnapshotVersion = stateMapVersion;
+            snapshotVersions.add(highestRequiredSnapshotVersion);
+            return stateMapVersion;
+        }
+    }
+
+    /** Creates a copy of the key array for a snapshot. */
+    long[] snapshotKeys() {
+        return keys.clone();
+    }
+
+    /**
+     * Creates a copy of the state array for a snapshot. Null states are masked, see {@link
+     * #unmaskNull(Object)}.
+     */
+    Object[] snapshotStates() {
+        return states.clone();
+    }
+
+    @VisibleForTesting
+    Set<Integer> getSnapshotVersions() {
+        return snapshotVersions;
+    }
+
+    /** Converts a key from its primitive representation in the arrays. */
+    @SuppressWarnings("unchecked")
+    K toKey(long primitiveKey) {
+        return intKeys ? (K) Integer.valueOf((int) primitiveKey) : (K) Long.valueOf(primitiveKey);
+    }
+
+    /** Converts a state from its representation in the arrays. */
+    @SuppressWarnings("unchecked")
+    static <S> S unmaskNull(Object state) {
+        return state == NULL_STATE ? null : (S) state;
+    }
+
+    @SuppressWarnings("unchecked")
+    private N getNamespace() {
+        return (N) VoidNamespace.INSTANCE;
+    }
+
+    // Private implementation details of the API methods
+    // ---------------------------------------------------------------
+
+    private static long toPrimitiveKey(Object key) {
+        return ((Number) key).longValue();
+    }
+
+    private static Object maskNull(Object state) {
+        return state == null ? NULL_STATE : state;
+    }
+
+    private static int hash(long key) {
+        return MathUtils.longToIntWithBitMixing(key);
+    }
+
+    /** Returns the state in the given slot for a caller that replaces it. */
+    private S getStateForUpdate(int slot) {
+        final S state = unmaskNull(states[slot]);
+        // copy-on-write check for state
+        return stateVersions[slot] < highestRequiredSnapshotVersion && state != null
+                ? stateSerializer.copy(state)
+                : state;
+    }
+
+    /** Returns the slot of the given key, or -1 if there is no mapping for the key. */
+    private int findSlot(long key) {
+        final Object[] tab = states;
+        if (tab.length == 0) {
+            return -1;
+        }
+
+        final int mask = tab.length - 1;
+        for (int slot = hash(key) & mask; tab[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns the slot of the given key, after inserting a mapping to null if there was none. */
+    private int putSlot(long key) {
+        modified = true;
+
+        final int existingSlot = findSlot(key);
+        if (existingSlot >= 0) {
+            return existingSlot;
+        }
+
+        ++modCount;
+        if (size >= threshold) {
+            doubleCapacity();
+        }
+
+        final Object[] tab = states;
+        final int mask = tab.length - 1;
+        int slot = hash(key) & mask;
+        while (tab[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        tab[slot] = NULL_STATE;
+        stateVersions[slot] = stateMapVersion;
+        ++size;
+        return slot;
+    }
+
+    /**
+     * Removes the mapping in the given slot. Following mappings of the same cluster are shifted
+     * back, so that lookups never stop at the freed slot.
+     */
+    private void removeSlot(int slot) {
+        final long[] keyTab = keys;
+        final Object[] tab = states;
+        final int[] versionTab = stateVersions;
+        final int mask = tab.length - 1;
+
+        int gap = slot;
+        int current = slot;
+        while (true) {
+            current = (current + 1) & mask;
+            if (tab[current] == null) {
+                break;
+            }
+
+            // a mapping can fill the gap if its home slot is not between the gap and itself
+            final int home = hash(keyTab[current]) & mask;
+            if (((current - home) & mask) >= ((current - gap) & mask)) {
+                keyTab[gap] = keyTab[current];
+                tab[gap] = tab[current];
+                versionTab[gap] = versionTab[current];
+                gap = current;
+            }
+        }
+
+        tab[gap] = null;
+        --size;
+        ++modCount;
+        modified = true;
+    }
+
+    /** Doubles the capacity of the arrays and places all mappings in the new arrays. */
+    private void doubleCapacity() {
+        final long[] oldKeys = keys;
+        final Object[] oldStates = states;
+        final int[] oldVersions = stateVersions;
+
+        final int newCapacity = oldStates.length == 0 ? MINIMUM_CAPACITY : oldStates.length * 2;
+        if (newCapacity > MAXIMUM_CAPACITY) {
+            if (size < oldStates.length - 1) {
+                // keep at least one free slot, so that lookups terminate
+                threshold = oldStates.length - 1;
+                return;
+            }
+            throw new IllegalStateException(
+                    "Maximum capacity of CopyOnWritePrimitiveKeyStateMap is reached and the job "
+                            + "cannot continue. Please consider scaling-out your job or using a different keyed state backend "
+                            + "implementation!");
+        }
+
+        final long[] newKeys = new long[newCapacity];
+        final Object[] newStates = new Object[newCapacity];
+        final int[] newVersions = new int[newCapacity];
+        final int mask = newCapacity - 1;
+
+        for (int i = 0; i < oldStates.length; i++) {
+            if (oldStates[i] != null) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (newStates[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                newKeys[slot] = oldKeys[i];
+                newStates[slot] = oldStates[i];
+                newVersions[slot] = oldVersions[i];
+            }
+        }
+
+        keys = newKeys;
+        states = newStates;
+        stateVersions = newVersions;
+        threshold = (newCapacity >> 1) + (newCapacity >> 2); // 3/4 capacity
+    }
+
+    // Iteration
+    // ------------------------------------------------------------------------------------------------------
+
+    /**
+     * Iterator over state entries in a {@link CopyOnWritePrimitiveKeyStateMap} which does not
+     * tolerate concurrent modifications.
+     */
+    class StateEntryIterator implements Iterator<StateEntry<K, N, S>> {
+
+        private final int expectedModCount;
+        private int nextSlot;
+
+        StateEntryIterator() {
+            this.expectedModCount = modCount;
+            this.nextSlot = 0;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextSlot < states.length;
+        }
+
+        @Override
+        public StateEntry<K, N, S> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final StateEntry<K, N, S> entry =
+                    new StateEntry.SimpleStateEntry<>(
+                            toKey(keys[nextSlot]), getNamespace(), unmaskNull(states[nextSlot]));
+            nextSlot++;
+            advance();
+            return entry;
+        }
+
+        private void advance() {
+            final Object[] tab = states;
+            while (nextSlot < tab.length && tab[nextSlot] == null) {
+                nextSlot++;
+            }
+        }
+    }
+
+    /**
+     * Incremental visitor over state entries in a {@link CopyOnWritePrimitiveKeyStateMap}. Each
+     * call visits a range of slots. Mappings that are moved by removals or resizes between the
+     * calls may be skipped or visited twice.
+     */
+    class StateIncrementalVisitorImpl implements InternalKvState.StateIncrementalVisitor<K, N, S> {
+
+        private final int maxTraversedSlots;
+        private final Collection<StateEntry<K, N, S>> entriesToReturn = new ArrayList<>(5);
+        private int nextSlot;
+
+        StateIncrementalVisitorImpl(int recommendedMaxNumberOfReturnedRecords) {
+            this.maxTraversedSlots = Math.max(1, recommendedMaxNumberOfReturnedRecords);
+            this.nextSlot = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return size > 0 && nextSlot < states.length;
+        }
+
+        @Override
+        public Collection<StateEntry<K, N, S>> nextEntries() {
+            if (!hasNext()) {
+                return null;
+            }
+
+            entriesToReturn.clear();
+            final Object[] tab = states;
+            final int end = (int) Math.min((long) nextSlot + maxTraversedSlots, tab.length);
+            for (; nextSlot < end; nextSlot++) {
+                if (tab[nextSlot] != null) {
+                    entriesToReturn.add(
+                            new StateEntry.SimpleStateEntry<>(
+                                    toKey(keys[nextSlot]),
+                                    getNamespace(),
+                                    unmaskNull(tab[nextSlot])));
+                }
+            }
+            return entriesToReturn;
+        }
+
+        @Override
+        public void remove(StateEntry<K, N, S> stateEntry) {
+            CopyOnWritePrimitiveKeyStateMap.this.remove(
+                    stateEntry.getKey(), stateEntry.getNamespace());
+        }
+
+        @Override
+        public void update(StateEntry<K, N, S> stateEntry, S newValue) {
+            CopyOnWritePrimitiveKeyStateMap.this.put(
+                    stateEntry.getKey(), stateEntry.getNamespace(), newValue);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.state.StateSnapshotTransformer;
+import org.apache.flink.runtime.state.VoidNamespace;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+
+/**
+ * This class represents the snapshot of a {@link CopyOnWritePrimitiveKeyStateMap}.
+ *
+ * <p>The snapshot holds copies of the key and state arrays of the map, as by the time the snapshot
+ * was created. Like for {@link CopyOnWriteStateMapSnapshot}, the state objects in this snapshot
+ * must be considered as READ-ONLY, because they may still be used by the map.
+ *
+ * @param <K> type of key
+ * @param <N> type of namespace
+ * @param <S> type of state
+ */
+public class CopyOnWritePrimitiveKeyStateMapSnapshot<K, N, S>
+        extends StateMapSnapshot<K, N, S, CopyOnWritePrimitiveKeyStateMap<K, N, S>> {
+
+    /**
+     * Version of the {@link CopyOnWritePrimitiveKeyStateMap} when this snapshot was created. This
+     * can be used to release the snapshot.
+     */
+    private final int snapshotVersion;
+
+    /** The keys of the map, as by the time this snapshot was created. */
+    @Nonnull private final long[] snapshotKeys;
+
+    /** The (masked) states of the map, as by the time this snapshot was created. */
+    @Nonnull private final Object[] snapshotStates;
+
+    /** The number of (non-null) entries in snapshotStates. */
+    @Nonnegative private final int numberOfEntriesInSnapshotData;
+
+    /** Whether this snapshot has been released. */
+    private boolean released;
+
+    /**
+     * Creates a new {@link CopyOnWritePrimitiveKeyStateMapSnapshot}.
+     *
+     * @param owningStateMap the {@link CopyOnWritePrimitiveKeyStateMap} for which this object
+     *     represents a snapshot.
+     */
+    CopyOnWritePrimitiveKeyStateMapSnapshot(
+            CopyOnWritePrimitiveKeyStateMap<K, N, S> owningStateMap) {
+        super(owningStateMap);
+
+        this.snapshotVersion = owningStateMap.registerSnapshotVersion();
+        this.snapshotKeys = owningStateMap.snapshotKeys();
+        this.snapshotStates = owningStateMap.snapshotStates();
+        this.numberOfEntriesInSnapshotData = owningStateMap.size();
+        this.released = false;
+    }
+
+    @Override
+    public void release() {
+        if (!released) {
+            owningStateMap.releaseSnapshot(this);
+            released = true;
+        }
+    }
+
+    public boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * Returns the internal version of the {@link CopyOnWritePrimitiveKeyStateMap} when this
+     * snapshot was created. This value must be used to tell the map when to release this snapshot.
+     */
+    int getSnapshotVersion() {
+        return snapshotVersion;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void writeState(
+            TypeSerializer<K> keySerializer,
+            TypeSerializer<N> namespaceSerializer,
+            TypeSerializer<S> stateSerializer,
+            @Nonnull DataOutputView dov,
+            @Nullable StateSnapshotTransformer<S> stateSnapshotTransformer)
+            throws IOException {
+
+        final N namespace = (N) VoidNamespace.INSTANCE;
+        final Object[] statesToWrite;
+        final int size;
+        if (stateSnapshotTransformer == null) {
+            statesToWrite = snapshotStates;
+            size = numberOfEntriesInSnapshotData;
+        } else {
+            statesToWrite = new Object[snapshotStates.length];
+            int count = 0;
+            for (int i = 0; i < snapshotStates.length; i++) {
+                if (snapshotStates[i] != null) {
+                    S transformedState =
+                            stateSnapshotTransformer.filterOrTransform(
+                                    CopyOnWritePrimitiveKeyStateMap.unmaskNull(snapshotStates[i]));
+                    if (transformedState != null) {
+                        statesToWrite[i] = transformedState;
+                        count++;
+                    }
+                }
+            }
+            size = count;
+        }
+
+        dov.writeInt(size);
+        for (int i = 0; i < statesToWrite.length; i++) {
+            if (statesToWrite[i] != null) {
+                namespaceSerializer.serialize(namespace, dov);
+                keySerializer.serialize(owningStateMap.toKey(snapshotKeys[i]), dov);
+                stateSerializer.serialize(
+                        CopyOnWritePrimitiveKeyStateMap.unmaskNull(statesToWrite[i]), dov);
+            }
+        }
+    }
+}
@@ -198,6 +198,12 @@ public class CopyOnWriteStateMap<K, N, S> extends StateMap<K, N, S> {
      */
     private int modCount;
 
+    /**
+     * Whether this map was possibly modified since the last call to {@link #resetModified()}. New
+     * maps start as modified.
+     */
+    private boolean modified;
+
     /**
      * Constructs a new {@code StateMap} with default capacity of {@code DEFAULT_CAPACITY}.
      *
@@ -230,6 +236,7 @@ public class CopyOnWriteStateMap<K, N, S> extends StateMap<K, N, S> {
         this.stateMapVersion = 0;
         this.highestRequiredSnapshotVersion = 0;
         this.snapshotVersions = new TreeSet<>();
+        this.modified = true;
 
         if (capacity < 0) {
             throw new IllegalArgumentException("Capacity: " + capacity);
@@ -277,6 +284,9 @@ public class CopyOnWriteStateMap<K, N, S> extends StateMap<K, N, S> {
             final N eNamespace = e.namespace;
             if ((e.hash == hash && key.equals(eKey) && namespace.equals(eNamespace))) {
 
+                // the returned state might be modified in place
+                modified = true;
+
                 // copy-on-write check for state
                 if (e.stateVersion < requiredVersion) {
                     // copy-on-write check for entry
@@ -384,6 +394,8 @@ public class CopyOnWriteStateMap<K, N, S> extends StateMap<K, N, S> {
     /** Helper method that is the basis for operations that add mappings. */
     private StateMapEntry<K, N, S> putEntry(K key, N namespace) {
 
+        modified = true;
+
         final int hash = computeHashForOperationAndDoIncrementalRehash(key, namespace);
         final StateMapEntry<K, N, S>[] tab = selectActiveTable(hash);
         int index = hash & (tab.length - 1);
@@ -427,6 +439,7 @@ public class CopyOnWriteStateMap<K, N, S> extends StateMap<K, N, S> {
                     prev.next = e.next;
                 }
                 ++modCount;
+                modified = true;
                 if (tab == primaryTable) {
                     --primaryTableSize;
                 } else {
@@ -790,6 +803,16 @@ public class CopyOnWriteStateMap<K, N, S> extends StateMap<K, N, S> {
 
     // Meta data setter / getter and toString -----------------------------------------------------
 
+    @Override
+    public boolean isModified() {
+        return modified;
+    }
+
+    @Override
+    public void resetModified() {
+        modified = false;
+    }
+
     public TypeSerializer<S> getStateSerializer() {
         return stateSerializer;
     }
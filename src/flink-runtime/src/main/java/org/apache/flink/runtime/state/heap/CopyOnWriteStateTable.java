@@ -27,8 +27,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * This implementation of {@link StateTable} uses {@link CopyOnWriteStateMap}. This implementation
- * supports asynchronous snapshots.
+ * This implementation of {@link StateTable} uses {@link CopyOnWriteStateMap}, or {@link
+ * CopyOnWritePrimitiveKeyStateMap} for {@code Long} and {@code Integer} keys in the {@link
+ * org.apache.flink.runtime.state.VoidNamespace}. This implementation supports asynchronous
+ * snapshots.
  *
  * @param <K> type of key.
  * @param <N> type of namespace.
@@ -51,7 +53,11 @@ public class CopyOnWriteStateTable<K, N, S> extends StateTable<K, N, S> {
     }
 
     @Override
-    protected CopyOnWriteStateMap<K, N, S> createStateMap() {
+    protected StateMap<K, N, S> createStateMap() {
+        if (CopyOnWritePrimitiveKeyStateMap.isSupported(
+                keySerializer, metaInfo.getNamespaceSerializer())) {
+            return new CopyOnWritePrimitiveKeyStateMap<>(keySerializer, getStateSerializer());
+        }
         return new CopyOnWriteStateMap<>(getStateSerializer());
     }
 
@@ -77,13 +83,10 @@ public class CopyOnWriteStateTable<K, N, S> extends StateTable<K, N, S> {
                         .orElse(null));
     }
 
-    @SuppressWarnings("unchecked")
-    List<CopyOnWriteStateMapSnapshot<K, N, S>> getStateMapSnapshotList() {
-        List<CopyOnWriteStateMapSnapshot<K, N, S>> snapshotList =
+    List<StateMapSnapshot<K, N, S, ? extends StateMap<K, N, S>>> getStateMapSnapshotList() {
+        List<StateMapSnapshot<K, N, S, ? extends StateMap<K, N, S>>> snapshotList =
                 new ArrayList<>(keyGroupedStateMaps.length);
-        for (int i = 0; i < keyGroupedStateMaps.length; i++) {
-            CopyOnWriteStateMap<K, N, S> stateMap =
-                    (CopyOnWriteStateMap<K, N, S>) keyGroupedStateMaps[i];
+        for (StateMap<K, N, S> stateMap : keyGroupedStateMaps) {
             snapshotList.add(stateMap.stateSnapshot());
         }
         return snapshotList;
@@ -42,7 +42,8 @@ public class CopyOnWriteStateTableSnapshot<K, N, S> extends AbstractStateTableSn
     private final int keyGroupOffset;
 
     /** Snapshots of state partitioned by key-group. */
-    @Nonnull private final List<CopyOnWriteStateMapSnapshot<K, N, S>> stateMapSnapshots;
+    @Nonnull
+    private final List<StateMapSnapshot<K, N, S, ? extends StateMap<K, N, S>>> stateMapSnapshots;
 
     /**
      * Creates a new {@link CopyOnWriteStateTableSnapshot}.
@@ -71,7 +72,7 @@ public class CopyOnWriteStateTableSnapshot<K, N, S> extends AbstractStateTableSn
     protected StateMapSnapshot<K, N, S, ? extends StateMap<K, N, S>> getStateMapSnapshotForKeyGroup(
             int keyGroup) {
         int indexOffset = keyGroup - keyGroupOffset;
-        CopyOnWriteStateMapSnapshot<K, N, S> stateMapSnapshot = null;
+        StateMapSnapshot<K, N, S, ? extends StateMap<K, N, S>> stateMapSnapshot = null;
         if (indexOffset >= 0 && indexOffset < stateMapSnapshots.size()) {
             stateMapSnapshot = stateMapSnapshots.get(indexOffset);
         }
@@ -81,10 +82,9 @@ public class CopyOnWriteStateTableSnapshot<K, N, S> extends AbstractStateTableSn
 
     @Override
     public void release() {
-        for (CopyOnWriteStateMapSnapshot snapshot : stateMapSnapshots) {
-            if (!snapshot.isReleased()) {
-                snapshot.release();
-            }
+        // releasing a snapshot of a state map twice has no effect
+        for (StateMapSnapshot<K, N, S, ? extends StateMap<K, N, S>> snapshot : stateMapSnapshots) {
+            snapshot.release();
         }
     }
 }
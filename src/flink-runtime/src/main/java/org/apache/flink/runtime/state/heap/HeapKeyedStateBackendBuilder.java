@@ -20,6 +20,7 @@ package org.apache.flink.runtime.state.heap;
 
 import org.apache.flink.api.common.ExecutionConfig;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.configuration.CheckpointingOptions;
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.runtime.query.TaskKvStateRegistry;
 import org.apache.flink.runtime.state.AbstractKeyedStateBackendBuilder;
@@ -29,6 +30,7 @@ import org.apache.flink.runtime.state.KeyedStateHandle;
 import org.apache.flink.runtime.state.LocalRecoveryConfig;
 import org.apache.flink.runtime.state.StreamCompressionDecorator;
 import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.util.Preconditions;
 
 import javax.annotation.Nonnull;
 
@@ -49,6 +51,11 @@ public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBu
     private final HeapPriorityQueueSetFactory priorityQueueSetFactory;
     /** Whether asynchronous snapshot is enabled. */
     private final boolean asynchronousSnapshots;
+    /** Whether incremental checkpoints are enabled. */
+    private boolean enableIncrementalCheckpointing = false;
+    /** The maximum number of incremental snapshots between two full snapshots. */
+    private int maxIncrementalSnapshots =
+            CheckpointingOptions.FS_INCREMENTAL_MAX_DELTA_SNAPSHOTS.defaultValue();
 
     public HeapKeyedStateBackendBuilder(
             TaskKvStateRegistry kvStateRegistry,
@@ -80,6 +87,23 @@ public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBu
         this.asynchronousSnapshots = asynchronousSnapshots;
     }
 
+    /**
+     * Enables incremental checkpoints, which only write the key-groups that were modified since the
+     * last completed checkpoint.
+     *
+     * @param maxIncrementalSnapshots the maximum number of incremental snapshots between two full
+     *     snapshots.
+     */
+    public HeapKeyedStateBackendBuilder<K> setIncrementalCheckpointing(
+            boolean enableIncrementalCheckpointing, int maxIncrementalSnapshots) {
+        Preconditions.checkArgument(
+                maxIncrementalSnapshots >= 0,
+                "The number of incremental snapshots must not be negative.");
+        this.enableIncrementalCheckpointing = enableIncrementalCheckpointing;
+        this.maxIncrementalSnapshots = maxIncrementalSnapshots;
+        return this;
+    }
+
     @Override
     public HeapKeyedStateBackend<K> build() throws BackendBuildingException {
         // Map of registered Key/Value states
@@ -139,6 +163,18 @@ public class HeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBu
                 asynchronousSnapshots
                         ? new AsyncSnapshotStrategySynchronicityBehavior<>()
                         : new SyncSnapshotStrategySynchronicityBehavior<>();
+        if (enableIncrementalCheckpointing) {
+            return new IncrementalHeapSnapshotStrategy<>(
+                    synchronicityTrait,
+                    registeredKVStates,
+                    registeredPQStates,
+                    keyGroupCompressionDecorator,
+                    localRecoveryConfig,
+                    keyGroupRange,
+                    cancelStreamRegistry,
+                    keySerializerProvider,
+                    maxIncrementalSnapshots);
+        }
         return new HeapSnapshotStrategy<>(
                 synchronicityTrait,
                 registeredKVStates,
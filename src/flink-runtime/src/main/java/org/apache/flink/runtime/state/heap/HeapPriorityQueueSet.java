@@ -28,6 +28,7 @@ import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Set;
 
@@ -67,6 +68,12 @@ public class HeapPriorityQueueSet<T extends HeapPriorityQueueElement> extends He
     /** The total number of key-groups of the job. */
     private final int totalNumberOfKeyGroups;
 
+    /**
+     * The local indexes of the key-groups that were modified since the last call to {@link
+     * #collectAndResetModifiedKeyGroups(BitSet)}.
+     */
+    private final BitSet modifiedKeyGroups;
+
     /**
      * Creates an empty {@link HeapPriorityQueueSet} with the requested initial capacity.
      *
@@ -97,13 +104,15 @@ public class HeapPriorityQueueSet<T extends HeapPriorityQueueElement> extends He
         for (int i = 0; i < keyGroupsInLocalRange; ++i) {
             deduplicationMapsByKeyGroup[i] = new HashMap<>(deduplicationSetSize);
         }
+        this.modifiedKeyGroups = new BitSet(keyGroupsInLocalRange);
+        this.modifiedKeyGroups.set(0, keyGroupsInLocalRange);
     }
 
     @Override
     @Nullable
     public T poll() {
         final T toRemove = super.poll();
-        return toRemove != null ? getDedupMapForElement(toRemove).remove(toRemove) : null;
+        return toRemove != null ? markModifiedAndGetDedupMap(toRemove).remove(toRemove) : null;
     }
 
     /**
@@ -117,7 +126,7 @@ public class HeapPriorityQueueSet<T extends HeapPriorityQueueElement> extends He
      */
     @Override
     public boolean add(@Nonnull T element) {
-        return getDedupMapForElement(element).putIfAbsent(element, element) == null
+        return markModifiedAndGetDedupMap(element).putIfAbsent(element, element) == null
                 && super.add(element);
     }
 
@@ -131,7 +140,7 @@ public class HeapPriorityQueueSet<T extends HeapPriorityQueueElement> extends He
      */
     @Override
     public boolean remove(@Nonnull T toRemove) {
-        T storedElement = getDedupMapForElement(toRemove).remove(toRemove);
+        T storedElement = markModifiedAndGetDedupMap(toRemove).remove(toRemove);
         return storedElement != null && super.remove(storedElement);
     }
 
@@ -141,17 +150,36 @@ public class HeapPriorityQueueSet<T extends HeapPriorityQueueElement> extends He
         for (HashMap<?, ?> elementHashMap : deduplicationMapsByKeyGroup) {
             elementHashMap.clear();
         }
+        modifiedKeyGroups.set(0, deduplicationMapsByKeyGroup.length);
+    }
+
+    /**
+     * Adds the key-groups that were possibly modified since the previous call of this method to the
+     * given set and resets the modification tracking.
+     *
+     * @param modifiedKeyGroups the set of key-group ids to which the modified key-groups are added.
+     */
+    public void collectAndResetModifiedKeyGroups(BitSet modifiedKeyGroups) {
+        final int startKeyGroup = keyGroupRange.getStartKeyGroup();
+        for (int i = this.modifiedKeyGroups.nextSetBit(0);
+                i >= 0;
+                i = this.modifiedKeyGroups.nextSetBit(i + 1)) {
+            modifiedKeyGroups.set(startKeyGroup + i);
+        }
+        this.modifiedKeyGroups.clear();
     }
 
     private HashMap<T, T> getDedupMapForKeyGroup(@Nonnegative int keyGroupId) {
         return deduplicationMapsByKeyGroup[globalKeyGroupToLocalIndex(keyGroupId)];
     }
 
-    private HashMap<T, T> getDedupMapForElement(T element) {
+    private HashMap<T, T> markModifiedAndGetDedupMap(T element) {
         int keyGroup =
                 KeyGroupRangeAssignment.assignToKeyGroup(
                         keyExtractor.extractKeyFromElement(element), totalNumberOfKeyGroups);
-        return getDedupMapForKeyGroup(keyGroup);
+        int localIndex = globalKeyGroupToLocalIndex(keyGroup);
+        modifiedKeyGroups.set(localIndex);
+        return deduplicationMapsByKeyGroup[localIndex];
     }
 
     private int globalKeyGroupToLocalIndex(int keyGroup) {
@@ -30,6 +30,8 @@ import org.apache.flink.runtime.state.StateSnapshotRestore;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
+import java.util.BitSet;
+
 /**
  * This wrapper combines a HeapPriorityQueue with backend meta data.
  *
@@ -83,6 +85,14 @@ public class HeapPriorityQueueSnapshotRestoreWrapper<T extends HeapPriorityQueue
                 (element, keyGroupId) -> priorityQueue.add(element));
     }
 
+    /**
+     * Adds the key-groups of the queue that were possibly modified since the previous call of this
+     * method to the given set and resets the modification tracking.
+     */
+    public void collectAndResetModifiedKeyGroups(@Nonnull BitSet modifiedKeyGroups) {
+        priorityQueue.collectAndResetModifiedKeyGroups(modifiedKeyGroups);
+    }
+
     @Nonnull
     public HeapPriorityQueueSet<T> getPriorityQueue() {
         return priorityQueue;
@@ -24,9 +24,9 @@ import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.core.fs.FSDataInputStream;
 import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.runtime.state.IncrementalKeyGroupsStateHandle;
 import org.apache.flink.runtime.state.KeyExtractorFunction;
 import org.apache.flink.runtime.state.KeyGroupRange;
-import org.apache.flink.runtime.state.KeyGroupRangeOffsets;
 import org.apache.flink.runtime.state.KeyGroupsStateHandle;
 import org.apache.flink.runtime.state.Keyed;
 import org.apache.flink.runtime.state.KeyedBackendSerializationProxy;
@@ -38,8 +38,10 @@ import org.apache.flink.runtime.state.RestoreOperation;
 import org.apache.flink.runtime.state.SnappyStreamCompressionDecorator;
 import org.apache.flink.runtime.state.StateSerializerProvider;
 import org.apache.flink.runtime.state.StateSnapshotKeyGroupReader;
+import org.apache.flink.runtime.state.StateHandleID;
 import org.apache.flink.runtime.state.StateSnapshotRestore;
 import org.apache.flink.runtime.state.StreamCompressionDecorator;
+import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.runtime.state.UncompressedStreamCompressionDecorator;
 import org.apache.flink.runtime.state.metainfo.StateMetaInfoSnapshot;
 import org.apache.flink.util.Preconditions;
@@ -54,8 +56,10 @@ import javax.annotation.Nonnull;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -80,6 +84,7 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
     @Nonnegative private final int numberOfKeyGroups;
     private final HeapSnapshotStrategy<K> snapshotStrategy;
     private final InternalKeyContext<K> keyContext;
+    private boolean keySerializerRestored;
 
     HeapRestoreOperation(
             @Nonnull Collection<KeyedStateHandle> restoreStateHandles,
@@ -112,7 +117,7 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
         registeredKVStates.clear();
         registeredPQStates.clear();
 
-        boolean keySerializerRestored = false;
+        keySerializerRestored = false;
 
         for (KeyedStateHandle keyedStateHandle : restoreStateHandles) {
 
@@ -120,71 +125,113 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
                 continue;
             }
 
-            if (!(keyedStateHandle instanceof KeyGroupsStateHandle)) {
+            LOG.info("Starting to restore from state handle: {}.", keyedStateHandle);
+            if (keyedStateHandle instanceof KeyGroupsStateHandle) {
+                KeyGroupsStateHandle keyGroupsStateHandle =
+                        (KeyGroupsStateHandle) keyedStateHandle;
+                restoreKeyGroups(
+                        keyGroupsStateHandle.getDelegateStateHandle(),
+                        keyGroupsStateHandle.getGroupRangeOffsets());
+            } else if (keyedStateHandle instanceof IncrementalKeyGroupsStateHandle) {
+                restoreIncrementalKeyGroups((IncrementalKeyGroupsStateHandle) keyedStateHandle);
+            } else {
                 throw unexpectedStateHandleException(
-                        KeyGroupsStateHandle.class, keyedStateHandle.getClass());
+                        new Class[] {
+                            KeyGroupsStateHandle.class, IncrementalKeyGroupsStateHandle.class
+                        },
+                        keyedStateHandle.getClass());
             }
+            LOG.info("Finished restoring from state handle: {}.", keyedStateHandle);
+        }
+        return null;
+    }
 
-            LOG.info("Starting to restore from state handle: {}.", keyedStateHandle);
-            KeyGroupsStateHandle keyGroupsStateHandle = (KeyGroupsStateHandle) keyedStateHandle;
-            FSDataInputStream fsDataInputStream = keyGroupsStateHandle.openInputStream();
-            cancelStreamRegistry.registerCloseable(fsDataInputStream);
-
-            try {
-                DataInputViewStreamWrapper inView =
-                        new DataInputViewStreamWrapper(fsDataInputStream);
-
-                KeyedBackendSerializationProxy<K> serializationProxy =
-                        new KeyedBackendSerializationProxy<>(userCodeClassLoader);
-
-                serializationProxy.read(inView);
-
-                if (!keySerializerRestored) {
-                    // fetch current serializer now because if it is incompatible, we can't access
-                    // it anymore to improve the error message
-                    TypeSerializer<K> currentSerializer =
-                            keySerializerProvider.currentSchemaSerializer();
-                    // check for key serializer compatibility; this also reconfigures the
-                    // key serializer to be compatible, if it is required and is possible
-                    TypeSerializerSchemaCompatibility<K> keySerializerSchemaCompat =
-                            keySerializerProvider.setPreviousSerializerSnapshotForRestoredState(
-                                    serializationProxy.getKeySerializerSnapshot());
-                    if (keySerializerSchemaCompat.isCompatibleAfterMigration()
-                            || keySerializerSchemaCompat.isIncompatible()) {
-                        throw new StateMigrationException(
-                                "The new key serializer ("
-                                        + currentSerializer
-                                        + ") must be compatible with the previous key serializer ("
-                                        + keySerializerProvider.previousSchemaSerializer()
-                                        + ").");
-                    }
+    /**
+     * Restores the key-groups of an incremental snapshot that belong to the backend, stream by
+     * stream.
+     */
+    private void restoreIncrementalKeyGroups(IncrementalKeyGroupsStateHandle stateHandle)
+            throws Exception {
+
+        final Map<StateHandleID, List<Tuple2<Integer, Long>>> keyGroupOffsetsByStream =
+                new LinkedHashMap<>();
+        for (Tuple2<Integer, Long> groupOffset : stateHandle.getGroupRangeOffsets()) {
+            if (keyGroupRange.contains(groupOffset.f0)) {
+                keyGroupOffsetsByStream
+                        .computeIfAbsent(
+                                stateHandle.getStateHandleIdForKeyGroup(groupOffset.f0),
+                                streamId -> new ArrayList<>())
+                        .add(groupOffset);
+            }
+        }
 
-                    keySerializerRestored = true;
-                }
+        for (Map.Entry<StateHandleID, List<Tuple2<Integer, Long>>> streamKeyGroups :
+                keyGroupOffsetsByStream.entrySet()) {
+            restoreKeyGroups(
+                    stateHandle.getSharedState().get(streamKeyGroups.getKey()),
+                    streamKeyGroups.getValue());
+        }
+    }
 
-                List<StateMetaInfoSnapshot> restoredMetaInfos =
-                        serializationProxy.getStateMetaInfoSnapshots();
-
-                final Map<Integer, StateMetaInfoSnapshot> kvStatesById = new HashMap<>();
-
-                createOrCheckStateForMetaInfo(restoredMetaInfos, kvStatesById);
-
-                readStateHandleStateData(
-                        fsDataInputStream,
-                        inView,
-                        keyGroupsStateHandle.getGroupRangeOffsets(),
-                        kvStatesById,
-                        restoredMetaInfos.size(),
-                        serializationProxy.getReadVersion(),
-                        serializationProxy.isUsingKeyGroupCompression());
-                LOG.info("Finished restoring from state handle: {}.", keyedStateHandle);
-            } finally {
-                if (cancelStreamRegistry.unregisterCloseable(fsDataInputStream)) {
-                    IOUtils.closeQuietly(fsDataInputStream);
+    private void restoreKeyGroups(
+            StreamStateHandle streamStateHandle, Iterable<Tuple2<Integer, Long>> keyGroupOffsets)
+            throws Exception {
+
+        FSDataInputStream fsDataInputStream = streamStateHandle.openInputStream();
+        cancelStreamRegistry.registerCloseable(fsDataInputStream);
+
+        try {
+            DataInputViewStreamWrapper inView =
+                    new DataInputViewStreamWrapper(fsDataInputStream);
+
+            KeyedBackendSerializationProxy<K> serializationProxy =
+                    new KeyedBackendSerializationProxy<>(userCodeClassLoader);
+
+            serializationProxy.read(inView);
+
+            if (!keySerializerRestored) {
+                // fetch current serializer now because if it is incompatible, we can't access
+                // it anymore to improve the error message
+                TypeSerializer<K> currentSerializer =
+                        keySerializerProvider.currentSchemaSerializer();
+                // check for key serializer compatibility; this also reconfigures the
+                // key serializer to be compatible, if it is required and is possible
+                TypeSerializerSchemaCompatibility<K> keySerializerSchemaCompat =
+                        keySerializerProvider.setPreviousSerializerSnapshotForRestoredState(
+                                serializationProxy.getKeySerializerSnapshot());
+                if (keySerializerSchemaCompat.isCompatibleAfterMigration()
+                        || keySerializerSchemaCompat.isIncompatible()) {
+                    throw new StateMigrationException(
+                            "The new key serializer ("
+                                    + currentSerializer
+                                    + ") must be compatible with the previous key serializer ("
+                                    + keySerializerProvider.previousSchemaSerializer()
+                                    + ").");
                 }
+
+                keySerializerRestored = true;
+            }
+
+            List<StateMetaInfoSnapshot> restoredMetaInfos =
+                    serializationProxy.getStateMetaInfoSnapshots();
+
+            final Map<Integer, StateMetaInfoSnapshot> kvStatesById = new HashMap<>();
+
+            createOrCheckStateForMetaInfo(restoredMetaInfos, kvStatesById);
+
+            readStateHandleStateData(
+                    fsDataInputStream,
+                    inView,
+                    keyGroupOffsets,
+                    kvStatesById,
+                    restoredMetaInfos.size(),
+                    serializationProxy.getReadVersion(),
+                    serializationProxy.isUsingKeyGroupCompression());
+        } finally {
+            if (cancelStreamRegistry.unregisterCloseable(fsDataInputStream)) {
+                IOUtils.closeQuietly(fsDataInputStream);
             }
         }
-        return null;
     }
 
     private void createOrCheckStateForMetaInfo(
@@ -252,7 +299,7 @@ public class HeapRestoreOperation<K> implements RestoreOperation<Void> {
     private void readStateHandleStateData(
             FSDataInputStream fsDataInputStream,
             DataInputViewStreamWrapper inView,
-            KeyGroupRangeOffsets keyGroupOffsets,
+            Iterable<Tuple2<Integer, Long>> keyGroupOffsets,
             Map<Integer, StateMetaInfoSnapshot> kvStatesById,
             int numStates,
             int readVersion,
@@ -18,6 +18,7 @@
 
 package org.apache.flink.runtime.state.heap;
 
+import org.apache.flink.api.common.state.CheckpointListener;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
@@ -62,15 +63,15 @@ import java.util.concurrent.RunnableFuture;
  * hooks to realize the concrete strategies. Subclasses must be threadsafe.
  */
 class HeapSnapshotStrategy<K> extends AbstractSnapshotStrategy<KeyedStateHandle>
-        implements SnapshotStrategySynchronicityBehavior<K> {
-
-    private final SnapshotStrategySynchronicityBehavior<K> snapshotStrategySynchronicityTrait;
-    private final Map<String, StateTable<K, ?, ?>> registeredKVStates;
-    private final Map<String, HeapPriorityQueueSnapshotRestoreWrapper> registeredPQStates;
-    private final StreamCompressionDecorator keyGroupCompressionDecorator;
-    private final LocalRecoveryConfig localRecoveryConfig;
-    private final KeyGroupRange keyGroupRange;
-    private final CloseableRegistry cancelStreamRegistry;
+        implements SnapshotStrategySynchronicityBehavior<K>, CheckpointListener {
+
+    protected final SnapshotStrategySynchronicityBehavior<K> snapshotStrategySynchronicityTrait;
+    protected final Map<String, StateTable<K, ?, ?>> registeredKVStates;
+    protected final Map<String, HeapPriorityQueueSnapshotRestoreWrapper> registeredPQStates;
+    protected final StreamCompressionDecorator keyGroupCompressionDecorator;
+    protected final LocalRecoveryConfig localRecoveryConfig;
+    protected final KeyGroupRange keyGroupRange;
+    protected final CloseableRegistry cancelStreamRegistry;
     private final StateSerializerProvider<K> keySerializerProvider;
 
     HeapSnapshotStrategy(
@@ -82,7 +83,29 @@ class HeapSnapshotStrategy<K> extends AbstractSnapshotStrategy<KeyedStateHandle>
             KeyGroupRange keyGroupRange,
             CloseableRegistry cancelStreamRegistry,
             StateSerializerProvider<K> keySerializerProvider) {
-        super("Heap backend snapshot");
+        this(
+                "Heap backend snapshot",
+                snapshotStrategySynchronicityTrait,
+                registeredKVStates,
+                registeredPQStates,
+                keyGroupCompressionDecorator,
+                localRecoveryConfig,
+                keyGroupRange,
+                cancelStreamRegistry,
+                keySerializerProvider);
+    }
+
+    protected HeapSnapshotStrategy(
+            String description,
+            SnapshotStrategySynchronicityBehavior<K> snapshotStrategySynchronicityTrait,
+            Map<String, StateTable<K, ?, ?>> registeredKVStates,
+            Map<String, HeapPriorityQueueSnapshotRestoreWrapper> registeredPQStates,
+            StreamCompressionDecorator keyGroupCompressionDecorator,
+            LocalRecoveryConfig localRecoveryConfig,
+            KeyGroupRange keyGroupRange,
+            CloseableRegistry cancelStreamRegistry,
+            StateSerializerProvider<K> keySerializerProvider) {
+        super(description);
         this.snapshotStrategySynchronicityTrait = snapshotStrategySynchronicityTrait;
         this.registeredKVStates = registeredKVStates;
         this.registeredPQStates = registeredPQStates;
@@ -106,44 +129,13 @@ class HeapSnapshotStrategy<K> extends AbstractSnapshotStrategy<KeyedStateHandle>
             return DoneFuture.of(SnapshotResult.empty());
         }
 
-        int numStates = registeredKVStates.size() + registeredPQStates.size();
-
-        Preconditions.checkState(
-                numStates <= Short.MAX_VALUE,
-                "Too many states: "
-                        + numStates
-                        + ". Currently at most "
-                        + Short.MAX_VALUE
-                        + " states are supported");
-
+        final int numStates = registeredKVStates.size() + registeredPQStates.size();
         final List<StateMetaInfoSnapshot> metaInfoSnapshots = new ArrayList<>(numStates);
         final Map<StateUID, Integer> stateNamesToId = new HashMap<>(numStates);
         final Map<StateUID, StateSnapshot> cowStateStableSnapshots = new HashMap<>(numStates);
 
-        processSnapshotMetaInfoForAllStates(
-                metaInfoSnapshots,
-                cowStateStableSnapshots,
-                stateNamesToId,
-                registeredKVStates,
-                StateMetaInfoSnapshot.BackendStateType.KEY_VALUE);
-
-        processSnapshotMetaInfoForAllStates(
-                metaInfoSnapshots,
-                cowStateStableSnapshots,
-                stateNamesToId,
-                registeredPQStates,
-                StateMetaInfoSnapshot.BackendStateType.PRIORITY_QUEUE);
-
         final KeyedBackendSerializationProxy<K> serializationProxy =
-                new KeyedBackendSerializationProxy<>(
-                        // TODO: this code assumes that writing a serializer is threadsafe, we
-                        // should support to
-                        // get a serialized form already at state registration time in the future
-                        getKeySerializer(),
-                        metaInfoSnapshots,
-                        !Objects.equals(
-                                UncompressedStreamCompressionDecorator.INSTANCE,
-                                keyGroupCompressionDecorator));
+                snapshotAllStates(metaInfoSnapshots, stateNamesToId, cowStateStableSnapshots);
 
         final SupplierWithException<CheckpointStreamWithResultProvider, Exception>
                 checkpointStreamSupplier =
@@ -188,23 +180,11 @@ class HeapSnapshotStrategy<K> extends AbstractSnapshotStrategy<KeyedStateHandle>
                                 ++keyGroupPos) {
                             int keyGroupId = keyGroupRange.getKeyGroupId(keyGroupPos);
                             keyGroupRangeOffsets[keyGroupPos] = localStream.getPos();
-                            outView.writeInt(keyGroupId);
-
-                            for (Map.Entry<StateUID, StateSnapshot> stateSnapshot :
-                                    cowStateStableSnapshots.entrySet()) {
-                                StateSnapshot.StateKeyGroupWriter partitionedSnapshot =
-                                        stateSnapshot.getValue().getKeyGroupWriter();
-                                try (OutputStream kgCompressionOut =
-                                        keyGroupCompressionDecorator.decorateWithCompression(
-                                                localStream)) {
-                                    DataOutputViewStreamWrapper kgCompressionView =
-                                            new DataOutputViewStreamWrapper(kgCompressionOut);
-                                    kgCompressionView.writeShort(
-                                            stateNamesToId.get(stateSnapshot.getKey()));
-                                    partitionedSnapshot.writeStateInKeyGroup(
-                                            kgCompressionView, keyGroupId);
-                                } // this will just close the outer compression stream
-                            }
+                            writeKeyGroup(
+                                    keyGroupId,
+                                    localStream,
+                                    cowStateStableSnapshots,
+                                    stateNamesToId);
                         }
 
                         if (snapshotCloseableRegistry.unregisterCloseable(
@@ -243,6 +223,86 @@ class HeapSnapshotStrategy<K> extends AbstractSnapshotStrategy<KeyedStateHandle>
         return task;
     }
 
+    /**
+     * Creates the snapshots and meta info snapshots of all registered states and assigns the ids
+     * that identify the states in the key-groups.
+     *
+     * @return the serialization proxy for the meta data of the backend.
+     */
+    protected KeyedBackendSerializationProxy<K> snapshotAllStates(
+            List<StateMetaInfoSnapshot> metaInfoSnapshots,
+            Map<StateUID, Integer> stateNamesToId,
+            Map<StateUID, StateSnapshot> cowStateStableSnapshots) {
+
+        int numStates = registeredKVStates.size() + registeredPQStates.size();
+
+        Preconditions.checkState(
+                numStates <= Short.MAX_VALUE,
+                "Too many states: "
+                        + numStates
+                        + ". Currently at most "
+                        + Short.MAX_VALUE
+                        + " states are supported");
+
+        processSnapshotMetaInfoForAllStates(
+                metaInfoSnapshots,
+                cowStateStableSnapshots,
+                stateNamesToId,
+                registeredKVStates,
+                StateMetaInfoSnapshot.BackendStateType.KEY_VALUE);
+
+        processSnapshotMetaInfoForAllStates(
+                metaInfoSnapshots,
+                cowStateStableSnapshots,
+                stateNamesToId,
+                registeredPQStates,
+                StateMetaInfoSnapshot.BackendStateType.PRIORITY_QUEUE);
+
+        return new KeyedBackendSerializationProxy<>(
+                // TODO: this code assumes that writing a serializer is threadsafe, we
+                // should support to
+                // get a serialized form already at state registration time in the future
+                getKeySerializer(),
+                metaInfoSnapshots,
+                !Objects.equals(
+                        UncompressedStreamCompressionDecorator.INSTANCE,
+                        keyGroupCompressionDecorator));
+    }
+
+    /** Writes the state of all given snapshots in the key-group to the stream. */
+    protected void writeKeyGroup(
+            int keyGroupId,
+            CheckpointStreamFactory.CheckpointStateOutputStream outStream,
+            Map<StateUID, StateSnapshot> cowStateStableSnapshots,
+            Map<StateUID, Integer> stateNamesToId)
+            throws IOException {
+
+        new DataOutputViewStreamWrapper(outStream).writeInt(keyGroupId);
+
+        for (Map.Entry<StateUID, StateSnapshot> stateSnapshot :
+                cowStateStableSnapshots.entrySet()) {
+            StateSnapshot.StateKeyGroupWriter partitionedSnapshot =
+                    stateSnapshot.getValue().getKeyGroupWriter();
+            try (OutputStream kgCompressionOut =
+                    keyGroupCompressionDecorator.decorateWithCompression(outStream)) {
+                DataOutputViewStreamWrapper kgCompressionView =
+                        new DataOutputViewStreamWrapper(kgCompressionOut);
+                kgCompressionView.writeShort(stateNamesToId.get(stateSnapshot.getKey()));
+                partitionedSnapshot.writeStateInKeyGroup(kgCompressionView, keyGroupId);
+            } // this will just close the outer compression stream
+        }
+    }
+
+    @Override
+    public void notifyCheckpointComplete(long checkpointId) {
+        // nothing to do
+    }
+
+    @Override
+    public void notifyCheckpointAborted(long checkpointId) {
+        // nothing to do
+    }
+
     @Override
     public void finalizeSnapshotBeforeReturnHook(Runnable runnable) {
         snapshotStrategySynchronicityTrait.finalizeSnapshotBeforeReturnHook(runnable);
@@ -282,7 +342,7 @@ class HeapSnapshotStrategy<K> extends AbstractSnapshotStrategy<KeyedStateHandle>
         }
     }
 
-    private boolean hasRegisteredState() {
+    protected boolean hasRegisteredState() {
         return !(registeredKVStates.isEmpty() && registeredPQStates.isEmpty());
     }
 
@@ -0,0 +1,414 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.state.AsyncSnapshotCallable;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.CheckpointStreamWithResultProvider;
+import org.apache.flink.runtime.state.CheckpointedStateScope;
+import org.apache.flink.runtime.state.DoneFuture;
+import org.apache.flink.runtime.state.IncrementalKeyGroupsStateHandle;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeOffsets;
+import org.apache.flink.runtime.state.KeyedBackendSerializationProxy;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.LocalRecoveryConfig;
+import org.apache.flink.runtime.state.PlaceholderStreamStateHandle;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.StateHandleID;
+import org.apache.flink.runtime.state.StateSerializerProvider;
+import org.apache.flink.runtime.state.StateSnapshot;
+import org.apache.flink.runtime.state.StreamCompressionDecorator;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.metainfo.StateMetaInfoSnapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableFuture;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * Snapshot strategy of the heap backend for incremental checkpoints. The state maps and priority
+ * queues track which key-groups were (possibly) modified, and a checkpoint only writes those
+ * key-groups that were modified since the last completed checkpoint to a new shared stream. All
+ * other key-groups are referenced in the streams of previous checkpoints, which are registered with
+ * the {@link org.apache.flink.runtime.state.SharedStateRegistry} through {@link
+ * IncrementalKeyGroupsStateHandle}.
+ *
+ * <p>A full snapshot, which writes all key-groups and so compacts the chain of referenced streams,
+ * is taken for the first checkpoint after (re-)starting the backend, after the registered states
+ * changed, and after the configured number of incremental snapshots. Savepoints are always full
+ * snapshots in the format of the {@link HeapSnapshotStrategy}.
+ */
+class IncrementalHeapSnapshotStrategy<K> extends HeapSnapshotStrategy<K> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IncrementalHeapSnapshotStrategy.class);
+
+    /** The identifier of the backend, used for the keys of the shared state registry. */
+    @Nonnull private final UUID backendUID;
+
+    /** The maximum number of incremental snapshots between two full snapshots. */
+    private final int maxIncrementalSnapshots;
+
+    /**
+     * The key-groups that were modified in the intervals before the snapshots of checkpoints that
+     * are newer than the last completed checkpoint. Only accessed by the task thread.
+     */
+    private final SortedMap<Long, BitSet> modifiedKeyGroupsByCheckpoint;
+
+    /** The location of all key-groups for the checkpoints that were written successfully. */
+    private final SortedMap<Long, MaterializedKeyGroups> materializedKeyGroups;
+
+    /** The id of the last completed checkpoint. Guarded by {@link #materializedKeyGroups}. */
+    private long lastCompletedCheckpointId;
+
+    IncrementalHeapSnapshotStrategy(
+            SnapshotStrategySynchronicityBehavior<K> snapshotStrategySynchronicityTrait,
+            Map<String, StateTable<K, ?, ?>> registeredKVStates,
+            Map<String, HeapPriorityQueueSnapshotRestoreWrapper> registeredPQStates,
+            StreamCompressionDecorator keyGroupCompressionDecorator,
+            LocalRecoveryConfig localRecoveryConfig,
+            KeyGroupRange keyGroupRange,
+            CloseableRegistry cancelStreamRegistry,
+            StateSerializerProvider<K> keySerializerProvider,
+            int maxIncrementalSnapshots) {
+        super(
+                "Heap backend incremental snapshot",
+                snapshotStrategySynchronicityTrait,
+                registeredKVStates,
+                registeredPQStates,
+                keyGroupCompressionDecorator,
+                localRecoveryConfig,
+                keyGroupRange,
+                cancelStreamRegistry,
+                keySerializerProvider);
+        checkArgument(
+                maxIncrementalSnapshots >= 0,
+                "The number of incremental snapshots must not be negative.");
+        this.backendUID = UUID.randomUUID();
+        this.maxIncrementalSnapshots = maxIncrementalSnapshots;
+        this.modifiedKeyGroupsByCheckpoint = new TreeMap<>();
+        this.materializedKeyGroups = new TreeMap<>();
+        this.lastCompletedCheckpointId = -1L;
+    }
+
+    @Nonnull
+    @Override
+    public RunnableFuture<SnapshotResult<KeyedStateHandle>> snapshot(
+            long checkpointId,
+            long timestamp,
+            @Nonnull CheckpointStreamFactory primaryStreamFactory,
+            @Nonnull CheckpointOptions checkpointOptions)
+            throws IOException {
+
+        if (checkpointOptions.getCheckpointType().isSavepoint()) {
+            // savepoints must be self-contained, the modifications are kept for the next checkpoint
+            return super.snapshot(checkpointId, timestamp, primaryStreamFactory, checkpointOptions);
+        }
+
+        final BitSet modifiedKeyGroups = collectAndResetModifiedKeyGroups();
+        modifiedKeyGroupsByCheckpoint.put(checkpointId, modifiedKeyGroups);
+
+        if (!hasRegisteredState()) {
+            return DoneFuture.of(SnapshotResult.empty());
+        }
+
+        final int numStates = registeredKVStates.size() + registeredPQStates.size();
+        final List<StateMetaInfoSnapshot> metaInfoSnapshots = new ArrayList<>(numStates);
+        final Map<StateUID, Integer> stateNamesToId = new HashMap<>(numStates);
+        final Map<StateUID, StateSnapshot> cowStateStableSnapshots = new HashMap<>(numStates);
+
+        final KeyedBackendSerializationProxy<K> serializationProxy =
+                snapshotAllStates(metaInfoSnapshots, stateNamesToId, cowStateStableSnapshots);
+
+        final Map<StateUID, Object> registeredMetaInfos = getRegisteredMetaInfos();
+
+        final long lastCompletedCheckpoint;
+        final MaterializedKeyGroups base;
+
+        // use the last completed checkpoint as the comparison base.
+        synchronized (materializedKeyGroups) {
+            lastCompletedCheckpoint = lastCompletedCheckpointId;
+            base = materializedKeyGroups.get(lastCompletedCheckpoint);
+        }
+
+        final BitSet keyGroupsToWrite;
+        final int numIncrementalSnapshots;
+        if (base == null
+                || base.numIncrementalSnapshots >= maxIncrementalSnapshots
+                || !base.hasSameMetaInfos(registeredMetaInfos)) {
+            keyGroupsToWrite = new BitSet();
+            keyGroupsToWrite.set(
+                    keyGroupRange.getStartKeyGroup(), keyGroupRange.getEndKeyGroup() + 1);
+            numIncrementalSnapshots = 0;
+        } else {
+            // all modifications since the snapshot of the base checkpoint
+            keyGroupsToWrite = new BitSet();
+            for (BitSet modified :
+                    modifiedKeyGroupsByCheckpoint.tailMap(lastCompletedCheckpoint + 1).values()) {
+                keyGroupsToWrite.or(modified);
+            }
+            numIncrementalSnapshots = base.numIncrementalSnapshots + 1;
+        }
+
+        LOG.trace(
+                "Taking {} snapshot for checkpoint {} based on last completed checkpoint {}, writing {} of {} key-groups.",
+                numIncrementalSnapshots > 0 ? "incremental" : "full",
+                checkpointId,
+                lastCompletedCheckpoint,
+                keyGroupsToWrite.cardinality(),
+                keyGroupRange.getNumberOfKeyGroups());
+
+        // --------------------------------------------------- this becomes the end of sync part
+
+        final AsyncSnapshotCallable<SnapshotResult<KeyedStateHandle>> asyncSnapshotCallable =
+                new AsyncSnapshotCallable<SnapshotResult<KeyedStateHandle>>() {
+                    @Override
+                    protected SnapshotResult<KeyedStateHandle> callInternal() throws Exception {
+
+                        final int numKeyGroups = keyGroupRange.getNumberOfKeyGroups();
+                        final StateHandleID[] keyGroupStateHandleIds =
+                                new StateHandleID[numKeyGroups];
+                        final long[] keyGroupRangeOffsets = new long[numKeyGroups];
+                        final Map<StateHandleID, StreamStateHandle> sharedState =
+                                new LinkedHashMap<>();
+
+                        if (!keyGroupsToWrite.isEmpty()) {
+                            final StateHandleID stateHandleId =
+                                    new StateHandleID(UUID.randomUUID().toString());
+                            final StreamStateHandle streamStateHandle =
+                                    writeKeyGroups(
+                                            keyGroupsToWrite,
+                                            stateHandleId,
+                                            keyGroupStateHandleIds,
+                                            keyGroupRangeOffsets);
+                            sharedState.put(stateHandleId, streamStateHandle);
+                        }
+
+                        for (int keyGroupPos = 0; keyGroupPos < numKeyGroups; ++keyGroupPos) {
+                            if (keyGroupStateHandleIds[keyGroupPos] == null) {
+                                // we introduce a placeholder state handle, that is replaced with
+                                // the original from the shared state registry (created from a
+                                // previous checkpoint)
+                                keyGroupStateHandleIds[keyGroupPos] =
+                                        base.keyGroupStateHandleIds[keyGroupPos];
+                                keyGroupRangeOffsets[keyGroupPos] =
+                                        base.keyGroupRangeOffsets[keyGroupPos];
+                                sharedState.putIfAbsent(
+                                        keyGroupStateHandleIds[keyGroupPos],
+                                        new PlaceholderStreamStateHandle());
+                            }
+                        }
+
+                        synchronized (materializedKeyGroups) {
+                            materializedKeyGroups.put(
+                                    checkpointId,
+                                    new MaterializedKeyGroups(
+                                            keyGroupStateHandleIds,
+                                            keyGroupRangeOffsets,
+                                            numIncrementalSnapshots,
+                                            registeredMetaInfos));
+                        }
+
+                        return SnapshotResult.of(
+                                new IncrementalKeyGroupsStateHandle(
+                                        backendUID,
+                                        checkpointId,
+                                        new KeyGroupRangeOffsets(
+                                                keyGroupRange, keyGroupRangeOffsets),
+                                        keyGroupStateHandleIds,
+                                        sharedState));
+                    }
+
+                    private StreamStateHandle writeKeyGroups(
+                            BitSet keyGroups,
+                            StateHandleID stateHandleId,
+                            StateHandleID[] keyGroupStateHandleIds,
+                            long[] keyGroupRangeOffsets)
+                            throws Exception {
+
+                        final CheckpointStreamWithResultProvider streamWithResultProvider =
+                                CheckpointStreamWithResultProvider.createSimpleStream(
+                                        CheckpointedStateScope.SHARED, primaryStreamFactory);
+
+                        snapshotCloseableRegistry.registerCloseable(streamWithResultProvider);
+
+                        final CheckpointStreamFactory.CheckpointStateOutputStream outStream =
+                                streamWithResultProvider.getCheckpointOutputStream();
+
+                        serializationProxy.write(new DataOutputViewStreamWrapper(outStream));
+
+                        for (int keyGroupId = keyGroups.nextSetBit(0);
+                                keyGroupId >= 0;
+                                keyGroupId = keyGroups.nextSetBit(keyGroupId + 1)) {
+                            int keyGroupPos = keyGroupId - keyGroupRange.getStartKeyGroup();
+                            keyGroupStateHandleIds[keyGroupPos] = stateHandleId;
+                            keyGroupRangeOffsets[keyGroupPos] = outStream.getPos();
+                            writeKeyGroup(
+                                    keyGroupId,
+                                    outStream,
+                                    cowStateStableSnapshots,
+                                    stateNamesToId);
+                        }
+
+                        if (snapshotCloseableRegistry.unregisterCloseable(
+                                streamWithResultProvider)) {
+                            return streamWithResultProvider
+                                    .closeAndFinalizeCheckpointStreamResult()
+                                    .getJobManagerOwnedSnapshot();
+                        } else {
+                            throw new IOException("Stream already unregistered.");
+                        }
+                    }
+
+                    @Override
+                    protected void cleanupProvidedResources() {
+                        for (StateSnapshot tableSnapshot : cowStateStableSnapshots.values()) {
+                            tableSnapshot.release();
+                        }
+                    }
+
+                    @Override
+                    protected void logAsyncSnapshotComplete(long startTime) {
+                        if (snapshotStrategySynchronicityTrait.isAsynchronous()) {
+                            logAsyncCompleted(primaryStreamFactory, startTime);
+                        }
+                    }
+                };
+
+        final FutureTask<SnapshotResult<KeyedStateHandle>> task =
+                asyncSnapshotCallable.toAsyncSnapshotFutureTask(cancelStreamRegistry);
+        finalizeSnapshotBeforeReturnHook(task);
+
+        return task;
+    }
+
+    @Override
+    public void notifyCheckpointComplete(long completedCheckpointId) {
+        synchronized (materializedKeyGroups) {
+            if (completedCheckpointId > lastCompletedCheckpointId) {
+                materializedKeyGroups
+                        .keySet()
+                        .removeIf(checkpointId -> checkpointId < completedCheckpointId);
+                lastCompletedCheckpointId = completedCheckpointId;
+            }
+        }
+        // modifications up to the completed checkpoint are contained in its streams
+        modifiedKeyGroupsByCheckpoint.headMap(completedCheckpointId + 1).clear();
+    }
+
+    @Override
+    public void notifyCheckpointAborted(long abortedCheckpointId) {
+        synchronized (materializedKeyGroups) {
+            materializedKeyGroups.remove(abortedCheckpointId);
+        }
+    }
+
+    private BitSet collectAndResetModifiedKeyGroups() {
+        final BitSet modifiedKeyGroups = new BitSet();
+        for (StateTable<K, ?, ?> stateTable : registeredKVStates.values()) {
+            stateTable.collectAndResetModifiedKeyGroups(modifiedKeyGroups);
+        }
+        for (HeapPriorityQueueSnapshotRestoreWrapper<?> priorityQueue :
+                registeredPQStates.values()) {
+            priorityQueue.collectAndResetModifiedKeyGroups(modifiedKeyGroups);
+        }
+        return modifiedKeyGroups;
+    }
+
+    /**
+     * Returns the meta infos of all registered states. A new meta info object is created whenever
+     * a state is registered or its serializers are updated, so comparing them by identity detects
+     * any change of the meta data that is written to the streams.
+     */
+    private Map<StateUID, Object> getRegisteredMetaInfos() {
+        final Map<StateUID, Object> metaInfos = new HashMap<>();
+        for (Map.Entry<String, StateTable<K, ?, ?>> kvState : registeredKVStates.entrySet()) {
+            metaInfos.put(
+                    StateUID.of(
+                            kvState.getKey(), StateMetaInfoSnapshot.BackendStateType.KEY_VALUE),
+                    kvState.getValue().getMetaInfo());
+        }
+        for (Map.Entry<String, HeapPriorityQueueSnapshotRestoreWrapper> pqState :
+                registeredPQStates.entrySet()) {
+            metaInfos.put(
+                    StateUID.of(
+                            pqState.getKey(),
+                            StateMetaInfoSnapshot.BackendStateType.PRIORITY_QUEUE),
+                    pqState.getValue().getMetaInfo());
+        }
+        return metaInfos;
+    }
+
+    /** The location of all key-groups of the backend in the streams of a checkpoint. */
+    private static final class MaterializedKeyGroups {
+
+        private final StateHandleID[] keyGroupStateHandleIds;
+
+        private final long[] keyGroupRangeOffsets;
+
+        /** The number of incremental snapshots since the last full snapshot. */
+        private final int numIncrementalSnapshots;
+
+        private final Map<StateUID, Object> registeredMetaInfos;
+
+        private MaterializedKeyGroups(
+                StateHandleID[] keyGroupStateHandleIds,
+                long[] keyGroupRangeOffsets,
+                int numIncrementalSnapshots,
+                Map<StateUID, Object> registeredMetaInfos) {
+            this.keyGroupStateHandleIds = keyGroupStateHandleIds;
+            this.keyGroupRangeOffsets = keyGroupRangeOffsets;
+            this.numIncrementalSnapshots = numIncrementalSnapshots;
+            this.registeredMetaInfos = registeredMetaInfos;
+        }
+
+        private boolean hasSameMetaInfos(@Nullable Map<StateUID, Object> metaInfos) {
+            if (metaInfos == null || metaInfos.size() != registeredMetaInfos.size()) {
+                return false;
+            }
+            for (Map.Entry<StateUID, Object> metaInfo : metaInfos.entrySet()) {
+                if (registeredMetaInfos.get(metaInfo.getKey()) != metaInfo.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
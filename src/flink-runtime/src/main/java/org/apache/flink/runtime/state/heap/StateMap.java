@@ -161,6 +161,23 @@ public abstract class StateMap<K, N, S> implements Iterable<StateEntry<K, N, S>>
     public void releaseSnapshot(
             StateMapSnapshot<K, N, S, ? extends StateMap<K, N, S>> snapshotToRelease) {}
 
+    // For incremental snapshots ------------------------------------------------------------------
+
+    /**
+     * Returns whether this {@link StateMap} was possibly modified since the last call to {@link
+     * #resetModified()}. Because state objects returned by {@link #get(Object, Object)} may be
+     * modified in place, retrieving a state counts as a modification. Maps that do not track
+     * modifications always return {@code true}.
+     *
+     * @return {@code true} if this map was possibly modified, {@code false} otherwise.
+     */
+    public boolean isModified() {
+        return true;
+    }
+
+    /** Starts a new interval for the modification tracking of {@link #isModified()}. */
+    public void resetModified() {}
+
     // For testing --------------------------------------------------------------------------------
 
     @VisibleForTesting
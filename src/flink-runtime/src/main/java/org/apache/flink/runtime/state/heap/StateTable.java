@@ -33,6 +33,7 @@ import org.apache.flink.util.Preconditions;
 import javax.annotation.Nonnull;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Objects;
@@ -315,6 +316,22 @@ public abstract class StateTable<K, N, S>
         }
     }
 
+    /**
+     * Adds the key-groups whose state maps were possibly modified since the previous call of this
+     * method to the given set and resets the modification tracking of all state maps.
+     *
+     * @param modifiedKeyGroups the set of key-group ids to which the modified key-groups are added.
+     */
+    public void collectAndResetModifiedKeyGroups(BitSet modifiedKeyGroups) {
+        for (int i = 0; i < keyGroupedStateMaps.length; i++) {
+            StateMap<K, N, S> stateMap = keyGroupedStateMaps[i];
+            if (stateMap.isModified()) {
+                modifiedKeyGroups.set(keyGroupOffset + i);
+                stateMap.resetModified();
+            }
+        }
+    }
+
     /** Translates a key-group id to the internal array offset. */
     private int indexToOffset(int index) {
         return index - keyGroupOffset;
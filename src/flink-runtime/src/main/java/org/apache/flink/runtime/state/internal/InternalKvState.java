@@ -23,6 +23,7 @@ import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.runtime.state.StateEntry;
 
 import java.util.Collection;
+import java.util.Map;
 
 /**
  * The {@code InternalKvState} is the root of the internal state type hierarchy, similar to the
@@ -106,6 +107,26 @@ public interface InternalKvState<K, N, V> extends State {
             final TypeSerializer<V> safeValueSerializer)
             throws Exception;
 
+    /**
+     * Returns the states of the given keys under the current namespace, without changing the
+     * current key of the backend. This is equivalent to setting each key as current key and reading
+     * the state, but allows a state backend to look up all keys in one batch instead of one access
+     * per key.
+     *
+     * <p>Keys without a state are not contained in the returned map. The default value of the state
+     * descriptor is not applied. The returned states are copied (or not) in the same way as the
+     * states returned by the regular read methods of the state.
+     *
+     * @param keys The keys to look up.
+     * @return The states of the given keys that have a state under the current namespace.
+     * @throws UnsupportedOperationException if the state does not support batched look ups.
+     * @throws Exception Exceptions during the look up are forwarded.
+     */
+    default Map<K, V> getAll(Collection<K> keys) throws Exception {
+        throw new UnsupportedOperationException(
+                "Batched look ups are not supported by " + getClass().getSimpleName() + '.');
+    }
+
     /**
      * Get global visitor of state entries.
      *
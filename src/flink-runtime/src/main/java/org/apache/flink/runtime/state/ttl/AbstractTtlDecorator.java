@@ -75,7 +75,8 @@ abstract class AbstractTtlDecorator<T> {
     }
 
     <V> TtlValue<V> rewrapWithNewTs(TtlValue<V> ttlValue) {
-        return wrapWithTs(ttlValue.getUserValue());
+        // does not touch the user value, which might not have been deserialized yet
+        return ttlValue.withLastAccessTimestamp(timeProvider.currentTimestamp());
     }
 
     <SE extends Throwable, CE extends Throwable, CLE extends Throwable, V>
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.ttl;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.util.FlinkRuntimeException;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+
+/**
+ * A {@link TtlValue} whose user value is kept in serialized form until it is accessed. Checking
+ * the expiration and renewing the timestamp only need the fixed-width timestamp prefix, so a value
+ * that expired or is only written back with a new timestamp is never deserialized and serialized
+ * again.
+ *
+ * <p>The serialized user value is shared between copies and must not be modified.
+ *
+ * @param <T> Type of the user value of state with TTL
+ */
+final class LazyTtlValue<T> extends TtlValue<T> {
+    private static final long serialVersionUID = 1L;
+
+    private final TypeSerializer<T> userValueSerializer;
+
+    /** The serialized user value, or null once it has been deserialized. */
+    @Nullable private byte[] serializedUserValue;
+
+    private final int offset;
+
+    private final int length;
+
+    @Nullable private T userValue;
+
+    LazyTtlValue(
+            TypeSerializer<T> userValueSerializer,
+            byte[] serializedUserValue,
+            int offset,
+            int length,
+            long lastAccessTimestamp) {
+        super(null, lastAccessTimestamp);
+        this.userValueSerializer = userValueSerializer;
+        this.serializedUserValue = serializedUserValue;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Nullable
+    @Override
+    public T getUserValue() {
+        if (serializedUserValue != null) {
+            try {
+                userValue =
+                        userValueSerializer.deserialize(
+                                new DataInputDeserializer(serializedUserValue, offset, length));
+            } catch (IOException e) {
+                throw new FlinkRuntimeException(
+                        "Failed to deserialize the user value of state with TTL.", e);
+            }
+            serializedUserValue = null;
+        }
+        return userValue;
+    }
+
+    /** Whether the user value is still in serialized form. */
+    boolean isSerialized() {
+        return serializedUserValue != null;
+    }
+
+    /** Writes the serialized user value, must only be called if {@link #isSerialized()}. */
+    void writeSerializedUserValue(DataOutputView target) throws IOException {
+        target.write(serializedUserValue, offset, length);
+    }
+
+    @Override
+    TtlValue<T> withLastAccessTimestamp(long newLastAccessTimestamp) {
+        return serializedUserValue != null
+                ? new LazyTtlValue<>(
+                        userValueSerializer,
+                        serializedUserValue,
+                        offset,
+                        length,
+                        newLastAccessTimestamp)
+                : new TtlValue<>(userValue, newLastAccessTimestamp);
+    }
+
+    private Object writeReplace() {
+        return new TtlValue<>(getUserValue(), getLastAccessTimestamp());
+    }
+}
@@ -32,7 +32,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.function.Function;
+import java.util.function.BiFunction;
 
 /**
  * This class wraps map state with TTL logic.
@@ -99,10 +99,16 @@ class TtlMapState<K, N, UK, UV>
 
     @Override
     public Iterable<Map.Entry<UK, UV>> entries() throws Exception {
-        return entries(e -> e);
+        return entries((e, v) -> new AbstractMap.SimpleEntry<>(e.getKey(), v.getUserValue()));
     }
 
-    private <R> Iterable<R> entries(Function<Map.Entry<UK, UV>, R> resultMapper) throws Exception {
+    /**
+     * Iterates over the unexpired entries. The result mapper receives the original entry and its
+     * unexpired value, so that keys and values can be returned without creating a user entry.
+     */
+    private <R> Iterable<R> entries(
+            BiFunction<Map.Entry<UK, TtlValue<UV>>, TtlValue<UV>, R> resultMapper)
+            throws Exception {
         accessCallback.run();
         Iterable<Map.Entry<UK, TtlValue<UV>>> withTs = original.entries();
         return () ->
@@ -112,12 +118,12 @@ class TtlMapState<K, N, UK, UV>
 
     @Override
     public Iterable<UK> keys() throws Exception {
-        return entries(Map.Entry::getKey);
+        return entries((e, v) -> e.getKey());
     }
 
     @Override
     public Iterable<UV> values() throws Exception {
-        return entries(Map.Entry::getValue);
+        return entries((e, v) -> v.getUserValue());
     }
 
     @Override
@@ -154,13 +160,14 @@ class TtlMapState<K, N, UK, UV>
 
     private class EntriesIterator<R> implements Iterator<R> {
         private final Iterator<Map.Entry<UK, TtlValue<UV>>> originalIterator;
-        private final Function<Map.Entry<UK, UV>, R> resultMapper;
-        private Map.Entry<UK, UV> nextUnexpired = null;
+        private final BiFunction<Map.Entry<UK, TtlValue<UV>>, TtlValue<UV>, R> resultMapper;
+        private Map.Entry<UK, TtlValue<UV>> nextEntry = null;
+        private TtlValue<UV> nextUnexpired = null;
         private boolean rightAfterNextIsCalled = false;
 
         private EntriesIterator(
                 @Nonnull Iterable<Map.Entry<UK, TtlValue<UV>>> withTs,
-                @Nonnull Function<Map.Entry<UK, UV>, R> resultMapper) {
+                @Nonnull BiFunction<Map.Entry<UK, TtlValue<UV>>, TtlValue<UV>, R> resultMapper) {
             this.originalIterator = withTs.iterator();
             this.resultMapper = resultMapper;
         }
@@ -169,7 +176,8 @@ class TtlMapState<K, N, UK, UV>
         public boolean hasNext() {
             rightAfterNextIsCalled = false;
             while (nextUnexpired == null && originalIterator.hasNext()) {
-                nextUnexpired = getUnexpiredAndUpdateOrCleanup(originalIterator.next());
+                nextEntry = originalIterator.next();
+                nextUnexpired = getUnexpiredAndUpdateOrCleanup(nextEntry);
             }
             return nextUnexpired != null;
         }
@@ -178,7 +186,8 @@ class TtlMapState<K, N, UK, UV>
         public R next() {
             if (hasNext()) {
                 rightAfterNextIsCalled = true;
-                R result = resultMapper.apply(nextUnexpired);
+                R result = resultMapper.apply(nextEntry, nextUnexpired);
+                nextEntry = null;
                 nextUnexpired = null;
                 return result;
             }
@@ -196,20 +205,13 @@ class TtlMapState<K, N, UK, UV>
             }
         }
 
-        private Map.Entry<UK, UV> getUnexpiredAndUpdateOrCleanup(Map.Entry<UK, TtlValue<UV>> e) {
-            TtlValue<UV> unexpiredValue;
+        private TtlValue<UV> getUnexpiredAndUpdateOrCleanup(Map.Entry<UK, TtlValue<UV>> e) {
             try {
-                unexpiredValue =
-                        getWrappedWithTtlCheckAndUpdate(
-                                e::getValue,
-                                v -> original.put(e.getKey(), v),
-                                originalIterator::remove);
+                return getWrappedWithTtlCheckAndUpdate(
+                        e::getValue, v -> original.put(e.getKey(), v), originalIterator::remove);
             } catch (Exception ex) {
                 throw new FlinkRuntimeException(ex);
             }
-            return unexpiredValue == null
-                    ? null
-                    : new AbstractMap.SimpleEntry<>(e.getKey(), unexpiredValue.getUserValue());
         }
     }
 }
@@ -37,6 +37,9 @@ import org.apache.flink.api.common.typeutils.base.ListSerializer;
 import org.apache.flink.api.common.typeutils.base.LongSerializer;
 import org.apache.flink.api.common.typeutils.base.MapSerializer;
 import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
 import org.apache.flink.runtime.state.KeyedStateBackend;
 import org.apache.flink.runtime.state.StateSnapshotTransformer.StateSnapshotTransformFactory;
 import org.apache.flink.runtime.state.internal.InternalKvState;
@@ -47,6 +50,8 @@ import org.apache.flink.util.function.SupplierWithException;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import java.io.EOFException;
+import java.io.IOException;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -264,6 +269,9 @@ public class TtlStateFactory<K, N, SV, TTLSV, S extends State, IS extends S> {
             implements TypeSerializerConfigSnapshot.SelfResolvingTypeSerializer<TtlValue<T>> {
         private static final long serialVersionUID = 131020282727167064L;
 
+        /** The length of the serialized timestamp, which precedes the serialized user value. */
+        public static final int TIMESTAMP_PREFIX_LENGTH = Long.BYTES;
+
         @SuppressWarnings("WeakerAccess")
         public TtlSerializer(
                 TypeSerializer<Long> timestampSerializer, TypeSerializer<T> userValueSerializer) {
@@ -312,6 +320,77 @@ public class TtlStateFactory<K, N, SV, TTLSV, S extends State, IS extends S> {
             return (TypeSerializer<T>) fieldSerializers[1];
         }
 
+        /**
+         * Whether the timestamp is serialized as a fixed-width prefix of {@link
+         * #TIMESTAMP_PREFIX_LENGTH} bytes, which allows to read it without the user value.
+         */
+        private boolean hasFixedWidthTimestamp() {
+            return getTimestampSerializer() instanceof LongSerializer;
+        }
+
+        @Override
+        public TtlValue<T> copy(TtlValue<T> from) {
+            Preconditions.checkNotNull(from);
+            if (isImmutableType()) {
+                return from;
+            }
+            if (from instanceof LazyTtlValue && ((LazyTtlValue<T>) from).isSerialized()) {
+                // the serialized user value is never modified and can be shared
+                return from.withLastAccessTimestamp(from.getLastAccessTimestamp());
+            }
+            return new TtlValue<>(
+                    getValueSerializer().copy(from.getUserValue()), from.getLastAccessTimestamp());
+        }
+
+        @Override
+        public void serialize(TtlValue<T> record, DataOutputView target) throws IOException {
+            if (!hasFixedWidthTimestamp()) {
+                super.serialize(record, target);
+                return;
+            }
+            Preconditions.checkNotNull(record);
+            target.writeLong(record.getLastAccessTimestamp());
+            if (record instanceof LazyTtlValue && ((LazyTtlValue<T>) record).isSerialized()) {
+                ((LazyTtlValue<T>) record).writeSerializedUserValue(target);
+            } else {
+                getValueSerializer().serialize(record.getUserValue(), target);
+            }
+        }
+
+        @Override
+        public TtlValue<T> deserialize(DataInputView source) throws IOException {
+            if (!hasFixedWidthTimestamp()) {
+                return super.deserialize(source);
+            }
+            long lastAccessTimestamp = source.readLong();
+            return new TtlValue<>(getValueSerializer().deserialize(source), lastAccessTimestamp);
+        }
+
+        /**
+         * Deserializes a value from the given bytes, but only reads the timestamp prefix. The user
+         * value is deserialized when it is first accessed, so that the expiration of a value can
+         * be checked without deserializing it. The bytes must not be modified afterwards.
+         */
+        public TtlValue<T> deserializeLazily(byte[] bytes, int offset, int length)
+                throws IOException {
+            if (!hasFixedWidthTimestamp()) {
+                return deserialize(new DataInputDeserializer(bytes, offset, length));
+            }
+            if (length < TIMESTAMP_PREFIX_LENGTH) {
+                throw new EOFException("The serialized value is shorter than its timestamp.");
+            }
+            long lastAccessTimestamp = 0L;
+            for (int i = 0; i < TIMESTAMP_PREFIX_LENGTH; i++) {
+                lastAccessTimestamp = (lastAccessTimestamp << 8) | (bytes[offset + i] & 0xFF);
+            }
+            return new LazyTtlValue<>(
+                    getValueSerializer(),
+                    bytes,
+                    offset + TIMESTAMP_PREFIX_LENGTH,
+                    length - TIMESTAMP_PREFIX_LENGTH,
+                    lastAccessTimestamp);
+        }
+
         @Override
         public TypeSerializerSnapshot<TtlValue<T>> snapshotConfiguration() {
             return new TtlSerializerSnapshot<>(this);
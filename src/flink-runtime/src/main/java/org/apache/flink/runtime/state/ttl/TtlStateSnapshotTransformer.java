@@ -55,7 +55,7 @@ abstract class TtlStateSnapshotTransformer<T> implements CollectionStateSnapshot
     }
 
     long deserializeTs(byte[] value) throws IOException {
-        div.setBuffer(value, 0, Long.BYTES);
+        div.setBuffer(value, 0, TtlStateFactory.TtlSerializer.TIMESTAMP_PREFIX_LENGTH);
         return LongSerializer.INSTANCE.deserialize(div);
     }
 
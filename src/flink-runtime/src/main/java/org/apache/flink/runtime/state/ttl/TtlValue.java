@@ -47,4 +47,9 @@ public class TtlValue<T> implements Serializable {
     public long getLastAccessTimestamp() {
         return lastAccessTimestamp;
     }
+
+    /** Returns a value with the same user value and the given last access timestamp. */
+    TtlValue<T> withLastAccessTimestamp(long newLastAccessTimestamp) {
+        return new TtlValue<>(userValue, newLastAccessTimestamp);
+    }
 }
@@ -24,6 +24,9 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * This class wraps value state with TTL logic.
@@ -51,6 +54,29 @@ class TtlValueState<K, N, T>
         original.update(wrapWithTs(value));
     }
 
+    /**
+     * Looks up the given keys in one batch. Expired values are not returned (unless configured) but
+     * are only cleaned up on the next regular access, because the batch does not change the current
+     * key. Refreshing the timestamp on read is not supported for the same reason.
+     */
+    @Override
+    public Map<K, T> getAll(Collection<K> keys) throws Exception {
+        if (updateTsOnRead) {
+            throw new UnsupportedOperationException(
+                    "Batched look ups are not supported if the state TTL is updated on read.");
+        }
+        accessCallback.run();
+        Map<K, TtlValue<T>> ttlValues = original.getAll(keys);
+        Map<K, T> result = new HashMap<>(ttlValues.size());
+        for (Map.Entry<K, TtlValue<T>> entry : ttlValues.entrySet()) {
+            T userValue = getUnexpired(entry.getValue());
+            if (userValue != null) {
+                result.put(entry.getKey(), userValue);
+            }
+        }
+        return result;
+    }
+
     @Nullable
     @Override
     public TtlValue<T> getUnexpiredOrNull(@Nonnull TtlValue<T> ttlValue) {
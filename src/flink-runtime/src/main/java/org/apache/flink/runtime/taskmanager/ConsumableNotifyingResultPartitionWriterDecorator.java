@@ -25,11 +25,14 @@ import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
 import org.apache.flink.runtime.io.network.partition.BufferAvailabilityListener;
 import org.apache.flink.runtime.io.network.partition.CheckpointedResultPartition;
 import org.apache.flink.runtime.io.network.partition.CheckpointedResultSubpartition;
+import org.apache.flink.runtime.io.network.partition.ObjectHandoverQueue;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionConsumableNotifier;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.partition.ResultSubpartitionView;
 import org.apache.flink.runtime.metrics.groups.TaskIOMetricGroup;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Collection;
@@ -127,6 +130,22 @@ public class ConsumableNotifyingResultPartitionWriterDecorator {
             partitionWriter.setup();
         }
 
+        @Nullable
+        @Override
+        public ObjectHandoverQueue getObjectHandoverQueue(int targetSubpartition) {
+            return partitionWriter.getObjectHandoverQueue(targetSubpartition);
+        }
+
+        @Override
+        public int getNumberOfQueuedBuffers(int targetSubpartition) {
+            return partitionWriter.getNumberOfQueuedBuffers(targetSubpartition);
+        }
+
+        @Override
+        public void reportFlushTimeout(int targetSubpartition, long timeoutMillis) {
+            partitionWriter.reportFlushTimeout(targetSubpartition, timeoutMillis);
+        }
+
         @Override
         public void emitRecord(ByteBuffer record, int targetSubpartition) throws IOException {
             partitionWriter.emitRecord(record, targetSubpartition);
@@ -67,6 +67,10 @@ public class NettyShuffleEnvironmentConfiguration {
 
     private final int sortShuffleMinParallelism;
 
+    private final boolean sortShuffleMergeRegions;
+
+    private final Duration buffersRebalanceInterval;
+
     private final Duration requestSegmentsTimeout;
 
     private final boolean isNetworkDetailedMetrics;
@@ -81,6 +85,8 @@ public class NettyShuffleEnvironmentConfiguration {
 
     private final String compressionCodec;
 
+    private final boolean adaptiveCompressionEnabled;
+
     private final int maxBuffersPerChannel;
 
     public NettyShuffleEnvironmentConfiguration(
@@ -97,9 +103,12 @@ public class NettyShuffleEnvironmentConfiguration {
             BoundedBlockingSubpartitionType blockingSubpartitionType,
             boolean blockingShuffleCompressionEnabled,
             String compressionCodec,
+            boolean adaptiveCompressionEnabled,
             int maxBuffersPerChannel,
             int sortShuffleMinBuffers,
-            int sortShuffleMinParallelism) {
+            int sortShuffleMinParallelism,
+            boolean sortShuffleMergeRegions,
+            Duration buffersRebalanceInterval) {
 
         this.numNetworkBuffers = numNetworkBuffers;
         this.networkBufferSize = networkBufferSize;
@@ -114,9 +123,12 @@ public class NettyShuffleEnvironmentConfiguration {
         this.blockingSubpartitionType = Preconditions.checkNotNull(blockingSubpartitionType);
         this.blockingShuffleCompressionEnabled = blockingShuffleCompressionEnabled;
         this.compressionCodec = Preconditions.checkNotNull(compressionCodec);
+        this.adaptiveCompressionEnabled = adaptiveCompressionEnabled;
         this.maxBuffersPerChannel = maxBuffersPerChannel;
         this.sortShuffleMinBuffers = sortShuffleMinBuffers;
         this.sortShuffleMinParallelism = sortShuffleMinParallelism;
+        this.sortShuffleMergeRegions = sortShuffleMergeRegions;
+        this.buffersRebalanceInterval = Preconditions.checkNotNull(buffersRebalanceInterval);
     }
 
     // ------------------------------------------------------------------------
@@ -153,6 +165,14 @@ public class NettyShuffleEnvironmentConfiguration {
         return sortShuffleMinParallelism;
     }
 
+    public boolean sortShuffleMergeRegions() {
+        return sortShuffleMergeRegions;
+    }
+
+    public Duration getBuffersRebalanceInterval() {
+        return buffersRebalanceInterval;
+    }
+
     public Duration getRequestSegmentsTimeout() {
         return requestSegmentsTimeout;
     }
@@ -185,6 +205,10 @@ public class NettyShuffleEnvironmentConfiguration {
         return compressionCodec;
     }
 
+    public boolean isAdaptiveCompressionEnabled() {
+        return adaptiveCompressionEnabled;
+    }
+
     public int getMaxBuffersPerChannel() {
         return maxBuffersPerChannel;
     }
@@ -246,6 +270,9 @@ public class NettyShuffleEnvironmentConfiguration {
         int sortShuffleMinParallelism =
                 configuration.getInteger(
                         NettyShuffleEnvironmentOptions.NETWORK_SORT_SHUFFLE_MIN_PARALLELISM);
+        boolean sortShuffleMergeRegions =
+                configuration.getBoolean(
+                        NettyShuffleEnvironmentOptions.NETWORK_SORT_SHUFFLE_MERGE_REGIONS);
 
         boolean isNetworkDetailedMetrics =
                 configuration.getBoolean(NettyShuffleEnvironmentOptions.NETWORK_DETAILED_METRICS);
@@ -266,6 +293,13 @@ public class NettyShuffleEnvironmentConfiguration {
                         NettyShuffleEnvironmentOptions.BLOCKING_SHUFFLE_COMPRESSION_ENABLED);
         String compressionCodec =
                 configuration.getString(NettyShuffleEnvironmentOptions.SHUFFLE_COMPRESSION_CODEC);
+        boolean adaptiveCompressionEnabled =
+                configuration.get(
+                        NettyShuffleEnvironmentOptions.BLOCKING_SHUFFLE_COMPRESSION_ADAPTIVE);
+
+        Duration buffersRebalanceInterval =
+                configuration.get(
+                        NettyShuffleEnvironmentOptions.NETWORK_BUFFERS_REBALANCE_INTERVAL);
 
         return new NettyShuffleEnvironmentConfiguration(
                 numberOfNetworkBuffers,
@@ -281,9 +315,12 @@ public class NettyShuffleEnvironmentConfiguration {
                 blockingSubpartitionType,
                 blockingShuffleCompressionEnabled,
                 compressionCodec,
+                adaptiveCompressionEnabled,
                 maxBuffersPerChannel,
                 sortShuffleMinBuffers,
-                sortShuffleMinParallelism);
+                sortShuffleMinParallelism,
+                sortShuffleMergeRegions,
+                buffersRebalanceInterval);
     }
 
     /**
@@ -395,6 +432,8 @@ public class NettyShuffleEnvironmentConfiguration {
                 return BoundedBlockingSubpartitionType.FILE_MMAP;
             case "file":
                 return BoundedBlockingSubpartitionType.FILE;
+            case "direct":
+                return BoundedBlockingSubpartitionType.FILE_DIRECT;
             default:
                 return BoundedBlockingSubpartitionType.AUTO;
         }
@@ -416,9 +455,12 @@ public class NettyShuffleEnvironmentConfiguration {
         result = 31 * result + Arrays.hashCode(tempDirs);
         result = 31 * result + (blockingShuffleCompressionEnabled ? 1 : 0);
         result = 31 * result + Objects.hashCode(compressionCodec);
+        result = 31 * result + (adaptiveCompressionEnabled ? 1 : 0);
         result = 31 * result + maxBuffersPerChannel;
         result = 31 * result + sortShuffleMinBuffers;
         result = 31 * result + sortShuffleMinParallelism;
+        result = 31 * result + (sortShuffleMergeRegions ? 1 : 0);
+        result = 31 * result + buffersRebalanceInterval.hashCode();
         return result;
     }
 
@@ -440,13 +482,16 @@ public class NettyShuffleEnvironmentConfiguration {
                     && this.floatingNetworkBuffersPerGate == that.floatingNetworkBuffersPerGate
                     && this.sortShuffleMinBuffers == that.sortShuffleMinBuffers
                     && this.sortShuffleMinParallelism == that.sortShuffleMinParallelism
+                    && this.sortShuffleMergeRegions == that.sortShuffleMergeRegions
                     && this.requestSegmentsTimeout.equals(that.requestSegmentsTimeout)
+                    && this.buffersRebalanceInterval.equals(that.buffersRebalanceInterval)
                     && (nettyConfig != null
                             ? nettyConfig.equals(that.nettyConfig)
                             : that.nettyConfig == null)
                     && Arrays.equals(this.tempDirs, that.tempDirs)
                     && this.blockingShuffleCompressionEnabled
                             == that.blockingShuffleCompressionEnabled
+                    && this.adaptiveCompressionEnabled == that.adaptiveCompressionEnabled
                     && this.maxBuffersPerChannel == that.maxBuffersPerChannel
                     && Objects.equals(this.compressionCodec, that.compressionCodec);
         }
@@ -477,12 +522,18 @@ public class NettyShuffleEnvironmentConfiguration {
                 + blockingShuffleCompressionEnabled
                 + ", compressionCodec="
                 + compressionCodec
+                + ", adaptiveCompressionEnabled="
+                + adaptiveCompressionEnabled
                 + ", maxBuffersPerChannel="
                 + maxBuffersPerChannel
                 + ", sortShuffleMinBuffers="
                 + sortShuffleMinBuffers
                 + ", sortShuffleMinParallelism="
                 + sortShuffleMinParallelism
+                + ", sortShuffleMergeRegions="
+                + sortShuffleMergeRegions
+                + ", buffersRebalanceInterval="
+                + buffersRebalanceInterval
                 + '}';
     }
 }
@@ -24,6 +24,7 @@ import org.apache.flink.runtime.checkpoint.MasterState;
 import org.apache.flink.runtime.checkpoint.OperatorState;
 import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
 import org.apache.flink.runtime.jobgraph.OperatorID;
+import org.apache.flink.runtime.state.IncrementalKeyGroupsStateHandle;
 import org.apache.flink.runtime.state.IncrementalRemoteKeyedStateHandle;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KeyGroupRangeOffsets;
@@ -133,7 +134,10 @@ public class CheckpointTestUtils {
                 }
 
                 if (hasKeyedStream) {
-                    state.setManagedKeyedState(createDummyKeyGroupStateHandle(random, basePath));
+                    state.setManagedKeyedState(
+                            isIncremental && !isSavepoint(basePath)
+                                    ? createDummyIncrementalKeyGroupsStateHandle(random)
+                                    : createDummyKeyGroupStateHandle(random, basePath));
                 }
 
                 state.setInputChannelState(
@@ -205,6 +209,22 @@ public class CheckpointTestUtils {
                 createDummyStreamStateHandle(rnd, null));
     }
 
+    public static IncrementalKeyGroupsStateHandle createDummyIncrementalKeyGroupsStateHandle(
+            Random rnd) {
+        StateHandleID first = new StateHandleID(createRandomUUID(rnd).toString());
+        StateHandleID second = new StateHandleID(createRandomUUID(rnd).toString());
+        Map<StateHandleID, StreamStateHandle> sharedState = new HashMap<>(2);
+        sharedState.put(first, createDummyStreamStateHandle(rnd, null));
+        sharedState.put(second, createDummyStreamStateHandle(rnd, null));
+        return new IncrementalKeyGroupsStateHandle(
+                createRandomUUID(rnd),
+                42L,
+                new KeyGroupRangeOffsets(
+                        1, 3, new long[] {rnd.nextInt(1024), rnd.nextInt(1024), 0L}),
+                new StateHandleID[] {first, second, first},
+                sharedState);
+    }
+
     public static Map<StateHandleID, StreamStateHandle> createRandomStateHandleMap(Random rnd) {
         final int size = rnd.nextInt(4);
         Map<StateHandleID, StreamStateHandle> result = new HashMap<>(size);
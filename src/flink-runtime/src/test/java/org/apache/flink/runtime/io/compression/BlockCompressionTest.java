@@ -41,6 +41,54 @@ public class BlockCompressionTest {
         runByteBufferTest(factory, true, 16);
     }
 
+    @Test
+    public void testSnappy() {
+        runAllTests(new SnappyBlockCompressionFactory());
+    }
+
+    @Test
+    public void testZstd() {
+        runAllTests(new ZstdBlockCompressionFactory());
+    }
+
+    @Test(expected = DataCorruptionException.class)
+    public void testCorruptedSnappyInput() {
+        runCorruptedInputTest(new SnappyBlockCompressionFactory());
+    }
+
+    @Test(expected = DataCorruptionException.class)
+    public void testCorruptedZstdInput() {
+        runCorruptedInputTest(new ZstdBlockCompressionFactory());
+    }
+
+    private void runAllTests(BlockCompressionFactory factory) {
+        runArrayTest(factory, 32768);
+        runArrayTest(factory, 16);
+
+        runByteBufferTest(factory, false, 32768);
+        runByteBufferTest(factory, false, 16);
+        runByteBufferTest(factory, true, 32768);
+        runByteBufferTest(factory, true, 16);
+    }
+
+    private void runCorruptedInputTest(BlockCompressionFactory factory) {
+        int originalLen = 32768;
+        byte[] data = new byte[originalLen];
+        for (int i = 0; i < originalLen; i++) {
+            data[i] = (byte) i;
+        }
+
+        BlockCompressor compressor = factory.getCompressor();
+        byte[] compressedData = new byte[compressor.getMaxCompressedSize(originalLen)];
+        int compressedLen = compressor.compress(data, 0, originalLen, compressedData, 0);
+
+        // claim a larger original length than the compressed data actually holds
+        compressedData[4]++;
+        factory.getDecompressor()
+                .decompress(
+                        compressedData, 0, compressedLen, new byte[originalLen + 1], 0);
+    }
+
     private void runArrayTest(BlockCompressionFactory factory, int originalLen) {
         BlockCompressor compressor = factory.getCompressor();
         BlockDecompressor decompressor = factory.getDecompressor();
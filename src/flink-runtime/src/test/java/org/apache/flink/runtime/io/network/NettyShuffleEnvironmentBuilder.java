@@ -58,12 +58,18 @@ public class NettyShuffleEnvironmentBuilder {
 
     private int sortShuffleMinParallelism = Integer.MAX_VALUE;
 
+    private boolean sortShuffleMergeRegions = false;
+
+    private Duration buffersRebalanceInterval = Duration.ZERO;
+
     private int maxBuffersPerChannel = Integer.MAX_VALUE;
 
     private boolean blockingShuffleCompressionEnabled = false;
 
     private String compressionCodec = "LZ4";
 
+    private boolean adaptiveCompressionEnabled = false;
+
     private ResourceID taskManagerLocation = ResourceID.generate();
 
     private NettyConfig nettyConfig;
@@ -130,6 +136,18 @@ public class NettyShuffleEnvironmentBuilder {
         return this;
     }
 
+    public NettyShuffleEnvironmentBuilder setSortShuffleMergeRegions(
+            boolean sortShuffleMergeRegions) {
+        this.sortShuffleMergeRegions = sortShuffleMergeRegions;
+        return this;
+    }
+
+    public NettyShuffleEnvironmentBuilder setBuffersRebalanceInterval(
+            Duration buffersRebalanceInterval) {
+        this.buffersRebalanceInterval = buffersRebalanceInterval;
+        return this;
+    }
+
     public NettyShuffleEnvironmentBuilder setBlockingShuffleCompressionEnabled(
             boolean blockingShuffleCompressionEnabled) {
         this.blockingShuffleCompressionEnabled = blockingShuffleCompressionEnabled;
@@ -141,6 +159,12 @@ public class NettyShuffleEnvironmentBuilder {
         return this;
     }
 
+    public NettyShuffleEnvironmentBuilder setAdaptiveCompressionEnabled(
+            boolean adaptiveCompressionEnabled) {
+        this.adaptiveCompressionEnabled = adaptiveCompressionEnabled;
+        return this;
+    }
+
     public NettyShuffleEnvironmentBuilder setNettyConfig(NettyConfig nettyConfig) {
         this.nettyConfig = nettyConfig;
         return this;
@@ -178,9 +202,12 @@ public class NettyShuffleEnvironmentBuilder {
                         BoundedBlockingSubpartitionType.AUTO,
                         blockingShuffleCompressionEnabled,
                         compressionCodec,
+                        adaptiveCompressionEnabled,
                         maxBuffersPerChannel,
                         sortShuffleMinBuffers,
-                        sortShuffleMinParallelism),
+                        sortShuffleMinParallelism,
+                        sortShuffleMergeRegions,
+                        buffersRebalanceInterval),
                 taskManagerLocation,
                 new TaskEventDispatcher(),
                 resultPartitionManager,
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.network.api.writer;
+
+import org.apache.flink.runtime.io.network.partition.MockResultPartitionWriter;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/** Tests for the {@link AdaptiveFlushScheduler}. */
+public class AdaptiveFlushSchedulerTest extends TestLogger {
+
+    private static final long LATENCY_TARGET = 100;
+
+    private static final long TICK_INTERVAL = LATENCY_TARGET / 4;
+
+    @Test
+    public void testFlushTimeoutDependsOnArrivalRate() {
+        assertEquals(
+                TICK_INTERVAL,
+                AdaptiveFlushScheduler.computeFlushTimeout(LATENCY_TARGET, TICK_INTERVAL, 0));
+        assertEquals(
+                TICK_INTERVAL,
+                AdaptiveFlushScheduler.computeFlushTimeout(LATENCY_TARGET, TICK_INTERVAL, 0.001));
+        assertEquals(
+                LATENCY_TARGET - 10,
+                AdaptiveFlushScheduler.computeFlushTimeout(LATENCY_TARGET, TICK_INTERVAL, 0.1));
+        assertEquals(
+                LATENCY_TARGET - 1,
+                AdaptiveFlushScheduler.computeFlushTimeout(LATENCY_TARGET, TICK_INTERVAL, 1));
+    }
+
+    @Test
+    public void testSparseSubpartitionIsFlushedAtNextTick() {
+        FlushRecordingPartitionWriter partition = new FlushRecordingPartitionWriter(2);
+        AdaptiveFlushScheduler scheduler = new AdaptiveFlushScheduler(partition, LATENCY_TARGET);
+        assertEquals(TICK_INTERVAL, scheduler.getTickInterval());
+        assertEquals(LATENCY_TARGET, partition.flushTimeouts[0]);
+
+        scheduler.onTick(new int[] {1, 0});
+
+        assertEquals(Collections.singletonList(0), partition.flushes);
+        assertEquals(TICK_INTERVAL, partition.flushTimeouts[0]);
+        assertEquals(TICK_INTERVAL, partition.flushTimeouts[1]);
+    }
+
+    @Test
+    public void testBusySubpartitionWaitsForBuffer() {
+        FlushRecordingPartitionWriter partition = new FlushRecordingPartitionWriter(1);
+        AdaptiveFlushScheduler scheduler = new AdaptiveFlushScheduler(partition, LATENCY_TARGET);
+
+        int[] numRecords = new int[1];
+        for (int tick = 1; tick <= 2; tick++) {
+            numRecords[0] += 25;
+            scheduler.onTick(numRecords);
+            assertEquals(Collections.emptyList(), partition.flushes);
+        }
+
+        numRecords[0] += 25;
+        scheduler.onTick(numRecords);
+        assertEquals(Collections.singletonList(0), partition.flushes);
+    }
+
+    @Test
+    public void testBackPressuredSubpartitionIsFlushedAtLatencyTarget() {
+        FlushRecordingPartitionWriter partition = new FlushRecordingPartitionWriter(1);
+        partition.numQueuedBuffers[0] = 2;
+        AdaptiveFlushScheduler scheduler = new AdaptiveFlushScheduler(partition, LATENCY_TARGET);
+
+        int[] numRecords = {1};
+        for (int tick = 1; tick <= 3; tick++) {
+            scheduler.onTick(numRecords);
+            assertEquals(Collections.emptyList(), partition.flushes);
+        }
+
+        scheduler.onTick(numRecords);
+        assertEquals(Collections.singletonList(0), partition.flushes);
+
+        // nothing is flushed without new records
+        scheduler.onTick(numRecords);
+        assertEquals(Collections.singletonList(0), partition.flushes);
+    }
+
+    private static class FlushRecordingPartitionWriter extends MockResultPartitionWriter {
+
+        private final int numSubpartitions;
+
+        private final int[] numQueuedBuffers;
+
+        private final long[] flushTimeouts;
+
+        private final List<Integer> flushes = new ArrayList<>();
+
+        FlushRecordingPartitionWriter(int numSubpartitions) {
+            this.numSubpartitions = numSubpartitions;
+            this.numQueuedBuffers = new int[numSubpartitions];
+            this.flushTimeouts = new long[numSubpartitions];
+            Arrays.fill(flushTimeouts, -1L);
+        }
+
+        @Override
+        public int getNumberOfSubpartitions() {
+            return numSubpartitions;
+        }
+
+        @Override
+        public int getNumberOfQueuedBuffers(int targetSubpartition) {
+            return numQueuedBuffers[targetSubpartition];
+        }
+
+        @Override
+        public void reportFlushTimeout(int targetSubpartition, long timeoutMillis) {
+            flushTimeouts[targetSubpartition] = timeoutMillis;
+        }
+
+        @Override
+        public void flush(int subpartitionIndex) {
+            flushes.add(subpartitionIndex);
+        }
+    }
+}
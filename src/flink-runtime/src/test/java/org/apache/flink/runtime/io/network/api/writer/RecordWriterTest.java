@@ -37,6 +37,7 @@ import org.apache.flink.runtime.io.network.buffer.BufferBuilderTestUtils;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
 import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
 import org.apache.flink.runtime.io.network.partition.NoOpBufferAvailablityListener;
+import org.apache.flink.runtime.io.network.partition.ObjectHandoverQueue;
 import org.apache.flink.runtime.io.network.partition.ResultPartition;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionBuilder;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
@@ -58,12 +59,16 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 
 import static org.apache.flink.runtime.io.network.partition.PartitionTestUtils.createPartition;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 
 /** Tests for the {@link RecordWriter}. */
@@ -328,6 +333,55 @@ public class RecordWriterTest {
         }
     }
 
+    /**
+     * Tests that records are handed over as objects only to the subpartitions whose consumer
+     * requested it, and that placeholders are written in their place.
+     */
+    @Test
+    public void testObjectHandover() throws Exception {
+        ResultPartition partition = createResultPartition(4096, 2);
+        RecordWriter<IntValue> writer = new RecordWriterBuilder<IntValue>().build(partition);
+        writer.enableObjectHandover(record -> new IntValue(record.getValue()), new IntValue(-1));
+
+        ResultSubpartitionView localView =
+                partition.createSubpartitionView(0, new NoOpBufferAvailablityListener());
+        ObjectHandoverQueue queue = localView.requestObjectHandover();
+        assertNotNull(queue);
+        ResultSubpartitionView remoteView =
+                partition.createSubpartitionView(1, new NoOpBufferAvailablityListener());
+
+        IntValue[] records = new IntValue[4];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = new IntValue(i);
+            writer.emit(records[i], i % 2);
+        }
+        writer.flushAll();
+
+        assertEquals(2, queue.size());
+        for (int i = 0; i < records.length; i += 2) {
+            Object handedOver = queue.take();
+            assertEquals(records[i], handedOver);
+            assertNotSame(records[i], handedOver);
+        }
+
+        assertEquals(Arrays.asList(-1, -1), deserializeIntValues(localView));
+        assertEquals(Arrays.asList(1, 3), deserializeIntValues(remoteView));
+    }
+
+    private List<Integer> deserializeIntValues(ResultSubpartitionView view) throws Exception {
+        RecordDeserializer<IntValue> deserializer =
+                new SpillingAdaptiveSpanningRecordDeserializer<>(
+                        new String[] {tempFolder.getRoot().getAbsolutePath()});
+        deserializer.setNextBuffer(view.getNextBuffer().buffer());
+
+        List<Integer> values = new ArrayList<>();
+        IntValue value = new IntValue();
+        while (deserializer.getNextRecord(value).isFullRecord()) {
+            values.add(value.getValue());
+        }
+        return values;
+    }
+
     private void verifyBroadcastBufferOrEventIndependence(boolean broadcastEvent) throws Exception {
         ResultPartition partition = createResultPartition(4096, 2);
         RecordWriter<IntValue> writer = createRecordWriter(partition);
@@ -68,6 +68,18 @@ public class BufferCompressionTest {
                     {false, "LZ4", true, false},
                     {false, "LZ4", false, true},
                     {false, "LZ4", false, false},
+                    {true, "SNAPPY", true, false},
+                    {true, "SNAPPY", false, true},
+                    {true, "SNAPPY", false, false},
+                    {false, "SNAPPY", true, false},
+                    {false, "SNAPPY", false, true},
+                    {false, "SNAPPY", false, false},
+                    {true, "ZSTD", true, false},
+                    {true, "ZSTD", false, true},
+                    {true, "ZSTD", false, false},
+                    {false, "ZSTD", true, false},
+                    {false, "ZSTD", false, true},
+                    {false, "ZSTD", false, false},
                 });
     }
 
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.network.buffer;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.apache.flink.runtime.io.network.buffer.BufferCompressor.ADAPTIVE_SAMPLE_BUFFERS;
+import static org.apache.flink.runtime.io.network.buffer.BufferCompressor.ADAPTIVE_SKIP_BUFFERS;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for the adaptive mode of {@link BufferCompressor}. */
+public class BufferCompressorTest {
+
+    private static final int BUFFER_SIZE = 32 * 1024;
+
+    @Test
+    public void testIncompressibleDataIsSkipped() {
+        BufferCompressor compressor = new BufferCompressor(BUFFER_SIZE, "LZ4", true);
+        Buffer incompressible = createRandomBuffer(new Random(42));
+
+        // the sampled buffers are still compressed, but none of them gets smaller
+        for (int i = 0; i < ADAPTIVE_SAMPLE_BUFFERS; i++) {
+            assertFalse(compressor.compressToIntermediateBuffer(incompressible).isCompressed());
+        }
+
+        // compressible data is passed through as well until the skipped period ends
+        Buffer compressible = createCompressibleBuffer();
+        for (int i = 0; i < ADAPTIVE_SKIP_BUFFERS; i++) {
+            assertFalse(compressor.compressToIntermediateBuffer(compressible).isCompressed());
+        }
+
+        Buffer compressed = compressor.compressToIntermediateBuffer(compressible);
+        assertTrue(compressed.isCompressed());
+        compressed.recycleBuffer();
+    }
+
+    @Test
+    public void testCompressibleDataIsAlwaysCompressed() {
+        BufferCompressor compressor = new BufferCompressor(BUFFER_SIZE, "LZ4", true);
+        Buffer compressible = createCompressibleBuffer();
+
+        for (int i = 0; i < 2 * ADAPTIVE_SAMPLE_BUFFERS + 1; i++) {
+            Buffer compressed = compressor.compressToIntermediateBuffer(compressible);
+            assertTrue(compressed.isCompressed());
+            compressed.recycleBuffer();
+        }
+    }
+
+    @Test
+    public void testNonAdaptiveCompressorNeverSkips() {
+        BufferCompressor compressor = new BufferCompressor(BUFFER_SIZE, "LZ4");
+        Buffer incompressible = createRandomBuffer(new Random(42));
+        for (int i = 0; i < ADAPTIVE_SAMPLE_BUFFERS; i++) {
+            compressor.compressToIntermediateBuffer(incompressible);
+        }
+
+        Buffer compressed = compressor.compressToIntermediateBuffer(createCompressibleBuffer());
+        assertTrue(compressed.isCompressed());
+        compressed.recycleBuffer();
+    }
+
+    private static Buffer createRandomBuffer(Random random) {
+        byte[] bytes = new byte[BUFFER_SIZE];
+        random.nextBytes(bytes);
+        return createBuffer(MemorySegmentFactory.wrap(bytes));
+    }
+
+    private static Buffer createCompressibleBuffer() {
+        MemorySegment segment = MemorySegmentFactory.allocateUnpooledSegment(BUFFER_SIZE);
+        for (int i = 0; i < BUFFER_SIZE / 8; ++i) {
+            segment.putLongLittleEndian(8 * i, i);
+        }
+        return createBuffer(segment);
+    }
+
+    private static Buffer createBuffer(MemorySegment segment) {
+        NetworkBuffer buffer = new NetworkBuffer(segment, FreeingBufferRecycler.INSTANCE);
+        buffer.setSize(BUFFER_SIZE);
+        return buffer;
+    }
+}
@@ -158,6 +158,46 @@ public class NetworkBufferPoolTest extends TestLogger {
         assertThat(globalPool.getUsedMemory(), is(0L));
     }
 
+    @Test
+    public void testRebalanceBuffersTowardsStarvedPool() throws IOException {
+        NetworkBufferPool globalPool = new NetworkBufferPool(30, 128);
+        BufferPool starvedPool = globalPool.createBufferPool(5, Integer.MAX_VALUE);
+        BufferPool idlePool = globalPool.createBufferPool(5, Integer.MAX_VALUE);
+        assertEquals(15, starvedPool.getNumBuffers());
+        assertEquals(15, idlePool.getNumBuffers());
+
+        // nothing changes without starvation
+        globalPool.rebalanceBuffers();
+        assertEquals(15, starvedPool.getNumBuffers());
+
+        List<Buffer> buffers = new ArrayList<>();
+        Buffer buffer;
+        while ((buffer = starvedPool.requestBuffer()) != null) {
+            buffers.add(buffer);
+        }
+        assertTrue(starvedPool.addBufferListener(new NoOpBufferListener()));
+
+        // the excess buffers are shared with weights 4:1, the required ones stay
+        globalPool.rebalanceBuffers();
+        assertTrue(globalPool.isStarved(starvedPool));
+        assertEquals(5 + 16, starvedPool.getNumBuffers());
+        assertEquals(5 + 4, idlePool.getNumBuffers());
+
+        // a starved pool keeps its share for a few rounds without starvation
+        globalPool.rebalanceBuffers();
+        globalPool.rebalanceBuffers();
+        assertEquals(5 + 16, starvedPool.getNumBuffers());
+        globalPool.rebalanceBuffers();
+        assertFalse(globalPool.isStarved(starvedPool));
+        assertEquals(15, starvedPool.getNumBuffers());
+        assertEquals(15, idlePool.getNumBuffers());
+
+        buffers.forEach(Buffer::recycleBuffer);
+        starvedPool.lazyDestroy();
+        idlePool.lazyDestroy();
+        globalPool.destroy();
+    }
+
     @Test
     public void testDestroyAll() throws IOException {
         NetworkBufferPool globalPool = new NetworkBufferPool(10, 128);
@@ -706,4 +746,15 @@ public class NetworkBufferPoolTest extends TestLogger {
             globalPool.destroy();
         }
     }
+
+    private static class NoOpBufferListener implements BufferListener {
+
+        @Override
+        public NotificationResult notifyBufferAvailable(Buffer buffer) {
+            return NotificationResult.BUFFER_NOT_USED;
+        }
+
+        @Override
+        public void notifyBufferDestroyed() {}
+    }
 }
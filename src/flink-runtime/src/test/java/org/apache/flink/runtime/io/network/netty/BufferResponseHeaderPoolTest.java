@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import org.apache.flink.util.TestLogger;
+
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBuf;
+import org.apache.flink.shaded.netty4.io.netty.buffer.ByteBufAllocator;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link BufferResponseHeaderPool}. */
+public class BufferResponseHeaderPoolTest extends TestLogger {
+
+    @Test
+    public void testHeadersAreRecycledToThePool() {
+        BufferResponseHeaderPool pool = new BufferResponseHeaderPool();
+
+        ByteBuf header = pool.requestHeader(ByteBufAllocator.DEFAULT);
+        assertNotNull(header);
+        assertTrue(header.isDirect());
+        assertEquals(BufferResponseHeaderPool.HEADER_LENGTH, header.capacity());
+        assertEquals(BufferResponseHeaderPool.HEADERS_PER_SLAB, pool.getNumberOfHeaders());
+        assertEquals(
+                BufferResponseHeaderPool.HEADERS_PER_SLAB - 1, pool.getNumberOfAvailableHeaders());
+
+        header.release();
+        assertEquals(BufferResponseHeaderPool.HEADERS_PER_SLAB, pool.getNumberOfAvailableHeaders());
+    }
+
+    @Test
+    public void testNumberOfHeadersIsBounded() {
+        BufferResponseHeaderPool pool = new BufferResponseHeaderPool();
+
+        List<ByteBuf> headers = new ArrayList<>();
+        for (int i = 0; i < BufferResponseHeaderPool.MAX_HEADERS; i++) {
+            ByteBuf header = pool.requestHeader(ByteBufAllocator.DEFAULT);
+            assertNotNull(header);
+            headers.add(header);
+        }
+        assertNull(pool.requestHeader(ByteBufAllocator.DEFAULT));
+
+        headers.remove(0).release();
+        ByteBuf header = pool.requestHeader(ByteBufAllocator.DEFAULT);
+        assertNotNull(header);
+        headers.add(header);
+
+        for (ByteBuf buffer : headers) {
+            buffer.release();
+        }
+        assertEquals(BufferResponseHeaderPool.MAX_HEADERS, pool.getNumberOfHeaders());
+        assertEquals(BufferResponseHeaderPool.MAX_HEADERS, pool.getNumberOfAvailableHeaders());
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.network.TestingPartitionRequestClient;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.NetworkBuffer;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
+import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
+import org.apache.flink.runtime.io.network.partition.consumer.RemoteInputChannel;
+import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
+
+import org.apache.flink.shaded.netty4.io.netty.channel.embedded.EmbeddedChannel;
+
+import java.util.Optional;
+
+import static org.apache.flink.runtime.io.network.netty.NettyMessage.BufferResponse;
+import static org.apache.flink.runtime.io.network.partition.InputChannelTestUtils.createRemoteInputChannel;
+import static org.apache.flink.runtime.io.network.partition.InputChannelTestUtils.createSingleInputGate;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Benchmark of the encoding and decoding throughput of {@link BufferResponse}s, executed by the
+ * external <a href="https://github.com/dataArtisans/flink-benchmarks">flink-benchmarks</a>
+ * project.
+ *
+ * <p>The responses are encoded by the {@link NettyMessage.NettyMessageEncoder} of a server side
+ * channel and the resulting buffers are decoded by the {@link NettyMessageClientDecoderDelegate}
+ * of a client side channel into the buffers of a remote input channel, without any network in
+ * between.
+ */
+public class NettyMessageSerializationBenchmark {
+
+    private static final int NUM_EXCLUSIVE_BUFFERS = 2;
+
+    private static final int NUM_FLOATING_BUFFERS = 2;
+
+    private EmbeddedChannel serverChannel;
+
+    private EmbeddedChannel clientChannel;
+
+    private NetworkBufferPool networkBufferPool;
+
+    private SingleInputGate inputGate;
+
+    private RemoteInputChannel inputChannel;
+
+    private MemorySegment data;
+
+    private int sequenceNumber;
+
+    /**
+     * Encodes and decodes the given number of buffer responses, one after the other.
+     *
+     * @param numMessages number of buffer responses to pass through the encoder and decoder
+     */
+    public void executeBenchmark(long numMessages) throws Exception {
+        for (long i = 0; i < numMessages; i++) {
+            Buffer buffer = new NetworkBuffer(data, ignored -> {}, Buffer.DataType.DATA_BUFFER);
+            buffer.setSize(data.size());
+            serverChannel.writeOutbound(
+                    new BufferResponse(
+                            buffer, sequenceNumber++, inputChannel.getInputChannelId(), 0));
+
+            Object encoded;
+            while ((encoded = serverChannel.readOutbound()) != null) {
+                clientChannel.writeInbound(encoded);
+            }
+
+            Optional<BufferOrEvent> received = inputGate.pollNext();
+            checkState(received.isPresent(), "The buffer response was not received.");
+            received.get().getBuffer().recycleBuffer();
+        }
+    }
+
+    /**
+     * Initializes the benchmark with the given parameters.
+     *
+     * @param bufferSize size of the data buffer of each buffer response
+     */
+    public void setUp(int bufferSize) throws Exception {
+        serverChannel = new EmbeddedChannel(new NettyMessage.NettyMessageEncoder());
+
+        CreditBasedPartitionRequestClientHandler handler =
+                new CreditBasedPartitionRequestClientHandler();
+        clientChannel =
+                new EmbeddedChannel(new NettyMessageClientDecoderDelegate(handler), handler);
+
+        networkBufferPool =
+                new NetworkBufferPool(NUM_EXCLUSIVE_BUFFERS + NUM_FLOATING_BUFFERS, bufferSize);
+        inputGate = createSingleInputGate(1, networkBufferPool);
+        inputGate.setBufferPool(
+                networkBufferPool.createBufferPool(NUM_FLOATING_BUFFERS, NUM_FLOATING_BUFFERS));
+        inputChannel =
+                createRemoteInputChannel(
+                        inputGate, new TestingPartitionRequestClient(), NUM_EXCLUSIVE_BUFFERS);
+        inputGate.setInputChannels(inputChannel);
+        inputGate.setupChannels();
+        inputChannel.requestSubpartition(0);
+        handler.addInputChannel(inputChannel);
+
+        data = MemorySegmentFactory.allocateUnpooledOffHeapMemory(bufferSize);
+        sequenceNumber = 0;
+    }
+
+    public void tearDown() throws Exception {
+        serverChannel.close();
+        clientChannel.close();
+        inputGate.close();
+        networkBufferPool.destroyAllBufferPools();
+        networkBufferPool.destroy();
+    }
+}
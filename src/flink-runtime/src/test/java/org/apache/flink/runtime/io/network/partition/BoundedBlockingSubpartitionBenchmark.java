@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.disk.FileChannelManager;
+import org.apache.flink.runtime.io.disk.FileChannelManagerImpl;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartition.BufferAndBacklog;
+import org.apache.flink.runtime.util.EnvironmentInformation;
+
+import java.io.IOException;
+
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Benchmark writing and reading a large {@link BoundedBlockingSubpartition} of the different
+ * {@link BoundedBlockingSubpartitionType}s, executed by the external <a
+ * href="https://github.com/dataArtisans/flink-benchmarks">flink-benchmarks</a> project.
+ *
+ * <p>The subpartitions are created as if SSL was enabled, so that all types actually read the
+ * data into memory, instead of handing out file regions for zero-copy transfers.
+ */
+public class BoundedBlockingSubpartitionBenchmark {
+
+    private BoundedBlockingSubpartitionType type;
+
+    private int bufferSize;
+
+    private FileChannelManager fileChannelManager;
+
+    private MemorySegment memory;
+
+    /**
+     * Writes the given number of bytes into a new subpartition and reads them back.
+     *
+     * @param numBytes number of bytes to write and read, excluding the buffer headers
+     */
+    public void executeBenchmark(long numBytes) throws Exception {
+        final BoundedBlockingSubpartition subpartition = createSubpartition();
+
+        for (long remaining = numBytes; remaining > 0; remaining -= bufferSize) {
+            final int size = (int) Math.min(bufferSize, remaining);
+            subpartition.add(
+                    new BufferConsumer(memory, (ignored) -> {}, size, Buffer.DataType.DATA_BUFFER));
+            subpartition.flush();
+        }
+        subpartition.finish();
+
+        final ResultSubpartitionView reader = subpartition.createReadView(() -> {});
+        long numBytesRead = 0;
+        BufferAndBacklog next;
+        while ((next = reader.getNextBuffer()) != null) {
+            final Buffer buffer = next.buffer();
+            if (buffer.isBuffer()) {
+                numBytesRead += buffer.readableBytes();
+            }
+            buffer.recycleBuffer();
+        }
+        checkState(
+                numBytesRead == numBytes, "Read %s bytes instead of %s.", numBytesRead, numBytes);
+
+        reader.releaseAllResources();
+        subpartition.release();
+    }
+
+    /**
+     * Initializes the benchmark with the given parameters.
+     *
+     * @param type the type of the subpartition to write and read
+     * @param bufferSize size of the written and read network buffers
+     */
+    public void setUp(BoundedBlockingSubpartitionType type, int bufferSize) {
+        this.type = type;
+        this.bufferSize = bufferSize;
+        this.fileChannelManager =
+                new FileChannelManagerImpl(
+                        new String[] {EnvironmentInformation.getTemporaryFileDirectory()},
+                        "benchmark");
+        this.memory = MemorySegmentFactory.allocateUnpooledOffHeapMemory(bufferSize);
+    }
+
+    public void tearDown() throws Exception {
+        fileChannelManager.close();
+    }
+
+    private BoundedBlockingSubpartition createSubpartition() throws IOException {
+        return type.create(
+                0,
+                (BoundedBlockingResultPartition)
+                        PartitionTestUtils.createPartition(
+                                ResultPartitionType.BLOCKING,
+                                fileChannelManager,
+                                false,
+                                bufferSize),
+                fileChannelManager.createChannel().getPathFile(),
+                bufferSize,
+                true);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/** Tests for {@link BoundedBlockingSubpartitionBenchmark}. */
+@RunWith(Parameterized.class)
+public class BoundedBlockingSubpartitionBenchmarkTest {
+
+    @Parameters(name = "type = {0}")
+    public static BoundedBlockingSubpartitionType[] parameters() {
+        return BoundedBlockingSubpartitionType.values();
+    }
+
+    private final BoundedBlockingSubpartitionType type;
+
+    public BoundedBlockingSubpartitionBenchmarkTest(BoundedBlockingSubpartitionType type) {
+        this.type = type;
+    }
+
+    @Test
+    public void test() throws Exception {
+        BoundedBlockingSubpartitionBenchmark benchmark = new BoundedBlockingSubpartitionBenchmark();
+        benchmark.setUp(type, 32 * 1024);
+        try {
+            benchmark.executeBenchmark(1_000_000);
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+}
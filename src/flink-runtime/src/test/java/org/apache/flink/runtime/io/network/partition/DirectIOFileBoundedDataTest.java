@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferBuilderTestUtils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/** Tests for {@link DirectIOFileBoundedData}. */
+public class DirectIOFileBoundedDataTest extends BoundedDataTestBase {
+
+    @Override
+    protected boolean isRegionBased() {
+        return false;
+    }
+
+    @Override
+    protected BoundedData createBoundedData(Path tempFilePath) throws IOException {
+        return DirectIOFileBoundedData.create(tempFilePath, BUFFER_SIZE);
+    }
+
+    @Override
+    protected BoundedData createBoundedDataWithRegion(Path tempFilePath, int regionSize)
+            throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Test
+    public void testWriteAndReadUnalignedBuffers() throws Exception {
+        final int[] sizes = {1, DirectIOFileBoundedData.ALIGNMENT - 3, 77_777, BUFFER_SIZE, 13};
+
+        try (BoundedData bd = createBoundedData()) {
+            for (int size : sizes) {
+                bd.writeBuffer(BufferBuilderTestUtils.buildSomeBuffer(size));
+            }
+            bd.finishWrite();
+
+            // the padding of the last direct write is not part of the file
+            assertEquals(bd.getSize(), Files.size(bd.getFilePath()));
+
+            final BoundedData.Reader reader = bd.createReader();
+            for (int size : sizes) {
+                final Buffer buffer = reader.nextBuffer();
+                assertNotNull(buffer);
+                assertEquals(size, buffer.getSize());
+                buffer.recycleBuffer();
+            }
+            assertNull(reader.nextBuffer());
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.NetworkBuffer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link PartitionedFileMerger}. */
+public class PartitionedFileMergerTest {
+
+    private static final int bufferSize = 1024;
+
+    @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testMergeRegions() throws Exception {
+        int numSubpartitions = 10;
+        int numRegions = 20;
+        Random random = new Random(1111);
+
+        List<Buffer>[] buffersWritten = new List[numSubpartitions];
+        for (int subpartition = 0; subpartition < numSubpartitions; ++subpartition) {
+            buffersWritten[subpartition] = new ArrayList<>();
+        }
+
+        // a small index buffer makes the merger read index entries from the index file
+        PartitionedFileWriter fileWriter =
+                new PartitionedFileWriter(
+                        numSubpartitions, 640, temporaryFolder.newFile().getPath());
+        for (int region = 0; region < numRegions; ++region) {
+            fileWriter.startNewRegion();
+
+            int[] writeOrder =
+                    PartitionSortedBufferTest.getRandomSubpartitionOrder(numSubpartitions);
+            for (int subpartition : writeOrder) {
+                // leave some subpartitions empty in every region
+                int numBuffers = random.nextInt(3);
+                for (int i = 0; i < numBuffers; ++i) {
+                    Buffer buffer = createBuffer(random);
+                    buffersWritten[subpartition].add(buffer);
+                    fileWriter.writeBuffer(buffer, subpartition);
+                }
+            }
+        }
+        PartitionedFile source = fileWriter.finish();
+        assertEquals(numRegions, source.getNumRegions());
+
+        PartitionedFile merged =
+                PartitionedFileMerger.merge(source, temporaryFolder.newFile().getPath());
+
+        assertEquals(1, merged.getNumRegions());
+        assertEquals(numSubpartitions, merged.getNumSubpartitions());
+        assertEquals(
+                Files.size(source.getDataFilePath()), Files.size(merged.getDataFilePath()));
+        for (int subpartition = 0; subpartition < numSubpartitions; ++subpartition) {
+            assertBuffersEqual(
+                    buffersWritten[subpartition], readSubpartition(merged, subpartition));
+            assertBuffersEqual(
+                    buffersWritten[subpartition], readSubpartition(source, subpartition));
+        }
+    }
+
+    @Test
+    public void testMergedSubpartitionsAreContiguous() throws Exception {
+        int numSubpartitions = 3;
+        PartitionedFileWriter fileWriter =
+                new PartitionedFileWriter(
+                        numSubpartitions, 640, temporaryFolder.newFile().getPath());
+        Random random = new Random();
+        for (int region = 0; region < 5; ++region) {
+            fileWriter.startNewRegion();
+            for (int subpartition = 0; subpartition < numSubpartitions; ++subpartition) {
+                fileWriter.writeBuffer(createBuffer(random), subpartition);
+            }
+        }
+        PartitionedFile merged =
+                PartitionedFileMerger.merge(
+                        fileWriter.finish(), temporaryFolder.newFile().getPath());
+
+        long expectedOffset = 0;
+        for (int subpartition = 0; subpartition < numSubpartitions; ++subpartition) {
+            try (PartitionedFileReader fileReader =
+                    new PartitionedFileReader(merged, subpartition)) {
+                assertEquals(expectedOffset, fileReader.getNextReadOffset());
+                while (fileReader.hasRemaining()) {
+                    Buffer buffer =
+                            fileReader.readBuffer(
+                                    MemorySegmentFactory.allocateUnpooledSegment(bufferSize),
+                                    (buf) -> {});
+                    expectedOffset +=
+                            BufferReaderWriterUtil.HEADER_LENGTH + buffer.readableBytes();
+                }
+            }
+        }
+        assertEquals(expectedOffset, Files.size(merged.getDataFilePath()));
+    }
+
+    private static List<Buffer> readSubpartition(PartitionedFile partitionedFile, int subpartition)
+            throws IOException {
+        List<Buffer> buffersRead = new ArrayList<>();
+        try (PartitionedFileReader fileReader =
+                new PartitionedFileReader(partitionedFile, subpartition)) {
+            while (fileReader.hasRemaining()) {
+                buffersRead.add(
+                        fileReader.readBuffer(
+                                MemorySegmentFactory.allocateUnpooledSegment(bufferSize),
+                                (buf) -> {}));
+            }
+        }
+        assertTrue(buffersRead.stream().allMatch(Objects::nonNull));
+        return buffersRead;
+    }
+
+    private static void assertBuffersEqual(List<Buffer> expected, List<Buffer> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            assertEquals(expected.get(i).getDataType(), actual.get(i).getDataType());
+            assertEquals(
+                    expected.get(i).getNioBufferReadable(), actual.get(i).getNioBufferReadable());
+        }
+    }
+
+    private static Buffer createBuffer(Random random) {
+        Buffer.DataType dataType =
+                random.nextBoolean() ? Buffer.DataType.DATA_BUFFER : Buffer.DataType.EVENT_BUFFER;
+        int dataSize = random.nextInt(bufferSize) + 1;
+        byte[] data = new byte[dataSize];
+        random.nextBytes(data);
+        return new NetworkBuffer(MemorySegmentFactory.wrap(data), (buf) -> {}, dataType, dataSize);
+    }
+}
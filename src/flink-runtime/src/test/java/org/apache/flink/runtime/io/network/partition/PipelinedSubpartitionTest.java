@@ -20,15 +20,20 @@ package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Histogram;
 import org.apache.flink.runtime.concurrent.FutureUtils;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferBuilderTestUtils;
 import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
+import org.apache.flink.runtime.io.network.metrics.ResultSubpartitionMetrics;
 import org.apache.flink.runtime.io.network.util.TestConsumerCallback;
 import org.apache.flink.runtime.io.network.util.TestProducerSource;
 import org.apache.flink.runtime.io.network.util.TestSubpartitionConsumer;
 import org.apache.flink.runtime.io.network.util.TestSubpartitionProducer;
+import org.apache.flink.runtime.metrics.MetricNames;
+import org.apache.flink.runtime.metrics.util.InterceptingTaskMetricGroup;
 import org.apache.flink.util.function.CheckedSupplier;
 
 import org.junit.AfterClass;
@@ -306,6 +311,40 @@ public class PipelinedSubpartitionTest extends SubpartitionTestBase {
         assertTrue(view.isReleased());
     }
 
+    @Test
+    public void testSubpartitionMetrics() throws Exception {
+        final PipelinedSubpartition subpartition = createPipelinedSubpartition();
+        final InterceptingTaskMetricGroup metricGroup = new InterceptingTaskMetricGroup();
+        subpartition.registerMetrics(metricGroup);
+        final Counter numBytesOut = (Counter) metricGroup.get(MetricNames.IO_NUM_BYTES_OUT);
+        final Counter creditStarvations = (Counter) metricGroup.get("creditStarvations");
+        final Histogram queueingTime = (Histogram) metricGroup.get("queueingTime");
+
+        subpartition.add(createFilledFinishedBufferConsumer(BufferBuilderTestUtils.BUFFER_SIZE));
+        subpartition.add(createFilledFinishedBufferConsumer(BufferBuilderTestUtils.BUFFER_SIZE));
+        assertEquals(0L, creditStarvations.getCount());
+        Thread.sleep(5);
+        assertTrue(subpartition.getBacklogAge() > 0);
+
+        // a reader without credit is starved only once until it takes data again
+        assertFalse(subpartition.isAvailable(0));
+        assertFalse(subpartition.isAvailable(0));
+        assertEquals(1L, creditStarvations.getCount());
+
+        assertNotNull(subpartition.pollBuffer());
+        assertEquals(BufferBuilderTestUtils.BUFFER_SIZE, numBytesOut.getCount());
+        assertEquals(0L, subpartition.getBacklogAge());
+        assertEquals(0L, queueingTime.getCount());
+
+        for (int i = 1; i < ResultSubpartitionMetrics.QUEUEING_TIME_SAMPLE_INTERVAL; i++) {
+            subpartition.add(
+                    createFilledFinishedBufferConsumer(BufferBuilderTestUtils.BUFFER_SIZE));
+            assertNotNull(subpartition.pollBuffer());
+        }
+        assertEquals(1L, queueingTime.getCount());
+        assertEquals(1L, creditStarvations.getCount());
+    }
+
     public static PipelinedSubpartition createPipelinedSubpartition() {
         final ResultPartition parent = PartitionTestUtils.createPartition();
 
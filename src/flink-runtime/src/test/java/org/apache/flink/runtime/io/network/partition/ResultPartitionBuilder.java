@@ -58,6 +58,8 @@ public class ResultPartitionBuilder {
 
     private int sortShuffleMinParallelism = Integer.MAX_VALUE;
 
+    private boolean sortShuffleMergeRegions = false;
+
     private int maxBuffersPerChannel = Integer.MAX_VALUE;
 
     private int networkBufferSize = 1;
@@ -72,6 +74,8 @@ public class ResultPartitionBuilder {
 
     private String compressionCodec = "LZ4";
 
+    private boolean adaptiveCompressionEnabled = false;
+
     public ResultPartitionBuilder setResultPartitionIndex(int partitionIndex) {
         this.partitionIndex = partitionIndex;
         return this;
@@ -164,11 +168,22 @@ public class ResultPartitionBuilder {
         return this;
     }
 
+    public ResultPartitionBuilder setSortShuffleMergeRegions(boolean sortShuffleMergeRegions) {
+        this.sortShuffleMergeRegions = sortShuffleMergeRegions;
+        return this;
+    }
+
     public ResultPartitionBuilder setCompressionCodec(String compressionCodec) {
         this.compressionCodec = compressionCodec;
         return this;
     }
 
+    public ResultPartitionBuilder setAdaptiveCompressionEnabled(
+            boolean adaptiveCompressionEnabled) {
+        this.adaptiveCompressionEnabled = adaptiveCompressionEnabled;
+        return this;
+    }
+
     ResultPartitionBuilder setBoundedBlockingSubpartitionType(
             @SuppressWarnings("SameParameterValue")
                     BoundedBlockingSubpartitionType blockingSubpartitionType) {
@@ -193,9 +208,11 @@ public class ResultPartitionBuilder {
                         networkBufferSize,
                         blockingShuffleCompressionEnabled,
                         compressionCodec,
+                        adaptiveCompressionEnabled,
                         maxBuffersPerChannel,
                         sortShuffleMinBuffers,
                         sortShuffleMinParallelism,
+                        sortShuffleMergeRegions,
                         sslEnabled);
 
         SupplierWithException<BufferPool, IOException> factory =
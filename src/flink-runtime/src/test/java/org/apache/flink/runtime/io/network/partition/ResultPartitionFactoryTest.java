@@ -118,9 +118,11 @@ public class ResultPartitionFactoryTest extends TestLogger {
                         SEGMENT_SIZE,
                         false,
                         "LZ4",
+                        false,
                         Integer.MAX_VALUE,
                         10,
                         sortShuffleMinParallelism,
+                        false,
                         false);
 
         final ResultPartitionDeploymentDescriptor descriptor =
@@ -78,6 +78,15 @@ public class SortMergeResultPartitionTest {
 
     @Test
     public void testWriteAndRead() throws Exception {
+        testWriteAndRead(false);
+    }
+
+    @Test
+    public void testWriteAndReadWithMergedRegions() throws Exception {
+        testWriteAndRead(true);
+    }
+
+    private void testWriteAndRead(boolean mergeRegions) throws Exception {
         int numSubpartitions = 10;
         int numBuffers = 100;
         int numRecords = 1000;
@@ -85,7 +94,7 @@ public class SortMergeResultPartitionTest {
 
         BufferPool bufferPool = globalPool.createBufferPool(numBuffers, numBuffers);
         SortMergeResultPartition partition =
-                createSortMergedPartition(numSubpartitions, bufferPool);
+                createSortMergedPartition(numSubpartitions, bufferPool, mergeRegions);
 
         Queue<PartitionSortedBufferTest.DataAndType>[] dataWritten = new Queue[numSubpartitions];
         Queue<Buffer>[] buffersRead = new Queue[numSubpartitions];
@@ -125,6 +134,12 @@ public class SortMergeResultPartitionTest {
 
         partition.finish();
         partition.close();
+        if (mergeRegions) {
+            assertEquals(1, partition.getResultFile().getNumRegions());
+        }
+        // only the data file and the index file of the result file are left
+        assertEquals(2, fileChannelManager.getPaths()[0].list().length);
+
         for (int subpartition = 0; subpartition < numSubpartitions; ++subpartition) {
             ByteBuffer record = EventSerializer.toSerializedEvent(EndOfPartitionEvent.INSTANCE);
             recordDataWritten(
@@ -316,6 +331,12 @@ public class SortMergeResultPartitionTest {
 
     private SortMergeResultPartition createSortMergedPartition(
             int numSubpartitions, BufferPool bufferPool) throws IOException {
+        return createSortMergedPartition(numSubpartitions, bufferPool, false);
+    }
+
+    private SortMergeResultPartition createSortMergedPartition(
+            int numSubpartitions, BufferPool bufferPool, boolean mergeRegions)
+            throws IOException {
         SortMergeResultPartition sortMergedResultPartition =
                 new SortMergeResultPartition(
                         "SortMergedResultPartitionTest",
@@ -327,6 +348,7 @@ public class SortMergeResultPartitionTest {
                         bufferSize,
                         new ResultPartitionManager(),
                         fileChannelManager.createChannel().getPath(),
+                        mergeRegions,
                         null,
                         () -> bufferPool);
         sortMergedResultPartition.setup();
@@ -77,6 +77,8 @@ import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -517,6 +519,30 @@ public class LocalInputChannelTest {
         assertTrue(nextBuffer.get().isBuffer());
     }
 
+    @Test
+    public void testRequestObjectHandover() throws Exception {
+        PipelinedResultPartition parent =
+                (PipelinedResultPartition)
+                        PartitionTestUtils.createPartition(
+                                ResultPartitionType.PIPELINED, NoOpFileChannelManager.INSTANCE);
+        ResultSubpartition subpartition = parent.getAllPartitions()[0];
+        ResultSubpartitionView subpartitionView = subpartition.createReadView(() -> {});
+        assertNull(subpartition.getObjectHandoverQueue());
+
+        LocalInputChannel channel =
+                createLocalInputChannel(
+                        new SingleInputGateBuilder().build(),
+                        new TestingResultPartitionManager(subpartitionView));
+        channel.requestSubpartition(0);
+
+        assertNotNull(channel.getObjectHandoverQueue());
+        assertSame(subpartition.getObjectHandoverQueue(), channel.getObjectHandoverQueue());
+
+        // the handed over objects stay reachable for buffers that are not deserialized yet
+        channel.releaseAllResources();
+        assertNotNull(channel.getObjectHandoverQueue());
+    }
+
     @Test
     public void testCheckpointingInflightData() throws Exception {
         SingleInputGate inputGate = new SingleInputGateBuilder().build();
@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.shuffle.remote;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.clusterframework.types.ResourceID;
+import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
+import org.apache.flink.runtime.io.disk.FileChannelManager;
+import org.apache.flink.runtime.io.disk.FileChannelManagerImpl;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferPool;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
+import org.apache.flink.runtime.io.network.partition.NoOpBufferAvailablityListener;
+import org.apache.flink.runtime.io.network.partition.PartitionNotFoundException;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionManager;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.io.network.partition.ResultSubpartitionView;
+import org.apache.flink.runtime.io.network.partition.SortMergeResultPartition;
+import org.apache.flink.runtime.shuffle.NettyShuffleDescriptor;
+import org.apache.flink.runtime.shuffle.PartitionDescriptor;
+import org.apache.flink.runtime.shuffle.PartitionDescriptorBuilder;
+import org.apache.flink.runtime.shuffle.ProducerDescriptor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Tests for the remote shuffle service running inside the test JVM. */
+public class RemoteShuffleServiceTest {
+
+    private static final int bufferSize = 1024;
+
+    private static final int numSubpartitions = 4;
+
+    @Rule public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private FileChannelManager fileChannelManager;
+
+    private NetworkBufferPool globalPool;
+
+    private RemoteShuffleServer server;
+
+    private RemoteShuffleClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        fileChannelManager =
+                new FileChannelManagerImpl(new String[] {tmpFolder.getRoot().getPath()}, "testing");
+        globalPool = new NetworkBufferPool(100, bufferSize);
+
+        Configuration configuration = new Configuration();
+        configuration.setString(RemoteShuffleOptions.BIND_HOST, "localhost");
+        configuration.setInteger(RemoteShuffleOptions.CONTROL_PORT, 0);
+        configuration.setInteger(RemoteShuffleOptions.DATA_PORT, 0);
+        configuration.setString(
+                RemoteShuffleOptions.STORAGE_DIR, tmpFolder.newFolder().getAbsolutePath());
+        server = new RemoteShuffleServer(configuration);
+        server.start();
+
+        client =
+                new RemoteShuffleClient(
+                        new InetSocketAddress("localhost", server.getControlPort()),
+                        new InetSocketAddress("localhost", server.getDataPort()));
+    }
+
+    @After
+    public void shutdown() throws Exception {
+        server.close();
+        fileChannelManager.close();
+        globalPool.destroy();
+    }
+
+    @Test
+    public void testPushAndReadPartition() throws Exception {
+        SortMergeResultPartition partition = createSortMergedPartition();
+        byte[][] dataWritten = writeRandomRecords(partition);
+        pushPartition(partition);
+
+        assertEquals(1, server.getNumberOfStoredPartitions());
+        for (int subpartition = 0; subpartition < numSubpartitions; ++subpartition) {
+            assertArrayEquals(
+                    dataWritten[subpartition],
+                    readSubpartition(partition.getPartitionId(), subpartition));
+        }
+    }
+
+    @Test
+    public void testReleasePartition() throws Exception {
+        SortMergeResultPartition partition = createSortMergedPartition();
+        writeRandomRecords(partition);
+        pushPartition(partition);
+
+        client.releasePartition(partition.getPartitionId());
+
+        assertEquals(0, server.getNumberOfStoredPartitions());
+        try {
+            server.createSubpartitionView(
+                    partition.getPartitionId(), 0, new NoOpBufferAvailablityListener());
+            fail("Should fail with a PartitionNotFoundException.");
+        } catch (PartitionNotFoundException ignored) {
+        }
+    }
+
+    @Test
+    public void testServerDeletesPartitionsOnClose() throws Exception {
+        SortMergeResultPartition partition = createSortMergedPartition();
+        writeRandomRecords(partition);
+        pushPartition(partition);
+
+        server.close();
+
+        assertEquals(0, server.getNumberOfStoredPartitions());
+        assertTrue(server.getTerminationFuture().isDone());
+    }
+
+    @Test
+    public void testShuffleMasterStoresOnlyBlockingPartitionsRemotely() throws Exception {
+        RemoteShuffleMaster shuffleMaster = new RemoteShuffleMaster(client, Runnable::run);
+        ResourceID producerLocation = ResourceID.generate();
+        ProducerDescriptor producerDescriptor =
+                new ProducerDescriptor(
+                        producerLocation,
+                        new ExecutionAttemptID(),
+                        InetAddress.getLoopbackAddress(),
+                        12345);
+
+        NettyShuffleDescriptor blockingDescriptor =
+                shuffleMaster
+                        .registerPartitionWithProducer(
+                                createPartitionDescriptor(ResultPartitionType.BLOCKING),
+                                producerDescriptor)
+                        .get();
+        assertThat(blockingDescriptor, instanceOf(RemoteShuffleDescriptor.class));
+        assertFalse(blockingDescriptor.storesLocalResourcesOn().isPresent());
+        assertFalse(blockingDescriptor.isLocalTo(producerLocation));
+        assertEquals(client.getDataAddress(), blockingDescriptor.getConnectionId().getAddress());
+
+        NettyShuffleDescriptor pipelinedDescriptor =
+                shuffleMaster
+                        .registerPartitionWithProducer(
+                                createPartitionDescriptor(ResultPartitionType.PIPELINED),
+                                producerDescriptor)
+                        .get();
+        assertFalse(pipelinedDescriptor instanceof RemoteShuffleDescriptor);
+        assertEquals(producerLocation, pipelinedDescriptor.storesLocalResourcesOn().get());
+    }
+
+    @Test
+    public void testShuffleMasterReleasesPartitionExternally() throws Exception {
+        RemoteShuffleMaster shuffleMaster = new RemoteShuffleMaster(client, Runnable::run);
+        SortMergeResultPartition partition = createSortMergedPartition();
+        writeRandomRecords(partition);
+        pushPartition(partition);
+
+        shuffleMaster.releasePartitionExternally(
+                new RemoteShuffleDescriptor(() -> null, partition.getPartitionId()));
+
+        assertEquals(0, server.getNumberOfStoredPartitions());
+    }
+
+    private byte[][] writeRandomRecords(SortMergeResultPartition partition) throws IOException {
+        Random random = new Random();
+        ByteArrayOutputStream[] dataWritten = new ByteArrayOutputStream[numSubpartitions];
+        for (int subpartition = 0; subpartition < numSubpartitions; ++subpartition) {
+            dataWritten[subpartition] = new ByteArrayOutputStream();
+        }
+
+        for (int i = 0; i < 200; ++i) {
+            byte[] data = new byte[random.nextInt(2 * bufferSize) + 1];
+            random.nextBytes(data);
+            int subpartition = random.nextInt(numSubpartitions);
+            partition.emitRecord(ByteBuffer.wrap(data), subpartition);
+            dataWritten[subpartition].write(data);
+        }
+        partition.finish();
+
+        byte[][] result = new byte[numSubpartitions][];
+        for (int subpartition = 0; subpartition < numSubpartitions; ++subpartition) {
+            result[subpartition] = dataWritten[subpartition].toByteArray();
+        }
+        return result;
+    }
+
+    private void pushPartition(SortMergeResultPartition partition) throws IOException {
+        int[] numDataBuffers = new int[numSubpartitions];
+        for (int subpartition = 0; subpartition < numSubpartitions; ++subpartition) {
+            numDataBuffers[subpartition] = partition.getNumDataBuffers(subpartition);
+        }
+        client.pushPartition(
+                partition.getPartitionId(), partition.getResultFile(), numDataBuffers);
+
+        // the stored partition must not depend on the local file
+        partition.close();
+        partition.release();
+    }
+
+    private byte[] readSubpartition(ResultPartitionID partitionId, int subpartition)
+            throws IOException {
+        ResultSubpartitionView view =
+                server.createSubpartitionView(
+                        partitionId, subpartition, new NoOpBufferAvailablityListener());
+        ByteArrayOutputStream dataRead = new ByteArrayOutputStream();
+        boolean endOfPartition = false;
+        while (view.isAvailable(Integer.MAX_VALUE)) {
+            Buffer buffer = view.getNextBuffer().buffer();
+            if (buffer.isBuffer()) {
+                byte[] bytes = new byte[buffer.readableBytes()];
+                buffer.getNioBufferReadable().get(bytes);
+                dataRead.write(bytes);
+            } else {
+                endOfPartition = true;
+            }
+            buffer.recycleBuffer();
+        }
+        view.releaseAllResources();
+
+        assertTrue(endOfPartition);
+        return dataRead.toByteArray();
+    }
+
+    private SortMergeResultPartition createSortMergedPartition() throws IOException {
+        BufferPool bufferPool = globalPool.createBufferPool(10, 10);
+        SortMergeResultPartition partition =
+                new SortMergeResultPartition(
+                        "RemoteShuffleServiceTest",
+                        0,
+                        new ResultPartitionID(),
+                        ResultPartitionType.BLOCKING,
+                        numSubpartitions,
+                        numSubpartitions,
+                        bufferSize,
+                        new ResultPartitionManager(),
+                        fileChannelManager.createChannel().getPath(),
+                        false,
+                        null,
+                        () -> bufferPool);
+        partition.setup();
+        return partition;
+    }
+
+    private static PartitionDescriptor createPartitionDescriptor(ResultPartitionType type) {
+        return PartitionDescriptorBuilder.newBuilder().setPartitionType(type).build();
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.configuration.CheckpointingOptions;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.state.filesystem.FsStateBackend;
+
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the keyed state backend of the {@link FsStateBackend} with incremental checkpoints
+ * enabled.
+ */
+public class FileStateBackendIncrementalTest extends StateBackendTestBase<FsStateBackend> {
+
+    @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Override
+    protected FsStateBackend getStateBackend() throws Exception {
+        File checkpointPath = tempFolder.newFolder();
+        Configuration configuration = new Configuration();
+        configuration.set(CheckpointingOptions.INCREMENTAL_CHECKPOINTS, true);
+        return new FsStateBackend(checkpointPath.toURI(), true)
+                .configure(configuration, getClass().getClassLoader());
+    }
+
+    @Override
+    protected boolean isSerializerPresenceRequiredOnRestore() {
+        return true;
+    }
+
+    // disable these because the verification does not work for this state backend
+    @Override
+    @Test
+    public void testValueStateRestoreWithWrongSerializers() {}
+
+    @Override
+    @Test
+    public void testListStateRestoreWithWrongSerializers() {}
+
+    @Override
+    @Test
+    public void testReducingStateRestoreWithWrongSerializers() {}
+
+    @Override
+    @Test
+    public void testMapStateRestoreWithWrongSerializers() {}
+
+    @Ignore
+    @Test
+    public void testConcurrentMapIfQueryable() throws Exception {
+        super.testConcurrentMapIfQueryable();
+    }
+
+    @Test
+    public void testUnmodifiedKeyGroupsAreReused() throws Exception {
+        CheckpointStreamFactory streamFactory = createStreamFactory();
+        SharedStateRegistry sharedStateRegistry = new SharedStateRegistry();
+        ValueStateDescriptor<String> kvId = new ValueStateDescriptor<>("id", String.class);
+
+        AbstractKeyedStateBackend<Integer> backend = createKeyedBackend(IntSerializer.INSTANCE);
+        try {
+            ValueState<String> state =
+                    backend.getPartitionedState(
+                            VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+            for (int i = 0; i < 100; i++) {
+                backend.setCurrentKey(i);
+                state.update("v" + i);
+            }
+
+            KeyedStateHandle first =
+                    runSnapshot(
+                            backend.snapshot(
+                                    1L,
+                                    1L,
+                                    streamFactory,
+                                    CheckpointOptions.forCheckpointWithDefaultLocation()),
+                            sharedStateRegistry);
+            backend.notifyCheckpointComplete(1L);
+
+            backend.setCurrentKey(5);
+            state.update("updated");
+
+            KeyedStateHandle second =
+                    runSnapshot(
+                            backend.snapshot(
+                                    2L,
+                                    2L,
+                                    streamFactory,
+                                    CheckpointOptions.forCheckpointWithDefaultLocation()),
+                            sharedStateRegistry);
+
+            assertTrue(first instanceof IncrementalKeyGroupsStateHandle);
+            assertTrue(second instanceof IncrementalKeyGroupsStateHandle);
+            IncrementalKeyGroupsStateHandle firstHandle = (IncrementalKeyGroupsStateHandle) first;
+            IncrementalKeyGroupsStateHandle secondHandle =
+                    (IncrementalKeyGroupsStateHandle) second;
+
+            int modifiedKeyGroup = KeyGroupRangeAssignment.assignToKeyGroup(5, 10);
+            for (int keyGroup : backend.getKeyGroupRange()) {
+                if (keyGroup == modifiedKeyGroup) {
+                    assertNotEquals(
+                            firstHandle.getStateHandleIdForKeyGroup(keyGroup),
+                            secondHandle.getStateHandleIdForKeyGroup(keyGroup));
+                } else {
+                    assertEquals(
+                            firstHandle.getStateHandleIdForKeyGroup(keyGroup),
+                            secondHandle.getStateHandleIdForKeyGroup(keyGroup));
+                }
+            }
+
+            // the subsumed checkpoint must not remove the streams still used by the second one
+            first.discardState();
+            backend.dispose();
+
+            backend = restoreKeyedBackend(IntSerializer.INSTANCE, second);
+            state =
+                    backend.getPartitionedState(
+                            VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+            for (int i = 0; i < 100; i++) {
+                backend.setCurrentKey(i);
+                assertEquals(i == 5 ? "updated" : "v" + i, state.value());
+            }
+        } finally {
+            backend.dispose();
+        }
+    }
+}
@@ -1673,6 +1673,48 @@ public abstract class StateBackendTestBase<B extends AbstractStateBackend> exten
         backend.dispose();
     }
 
+    /** Verifies that batched look ups return the same states as reading them key by key. */
+    @Test
+    public void testValueStateGetAll() throws Exception {
+        AbstractKeyedStateBackend<Integer> backend = createKeyedBackend(IntSerializer.INSTANCE);
+        try {
+            ValueStateDescriptor<String> kvId = new ValueStateDescriptor<>("id", String.class);
+
+            InternalValueState<Integer, Integer, String> state =
+                    (InternalValueState<Integer, Integer, String>)
+                            backend.getPartitionedState(0, IntSerializer.INSTANCE, kvId);
+
+            for (int key = 0; key < 100; key++) {
+                backend.setCurrentKey(key);
+                state.setCurrentNamespace(key % 2);
+                state.update("value-" + key);
+            }
+
+            backend.setCurrentKey(7);
+            state.setCurrentNamespace(1);
+
+            List<Integer> keys = Arrays.asList(3, 4, 5, 42, 99, 1000);
+            Map<Integer, String> expected = new HashMap<>();
+            expected.put(3, "value-3");
+            expected.put(5, "value-5");
+            expected.put(99, "value-99");
+            assertEquals(expected, state.getAll(keys));
+
+            // the current key is not changed by the batched look up
+            assertEquals(Integer.valueOf(7), backend.getCurrentKey());
+            assertEquals("value-7", state.value());
+
+            state.setCurrentNamespace(0);
+            expected.clear();
+            expected.put(4, "value-4");
+            expected.put(42, "value-42");
+            assertEquals(expected, state.getAll(keys));
+            assertEquals(Collections.emptyMap(), state.getAll(Collections.emptyList()));
+        } finally {
+            backend.dispose();
+        }
+    }
+
     @Test
     @SuppressWarnings("unchecked,rawtypes")
     public void testListState() throws Exception {
@@ -0,0 +1,378 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.core.memory.ByteArrayInputStreamWithPos;
+import org.apache.flink.core.memory.ByteArrayOutputStreamWithPos;
+import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
+import org.apache.flink.runtime.state.ArrayListSerializer;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.StateEntry;
+import org.apache.flink.runtime.state.StateTransformationFunction;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.runtime.state.internal.InternalKvState.StateIncrementalVisitor;
+import org.apache.flink.util.TestLogger;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/** Test for {@link CopyOnWritePrimitiveKeyStateMap}. */
+public class CopyOnWritePrimitiveKeyStateMapTest extends TestLogger {
+
+    private static final VoidNamespace NS = VoidNamespace.INSTANCE;
+
+    /** Testing the basic map operations. */
+    @Test
+    public void testPutGetRemoveContainsTransform() throws Exception {
+        final CopyOnWritePrimitiveKeyStateMap<Long, VoidNamespace, ArrayList<Integer>> stateMap =
+                createLongKeyedMap();
+
+        ArrayList<Integer> state1 = new ArrayList<>();
+        state1.add(41);
+        ArrayList<Integer> state2 = new ArrayList<>();
+        state2.add(42);
+
+        Assert.assertNull(stateMap.putAndGetOld(1L, NS, state1));
+        Assert.assertEquals(state1, stateMap.get(1L, NS));
+        Assert.assertEquals(1, stateMap.size());
+
+        Assert.assertNull(stateMap.putAndGetOld(-2L, NS, state2));
+        Assert.assertEquals(state2, stateMap.get(-2L, NS));
+        Assert.assertEquals(2, stateMap.size());
+
+        Assert.assertTrue(stateMap.containsKey(-2L, NS));
+        Assert.assertFalse(stateMap.containsKey(3L, NS));
+        stateMap.put(-2L, NS, null);
+        Assert.assertTrue(stateMap.containsKey(-2L, NS));
+        Assert.assertEquals(2, stateMap.size());
+        Assert.assertNull(stateMap.get(-2L, NS));
+        stateMap.put(-2L, NS, state2);
+        Assert.assertEquals(2, stateMap.size());
+
+        Assert.assertEquals(state2, stateMap.removeAndGetOld(-2L, NS));
+        Assert.assertFalse(stateMap.containsKey(-2L, NS));
+        Assert.assertEquals(1, stateMap.size());
+
+        Assert.assertNull(stateMap.removeAndGetOld(4L, NS));
+        Assert.assertEquals(1, stateMap.size());
+
+        StateTransformationFunction<ArrayList<Integer>, Integer> function =
+                (previousState, value) -> {
+                    ArrayList<Integer> newState =
+                            previousState == null ? new ArrayList<>() : previousState;
+                    newState.add(value);
+                    return newState;
+                };
+
+        final int value = 4711;
+        stateMap.transform(1L, NS, value, function);
+        state1 = function.apply(state1, value);
+        Assert.assertEquals(state1, stateMap.get(1L, NS));
+
+        stateMap.transform(5L, NS, value, function);
+        Assert.assertEquals(function.apply(null, value), stateMap.get(5L, NS));
+        Assert.assertEquals(2, stateMap.size());
+    }
+
+    /** This tests that integer keys are converted back to integers. */
+    @Test
+    public void testIntegerKeys() {
+        final CopyOnWritePrimitiveKeyStateMap<Integer, VoidNamespace, Integer> stateMap =
+                new CopyOnWritePrimitiveKeyStateMap<>(
+                        IntSerializer.INSTANCE, IntSerializer.INSTANCE);
+
+        stateMap.put(Integer.MIN_VALUE, NS, 1);
+        stateMap.put(Integer.MAX_VALUE, NS, 2);
+
+        Map<Integer, Integer> entries = new HashMap<>();
+        for (StateEntry<Integer, VoidNamespace, Integer> entry : stateMap) {
+            Assert.assertEquals(NS, entry.getNamespace());
+            entries.put(entry.getKey(), entry.getState());
+        }
+
+        Map<Integer, Integer> expected = new HashMap<>();
+        expected.put(Integer.MIN_VALUE, 1);
+        expected.put(Integer.MAX_VALUE, 2);
+        Assert.assertEquals(expected, entries);
+    }
+
+    /**
+     * This test does some random modifications to a state map and a reference (hash map). Then
+     * draws snapshots, performs more modifications and checks snapshot integrity.
+     */
+    @Test
+    public void testRandomModificationsAndCopyOnWriteIsolation() throws Exception {
+        final CopyOnWritePrimitiveKeyStateMap<Long, VoidNamespace, ArrayList<Integer>> stateMap =
+                createLongKeyedMap();
+        final HashMap<Long, ArrayList<Integer>> referenceMap = new HashMap<>();
+        final Random random = new Random(42);
+
+        CopyOnWritePrimitiveKeyStateMapSnapshot<Long, VoidNamespace, ArrayList<Integer>> snapshot =
+                null;
+        Map<Long, ArrayList<Integer>> referenceSnapshot = null;
+
+        for (int i = 0; i < 100_000; i++) {
+            // a small key space, so that there are many collisions and removals within clusters
+            final long key = random.nextInt(1000) * 31L;
+            final int op = random.nextInt(5);
+            switch (op) {
+                case 0:
+                    {
+                        ArrayList<Integer> state = new ArrayList<>();
+                        state.add(i);
+                        stateMap.put(key, NS, state);
+                        referenceMap.put(key, new ArrayList<>(state));
+                        break;
+                    }
+                case 1:
+                    {
+                        stateMap.remove(key, NS);
+                        referenceMap.remove(key);
+                        break;
+                    }
+                case 2:
+                    {
+                        // modify the returned object in place, which must not affect snapshots
+                        ArrayList<Integer> state = stateMap.get(key, NS);
+                        if (state != null) {
+                            state.add(i);
+                            referenceMap.get(key).add(i);
+                        }
+                        break;
+                    }
+                case 3:
+                    {
+                        ArrayList<Integer> oldState = stateMap.removeAndGetOld(key, NS);
+                        Assert.assertEquals(referenceMap.remove(key), oldState);
+                        break;
+                    }
+                default:
+                    {
+                        Assert.assertEquals(
+                                referenceMap.containsKey(key), stateMap.containsKey(key, NS));
+                    }
+            }
+
+            Assert.assertEquals(referenceMap.size(), stateMap.size());
+
+            if (i % 1000 == 0) {
+                if (snapshot != null) {
+                    Assert.assertEquals(referenceSnapshot, readSnapshot(snapshot));
+                    snapshot.release();
+                }
+                snapshot = stateMap.stateSnapshot();
+                referenceSnapshot = deepCopy(referenceMap);
+            }
+        }
+
+        Assert.assertEquals(referenceMap, toMap(stateMap));
+        Assert.assertEquals(referenceSnapshot, readSnapshot(snapshot));
+        snapshot.release();
+        Assert.assertThat(stateMap.getSnapshotVersions(), Matchers.empty());
+    }
+
+    /**
+     * This tests that copy-on-write is applied to states that were written before an unreleased
+     * snapshot, and only to those.
+     */
+    @Test
+    public void testCopyOnWriteContracts() {
+        final CopyOnWritePrimitiveKeyStateMap<Long, VoidNamespace, ArrayList<Integer>> stateMap =
+                createLongKeyedMap();
+
+        ArrayList<Integer> originalState1 = new ArrayList<>(1);
+        ArrayList<Integer> originalState2 = new ArrayList<>(1);
+        ArrayList<Integer> originalState3 = new ArrayList<>(1);
+
+        originalState1.add(1);
+        originalState2.add(2);
+        originalState3.add(3);
+
+        stateMap.put(1L, NS, originalState1);
+        stateMap.put(2L, NS, originalState2);
+
+        // no snapshot taken, we get the original back
+        Assert.assertSame(originalState1, stateMap.get(1L, NS));
+        CopyOnWritePrimitiveKeyStateMapSnapshot<Long, VoidNamespace, ArrayList<Integer>>
+                snapshot = stateMap.stateSnapshot();
+
+        // after the snapshot is taken, we get an equal copy...
+        final ArrayList<Integer> copyState = stateMap.get(1L, NS);
+        Assert.assertNotSame(originalState1, copyState);
+        Assert.assertEquals(originalState1, copyState);
+        // ...and on repeated lookups the same copy
+        Assert.assertSame(copyState, stateMap.get(1L, NS));
+
+        // inserts after the snapshot are not copied
+        stateMap.put(3L, NS, originalState3);
+        Assert.assertSame(originalState3, stateMap.get(3L, NS));
+
+        stateMap.releaseSnapshot(snapshot);
+        // no copy-on-write is active
+        Assert.assertSame(originalState2, stateMap.get(2L, NS));
+    }
+
+    /** This tests that snapshot can be released correctly. */
+    @Test
+    public void testSnapshotRelease() {
+        final CopyOnWritePrimitiveKeyStateMap<Long, VoidNamespace, ArrayList<Integer>> stateMap =
+                createLongKeyedMap();
+
+        for (long i = 0; i < 10; i++) {
+            stateMap.put(i, NS, new ArrayList<>());
+        }
+
+        CopyOnWritePrimitiveKeyStateMapSnapshot<Long, VoidNamespace, ArrayList<Integer>> snapshot =
+                stateMap.stateSnapshot();
+        Assert.assertFalse(snapshot.isReleased());
+        Assert.assertThat(
+                stateMap.getSnapshotVersions(), Matchers.contains(snapshot.getSnapshotVersion()));
+
+        snapshot.release();
+        Assert.assertTrue(snapshot.isReleased());
+        Assert.assertThat(stateMap.getSnapshotVersions(), Matchers.empty());
+
+        // verify that snapshot will release itself only once
+        snapshot.release();
+        Assert.assertThat(stateMap.getSnapshotVersions(), Matchers.empty());
+    }
+
+    /** This tests that the incremental visitor visits all entries and can remove them. */
+    @Test
+    public void testIncrementalVisitor() {
+        final CopyOnWritePrimitiveKeyStateMap<Long, VoidNamespace, ArrayList<Integer>> stateMap =
+                createLongKeyedMap();
+
+        for (long i = 0; i < 1000; i++) {
+            stateMap.put(i, NS, new ArrayList<>());
+        }
+
+        StateIncrementalVisitor<Long, VoidNamespace, ArrayList<Integer>> visitor =
+                stateMap.getStateIncrementalVisitor(10);
+        int visited = 0;
+        while (visitor.hasNext()) {
+            for (StateEntry<Long, VoidNamespace, ArrayList<Integer>> entry :
+                    visitor.nextEntries()) {
+                visited++;
+                if (entry.getKey() % 2 == 0) {
+                    visitor.remove(entry);
+                }
+            }
+        }
+
+        // removals may move some entries into already visited slots
+        Assert.assertTrue(visited >= 500);
+        for (long i = 1; i < 1000; i += 2) {
+            Assert.assertTrue(stateMap.containsKey(i, NS));
+        }
+        Assert.assertTrue(stateMap.size() < 1000);
+    }
+
+    /** This tests that the state table picks the specialized map for primitive keys. */
+    @Test
+    public void testStateTableUsesPrimitiveKeyMap() {
+        RegisteredKeyValueStateBackendMetaInfo<VoidNamespace, Integer> metaInfo =
+                new RegisteredKeyValueStateBackendMetaInfo<>(
+                        StateDescriptor.Type.VALUE,
+                        "test",
+                        VoidNamespaceSerializer.INSTANCE,
+                        IntSerializer.INSTANCE);
+
+        CopyOnWriteStateTable<Long, VoidNamespace, Integer> table =
+                new CopyOnWriteStateTable<>(
+                        new MockInternalKeyContext<>(), metaInfo, LongSerializer.INSTANCE);
+        Assert.assertTrue(table.getMapForKeyGroup(0) instanceof CopyOnWritePrimitiveKeyStateMap);
+
+        RegisteredKeyValueStateBackendMetaInfo<Integer, Integer> namespacedMetaInfo =
+                new RegisteredKeyValueStateBackendMetaInfo<>(
+                        StateDescriptor.Type.VALUE,
+                        "test",
+                        IntSerializer.INSTANCE,
+                        IntSerializer.INSTANCE);
+
+        CopyOnWriteStateTable<Long, Integer, Integer> namespacedTable =
+                new CopyOnWriteStateTable<>(
+                        new MockInternalKeyContext<>(),
+                        namespacedMetaInfo,
+                        LongSerializer.INSTANCE);
+        Assert.assertTrue(namespacedTable.getMapForKeyGroup(0) instanceof CopyOnWriteStateMap);
+    }
+
+    private static CopyOnWritePrimitiveKeyStateMap<Long, VoidNamespace, ArrayList<Integer>>
+            createLongKeyedMap() {
+        return new CopyOnWritePrimitiveKeyStateMap<>(
+                LongSerializer.INSTANCE, new ArrayListSerializer<>(IntSerializer.INSTANCE));
+    }
+
+    private static Map<Long, ArrayList<Integer>> readSnapshot(
+            CopyOnWritePrimitiveKeyStateMapSnapshot<Long, VoidNamespace, ArrayList<Integer>>
+                    snapshot)
+            throws IOException {
+        ArrayListSerializer<Integer> stateSerializer =
+                new ArrayListSerializer<>(IntSerializer.INSTANCE);
+        ByteArrayOutputStreamWithPos out = new ByteArrayOutputStreamWithPos();
+        snapshot.writeState(
+                LongSerializer.INSTANCE,
+                VoidNamespaceSerializer.INSTANCE,
+                stateSerializer,
+                new DataOutputViewStreamWrapper(out),
+                null);
+
+        DataInputViewStreamWrapper in =
+                new DataInputViewStreamWrapper(
+                        new ByteArrayInputStreamWithPos(out.getBuf(), 0, out.getPosition()));
+        int size = in.readInt();
+        Map<Long, ArrayList<Integer>> result = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            Assert.assertEquals(NS, VoidNamespaceSerializer.INSTANCE.deserialize(in));
+            result.put(LongSerializer.INSTANCE.deserialize(in), stateSerializer.deserialize(in));
+        }
+        return result;
+    }
+
+    private static Map<Long, ArrayList<Integer>> toMap(
+            CopyOnWritePrimitiveKeyStateMap<Long, VoidNamespace, ArrayList<Integer>> stateMap) {
+        Map<Long, ArrayList<Integer>> result = new HashMap<>();
+        for (StateEntry<Long, VoidNamespace, ArrayList<Integer>> entry : stateMap) {
+            result.put(entry.getKey(), entry.getState());
+        }
+        return result;
+    }
+
+    private static Map<Long, ArrayList<Integer>> deepCopy(Map<Long, ArrayList<Integer>> map) {
+        Map<Long, ArrayList<Integer>> result = new HashMap<>(map.size());
+        for (Map.Entry<Long, ArrayList<Integer>> entry : map.entrySet()) {
+            result.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        return result;
+    }
+}
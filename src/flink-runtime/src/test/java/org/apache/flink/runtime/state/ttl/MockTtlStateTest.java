@@ -32,4 +32,9 @@ public class MockTtlStateTest extends TtlStateTestBase {
             }
         };
     }
+
+    @Override
+    protected boolean batchedLookupsSupported() {
+        return false;
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.state.ttl;
+
+import org.apache.flink.api.common.typeutils.base.ListSerializer;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.runtime.state.ttl.TtlStateFactory.TtlSerializer;
+import org.apache.flink.util.InstantiationUtil;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for the {@link TtlSerializer} and the lazily deserialized {@link TtlValue}. */
+public class TtlSerializerTest extends TestLogger {
+
+    private static final List<String> USER_VALUE = Arrays.asList("a", "b", "c");
+
+    private final TtlSerializer<List<String>> serializer =
+            new TtlSerializer<>(
+                    LongSerializer.INSTANCE, new ListSerializer<>(StringSerializer.INSTANCE));
+
+    @Test
+    public void testSerializationRoundTrip() throws IOException {
+        byte[] bytes = serialize(new TtlValue<>(USER_VALUE, 42L));
+
+        TtlValue<List<String>> deserialized =
+                serializer.deserialize(new DataInputDeserializer(bytes));
+
+        assertEquals(42L, deserialized.getLastAccessTimestamp());
+        assertEquals(USER_VALUE, deserialized.getUserValue());
+        assertEquals(42L, new DataInputDeserializer(bytes).readLong());
+    }
+
+    @Test
+    public void testLazyDeserializationOnlyReadsTimestamp() throws IOException {
+        byte[] serialized = serialize(new TtlValue<>(USER_VALUE, 42L));
+        // the value may be preceded by other data, e.g. the null flag of map values
+        byte[] bytes = new byte[serialized.length + 1];
+        System.arraycopy(serialized, 0, bytes, 1, serialized.length);
+
+        TtlValue<List<String>> lazy = serializer.deserializeLazily(bytes, 1, serialized.length);
+
+        assertEquals(42L, lazy.getLastAccessTimestamp());
+        assertTrue(((LazyTtlValue<List<String>>) lazy).isSerialized());
+        assertEquals(USER_VALUE, lazy.getUserValue());
+        assertFalse(((LazyTtlValue<List<String>>) lazy).isSerialized());
+    }
+
+    @Test
+    public void testRenewedTimestampKeepsSerializedUserValue() throws IOException {
+        byte[] bytes = serialize(new TtlValue<>(USER_VALUE, 42L));
+        TtlValue<List<String>> lazy = serializer.deserializeLazily(bytes, 0, bytes.length);
+
+        TtlValue<List<String>> renewed = lazy.withLastAccessTimestamp(100L);
+
+        assertEquals(100L, renewed.getLastAccessTimestamp());
+        assertTrue(((LazyTtlValue<List<String>>) lazy).isSerialized());
+        assertTrue(((LazyTtlValue<List<String>>) renewed).isSerialized());
+        assertArrayEquals(serialize(new TtlValue<>(USER_VALUE, 100L)), serialize(renewed));
+    }
+
+    @Test
+    public void testCopiesDoNotShareDeserializedUserValue() throws IOException {
+        byte[] bytes = serialize(new TtlValue<>(USER_VALUE, 42L));
+        TtlValue<List<String>> lazy = serializer.deserializeLazily(bytes, 0, bytes.length);
+
+        TtlValue<List<String>> copy = serializer.copy(lazy);
+
+        assertTrue(((LazyTtlValue<List<String>>) copy).isSerialized());
+        assertEquals(USER_VALUE, copy.getUserValue());
+        assertNotSame(copy.getUserValue(), lazy.getUserValue());
+
+        TtlValue<List<String>> copyOfDeserialized = serializer.copy(lazy);
+        assertEquals(USER_VALUE, copyOfDeserialized.getUserValue());
+        assertNotSame(lazy.getUserValue(), copyOfDeserialized.getUserValue());
+    }
+
+    @Test
+    public void testJavaSerializationOfLazyValue() throws Exception {
+        byte[] bytes = serialize(new TtlValue<>(USER_VALUE, 42L));
+        TtlValue<List<String>> lazy = serializer.deserializeLazily(bytes, 0, bytes.length);
+
+        TtlValue<List<String>> cloned = InstantiationUtil.clone(lazy);
+
+        assertEquals(TtlValue.class, cloned.getClass());
+        assertEquals(42L, cloned.getLastAccessTimestamp());
+        assertEquals(USER_VALUE, cloned.getUserValue());
+    }
+
+    private byte[] serialize(TtlValue<List<String>> value) throws IOException {
+        DataOutputSerializer out = new DataOutputSerializer(32);
+        serializer.serialize(value, out);
+        return out.getCopyOfBuffer();
+    }
+}
@@ -36,7 +36,9 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.RunnableFuture;
 import java.util.function.Consumer;
 
@@ -176,6 +178,10 @@ public abstract class TtlStateTestBase {
         return false;
     }
 
+    protected boolean batchedLookupsSupported() {
+        return true;
+    }
+
     @Test
     public void testNonExistentValue() throws Exception {
         initTest();
@@ -342,6 +348,44 @@ public abstract class TtlStateTestBase {
                 mctx().get());
     }
 
+    @Test
+    public void testValueStateGetAll() throws Exception {
+        assumeThat(ctx, instanceOf(TtlValueStateTestContext.class));
+        assumeTrue(batchedLookupsSupported());
+        initTest();
+
+        timeProvider.time = 0;
+        sbetc.setCurrentKey("k1");
+        ctx().update(ctx().updateEmpty);
+
+        timeProvider.time = 50;
+        sbetc.setCurrentKey("k2");
+        ctx().update(ctx().updateUnexpired);
+
+        timeProvider.time = 120;
+        sbetc.setCurrentKey("defaultKey");
+        assertEquals(
+                EXPIRED_UNAVAIL,
+                Collections.singletonMap("k2", ctx().getUnexpired),
+                getAll(Arrays.asList("k1", "k2", "k3")));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testValueStateGetAllWithUpdateOnRead() throws Exception {
+        assumeThat(ctx, instanceOf(TtlValueStateTestContext.class));
+        initTest(
+                StateTtlConfig.UpdateType.OnReadAndWrite,
+                StateTtlConfig.StateVisibility.NeverReturnExpired);
+
+        // refreshing the timestamps of a batch would have to write every key
+        getAll(Collections.singletonList("k1"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> getAll(List<String> keys) throws Exception {
+        return ((InternalKvState<String, String, ?>) ctx().ttlState).getAll(keys);
+    }
+
     @Test
     public void testMultipleKeys() throws Exception {
         initTest();
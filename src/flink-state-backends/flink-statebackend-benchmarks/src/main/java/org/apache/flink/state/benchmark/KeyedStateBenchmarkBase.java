@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.state.benchmark;
+
+import org.apache.flink.api.common.state.State;
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.state.benchmark.StateBackendBenchmarkUtils.StateBackendType;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Base class for benchmarks of the state primitives of the heap and the RocksDB keyed state
+ * backend, with and without TTL.
+ */
+public abstract class KeyedStateBenchmarkBase extends StateBackendBenchmarkBase {
+
+    @Param({"HEAP", "ROCKSDB"})
+    public StateBackendType backendType;
+
+    @Param({"false", "true"})
+    public boolean ttl;
+
+    /** Creates the state for the given descriptor, wrapped by the TTL state if enabled. */
+    protected <S extends State> S getState(StateDescriptor<S, ?> stateDescriptor)
+            throws Exception {
+        if (ttl) {
+            StateBackendBenchmarkUtils.enableTtl(stateDescriptor);
+        }
+        return keyedStateBackend.getPartitionedState(
+                VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, stateDescriptor);
+    }
+}
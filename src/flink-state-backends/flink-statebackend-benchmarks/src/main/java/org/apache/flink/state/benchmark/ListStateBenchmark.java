@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.state.benchmark;
+
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Benchmarks for the {@link ListState} of the keyed state backends. */
+public class ListStateBenchmark extends KeyedStateBenchmarkBase {
+
+    /** The number of elements in the list of every key that is read. */
+    private static final int LIST_SIZE = 50;
+
+    private ListState<Long> listState;
+
+    /** A separate state for appends, which is cleared after every iteration. */
+    private ListState<Long> appendListState;
+
+    private List<Long> updateValues;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options =
+                new OptionsBuilder()
+                        .include(".*" + ListStateBenchmark.class.getCanonicalName() + ".*")
+                        .build();
+
+        new Runner(options).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        setUpKeyedStateBackend(backendType);
+        listState = getState(new ListStateDescriptor<>("list", LongSerializer.INSTANCE));
+        appendListState =
+                getState(new ListStateDescriptor<>("appendList", LongSerializer.INSTANCE));
+
+        updateValues = new ArrayList<>(LIST_SIZE);
+        for (long i = 0; i < LIST_SIZE; i++) {
+            updateValues.add(i);
+        }
+
+        for (long key : keys) {
+            keyedStateBackend.setCurrentKey(key);
+            listState.update(updateValues);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearAppendedElements() throws Exception {
+        for (long key : keys) {
+            keyedStateBackend.setCurrentKey(key);
+            appendListState.clear();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        tearDownKeyedStateBackend();
+    }
+
+    @Benchmark
+    public void listAdd() throws Exception {
+        long key = setNextKey();
+        appendListState.add(key);
+    }
+
+    @Benchmark
+    public void listUpdate() throws Exception {
+        setNextKey();
+        listState.update(updateValues);
+    }
+
+    @Benchmark
+    public void listGetAndIterate(Blackhole blackhole) throws Exception {
+        setNextKey();
+        for (Long element : listState.get()) {
+            blackhole.consume(element);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.state.benchmark;
+
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+
+/** Benchmarks for the {@link MapState} of the keyed state backends. */
+public class MapStateBenchmark extends KeyedStateBenchmarkBase {
+
+    /** The number of entries in the map of every key. */
+    private static final int MAP_SIZE = 10;
+
+    private MapState<Long, Long> mapState;
+
+    private long userKey;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options =
+                new OptionsBuilder()
+                        .include(".*" + MapStateBenchmark.class.getCanonicalName() + ".*")
+                        .build();
+
+        new Runner(options).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        setUpKeyedStateBackend(backendType);
+        mapState =
+                getState(
+                        new MapStateDescriptor<>(
+                                "map", LongSerializer.INSTANCE, LongSerializer.INSTANCE));
+        for (long key : keys) {
+            keyedStateBackend.setCurrentKey(key);
+            for (long i = 0; i < MAP_SIZE; i++) {
+                mapState.put(i, key);
+            }
+        }
+        userKey = 0L;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        tearDownKeyedStateBackend();
+    }
+
+    @Benchmark
+    public void mapPut() throws Exception {
+        long key = setNextKey();
+        mapState.put(nextUserKey(), key);
+    }
+
+    @Benchmark
+    public Long mapGet() throws Exception {
+        setNextKey();
+        return mapState.get(nextUserKey());
+    }
+
+    @Benchmark
+    public boolean mapContains() throws Exception {
+        setNextKey();
+        // every second user key does not exist
+        return mapState.contains(nextUserKey() * 2);
+    }
+
+    @Benchmark
+    public void mapIterator(Blackhole blackhole) throws Exception {
+        setNextKey();
+        for (Map.Entry<Long, Long> entry : mapState.entries()) {
+            blackhole.consume(entry.getKey());
+            blackhole.consume(entry.getValue());
+        }
+    }
+
+    private long nextUserKey() {
+        userKey = userKey + 1 == MAP_SIZE ? 0L : userKey + 1;
+        return userKey;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.state.benchmark;
+
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.state.benchmark.StateBackendBenchmarkUtils.StateBackendType;
+import org.apache.flink.streaming.api.operators.TimerHeapInternalTimer;
+import org.apache.flink.streaming.api.operators.TimerSerializer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmarks for the timer priority queues of the keyed state backends, i.e. the {@link
+ * org.apache.flink.runtime.state.heap.HeapPriorityQueueSet} of the heap backend and the {@code
+ * RocksDBCachingPriorityQueueSet} of the RocksDB backend.
+ */
+public class PriorityQueueBenchmark extends StateBackendBenchmarkBase {
+
+    @Param({"HEAP", "ROCKSDB"})
+    public StateBackendType backendType;
+
+    private KeyGroupedInternalPriorityQueue<TimerHeapInternalTimer<Long, VoidNamespace>> queue;
+
+    /** Timestamps of new timers, which are later than the timestamps of all existing timers. */
+    private long nextTimestamp;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options =
+                new OptionsBuilder()
+                        .include(".*" + PriorityQueueBenchmark.class.getCanonicalName() + ".*")
+                        .build();
+
+        new Runner(options).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        setUpKeyedStateBackend(backendType);
+        queue =
+                keyedStateBackend.create(
+                        "timers",
+                        new TimerSerializer<>(
+                                LongSerializer.INSTANCE, VoidNamespaceSerializer.INSTANCE));
+        // one timer per key, the timestamps are a random permutation of the keys
+        for (int i = 0; i < keys.length; i++) {
+            queue.add(
+                    new TimerHeapInternalTimer<>(
+                            keys[i], keys[keys.length - 1 - i], VoidNamespace.INSTANCE));
+        }
+        nextTimestamp = keys.length;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        tearDownKeyedStateBackend();
+    }
+
+    /** Registers a new timer and fires the earliest timer, which keeps the size constant. */
+    @Benchmark
+    public TimerHeapInternalTimer<Long, VoidNamespace> timerAddAndPoll() {
+        long timestamp = nextTimestamp++;
+        queue.add(
+                new TimerHeapInternalTimer<>(
+                        timestamp, keys[(int) (timestamp % keys.length)], VoidNamespace.INSTANCE));
+        return queue.poll();
+    }
+
+    /** Registers a new timer and deletes it again, which does not change the head. */
+    @Benchmark
+    public boolean timerAddAndRemove() {
+        long timestamp = nextTimestamp++;
+        TimerHeapInternalTimer<Long, VoidNamespace> timer =
+                new TimerHeapInternalTimer<>(
+                        timestamp, keys[(int) (timestamp % keys.length)], VoidNamespace.INSTANCE);
+        queue.add(timer);
+        return queue.remove(timer);
+    }
+
+    /** Looks up the earliest timer, as done for every watermark. */
+    @Benchmark
+    public TimerHeapInternalTimer<Long, VoidNamespace> timerPeek() {
+        return queue.peek();
+    }
+}
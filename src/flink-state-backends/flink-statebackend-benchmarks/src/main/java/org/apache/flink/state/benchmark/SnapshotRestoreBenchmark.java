@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.state.benchmark;
+
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.api.common.typeutils.base.array.BytePrimitiveArraySerializer;
+import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.SharedStateRegistry;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.state.benchmark.StateBackendBenchmarkUtils.StateBackendType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * Benchmarks for checkpoints and restores of the keyed state backends. Each checkpoint follows
+ * updates of one percent of the keys, so that incremental checkpoints have something to skip.
+ */
+@BenchmarkMode(Mode.AverageTime)
+public class SnapshotRestoreBenchmark extends StateBackendBenchmarkBase {
+
+    private static final int VALUE_SIZE = 1024;
+
+    private static final int UPDATES_PER_CHECKPOINT = NUMBER_OF_KEYS / 100;
+
+    @Param({"HEAP", "HEAP_INCREMENTAL", "ROCKSDB", "ROCKSDB_INCREMENTAL"})
+    public StateBackendType backendType;
+
+    private ValueState<byte[]> valueState;
+
+    private byte[] value;
+
+    private CheckpointStreamFactory streamFactory;
+
+    private SharedStateRegistry sharedStateRegistry;
+
+    /** The checkpoint that every restore starts from. */
+    private KeyedStateHandle restoreStateHandle;
+
+    /** The latest checkpoint, which is discarded once the next one completes. */
+    private KeyedStateHandle previousStateHandle;
+
+    private long checkpointId;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options =
+                new OptionsBuilder()
+                        .include(".*" + SnapshotRestoreBenchmark.class.getCanonicalName() + ".*")
+                        .build();
+
+        new Runner(options).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        setUpKeyedStateBackend(backendType);
+        valueState =
+                keyedStateBackend.getPartitionedState(
+                        VoidNamespace.INSTANCE,
+                        VoidNamespaceSerializer.INSTANCE,
+                        new ValueStateDescriptor<>("value", BytePrimitiveArraySerializer.INSTANCE));
+
+        value = new byte[VALUE_SIZE];
+        new Random(42L).nextBytes(value);
+        for (long key : keys) {
+            keyedStateBackend.setCurrentKey(key);
+            valueState.update(value);
+        }
+
+        streamFactory = StateBackendBenchmarkUtils.createStreamFactory(stateBackend);
+        sharedStateRegistry = new SharedStateRegistry();
+        checkpointId = 1L;
+        restoreStateHandle = checkpoint();
+        previousStateHandle = null;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        sharedStateRegistry.close();
+        tearDownKeyedStateBackend();
+    }
+
+    @Benchmark
+    public KeyedStateHandle snapshot() throws Exception {
+        for (int i = 0; i < UPDATES_PER_CHECKPOINT; i++) {
+            setNextKey();
+            valueState.update(value);
+        }
+
+        KeyedStateHandle stateHandle = checkpoint();
+        if (previousStateHandle != null) {
+            previousStateHandle.discardState();
+        }
+        previousStateHandle = stateHandle;
+        return stateHandle;
+    }
+
+    @Benchmark
+    public void restore() throws Exception {
+        AbstractKeyedStateBackend<Long> restoredBackend =
+                StateBackendBenchmarkUtils.createKeyedStateBackend(
+                        stateBackend,
+                        environment,
+                        LongSerializer.INSTANCE,
+                        Collections.singletonList(restoreStateHandle));
+        StateBackendBenchmarkUtils.cleanUp(restoredBackend, null);
+    }
+
+    /** Takes a checkpoint, which is registered and completed like by the checkpoint coordinator. */
+    private KeyedStateHandle checkpoint() throws Exception {
+        long id = checkpointId++;
+        KeyedStateHandle stateHandle =
+                StateBackendBenchmarkUtils.snapshot(keyedStateBackend, streamFactory, id);
+        stateHandle.registerSharedStates(sharedStateRegistry);
+        keyedStateBackend.notifyCheckpointComplete(id);
+        return stateHandle;
+    }
+}
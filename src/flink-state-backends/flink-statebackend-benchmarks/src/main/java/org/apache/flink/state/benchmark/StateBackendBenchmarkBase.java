@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.state.benchmark;
+
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.runtime.operators.testutils.MockEnvironment;
+import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
+import org.apache.flink.runtime.state.AbstractStateBackend;
+import org.apache.flink.state.benchmark.StateBackendBenchmarkUtils.StateBackendType;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base class for benchmarks of a keyed state backend with {@code Long} keys. Subclasses call
+ * {@link #setUpKeyedStateBackend(StateBackendType)} and {@link #tearDownKeyedStateBackend()} from
+ * their JMH setup and tear down methods.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 3, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+public abstract class StateBackendBenchmarkBase {
+
+    /** The number of keys that are filled during setup and accessed by the benchmarks. */
+    protected static final int NUMBER_OF_KEYS = 10_000;
+
+    /** The keys in a random order, so that accesses do not follow the insertion order. */
+    protected long[] keys;
+
+    private int keyIndex;
+
+    protected File rootDir;
+
+    protected MockEnvironment environment;
+
+    protected AbstractStateBackend stateBackend;
+
+    protected AbstractKeyedStateBackend<Long> keyedStateBackend;
+
+    protected void setUpKeyedStateBackend(StateBackendType backendType) throws Exception {
+        rootDir = Files.createTempDirectory("state-benchmark").toFile();
+        environment = MockEnvironment.builder().build();
+        stateBackend = StateBackendBenchmarkUtils.createStateBackend(backendType, rootDir);
+        keyedStateBackend =
+                StateBackendBenchmarkUtils.createKeyedStateBackend(
+                        stateBackend,
+                        environment,
+                        LongSerializer.INSTANCE,
+                        Collections.emptyList());
+
+        Random random = new Random(42L);
+        keys = new long[NUMBER_OF_KEYS];
+        for (int i = 0; i < NUMBER_OF_KEYS; i++) {
+            keys[i] = i;
+        }
+        for (int i = NUMBER_OF_KEYS - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+        keyIndex = 0;
+    }
+
+    protected void tearDownKeyedStateBackend() throws Exception {
+        StateBackendBenchmarkUtils.cleanUp(keyedStateBackend, rootDir);
+        keyedStateBackend = null;
+        if (environment != null) {
+            environment.close();
+            environment = null;
+        }
+    }
+
+    /** Sets the next key of the random sequence as the current key and returns it. */
+    protected long setNextKey() {
+        long key = keys[keyIndex];
+        keyIndex = keyIndex + 1 == keys.length ? 0 : keyIndex + 1;
+        keyedStateBackend.setCurrentKey(key);
+        return key;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.state.benchmark;
+
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.state.StateTtlConfig;
+import org.apache.flink.api.common.time.Time;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.configuration.CheckpointingOptions;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.contrib.streaming.state.RocksDBStateBackend;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.concurrent.FutureUtils;
+import org.apache.flink.runtime.execution.Environment;
+import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
+import org.apache.flink.runtime.state.AbstractStateBackend;
+import org.apache.flink.runtime.state.CheckpointStorageLocationReference;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.filesystem.FsStateBackend;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.util.FileUtils;
+import org.apache.flink.util.IOUtils;
+import org.apache.flink.util.TernaryBoolean;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.RunnableFuture;
+
+/** Utilities to create and snapshot the keyed state backends that are benchmarked. */
+public final class StateBackendBenchmarkUtils {
+
+    /** The maximum parallelism of the benchmarked backends, which own all key groups. */
+    public static final int NUMBER_OF_KEY_GROUPS = 128;
+
+    /** The state backends and checkpointing modes that can be benchmarked. */
+    public enum StateBackendType {
+        HEAP(false),
+        HEAP_INCREMENTAL(true),
+        ROCKSDB(false),
+        ROCKSDB_INCREMENTAL(true);
+
+        private final boolean incremental;
+
+        StateBackendType(boolean incremental) {
+            this.incremental = incremental;
+        }
+
+        public boolean isRocksDB() {
+            return this == ROCKSDB || this == ROCKSDB_INCREMENTAL;
+        }
+    }
+
+    /**
+     * Creates the state backend of the given type. All checkpoint data and local RocksDB files are
+     * written below the given directory.
+     */
+    public static AbstractStateBackend createStateBackend(StateBackendType type, File rootDir)
+            throws IOException {
+        File checkpointDir = new File(rootDir, "checkpoints");
+        Configuration configuration = new Configuration();
+        configuration.set(CheckpointingOptions.INCREMENTAL_CHECKPOINTS, type.incremental);
+
+        FsStateBackend fsStateBackend =
+                new FsStateBackend(checkpointDir.toURI(), true)
+                        .configure(configuration, Thread.currentThread().getContextClassLoader());
+        if (!type.isRocksDB()) {
+            return fsStateBackend;
+        }
+
+        RocksDBStateBackend rocksDBStateBackend =
+                new RocksDBStateBackend(
+                        fsStateBackend, TernaryBoolean.fromBoolean(type.incremental));
+        rocksDBStateBackend.setDbStoragePath(new File(rootDir, "rocksdb").getAbsolutePath());
+        rocksDBStateBackend.setPriorityQueueStateType(
+                RocksDBStateBackend.PriorityQueueStateType.ROCKSDB);
+        return rocksDBStateBackend;
+    }
+
+    /** Creates a keyed state backend for all key groups, restored from the given state. */
+    public static <K> AbstractKeyedStateBackend<K> createKeyedStateBackend(
+            AbstractStateBackend stateBackend,
+            Environment environment,
+            TypeSerializer<K> keySerializer,
+            Collection<KeyedStateHandle> stateHandles)
+            throws Exception {
+        return stateBackend.createKeyedStateBackend(
+                environment,
+                new JobID(),
+                "benchmark",
+                keySerializer,
+                NUMBER_OF_KEY_GROUPS,
+                new KeyGroupRange(0, NUMBER_OF_KEY_GROUPS - 1),
+                environment.getTaskKvStateRegistry(),
+                TtlTimeProvider.DEFAULT,
+                new UnregisteredMetricsGroup(),
+                stateHandles,
+                new CloseableRegistry());
+    }
+
+    /** Creates the factory for the checkpoint streams of the given state backend. */
+    public static CheckpointStreamFactory createStreamFactory(AbstractStateBackend stateBackend)
+            throws IOException {
+        return stateBackend
+                .createCheckpointStorage(new JobID())
+                .resolveCheckpointStorageLocation(
+                        1L, CheckpointStorageLocationReference.getDefault());
+    }
+
+    /** Takes a checkpoint of the given keyed state backend, including its asynchronous part. */
+    public static KeyedStateHandle snapshot(
+            AbstractKeyedStateBackend<?> keyedStateBackend,
+            CheckpointStreamFactory streamFactory,
+            long checkpointId)
+            throws Exception {
+        RunnableFuture<SnapshotResult<KeyedStateHandle>> snapshotFuture =
+                keyedStateBackend.snapshot(
+                        checkpointId,
+                        checkpointId,
+                        streamFactory,
+                        CheckpointOptions.forCheckpointWithDefaultLocation());
+        return FutureUtils.runIfNotDoneAndGet(snapshotFuture).getJobManagerOwnedSnapshot();
+    }
+
+    /**
+     * Enables TTL for the given state descriptor. The TTL is long enough that no state expires
+     * during a benchmark, so only the overhead of the TTL wrappers is measured.
+     */
+    public static <D extends StateDescriptor<?, ?>> D enableTtl(D stateDescriptor) {
+        stateDescriptor.enableTimeToLive(StateTtlConfig.newBuilder(Time.days(1)).build());
+        return stateDescriptor;
+    }
+
+    /** Disposes the given keyed state backend and deletes all files below the given directory. */
+    public static void cleanUp(AbstractKeyedStateBackend<?> keyedStateBackend, File rootDir)
+            throws IOException {
+        if (keyedStateBackend != null) {
+            IOUtils.closeQuietly(keyedStateBackend);
+            keyedStateBackend.dispose();
+        }
+        if (rootDir != null) {
+            FileUtils.deleteDirectory(rootDir);
+        }
+    }
+
+    /** Utility class, not meant to be instantiated. */
+    private StateBackendBenchmarkUtils() {}
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.state.benchmark;
+
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/** Benchmarks for the {@link ValueState} of the keyed state backends. */
+public class ValueStateBenchmark extends KeyedStateBenchmarkBase {
+
+    private ValueState<Long> valueState;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options =
+                new OptionsBuilder()
+                        .include(".*" + ValueStateBenchmark.class.getCanonicalName() + ".*")
+                        .build();
+
+        new Runner(options).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        setUpKeyedStateBackend(backendType);
+        valueState = getState(new ValueStateDescriptor<>("value", LongSerializer.INSTANCE));
+        for (long key : keys) {
+            keyedStateBackend.setCurrentKey(key);
+            valueState.update(key);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        tearDownKeyedStateBackend();
+    }
+
+    @Benchmark
+    public void valueUpdate() throws Exception {
+        long key = setNextKey();
+        valueState.update(key);
+    }
+
+    @Benchmark
+    public Long valueGet() throws Exception {
+        setNextKey();
+        return valueState.value();
+    }
+
+    @Benchmark
+    public void valueGetAndUpdate() throws Exception {
+        setNextKey();
+        valueState.update(valueState.value() + 1);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.state.benchmark;
+
+import org.apache.flink.state.benchmark.StateBackendBenchmarkUtils.StateBackendType;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Test;
+import org.openjdk.jmh.infra.Blackhole;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/** Runs every benchmark a few times, to make sure that the benchmarks work. */
+public class StateBackendBenchmarksTest extends TestLogger {
+
+    private static final int INVOCATIONS = 100;
+
+    private final Blackhole blackhole =
+            new Blackhole(
+                    "Today's password is swordfish. I understand instantiating Blackholes directly is dangerous.");
+
+    @Test
+    public void testKeyedStateBenchmarks() throws Exception {
+        for (StateBackendType backendType :
+                new StateBackendType[] {StateBackendType.HEAP, StateBackendType.ROCKSDB}) {
+            for (boolean ttl : new boolean[] {false, true}) {
+                runValueStateBenchmark(backendType, ttl);
+                runListStateBenchmark(backendType, ttl);
+                runMapStateBenchmark(backendType, ttl);
+            }
+        }
+    }
+
+    @Test
+    public void testPriorityQueueBenchmark() throws Exception {
+        for (StateBackendType backendType :
+                new StateBackendType[] {StateBackendType.HEAP, StateBackendType.ROCKSDB}) {
+            PriorityQueueBenchmark benchmark = new PriorityQueueBenchmark();
+            benchmark.backendType = backendType;
+            benchmark.setUp();
+            try {
+                long previousTimestamp = Long.MIN_VALUE;
+                for (int i = 0; i < INVOCATIONS; i++) {
+                    long timestamp = benchmark.timerAddAndPoll().getTimestamp();
+                    assertTrue(timestamp > previousTimestamp);
+                    previousTimestamp = timestamp;
+                    benchmark.timerAddAndRemove();
+                    assertNotNull(benchmark.timerPeek());
+                }
+            } finally {
+                benchmark.tearDown();
+            }
+        }
+    }
+
+    @Test
+    public void testSnapshotRestoreBenchmark() throws Exception {
+        for (StateBackendType backendType : StateBackendType.values()) {
+            SnapshotRestoreBenchmark benchmark = new SnapshotRestoreBenchmark();
+            benchmark.backendType = backendType;
+            benchmark.setUp();
+            try {
+                for (int i = 0; i < 3; i++) {
+                    assertNotNull(benchmark.snapshot());
+                }
+                benchmark.restore();
+            } finally {
+                benchmark.tearDown();
+            }
+        }
+    }
+
+    private void runValueStateBenchmark(StateBackendType backendType, boolean ttl)
+            throws Exception {
+        ValueStateBenchmark benchmark = new ValueStateBenchmark();
+        benchmark.backendType = backendType;
+        benchmark.ttl = ttl;
+        benchmark.setUp();
+        try {
+            for (int i = 0; i < INVOCATIONS; i++) {
+                benchmark.valueUpdate();
+                assertNotNull(benchmark.valueGet());
+                benchmark.valueGetAndUpdate();
+            }
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
+    private void runListStateBenchmark(StateBackendType backendType, boolean ttl)
+            throws Exception {
+        ListStateBenchmark benchmark = new ListStateBenchmark();
+        benchmark.backendType = backendType;
+        benchmark.ttl = ttl;
+        benchmark.setUp();
+        try {
+            for (int i = 0; i < INVOCATIONS; i++) {
+                benchmark.listAdd();
+                benchmark.listUpdate();
+                benchmark.listGetAndIterate(blackhole);
+            }
+            benchmark.clearAppendedElements();
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
+    private void runMapStateBenchmark(StateBackendType backendType, boolean ttl)
+            throws Exception {
+        MapStateBenchmark benchmark = new MapStateBenchmark();
+        benchmark.backendType = backendType;
+        benchmark.ttl = ttl;
+        benchmark.setUp();
+        try {
+            for (int i = 0; i < INVOCATIONS; i++) {
+                benchmark.mapPut();
+                assertNotNull(benchmark.mapGet());
+                benchmark.mapContains();
+                benchmark.mapIterator(blackhole);
+            }
+            assertEquals(StateBackendBenchmarkBase.NUMBER_OF_KEYS, benchmark.keys.length);
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+}
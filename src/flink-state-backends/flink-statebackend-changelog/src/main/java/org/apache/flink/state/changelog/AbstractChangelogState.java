@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.runtime.state.StateEntry;
+import org.apache.flink.runtime.state.internal.InternalKvState;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.function.SupplierWithException;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Base class for the states of the {@link ChangelogKeyedStateBackend}. All reads are served by the
+ * state of the wrapped backend, all writes are applied to the wrapped state and then logged.
+ *
+ * @param <K> The type of the key.
+ * @param <N> The type of the namespace.
+ * @param <V> The type of values kept internally in state.
+ * @param <S> The type of the wrapped state.
+ */
+abstract class AbstractChangelogState<K, N, V, S extends InternalKvState<K, N, V>>
+        implements InternalKvState<K, N, V> {
+
+    protected final S delegatedState;
+
+    protected final KvStateChangeLogger<K, N> changeLogger;
+
+    protected N currentNamespace;
+
+    AbstractChangelogState(S delegatedState, KvStateChangeLogger<K, N> changeLogger) {
+        this.delegatedState = delegatedState;
+        this.changeLogger = changeLogger;
+    }
+
+    S getDelegatedState() {
+        return delegatedState;
+    }
+
+    @Override
+    public TypeSerializer<K> getKeySerializer() {
+        return delegatedState.getKeySerializer();
+    }
+
+    @Override
+    public TypeSerializer<N> getNamespaceSerializer() {
+        return delegatedState.getNamespaceSerializer();
+    }
+
+    @Override
+    public TypeSerializer<V> getValueSerializer() {
+        return delegatedState.getValueSerializer();
+    }
+
+    @Override
+    public void setCurrentNamespace(N namespace) {
+        currentNamespace = namespace;
+        delegatedState.setCurrentNamespace(namespace);
+    }
+
+    @Override
+    public byte[] getSerializedValue(
+            byte[] serializedKeyAndNamespace,
+            TypeSerializer<K> safeKeySerializer,
+            TypeSerializer<N> safeNamespaceSerializer,
+            TypeSerializer<V> safeValueSerializer)
+            throws Exception {
+        return delegatedState.getSerializedValue(
+                serializedKeyAndNamespace,
+                safeKeySerializer,
+                safeNamespaceSerializer,
+                safeValueSerializer);
+    }
+
+    @Override
+    public Map<K, V> getAll(Collection<K> keys) throws Exception {
+        return delegatedState.getAll(keys);
+    }
+
+    @Override
+    public StateIncrementalVisitor<K, N, V> getStateIncrementalVisitor(
+            int recommendedMaxNumberOfReturnedRecords) {
+        return new ChangelogStateIncrementalVisitor(
+                delegatedState.getStateIncrementalVisitor(recommendedMaxNumberOfReturnedRecords));
+    }
+
+    @Override
+    public void clear() {
+        delegatedState.clear();
+        try {
+            changeLogger.log(StateChangeOperation.CLEAR, currentNamespace, null);
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Error while logging state change", e);
+        }
+    }
+
+    /** Logs that the value of the current key and namespace was replaced, or cleared if null. */
+    protected void logValueSet(@Nullable V value) throws IOException {
+        logValueSet(currentNamespace, value);
+    }
+
+    private void logValueSet(N namespace, @Nullable V value) throws IOException {
+        if (value == null) {
+            changeLogger.log(StateChangeOperation.CLEAR, namespace, null);
+        } else {
+            changeLogger.log(
+                    StateChangeOperation.SET,
+                    namespace,
+                    out -> getValueSerializer().serialize(value, out));
+        }
+    }
+
+    /**
+     * Logs the result of merging the given source namespaces into the target namespace: the
+     * sources are cleared and the target holds the merged internal value.
+     */
+    protected void logMergedNamespaces(
+            N target, Collection<N> sources, SupplierWithException<V, Exception> internalValue)
+            throws Exception {
+        if (sources == null || sources.isEmpty()) {
+            return;
+        }
+
+        for (N source : sources) {
+            if (source != null && !source.equals(target)) {
+                changeLogger.log(StateChangeOperation.CLEAR, source, null);
+            }
+        }
+
+        final N previousNamespace = currentNamespace;
+        delegatedState.setCurrentNamespace(target);
+        try {
+            logValueSet(target, internalValue.get());
+        } finally {
+            delegatedState.setCurrentNamespace(previousNamespace);
+        }
+    }
+
+    /**
+     * Visitor that logs the removals and updates that are applied through it, e.g. by the
+     * incremental cleanup of expired state.
+     */
+    private class ChangelogStateIncrementalVisitor implements StateIncrementalVisitor<K, N, V> {
+
+        private final StateIncrementalVisitor<K, N, V> delegatedVisitor;
+
+        private ChangelogStateIncrementalVisitor(
+                StateIncrementalVisitor<K, N, V> delegatedVisitor) {
+            this.delegatedVisitor = delegatedVisitor;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return delegatedVisitor.hasNext();
+        }
+
+        @Override
+        public Collection<StateEntry<K, N, V>> nextEntries() {
+            return delegatedVisitor.nextEntries();
+        }
+
+        @Override
+        public void remove(StateEntry<K, N, V> stateEntry) {
+            delegatedVisitor.remove(stateEntry);
+            try {
+                changeLogger.logForKey(
+                        StateChangeOperation.CLEAR,
+                        stateEntry.getKey(),
+                        stateEntry.getNamespace(),
+                        null);
+            } catch (IOException e) {
+                throw new FlinkRuntimeException("Error while logging state change", e);
+            }
+        }
+
+        @Override
+        public void update(StateEntry<K, N, V> stateEntry, V newValue) {
+            delegatedVisitor.update(stateEntry, newValue);
+            try {
+                changeLogger.logForKey(
+                        StateChangeOperation.SET,
+                        stateEntry.getKey(),
+                        stateEntry.getNamespace(),
+                        out -> getValueSerializer().serialize(newValue, out));
+            } catch (IOException e) {
+                throw new FlinkRuntimeException("Error while logging state change", e);
+            }
+        }
+    }
+}
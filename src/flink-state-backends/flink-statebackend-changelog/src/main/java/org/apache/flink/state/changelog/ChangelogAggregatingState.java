@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog;
+
+import org.apache.flink.runtime.state.internal.InternalAggregatingState;
+
+import java.util.Collection;
+
+/**
+ * {@link ChangelogKeyedStateBackend} implementation of {@link InternalAggregatingState}. There is
+ * no serializer for the input values, so every addition logs the resulting accumulator.
+ *
+ * @param <K> The type of the key.
+ * @param <N> The type of the namespace.
+ * @param <IN> The type of the values that are added to the state.
+ * @param <ACC> The type of the accumulator.
+ * @param <OUT> The type of the values that are returned from the state.
+ */
+class ChangelogAggregatingState<K, N, IN, ACC, OUT>
+        extends AbstractChangelogState<K, N, ACC, InternalAggregatingState<K, N, IN, ACC, OUT>>
+        implements InternalAggregatingState<K, N, IN, ACC, OUT> {
+
+    ChangelogAggregatingState(
+            InternalAggregatingState<K, N, IN, ACC, OUT> delegatedState,
+            KvStateChangeLogger<K, N> changeLogger) {
+        super(delegatedState, changeLogger);
+    }
+
+    @Override
+    public OUT get() throws Exception {
+        return delegatedState.get();
+    }
+
+    @Override
+    public void add(IN value) throws Exception {
+        delegatedState.add(value);
+        logValueSet(delegatedState.getInternal());
+    }
+
+    @Override
+    public ACC getInternal() throws Exception {
+        return delegatedState.getInternal();
+    }
+
+    @Override
+    public void updateInternal(ACC valueToStore) throws Exception {
+        delegatedState.updateInternal(valueToStore);
+        logValueSet(valueToStore);
+    }
+
+    @Override
+    public void mergeNamespaces(N target, Collection<N> sources) throws Exception {
+        delegatedState.mergeNamespaces(target, sources);
+        logMergedNamespaces(target, sources, delegatedState::getInternal);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
+import org.apache.flink.runtime.state.Keyed;
+import org.apache.flink.util.CloseableIterator;
+import org.apache.flink.util.FlinkRuntimeException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * {@link ChangelogKeyedStateBackend} wrapper of a {@link KeyGroupedInternalPriorityQueue}, e.g. the
+ * queue of the timers of an operator. Additions and removals, including the removals by {@link
+ * #poll()}, are logged with the serialized element.
+ *
+ * @param <T> The type of the elements in the queue.
+ */
+class ChangelogKeyGroupedPriorityQueue<T extends Keyed<?>>
+        implements KeyGroupedInternalPriorityQueue<T> {
+
+    private final KeyGroupedInternalPriorityQueue<T> delegatedQueue;
+
+    private final StateChangelogWriter changelogWriter;
+
+    private final int stateId;
+
+    private final TypeSerializer<T> elementSerializer;
+
+    private final int numberOfKeyGroups;
+
+    ChangelogKeyGroupedPriorityQueue(
+            KeyGroupedInternalPriorityQueue<T> delegatedQueue,
+            StateChangelogWriter changelogWriter,
+            int stateId,
+            TypeSerializer<T> elementSerializer,
+            int numberOfKeyGroups) {
+        this.delegatedQueue = delegatedQueue;
+        this.changelogWriter = changelogWriter;
+        this.stateId = stateId;
+        this.elementSerializer = elementSerializer;
+        this.numberOfKeyGroups = numberOfKeyGroups;
+    }
+
+    KeyGroupedInternalPriorityQueue<T> getDelegatedQueue() {
+        return delegatedQueue;
+    }
+
+    @Nullable
+    @Override
+    public T poll() {
+        T polled = delegatedQueue.poll();
+        if (polled != null) {
+            logChange(StateChangeOperation.REMOVE_QUEUE_ELEMENT, polled);
+        }
+        return polled;
+    }
+
+    @Nullable
+    @Override
+    public T peek() {
+        return delegatedQueue.peek();
+    }
+
+    @Override
+    public boolean add(@Nonnull T toAdd) {
+        boolean headChanged = delegatedQueue.add(toAdd);
+        logChange(StateChangeOperation.ADD_QUEUE_ELEMENT, toAdd);
+        return headChanged;
+    }
+
+    @Override
+    public boolean remove(@Nonnull T toRemove) {
+        boolean headChanged = delegatedQueue.remove(toRemove);
+        logChange(StateChangeOperation.REMOVE_QUEUE_ELEMENT, toRemove);
+        return headChanged;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return delegatedQueue.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return delegatedQueue.size();
+    }
+
+    @Override
+    public void addAll(@Nullable Collection<? extends T> toAdd) {
+        delegatedQueue.addAll(toAdd);
+        if (toAdd != null) {
+            for (T element : toAdd) {
+                logChange(StateChangeOperation.ADD_QUEUE_ELEMENT, element);
+            }
+        }
+    }
+
+    @Nonnull
+    @Override
+    public CloseableIterator<T> iterator() {
+        return delegatedQueue.iterator();
+    }
+
+    @Nonnull
+    @Override
+    public Set<T> getSubsetForKeyGroup(int keyGroupId) {
+        return delegatedQueue.getSubsetForKeyGroup(keyGroupId);
+    }
+
+    private void logChange(StateChangeOperation operation, T element) {
+        try {
+            changelogWriter.append(
+                    stateId,
+                    operation,
+                    KeyGroupRangeAssignment.assignToKeyGroup(element.getKey(), numberOfKeyGroups),
+                    out -> elementSerializer.serialize(element, out));
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Error while logging state change", e);
+        }
+    }
+}
@@ -0,0 +1,843 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.state.AggregatingStateDescriptor;
+import org.apache.flink.api.common.state.CheckpointListener;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ReducingStateDescriptor;
+import org.apache.flink.api.common.state.State;
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.concurrent.FutureUtils;
+import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.CheckpointableKeyedStateBackend;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
+import org.apache.flink.runtime.state.Keyed;
+import org.apache.flink.runtime.state.KeyedStateFunction;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.PriorityComparable;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.StateHandleID;
+import org.apache.flink.runtime.state.StateSnapshotTransformer.StateSnapshotTransformFactory;
+import org.apache.flink.runtime.state.changelog.ChangelogStateBackendHandle;
+import org.apache.flink.runtime.state.changelog.StateChangelogHandle;
+import org.apache.flink.runtime.state.heap.HeapPriorityQueueElement;
+import org.apache.flink.runtime.state.internal.InternalAggregatingState;
+import org.apache.flink.runtime.state.internal.InternalKvState;
+import org.apache.flink.runtime.state.internal.InternalListState;
+import org.apache.flink.runtime.state.internal.InternalMapState;
+import org.apache.flink.runtime.state.internal.InternalReducingState;
+import org.apache.flink.runtime.state.internal.InternalValueState;
+import org.apache.flink.runtime.state.ttl.TtlStateFactory;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.Preconditions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableFuture;
+import java.util.stream.Stream;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A {@link CheckpointableKeyedStateBackend} that wraps another keyed state backend and appends all
+ * state changes to a state changelog.
+ *
+ * <p>A checkpoint only has to persist the changes that were appended since the previous
+ * checkpoint, the changelog segments written by earlier checkpoints are referenced again. Between
+ * checkpoints, the changes are cut into segments of a bounded size, which are persisted in the
+ * background through the stream factory of the latest checkpoint. A checkpoint then only writes
+ * the changes that were not cut yet.
+ * Independently of checkpointing, the wrapped backend periodically <i>materializes</i> its state:
+ * a snapshot of the wrapped backend is taken in the synchronous part of a checkpoint, but written
+ * in the background on a dedicated thread. Once the checkpoint that triggered the materialization
+ * is confirmed and the materialization is complete, later checkpoints reference the materialized
+ * state instead of the changelog segments that it covers. Checkpoint duration therefore only
+ * depends on the amount of changes between checkpoints, not on the size of the state.
+ *
+ * <p>On restore, the wrapped backend is restored from the materialized state. The changelog
+ * segments are read eagerly, but the changes of a state are only replayed once the state is
+ * registered again, because its serializers are required to interpret them. Until all restored
+ * changes are replayed, no materialization is taken.
+ *
+ * <p>Savepoints are always taken by the wrapped backend, so that they do not depend on the
+ * changelog.
+ *
+ * @param <K> The key by which state is keyed.
+ */
+public class ChangelogKeyedStateBackend<K>
+        implements CheckpointableKeyedStateBackend<K>, CheckpointListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChangelogKeyedStateBackend.class);
+
+    /** The wrapped backend that holds the state. */
+    private final CheckpointableKeyedStateBackend<K> keyedStateBackend;
+
+    private final ExecutionConfig executionConfig;
+
+    private final TtlTimeProvider ttlTimeProvider;
+
+    @Nullable private final TaskKvStateRegistry kvStateRegistry;
+
+    private final ClassLoader userCodeClassLoader;
+
+    private final int numberOfKeyGroups;
+
+    private final long materializationIntervalMillis;
+
+    private final String operatorIdentifier;
+
+    private final StateChangelogWriter changelogWriter;
+
+    /** So that we can give out state when the user uses the same key. */
+    private final HashMap<String, InternalKvState<K, ?, ?>> keyValueStatesByName;
+
+    /** The changes read from the restored changelog that were not replayed yet. */
+    private final RestoredStateChanges restoredStateChanges;
+
+    /** The changelog segments that were cut after the current materialization was triggered. */
+    private final List<StateChangelogSegment> changelogSegments;
+
+    /** Restored changelog segments, referenced until the first own materialization. */
+    private final List<StateChangelogHandle> restoredChangelogHandles;
+
+    /** Materializations that were triggered but not yet completed and confirmed. */
+    private final List<PendingMaterialization> pendingMaterializations;
+
+    /** The materialized state that is referenced by checkpoints, null if there is none yet. */
+    @Nullable private Materialization materialization;
+
+    @Nullable private ExecutorService materializationExecutor;
+
+    /** Persists the segments that were cut because of their size. */
+    @Nullable private ExecutorService segmentPersistenceExecutor;
+
+    /** The stream factory of the latest checkpoint, null before the first checkpoint. */
+    @Nullable private CheckpointStreamFactory lastStreamFactory;
+
+    private long lastMaterializationTimestamp;
+
+    /** For caching the last accessed partitioned state. */
+    private String lastName;
+
+    @SuppressWarnings("rawtypes")
+    private InternalKvState lastState;
+
+    /** The key-group of the current key, or -1 if it has not been computed yet. */
+    private int currentKeyGroupIndex;
+
+    public ChangelogKeyedStateBackend(
+            CheckpointableKeyedStateBackend<K> keyedStateBackend,
+            String operatorIdentifier,
+            ExecutionConfig executionConfig,
+            TtlTimeProvider ttlTimeProvider,
+            @Nullable TaskKvStateRegistry kvStateRegistry,
+            ClassLoader userCodeClassLoader,
+            int numberOfKeyGroups,
+            long materializationIntervalMillis,
+            int maxSegmentSize,
+            @Nullable Map<StateHandleID, KeyedStateHandle> restoredMaterializedState,
+            List<StateChangelogHandle> restoredChangelogHandles,
+            RestoredStateChanges restoredStateChanges) {
+
+        Preconditions.checkArgument(
+                materializationIntervalMillis >= 0,
+                "The materialization interval must not be negative.");
+
+        this.keyedStateBackend = checkNotNull(keyedStateBackend);
+        this.operatorIdentifier = checkNotNull(operatorIdentifier);
+        this.executionConfig = checkNotNull(executionConfig);
+        this.ttlTimeProvider = checkNotNull(ttlTimeProvider);
+        this.kvStateRegistry = kvStateRegistry;
+        this.userCodeClassLoader = checkNotNull(userCodeClassLoader);
+        this.numberOfKeyGroups = numberOfKeyGroups;
+        this.materializationIntervalMillis = materializationIntervalMillis;
+        this.changelogWriter = new StateChangelogWriter(maxSegmentSize, this::onFullSegment);
+        this.keyValueStatesByName = new HashMap<>();
+        this.restoredStateChanges = checkNotNull(restoredStateChanges);
+        this.changelogSegments = new ArrayList<>();
+        this.restoredChangelogHandles = new ArrayList<>(restoredChangelogHandles);
+        this.pendingMaterializations = new ArrayList<>();
+        this.materialization =
+                restoredMaterializedState == null
+                        ? null
+                        : new Materialization(restoredMaterializedState, -1L);
+        this.lastMaterializationTimestamp = System.currentTimeMillis();
+        this.currentKeyGroupIndex = -1;
+    }
+
+    // ------------------------------------------------------------------------
+    //  Key context
+    // ------------------------------------------------------------------------
+
+    @Override
+    public void setCurrentKey(K newKey) {
+        keyedStateBackend.setCurrentKey(newKey);
+        currentKeyGroupIndex = -1;
+    }
+
+    @Override
+    public K getCurrentKey() {
+        return keyedStateBackend.getCurrentKey();
+    }
+
+    /** Returns the key-group of the current key, which is only computed if a change is logged. */
+    int getCurrentKeyGroupIndex() {
+        if (currentKeyGroupIndex < 0) {
+            currentKeyGroupIndex =
+                    KeyGroupRangeAssignment.assignToKeyGroup(getCurrentKey(), numberOfKeyGroups);
+        }
+        return currentKeyGroupIndex;
+    }
+
+    int getNumberOfKeyGroups() {
+        return numberOfKeyGroups;
+    }
+
+    @Override
+    public TypeSerializer<K> getKeySerializer() {
+        return keyedStateBackend.getKeySerializer();
+    }
+
+    @Override
+    public KeyGroupRange getKeyGroupRange() {
+        return keyedStateBackend.getKeyGroupRange();
+    }
+
+    @Override
+    public void registerKeySelectionListener(KeySelectionListener<K> listener) {
+        keyedStateBackend.registerKeySelectionListener(listener);
+    }
+
+    @Override
+    public boolean deregisterKeySelectionListener(KeySelectionListener<K> listener) {
+        return keyedStateBackend.deregisterKeySelectionListener(listener);
+    }
+
+    /** Returns the wrapped keyed state backend. */
+    public CheckpointableKeyedStateBackend<K> getKeyedStateBackend() {
+        return keyedStateBackend;
+    }
+
+    // ------------------------------------------------------------------------
+    //  State access
+    // ------------------------------------------------------------------------
+
+    @Override
+    public <N, S extends State, T> void applyToAllKeys(
+            N namespace,
+            TypeSerializer<N> namespaceSerializer,
+            StateDescriptor<S, T> stateDescriptor,
+            KeyedStateFunction<K, S> function)
+            throws Exception {
+
+        try (Stream<K> keyStream = getKeys(stateDescriptor.getName(), namespace)) {
+
+            final S state = getPartitionedState(namespace, namespaceSerializer, stateDescriptor);
+
+            keyStream.forEach(
+                    (K key) -> {
+                        setCurrentKey(key);
+                        try {
+                            function.process(key, state);
+                        } catch (Throwable e) {
+                            // we wrap the checked exception in an unchecked
+                            // one and catch it (and re-throw it) later.
+                            throw new RuntimeException(e);
+                        }
+                    });
+        }
+    }
+
+    @Override
+    public <N> Stream<K> getKeys(String state, N namespace) {
+        return keyedStateBackend.getKeys(state, namespace);
+    }
+
+    @Override
+    public <N> Stream<Tuple2<K, N>> getKeysAndNamespaces(String state) {
+        return keyedStateBackend.getKeysAndNamespaces(state);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <N, S extends State, V> S getOrCreateKeyedState(
+            TypeSerializer<N> namespaceSerializer, StateDescriptor<S, V> stateDescriptor)
+            throws Exception {
+        checkNotNull(namespaceSerializer, "Namespace serializer");
+
+        InternalKvState<K, ?, ?> kvState = keyValueStatesByName.get(stateDescriptor.getName());
+        if (kvState == null) {
+            if (!stateDescriptor.isSerializerInitialized()) {
+                stateDescriptor.initializeSerializerUnlessSet(executionConfig);
+            }
+            kvState =
+                    TtlStateFactory.createStateAndWrapWithTtlIfEnabled(
+                            namespaceSerializer, stateDescriptor, this, ttlTimeProvider);
+            keyValueStatesByName.put(stateDescriptor.getName(), kvState);
+            publishQueryableStateIfEnabled(stateDescriptor, kvState);
+        }
+        return (S) kvState;
+    }
+
+    private void publishQueryableStateIfEnabled(
+            StateDescriptor<?, ?> stateDescriptor, InternalKvState<?, ?, ?> kvState) {
+        if (stateDescriptor.isQueryable()) {
+            if (kvStateRegistry == null) {
+                throw new IllegalStateException("State backend has not been initialized for job.");
+            }
+            String name = stateDescriptor.getQueryableStateName();
+            kvStateRegistry.registerKvState(
+                    getKeyGroupRange(), name, kvState, userCodeClassLoader);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <N, S extends State> S getPartitionedState(
+            N namespace,
+            TypeSerializer<N> namespaceSerializer,
+            StateDescriptor<S, ?> stateDescriptor)
+            throws Exception {
+
+        checkNotNull(namespace, "Namespace");
+
+        if (lastName != null && lastName.equals(stateDescriptor.getName())) {
+            lastState.setCurrentNamespace(namespace);
+            return (S) lastState;
+        }
+
+        InternalKvState<K, ?, ?> previous = keyValueStatesByName.get(stateDescriptor.getName());
+        if (previous != null) {
+            lastState = previous;
+            lastState.setCurrentNamespace(namespace);
+            lastName = stateDescriptor.getName();
+            return (S) previous;
+        }
+
+        final S state = getOrCreateKeyedState(namespaceSerializer, stateDescriptor);
+        final InternalKvState<K, N, ?> kvState = (InternalKvState<K, N, ?>) state;
+
+        lastName = stateDescriptor.getName();
+        lastState = kvState;
+        kvState.setCurrentNamespace(namespace);
+
+        return state;
+    }
+
+    @Nonnull
+    @Override
+    @SuppressWarnings("unchecked")
+    public <N, SV, SEV, S extends State, IS extends S> IS createInternalState(
+            @Nonnull TypeSerializer<N> namespaceSerializer,
+            @Nonnull StateDescriptor<S, SV> stateDesc,
+            @Nonnull StateSnapshotTransformFactory<SEV> snapshotTransformFactory)
+            throws Exception {
+
+        InternalKvState<K, N, ?> delegatedState =
+                keyedStateBackend.createInternalState(
+                        namespaceSerializer, stateDesc, snapshotTransformFactory);
+
+        restoredStateChanges.applyTo(stateDesc.getName(), delegatedState, keyedStateBackend);
+
+        KvStateChangeLogger<K, N> changeLogger =
+                new KvStateChangeLogger<>(
+                        this,
+                        changelogWriter,
+                        changelogWriter.registerState(stateDesc.getName()),
+                        delegatedState.getKeySerializer(),
+                        delegatedState.getNamespaceSerializer());
+
+        return (IS) wrapState(stateDesc, delegatedState, changeLogger);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K, N> InternalKvState<K, N, ?> wrapState(
+            StateDescriptor<?, ?> stateDesc,
+            InternalKvState<K, N, ?> delegatedState,
+            KvStateChangeLogger<K, N> changeLogger) {
+
+        if (stateDesc instanceof ValueStateDescriptor) {
+            return new ChangelogValueState<>(
+                    (InternalValueState) delegatedState, changeLogger);
+        } else if (stateDesc instanceof ListStateDescriptor) {
+            return new ChangelogListState<>((InternalListState) delegatedState, changeLogger);
+        } else if (stateDesc instanceof MapStateDescriptor) {
+            return new ChangelogMapState<>((InternalMapState) delegatedState, changeLogger);
+        } else if (stateDesc instanceof ReducingStateDescriptor) {
+            return new ChangelogReducingState<>(
+                    (InternalReducingState) delegatedState, changeLogger);
+        } else if (stateDesc instanceof AggregatingStateDescriptor) {
+            return new ChangelogAggregatingState<>(
+                    (InternalAggregatingState) delegatedState, changeLogger);
+        } else {
+            throw new FlinkRuntimeException(
+                    String.format(
+                            "State %s is not supported by %s",
+                            stateDesc.getClass(), ChangelogKeyedStateBackend.class));
+        }
+    }
+
+    @Nonnull
+    @Override
+    public <T extends HeapPriorityQueueElement & PriorityComparable & Keyed>
+            KeyGroupedInternalPriorityQueue<T> create(
+                    @Nonnull String stateName,
+                    @Nonnull TypeSerializer<T> byteOrderedElementSerializer) {
+
+        KeyGroupedInternalPriorityQueue<T> delegatedQueue =
+                keyedStateBackend.create(stateName, byteOrderedElementSerializer);
+        try {
+            restoredStateChanges.applyTo(stateName, delegatedQueue, byteOrderedElementSerializer);
+        } catch (IOException e) {
+            throw new FlinkRuntimeException("Could not replay changelog of " + stateName, e);
+        }
+
+        return new ChangelogKeyGroupedPriorityQueue<>(
+                delegatedQueue,
+                changelogWriter,
+                changelogWriter.registerState(stateName),
+                byteOrderedElementSerializer,
+                numberOfKeyGroups);
+    }
+
+    // ------------------------------------------------------------------------
+    //  Checkpointing
+    // ------------------------------------------------------------------------
+
+    @Nonnull
+    @Override
+    public RunnableFuture<SnapshotResult<KeyedStateHandle>> snapshot(
+            long checkpointId,
+            long timestamp,
+            @Nonnull CheckpointStreamFactory streamFactory,
+            @Nonnull CheckpointOptions checkpointOptions)
+            throws Exception {
+
+        if (checkpointOptions.getCheckpointType().isSavepoint()) {
+            checkRestoredStateChangesReplayed("take a savepoint");
+            return keyedStateBackend.snapshot(
+                    checkpointId, timestamp, streamFactory, checkpointOptions);
+        }
+
+        adoptCompletedMaterializations();
+        lastStreamFactory = streamFactory;
+
+        StateChangelogSegment segment = changelogWriter.cutSegment();
+        if (segment != null) {
+            changelogSegments.add(segment);
+        }
+
+        if (materialization == null) {
+            return materializeWithCheckpoint(
+                    checkpointId, timestamp, streamFactory, checkpointOptions);
+        }
+
+        maybeTriggerMaterialization(checkpointId, timestamp, streamFactory, checkpointOptions);
+
+        final KeyGroupRange keyGroupRange = getKeyGroupRange();
+        final Map<StateHandleID, KeyedStateHandle> materializedState =
+                materialization.getMaterializedState();
+        final List<StateChangelogHandle> restoredHandles =
+                new ArrayList<>(restoredChangelogHandles);
+        final List<StateChangelogSegment> segments = new ArrayList<>(changelogSegments);
+
+        return new FutureTask<>(
+                () -> {
+                    List<StateChangelogHandle> changelogHandles = new ArrayList<>(restoredHandles);
+                    for (StateChangelogSegment changelogSegment : segments) {
+                        changelogHandles.add(
+                                changelogSegment.persist(streamFactory, keyGroupRange));
+                    }
+                    return SnapshotResult.of(
+                            new ChangelogStateBackendHandle(
+                                    keyGroupRange, materializedState, changelogHandles));
+                });
+    }
+
+    /**
+     * Adds a segment that was cut because the tail of the changelog reached the maximum segment
+     * size, and persists it in the background. Before the first checkpoint there is no stream
+     * factory yet, so the segment is kept in memory until a checkpoint persists it.
+     */
+    private void onFullSegment(StateChangelogSegment segment) {
+        changelogSegments.add(segment);
+
+        final CheckpointStreamFactory streamFactory = lastStreamFactory;
+        if (streamFactory == null) {
+            return;
+        }
+
+        if (segmentPersistenceExecutor == null) {
+            segmentPersistenceExecutor =
+                    Executors.newSingleThreadExecutor(
+                            new ExecutorThreadFactory(
+                                    "changelog-persistence-" + operatorIdentifier));
+        }
+
+        final KeyGroupRange keyGroupRange = getKeyGroupRange();
+        segmentPersistenceExecutor.execute(
+                () -> {
+                    try {
+                        segment.persist(streamFactory, keyGroupRange);
+                    } catch (Throwable t) {
+                        LOG.debug(
+                                "Could not persist changelog segment {} of {}, the next checkpoint persists it instead.",
+                                segment.getSequenceNumber(),
+                                operatorIdentifier,
+                                t);
+                    }
+                });
+    }
+
+    /**
+     * Takes a snapshot of the wrapped backend as part of the checkpoint. This is done if there is
+     * no materialization to refer to yet, i.e. for the first checkpoint of a backend that was not
+     * restored from a changelog.
+     */
+    private RunnableFuture<SnapshotResult<KeyedStateHandle>> materializeWithCheckpoint(
+            long checkpointId,
+            long timestamp,
+            CheckpointStreamFactory streamFactory,
+            CheckpointOptions checkpointOptions)
+            throws Exception {
+
+        checkRestoredStateChangesReplayed("materialize the state");
+
+        final RunnableFuture<SnapshotResult<KeyedStateHandle>> materializationFuture =
+                keyedStateBackend.snapshot(
+                        checkpointId, timestamp, streamFactory, checkpointOptions);
+        final PendingMaterialization pendingMaterialization =
+                new PendingMaterialization(checkpointId, changelogWriter.getLastSequenceNumber());
+        pendingMaterializations.add(pendingMaterialization);
+        lastMaterializationTimestamp = System.currentTimeMillis();
+
+        final KeyGroupRange keyGroupRange = getKeyGroupRange();
+        return new FutureTask<SnapshotResult<KeyedStateHandle>>(
+                () -> {
+                    Map<StateHandleID, KeyedStateHandle> materializedState;
+                    try {
+                        materializedState =
+                                toMaterializedState(
+                                        FutureUtils.runIfNotDoneAndGet(materializationFuture));
+                    } catch (Throwable t) {
+                        pendingMaterialization.fail();
+                        throw t;
+                    }
+                    pendingMaterialization.complete(materializedState);
+                    return SnapshotResult.of(
+                            new ChangelogStateBackendHandle(
+                                    keyGroupRange, materializedState, Collections.emptyList()));
+                }) {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                materializationFuture.cancel(mayInterruptIfRunning);
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+    }
+
+    /**
+     * Triggers a materialization in the background if the materialization interval has passed
+     * and no other materialization is in progress.
+     */
+    private void maybeTriggerMaterialization(
+            long checkpointId,
+            long timestamp,
+            CheckpointStreamFactory streamFactory,
+            CheckpointOptions checkpointOptions)
+            throws Exception {
+
+        long now = System.currentTimeMillis();
+        if (!pendingMaterializations.isEmpty()
+                || now - lastMaterializationTimestamp < materializationIntervalMillis) {
+            return;
+        }
+
+        if (!restoredStateChanges.isEmpty()) {
+            LOG.debug(
+                    "Not materializing state of {} because the restored changes of states {} were not replayed yet.",
+                    operatorIdentifier,
+                    restoredStateChanges.getStateNames());
+            return;
+        }
+
+        final RunnableFuture<SnapshotResult<KeyedStateHandle>> materializationFuture =
+                keyedStateBackend.snapshot(
+                        checkpointId, timestamp, streamFactory, checkpointOptions);
+        final PendingMaterialization pendingMaterialization =
+                new PendingMaterialization(checkpointId, changelogWriter.getLastSequenceNumber());
+        pendingMaterializations.add(pendingMaterialization);
+        lastMaterializationTimestamp = now;
+
+        if (materializationExecutor == null) {
+            materializationExecutor =
+                    Executors.newSingleThreadExecutor(
+                            new ExecutorThreadFactory(
+                                    "changelog-materialization-" + operatorIdentifier));
+        }
+
+        LOG.debug(
+                "Triggering materialization of {} with checkpoint {}.",
+                operatorIdentifier,
+                checkpointId);
+
+        materializationExecutor.execute(
+                () -> {
+                    try {
+                        pendingMaterialization.complete(
+                                toMaterializedState(
+                                        FutureUtils.runIfNotDoneAndGet(materializationFuture)));
+                    } catch (Throwable t) {
+                        LOG.warn(
+                                "Materialization of {} with checkpoint {} failed.",
+                                operatorIdentifier,
+                                checkpointId,
+                                t);
+                        pendingMaterialization.fail();
+                    }
+                });
+    }
+
+    private static Map<StateHandleID, KeyedStateHandle> toMaterializedState(
+            SnapshotResult<KeyedStateHandle> snapshotResult) {
+        KeyedStateHandle materializedHandle = snapshotResult.getJobManagerOwnedSnapshot();
+        if (materializedHandle == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.singletonMap(
+                new StateHandleID(UUID.randomUUID().toString()), materializedHandle);
+    }
+
+    /**
+     * Makes the latest materialization that is complete and whose checkpoint was confirmed the
+     * one that checkpoints refer to, and drops the changelog segments that it covers.
+     */
+    private void adoptCompletedMaterializations() {
+        Iterator<PendingMaterialization> iterator = pendingMaterializations.iterator();
+        while (iterator.hasNext()) {
+            PendingMaterialization pending = iterator.next();
+            if (pending.isFailed()) {
+                iterator.remove();
+            } else if (pending.isConfirmed() && pending.getMaterializedState() != null) {
+                iterator.remove();
+                if (materialization == null
+                        || pending.getCheckpointId() > materialization.getCheckpointId()) {
+                    materialization =
+                            new Materialization(
+                                    pending.getMaterializedState(),
+                                    pending.getCheckpointId());
+                    changelogSegments.removeIf(
+                            segment ->
+                                    segment.getSequenceNumber()
+                                            <= pending.getCoveredSequenceNumber());
+                    restoredChangelogHandles.clear();
+                    LOG.debug(
+                            "Materialization of {} with checkpoint {} is complete.",
+                            operatorIdentifier,
+                            pending.getCheckpointId());
+                }
+            }
+        }
+    }
+
+    private void checkRestoredStateChangesReplayed(String action) {
+        if (!restoredStateChanges.isEmpty()) {
+            throw new IllegalStateException(
+                    String.format(
+                            "Cannot %s because the restored changelog contains changes of states %s that were not registered again.",
+                            action, restoredStateChanges.getStateNames()));
+        }
+    }
+
+    @Override
+    public void notifyCheckpointComplete(long checkpointId) throws Exception {
+        boolean materializedWithCheckpoint = false;
+        Iterator<PendingMaterialization> iterator = pendingMaterializations.iterator();
+        while (iterator.hasNext()) {
+            PendingMaterialization pending = iterator.next();
+            if (pending.getCheckpointId() == checkpointId) {
+                pending.confirm();
+                materializedWithCheckpoint = true;
+            } else if (pending.getCheckpointId() < checkpointId && !pending.isConfirmed()) {
+                // the checkpoint was subsumed, its materialization must not be used
+                iterator.remove();
+            }
+        }
+        adoptCompletedMaterializations();
+
+        // the wrapped backend only took part in the checkpoints that materialized its state
+        if (materializedWithCheckpoint && keyedStateBackend instanceof CheckpointListener) {
+            ((CheckpointListener) keyedStateBackend).notifyCheckpointComplete(checkpointId);
+        }
+    }
+
+    @Override
+    public void notifyCheckpointAborted(long checkpointId) throws Exception {
+        if (pendingMaterializations.removeIf(pending -> pending.getCheckpointId() == checkpointId)
+                && keyedStateBackend instanceof CheckpointListener) {
+            ((CheckpointListener) keyedStateBackend).notifyCheckpointAborted(checkpointId);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    //  Lifecycle
+    // ------------------------------------------------------------------------
+
+    @Override
+    public void dispose() {
+        if (materializationExecutor != null) {
+            materializationExecutor.shutdownNow();
+        }
+        if (segmentPersistenceExecutor != null) {
+            segmentPersistenceExecutor.shutdownNow();
+        }
+        keyedStateBackend.dispose();
+        lastName = null;
+        lastState = null;
+        keyValueStatesByName.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        keyedStateBackend.close();
+    }
+
+    @Override
+    public String toString() {
+        return "ChangelogKeyedStateBackend{"
+                + "keyedStateBackend="
+                + keyedStateBackend
+                + ", materializationIntervalMillis="
+                + materializationIntervalMillis
+                + '}';
+    }
+
+    // ------------------------------------------------------------------------
+    //  Materialization bookkeeping
+    // ------------------------------------------------------------------------
+
+    /** The materialized state of the wrapped backend that checkpoints refer to. */
+    private static final class Materialization {
+
+        private final Map<StateHandleID, KeyedStateHandle> materializedState;
+
+        /** The checkpoint that triggered the materialization, -1 if it was restored. */
+        private final long checkpointId;
+
+        private Materialization(
+                Map<StateHandleID, KeyedStateHandle> materializedState, long checkpointId) {
+            this.materializedState = new LinkedHashMap<>(materializedState);
+            this.checkpointId = checkpointId;
+        }
+
+        Map<StateHandleID, KeyedStateHandle> getMaterializedState() {
+            return materializedState;
+        }
+
+        long getCheckpointId() {
+            return checkpointId;
+        }
+    }
+
+    /**
+     * A materialization that was triggered with a checkpoint. It may only be used once it is
+     * complete and the checkpoint is confirmed, because the files of the materialization are
+     * located in the storage location of that checkpoint.
+     */
+    private static final class PendingMaterialization {
+
+        private final long checkpointId;
+
+        /** The sequence number of the last changelog segment covered by the materialization. */
+        private final long coveredSequenceNumber;
+
+        /** Written by the thread that completes the materialization. */
+        @Nullable private volatile Map<StateHandleID, KeyedStateHandle> materializedState;
+
+        private volatile boolean failed;
+
+        private boolean confirmed;
+
+        private PendingMaterialization(long checkpointId, long coveredSequenceNumber) {
+            this.checkpointId = checkpointId;
+            this.coveredSequenceNumber = coveredSequenceNumber;
+        }
+
+        long getCheckpointId() {
+            return checkpointId;
+        }
+
+        long getCoveredSequenceNumber() {
+            return coveredSequenceNumber;
+        }
+
+        @Nullable
+        Map<StateHandleID, KeyedStateHandle> getMaterializedState() {
+            return materializedState;
+        }
+
+        boolean isFailed() {
+            return failed;
+        }
+
+        boolean isConfirmed() {
+            return confirmed;
+        }
+
+        void complete(Map<StateHandleID, KeyedStateHandle> materializedState) {
+            this.materializedState = materializedState;
+        }
+
+        void fail() {
+            this.failed = true;
+        }
+
+        void confirm() {
+            this.confirmed = true;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog;
+
+import org.apache.flink.api.common.typeutils.base.ListSerializer;
+import org.apache.flink.runtime.state.internal.InternalListState;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link ChangelogKeyedStateBackend} implementation of {@link InternalListState}. Appended elements
+ * are logged as such, so that appending to a long list does not log the whole list.
+ *
+ * @param <K> The type of the key.
+ * @param <N> The type of the namespace.
+ * @param <V> The type of the elements in the list.
+ */
+class ChangelogListState<K, N, V>
+        extends AbstractChangelogState<K, N, List<V>, InternalListState<K, N, V>>
+        implements InternalListState<K, N, V> {
+
+    ChangelogListState(
+            InternalListState<K, N, V> delegatedState, KvStateChangeLogger<K, N> changeLogger) {
+        super(delegatedState, changeLogger);
+    }
+
+    @Override
+    public Iterable<V> get() throws Exception {
+        return delegatedState.get();
+    }
+
+    @Override
+    public void add(V value) throws Exception {
+        delegatedState.add(value);
+        logAddedElements(Collections.singletonList(value));
+    }
+
+    @Override
+    public void addAll(List<V> values) throws Exception {
+        delegatedState.addAll(values);
+        if (values != null && !values.isEmpty()) {
+            logAddedElements(values);
+        }
+    }
+
+    @Override
+    public void update(List<V> values) throws Exception {
+        delegatedState.update(values);
+        logValueSet(values == null || values.isEmpty() ? null : values);
+    }
+
+    @Override
+    public List<V> getInternal() throws Exception {
+        return delegatedState.getInternal();
+    }
+
+    @Override
+    public void updateInternal(List<V> valueToStore) throws Exception {
+        delegatedState.updateInternal(valueToStore);
+        logValueSet(valueToStore);
+    }
+
+    @Override
+    public void mergeNamespaces(N target, Collection<N> sources) throws Exception {
+        delegatedState.mergeNamespaces(target, sources);
+        logMergedNamespaces(target, sources, delegatedState::getInternal);
+    }
+
+    private void logAddedElements(List<V> values) throws Exception {
+        ListSerializer<V> listSerializer = (ListSerializer<V>) getValueSerializer();
+        changeLogger.log(
+                StateChangeOperation.ADD_ELEMENTS,
+                currentNamespace,
+                out -> listSerializer.serialize(values, out));
+    }
+}
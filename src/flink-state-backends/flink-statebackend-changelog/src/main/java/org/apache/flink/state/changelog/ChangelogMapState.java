@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog;
+
+import org.apache.flink.api.common.typeutils.base.MapSerializer;
+import org.apache.flink.runtime.state.internal.InternalMapState;
+import org.apache.flink.util.FlinkRuntimeException;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * {@link ChangelogKeyedStateBackend} implementation of {@link InternalMapState}. Mappings are logged
+ * individually, including the modifications made through the iterators of the state.
+ *
+ * @param <K> The type of the key.
+ * @param <N> The type of the namespace.
+ * @param <UK> The type of the keys in the map.
+ * @param <UV> The type of the values in the map.
+ */
+class ChangelogMapState<K, N, UK, UV>
+        extends AbstractChangelogState<K, N, Map<UK, UV>, InternalMapState<K, N, UK, UV>>
+        implements InternalMapState<K, N, UK, UV> {
+
+    ChangelogMapState(
+            InternalMapState<K, N, UK, UV> delegatedState, KvStateChangeLogger<K, N> changeLogger) {
+        super(delegatedState, changeLogger);
+    }
+
+    @Override
+    public UV get(UK key) throws Exception {
+        return delegatedState.get(key);
+    }
+
+    @Override
+    public void put(UK key, UV value) throws Exception {
+        delegatedState.put(key, value);
+        logPut(key, value);
+    }
+
+    @Override
+    public void putAll(Map<UK, UV> map) throws Exception {
+        delegatedState.putAll(map);
+        if (map != null) {
+            for (Map.Entry<UK, UV> entry : map.entrySet()) {
+                logPut(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public void remove(UK key) throws Exception {
+        delegatedState.remove(key);
+        logRemove(key);
+    }
+
+    @Override
+    public boolean contains(UK key) throws Exception {
+        return delegatedState.contains(key);
+    }
+
+    @Override
+    public Iterable<Map.Entry<UK, UV>> entries() throws Exception {
+        Iterable<Map.Entry<UK, UV>> entries = delegatedState.entries();
+        return () -> new LoggingIterator<>(entries.iterator(), ChangelogEntry::new);
+    }
+
+    @Override
+    public Iterable<UK> keys() throws Exception {
+        Iterable<Map.Entry<UK, UV>> entries = delegatedState.entries();
+        return () -> new LoggingIterator<>(entries.iterator(), Map.Entry::getKey);
+    }
+
+    @Override
+    public Iterable<UV> values() throws Exception {
+        Iterable<Map.Entry<UK, UV>> entries = delegatedState.entries();
+        return () -> new LoggingIterator<>(entries.iterator(), Map.Entry::getValue);
+    }
+
+    @Override
+    public Iterator<Map.Entry<UK, UV>> iterator() throws Exception {
+        return new LoggingIterator<>(delegatedState.iterator(), ChangelogEntry::new);
+    }
+
+    @Override
+    public boolean isEmpty() throws Exception {
+        return delegatedState.isEmpty();
+    }
+
+    private void logPut(UK key, UV value) throws IOException {
+        MapSerializer<UK, UV> mapSerializer = (MapSerializer<UK, UV>) getValueSerializer();
+        changeLogger.log(
+                StateChangeOperation.PUT_ELEMENT,
+                currentNamespace,
+                out -> {
+                    mapSerializer.getKeySerializer().serialize(key, out);
+                    if (value == null) {
+                        out.writeBoolean(true);
+                    } else {
+                        out.writeBoolean(false);
+                        mapSerializer.getValueSerializer().serialize(value, out);
+                    }
+                });
+    }
+
+    private void logRemove(UK key) throws IOException {
+        MapSerializer<UK, UV> mapSerializer = (MapSerializer<UK, UV>) getValueSerializer();
+        changeLogger.log(
+                StateChangeOperation.REMOVE_ELEMENT,
+                currentNamespace,
+                out -> mapSerializer.getKeySerializer().serialize(key, out));
+    }
+
+    /** Iterator over the mappings of the state that logs the removals made through it. */
+    private class LoggingIterator<T> implements Iterator<T> {
+
+        private final Iterator<Map.Entry<UK, UV>> delegatedIterator;
+
+        private final Function<Map.Entry<UK, UV>, T> elementExtractor;
+
+        private Map.Entry<UK, UV> lastEntry;
+
+        private LoggingIterator(
+                Iterator<Map.Entry<UK, UV>> delegatedIterator,
+                Function<Map.Entry<UK, UV>, T> elementExtractor) {
+            this.delegatedIterator = delegatedIterator;
+            this.elementExtractor = elementExtractor;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return delegatedIterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            lastEntry = delegatedIterator.next();
+            return elementExtractor.apply(lastEntry);
+        }
+
+        @Override
+        public void remove() {
+            delegatedIterator.remove();
+            try {
+                logRemove(lastEntry.getKey());
+            } catch (IOException e) {
+                throw new FlinkRuntimeException("Error while logging state change", e);
+            }
+        }
+    }
+
+    /** Map entry that logs the value updates made through it. */
+    private class ChangelogEntry implements Map.Entry<UK, UV> {
+
+        private final Map.Entry<UK, UV> delegatedEntry;
+
+        private ChangelogEntry(Map.Entry<UK, UV> delegatedEntry) {
+            this.delegatedEntry = delegatedEntry;
+        }
+
+        @Override
+        public UK getKey() {
+            return delegatedEntry.getKey();
+        }
+
+        @Override
+        public UV getValue() {
+            return delegatedEntry.getValue();
+        }
+
+        @Override
+        public UV setValue(UV value) {
+            UV oldValue = delegatedEntry.setValue(value);
+            try {
+                logPut(delegatedEntry.getKey(), value);
+            } catch (IOException e) {
+                throw new FlinkRuntimeException("Error while logging state change", e);
+            }
+            return oldValue;
+        }
+    }
+}
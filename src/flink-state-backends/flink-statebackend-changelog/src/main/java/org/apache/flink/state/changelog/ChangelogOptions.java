@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.annotation.docs.Documentation;
+import org.apache.flink.configuration.ConfigOption;
+import org.apache.flink.configuration.ConfigOptions;
+import org.apache.flink.configuration.MemorySize;
+
+import java.time.Duration;
+
+/** Configuration options for the changelog state backend. */
+@PublicEvolving
+public class ChangelogOptions {
+
+    /** The interval in which the state of the wrapped backend is materialized. */
+    @Documentation.Section(Documentation.Sections.EXPERT_STATE_BACKENDS)
+    public static final ConfigOption<Duration> PERIODIC_MATERIALIZATION_INTERVAL =
+            ConfigOptions.key("state.backend.changelog.periodic-materialize.interval")
+                    .durationType()
+                    .defaultValue(Duration.ofMinutes(10))
+                    .withDescription(
+                            "The minimum interval between two materializations of the state of the backend that"
+                                    + " is wrapped by the changelog state backend. A materialization is triggered by the"
+                                    + " first checkpoint after the interval has passed and is written in the background."
+                                    + " Afterwards, checkpoints no longer refer to the state changes that it contains,"
+                                    + " which bounds the size of the changelog that has to be replayed on recovery.");
+
+    /** The size after which the changes since the last checkpoint are cut into a new segment. */
+    @Documentation.Section(Documentation.Sections.EXPERT_STATE_BACKENDS)
+    public static final ConfigOption<MemorySize> SEGMENT_SIZE =
+            ConfigOptions.key("state.backend.changelog.segment-size")
+                    .memoryType()
+                    .defaultValue(MemorySize.parse("4mb"))
+                    .withDescription(
+                            "The size of the state changes after which they are cut into a segment of the changelog,"
+                                    + " without waiting for the next checkpoint. The segment is written to the checkpoint"
+                                    + " storage in the background, so that only the changes since the last segment are kept"
+                                    + " in memory and a checkpoint only has to write the changes that were not cut yet.");
+}
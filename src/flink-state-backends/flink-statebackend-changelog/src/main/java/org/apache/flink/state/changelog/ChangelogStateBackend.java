@@ -0,0 +1,427 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.IllegalConfigurationException;
+import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.configuration.ReadableConfig;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.execution.Environment;
+import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
+import org.apache.flink.runtime.state.CheckpointStorageAccess;
+import org.apache.flink.runtime.state.CheckpointableKeyedStateBackend;
+import org.apache.flink.runtime.state.CompletedCheckpointStorageLocation;
+import org.apache.flink.runtime.state.ConfigurableStateBackend;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.OperatorStateBackend;
+import org.apache.flink.runtime.state.OperatorStateHandle;
+import org.apache.flink.runtime.state.StateBackend;
+import org.apache.flink.runtime.state.StateHandleID;
+import org.apache.flink.runtime.state.changelog.ChangelogStateBackendHandle;
+import org.apache.flink.runtime.state.changelog.StateChangelogHandle;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.util.IOUtils;
+import org.apache.flink.util.Preconditions;
+import org.apache.flink.util.function.SupplierWithException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A state backend that wraps another state backend and logs all changes of keyed state, so that
+ * checkpoints only need to persist the changes since the previous checkpoint. See {@link
+ * ChangelogKeyedStateBackend} for details.
+ *
+ * <p>Checkpoint storage and operator state are handled by the wrapped backend.
+ *
+ * <p>The changelog can be enabled either by wrapping the state backend of the application:
+ *
+ * <pre>{@code
+ * env.setStateBackend(new ChangelogStateBackend(new RocksDBStateBackend(checkpointDir, true)));
+ * }</pre>
+ *
+ * <p>or by setting {@code state.backend.changelog.enabled: true} in the configuration.
+ */
+@PublicEvolving
+public class ChangelogStateBackend implements StateBackend, ConfigurableStateBackend {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChangelogStateBackend.class);
+
+    /** The state backend that holds the state and stores the checkpoints. */
+    private final StateBackend delegatedStateBackend;
+
+    /** The materialization interval, or null if it should be taken from the configuration. */
+    @Nullable private final Duration materializationInterval;
+
+    /** The maximum size of a changelog segment, or null if the backend was not configured. */
+    @Nullable private final MemorySize segmentSize;
+
+    /**
+     * Creates a changelog state backend that wraps the given state backend. The materialization
+     * interval is taken from the configuration.
+     *
+     * @param delegatedStateBackend The state backend that holds the state.
+     */
+    public ChangelogStateBackend(StateBackend delegatedStateBackend) {
+        this(delegatedStateBackend, null);
+    }
+
+    /**
+     * Creates a changelog state backend that wraps the given state backend.
+     *
+     * @param delegatedStateBackend The state backend that holds the state.
+     * @param materializationInterval The minimum interval between two materializations.
+     */
+    public ChangelogStateBackend(
+            StateBackend delegatedStateBackend, @Nullable Duration materializationInterval) {
+        Preconditions.checkNotNull(delegatedStateBackend);
+        Preconditions.checkArgument(
+                !(delegatedStateBackend instanceof ChangelogStateBackend),
+                "Recursive wrapping of the changelog state backend is not supported.");
+        Preconditions.checkArgument(
+                materializationInterval == null || !materializationInterval.isNegative(),
+                "The materialization interval must not be negative.");
+
+        this.delegatedStateBackend = delegatedStateBackend;
+        this.materializationInterval = materializationInterval;
+        this.segmentSize = null;
+    }
+
+    /**
+     * Private constructor that creates a re-configured copy of the state backend.
+     *
+     * @param original The state backend to re-configure.
+     * @param config The configuration.
+     * @param classLoader The class loader.
+     */
+    private ChangelogStateBackend(
+            ChangelogStateBackend original, ReadableConfig config, ClassLoader classLoader) {
+        this.delegatedStateBackend =
+                original.delegatedStateBackend instanceof ConfigurableStateBackend
+                        ? ((ConfigurableStateBackend) original.delegatedStateBackend)
+                                .configure(config, classLoader)
+                        : original.delegatedStateBackend;
+        this.materializationInterval =
+                original.materializationInterval != null
+                        ? original.materializationInterval
+                        : config.get(ChangelogOptions.PERIODIC_MATERIALIZATION_INTERVAL);
+        this.segmentSize = config.get(ChangelogOptions.SEGMENT_SIZE);
+        if (segmentSize.getBytes() == 0 || segmentSize.getBytes() > Integer.MAX_VALUE) {
+            throw new IllegalConfigurationException(
+                    "The changelog segment size must be positive and smaller than 2 GB, but was "
+                            + segmentSize.toHumanReadableString()
+                            + '.');
+        }
+    }
+
+    @Override
+    public ChangelogStateBackend configure(ReadableConfig config, ClassLoader classLoader)
+            throws IllegalConfigurationException {
+        return new ChangelogStateBackend(this, config, classLoader);
+    }
+
+    // ------------------------------------------------------------------------
+    //  Properties
+    // ------------------------------------------------------------------------
+
+    /** Gets the state backend that this changelog state backend wraps. */
+    public StateBackend getDelegatedStateBackend() {
+        return delegatedStateBackend;
+    }
+
+    /** Gets the minimum interval between two materializations of the wrapped backend's state. */
+    public Duration getMaterializationInterval() {
+        return materializationInterval != null
+                ? materializationInterval
+                : ChangelogOptions.PERIODIC_MATERIALIZATION_INTERVAL.defaultValue();
+    }
+
+    /**
+     * Gets the size after which the state changes are cut into a changelog segment without waiting
+     * for the next checkpoint.
+     */
+    public MemorySize getSegmentSize() {
+        return segmentSize != null ? segmentSize : ChangelogOptions.SEGMENT_SIZE.defaultValue();
+    }
+
+    @Override
+    public boolean useManagedMemory() {
+        return delegatedStateBackend.useManagedMemory();
+    }
+
+    // ------------------------------------------------------------------------
+    //  Checkpoint storage
+    // ------------------------------------------------------------------------
+
+    @Override
+    public CompletedCheckpointStorageLocation resolveCheckpoint(String externalPointer)
+            throws IOException {
+        return delegatedStateBackend.resolveCheckpoint(externalPointer);
+    }
+
+    @Override
+    public CheckpointStorageAccess createCheckpointStorage(JobID jobId) throws IOException {
+        return delegatedStateBackend.createCheckpointStorage(jobId);
+    }
+
+    // ------------------------------------------------------------------------
+    //  State holding data structures
+    // ------------------------------------------------------------------------
+
+    @Override
+    public <K> CheckpointableKeyedStateBackend<K> createKeyedStateBackend(
+            Environment env,
+            JobID jobID,
+            String operatorIdentifier,
+            TypeSerializer<K> keySerializer,
+            int numberOfKeyGroups,
+            KeyGroupRange keyGroupRange,
+            TaskKvStateRegistry kvStateRegistry,
+            TtlTimeProvider ttlTimeProvider,
+            MetricGroup metricGroup,
+            @Nonnull Collection<KeyedStateHandle> stateHandles,
+            CloseableRegistry cancelStreamRegistry)
+            throws Exception {
+
+        RestoredChangelog restoredChangelog = new RestoredChangelog(stateHandles);
+        return createChangelogKeyedStateBackend(
+                env,
+                operatorIdentifier,
+                numberOfKeyGroups,
+                kvStateRegistry,
+                ttlTimeProvider,
+                restoredChangelog,
+                cancelStreamRegistry,
+                () ->
+                        delegatedStateBackend.createKeyedStateBackend(
+                                env,
+                                jobID,
+                                operatorIdentifier,
+                                keySerializer,
+                                numberOfKeyGroups,
+                                keyGroupRange,
+                                kvStateRegistry,
+                                ttlTimeProvider,
+                                metricGroup,
+                                restoredChangelog.getMaterializedStateHandles(),
+                                cancelStreamRegistry));
+    }
+
+    @Override
+    public <K> CheckpointableKeyedStateBackend<K> createKeyedStateBackend(
+            Environment env,
+            JobID jobID,
+            String operatorIdentifier,
+            TypeSerializer<K> keySerializer,
+            int numberOfKeyGroups,
+            KeyGroupRange keyGroupRange,
+            TaskKvStateRegistry kvStateRegistry,
+            TtlTimeProvider ttlTimeProvider,
+            MetricGroup metricGroup,
+            @Nonnull Collection<KeyedStateHandle> stateHandles,
+            CloseableRegistry cancelStreamRegistry,
+            double managedMemoryFraction)
+            throws Exception {
+
+        RestoredChangelog restoredChangelog = new RestoredChangelog(stateHandles);
+        return createChangelogKeyedStateBackend(
+                env,
+                operatorIdentifier,
+                numberOfKeyGroups,
+                kvStateRegistry,
+                ttlTimeProvider,
+                restoredChangelog,
+                cancelStreamRegistry,
+                () ->
+                        delegatedStateBackend.createKeyedStateBackend(
+                                env,
+                                jobID,
+                                operatorIdentifier,
+                                keySerializer,
+                                numberOfKeyGroups,
+                                keyGroupRange,
+                                kvStateRegistry,
+                                ttlTimeProvider,
+                                metricGroup,
+                                restoredChangelog.getMaterializedStateHandles(),
+                                cancelStreamRegistry,
+                                managedMemoryFraction));
+    }
+
+    private <K> ChangelogKeyedStateBackend<K> createChangelogKeyedStateBackend(
+            Environment env,
+            String operatorIdentifier,
+            int numberOfKeyGroups,
+            TaskKvStateRegistry kvStateRegistry,
+            TtlTimeProvider ttlTimeProvider,
+            RestoredChangelog restoredChangelog,
+            CloseableRegistry cancelStreamRegistry,
+            SupplierWithException<CheckpointableKeyedStateBackend<K>, Exception>
+                    delegatedKeyedStateBackendFactory)
+            throws Exception {
+
+        CheckpointableKeyedStateBackend<K> keyedStateBackend =
+                delegatedKeyedStateBackendFactory.get();
+        try {
+            if (keyedStateBackend instanceof AbstractKeyedStateBackend
+                    && ((AbstractKeyedStateBackend<K>) keyedStateBackend)
+                            .requiresLegacySynchronousTimerSnapshots()) {
+                throw new IllegalConfigurationException(
+                        "The changelog state backend does not support keyed state backends that"
+                                + " snapshot timers synchronously, e.g. RocksDB with heap timers."
+                                + " Please store timers in RocksDB.");
+            }
+
+            RestoredStateChanges restoredStateChanges =
+                    RestoredStateChanges.read(
+                            restoredChangelog.getChangelogHandles(),
+                            keyedStateBackend.getKeyGroupRange(),
+                            cancelStreamRegistry);
+
+            LOG.debug(
+                    "Restored changelog of {} from {} segments.",
+                    operatorIdentifier,
+                    restoredChangelog.getChangelogHandles().size());
+
+            return new ChangelogKeyedStateBackend<>(
+                    keyedStateBackend,
+                    operatorIdentifier,
+                    env.getExecutionConfig(),
+                    ttlTimeProvider,
+                    kvStateRegistry,
+                    env.getUserCodeClassLoader().asClassLoader(),
+                    numberOfKeyGroups,
+                    getMaterializationInterval().toMillis(),
+                    (int) getSegmentSize().getBytes(),
+                    restoredChangelog.getMaterializedState(),
+                    restoredChangelog.getChangelogHandles(),
+                    restoredStateChanges);
+        } catch (Exception e) {
+            IOUtils.closeQuietly(keyedStateBackend);
+            keyedStateBackend.dispose();
+            throw e;
+        }
+    }
+
+    @Override
+    public OperatorStateBackend createOperatorStateBackend(
+            Environment env,
+            String operatorIdentifier,
+            @Nonnull Collection<OperatorStateHandle> stateHandles,
+            CloseableRegistry cancelStreamRegistry)
+            throws Exception {
+        return delegatedStateBackend.createOperatorStateBackend(
+                env, operatorIdentifier, stateHandles, cancelStreamRegistry);
+    }
+
+    @Override
+    public String toString() {
+        return "ChangelogStateBackend{"
+                + "delegatedStateBackend="
+                + delegatedStateBackend
+                + ", materializationInterval="
+                + getMaterializationInterval()
+                + '}';
+    }
+
+    // ------------------------------------------------------------------------
+    //  Restore
+    // ------------------------------------------------------------------------
+
+    /**
+     * Splits the restored keyed state handles into the handles of the wrapped backend and the
+     * changelog segments. The materialized state can only be referenced by new checkpoints if all
+     * handles were written by a changelog backend. Otherwise, e.g. when the changelog is enabled
+     * for a job that was checkpointed without it, the first checkpoint materializes the state.
+     */
+    @VisibleForTesting
+    static final class RestoredChangelog {
+
+        private final List<KeyedStateHandle> materializedStateHandles = new ArrayList<>();
+
+        private final Map<StateHandleID, KeyedStateHandle> materializedState =
+                new LinkedHashMap<>();
+
+        private final List<StateChangelogHandle> changelogHandles = new ArrayList<>();
+
+        private boolean restoredWithoutChangelog;
+
+        RestoredChangelog(Collection<KeyedStateHandle> stateHandles) {
+            Set<String> segmentIds = new LinkedHashSet<>();
+            for (KeyedStateHandle stateHandle : stateHandles) {
+                if (stateHandle instanceof ChangelogStateBackendHandle) {
+                    ChangelogStateBackendHandle changelogStateHandle =
+                            (ChangelogStateBackendHandle) stateHandle;
+                    materializedState.putAll(changelogStateHandle.getMaterializedState());
+                    materializedStateHandles.addAll(
+                            changelogStateHandle.getMaterializedState().values());
+                    for (StateChangelogHandle changelogHandle :
+                            changelogStateHandle.getChangelogHandles()) {
+                        if (segmentIds.add(changelogHandle.getSegmentId())) {
+                            changelogHandles.add(changelogHandle);
+                        }
+                    }
+                } else if (stateHandle != null) {
+                    materializedStateHandles.add(stateHandle);
+                    restoredWithoutChangelog = true;
+                }
+            }
+        }
+
+        List<KeyedStateHandle> getMaterializedStateHandles() {
+            return materializedStateHandles;
+        }
+
+        /** Returns the restored materialized state, or null if it must not be referenced. */
+        @Nullable
+        Map<StateHandleID, KeyedStateHandle> getMaterializedState() {
+            return restoredWithoutChangelog || materializedStateHandles.isEmpty()
+                            && changelogHandles.isEmpty()
+                    ? null
+                    : materializedState;
+        }
+
+        List<StateChangelogHandle> getChangelogHandles() {
+            return changelogHandles;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog;
+
+import org.apache.flink.runtime.state.internal.InternalValueState;
+
+import java.io.IOException;
+
+/**
+ * {@link ChangelogKeyedStateBackend} implementation of {@link InternalValueState}.
+ *
+ * @param <K> The type of the key.
+ * @param <N> The type of the namespace.
+ * @param <V> The type of the value.
+ */
+class ChangelogValueState<K, N, V>
+        extends AbstractChangelogState<K, N, V, InternalValueState<K, N, V>>
+        implements InternalValueState<K, N, V> {
+
+    ChangelogValueState(
+            InternalValueState<K, N, V> delegatedState, KvStateChangeLogger<K, N> changeLogger) {
+        super(delegatedState, changeLogger);
+    }
+
+    @Override
+    public V value() throws IOException {
+        return delegatedState.value();
+    }
+
+    @Override
+    public void update(V value) throws IOException {
+        delegatedState.update(value);
+        logValueSet(value);
+    }
+}
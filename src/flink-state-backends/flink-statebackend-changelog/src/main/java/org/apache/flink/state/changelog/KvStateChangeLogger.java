@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.util.function.ThrowingConsumer;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Logs the changes of one keyed state to the state changelog. The payload of every change starts
+ * with the serialized key and namespace, followed by an operation specific value part.
+ *
+ * @param <K> The type of the key.
+ * @param <N> The type of the namespace.
+ */
+class KvStateChangeLogger<K, N> {
+
+    private final ChangelogKeyedStateBackend<K> keyedStateBackend;
+
+    private final StateChangelogWriter changelogWriter;
+
+    private final int stateId;
+
+    private final TypeSerializer<K> keySerializer;
+
+    private final TypeSerializer<N> namespaceSerializer;
+
+    KvStateChangeLogger(
+            ChangelogKeyedStateBackend<K> keyedStateBackend,
+            StateChangelogWriter changelogWriter,
+            int stateId,
+            TypeSerializer<K> keySerializer,
+            TypeSerializer<N> namespaceSerializer) {
+        this.keyedStateBackend = keyedStateBackend;
+        this.changelogWriter = changelogWriter;
+        this.stateId = stateId;
+        this.keySerializer = keySerializer;
+        this.namespaceSerializer = namespaceSerializer;
+    }
+
+    /** Logs a change of the value that belongs to the current key and the given namespace. */
+    void log(
+            StateChangeOperation operation,
+            N namespace,
+            @Nullable ThrowingConsumer<DataOutputView, IOException> valueWriter)
+            throws IOException {
+        log(
+                operation,
+                keyedStateBackend.getCurrentKey(),
+                keyedStateBackend.getCurrentKeyGroupIndex(),
+                namespace,
+                valueWriter);
+    }
+
+    /** Logs a change of the value that belongs to the given key and namespace. */
+    void logForKey(
+            StateChangeOperation operation,
+            K key,
+            N namespace,
+            @Nullable ThrowingConsumer<DataOutputView, IOException> valueWriter)
+            throws IOException {
+        log(
+                operation,
+                key,
+                KeyGroupRangeAssignment.assignToKeyGroup(
+                        key, keyedStateBackend.getNumberOfKeyGroups()),
+                namespace,
+                valueWriter);
+    }
+
+    private void log(
+            StateChangeOperation operation,
+            K key,
+            int keyGroup,
+            N namespace,
+            @Nullable ThrowingConsumer<DataOutputView, IOException> valueWriter)
+            throws IOException {
+        changelogWriter.append(
+                stateId,
+                operation,
+                keyGroup,
+                out -> {
+                    keySerializer.serialize(key, out);
+                    namespaceSerializer.serialize(namespace, out);
+                    if (valueWriter != null) {
+                        valueWriter.accept(out);
+                    }
+                });
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.ListSerializer;
+import org.apache.flink.api.common.typeutils.base.MapSerializer;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.core.fs.FSDataInputStream;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
+import org.apache.flink.runtime.state.KeyedStateBackend;
+import org.apache.flink.runtime.state.changelog.StateChangelogHandle;
+import org.apache.flink.runtime.state.internal.InternalAppendingState;
+import org.apache.flink.runtime.state.internal.InternalKvState;
+import org.apache.flink.runtime.state.internal.InternalListState;
+import org.apache.flink.runtime.state.internal.InternalMapState;
+import org.apache.flink.runtime.state.internal.InternalReducingState;
+import org.apache.flink.runtime.state.internal.InternalValueState;
+import org.apache.flink.util.IOUtils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The state changes that were read from the changelog segments of a restored checkpoint, grouped by
+ * state name. Changes can only be replayed once the state they belong to is registered again,
+ * because the serializers of the state are needed to interpret them.
+ *
+ * <p>Changes of key-groups outside of the restoring backend's key-group range are dropped while
+ * reading, which makes the changelog rescalable.
+ */
+class RestoredStateChanges {
+
+    /** Per state: sequence of {@code [operation: byte][payload length: int][payload]} records. */
+    private final Map<String, DataOutputSerializer> changesByState;
+
+    private RestoredStateChanges(Map<String, DataOutputSerializer> changesByState) {
+        this.changesByState = changesByState;
+    }
+
+    boolean isEmpty() {
+        return changesByState.isEmpty();
+    }
+
+    Set<String> getStateNames() {
+        return changesByState.keySet();
+    }
+
+    /** Reads the changes of the given key-groups from the given segments, in order. */
+    static RestoredStateChanges read(
+            Collection<StateChangelogHandle> changelogHandles,
+            KeyGroupRange keyGroupRange,
+            CloseableRegistry cancelStreamRegistry)
+            throws IOException {
+
+        Map<String, DataOutputSerializer> changesByState = new HashMap<>();
+        for (StateChangelogHandle changelogHandle : changelogHandles) {
+            FSDataInputStream inputStream =
+                    changelogHandle.getDelegateStateHandle().openInputStream();
+            cancelStreamRegistry.registerCloseable(inputStream);
+            try {
+                readSegment(
+                        new DataInputViewStreamWrapper(inputStream), keyGroupRange, changesByState);
+            } finally {
+                if (cancelStreamRegistry.unregisterCloseable(inputStream)) {
+                    IOUtils.closeQuietly(inputStream);
+                }
+            }
+        }
+        return new RestoredStateChanges(changesByState);
+    }
+
+    private static void readSegment(
+            DataInputViewStreamWrapper in,
+            KeyGroupRange keyGroupRange,
+            Map<String, DataOutputSerializer> changesByState)
+            throws IOException {
+
+        Map<Integer, String> stateNames = new HashMap<>();
+        byte[] payload = new byte[0];
+        int operationCode;
+        while ((operationCode = in.read()) != -1) {
+            StateChangeOperation operation = StateChangeOperation.byCode((byte) operationCode);
+            int stateId = in.readInt();
+            if (operation == StateChangeOperation.DEFINE_STATE) {
+                stateNames.put(stateId, in.readUTF());
+                continue;
+            }
+
+            int keyGroup = in.readInt();
+            int length = in.readInt();
+            if (payload.length < length) {
+                payload = new byte[length];
+            }
+            in.readFully(payload, 0, length);
+
+            if (!keyGroupRange.contains(keyGroup)) {
+                continue;
+            }
+
+            String stateName = stateNames.get(stateId);
+            if (stateName == null) {
+                throw new IOException("Changelog segment refers to undefined state " + stateId);
+            }
+
+            DataOutputSerializer changes =
+                    changesByState.computeIfAbsent(stateName, k -> new DataOutputSerializer(256));
+            changes.writeByte(operation.getCode());
+            changes.writeInt(length);
+            changes.write(payload, 0, length);
+        }
+    }
+
+    /**
+     * Replays the restored changes of the given state on the state of the wrapped backend. The
+     * replayed changes are released afterwards.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    <K, N, V> void applyTo(
+            String stateName, InternalKvState<K, N, V> state, KeyedStateBackend<K> keyedBackend)
+            throws Exception {
+
+        DataOutputSerializer changes = changesByState.remove(stateName);
+        if (changes == null) {
+            return;
+        }
+
+        TypeSerializer<K> keySerializer = state.getKeySerializer();
+        TypeSerializer<N> namespaceSerializer = state.getNamespaceSerializer();
+        TypeSerializer<V> valueSerializer = state.getValueSerializer();
+
+        K previousKey = keyedBackend.getCurrentKey();
+        DataInputDeserializer in =
+                new DataInputDeserializer(changes.getSharedBuffer(), 0, changes.length());
+        try {
+            while (in.available() > 0) {
+                StateChangeOperation operation = StateChangeOperation.byCode(in.readByte());
+                in.readInt();
+
+                keyedBackend.setCurrentKey(keySerializer.deserialize(in));
+                state.setCurrentNamespace(namespaceSerializer.deserialize(in));
+
+                switch (operation) {
+                    case CLEAR:
+                        state.clear();
+                        break;
+                    case SET:
+                        setValue(state, valueSerializer.deserialize(in));
+                        break;
+                    case ADD_ELEMENTS:
+                        if (state instanceof InternalListState) {
+                            List elements = ((ListSerializer) valueSerializer).deserialize(in);
+                            ((InternalListState) state).addAll(elements);
+                        } else if (state instanceof InternalReducingState) {
+                            ((InternalReducingState) state).add(valueSerializer.deserialize(in));
+                        } else {
+                            throw unexpectedOperation(operation, stateName);
+                        }
+                        break;
+                    case PUT_ELEMENT:
+                        {
+                            MapSerializer mapSerializer = (MapSerializer) valueSerializer;
+                            Object userKey = mapSerializer.getKeySerializer().deserialize(in);
+                            Object userValue =
+                                    in.readBoolean()
+                                            ? null
+                                            : mapSerializer.getValueSerializer().deserialize(in);
+                            ((InternalMapState) state).put(userKey, userValue);
+                            break;
+                        }
+                    case REMOVE_ELEMENT:
+                        {
+                            MapSerializer mapSerializer = (MapSerializer) valueSerializer;
+                            ((InternalMapState) state)
+                                    .remove(mapSerializer.getKeySerializer().deserialize(in));
+                            break;
+                        }
+                    default:
+                        throw unexpectedOperation(operation, stateName);
+                }
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated changelog of state " + stateName, e);
+        } finally {
+            if (previousKey != null) {
+                keyedBackend.setCurrentKey(previousKey);
+            }
+        }
+    }
+
+    /**
+     * Replays the restored changes of the given priority queue on the queue of the wrapped backend.
+     * The replayed changes are released afterwards.
+     */
+    <T> void applyTo(
+            String stateName,
+            KeyGroupedInternalPriorityQueue<T> queue,
+            TypeSerializer<T> elementSerializer)
+            throws IOException {
+
+        DataOutputSerializer changes = changesByState.remove(stateName);
+        if (changes == null) {
+            return;
+        }
+
+        DataInputDeserializer in =
+                new DataInputDeserializer(changes.getSharedBuffer(), 0, changes.length());
+        while (in.available() > 0) {
+            StateChangeOperation operation = StateChangeOperation.byCode(in.readByte());
+            in.readInt();
+            T element = elementSerializer.deserialize(in);
+            switch (operation) {
+                case ADD_QUEUE_ELEMENT:
+                    queue.add(element);
+                    break;
+                case REMOVE_QUEUE_ELEMENT:
+                    queue.remove(element);
+                    break;
+                default:
+                    throw unexpectedOperation(operation, stateName);
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <V> void setValue(InternalKvState<?, ?, V> state, V value) throws Exception {
+        if (state instanceof InternalValueState) {
+            ((InternalValueState) state).update(value);
+        } else if (state instanceof InternalAppendingState) {
+            ((InternalAppendingState) state).updateInternal(value);
+        } else if (state instanceof InternalMapState) {
+            InternalMapState mapState = (InternalMapState) state;
+            mapState.clear();
+            mapState.putAll((Map) value);
+        } else {
+            throw new IllegalStateException(
+                    "Unsupported state type for changelog replay: " + state.getClass());
+        }
+    }
+
+    private static IllegalStateException unexpectedOperation(
+            StateChangeOperation operation, String stateName) {
+        return new IllegalStateException(
+                "Unexpected changelog operation " + operation + " for state " + stateName);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog;
+
+/** The kinds of records that are appended to a state changelog. */
+enum StateChangeOperation {
+
+    /** Declares the id under which the changes of one state are logged in a segment. */
+    DEFINE_STATE((byte) 0),
+
+    /** The value of a key/namespace was cleared. */
+    CLEAR((byte) 1),
+
+    /** The value of a key/namespace was replaced by a new value. */
+    SET((byte) 2),
+
+    /** Elements were appended to the list of a key/namespace. */
+    ADD_ELEMENTS((byte) 3),
+
+    /** A mapping was added to or replaced in the map of a key/namespace. */
+    PUT_ELEMENT((byte) 4),
+
+    /** A mapping was removed from the map of a key/namespace. */
+    REMOVE_ELEMENT((byte) 5),
+
+    /** An element was added to a priority queue. */
+    ADD_QUEUE_ELEMENT((byte) 6),
+
+    /** An element was removed from a priority queue. */
+    REMOVE_QUEUE_ELEMENT((byte) 7);
+
+    private static final StateChangeOperation[] BY_CODE = values();
+
+    private final byte code;
+
+    StateChangeOperation(byte code) {
+        this.code = code;
+    }
+
+    byte getCode() {
+        return code;
+    }
+
+    static StateChangeOperation byCode(byte code) {
+        if (code < 0 || code >= BY_CODE.length) {
+            throw new IllegalArgumentException("Unknown state change operation: " + code);
+        }
+        return BY_CODE[code];
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog;
+
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.CheckpointedStateScope;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.changelog.StateChangelogHandle;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * A segment of the state changelog that was cut from the tail when a checkpoint was taken or the
+ * tail reached the maximum segment size. The serialized changes are kept in memory until the
+ * segment was persisted once; afterwards all checkpoints that include the segment share the same
+ * {@link StateChangelogHandle}.
+ *
+ * <p>Segments that were cut because of their size are persisted in the background, all others by
+ * the asynchronous part of the checkpoints. If persisting a segment fails, the next checkpoint
+ * persists it instead.
+ */
+final class StateChangelogSegment {
+
+    private final String segmentId;
+
+    private final long sequenceNumber;
+
+    /** The serialized changes, released once the segment was persisted. */
+    @Nullable private byte[] changes;
+
+    /** The number of bytes of {@link #changes} that hold the serialized changes. */
+    private final int length;
+
+    @Nullable private StateChangelogHandle handle;
+
+    StateChangelogSegment(long sequenceNumber, byte[] changes, int length) {
+        this.segmentId = UUID.randomUUID().toString();
+        this.sequenceNumber = sequenceNumber;
+        this.changes = Preconditions.checkNotNull(changes);
+        Preconditions.checkArgument(length >= 0 && length <= changes.length);
+        this.length = length;
+    }
+
+    long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    /**
+     * Persists the segment through the given stream factory unless it was already persisted, and
+     * returns the handle to the persisted segment.
+     */
+    synchronized StateChangelogHandle persist(
+            CheckpointStreamFactory streamFactory, KeyGroupRange keyGroupRange)
+            throws IOException {
+
+        if (handle != null) {
+            return handle;
+        }
+
+        StreamStateHandle delegateStateHandle;
+        try (CheckpointStreamFactory.CheckpointStateOutputStream out =
+                streamFactory.createCheckpointStateOutputStream(CheckpointedStateScope.SHARED)) {
+            out.write(changes, 0, length);
+            delegateStateHandle = out.closeAndGetHandle();
+        }
+
+        if (delegateStateHandle == null) {
+            throw new IOException("Could not persist changelog segment " + segmentId + '.');
+        }
+
+        handle =
+                new StateChangelogHandle(
+                        segmentId, sequenceNumber, keyGroupRange, delegateStateHandle);
+        changes = null;
+        return handle;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog;
+
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.util.function.ThrowingConsumer;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Appends state changes to the in-memory tail of a state changelog and cuts the tail into {@link
+ * StateChangelogSegment segments} when a checkpoint is taken, or earlier once the tail reaches the
+ * maximum segment size. Segments that are cut because of their size are passed to a listener, so
+ * that they can be persisted before the next checkpoint.
+ *
+ * <p>Every segment is self-contained: the first change to a state within a segment is preceded by
+ * a {@link StateChangeOperation#DEFINE_STATE} record that maps the compact state id used by the
+ * change records to the state name. A change record has the layout {@code [operation: byte][state
+ * id: int][key-group: int][payload length: int][payload]}, where the payload is written by the
+ * state that produced the change.
+ *
+ * <p>This class is not thread safe, it is only accessed from the task thread.
+ */
+class StateChangelogWriter {
+
+    private static final int INITIAL_TAIL_SIZE = 4096;
+
+    /** The size after which the tail is cut into a segment without waiting for a checkpoint. */
+    private final int maxSegmentSize;
+
+    /** Receives the segments that were cut because the tail reached the maximum size. */
+    private final Consumer<StateChangelogSegment> fullSegmentListener;
+
+    /** The changes that were appended since the last segment was cut. */
+    private DataOutputSerializer tail;
+
+    private final Map<String, Integer> stateIds;
+
+    private final List<String> stateNames;
+
+    /** The ids of all states that were already defined in the current tail. */
+    private final BitSet definedStates;
+
+    private long nextSequenceNumber;
+
+    StateChangelogWriter(
+            int maxSegmentSize, Consumer<StateChangelogSegment> fullSegmentListener) {
+        checkArgument(maxSegmentSize > 0, "The maximum segment size must be positive.");
+        this.maxSegmentSize = maxSegmentSize;
+        this.fullSegmentListener = checkNotNull(fullSegmentListener);
+        this.tail = new DataOutputSerializer(INITIAL_TAIL_SIZE);
+        this.stateIds = new HashMap<>();
+        this.stateNames = new ArrayList<>();
+        this.definedStates = new BitSet();
+        this.nextSequenceNumber = 0L;
+    }
+
+    /** Returns the id under which changes to the state with the given name are appended. */
+    int registerState(String stateName) {
+        Integer stateId = stateIds.get(stateName);
+        if (stateId == null) {
+            stateId = stateNames.size();
+            stateNames.add(stateName);
+            stateIds.put(stateName, stateId);
+        }
+        return stateId;
+    }
+
+    /**
+     * Appends one change record to the tail of the changelog.
+     *
+     * @param stateId the id of the changed state, as returned by {@link #registerState(String)}.
+     * @param operation the kind of change.
+     * @param keyGroup the key-group of the changed key.
+     * @param payloadWriter writes the payload of the change, i.e. key, namespace and values.
+     */
+    void append(
+            int stateId,
+            StateChangeOperation operation,
+            int keyGroup,
+            ThrowingConsumer<DataOutputView, IOException> payloadWriter)
+            throws IOException {
+
+        final int recordStart = tail.length();
+        try {
+            if (!definedStates.get(stateId)) {
+                tail.writeByte(StateChangeOperation.DEFINE_STATE.getCode());
+                tail.writeInt(stateId);
+                tail.writeUTF(stateNames.get(stateId));
+            }
+
+            tail.writeByte(operation.getCode());
+            tail.writeInt(stateId);
+            tail.writeInt(keyGroup);
+
+            final int lengthPosition = tail.length();
+            tail.writeInt(0);
+            payloadWriter.accept(tail);
+            tail.writeIntUnsafe(tail.length() - lengthPosition - Integer.BYTES, lengthPosition);
+        } catch (IOException | RuntimeException e) {
+            // drop the partially written record, the tail must only contain complete records
+            tail.setPosition(recordStart);
+            throw e;
+        }
+        definedStates.set(stateId);
+
+        if (tail.length() >= maxSegmentSize) {
+            fullSegmentListener.accept(cutSegment());
+        }
+    }
+
+    /** Returns the number of bytes that were appended since the last segment was cut. */
+    int getTailSize() {
+        return tail.length();
+    }
+
+    /** Returns the sequence number of the most recently cut segment, or -1 if there is none. */
+    long getLastSequenceNumber() {
+        return nextSequenceNumber - 1;
+    }
+
+    /**
+     * Cuts the current tail into a new segment and starts a new, empty tail.
+     *
+     * @return the new segment, or {@code null} if no changes were appended since the last cut.
+     */
+    @Nullable
+    StateChangelogSegment cutSegment() {
+        if (tail.length() == 0) {
+            return null;
+        }
+        // hand the buffer over to the segment instead of copying it
+        StateChangelogSegment segment =
+                new StateChangelogSegment(
+                        nextSequenceNumber++, tail.getSharedBuffer(), tail.length());
+        tail = new DataOutputSerializer(INITIAL_TAIL_SIZE);
+        definedStates.clear();
+        return segment;
+    }
+}
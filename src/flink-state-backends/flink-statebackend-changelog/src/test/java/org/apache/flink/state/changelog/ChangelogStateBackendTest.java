@@ -0,0 +1,365 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.state.changelog;
+
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.checkpoint.metadata.MetadataV3Serializer;
+import org.apache.flink.runtime.operators.testutils.MockEnvironment;
+import org.apache.flink.runtime.state.CheckpointStorageLocationReference;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.SharedStateRegistry;
+import org.apache.flink.runtime.state.SnapshotResult;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.runtime.state.changelog.ChangelogStateBackendHandle;
+import org.apache.flink.runtime.state.memory.MemoryStateBackend;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.util.IOUtils;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RunnableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for the {@link ChangelogStateBackend}. */
+public class ChangelogStateBackendTest extends TestLogger {
+
+    private static final ValueStateDescriptor<Integer> VALUE_STATE =
+            new ValueStateDescriptor<>("value", IntSerializer.INSTANCE);
+
+    private static final ListStateDescriptor<Integer> LIST_STATE =
+            new ListStateDescriptor<>("list", IntSerializer.INSTANCE);
+
+    private static final MapStateDescriptor<Integer, Integer> MAP_STATE =
+            new MapStateDescriptor<>("map", IntSerializer.INSTANCE, IntSerializer.INSTANCE);
+
+    private final ChangelogStateBackend stateBackend =
+            new ChangelogStateBackend(new MemoryStateBackend(), Duration.ofDays(1));
+
+    private final SharedStateRegistry sharedStateRegistry = new SharedStateRegistry();
+
+    private MockEnvironment env;
+
+    private CheckpointStreamFactory streamFactory;
+
+    @Before
+    public void before() throws Exception {
+        env = MockEnvironment.builder().build();
+        streamFactory =
+                stateBackend
+                        .createCheckpointStorage(new JobID())
+                        .resolveCheckpointStorageLocation(
+                                1L, CheckpointStorageLocationReference.getDefault());
+    }
+
+    @After
+    public void after() {
+        sharedStateRegistry.close();
+        IOUtils.closeQuietly(env);
+    }
+
+    @Test
+    public void testFirstCheckpointMaterializesState() throws Exception {
+        ChangelogKeyedStateBackend<Integer> backend = createBackend(Collections.emptyList());
+        try {
+            writeState(backend, 1, 1);
+
+            ChangelogStateBackendHandle handle = snapshot(backend, 1L);
+            assertEquals(1, handle.getMaterializedState().size());
+            assertTrue(handle.getChangelogHandles().isEmpty());
+        } finally {
+            backend.dispose();
+        }
+    }
+
+    @Test
+    public void testCheckpointsAfterMaterializationOnlyContainChanges() throws Exception {
+        ChangelogKeyedStateBackend<Integer> backend = createBackend(Collections.emptyList());
+        try {
+            writeState(backend, 1, 1);
+            ChangelogStateBackendHandle first = snapshot(backend, 1L);
+            backend.notifyCheckpointComplete(1L);
+
+            writeState(backend, 2, 2);
+            ChangelogStateBackendHandle second = snapshot(backend, 2L);
+
+            assertEquals(first.getMaterializedState(), second.getMaterializedState());
+            assertEquals(1, second.getChangelogHandles().size());
+
+            // no new changes, the segment of the previous checkpoint is referenced again
+            ChangelogStateBackendHandle third = snapshot(backend, 3L);
+            assertEquals(second.getChangelogHandles(), third.getChangelogHandles());
+        } finally {
+            backend.dispose();
+        }
+    }
+
+    @Test
+    public void testRestoreReplaysChanges() throws Exception {
+        ChangelogKeyedStateBackend<Integer> backend = createBackend(Collections.emptyList());
+        ChangelogStateBackendHandle handle;
+        try {
+            writeState(backend, 1, 1);
+            snapshot(backend, 1L);
+            backend.notifyCheckpointComplete(1L);
+
+            writeState(backend, 2, 2);
+            writeState(backend, 3, 3);
+
+            // overwrite and remove changes that were already materialized
+            backend.setCurrentKey(1);
+            backend.getPartitionedState(
+                            VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, VALUE_STATE)
+                    .clear();
+            backend.getPartitionedState(
+                            VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, LIST_STATE)
+                    .add(10);
+            backend.getPartitionedState(
+                            VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, MAP_STATE)
+                    .remove(1);
+
+            handle = snapshot(backend, 2L);
+        } finally {
+            backend.dispose();
+        }
+
+        ChangelogKeyedStateBackend<Integer> restored =
+                createBackend(Collections.singletonList(handle));
+        try {
+            ValueState<Integer> valueState =
+                    restored.getPartitionedState(
+                            VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, VALUE_STATE);
+            ListState<Integer> listState =
+                    restored.getPartitionedState(
+                            VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, LIST_STATE);
+            MapState<Integer, Integer> mapState =
+                    restored.getPartitionedState(
+                            VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, MAP_STATE);
+
+            restored.setCurrentKey(1);
+            assertNull(valueState.value());
+            assertEquals(Arrays.asList(1, 10), toList(listState.get()));
+            assertFalse(mapState.contains(1));
+
+            for (int key = 2; key <= 3; key++) {
+                restored.setCurrentKey(key);
+                assertEquals(Integer.valueOf(key), valueState.value());
+                assertEquals(Collections.singletonList(key), toList(listState.get()));
+                assertEquals(Integer.valueOf(key), mapState.get(key));
+            }
+        } finally {
+            restored.dispose();
+        }
+    }
+
+    @Test
+    public void testCheckpointBeforeReplayReferencesRestoredChangelog() throws Exception {
+        ChangelogKeyedStateBackend<Integer> backend = createBackend(Collections.emptyList());
+        ChangelogStateBackendHandle handle;
+        try {
+            writeState(backend, 1, 1);
+            snapshot(backend, 1L);
+            backend.notifyCheckpointComplete(1L);
+            writeState(backend, 2, 2);
+            handle = snapshot(backend, 2L);
+        } finally {
+            backend.dispose();
+        }
+
+        ChangelogKeyedStateBackend<Integer> restored =
+                createBackend(Collections.singletonList(handle));
+        try {
+            // the changes of the states that were not registered again are still referenced
+            ChangelogStateBackendHandle checkpoint = snapshot(restored, 3L);
+            assertEquals(handle.getMaterializedState(), checkpoint.getMaterializedState());
+            assertEquals(handle.getChangelogHandles(), checkpoint.getChangelogHandles());
+        } finally {
+            restored.dispose();
+        }
+    }
+
+    @Test
+    public void testChangesAreCutIntoSegmentsOfBoundedSize() throws Exception {
+        Configuration config = new Configuration();
+        config.set(ChangelogOptions.SEGMENT_SIZE, MemorySize.parse("1b"));
+        ChangelogStateBackend configuredStateBackend =
+                stateBackend.configure(config, getClass().getClassLoader());
+
+        ChangelogKeyedStateBackend<Integer> backend =
+                createBackend(configuredStateBackend, Collections.emptyList());
+        ChangelogStateBackendHandle handle;
+        try {
+            writeState(backend, 1, 1);
+            snapshot(backend, 1L);
+            backend.notifyCheckpointComplete(1L);
+
+            // every change reaches the segment size and is cut into a segment of its own
+            writeState(backend, 2, 2);
+            writeState(backend, 3, 3);
+            handle = snapshot(backend, 2L);
+            assertEquals(6, handle.getChangelogHandles().size());
+        } finally {
+            backend.dispose();
+        }
+
+        ChangelogKeyedStateBackend<Integer> restored =
+                createBackend(configuredStateBackend, Collections.singletonList(handle));
+        try {
+            ValueState<Integer> valueState =
+                    restored.getPartitionedState(
+                            VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, VALUE_STATE);
+            ListState<Integer> listState =
+                    restored.getPartitionedState(
+                            VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, LIST_STATE);
+            MapState<Integer, Integer> mapState =
+                    restored.getPartitionedState(
+                            VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, MAP_STATE);
+
+            for (int key = 1; key <= 3; key++) {
+                restored.setCurrentKey(key);
+                assertEquals(Integer.valueOf(key), valueState.value());
+                assertEquals(Collections.singletonList(key), toList(listState.get()));
+                assertEquals(Integer.valueOf(key), mapState.get(key));
+            }
+        } finally {
+            restored.dispose();
+        }
+    }
+
+    @Test
+    public void testSerializeStateHandle() throws Exception {
+        ChangelogKeyedStateBackend<Integer> backend = createBackend(Collections.emptyList());
+        try {
+            writeState(backend, 1, 1);
+            snapshot(backend, 1L);
+            backend.notifyCheckpointComplete(1L);
+            writeState(backend, 2, 2);
+            ChangelogStateBackendHandle handle = snapshot(backend, 2L);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            MetadataV3Serializer.serializeKeyedStateHandleUtil(handle, new DataOutputStream(out));
+            KeyedStateHandle deserialized =
+                    MetadataV3Serializer.deserializeKeyedStateHandleUtil(
+                            new DataInputStream(new ByteArrayInputStream(out.toByteArray())));
+
+            assertTrue(deserialized instanceof ChangelogStateBackendHandle);
+            ChangelogStateBackendHandle deserializedHandle =
+                    (ChangelogStateBackendHandle) deserialized;
+            assertEquals(handle.getKeyGroupRange(), deserializedHandle.getKeyGroupRange());
+            assertEquals(
+                    handle.getMaterializedState().keySet(),
+                    deserializedHandle.getMaterializedState().keySet());
+            assertEquals(handle.getChangelogHandles(), deserializedHandle.getChangelogHandles());
+            assertEquals(handle.getStateSize(), deserializedHandle.getStateSize());
+        } finally {
+            backend.dispose();
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    private ChangelogKeyedStateBackend<Integer> createBackend(
+            List<KeyedStateHandle> stateHandles) throws Exception {
+        return createBackend(stateBackend, stateHandles);
+    }
+
+    private ChangelogKeyedStateBackend<Integer> createBackend(
+            ChangelogStateBackend stateBackend, List<KeyedStateHandle> stateHandles)
+            throws Exception {
+        return (ChangelogKeyedStateBackend<Integer>)
+                stateBackend.createKeyedStateBackend(
+                        env,
+                        new JobID(),
+                        "test_op",
+                        IntSerializer.INSTANCE,
+                        10,
+                        new KeyGroupRange(0, 9),
+                        env.getTaskKvStateRegistry(),
+                        TtlTimeProvider.DEFAULT,
+                        new UnregisteredMetricsGroup(),
+                        stateHandles,
+                        new CloseableRegistry());
+    }
+
+    private static void writeState(
+            ChangelogKeyedStateBackend<Integer> backend, int key, int value)
+            throws Exception {
+        backend.setCurrentKey(key);
+        backend.getPartitionedState(
+                        VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, VALUE_STATE)
+                .update(value);
+        backend.getPartitionedState(
+                        VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, LIST_STATE)
+                .add(value);
+        backend.getPartitionedState(
+                        VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, MAP_STATE)
+                .put(key, value);
+    }
+
+    private ChangelogStateBackendHandle snapshot(
+            ChangelogKeyedStateBackend<Integer> backend, long checkpointId)
+            throws Exception {
+        RunnableFuture<SnapshotResult<KeyedStateHandle>> snapshot =
+                backend.snapshot(
+                        checkpointId,
+                        checkpointId,
+                        streamFactory,
+                        CheckpointOptions.forCheckpointWithDefaultLocation());
+        snapshot.run();
+        KeyedStateHandle handle = snapshot.get().getJobManagerOwnedSnapshot();
+        assertTrue(handle instanceof ChangelogStateBackendHandle);
+        return (ChangelogStateBackendHandle) handle;
+    }
+
+    private static List<Integer> toList(Iterable<Integer> iterable) {
+        List<Integer> list = new ArrayList<>();
+        iterable.forEach(list::add);
+        return list;
+    }
+}
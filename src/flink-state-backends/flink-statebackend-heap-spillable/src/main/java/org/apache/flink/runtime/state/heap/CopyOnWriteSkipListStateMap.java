@@ -1305,6 +1305,11 @@ public final class CopyOnWriteSkipListStateMap<K, N, S> extends StateMap<K, N, S
         return closed.get();
     }
 
+    /** Returns whether there are snapshots of this map that were not released yet. */
+    boolean hasUnreleasedSnapshots() {
+        return resourceGuard.getLeaseCount() > 0;
+    }
+
     @Override
     public void close() {
         if (!closed.compareAndSet(false, true)) {
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Monitors the heap of the JVM to decide whether key groups should be spilled or loaded.
+ *
+ * <p>The used memory is taken from the usage of the heap memory pools after their last
+ * collection, which approximates the live data and is not inflated by garbage that was not
+ * collected yet. If the JVM does not report it, the current heap usage is used instead.
+ */
+class HeapStatusMonitor {
+
+    private final List<MemoryPoolMXBean> heapMemoryPools;
+
+    private final List<GarbageCollectorMXBean> garbageCollectors;
+
+    private final long maxMemory;
+
+    HeapStatusMonitor() {
+        this.heapMemoryPools = new ArrayList<>();
+        for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (memoryPool.getType() == MemoryType.HEAP && memoryPool.isValid()) {
+                heapMemoryPools.add(memoryPool);
+            }
+        }
+        this.garbageCollectors = ManagementFactory.getGarbageCollectorMXBeans();
+        this.maxMemory = Runtime.getRuntime().maxMemory();
+    }
+
+    /** Returns the current status of the heap. */
+    HeapStatus getHeapStatus() {
+        long usedMemory = 0L;
+        boolean collectionUsageAvailable = false;
+        for (MemoryPoolMXBean memoryPool : heapMemoryPools) {
+            MemoryUsage collectionUsage = memoryPool.getCollectionUsage();
+            if (collectionUsage != null) {
+                usedMemory += collectionUsage.getUsed();
+                collectionUsageAvailable = true;
+            }
+        }
+
+        if (!collectionUsageAvailable) {
+            Runtime runtime = Runtime.getRuntime();
+            usedMemory = runtime.totalMemory() - runtime.freeMemory();
+        }
+
+        long garbageCollectionCount = 0L;
+        for (GarbageCollectorMXBean garbageCollector : garbageCollectors) {
+            garbageCollectionCount += Math.max(0L, garbageCollector.getCollectionCount());
+        }
+
+        return new HeapStatus(usedMemory, maxMemory, garbageCollectionCount);
+    }
+
+    /** A snapshot of the status of the heap. */
+    static final class HeapStatus {
+
+        private final long usedMemory;
+
+        private final long maxMemory;
+
+        private final long garbageCollectionCount;
+
+        HeapStatus(long usedMemory, long maxMemory, long garbageCollectionCount) {
+            this.usedMemory = usedMemory;
+            this.maxMemory = maxMemory;
+            this.garbageCollectionCount = garbageCollectionCount;
+        }
+
+        long getUsedMemory() {
+            return usedMemory;
+        }
+
+        long getMaxMemory() {
+            return maxMemory;
+        }
+
+        /** Returns the total number of garbage collections so far. */
+        long getGarbageCollectionCount() {
+            return garbageCollectionCount;
+        }
+
+        double getUsageRatio() {
+            return maxMemory > 0 ? (double) usedMemory / maxMemory : 0.0;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.heap.space.MmapChunkAllocator;
+import org.apache.flink.util.Preconditions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which key groups of a {@link SpillableHeapKeyedStateBackend} are kept on the heap and
+ * which are spilled, and moves them accordingly. A key group is always spilled or loaded in all
+ * state tables of the backend at once.
+ *
+ * <p>The manager counts the accesses to each key group and periodically checks the heap usage.
+ * If the usage exceeds the spill threshold, the key groups with the fewest accesses relative to
+ * their size are spilled until the estimated usage falls to the middle between the spill and the
+ * load threshold. If the usage is below the load threshold, the spilled key groups with the most
+ * accesses are loaded as long as their estimated size fits below that mark. The size of a key
+ * group is estimated from the number of its entries and the average heap usage per entry. After
+ * spilling or loading, no further decision is made until a garbage collection has updated the
+ * heap usage. The access counts are halved at every check, so that they reflect recent accesses.
+ */
+class SpillAndLoadManager implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SpillAndLoadManager.class);
+
+    /** The number of accesses between two checks whether the check interval passed. */
+    private static final int ACCESSES_BETWEEN_CHECKS = 1024;
+
+    private final Map<String, StateTable<?, ?, ?>> registeredKVStates;
+
+    private final MmapChunkAllocator spaceAllocator;
+
+    private final HeapStatusMonitor heapStatusMonitor;
+
+    private final int keyGroupOffset;
+
+    private final double spillThreshold;
+
+    private final double loadThreshold;
+
+    private final long checkIntervalMillis;
+
+    /** The decayed number of accesses by key group offset. */
+    private final long[] accessCounts;
+
+    /** Whether a key group is spilled, by key group offset. */
+    private final boolean[] spilledKeyGroups;
+
+    private volatile int numberOfSpilledKeyGroups;
+
+    private volatile double heapUsageRatio;
+
+    private int accessesUntilCheck;
+
+    private long lastCheckTimestamp;
+
+    /** The garbage collection count when key groups were last spilled or loaded, or -1. */
+    private long garbageCollectionCountAtLastAction;
+
+    @SuppressWarnings("unchecked")
+    SpillAndLoadManager(
+            Map<String, ? extends StateTable<?, ?, ?>> registeredKVStates,
+            MmapChunkAllocator spaceAllocator,
+            HeapStatusMonitor heapStatusMonitor,
+            KeyGroupRange keyGroupRange,
+            double spillThreshold,
+            double loadThreshold,
+            long checkIntervalMillis) {
+        Preconditions.checkArgument(
+                loadThreshold >= 0.0 && loadThreshold <= spillThreshold && spillThreshold <= 1.0,
+                "The thresholds must satisfy 0 <= load threshold (%s) <= spill threshold (%s) <= 1.",
+                loadThreshold,
+                spillThreshold);
+        Preconditions.checkArgument(checkIntervalMillis >= 0L);
+
+        this.registeredKVStates = (Map<String, StateTable<?, ?, ?>>) registeredKVStates;
+        this.spaceAllocator = spaceAllocator;
+        this.heapStatusMonitor = heapStatusMonitor;
+        this.keyGroupOffset = keyGroupRange.getStartKeyGroup();
+        this.spillThreshold = spillThreshold;
+        this.loadThreshold = loadThreshold;
+        this.checkIntervalMillis = checkIntervalMillis;
+        this.accessCounts = new long[keyGroupRange.getNumberOfKeyGroups()];
+        this.spilledKeyGroups = new boolean[keyGroupRange.getNumberOfKeyGroups()];
+        this.accessesUntilCheck = ACCESSES_BETWEEN_CHECKS;
+        this.lastCheckTimestamp = System.currentTimeMillis();
+        this.garbageCollectionCountAtLastAction = -1L;
+    }
+
+    /** Registers the gauges of the manager in the given metric group. */
+    void registerMetrics(MetricGroup metricGroup) {
+        metricGroup.gauge(
+                "numSpilledKeyGroups", (Gauge<Integer>) () -> numberOfSpilledKeyGroups);
+        metricGroup.gauge(
+                "numOnHeapKeyGroups",
+                (Gauge<Integer>) () -> spilledKeyGroups.length - numberOfSpilledKeyGroups);
+        metricGroup.gauge("spilledUsedBytes", (Gauge<Long>) spaceAllocator::getUsedBytes);
+        metricGroup.gauge("spilledAllocatedBytes", (Gauge<Long>) spaceAllocator::getAllocatedBytes);
+        metricGroup.gauge("heapUsageRatio", (Gauge<Double>) () -> heapUsageRatio);
+    }
+
+    /** Records an access to the given key group and checks the heap from time to time. */
+    void recordAccess(int keyGroupIndex) {
+        accessCounts[keyGroupIndex - keyGroupOffset]++;
+        if (--accessesUntilCheck <= 0) {
+            accessesUntilCheck = ACCESSES_BETWEEN_CHECKS;
+            long now = System.currentTimeMillis();
+            if (now - lastCheckTimestamp >= checkIntervalMillis) {
+                lastCheckTimestamp = now;
+                checkResource();
+            }
+        }
+    }
+
+    /** Spills the key groups that are currently spilled in the given, newly created table. */
+    void onStateTableCreated(SpillableStateTable<?, ?, ?> stateTable) {
+        if (numberOfSpilledKeyGroups == 0) {
+            return;
+        }
+        for (int pos = 0; pos < spilledKeyGroups.length; pos++) {
+            if (spilledKeyGroups[pos]) {
+                stateTable.spillKeyGroup(pos + keyGroupOffset);
+            }
+        }
+    }
+
+    /** Checks the heap usage and spills or loads key groups if needed. */
+    @VisibleForTesting
+    void checkResource() {
+        HeapStatusMonitor.HeapStatus heapStatus = heapStatusMonitor.getHeapStatus();
+        heapUsageRatio = heapStatus.getUsageRatio();
+
+        if (heapStatus.getGarbageCollectionCount() != garbageCollectionCountAtLastAction) {
+            boolean acted = false;
+            if (heapUsageRatio > spillThreshold) {
+                acted = spill(heapStatus);
+            } else if (heapUsageRatio < loadThreshold && numberOfSpilledKeyGroups > 0) {
+                acted = load(heapStatus);
+            }
+            if (acted) {
+                garbageCollectionCountAtLastAction = heapStatus.getGarbageCollectionCount();
+            }
+        }
+
+        for (int pos = 0; pos < accessCounts.length; pos++) {
+            accessCounts[pos] >>>= 1;
+        }
+    }
+
+    private boolean spill(HeapStatusMonitor.HeapStatus heapStatus) {
+        List<KeyGroupCandidate> candidates = new ArrayList<>();
+        long numberOfEntries = 0L;
+        for (int pos = 0; pos < spilledKeyGroups.length; pos++) {
+            if (!spilledKeyGroups[pos]) {
+                long size = sizeOfKeyGroup(pos + keyGroupOffset);
+                if (size > 0) {
+                    candidates.add(new KeyGroupCandidate(pos, size, accessCounts[pos]));
+                    numberOfEntries += size;
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return false;
+        }
+
+        double bytesPerEntry = (double) heapStatus.getUsedMemory() / numberOfEntries;
+        double bytesToFree =
+                heapStatus.getUsedMemory() - getTargetRatio() * heapStatus.getMaxMemory();
+
+        // spill cold and large key groups first
+        candidates.sort(
+                Comparator.comparingDouble(
+                        candidate -> (double) candidate.accessCount / candidate.size));
+
+        int spilled = 0;
+        for (KeyGroupCandidate candidate : candidates) {
+            if (bytesToFree <= 0) {
+                break;
+            }
+            int keyGroupIndex = candidate.position + keyGroupOffset;
+            for (StateTable<?, ?, ?> stateTable : registeredKVStates.values()) {
+                if (stateTable instanceof SpillableStateTable) {
+                    ((SpillableStateTable<?, ?, ?>) stateTable).spillKeyGroup(keyGroupIndex);
+                }
+            }
+            spilledKeyGroups[candidate.position] = true;
+            bytesToFree -= candidate.size * bytesPerEntry;
+            spilled++;
+        }
+
+        numberOfSpilledKeyGroups += spilled;
+        LOG.debug(
+                "Spilled {} key groups at heap usage {}, {} of {} key groups are spilled.",
+                spilled,
+                heapStatus.getUsageRatio(),
+                numberOfSpilledKeyGroups,
+                spilledKeyGroups.length);
+        return spilled > 0;
+    }
+
+    private boolean load(HeapStatusMonitor.HeapStatus heapStatus) {
+        List<KeyGroupCandidate> candidates = new ArrayList<>();
+        long numberOfEntries = 0L;
+        for (int pos = 0; pos < spilledKeyGroups.length; pos++) {
+            long size = sizeOfKeyGroup(pos + keyGroupOffset);
+            numberOfEntries += size;
+            if (spilledKeyGroups[pos] && accessCounts[pos] > 0) {
+                candidates.add(new KeyGroupCandidate(pos, size, accessCounts[pos]));
+            }
+        }
+        if (candidates.isEmpty()) {
+            return false;
+        }
+
+        double bytesPerEntry = (double) heapStatus.getUsedMemory() / Math.max(1L, numberOfEntries);
+        double availableBytes =
+                getTargetRatio() * heapStatus.getMaxMemory() - heapStatus.getUsedMemory();
+
+        // load hot key groups first
+        candidates.sort(
+                Comparator.comparingLong((KeyGroupCandidate candidate) -> candidate.accessCount)
+                        .reversed());
+
+        int loaded = 0;
+        for (KeyGroupCandidate candidate : candidates) {
+            double estimatedBytes = candidate.size * bytesPerEntry;
+            int keyGroupIndex = candidate.position + keyGroupOffset;
+            if (estimatedBytes > availableBytes || !canLoadKeyGroup(keyGroupIndex)) {
+                continue;
+            }
+            for (StateTable<?, ?, ?> stateTable : registeredKVStates.values()) {
+                if (stateTable instanceof SpillableStateTable) {
+                    ((SpillableStateTable<?, ?, ?>) stateTable).tryLoadKeyGroup(keyGroupIndex);
+                }
+            }
+            spilledKeyGroups[candidate.position] = false;
+            availableBytes -= estimatedBytes;
+            loaded++;
+        }
+
+        numberOfSpilledKeyGroups -= loaded;
+        LOG.debug(
+                "Loaded {} key groups at heap usage {}, {} of {} key groups are spilled.",
+                loaded,
+                heapStatus.getUsageRatio(),
+                numberOfSpilledKeyGroups,
+                spilledKeyGroups.length);
+        return loaded > 0;
+    }
+
+    private boolean canLoadKeyGroup(int keyGroupIndex) {
+        for (StateTable<?, ?, ?> stateTable : registeredKVStates.values()) {
+            if (stateTable instanceof SpillableStateTable
+                    && ((SpillableStateTable<?, ?, ?>) stateTable)
+                            .hasUnreleasedSnapshots(keyGroupIndex)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long sizeOfKeyGroup(int keyGroupIndex) {
+        long size = 0L;
+        for (StateTable<?, ?, ?> stateTable : registeredKVStates.values()) {
+            if (stateTable instanceof SpillableStateTable) {
+                size += ((SpillableStateTable<?, ?, ?>) stateTable).sizeOfKeyGroup(keyGroupIndex);
+            }
+        }
+        return size;
+    }
+
+    private double getTargetRatio() {
+        return (spillThreshold + loadThreshold) / 2;
+    }
+
+    @VisibleForTesting
+    boolean isSpilled(int keyGroupIndex) {
+        return spilledKeyGroups[keyGroupIndex - keyGroupOffset];
+    }
+
+    @VisibleForTesting
+    int getNumberOfSpilledKeyGroups() {
+        return numberOfSpilledKeyGroups;
+    }
+
+    /** Releases the space of all spilled key groups. */
+    @Override
+    public void close() {
+        for (StateTable<?, ?, ?> stateTable : registeredKVStates.values()) {
+            if (stateTable instanceof SpillableStateTable) {
+                ((SpillableStateTable<?, ?, ?>) stateTable).close();
+            }
+        }
+        spaceAllocator.close();
+    }
+
+    private static final class KeyGroupCandidate {
+
+        private final int position;
+
+        private final long size;
+
+        private final long accessCount;
+
+        private KeyGroupCandidate(int position, long size, long accessCount) {
+            this.position = position;
+            this.size = size;
+            this.accessCount = accessCount;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.LocalRecoveryConfig;
+import org.apache.flink.runtime.state.StreamCompressionDecorator;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * A {@link HeapKeyedStateBackend} that moves key groups out of the heap when the heap runs full,
+ * and back when there is room again. Spilled key groups are stored serialized in memory-mapped
+ * files on local disk, see {@link SpillAndLoadManager} for the policy.
+ *
+ * @param <K> The key by which state is keyed.
+ */
+public class SpillableHeapKeyedStateBackend<K> extends HeapKeyedStateBackend<K> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SpillableHeapKeyedStateBackend.class);
+
+    private final SpillAndLoadManager spillAndLoadManager;
+
+    SpillableHeapKeyedStateBackend(
+            TaskKvStateRegistry kvStateRegistry,
+            TypeSerializer<K> keySerializer,
+            ClassLoader userCodeClassLoader,
+            ExecutionConfig executionConfig,
+            TtlTimeProvider ttlTimeProvider,
+            CloseableRegistry cancelStreamRegistry,
+            StreamCompressionDecorator keyGroupCompressionDecorator,
+            Map<String, StateTable<K, ?, ?>> registeredKVStates,
+            Map<String, HeapPriorityQueueSnapshotRestoreWrapper> registeredPQStates,
+            LocalRecoveryConfig localRecoveryConfig,
+            HeapPriorityQueueSetFactory priorityQueueSetFactory,
+            HeapSnapshotStrategy<K> snapshotStrategy,
+            InternalKeyContext<K> keyContext,
+            SpillAndLoadManager spillAndLoadManager) {
+        super(
+                kvStateRegistry,
+                keySerializer,
+                userCodeClassLoader,
+                executionConfig,
+                ttlTimeProvider,
+                cancelStreamRegistry,
+                keyGroupCompressionDecorator,
+                registeredKVStates,
+                registeredPQStates,
+                localRecoveryConfig,
+                priorityQueueSetFactory,
+                snapshotStrategy,
+                keyContext);
+        this.spillAndLoadManager = spillAndLoadManager;
+    }
+
+    @Override
+    public void setCurrentKey(K newKey) {
+        super.setCurrentKey(newKey);
+        spillAndLoadManager.recordAccess(keyContext.getCurrentKeyGroupIndex());
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        try {
+            spillAndLoadManager.close();
+        } catch (Exception e) {
+            LOG.warn("Could not release the space of the spilled key groups.", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SpillableHeapKeyedStateBackend";
+    }
+}
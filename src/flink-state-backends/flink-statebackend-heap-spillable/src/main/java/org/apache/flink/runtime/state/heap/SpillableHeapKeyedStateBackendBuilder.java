@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.AbstractKeyedStateBackendBuilder;
+import org.apache.flink.runtime.state.BackendBuildingException;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.LocalRecoveryConfig;
+import org.apache.flink.runtime.state.StreamCompressionDecorator;
+import org.apache.flink.runtime.state.heap.space.MmapChunkAllocator;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.util.IOUtils;
+
+import javax.annotation.Nonnull;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builder class for {@link SpillableHeapKeyedStateBackend} which handles all necessary
+ * initializations and clean ups.
+ *
+ * @param <K> The data type that the key serializer serializes.
+ */
+public class SpillableHeapKeyedStateBackendBuilder<K> extends AbstractKeyedStateBackendBuilder<K> {
+    /** The configuration of local recovery. */
+    private final LocalRecoveryConfig localRecoveryConfig;
+    /** Factory for state that is organized as priority queue. */
+    private final HeapPriorityQueueSetFactory priorityQueueSetFactory;
+    /** The directory for the files of spilled key groups. */
+    private final File spillDirectory;
+    /** The size of a chunk of spilled key groups. */
+    private final int chunkSize;
+    /** The heap usage above which key groups are spilled. */
+    private final double spillThreshold;
+    /** The heap usage below which key groups are loaded. */
+    private final double loadThreshold;
+    /** The minimum interval between two checks of the heap usage. */
+    private final long checkIntervalMillis;
+    /** The metric group for the gauges of the backend. */
+    private final MetricGroup metricGroup;
+
+    public SpillableHeapKeyedStateBackendBuilder(
+            TaskKvStateRegistry kvStateRegistry,
+            TypeSerializer<K> keySerializer,
+            ClassLoader userCodeClassLoader,
+            int numberOfKeyGroups,
+            KeyGroupRange keyGroupRange,
+            ExecutionConfig executionConfig,
+            TtlTimeProvider ttlTimeProvider,
+            @Nonnull Collection<KeyedStateHandle> stateHandles,
+            StreamCompressionDecorator keyGroupCompressionDecorator,
+            LocalRecoveryConfig localRecoveryConfig,
+            HeapPriorityQueueSetFactory priorityQueueSetFactory,
+            CloseableRegistry cancelStreamRegistry,
+            File spillDirectory,
+            int chunkSize,
+            double spillThreshold,
+            double loadThreshold,
+            long checkIntervalMillis,
+            MetricGroup metricGroup) {
+        super(
+                kvStateRegistry,
+                keySerializer,
+                userCodeClassLoader,
+                numberOfKeyGroups,
+                keyGroupRange,
+                executionConfig,
+                ttlTimeProvider,
+                stateHandles,
+                keyGroupCompressionDecorator,
+                cancelStreamRegistry);
+        this.localRecoveryConfig = localRecoveryConfig;
+        this.priorityQueueSetFactory = priorityQueueSetFactory;
+        this.spillDirectory = spillDirectory;
+        this.chunkSize = chunkSize;
+        this.spillThreshold = spillThreshold;
+        this.loadThreshold = loadThreshold;
+        this.checkIntervalMillis = checkIntervalMillis;
+        this.metricGroup = metricGroup;
+    }
+
+    @Override
+    public SpillableHeapKeyedStateBackend<K> build() throws BackendBuildingException {
+        // Map of registered Key/Value states
+        Map<String, StateTable<K, ?, ?>> registeredKVStates = new HashMap<>();
+        // Map of registered priority queue set states
+        Map<String, HeapPriorityQueueSnapshotRestoreWrapper> registeredPQStates = new HashMap<>();
+        CloseableRegistry cancelStreamRegistryForBackend = new CloseableRegistry();
+
+        MmapChunkAllocator spaceAllocator;
+        try {
+            spaceAllocator = new MmapChunkAllocator(spillDirectory, chunkSize);
+        } catch (Exception e) {
+            throw new BackendBuildingException(
+                    "Could not create the directory for spilled key groups.", e);
+        }
+
+        SpillAndLoadManager spillAndLoadManager =
+                new SpillAndLoadManager(
+                        registeredKVStates,
+                        spaceAllocator,
+                        new HeapStatusMonitor(),
+                        keyGroupRange,
+                        spillThreshold,
+                        loadThreshold,
+                        checkIntervalMillis);
+        HeapSnapshotStrategy<K> snapshotStrategy =
+                new HeapSnapshotStrategy<>(
+                        new SpillableSnapshotStrategySynchronicityBehavior<>(
+                                spaceAllocator, spillAndLoadManager),
+                        registeredKVStates,
+                        registeredPQStates,
+                        keyGroupCompressionDecorator,
+                        localRecoveryConfig,
+                        keyGroupRange,
+                        cancelStreamRegistryForBackend,
+                        keySerializerProvider);
+        InternalKeyContext<K> keyContext =
+                new InternalKeyContextImpl<>(keyGroupRange, numberOfKeyGroups);
+        HeapRestoreOperation<K> restoreOperation =
+                new HeapRestoreOperation<>(
+                        restoreStateHandles,
+                        keySerializerProvider,
+                        userCodeClassLoader,
+                        registeredKVStates,
+                        registeredPQStates,
+                        cancelStreamRegistry,
+                        priorityQueueSetFactory,
+                        keyGroupRange,
+                        numberOfKeyGroups,
+                        snapshotStrategy,
+                        keyContext);
+        try {
+            restoreOperation.restore();
+            logger.info("Finished to build spillable heap keyed state-backend.");
+        } catch (Exception e) {
+            IOUtils.closeQuietly(spillAndLoadManager);
+            throw new BackendBuildingException(
+                    "Failed when trying to restore spillable heap backend", e);
+        }
+
+        spillAndLoadManager.registerMetrics(metricGroup.addGroup("spillable"));
+
+        return new SpillableHeapKeyedStateBackend<>(
+                kvStateRegistry,
+                keySerializerProvider.currentSchemaSerializer(),
+                userCodeClassLoader,
+                executionConfig,
+                ttlTimeProvider,
+                cancelStreamRegistryForBackend,
+                keyGroupCompressionDecorator,
+                registeredKVStates,
+                registeredPQStates,
+                localRecoveryConfig,
+                priorityQueueSetFactory,
+                snapshotStrategy,
+                keyContext,
+                spillAndLoadManager);
+    }
+}
@@ -0,0 +1,454 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.configuration.IllegalConfigurationException;
+import org.apache.flink.configuration.ReadableConfig;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.execution.Environment;
+import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
+import org.apache.flink.runtime.state.AbstractStateBackend;
+import org.apache.flink.runtime.state.BackendBuildingException;
+import org.apache.flink.runtime.state.CheckpointStorageAccess;
+import org.apache.flink.runtime.state.CompletedCheckpointStorageLocation;
+import org.apache.flink.runtime.state.ConfigurableStateBackend;
+import org.apache.flink.runtime.state.DefaultOperatorStateBackendBuilder;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyedStateHandle;
+import org.apache.flink.runtime.state.OperatorStateBackend;
+import org.apache.flink.runtime.state.OperatorStateHandle;
+import org.apache.flink.runtime.state.StateBackend;
+import org.apache.flink.runtime.state.filesystem.FsStateBackend;
+import org.apache.flink.runtime.state.heap.space.SizeClassChunk;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A state backend that holds the working state on the heap like the {@link FsStateBackend}, but
+ * spills rarely accessed key groups out of the heap when the heap usage exceeds a threshold.
+ * Spilled key groups are stored serialized in memory-mapped files in local directories, so that
+ * the operating system can keep them on disk. Frequently accessed key groups are loaded back once
+ * the heap usage drops again.
+ *
+ * <p>Snapshots are always asynchronous. The snapshots are written with the checkpoint storage of
+ * the given state backend, typically a {@link FsStateBackend}, and are compatible with the
+ * snapshots of the heap state backends.
+ */
+@PublicEvolving
+public class SpillableHeapStateBackend extends AbstractStateBackend
+        implements ConfigurableStateBackend {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The state backend that we use for creating checkpoint streams. */
+    private final StateBackend checkpointStreamBackend;
+
+    /** Base paths for the spilled key groups, null if not configured. */
+    @Nullable private final File[] localDirectories;
+
+    /** The size of a chunk, null if not configured. */
+    @Nullable private final Integer chunkSize;
+
+    /** The heap usage above which key groups are spilled, null if not configured. */
+    @Nullable private final Double spillThreshold;
+
+    /** The heap usage below which key groups are loaded, null if not configured. */
+    @Nullable private final Double loadThreshold;
+
+    /** The minimum interval between two checks of the heap usage, null if not configured. */
+    @Nullable private final Long checkIntervalMillis;
+
+    /**
+     * Creates a new {@code SpillableHeapStateBackend} that stores its checkpoint data in the file
+     * system and location defined by the given URI.
+     *
+     * @param checkpointDataUri The URI describing the filesystem and path to the checkpoint data
+     *     directory.
+     */
+    public SpillableHeapStateBackend(String checkpointDataUri) {
+        this(new FsStateBackend(checkpointDataUri));
+    }
+
+    /**
+     * Creates a new {@code SpillableHeapStateBackend} that stores its checkpoint data in the file
+     * system and location defined by the given URI.
+     *
+     * @param checkpointDataUri The URI describing the filesystem and path to the checkpoint data
+     *     directory.
+     */
+    public SpillableHeapStateBackend(URI checkpointDataUri) {
+        this(new FsStateBackend(checkpointDataUri));
+    }
+
+    /**
+     * Creates a new {@code SpillableHeapStateBackend} that uses the given state backend to store
+     * its checkpoint data streams.
+     *
+     * @param checkpointStreamBackend The backend write the checkpoint streams to.
+     */
+    public SpillableHeapStateBackend(StateBackend checkpointStreamBackend) {
+        this.checkpointStreamBackend = checkNotNull(checkpointStreamBackend);
+        this.localDirectories = null;
+        this.chunkSize = null;
+        this.spillThreshold = null;
+        this.loadThreshold = null;
+        this.checkIntervalMillis = null;
+    }
+
+    /**
+     * Private constructor that creates a re-configured copy of the state backend.
+     *
+     * @param original The state backend to re-configure.
+     * @param config The configuration.
+     * @param classLoader The class loader.
+     */
+    private SpillableHeapStateBackend(
+            SpillableHeapStateBackend original, ReadableConfig config, ClassLoader classLoader) {
+        // reconfigure the state backend backing the streams
+        final StateBackend originalStreamBackend = original.checkpointStreamBackend;
+        this.checkpointStreamBackend =
+                originalStreamBackend instanceof ConfigurableStateBackend
+                        ? ((ConfigurableStateBackend) originalStreamBackend)
+                                .configure(config, classLoader)
+                        : originalStreamBackend;
+
+        if (original.localDirectories != null) {
+            this.localDirectories = original.localDirectories;
+        } else {
+            final String configuredDirectories = config.get(SpillableOptions.LOCAL_DIRECTORIES);
+            this.localDirectories =
+                    configuredDirectories == null
+                            ? null
+                            : Arrays.stream(configuredDirectories.split(",|" + File.pathSeparator))
+                                    .map(String::trim)
+                                    .filter(path -> !path.isEmpty())
+                                    .map(File::new)
+                                    .toArray(File[]::new);
+        }
+
+        this.chunkSize =
+                original.chunkSize != null
+                        ? original.chunkSize
+                        : (int) config.get(SpillableOptions.CHUNK_SIZE).getBytes();
+        this.spillThreshold =
+                original.spillThreshold != null
+                        ? original.spillThreshold
+                        : config.get(SpillableOptions.SPILL_THRESHOLD);
+        this.loadThreshold =
+                original.loadThreshold != null
+                        ? original.loadThreshold
+                        : config.get(SpillableOptions.LOAD_THRESHOLD);
+        this.checkIntervalMillis =
+                original.checkIntervalMillis != null
+                        ? original.checkIntervalMillis
+                        : config.get(SpillableOptions.CHECK_INTERVAL).toMillis();
+
+        validateChunkSize(chunkSize);
+        validateThresholds(spillThreshold, loadThreshold);
+        validateCheckInterval(checkIntervalMillis);
+    }
+
+    private SpillableHeapStateBackend(
+            StateBackend checkpointStreamBackend,
+            @Nullable File[] localDirectories,
+            @Nullable Integer chunkSize,
+            @Nullable Double spillThreshold,
+            @Nullable Double loadThreshold,
+            @Nullable Long checkIntervalMillis) {
+        this.checkpointStreamBackend = checkNotNull(checkpointStreamBackend);
+        this.localDirectories = localDirectories;
+        this.chunkSize = chunkSize;
+        this.spillThreshold = spillThreshold;
+        this.loadThreshold = loadThreshold;
+        this.checkIntervalMillis = checkIntervalMillis;
+    }
+
+    private static void validateChunkSize(int chunkSize) {
+        if (chunkSize <= 0 || chunkSize > SizeClassChunk.MAX_CHUNK_CAPACITY) {
+            throw new IllegalConfigurationException(
+                    "Invalid value for '"
+                            + SpillableOptions.CHUNK_SIZE.key()
+                            + "': "
+                            + chunkSize
+                            + ". The chunk size must be positive and at most 1 gb.");
+        }
+    }
+
+    private static void validateThresholds(double spillThreshold, double loadThreshold) {
+        if (spillThreshold <= 0.0 || spillThreshold > 1.0) {
+            throw new IllegalConfigurationException(
+                    "Invalid value for '"
+                            + SpillableOptions.SPILL_THRESHOLD.key()
+                            + "': "
+                            + spillThreshold
+                            + ". The threshold must be in (0, 1].");
+        }
+        if (loadThreshold < 0.0 || loadThreshold > spillThreshold) {
+            throw new IllegalConfigurationException(
+                    "Invalid value for '"
+                            + SpillableOptions.LOAD_THRESHOLD.key()
+                            + "': "
+                            + loadThreshold
+                            + ". The threshold must be in [0, "
+                            + spillThreshold
+                            + "].");
+        }
+    }
+
+    private static void validateCheckInterval(long checkIntervalMillis) {
+        if (checkIntervalMillis < 0) {
+            throw new IllegalConfigurationException(
+                    "Invalid value for '"
+                            + SpillableOptions.CHECK_INTERVAL.key()
+                            + "': "
+                            + checkIntervalMillis
+                            + " ms. The interval must not be negative.");
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    //  Reconfiguration
+    // ------------------------------------------------------------------------
+
+    /**
+     * Creates a copy of this state backend that uses the values defined in the configuration for
+     * fields that were not yet specified in this state backend.
+     *
+     * @param config The configuration.
+     * @param classLoader The class loader.
+     * @return The re-configured variant of the state backend
+     */
+    @Override
+    public SpillableHeapStateBackend configure(ReadableConfig config, ClassLoader classLoader) {
+        return new SpillableHeapStateBackend(this, config, classLoader);
+    }
+
+    /** Gets the state backend that this backend uses to write its checkpoint streams. */
+    public StateBackend getCheckpointBackend() {
+        return checkpointStreamBackend;
+    }
+
+    /**
+     * Creates a copy of this state backend that stores spilled key groups in the given local
+     * directories.
+     *
+     * @param paths The local directories, must not be empty.
+     */
+    public SpillableHeapStateBackend withLocalDirectories(String... paths) {
+        checkArgument(paths != null && paths.length > 0, "Local directories must not be empty.");
+        final File[] directories = new File[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            directories[i] = new File(checkNotNull(paths[i]));
+        }
+        return new SpillableHeapStateBackend(
+                checkpointStreamBackend,
+                directories,
+                chunkSize,
+                spillThreshold,
+                loadThreshold,
+                checkIntervalMillis);
+    }
+
+    /**
+     * Creates a copy of this state backend that spills key groups when the heap usage exceeds the
+     * spill threshold, and loads them back once the heap usage drops below the load threshold.
+     *
+     * @param spillThreshold The fraction of the maximum heap size above which key groups are
+     *     spilled.
+     * @param loadThreshold The fraction of the maximum heap size below which key groups are
+     *     loaded.
+     */
+    public SpillableHeapStateBackend withThresholds(double spillThreshold, double loadThreshold) {
+        validateThresholds(spillThreshold, loadThreshold);
+        return new SpillableHeapStateBackend(
+                checkpointStreamBackend,
+                localDirectories,
+                chunkSize,
+                spillThreshold,
+                loadThreshold,
+                checkIntervalMillis);
+    }
+
+    /**
+     * Creates a copy of this state backend that uses the given size for the memory-mapped files
+     * which hold spilled key groups.
+     *
+     * @param chunkSize The size of a chunk in bytes.
+     */
+    public SpillableHeapStateBackend withChunkSize(int chunkSize) {
+        validateChunkSize(chunkSize);
+        return new SpillableHeapStateBackend(
+                checkpointStreamBackend,
+                localDirectories,
+                chunkSize,
+                spillThreshold,
+                loadThreshold,
+                checkIntervalMillis);
+    }
+
+    /**
+     * Creates a copy of this state backend that checks the heap usage at most once per given
+     * interval.
+     *
+     * @param checkIntervalMillis The minimum interval between two checks in milliseconds.
+     */
+    public SpillableHeapStateBackend withCheckInterval(long checkIntervalMillis) {
+        validateCheckInterval(checkIntervalMillis);
+        return new SpillableHeapStateBackend(
+                checkpointStreamBackend,
+                localDirectories,
+                chunkSize,
+                spillThreshold,
+                loadThreshold,
+                checkIntervalMillis);
+    }
+
+    // ------------------------------------------------------------------------
+    //  Checkpoint initialization and persistent storage
+    // ------------------------------------------------------------------------
+
+    @Override
+    public CompletedCheckpointStorageLocation resolveCheckpoint(String pointer) throws IOException {
+        return checkpointStreamBackend.resolveCheckpoint(pointer);
+    }
+
+    @Override
+    public CheckpointStorageAccess createCheckpointStorage(JobID jobId) throws IOException {
+        return checkpointStreamBackend.createCheckpointStorage(jobId);
+    }
+
+    // ------------------------------------------------------------------------
+    //  State holding data structures
+    // ------------------------------------------------------------------------
+
+    @Override
+    public <K> AbstractKeyedStateBackend<K> createKeyedStateBackend(
+            Environment env,
+            JobID jobID,
+            String operatorIdentifier,
+            TypeSerializer<K> keySerializer,
+            int numberOfKeyGroups,
+            KeyGroupRange keyGroupRange,
+            TaskKvStateRegistry kvStateRegistry,
+            TtlTimeProvider ttlTimeProvider,
+            MetricGroup metricGroup,
+            @Nonnull Collection<KeyedStateHandle> stateHandles,
+            CloseableRegistry cancelStreamRegistry)
+            throws BackendBuildingException {
+
+        // replace all characters that are not legal for filenames with underscore
+        String fileCompatibleIdentifier = operatorIdentifier.replaceAll("[^a-zA-Z0-9\\-]", "_");
+
+        File[] directories =
+                localDirectories != null
+                        ? localDirectories
+                        : env.getIOManager().getSpillingDirectories();
+        File spillDirectory =
+                new File(
+                        directories[ThreadLocalRandom.current().nextInt(directories.length)],
+                        "job_"
+                                + jobID
+                                + "_op_"
+                                + fileCompatibleIdentifier
+                                + "_uuid_"
+                                + UUID.randomUUID());
+
+        return new SpillableHeapKeyedStateBackendBuilder<>(
+                        kvStateRegistry,
+                        keySerializer,
+                        env.getUserCodeClassLoader().asClassLoader(),
+                        numberOfKeyGroups,
+                        keyGroupRange,
+                        env.getExecutionConfig(),
+                        ttlTimeProvider,
+                        stateHandles,
+                        getCompressionDecorator(env.getExecutionConfig()),
+                        env.getTaskStateManager().createLocalRecoveryConfig(),
+                        new HeapPriorityQueueSetFactory(keyGroupRange, numberOfKeyGroups, 128),
+                        cancelStreamRegistry,
+                        spillDirectory,
+                        chunkSize != null
+                                ? chunkSize
+                                : (int) SpillableOptions.CHUNK_SIZE.defaultValue().getBytes(),
+                        spillThreshold != null
+                                ? spillThreshold
+                                : SpillableOptions.SPILL_THRESHOLD.defaultValue(),
+                        loadThreshold != null
+                                ? loadThreshold
+                                : SpillableOptions.LOAD_THRESHOLD.defaultValue(),
+                        checkIntervalMillis != null
+                                ? checkIntervalMillis
+                                : SpillableOptions.CHECK_INTERVAL.defaultValue().toMillis(),
+                        metricGroup)
+                .build();
+    }
+
+    @Override
+    public OperatorStateBackend createOperatorStateBackend(
+            Environment env,
+            String operatorIdentifier,
+            @Nonnull Collection<OperatorStateHandle> stateHandles,
+            CloseableRegistry cancelStreamRegistry)
+            throws Exception {
+
+        return new DefaultOperatorStateBackendBuilder(
+                        env.getUserCodeClassLoader().asClassLoader(),
+                        env.getExecutionConfig(),
+                        true,
+                        stateHandles,
+                        cancelStreamRegistry)
+                .build();
+    }
+
+    @Override
+    public String toString() {
+        return "SpillableHeapStateBackend{"
+                + "checkpointStreamBackend="
+                + checkpointStreamBackend
+                + ", localDirectories="
+                + Arrays.toString(localDirectories)
+                + ", chunkSize="
+                + chunkSize
+                + ", spillThreshold="
+                + spillThreshold
+                + ", loadThreshold="
+                + loadThreshold
+                + ", checkIntervalMillis="
+                + checkIntervalMillis
+                + '}';
+    }
+}
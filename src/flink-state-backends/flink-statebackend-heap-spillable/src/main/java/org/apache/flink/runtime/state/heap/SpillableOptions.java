@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.docs.Documentation;
+import org.apache.flink.configuration.ConfigOption;
+import org.apache.flink.configuration.ConfigOptions;
+import org.apache.flink.configuration.MemorySize;
+
+import java.time.Duration;
+
+/** Configuration options for the spillable heap backend. */
+public class SpillableOptions {
+
+    /** The local directories (on the TaskManager) where spilled key groups are stored. */
+    @Documentation.Section(Documentation.Sections.EXPERT_STATE_BACKENDS)
+    public static final ConfigOption<String> LOCAL_DIRECTORIES =
+            ConfigOptions.key("state.backend.spillable.localdir")
+                    .stringType()
+                    .noDefaultValue()
+                    .withDescription(
+                            "The local directories (on the TaskManager) where the spillable heap backend stores "
+                                    + "spilled key groups, separated by comma or the path separator. Defaults to the "
+                                    + "temporary directories of the TaskManager.");
+
+    /** The size of the memory-mapped files that hold spilled key groups. */
+    @Documentation.Section(Documentation.Sections.EXPERT_STATE_BACKENDS)
+    public static final ConfigOption<MemorySize> CHUNK_SIZE =
+            ConfigOptions.key("state.backend.spillable.chunk-size")
+                    .memoryType()
+                    .defaultValue(MemorySize.parse("64mb"))
+                    .withDescription(
+                            "The size of the memory-mapped files that hold spilled key groups. A single "
+                                    + "serialized key or state must fit into one file. The maximum is 1 gb.");
+
+    /** The heap usage above which key groups are spilled. */
+    @Documentation.Section(Documentation.Sections.EXPERT_STATE_BACKENDS)
+    public static final ConfigOption<Double> SPILL_THRESHOLD =
+            ConfigOptions.key("state.backend.spillable.heap-spill-threshold")
+                    .doubleType()
+                    .defaultValue(0.7)
+                    .withDescription(
+                            "The fraction of the maximum heap size above which the spillable heap backend "
+                                    + "moves rarely accessed key groups out of the heap.");
+
+    /** The heap usage below which key groups are loaded. */
+    @Documentation.Section(Documentation.Sections.EXPERT_STATE_BACKENDS)
+    public static final ConfigOption<Double> LOAD_THRESHOLD =
+            ConfigOptions.key("state.backend.spillable.heap-load-threshold")
+                    .doubleType()
+                    .defaultValue(0.5)
+                    .withDescription(
+                            "The fraction of the maximum heap size below which the spillable heap backend "
+                                    + "moves frequently accessed spilled key groups back to the heap. Must not be "
+                                    + "larger than the spill threshold.");
+
+    /** The minimum interval between two checks of the heap usage. */
+    @Documentation.Section(Documentation.Sections.EXPERT_STATE_BACKENDS)
+    public static final ConfigOption<Duration> CHECK_INTERVAL =
+            ConfigOptions.key("state.backend.spillable.check-interval")
+                    .durationType()
+                    .defaultValue(Duration.ofSeconds(1))
+                    .withDescription(
+                            "The minimum interval between two checks of the heap usage by the spillable heap "
+                                    + "backend.");
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.StateEntry;
+import org.apache.flink.runtime.state.heap.space.Allocator;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link StateTable} whose key groups are either held as objects on the heap in a {@link
+ * CopyOnWriteStateMap}, or serialized outside of the heap in a {@link SpilledStateMap}. Key groups
+ * are spilled and loaded by the {@link SpillAndLoadManager}.
+ *
+ * <p>Both kinds of maps support copy-on-write snapshots, so snapshots of this table are always
+ * asynchronous.
+ */
+public class SpillableStateTable<K, N, S> extends StateTable<K, N, S> {
+
+    /** The allocator for the space of spilled key groups. */
+    private final Allocator spaceAllocator;
+
+    SpillableStateTable(
+            InternalKeyContext<K> keyContext,
+            RegisteredKeyValueStateBackendMetaInfo<N, S> metaInfo,
+            TypeSerializer<K> keySerializer,
+            Allocator spaceAllocator) {
+        super(keyContext, metaInfo, keySerializer);
+        this.spaceAllocator = spaceAllocator;
+    }
+
+    @Override
+    protected CopyOnWriteStateMap<K, N, S> createStateMap() {
+        return new CopyOnWriteStateMap<>(getStateSerializer());
+    }
+
+    // ------------------------------------------------------------------------
+    //  Spilling and loading
+    // ------------------------------------------------------------------------
+
+    /** Returns whether the given key group is spilled. */
+    boolean isSpilled(int keyGroupIndex) {
+        return getMapForKeyGroup(keyGroupIndex) instanceof SpilledStateMap;
+    }
+
+    /** Returns the number of entries in the given key group. */
+    int sizeOfKeyGroup(int keyGroupIndex) {
+        return getMapForKeyGroup(keyGroupIndex).size();
+    }
+
+    /**
+     * Moves the entries of the given key group out of the heap. Does nothing if the key group is
+     * already spilled.
+     */
+    void spillKeyGroup(int keyGroupIndex) {
+        final int pos = keyGroupIndex - keyGroupOffset;
+        final StateMap<K, N, S> heapStateMap = keyGroupedStateMaps[pos];
+        if (heapStateMap instanceof SpilledStateMap) {
+            return;
+        }
+
+        final CopyOnWriteSkipListStateMap<K, N, S> skipListStateMap = createSkipListStateMap();
+        try {
+            for (StateEntry<K, N, S> entry : heapStateMap) {
+                skipListStateMap.put(entry.getKey(), entry.getNamespace(), entry.getState());
+            }
+        } catch (Throwable t) {
+            skipListStateMap.close();
+            throw t;
+        }
+
+        // running snapshots of the heap map still hold their own references to its entries
+        keyGroupedStateMaps[pos] = new SpilledStateMap<>(skipListStateMap);
+    }
+
+    /** Returns whether there are unreleased snapshots of the given spilled key group. */
+    boolean hasUnreleasedSnapshots(int keyGroupIndex) {
+        StateMap<K, N, S> stateMap = getMapForKeyGroup(keyGroupIndex);
+        return stateMap instanceof SpilledStateMap
+                && ((SpilledStateMap<K, N, S>) stateMap).hasUnreleasedSnapshots();
+    }
+
+    /**
+     * Moves the entries of the given key group back to the heap. This is not possible while a
+     * snapshot of the spilled key group is running, because the space of the entries can only be
+     * released after the snapshot.
+     *
+     * @return whether the key group is on the heap.
+     */
+    boolean tryLoadKeyGroup(int keyGroupIndex) {
+        final int pos = keyGroupIndex - keyGroupOffset;
+        final StateMap<K, N, S> stateMap = keyGroupedStateMaps[pos];
+        if (!(stateMap instanceof SpilledStateMap)) {
+            return true;
+        }
+
+        final SpilledStateMap<K, N, S> spilledStateMap = (SpilledStateMap<K, N, S>) stateMap;
+        if (spilledStateMap.hasUnreleasedSnapshots()) {
+            return false;
+        }
+
+        final CopyOnWriteStateMap<K, N, S> heapStateMap = createStateMap();
+        for (StateEntry<K, N, S> entry : spilledStateMap) {
+            heapStateMap.put(entry.getKey(), entry.getNamespace(), entry.getState());
+        }
+
+        keyGroupedStateMaps[pos] = heapStateMap;
+        spilledStateMap.close();
+        return true;
+    }
+
+    /**
+     * Updates the meta info. The entries of spilled key groups are serialized again if the
+     * serializers changed, because the skip list keeps the serializers it was created with.
+     */
+    @Override
+    public void setMetaInfo(RegisteredKeyValueStateBackendMetaInfo<N, S> metaInfo) {
+        final RegisteredKeyValueStateBackendMetaInfo<N, S> previousMetaInfo = getMetaInfo();
+        super.setMetaInfo(metaInfo);
+
+        if (previousMetaInfo.getNamespaceSerializer() == metaInfo.getNamespaceSerializer()
+                && previousMetaInfo.getStateSerializer() == metaInfo.getStateSerializer()) {
+            return;
+        }
+
+        for (int pos = 0; pos < keyGroupedStateMaps.length; pos++) {
+            if (keyGroupedStateMaps[pos] instanceof SpilledStateMap) {
+                SpilledStateMap<K, N, S> spilledStateMap =
+                        (SpilledStateMap<K, N, S>) keyGroupedStateMaps[pos];
+                CopyOnWriteSkipListStateMap<K, N, S> skipListStateMap = createSkipListStateMap();
+                for (StateEntry<K, N, S> entry : spilledStateMap) {
+                    skipListStateMap.put(entry.getKey(), entry.getNamespace(), entry.getState());
+                }
+                keyGroupedStateMaps[pos] = new SpilledStateMap<>(skipListStateMap);
+                spilledStateMap.close();
+            }
+        }
+    }
+
+    /** Releases the space of all spilled key groups. */
+    void close() {
+        for (int pos = 0; pos < keyGroupedStateMaps.length; pos++) {
+            if (keyGroupedStateMaps[pos] instanceof SpilledStateMap) {
+                ((SpilledStateMap<K, N, S>) keyGroupedStateMaps[pos]).close();
+            }
+        }
+    }
+
+    private CopyOnWriteSkipListStateMap<K, N, S> createSkipListStateMap() {
+        return new CopyOnWriteSkipListStateMap<>(
+                getKeySerializer(),
+                getNamespaceSerializer(),
+                getStateSerializer(),
+                spaceAllocator,
+                CopyOnWriteSkipListStateMap.DEFAULT_MAX_KEYS_TO_DELETE_ONE_TIME,
+                CopyOnWriteSkipListStateMap.DEFAULT_LOGICAL_REMOVED_KEYS_RATIO);
+    }
+
+    // ------------------------------------------------------------------------
+    //  Snapshotting
+    // ------------------------------------------------------------------------
+
+    @Nonnull
+    @Override
+    public SpillableStateTableSnapshot<K, N, S> stateSnapshot() {
+        return new SpillableStateTableSnapshot<>(
+                this,
+                getKeySerializer().duplicate(),
+                getNamespaceSerializer().duplicate(),
+                getStateSerializer().duplicate(),
+                getMetaInfo()
+                        .getStateSnapshotTransformFactory()
+                        .createForDeserializedState()
+                        .orElse(null));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.state.StateSnapshotTransformer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+
+/**
+ * This class represents the snapshot of a {@link SpillableStateTable}. It consists of the snapshots
+ * of the state maps of all key groups, no matter if they are on the heap or spilled.
+ *
+ * @param <K> type of key
+ * @param <N> type of namespace
+ * @param <S> type of state
+ */
+@Internal
+public class SpillableStateTableSnapshot<K, N, S> extends AbstractStateTableSnapshot<K, N, S> {
+
+    private final int keyGroupOffset;
+
+    /**
+     * The snapshots of the state maps by key group offset. A snapshot is set to null once it was
+     * released, because snapshots of spilled maps must not be released twice.
+     */
+    private final StateMapSnapshot<K, N, S, ? extends StateMap<K, N, S>>[] stateMapSnapshots;
+
+    @SuppressWarnings("unchecked")
+    SpillableStateTableSnapshot(
+            SpillableStateTable<K, N, S> owningStateTable,
+            TypeSerializer<K> localKeySerializer,
+            TypeSerializer<N> localNamespaceSerializer,
+            TypeSerializer<S> localStateSerializer,
+            @Nullable StateSnapshotTransformer<S> stateSnapshotTransformer) {
+        super(
+                owningStateTable,
+                localKeySerializer,
+                localNamespaceSerializer,
+                localStateSerializer,
+                stateSnapshotTransformer);
+
+        this.keyGroupOffset = owningStateTable.getKeyGroupOffset();
+
+        StateMap<K, N, S>[] stateMaps = owningStateTable.getState();
+        this.stateMapSnapshots = new StateMapSnapshot[stateMaps.length];
+        for (int i = 0; i < stateMaps.length; i++) {
+            stateMapSnapshots[i] = stateMaps[i].stateSnapshot();
+        }
+    }
+
+    @Override
+    protected StateMapSnapshot<K, N, S, ? extends StateMap<K, N, S>> getStateMapSnapshotForKeyGroup(
+            int keyGroup) {
+        int indexOffset = keyGroup - keyGroupOffset;
+        if (indexOffset >= 0 && indexOffset < stateMapSnapshots.length) {
+            return stateMapSnapshots[indexOffset];
+        }
+        return null;
+    }
+
+    @Override
+    public void writeStateInKeyGroup(@Nonnull DataOutputView dov, int keyGroupId)
+            throws IOException {
+        int indexOffset = keyGroupId - keyGroupOffset;
+        StateMapSnapshot<K, N, S, ? extends StateMap<K, N, S>> stateMapSnapshot =
+                stateMapSnapshots[indexOffset];
+        stateMapSnapshot.writeState(
+                localKeySerializer,
+                localNamespaceSerializer,
+                localStateSerializer,
+                dov,
+                stateSnapshotTransformer);
+        stateMapSnapshot.release();
+        stateMapSnapshots[indexOffset] = null;
+    }
+
+    @Override
+    public void release() {
+        for (int i = 0; i < stateMapSnapshots.length; i++) {
+            if (stateMapSnapshots[i] != null) {
+                stateMapSnapshots[i].release();
+                stateMapSnapshots[i] = null;
+            }
+        }
+    }
+}
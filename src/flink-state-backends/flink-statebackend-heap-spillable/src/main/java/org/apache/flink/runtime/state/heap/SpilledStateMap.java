@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.runtime.state.StateEntry;
+import org.apache.flink.runtime.state.StateTransformationFunction;
+import org.apache.flink.runtime.state.internal.InternalKvState;
+
+import javax.annotation.Nonnull;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * A {@link StateMap} for a spilled key group, which stores its entries serialized in a {@link
+ * CopyOnWriteSkipListStateMap}.
+ *
+ * <p>The heap states modify the state objects they get from the state table in place, for example
+ * {@link HeapListState#add(Object)} appends to the list that it got or put before. Reading from the
+ * skip list returns a fresh copy though, so such modifications would be lost. This map therefore
+ * keeps the last state object that was read or written and writes it back to the skip list before
+ * any other entry is accessed, or the map is iterated or snapshotted. A state object is written
+ * back whenever it was handed out since the last write, because it may have been modified. Because
+ * spilled key groups are accessed rarely, the additional serialization is cheap compared to the
+ * heap memory that is saved.
+ */
+final class SpilledStateMap<K, N, S> extends StateMap<K, N, S> implements AutoCloseable {
+
+    private final CopyOnWriteSkipListStateMap<K, N, S> stateMap;
+
+    /** Whether there is a cached entry. */
+    private boolean hasCachedEntry;
+
+    private K cachedKey;
+
+    private N cachedNamespace;
+
+    /** The cached state, null if the entry does not exist. */
+    private S cachedState;
+
+    /** Whether the cached state may differ from the state in the skip list. */
+    private boolean dirty;
+
+    SpilledStateMap(CopyOnWriteSkipListStateMap<K, N, S> stateMap) {
+        this.stateMap = stateMap;
+    }
+
+    @Override
+    public int size() {
+        flush();
+        return stateMap.size();
+    }
+
+    @Override
+    public S get(K key, N namespace) {
+        if (isCached(key, namespace)) {
+            dirty |= cachedState != null;
+            return cachedState;
+        }
+        flush();
+        S state = stateMap.get(key, namespace);
+        cache(key, namespace, state, state != null);
+        return state;
+    }
+
+    @Override
+    public boolean containsKey(K key, N namespace) {
+        if (isCached(key, namespace)) {
+            return cachedState != null;
+        }
+        return stateMap.containsKey(key, namespace);
+    }
+
+    @Override
+    public void put(K key, N namespace, S state) {
+        if (!isCached(key, namespace)) {
+            flush();
+        }
+        cache(key, namespace, state, true);
+    }
+
+    @Override
+    public S putAndGetOld(K key, N namespace, S state) {
+        S oldState = get(key, namespace);
+        cache(key, namespace, state, true);
+        return oldState;
+    }
+
+    @Override
+    public void remove(K key, N namespace) {
+        if (isCached(key, namespace)) {
+            clearCache();
+        }
+        stateMap.remove(key, namespace);
+    }
+
+    @Override
+    public S removeAndGetOld(K key, N namespace) {
+        if (isCached(key, namespace)) {
+            S oldState = cachedState;
+            clearCache();
+            stateMap.remove(key, namespace);
+            return oldState;
+        }
+        return stateMap.removeAndGetOld(key, namespace);
+    }
+
+    @Override
+    public <T> void transform(
+            K key, N namespace, T value, StateTransformationFunction<S, T> transformation)
+            throws Exception {
+        S state = get(key, namespace);
+        cache(key, namespace, transformation.apply(state, value), true);
+    }
+
+    @Override
+    public Stream<K> getKeys(N namespace) {
+        flushAndClearCache();
+        return stateMap.getKeys(namespace);
+    }
+
+    @Override
+    public InternalKvState.StateIncrementalVisitor<K, N, S> getStateIncrementalVisitor(
+            int recommendedMaxNumberOfReturnedRecords) {
+        flushAndClearCache();
+        return stateMap.getStateIncrementalVisitor(recommendedMaxNumberOfReturnedRecords);
+    }
+
+    @Override
+    public int sizeOfNamespace(Object namespace) {
+        flush();
+        return stateMap.sizeOfNamespace(namespace);
+    }
+
+    @Nonnull
+    @Override
+    public Iterator<StateEntry<K, N, S>> iterator() {
+        flushAndClearCache();
+        return stateMap.iterator();
+    }
+
+    @Nonnull
+    @Override
+    public CopyOnWriteSkipListStateMapSnapshot<K, N, S> stateSnapshot() {
+        flush();
+        return stateMap.stateSnapshot();
+    }
+
+    /** Returns whether there are snapshots of this map that were not released yet. */
+    boolean hasUnreleasedSnapshots() {
+        return stateMap.hasUnreleasedSnapshots();
+    }
+
+    @VisibleForTesting
+    CopyOnWriteSkipListStateMap<K, N, S> getSkipListStateMap() {
+        return stateMap;
+    }
+
+    @Override
+    public void close() {
+        clearCache();
+        stateMap.close();
+    }
+
+    // ------------------------------------------------------------------------
+
+    private boolean isCached(K key, N namespace) {
+        return hasCachedEntry
+                && Objects.equals(cachedKey, key)
+                && Objects.equals(cachedNamespace, namespace);
+    }
+
+    private void cache(K key, N namespace, S state, boolean dirty) {
+        hasCachedEntry = true;
+        cachedKey = key;
+        cachedNamespace = namespace;
+        cachedState = state;
+        this.dirty = dirty;
+    }
+
+    /** Writes the cached entry back to the skip list if needed, the entry stays cached. */
+    private void flush() {
+        if (hasCachedEntry && dirty) {
+            if (cachedState != null) {
+                stateMap.put(cachedKey, cachedNamespace, cachedState);
+            } else {
+                stateMap.remove(cachedKey, cachedNamespace);
+            }
+            dirty = false;
+        }
+    }
+
+    private void flushAndClearCache() {
+        flush();
+        clearCache();
+    }
+
+    private void clearCache() {
+        hasCachedEntry = false;
+        cachedKey = null;
+        cachedNamespace = null;
+        cachedState = null;
+        dirty = false;
+    }
+}
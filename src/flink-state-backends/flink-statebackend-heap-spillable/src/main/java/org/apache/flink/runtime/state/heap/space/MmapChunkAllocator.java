@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap.space;
+
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.util.FileUtils;
+import org.apache.flink.util.Preconditions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.apache.flink.runtime.state.heap.space.Constants.FOUR_BYTES_BITS;
+import static org.apache.flink.runtime.state.heap.space.Constants.FOUR_BYTES_MARK;
+import static org.apache.flink.runtime.state.heap.space.Constants.NO_SPACE;
+
+/**
+ * An {@link Allocator} that allocates space from chunks of memory-mapped files in a local
+ * directory. The data lives outside of the JVM heap, and the operating system can write cold pages
+ * back to the local disk and drop them from memory when it runs short of memory.
+ *
+ * <p>Chunks are {@link SizeClassChunk}s of a fixed size. Allocations are served from the chunk that
+ * was used last, then from any other chunk with a matching free block, and finally from a new
+ * chunk. Chunks that become empty are released and their files deleted.
+ *
+ * <p>Allocation and freeing are synchronized, because snapshots may free space from another thread
+ * while pruning old values. Chunks are looked up without locking.
+ */
+public class MmapChunkAllocator implements Allocator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MmapChunkAllocator.class);
+
+    private final File directory;
+
+    private final int chunkSize;
+
+    /** Chunks by id. Replaced on growth, so that lookups do not need to lock. */
+    private volatile SizeClassChunk[] chunks;
+
+    /** The files of the chunks by id. */
+    private File[] chunkFiles;
+
+    /** The id of the chunk that served the last allocation, or -1. */
+    private int currentChunkId;
+
+    private int numberOfChunks;
+
+    private boolean closed;
+
+    /**
+     * Creates a new allocator.
+     *
+     * @param directory the directory for the chunk files, it is created if it does not exist and
+     *     deleted when the allocator is closed.
+     * @param chunkSize the size of a chunk, which is also the upper bound of a single allocation.
+     */
+    public MmapChunkAllocator(File directory, int chunkSize) throws IOException {
+        Preconditions.checkArgument(
+                chunkSize > SizeClassChunk.HEADER_SIZE
+                        && chunkSize <= SizeClassChunk.MAX_CHUNK_CAPACITY,
+                "Invalid chunk size %s.",
+                chunkSize);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create directory " + directory + " for chunks.");
+        }
+        this.directory = directory;
+        this.chunkSize = chunkSize;
+        this.chunks = new SizeClassChunk[16];
+        this.chunkFiles = new File[16];
+        this.currentChunkId = -1;
+    }
+
+    @Override
+    public synchronized long allocate(int size) throws Exception {
+        Preconditions.checkState(!closed, "The allocator is closed.");
+        Preconditions.checkArgument(
+                size <= chunkSize - SizeClassChunk.HEADER_SIZE,
+                "Cannot allocate %s bytes from chunks of %s bytes.",
+                size,
+                chunkSize);
+
+        final SizeClassChunk[] chunks = this.chunks;
+        if (currentChunkId >= 0) {
+            int offset = chunks[currentChunkId].allocate(size);
+            if (offset != NO_SPACE) {
+                return toAddress(currentChunkId, offset);
+            }
+        }
+
+        for (int chunkId = 0; chunkId < chunks.length; chunkId++) {
+            SizeClassChunk chunk = chunks[chunkId];
+            if (chunk != null && chunkId != currentChunkId) {
+                int offset = chunk.allocate(size);
+                if (offset != NO_SPACE) {
+                    currentChunkId = chunkId;
+                    return toAddress(chunkId, offset);
+                }
+            }
+        }
+
+        SizeClassChunk chunk = createChunk();
+        currentChunkId = chunk.getChunkId();
+        return toAddress(currentChunkId, chunk.allocate(size));
+    }
+
+    @Override
+    public synchronized void free(long address) {
+        if (closed) {
+            return;
+        }
+
+        int chunkId = SpaceUtils.getChunkIdByAddress(address);
+        SizeClassChunk chunk = getChunkById(chunkId);
+        chunk.free(SpaceUtils.getChunkOffsetByAddress(address));
+
+        if (chunk.isEmpty() && chunkId != currentChunkId) {
+            releaseChunk(chunkId);
+        }
+    }
+
+    @Override
+    public SizeClassChunk getChunkById(int chunkId) {
+        final SizeClassChunk[] chunks = this.chunks;
+        Preconditions.checkArgument(
+                chunkId >= 0 && chunkId < chunks.length && chunks[chunkId] != null,
+                "Chunk %s does not exist.",
+                chunkId);
+        return chunks[chunkId];
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        for (int chunkId = 0; chunkId < chunks.length; chunkId++) {
+            if (chunks[chunkId] != null) {
+                releaseChunk(chunkId);
+            }
+        }
+
+        try {
+            FileUtils.deleteDirectory(directory);
+        } catch (IOException e) {
+            LOG.warn("Could not delete chunk directory {}.", directory, e);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    //  Statistics
+    // ------------------------------------------------------------------------
+
+    /** Returns the number of bytes that are in use. */
+    public synchronized long getUsedBytes() {
+        long usedBytes = 0L;
+        for (SizeClassChunk chunk : chunks) {
+            if (chunk != null) {
+                usedBytes += chunk.getUsedBytes();
+            }
+        }
+        return usedBytes;
+    }
+
+    /** Returns the number of bytes of all chunks. */
+    public synchronized long getAllocatedBytes() {
+        return (long) numberOfChunks * chunkSize;
+    }
+
+    /** Returns the number of chunks. */
+    public synchronized int getNumberOfChunks() {
+        return numberOfChunks;
+    }
+
+    // ------------------------------------------------------------------------
+
+    private SizeClassChunk createChunk() throws IOException {
+        int chunkId = 0;
+        while (chunkId < chunks.length && chunks[chunkId] != null) {
+            chunkId++;
+        }
+
+        File chunkFile = new File(directory, "chunk-" + chunkId + "-" + UUID.randomUUID());
+        MappedByteBuffer buffer;
+        try (RandomAccessFile file = new RandomAccessFile(chunkFile, "rw")) {
+            file.setLength(chunkSize);
+            // the mapping stays valid after the channel is closed
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, chunkSize);
+        } catch (IOException e) {
+            deleteChunkFile(chunkFile);
+            throw new IOException("Could not create chunk file " + chunkFile + ".", e);
+        }
+
+        SizeClassChunk chunk =
+                new SizeClassChunk(chunkId, MemorySegmentFactory.wrapOffHeapMemory(buffer));
+
+        if (chunkId == chunks.length) {
+            chunkFiles = Arrays.copyOf(chunkFiles, chunkFiles.length * 2);
+            SizeClassChunk[] newChunks = Arrays.copyOf(chunks, chunks.length * 2);
+            newChunks[chunkId] = chunk;
+            chunks = newChunks;
+        } else {
+            SizeClassChunk[] newChunks = chunks.clone();
+            newChunks[chunkId] = chunk;
+            chunks = newChunks;
+        }
+        chunkFiles[chunkId] = chunkFile;
+        numberOfChunks++;
+
+        LOG.debug("Created chunk {} of {} bytes in {}.", chunkId, chunkSize, chunkFile);
+        return chunk;
+    }
+
+    private void releaseChunk(int chunkId) {
+        SizeClassChunk[] newChunks = chunks.clone();
+        newChunks[chunkId] = null;
+        chunks = newChunks;
+        numberOfChunks--;
+
+        // the memory is unmapped once the buffer is garbage collected
+        deleteChunkFile(chunkFiles[chunkId]);
+        chunkFiles[chunkId] = null;
+
+        if (currentChunkId == chunkId) {
+            currentChunkId = -1;
+        }
+    }
+
+    private static void deleteChunkFile(File chunkFile) {
+        if (chunkFile.exists() && !chunkFile.delete()) {
+            LOG.warn("Could not delete chunk file {}.", chunkFile);
+        }
+    }
+
+    private static long toAddress(int chunkId, int offset) {
+        return ((chunkId & FOUR_BYTES_MARK) << FOUR_BYTES_BITS) | (offset & FOUR_BYTES_MARK);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap.space;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.util.Preconditions;
+
+import java.util.Arrays;
+
+import static org.apache.flink.runtime.state.heap.space.Constants.NO_SPACE;
+
+/**
+ * A {@link Chunk} backed by a single {@link MemorySegment} that serves allocations from power-of-two
+ * size classes.
+ *
+ * <p>Space is handed out from the end of the used area until the chunk is full. Freed blocks are
+ * kept in one free list per size class and are reused by later allocations of the same class. The
+ * free lists are stored in the freed blocks themselves, so the chunk does not need any memory on
+ * the heap besides the list heads. Every block starts with a header of {@link #HEADER_SIZE} bytes
+ * that stores its size class, the returned offset points behind this header.
+ */
+public class SizeClassChunk implements Chunk {
+
+    /** Size of the block header that stores the size class of the block. */
+    static final int HEADER_SIZE = Integer.BYTES;
+
+    /** Log2 of the size of the smallest block. A block needs to hold a header and a free link. */
+    private static final int MIN_BLOCK_SIZE_SHIFT = 4;
+
+    /** The maximum capacity of a chunk, which keeps all block sizes in the range of an int. */
+    public static final int MAX_CHUNK_CAPACITY = 1 << 30;
+
+    /** Marks the end of a free list. */
+    private static final int NIL_BLOCK = -1;
+
+    private final int chunkId;
+
+    private final MemorySegment segment;
+
+    private final int capacity;
+
+    /** The offset of the first free block of each size class, or {@link #NIL_BLOCK}. */
+    private final int[] freeListHeads;
+
+    /** The offset behind the last block that was ever handed out. */
+    private int top;
+
+    /** The number of bytes of all blocks that are in use, including their headers. */
+    private long usedBytes;
+
+    public SizeClassChunk(int chunkId, MemorySegment segment) {
+        Preconditions.checkArgument(
+                segment.size() >= (1 << MIN_BLOCK_SIZE_SHIFT)
+                        && segment.size() <= MAX_CHUNK_CAPACITY,
+                "Invalid chunk capacity %s.",
+                segment.size());
+        this.chunkId = chunkId;
+        this.segment = segment;
+        this.capacity = segment.size();
+        this.freeListHeads = new int[Integer.SIZE - MIN_BLOCK_SIZE_SHIFT];
+        Arrays.fill(freeListHeads, NIL_BLOCK);
+        this.top = 0;
+        this.usedBytes = 0L;
+    }
+
+    @Override
+    public int allocate(int len) {
+        Preconditions.checkArgument(len >= 0, "The length must not be negative.");
+        if (len > capacity - HEADER_SIZE) {
+            return NO_SPACE;
+        }
+
+        final int sizeClass = sizeClassOf(len + HEADER_SIZE);
+        final int blockSize = blockSizeOf(sizeClass);
+
+        int block = freeListHeads[sizeClass];
+        if (block != NIL_BLOCK) {
+            freeListHeads[sizeClass] = segment.getInt(block + HEADER_SIZE);
+        } else if (blockSize <= capacity - top) {
+            block = top;
+            top += blockSize;
+        } else {
+            return NO_SPACE;
+        }
+
+        segment.putInt(block, sizeClass);
+        usedBytes += blockSize;
+        return block + HEADER_SIZE;
+    }
+
+    @Override
+    public void free(int interChunkOffset) {
+        final int block = interChunkOffset - HEADER_SIZE;
+        Preconditions.checkArgument(
+                block >= 0 && block < top, "Invalid offset %s.", interChunkOffset);
+
+        final int sizeClass = segment.getInt(block);
+        segment.putInt(block + HEADER_SIZE, freeListHeads[sizeClass]);
+        freeListHeads[sizeClass] = block;
+        usedBytes -= blockSizeOf(sizeClass);
+    }
+
+    @Override
+    public int getChunkId() {
+        return chunkId;
+    }
+
+    @Override
+    public int getChunkCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public MemorySegment getMemorySegment(int chunkOffset) {
+        return segment;
+    }
+
+    @Override
+    public int getOffsetInSegment(int offsetInChunk) {
+        return offsetInChunk;
+    }
+
+    /** Returns the number of bytes of all blocks that are in use, including their headers. */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /** Returns whether no block of this chunk is in use. */
+    public boolean isEmpty() {
+        return usedBytes == 0L;
+    }
+
+    static int sizeClassOf(int size) {
+        if (size <= (1 << MIN_BLOCK_SIZE_SHIFT)) {
+            return 0;
+        }
+        return Integer.SIZE - Integer.numberOfLeadingZeros(size - 1) - MIN_BLOCK_SIZE_SHIFT;
+    }
+
+    static int blockSizeOf(int sizeClass) {
+        return 1 << (sizeClass + MIN_BLOCK_SIZE_SHIFT);
+    }
+}
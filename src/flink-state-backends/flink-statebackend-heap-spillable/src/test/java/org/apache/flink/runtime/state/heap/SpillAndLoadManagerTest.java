@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.heap.space.MmapChunkAllocator;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link SpillAndLoadManager}. */
+public class SpillAndLoadManagerTest extends TestLogger {
+
+    private static final int NUMBER_OF_KEY_GROUPS = 8;
+
+    @Rule public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private final InternalKeyContextImpl<Integer> keyContext =
+            new InternalKeyContextImpl<>(
+                    new KeyGroupRange(0, NUMBER_OF_KEY_GROUPS - 1), NUMBER_OF_KEY_GROUPS);
+
+    private final TestHeapStatusMonitor heapStatusMonitor = new TestHeapStatusMonitor();
+
+    private SpillAndLoadManager manager;
+
+    private SpillableStateTable<Integer, String, Integer> table;
+
+    @Before
+    public void setUp() throws Exception {
+        MmapChunkAllocator allocator = new MmapChunkAllocator(tmp.newFolder(), 64 * 1024);
+        Map<String, StateTable<?, ?, ?>> registeredKVStates = new HashMap<>();
+        manager =
+                new SpillAndLoadManager(
+                        registeredKVStates,
+                        allocator,
+                        heapStatusMonitor,
+                        keyContext.getKeyGroupRange(),
+                        0.7,
+                        0.5,
+                        0L);
+        table =
+                new SpillableStateTable<>(
+                        keyContext,
+                        new RegisteredKeyValueStateBackendMetaInfo<>(
+                                StateDescriptor.Type.VALUE,
+                                "test",
+                                StringSerializer.INSTANCE,
+                                IntSerializer.INSTANCE),
+                        IntSerializer.INSTANCE,
+                        allocator);
+        registeredKVStates.put("test", table);
+
+        for (int key = 0; key < 1000; key++) {
+            setCurrentKey(key);
+            table.put("ns", key);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        manager.close();
+    }
+
+    @Test
+    public void testSpillColdKeyGroupsAndLoadHotKeyGroups() {
+        int hotKeyGroup = KeyGroupRangeAssignment.assignToKeyGroup(42, NUMBER_OF_KEY_GROUPS);
+        for (int i = 0; i < 100; i++) {
+            manager.recordAccess(hotKeyGroup);
+        }
+
+        heapStatusMonitor.set(900, 1);
+        manager.checkResource();
+        assertTrue(manager.getNumberOfSpilledKeyGroups() > 0);
+        assertFalse(manager.isSpilled(hotKeyGroup));
+        int spilledKeyGroups = manager.getNumberOfSpilledKeyGroups();
+
+        // nothing happens without a garbage collection that shows the effect of the last action
+        manager.checkResource();
+        assertEquals(spilledKeyGroups, manager.getNumberOfSpilledKeyGroups());
+
+        for (int keyGroup = 0; keyGroup < NUMBER_OF_KEY_GROUPS; keyGroup++) {
+            if (manager.isSpilled(keyGroup)) {
+                manager.recordAccess(keyGroup);
+            }
+        }
+        heapStatusMonitor.set(100, 2);
+        manager.checkResource();
+        assertEquals(0, manager.getNumberOfSpilledKeyGroups());
+
+        for (int key = 0; key < 1000; key++) {
+            setCurrentKey(key);
+            assertEquals(Integer.valueOf(key), table.get("ns"));
+        }
+    }
+
+    @Test
+    public void testNewStateTablesFollowSpilledKeyGroups() {
+        heapStatusMonitor.set(1000, 1);
+        manager.checkResource();
+        assertTrue(manager.getNumberOfSpilledKeyGroups() > 0);
+
+        SpillableStateTable<Integer, String, Integer> newTable =
+                new SpillableStateTable<>(
+                        keyContext,
+                        table.getMetaInfo(),
+                        IntSerializer.INSTANCE,
+                        new TestAllocator(1024));
+        manager.onStateTableCreated(newTable);
+        for (int keyGroup = 0; keyGroup < NUMBER_OF_KEY_GROUPS; keyGroup++) {
+            assertEquals(manager.isSpilled(keyGroup), newTable.isSpilled(keyGroup));
+        }
+        newTable.close();
+    }
+
+    private void setCurrentKey(int key) {
+        keyContext.setCurrentKey(key);
+        keyContext.setCurrentKeyGroupIndex(
+                KeyGroupRangeAssignment.assignToKeyGroup(key, NUMBER_OF_KEY_GROUPS));
+    }
+
+    /** A {@link HeapStatusMonitor} that reports a given heap usage out of 1000 bytes. */
+    private static class TestHeapStatusMonitor extends HeapStatusMonitor {
+
+        private long usedMemory;
+
+        private long garbageCollectionCount;
+
+        void set(long usedMemory, long garbageCollectionCount) {
+            this.usedMemory = usedMemory;
+            this.garbageCollectionCount = garbageCollectionCount;
+        }
+
+        @Override
+        HeapStatus getHeapStatus() {
+            return new HeapStatus(usedMemory, 1000L, garbageCollectionCount);
+        }
+    }
+}
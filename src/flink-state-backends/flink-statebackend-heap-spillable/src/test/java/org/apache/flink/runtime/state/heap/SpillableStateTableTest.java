@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.core.memory.ByteArrayInputStreamWithPos;
+import org.apache.flink.core.memory.ByteArrayOutputStreamWithPos;
+import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
+import org.apache.flink.runtime.state.ArrayListSerializer;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.state.RegisteredKeyValueStateBackendMetaInfo;
+import org.apache.flink.runtime.state.StateSnapshot;
+import org.apache.flink.runtime.state.StateSnapshotKeyGroupReader;
+import org.apache.flink.runtime.state.heap.space.MmapChunkAllocator;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link SpillableStateTable}. */
+public class SpillableStateTableTest extends TestLogger {
+
+    private static final int NUMBER_OF_KEY_GROUPS = 4;
+
+    @Rule public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private InternalKeyContextImpl<Integer> keyContext;
+
+    private MmapChunkAllocator allocator;
+
+    private SpillableStateTable<Integer, String, ArrayList<Integer>> table;
+
+    @Before
+    public void setUp() throws Exception {
+        keyContext =
+                new InternalKeyContextImpl<>(
+                        new KeyGroupRange(0, NUMBER_OF_KEY_GROUPS - 1), NUMBER_OF_KEY_GROUPS);
+        allocator = new MmapChunkAllocator(tmp.newFolder(), 64 * 1024);
+        table =
+                new SpillableStateTable<>(
+                        keyContext,
+                        new RegisteredKeyValueStateBackendMetaInfo<>(
+                                StateDescriptor.Type.LIST,
+                                "test",
+                                StringSerializer.INSTANCE,
+                                new ArrayListSerializer<>(IntSerializer.INSTANCE)),
+                        IntSerializer.INSTANCE,
+                        allocator);
+    }
+
+    @After
+    public void tearDown() {
+        table.close();
+        allocator.close();
+    }
+
+    @Test
+    public void testSpillAndLoadKeepEntries() {
+        for (int key = 0; key < 100; key++) {
+            setCurrentKey(key);
+            table.put("ns", new ArrayList<>(Collections.singletonList(key)));
+        }
+
+        int keyGroup = KeyGroupRangeAssignment.assignToKeyGroup(7, NUMBER_OF_KEY_GROUPS);
+        int size = table.sizeOfKeyGroup(keyGroup);
+        table.spillKeyGroup(keyGroup);
+        assertTrue(table.isSpilled(keyGroup));
+        assertEquals(size, table.sizeOfKeyGroup(keyGroup));
+        assertEquals(100, table.size());
+
+        setCurrentKey(7);
+        assertEquals(Collections.singletonList(7), table.get("ns"));
+
+        assertTrue(table.tryLoadKeyGroup(keyGroup));
+        assertFalse(table.isSpilled(keyGroup));
+        assertEquals(0L, allocator.getUsedBytes());
+        for (int key = 0; key < 100; key++) {
+            setCurrentKey(key);
+            assertEquals(Collections.singletonList(key), table.get("ns"));
+        }
+    }
+
+    /** Heap states modify the objects returned by the table, like {@link HeapListState#add}. */
+    @Test
+    public void testInPlaceModificationsOfSpilledStateAreKept() {
+        setCurrentKey(1);
+        table.put("ns", new ArrayList<>(Collections.singletonList(1)));
+        int keyGroup = keyContext.getCurrentKeyGroupIndex();
+        table.spillKeyGroup(keyGroup);
+
+        table.get("ns").add(2);
+        table.get("ns").add(3);
+
+        // switching the key writes the cached state back
+        setCurrentKey(2);
+        assertNull(table.get("ns"));
+
+        assertTrue(table.tryLoadKeyGroup(keyGroup));
+        setCurrentKey(1);
+        assertEquals(Arrays.asList(1, 2, 3), table.get("ns"));
+    }
+
+    @Test
+    public void testSnapshotOfSpilledKeyGroups() throws Exception {
+        for (int key = 0; key < 50; key++) {
+            setCurrentKey(key);
+            table.put("ns", new ArrayList<>(Arrays.asList(key, key + 1)));
+        }
+        table.spillKeyGroup(0);
+        table.spillKeyGroup(2);
+
+        setCurrentKey(3);
+        table.get("ns").add(42);
+
+        StateSnapshot snapshot = table.stateSnapshot();
+        // the snapshot keeps the spilled key groups on disk
+        int spilledKeyGroup = KeyGroupRangeAssignment.assignToKeyGroup(3, NUMBER_OF_KEY_GROUPS);
+        if (table.isSpilled(spilledKeyGroup)) {
+            assertFalse(table.tryLoadKeyGroup(spilledKeyGroup));
+        }
+
+        ByteArrayOutputStreamWithPos out = new ByteArrayOutputStreamWithPos();
+        StateSnapshot.StateKeyGroupWriter writer = snapshot.getKeyGroupWriter();
+        for (int keyGroup = 0; keyGroup < NUMBER_OF_KEY_GROUPS; keyGroup++) {
+            writer.writeStateInKeyGroup(new DataOutputViewStreamWrapper(out), keyGroup);
+        }
+        snapshot.release();
+        for (int keyGroup = 0; keyGroup < NUMBER_OF_KEY_GROUPS; keyGroup++) {
+            assertTrue(table.tryLoadKeyGroup(keyGroup));
+        }
+
+        CopyOnWriteStateTable<Integer, String, ArrayList<Integer>> restored =
+                new CopyOnWriteStateTable<>(
+                        keyContext, table.getMetaInfo(), IntSerializer.INSTANCE);
+        StateSnapshotKeyGroupReader reader =
+                StateTableByKeyGroupReaders.readerForVersion(restored, 6);
+        DataInputViewStreamWrapper in =
+                new DataInputViewStreamWrapper(new ByteArrayInputStreamWithPos(out.toByteArray()));
+        for (int keyGroup = 0; keyGroup < NUMBER_OF_KEY_GROUPS; keyGroup++) {
+            reader.readMappingsInKeyGroup(in, keyGroup);
+        }
+
+        assertEquals(50, restored.size());
+        for (int key = 0; key < 50; key++) {
+            setCurrentKey(key);
+            assertEquals(
+                    key == 3 ? Arrays.asList(3, 4, 42) : Arrays.asList(key, key + 1),
+                    restored.get("ns"));
+        }
+    }
+
+    private void setCurrentKey(int key) {
+        keyContext.setCurrentKey(key);
+        keyContext.setCurrentKeyGroupIndex(
+                KeyGroupRangeAssignment.assignToKeyGroup(key, NUMBER_OF_KEY_GROUPS));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap.space;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link MmapChunkAllocator}. */
+public class MmapChunkAllocatorTest extends TestLogger {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    @Rule public final TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testAllocatedSpaceIsReadableAndWritable() throws Exception {
+        File directory = new File(tmp.getRoot(), "spill");
+        try (MmapChunkAllocator allocator = new MmapChunkAllocator(directory, CHUNK_SIZE)) {
+            List<Long> addresses = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                long address = allocator.allocate(100);
+                writeInt(allocator, address, i);
+                addresses.add(address);
+            }
+
+            for (int i = 0; i < addresses.size(); i++) {
+                assertEquals(i, readInt(allocator, addresses.get(i)));
+            }
+            assertTrue(directory.exists());
+        }
+        assertFalse(directory.exists());
+    }
+
+    @Test
+    public void testFreedSpaceIsReused() throws Exception {
+        try (MmapChunkAllocator allocator = new MmapChunkAllocator(tmp.newFolder(), CHUNK_SIZE)) {
+            long first = allocator.allocate(40);
+            long second = allocator.allocate(40);
+            assertNotEquals(first, second);
+
+            allocator.free(first);
+            assertEquals(first, allocator.allocate(40));
+        }
+    }
+
+    @Test
+    public void testChunksAreAddedAndReleased() throws Exception {
+        try (MmapChunkAllocator allocator = new MmapChunkAllocator(tmp.newFolder(), CHUNK_SIZE)) {
+            List<Long> addresses = new ArrayList<>();
+            while (allocator.getNumberOfChunks() < 3) {
+                addresses.add(allocator.allocate(1000));
+            }
+            assertEquals(3L * CHUNK_SIZE, allocator.getAllocatedBytes());
+
+            for (long address : addresses) {
+                allocator.free(address);
+            }
+            assertEquals(0L, allocator.getUsedBytes());
+            // the current chunk is kept for further allocations
+            assertEquals(1, allocator.getNumberOfChunks());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAllocateLargerThanChunk() throws Exception {
+        try (MmapChunkAllocator allocator = new MmapChunkAllocator(tmp.newFolder(), CHUNK_SIZE)) {
+            allocator.allocate(CHUNK_SIZE + 1);
+        }
+    }
+
+    private static void writeInt(Allocator allocator, long address, int value) {
+        Chunk chunk = allocator.getChunkById(SpaceUtils.getChunkIdByAddress(address));
+        int offsetInChunk = SpaceUtils.getChunkOffsetByAddress(address);
+        MemorySegment segment = chunk.getMemorySegment(offsetInChunk);
+        segment.putInt(chunk.getOffsetInSegment(offsetInChunk), value);
+    }
+
+    private static int readInt(Allocator allocator, long address) {
+        Chunk chunk = allocator.getChunkById(SpaceUtils.getChunkIdByAddress(address));
+        int offsetInChunk = SpaceUtils.getChunkOffsetByAddress(address);
+        MemorySegment segment = chunk.getMemorySegment(offsetInChunk);
+        return segment.getInt(chunk.getOffsetInSegment(offsetInChunk));
+    }
+}
@@ -57,11 +57,7 @@ abstract class AbstractRocksDBAppendingState<K, N, IN, SV, OUT>
     SV getInternal(byte[] key) {
         try {
             byte[] valueBytes = backend.db.get(columnFamily, key);
-            if (valueBytes == null) {
-                return null;
-            }
-            dataInputView.setBuffer(valueBytes);
-            return valueSerializer.deserialize(dataInputView);
+            return valueBytes != null ? deserializeStoredValue(valueBytes) : null;
         } catch (IOException | RocksDBException e) {
             throw new FlinkRuntimeException("Error while retrieving data from RocksDB", e);
         }
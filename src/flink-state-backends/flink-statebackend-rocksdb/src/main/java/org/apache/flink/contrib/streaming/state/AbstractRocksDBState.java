@@ -25,6 +25,7 @@ import org.apache.flink.core.memory.DataOutputSerializer;
 import org.apache.flink.queryablestate.client.state.serialization.KvStateSerializer;
 import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
 import org.apache.flink.runtime.state.internal.InternalKvState;
+import org.apache.flink.runtime.state.ttl.TtlStateFactory;
 import org.apache.flink.util.FlinkRuntimeException;
 import org.apache.flink.util.Preconditions;
 import org.apache.flink.util.StateMigrationException;
@@ -34,7 +35,13 @@ import org.rocksdb.RocksDBException;
 import org.rocksdb.WriteOptions;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Base class for {@link State} implementations that store state in a RocksDB database.
@@ -73,6 +80,12 @@ public abstract class AbstractRocksDBState<K, N, V> implements InternalKvState<K
 
     private final RocksDBSerializedCompositeKeyBuilder<K> sharedKeyNamespaceSerializer;
 
+    /**
+     * Builder for the keys of batched and asynchronous look ups, which must not touch the current
+     * key of the shared builder. Created on first use.
+     */
+    private RocksDBSerializedCompositeKeyBuilder<K> batchKeyNamespaceSerializer;
+
     /**
      * Creates a new RocksDB backed state.
      *
@@ -147,6 +160,117 @@ public abstract class AbstractRocksDBState<K, N, V> implements InternalKvState<K
         return backend.db.get(columnFamily, key);
     }
 
+    @Override
+    public Map<K, V> getAll(Collection<K> keys) {
+        try {
+            Map<K, byte[]> serializedValues = multiGetSerializedValues(keys);
+            Map<K, V> result = new HashMap<>(serializedValues.size());
+            for (Map.Entry<K, byte[]> entry : serializedValues.entrySet()) {
+                result.put(entry.getKey(), deserializeStoredValue(entry.getValue()));
+            }
+            return result;
+        } catch (IOException | RocksDBException e) {
+            throw new FlinkRuntimeException("Error while retrieving data from RocksDB.", e);
+        }
+    }
+
+    /**
+     * Deserializes a value as it is stored under the key and namespace of this state. States that
+     * do not store their value with the value serializer override this.
+     */
+    V deserializeStoredValue(byte[] valueBytes) throws IOException {
+        return deserializeValue(valueBytes, 0, valueSerializer, dataInputView);
+    }
+
+    /**
+     * Deserializes a value that starts at the given offset and spans the rest of the bytes. Values
+     * with TTL are deserialized lazily, so that their expiration can be checked and their
+     * timestamp renewed without deserializing the user value.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T deserializeValue(
+            byte[] bytes,
+            int offset,
+            TypeSerializer<T> serializer,
+            DataInputDeserializer dataInputView)
+            throws IOException {
+        if (serializer instanceof TtlStateFactory.TtlSerializer) {
+            return (T)
+                    ((TtlStateFactory.TtlSerializer<?>) serializer)
+                            .deserializeLazily(bytes, offset, bytes.length - offset);
+        }
+        dataInputView.setBuffer(bytes, offset, bytes.length - offset);
+        return serializer.deserialize(dataInputView);
+    }
+
+    /**
+     * Looks up the serialized values of the given keys under the current namespace with a single
+     * RocksDB {@code multiGet} call.
+     *
+     * @return The serialized values by key, keys without a value are absent.
+     */
+    Map<K, byte[]> multiGetSerializedValues(Collection<K> keys) throws RocksDBException {
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return multiGetSerializedValues(keys, serializeKeysWithGroupAndNamespace(keys));
+    }
+
+    /**
+     * Looks up the serialized values of the given keys with a single RocksDB {@code multiGet}
+     * call.
+     *
+     * @param keys The keys to look up.
+     * @param rawKeys The serialized composite keys of the given keys, in the same order.
+     * @return The serialized values by key, keys without a value are absent.
+     */
+    Map<K, byte[]> multiGetSerializedValues(Collection<K> keys, List<byte[]> rawKeys)
+            throws RocksDBException {
+        // the returned map is keyed by the identity of the given raw keys
+        Map<byte[], byte[]> rawValues =
+                backend.db.multiGet(Collections.nCopies(rawKeys.size(), columnFamily), rawKeys);
+
+        Map<K, byte[]> result = new HashMap<>(rawValues.size());
+        Iterator<byte[]> rawKeyIterator = rawKeys.iterator();
+        for (K key : keys) {
+            byte[] rawValue = rawValues.get(rawKeyIterator.next());
+            if (rawValue != null) {
+                result.put(key, rawValue);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Serializes the composite keys of the given keys under the current namespace, without
+     * touching the current key of the backend.
+     */
+    List<byte[]> serializeKeysWithGroupAndNamespace(Collection<K> keys) {
+        List<byte[]> rawKeys = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            rawKeys.add(serializeKeyWithGroupAndNamespace(key, currentNamespace));
+        }
+        return rawKeys;
+    }
+
+    /**
+     * Serializes the composite key of the given key and namespace, independent of the current key
+     * of the backend.
+     */
+    byte[] serializeKeyWithGroupAndNamespace(K key, N namespace) {
+        if (batchKeyNamespaceSerializer == null) {
+            batchKeyNamespaceSerializer =
+                    new RocksDBSerializedCompositeKeyBuilder<>(
+                            backend.getKeySerializer(), backend.getKeyGroupPrefixBytes(), 32);
+        }
+
+        int keyGroup =
+                KeyGroupRangeAssignment.assignToKeyGroup(key, backend.getNumberOfKeyGroups());
+        batchKeyNamespaceSerializer.setKeyAndKeyGroup(key, keyGroup);
+        return batchKeyNamespaceSerializer.buildCompositeKeyNamespace(
+                namespace, namespaceSerializer);
+    }
+
     <UK> byte[] serializeCurrentKeyWithGroupAndNamespacePlusUserKey(
             UK userKey, TypeSerializer<UK> userKeySerializer) throws IOException {
         return sharedKeyNamespaceSerializer.buildCompositeKeyNamesSpaceUserKey(
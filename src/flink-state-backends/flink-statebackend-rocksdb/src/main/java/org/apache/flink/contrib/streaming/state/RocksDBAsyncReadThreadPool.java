@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The thread pool that executes the asynchronous state reads of all {@link
+ * RocksDBKeyedStateBackend RocksDB keyed state backends} of a TaskManager. The pool is created by
+ * the first backend that acquires it, with the number of threads configured for that backend, and
+ * is shut down when the last backend released it.
+ */
+final class RocksDBAsyncReadThreadPool {
+
+    private static final Object LOCK = new Object();
+
+    @GuardedBy("LOCK")
+    private static ExecutorService executor;
+
+    @GuardedBy("LOCK")
+    private static int referenceCount;
+
+    private RocksDBAsyncReadThreadPool() {}
+
+    /** Acquires the shared thread pool, which must be released by calling {@link #release()}. */
+    static ExecutorService acquire(int numberOfThreads) {
+        Preconditions.checkArgument(
+                numberOfThreads > 0, "The number of async read threads must be positive.");
+        synchronized (LOCK) {
+            if (executor == null) {
+                executor =
+                        Executors.newFixedThreadPool(
+                                numberOfThreads, new ExecutorThreadFactory("Flink-RocksDBAsyncRead"));
+            }
+            referenceCount++;
+            return executor;
+        }
+    }
+
+    /** Releases the shared thread pool, it is shut down if it is not acquired anymore. */
+    static void release() {
+        synchronized (LOCK) {
+            Preconditions.checkState(referenceCount > 0, "The thread pool is not acquired.");
+            if (--referenceCount == 0) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
+    }
+}
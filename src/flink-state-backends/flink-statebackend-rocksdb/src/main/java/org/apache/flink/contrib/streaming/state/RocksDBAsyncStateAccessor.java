@@ -0,0 +1,360 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.runtime.state.AsyncStateAccessor;
+import org.apache.flink.runtime.state.internal.InternalValueState;
+import org.apache.flink.util.Preconditions;
+
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDB;
+import org.rocksdb.Snapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The {@link AsyncStateAccessor} of the {@link RocksDBKeyedStateBackend}. Composite keys are
+ * serialized on the task thread, the look ups in RocksDB are executed by the {@link
+ * RocksDBAsyncReadThreadPool}, and the values are deserialized in the completion executor.
+ *
+ * <p>Every look up reads from a RocksDB snapshot that was taken when the read was issued, so that
+ * later writes of the task are not visible. A snapshot is shared by all reads that are issued until
+ * the next write. Values that are in the write-back cache are returned without reading RocksDB.
+ *
+ * <p>Except for the look ups, this class is accessed by the task thread only.
+ *
+ * @param <K> The type of the key.
+ */
+class RocksDBAsyncStateAccessor<K> implements AsyncStateAccessor<K> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RocksDBAsyncStateAccessor.class);
+
+    private final RocksDBKeyedStateBackend<K> backend;
+
+    private final Executor readExecutor;
+
+    private final Executor completionExecutor;
+
+    /** The pending reads by composite key, in the order in which they were issued. */
+    private final Map<ByteBuffer, ArrayDeque<PendingRead<?>>> pendingReadsByKey;
+
+    /**
+     * Held shared by the running look ups and exclusively when closing, so that the snapshots and
+     * the database are not released while they are read.
+     */
+    private final ReadWriteLock closeLock;
+
+    /** The snapshot for new reads, it is replaced when the database was written. */
+    @Nullable private ReadSnapshot currentSnapshot;
+
+    private int numberOfPendingReads;
+
+    private volatile boolean closed;
+
+    RocksDBAsyncStateAccessor(
+            RocksDBKeyedStateBackend<K> backend,
+            Executor readExecutor,
+            Executor completionExecutor) {
+        this.backend = Preconditions.checkNotNull(backend);
+        this.readExecutor = Preconditions.checkNotNull(readExecutor);
+        this.completionExecutor = Preconditions.checkNotNull(completionExecutor);
+        this.pendingReadsByKey = new HashMap<>();
+        this.closeLock = new ReentrantReadWriteLock();
+    }
+
+    @Override
+    public <N, V> CompletableFuture<V> asyncValue(
+            InternalValueState<K, N, V> state, K key, N namespace) {
+        Preconditions.checkState(!closed, "The async state accessor has been closed.");
+        Preconditions.checkArgument(
+                state instanceof RocksDBValueState,
+                "Asynchronous reads are only supported for value states without TTL, but got %s.",
+                state.getClass().getSimpleName());
+        RocksDBValueState<K, N, V> valueState = (RocksDBValueState<K, N, V>) state;
+        Preconditions.checkArgument(
+                valueState.backend == backend, "The state was created by another backend.");
+
+        byte[] rawKey = valueState.serializeKeyWithGroupAndNamespace(key, namespace);
+        ByteBuffer wrappedKey = ByteBuffer.wrap(rawKey);
+        PendingRead<V> read = new PendingRead<>(valueState, rawKey);
+        ArrayDeque<PendingRead<?>> reads =
+                pendingReadsByKey.computeIfAbsent(wrappedKey, k -> new ArrayDeque<>());
+        reads.add(read);
+        numberOfPendingReads++;
+
+        RocksDBWriteBackCache.Entry<V> cachedEntry = valueState.getCachedEntry(rawKey);
+        if (cachedEntry != null) {
+            read.completeFromCache(cachedEntry.getValue());
+            completeFinishedReads(wrappedKey, reads);
+        } else {
+            read.snapshot = acquireSnapshot();
+            try {
+                readExecutor.execute(() -> executeRead(read));
+            } catch (RejectedExecutionException e) {
+                read.completeFromDatabase(null, e);
+                releaseSnapshot(read);
+                completeFinishedReads(wrappedKey, reads);
+            }
+        }
+        return read.future;
+    }
+
+    @Override
+    public int getNumberOfPendingReads() {
+        return numberOfPendingReads;
+    }
+
+    /** Executed by the read executor. */
+    private void executeRead(PendingRead<?> read) {
+        byte[] value = null;
+        Throwable failure = null;
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            value = backend.db.get(read.state.columnFamily, read.snapshot.readOptions, read.rawKey);
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            closeLock.readLock().unlock();
+        }
+
+        byte[] finalValue = value;
+        Throwable finalFailure = failure;
+        try {
+            completionExecutor.execute(() -> onReadExecuted(read, finalValue, finalFailure));
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Dropping the result of an asynchronous state read.", e);
+        }
+    }
+
+    private void onReadExecuted(
+            PendingRead<?> read, @Nullable byte[] value, @Nullable Throwable failure) {
+        if (closed) {
+            return;
+        }
+        read.completeFromDatabase(value, failure);
+        releaseSnapshot(read);
+
+        ByteBuffer wrappedKey = ByteBuffer.wrap(read.rawKey);
+        completeFinishedReads(wrappedKey, pendingReadsByKey.get(wrappedKey));
+    }
+
+    /** Completes the finished reads at the head of the pending reads of a key. */
+    private void completeFinishedReads(ByteBuffer wrappedKey, ArrayDeque<PendingRead<?>> reads) {
+        while (!reads.isEmpty() && reads.peek().isFinished()) {
+            numberOfPendingReads--;
+            // might issue new reads of the same key through the callbacks of the future
+            reads.poll().completeFuture();
+        }
+        if (reads.isEmpty()) {
+            pendingReadsByKey.remove(wrappedKey, reads);
+        }
+    }
+
+    private ReadSnapshot acquireSnapshot() {
+        long sequenceNumber = backend.db.getLatestSequenceNumber();
+        if (currentSnapshot == null || currentSnapshot.sequenceNumber != sequenceNumber) {
+            if (currentSnapshot != null) {
+                releaseSnapshot(currentSnapshot);
+            }
+            currentSnapshot = new ReadSnapshot(backend.db, sequenceNumber);
+        }
+        currentSnapshot.references++;
+        return currentSnapshot;
+    }
+
+    /** Releases the snapshot of an executed read, so that it is not released again on close. */
+    private void releaseSnapshot(PendingRead<?> read) {
+        ReadSnapshot snapshot = read.snapshot;
+        read.snapshot = null;
+        releaseSnapshot(snapshot);
+    }
+
+    private void releaseSnapshot(ReadSnapshot snapshot) {
+        if (--snapshot.references == 0) {
+            snapshot.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        Set<ReadSnapshot> snapshots = Collections.newSetFromMap(new IdentityHashMap<>());
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+            if (currentSnapshot != null) {
+                snapshots.add(currentSnapshot);
+                currentSnapshot = null;
+            }
+            for (ArrayDeque<PendingRead<?>> reads : pendingReadsByKey.values()) {
+                for (PendingRead<?> read : reads) {
+                    if (read.snapshot != null) {
+                        snapshots.add(read.snapshot);
+                    }
+                }
+            }
+            for (ReadSnapshot snapshot : snapshots) {
+                snapshot.release();
+            }
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+
+        List<PendingRead<?>> cancelledReads = new ArrayList<>(numberOfPendingReads);
+        for (ArrayDeque<PendingRead<?>> reads : pendingReadsByKey.values()) {
+            cancelledReads.addAll(reads);
+        }
+        pendingReadsByKey.clear();
+        numberOfPendingReads = 0;
+        backend.removeAsyncStateAccessor(this);
+
+        IllegalStateException cause =
+                new IllegalStateException("The async state accessor has been closed.");
+        for (PendingRead<?> read : cancelledReads) {
+            read.future.completeExceptionally(cause);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /** A RocksDB snapshot that is shared by reads, released when it is not referenced anymore. */
+    private static final class ReadSnapshot {
+
+        private final RocksDB db;
+
+        private final long sequenceNumber;
+
+        private final Snapshot snapshot;
+
+        private final ReadOptions readOptions;
+
+        /** The number of reads that use the snapshot, plus one while it is used for new reads. */
+        private int references;
+
+        private ReadSnapshot(RocksDB db, long sequenceNumber) {
+            this.db = db;
+            this.sequenceNumber = sequenceNumber;
+            this.snapshot = db.getSnapshot();
+            this.readOptions = new ReadOptions().setSnapshot(snapshot);
+            this.references = 1;
+        }
+
+        private void release() {
+            readOptions.close();
+            db.releaseSnapshot(snapshot);
+        }
+    }
+
+    /** A read whose future was not completed yet. */
+    private static final class PendingRead<V> {
+
+        private final RocksDBValueState<?, ?, V> state;
+
+        private final byte[] rawKey;
+
+        private final CompletableFuture<V> future;
+
+        /** The snapshot to read from, null if the value was cached. */
+        @Nullable private ReadSnapshot snapshot;
+
+        private boolean finished;
+
+        private boolean cached;
+
+        @Nullable private V cachedValue;
+
+        @Nullable private byte[] serializedValue;
+
+        @Nullable private Throwable failure;
+
+        private PendingRead(RocksDBValueState<?, ?, V> state, byte[] rawKey) {
+            this.state = state;
+            this.rawKey = rawKey;
+            this.future = new CompletableFuture<>();
+        }
+
+        private boolean isFinished() {
+            return finished;
+        }
+
+        private void completeFromCache(@Nullable V value) {
+            this.finished = true;
+            this.cached = true;
+            this.cachedValue = value;
+        }
+
+        private void completeFromDatabase(@Nullable byte[] value, @Nullable Throwable failure) {
+            this.finished = true;
+            this.serializedValue = value;
+            this.failure = failure;
+        }
+
+        /** Deserializes the value and completes the future, in the task thread. */
+        private void completeFuture() {
+            if (failure != null) {
+                future.completeExceptionally(failure);
+                return;
+            }
+
+            V value;
+            try {
+                if (cached) {
+                    // hand out a copy, so that modifications are only visible after an update
+                    value =
+                            cachedValue != null
+                                    ? state.getValueSerializer().copy(cachedValue)
+                                    : null;
+                } else {
+                    value =
+                            serializedValue != null
+                                    ? state.deserializeStoredValue(serializedValue)
+                                    : null;
+                }
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+                return;
+            }
+            future.complete(value != null ? value : state.getDefaultValue());
+        }
+    }
+}
@@ -42,6 +42,8 @@ import org.apache.flink.core.memory.DataOutputSerializer;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
 import org.apache.flink.runtime.query.TaskKvStateRegistry;
 import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
+import org.apache.flink.runtime.state.AsyncKeyedStateBackend;
+import org.apache.flink.runtime.state.AsyncStateAccessor;
 import org.apache.flink.runtime.state.CheckpointStreamFactory;
 import org.apache.flink.runtime.state.KeyGroupedInternalPriorityQueue;
 import org.apache.flink.runtime.state.Keyed;
@@ -76,15 +78,20 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RunnableFuture;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -106,7 +113,8 @@ import static org.apache.flink.util.Preconditions.checkState;
  * href="https://github.com/facebook/rocksdb/wiki/RocksJava-Basics#opening-a-database-with-column-families">
  * this document</a>.
  */
-public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
+public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K>
+        implements AsyncKeyedStateBackend<K> {
 
     private static final Logger LOG = LoggerFactory.getLogger(RocksDBKeyedStateBackend.class);
 
@@ -207,6 +215,12 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
     /** Factory for priority queue state. */
     private final PriorityQueueSetFactory priorityQueueFactory;
 
+    /**
+     * Cache of deserialized values in front of the value states, null if disabled. Dirty values are
+     * written back before RocksDB is snapshotted or iterated.
+     */
+    @Nullable private final RocksDBWriteBackCache writeBackCache;
+
     /**
      * Helper to build the byte arrays of composite keys to address data in RocksDB. Shared across
      * all states.
@@ -220,6 +234,15 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
      */
     protected final RocksDB db;
 
+    /** The number of threads of the {@link RocksDBAsyncReadThreadPool}, if this creates it. */
+    private final int numberOfAsyncReadThreads;
+
+    /** The shared pool for asynchronous reads, acquired when the first accessor is created. */
+    @Nullable private ExecutorService asyncReadExecutor;
+
+    /** The accessors for asynchronous reads that have not been closed yet. */
+    private final Set<RocksDBAsyncStateAccessor<K>> asyncStateAccessors = new HashSet<>();
+
     // mark whether this backend is already disposed and prevent duplicate disposing
     private boolean disposed = false;
 
@@ -249,7 +272,9 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
             PriorityQueueSetFactory priorityQueueFactory,
             RocksDbTtlCompactFiltersManager ttlCompactFiltersManager,
             InternalKeyContext<K> keyContext,
-            @Nonnegative long writeBatchSize) {
+            @Nonnegative long writeBatchSize,
+            @Nullable RocksDBWriteBackCache writeBackCache,
+            int numberOfAsyncReadThreads) {
 
         super(
                 kvStateRegistry,
@@ -286,6 +311,10 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
         this.nativeMetricMonitor = nativeMetricMonitor;
         this.sharedRocksKeyBuilder = sharedRocksKeyBuilder;
         this.priorityQueueFactory = priorityQueueFactory;
+        this.writeBackCache = writeBackCache;
+        checkArgument(
+                numberOfAsyncReadThreads > 0, "The number of async read threads must be positive.");
+        this.numberOfAsyncReadThreads = numberOfAsyncReadThreads;
     }
 
     @SuppressWarnings("unchecked")
@@ -315,6 +344,8 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
             throw new FlinkRuntimeException("Failed to get keys from RocksDB state backend.", ex);
         }
 
+        flushWriteBackCacheUnchecked();
+
         RocksIteratorWrapper iterator =
                 RocksDBOperationUtils.getRocksIterator(
                         db, columnInfo.columnFamilyHandle, readOptions);
@@ -353,6 +384,8 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
                 RocksDBKeySerializationUtils.isAmbiguousKeyPossible(
                         getKeySerializer(), namespaceSerializer);
 
+        flushWriteBackCacheUnchecked();
+
         RocksIteratorWrapper iterator =
                 RocksDBOperationUtils.getRocksIterator(
                         db, columnInfo.columnFamilyHandle, readOptions);
@@ -380,6 +413,42 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
         return columnInfo != null ? columnInfo.columnFamilyHandle : null;
     }
 
+    @Nullable
+    RocksDBWriteBackCache getWriteBackCache() {
+        return writeBackCache;
+    }
+
+    /** Writes the dirty values of the write-back cache, if any, to RocksDB. */
+    private void flushWriteBackCache() throws IOException, RocksDBException {
+        if (writeBackCache != null) {
+            writeBackCache.flush();
+        }
+    }
+
+    private void flushWriteBackCacheUnchecked() {
+        try {
+            flushWriteBackCache();
+        } catch (IOException | RocksDBException e) {
+            throw new FlinkRuntimeException("Failed to flush the write-back cache to RocksDB.", e);
+        }
+    }
+
+    @Override
+    public AsyncStateAccessor<K> createAsyncStateAccessor(Executor completionExecutor) {
+        Preconditions.checkState(!disposed, "The backend has been disposed.");
+        if (asyncReadExecutor == null) {
+            asyncReadExecutor = RocksDBAsyncReadThreadPool.acquire(numberOfAsyncReadThreads);
+        }
+        RocksDBAsyncStateAccessor<K> accessor =
+                new RocksDBAsyncStateAccessor<>(this, asyncReadExecutor, completionExecutor);
+        asyncStateAccessors.add(accessor);
+        return accessor;
+    }
+
+    void removeAsyncStateAccessor(RocksDBAsyncStateAccessor<K> accessor) {
+        asyncStateAccessors.remove(accessor);
+    }
+
     @Override
     public void setCurrentKey(K newKey) {
         super.setCurrentKey(newKey);
@@ -394,6 +463,15 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
         }
         super.dispose();
 
+        // pending asynchronous reads must not access the RocksDB instance anymore
+        for (RocksDBAsyncStateAccessor<K> accessor : new ArrayList<>(asyncStateAccessors)) {
+            accessor.close();
+        }
+        if (asyncReadExecutor != null) {
+            RocksDBAsyncReadThreadPool.release();
+            asyncReadExecutor = null;
+        }
+
         // This call will block until all clients that still acquire access to the RocksDB instance
         // have released it,
         // so that we cannot release the native resources while clients are still working with it in
@@ -405,6 +483,11 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
         // working on the disposed object results in SEGFAULTS.
         if (db != null) {
 
+            // values that were not written back belong to no snapshot and are dropped
+            if (writeBackCache != null) {
+                writeBackCache.clear();
+            }
+
             IOUtils.closeQuietly(writeBatchWrapper);
 
             // Metric collection occurs on a background thread. When this method returns
@@ -526,6 +609,7 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
         long startTime = System.currentTimeMillis();
 
         // flush everything into db before taking a snapshot
+        flushWriteBackCache();
         writeBatchWrapper.flush();
 
         RocksDBSnapshotStrategyBase<K> chosenSnapshotStrategy =
@@ -742,6 +826,12 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
         @SuppressWarnings("unchecked")
         AbstractRocksDBState<?, ?, SV> rocksDBState = (AbstractRocksDBState<?, ?, SV>) state;
 
+        // the cached values are still of the schema of the prior serializer
+        flushWriteBackCache();
+        if (writeBackCache != null) {
+            writeBackCache.clear();
+        }
+
         Snapshot rocksDBSnapshot = db.getSnapshot();
         try (RocksIteratorWrapper iterator =
                         RocksDBOperationUtils.getRocksIterator(db, stateMetaInfo.f0, readOptions);
@@ -825,6 +915,8 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
     public int numKeyValueStateEntries() {
         int count = 0;
 
+        flushWriteBackCacheUnchecked();
+
         for (RocksDbKvStateInfo metaInfo : kvStateInformation.values()) {
             // TODO maybe filterOrTransform only for k/v states
             try (RocksIteratorWrapper rocksIterator =
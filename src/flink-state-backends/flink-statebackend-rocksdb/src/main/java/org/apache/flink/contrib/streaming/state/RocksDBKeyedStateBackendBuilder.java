@@ -112,6 +112,12 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
     private int numberOfTransferingThreads;
     private long writeBatchSize =
             RocksDBConfigurableOptions.WRITE_BATCH_SIZE.defaultValue().getBytes();
+    private int writeBackCacheMaxEntries =
+            RocksDBOptions.WRITE_BACK_CACHE_MAX_ENTRIES.defaultValue();
+    private int numberOfRestoringThreads = RocksDBOptions.RESTORE_THREAD_NUM.defaultValue();
+    private int numberOfAsyncReadThreads = RocksDBOptions.ASYNC_READ_THREAD_NUM.defaultValue();
+    private boolean useIngestDbRestoreMode =
+            RocksDBOptions.USE_INGEST_DB_RESTORE_MODE.defaultValue();
 
     private RocksDB injectedTestDB; // for testing
     private ColumnFamilyHandle injectedDefaultColumnFamilyHandle; // for testing
@@ -233,6 +239,35 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
         return this;
     }
 
+    RocksDBKeyedStateBackendBuilder<K> setWriteBackCacheMaxEntries(int writeBackCacheMaxEntries) {
+        checkArgument(
+                writeBackCacheMaxEntries >= 0,
+                "Max entries of the write-back cache should be non negative.");
+        this.writeBackCacheMaxEntries = writeBackCacheMaxEntries;
+        return this;
+    }
+
+    RocksDBKeyedStateBackendBuilder<K> setNumberOfAsyncReadThreads(int numberOfAsyncReadThreads) {
+        checkArgument(
+                numberOfAsyncReadThreads > 0,
+                "The number of async read threads should be positive.");
+        this.numberOfAsyncReadThreads = numberOfAsyncReadThreads;
+        return this;
+    }
+
+    RocksDBKeyedStateBackendBuilder<K> setNumberOfRestoringThreads(int numberOfRestoringThreads) {
+        checkArgument(
+                numberOfRestoringThreads > 0,
+                "The number of restoring threads should be greater than zero.");
+        this.numberOfRestoringThreads = numberOfRestoringThreads;
+        return this;
+    }
+
+    RocksDBKeyedStateBackendBuilder<K> setUseIngestDbRestoreMode(boolean useIngestDbRestoreMode) {
+        this.useIngestDbRestoreMode = useIngestDbRestoreMode;
+        return this;
+    }
+
     RocksDBKeyedStateBackendBuilder<K> setRocksDBStateUploader(
             RocksDBStateUploader rocksDBStateUploader) {
         Preconditions.checkState(
@@ -259,6 +294,7 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
     @Override
     public RocksDBKeyedStateBackend<K> build() throws BackendBuildingException {
         RocksDBWriteBatchWrapper writeBatchWrapper = null;
+        RocksDBWriteBackCache writeBackCache = null;
         ColumnFamilyHandle defaultColumnFamilyHandle = null;
         RocksDBNativeMetricMonitor nativeMetricMonitor = null;
         CloseableRegistry cancelStreamRegistryForBackend = new CloseableRegistry();
@@ -312,6 +348,15 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
             writeBatchWrapper =
                     new RocksDBWriteBatchWrapper(
                             db, optionsContainer.getWriteOptions(), writeBatchSize);
+            if (writeBackCacheMaxEntries > 0) {
+                writeBackCache =
+                        new RocksDBWriteBackCache(
+                                db,
+                                optionsContainer.getWriteOptions(),
+                                writeBatchWrapper,
+                                writeBackCacheMaxEntries,
+                                metricGroup);
+            }
             // it is important that we only create the key builder after the restore, and not
             // before;
             // restore operations may reconfigure the key serializer, so accessing the key
@@ -406,7 +451,9 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
                 priorityQueueFactory,
                 ttlCompactFiltersManager,
                 keyContext,
-                writeBatchSize);
+                writeBatchSize,
+                writeBackCache,
+                numberOfAsyncReadThreads);
     }
 
     private AbstractRocksDBRestoreOperation<K> getRocksDBRestoreOperation(
@@ -459,7 +506,9 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
                     ttlCompactFiltersManager,
                     writeBatchSize,
                     optionsContainer.getWriteBufferManagerCapacity(),
-                    queueRestoreEnabled);
+                    queueRestoreEnabled,
+                    numberOfRestoringThreads,
+                    useIngestDbRestoreMode);
         } else {
             return new RocksDBFullRestoreOperation<>(
                     keyGroupRange,
@@ -479,7 +528,8 @@ public class RocksDBKeyedStateBackendBuilder<K> extends AbstractKeyedStateBacken
                     ttlCompactFiltersManager,
                     writeBatchSize,
                     optionsContainer.getWriteBufferManagerCapacity(),
-                    queueRestoreEnabled);
+                    queueRestoreEnabled,
+                    numberOfRestoringThreads);
         }
     }
 
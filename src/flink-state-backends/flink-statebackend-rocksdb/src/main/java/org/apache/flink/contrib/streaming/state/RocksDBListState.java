@@ -119,6 +119,11 @@ class RocksDBListState<K, N, V> extends AbstractRocksDBState<K, N, List<V>>
         }
     }
 
+    @Override
+    List<V> deserializeStoredValue(byte[] valueBytes) {
+        return deserializeList(valueBytes);
+    }
+
     private List<V> deserializeList(byte[] valueBytes) {
         if (valueBytes == null) {
             return null;
@@ -48,6 +48,7 @@ import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -305,6 +306,13 @@ class RocksDBMapState<K, N, UK, UV> extends AbstractRocksDBState<K, N, Map<UK, U
         }
     }
 
+    @Override
+    public Map<K, Map<UK, UV>> getAll(Collection<K> keys) {
+        // the entries of a map are stored under separate keys and cannot be looked up at once
+        throw new UnsupportedOperationException(
+                "Batched look ups are not supported by the RocksDB map state.");
+    }
+
     @Override
     public byte[] getSerializedValue(
             final byte[] serializedKeyAndNamespace,
@@ -390,7 +398,7 @@ class RocksDBMapState<K, N, UK, UV> extends AbstractRocksDBState<K, N, Map<UK, U
 
         boolean isNull = dataInputView.readBoolean();
 
-        return isNull ? null : valueSerializer.deserialize(dataInputView);
+        return isNull ? null : deserializeValue(rawValueBytes, 1, valueSerializer, dataInputView);
     }
 
     private boolean startWithKeyPrefix(byte[] keyPrefixBytes, byte[] rawKeyBytes) {
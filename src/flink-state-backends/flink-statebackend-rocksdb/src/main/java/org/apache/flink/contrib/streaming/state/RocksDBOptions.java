@@ -65,6 +65,59 @@ public class RocksDBOptions {
                     .withDescription(
                             "The number of threads (per stateful operator) used to transfer (download and upload) files in RocksDBStateBackend.");
 
+    /**
+     * The maximum number of deserialized values that are cached in front of RocksDB per keyed state
+     * backend.
+     */
+    @Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
+    public static final ConfigOption<Integer> WRITE_BACK_CACHE_MAX_ENTRIES =
+            ConfigOptions.key("state.backend.rocksdb.write-back-cache.max-entries")
+                    .intType()
+                    .defaultValue(0)
+                    .withDescription(
+                            "The maximum number of deserialized values of value states that are cached in front of RocksDB "
+                                    + "(per stateful operator). Updates of cached values are only written to RocksDB when the "
+                                    + "least recently used values are evicted and before checkpoints, which saves serialization and "
+                                    + "RocksDB writes for frequently updated keys. As with the heap state backends, values must not be "
+                                    + "modified after they were passed to an update. Values that are queried through queryable state "
+                                    + "may be stale until the next checkpoint. The cache is disabled if set to 0.");
+
+    /**
+     * The number of threads used to restore the key-groups of full snapshots and of rescaled
+     * incremental snapshots.
+     */
+    @Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
+    public static final ConfigOption<Integer> RESTORE_THREAD_NUM =
+            ConfigOptions.key("state.backend.rocksdb.restore.thread.num")
+                    .intType()
+                    .defaultValue(1)
+                    .withDescription(
+                            "The number of threads (per stateful operator) used to restore key groups into RocksDB. "
+                                    + "A full snapshot is restored in disjoint key group ranges, while rescaling from "
+                                    + "incremental checkpoints restores the state handles of the previous instances concurrently.");
+
+    /** Whether to ingest SST files instead of copying key-groups when rescaling. */
+    @Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
+    public static final ConfigOption<Boolean> USE_INGEST_DB_RESTORE_MODE =
+            ConfigOptions.key("state.backend.rocksdb.use-ingest-db-restore-mode")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "If set, rescaling from incremental checkpoints writes the key groups of the previous "
+                                    + "instances into SST files and ingests them into RocksDB, instead of inserting them "
+                                    + "through write batches.");
+
+    /** The number of threads that serve asynchronous state reads of all stateful operators. */
+    @Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
+    public static final ConfigOption<Integer> ASYNC_READ_THREAD_NUM =
+            ConfigOptions.key("state.backend.rocksdb.async-read.thread.num")
+                    .intType()
+                    .defaultValue(4)
+                    .withDescription(
+                            "The number of threads (per TaskManager) that look up values in RocksDB for operators "
+                                    + "that read state asynchronously. The thread pool is shared by all stateful operators "
+                                    + "of the TaskManager and is sized when the first operator reads asynchronously.");
+
     /** The predefined settings for RocksDB DBOptions and ColumnFamilyOptions by Flink community. */
     @Documentation.Section(Documentation.Sections.EXPERT_ROCKSDB)
     public static final ConfigOption<String> PREDEFINED_OPTIONS =
@@ -73,8 +73,12 @@ import java.util.Random;
 import java.util.UUID;
 
 import static org.apache.flink.contrib.streaming.state.RocksDBConfigurableOptions.WRITE_BATCH_SIZE;
+import static org.apache.flink.contrib.streaming.state.RocksDBOptions.ASYNC_READ_THREAD_NUM;
 import static org.apache.flink.contrib.streaming.state.RocksDBOptions.CHECKPOINT_TRANSFER_THREAD_NUM;
+import static org.apache.flink.contrib.streaming.state.RocksDBOptions.RESTORE_THREAD_NUM;
 import static org.apache.flink.contrib.streaming.state.RocksDBOptions.TIMER_SERVICE_FACTORY;
+import static org.apache.flink.contrib.streaming.state.RocksDBOptions.USE_INGEST_DB_RESTORE_MODE;
+import static org.apache.flink.contrib.streaming.state.RocksDBOptions.WRITE_BACK_CACHE_MAX_ENTRIES;
 import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
@@ -110,7 +114,10 @@ public class RocksDBStateBackend extends AbstractManagedMemoryStateBackend
     private static boolean rocksDbInitialized = false;
 
     private static final int UNDEFINED_NUMBER_OF_TRANSFER_THREADS = -1;
+    private static final int UNDEFINED_NUMBER_OF_RESTORE_THREADS = -1;
     private static final long UNDEFINED_WRITE_BATCH_SIZE = -1;
+    private static final int UNDEFINED_WRITE_BACK_CACHE_MAX_ENTRIES = -1;
+    private static final int UNDEFINED_NUMBER_OF_ASYNC_READ_THREADS = -1;
 
     // ------------------------------------------------------------------------
 
@@ -138,6 +145,12 @@ public class RocksDBStateBackend extends AbstractManagedMemoryStateBackend
     /** Thread number used to transfer (download and upload) state, default value: 1. */
     private int numberOfTransferThreads;
 
+    /** Thread number used to restore key-groups into RocksDB, default value: 1. */
+    private int numberOfRestoreThreads;
+
+    /** This determines if key-groups are ingested as SST files when rescaling. */
+    private TernaryBoolean useIngestDbRestoreMode;
+
     /** The configuration for memory settings (pool sizes, etc.). */
     private final RocksDBMemoryConfiguration memoryConfiguration;
 
@@ -167,6 +180,12 @@ public class RocksDBStateBackend extends AbstractManagedMemoryStateBackend
      */
     private long writeBatchSize;
 
+    /** Max number of values in the {@link RocksDBWriteBackCache}, 0 disables the cache. */
+    private int writeBackCacheMaxEntries;
+
+    /** The number of threads of the TaskManager-wide pool that serves asynchronous reads. */
+    private int numberOfAsyncReadThreads;
+
     // ------------------------------------------------------------------------
 
     /**
@@ -271,9 +290,13 @@ public class RocksDBStateBackend extends AbstractManagedMemoryStateBackend
         this.checkpointStreamBackend = checkNotNull(checkpointStreamBackend);
         this.enableIncrementalCheckpointing = enableIncrementalCheckpointing;
         this.numberOfTransferThreads = UNDEFINED_NUMBER_OF_TRANSFER_THREADS;
+        this.numberOfRestoreThreads = UNDEFINED_NUMBER_OF_RESTORE_THREADS;
+        this.useIngestDbRestoreMode = TernaryBoolean.UNDEFINED;
         this.defaultMetricOptions = new RocksDBNativeMetricOptions();
         this.memoryConfiguration = new RocksDBMemoryConfiguration();
         this.writeBatchSize = UNDEFINED_WRITE_BATCH_SIZE;
+        this.writeBackCacheMaxEntries = UNDEFINED_WRITE_BACK_CACHE_MAX_ENTRIES;
+        this.numberOfAsyncReadThreads = UNDEFINED_NUMBER_OF_ASYNC_READ_THREADS;
     }
 
     /** @deprecated Use {@link #RocksDBStateBackend(StateBackend)} instead. */
@@ -317,12 +340,34 @@ public class RocksDBStateBackend extends AbstractManagedMemoryStateBackend
             this.numberOfTransferThreads = original.numberOfTransferThreads;
         }
 
+        if (original.numberOfRestoreThreads == UNDEFINED_NUMBER_OF_RESTORE_THREADS) {
+            this.numberOfRestoreThreads = config.get(RESTORE_THREAD_NUM);
+        } else {
+            this.numberOfRestoreThreads = original.numberOfRestoreThreads;
+        }
+
+        this.useIngestDbRestoreMode =
+                original.useIngestDbRestoreMode.resolveUndefined(
+                        config.get(USE_INGEST_DB_RESTORE_MODE));
+
         if (original.writeBatchSize == UNDEFINED_WRITE_BATCH_SIZE) {
             this.writeBatchSize = config.get(WRITE_BATCH_SIZE).getBytes();
         } else {
             this.writeBatchSize = original.writeBatchSize;
         }
 
+        if (original.writeBackCacheMaxEntries == UNDEFINED_WRITE_BACK_CACHE_MAX_ENTRIES) {
+            this.writeBackCacheMaxEntries = config.get(WRITE_BACK_CACHE_MAX_ENTRIES);
+        } else {
+            this.writeBackCacheMaxEntries = original.writeBackCacheMaxEntries;
+        }
+
+        if (original.numberOfAsyncReadThreads == UNDEFINED_NUMBER_OF_ASYNC_READ_THREADS) {
+            this.numberOfAsyncReadThreads = config.get(ASYNC_READ_THREAD_NUM);
+        } else {
+            this.numberOfAsyncReadThreads = original.numberOfAsyncReadThreads;
+        }
+
         this.memoryConfiguration =
                 RocksDBMemoryConfiguration.fromOtherAndConfiguration(
                         original.memoryConfiguration, config);
@@ -581,9 +626,13 @@ public class RocksDBStateBackend extends AbstractManagedMemoryStateBackend
                                 cancelStreamRegistry)
                         .setEnableIncrementalCheckpointing(isIncrementalCheckpointsEnabled())
                         .setNumberOfTransferingThreads(getNumberOfTransferThreads())
+                        .setNumberOfRestoringThreads(getNumberOfRestoreThreads())
+                        .setUseIngestDbRestoreMode(isUseIngestDbRestoreMode())
                         .setNativeMetricOptions(
                                 resourceContainer.getMemoryWatcherOptions(defaultMetricOptions))
-                        .setWriteBatchSize(getWriteBatchSize());
+                        .setWriteBatchSize(getWriteBatchSize())
+                        .setWriteBackCacheMaxEntries(getWriteBackCacheMaxEntries())
+                        .setNumberOfAsyncReadThreads(getNumberOfAsyncReadThreads());
         return builder.build();
     }
 
@@ -886,6 +935,44 @@ public class RocksDBStateBackend extends AbstractManagedMemoryStateBackend
         this.numberOfTransferThreads = numberOfTransferThreads;
     }
 
+    /** Gets the number of threads used to restore key-groups into RocksDB. */
+    public int getNumberOfRestoreThreads() {
+        return numberOfRestoreThreads == UNDEFINED_NUMBER_OF_RESTORE_THREADS
+                ? RESTORE_THREAD_NUM.defaultValue()
+                : numberOfRestoreThreads;
+    }
+
+    /**
+     * Sets the number of threads used to restore key-groups into RocksDB, from full snapshots and
+     * when rescaling from incremental snapshots.
+     *
+     * @param numberOfRestoreThreads The number of threads used to restore key-groups.
+     */
+    public void setNumberOfRestoreThreads(int numberOfRestoreThreads) {
+        Preconditions.checkArgument(
+                numberOfRestoreThreads > 0,
+                "The number of threads used to restore key groups in RocksDBStateBackend should be greater than zero.");
+        this.numberOfRestoreThreads = numberOfRestoreThreads;
+    }
+
+    /**
+     * Gets whether key-groups are written into SST files and ingested into RocksDB when rescaling
+     * from incremental snapshots, instead of being inserted through write batches.
+     */
+    public boolean isUseIngestDbRestoreMode() {
+        return useIngestDbRestoreMode.getOrDefault(USE_INGEST_DB_RESTORE_MODE.defaultValue());
+    }
+
+    /**
+     * Sets whether key-groups are written into SST files and ingested into RocksDB when rescaling
+     * from incremental snapshots.
+     *
+     * @param useIngestDbRestoreMode True to ingest SST files, false to use write batches.
+     */
+    public void setUseIngestDbRestoreMode(boolean useIngestDbRestoreMode) {
+        this.useIngestDbRestoreMode = TernaryBoolean.fromBoolean(useIngestDbRestoreMode);
+    }
+
     /** @deprecated Typo in method name. Use {@link #getNumberOfTransferThreads} instead. */
     @Deprecated
     public int getNumberOfTransferingThreads() {
@@ -916,6 +1003,47 @@ public class RocksDBStateBackend extends AbstractManagedMemoryStateBackend
         this.writeBatchSize = writeBatchSize;
     }
 
+    /** Gets the max number of values in the {@link RocksDBWriteBackCache}. */
+    public int getWriteBackCacheMaxEntries() {
+        return writeBackCacheMaxEntries == UNDEFINED_WRITE_BACK_CACHE_MAX_ENTRIES
+                ? WRITE_BACK_CACHE_MAX_ENTRIES.defaultValue()
+                : writeBackCacheMaxEntries;
+    }
+
+    /**
+     * Sets the max number of deserialized values that are cached in front of RocksDB, 0 disables
+     * the cache.
+     *
+     * @param writeBackCacheMaxEntries The max number of values in the {@link
+     *     RocksDBWriteBackCache}.
+     */
+    public void setWriteBackCacheMaxEntries(int writeBackCacheMaxEntries) {
+        checkArgument(
+                writeBackCacheMaxEntries >= 0,
+                "Max entries of the write-back cache have to be no negative.");
+        this.writeBackCacheMaxEntries = writeBackCacheMaxEntries;
+    }
+
+    /** Gets the number of threads that serve asynchronous state reads in the TaskManager. */
+    public int getNumberOfAsyncReadThreads() {
+        return numberOfAsyncReadThreads == UNDEFINED_NUMBER_OF_ASYNC_READ_THREADS
+                ? ASYNC_READ_THREAD_NUM.defaultValue()
+                : numberOfAsyncReadThreads;
+    }
+
+    /**
+     * Sets the number of threads that serve asynchronous state reads. The thread pool is shared by
+     * all backends of a TaskManager and sized by the first backend that reads asynchronously.
+     *
+     * @param numberOfAsyncReadThreads The number of threads of the async read thread pool.
+     */
+    public void setNumberOfAsyncReadThreads(int numberOfAsyncReadThreads) {
+        checkArgument(
+                numberOfAsyncReadThreads > 0,
+                "The number of async read threads has to be positive.");
+        this.numberOfAsyncReadThreads = numberOfAsyncReadThreads;
+    }
+
     // ------------------------------------------------------------------------
     //  utilities
     // ------------------------------------------------------------------------
@@ -946,8 +1074,16 @@ public class RocksDBStateBackend extends AbstractManagedMemoryStateBackend
                 + enableIncrementalCheckpointing
                 + ", numberOfTransferThreads="
                 + numberOfTransferThreads
+                + ", numberOfRestoreThreads="
+                + numberOfRestoreThreads
+                + ", useIngestDbRestoreMode="
+                + useIngestDbRestoreMode
                 + ", writeBatchSize="
                 + writeBatchSize
+                + ", writeBackCacheMaxEntries="
+                + writeBackCacheMaxEntries
+                + ", numberOfAsyncReadThreads="
+                + numberOfAsyncReadThreads
                 + '}';
     }
 
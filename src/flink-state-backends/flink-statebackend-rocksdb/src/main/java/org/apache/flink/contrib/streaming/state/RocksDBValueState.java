@@ -30,11 +30,22 @@ import org.apache.flink.util.FlinkRuntimeException;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.RocksDBException;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 /**
  * {@link ValueState} implementation that stores state in RocksDB.
  *
+ * <p>If the backend has a {@link RocksDBWriteBackCache}, values are read and updated through the
+ * cache and only written to RocksDB when they are evicted or the cache is flushed.
+ *
  * @param <K> The type of the key.
  * @param <N> The type of the namespace.
  * @param <V> The type of value that the state state stores.
@@ -42,6 +53,9 @@ import java.io.IOException;
 class RocksDBValueState<K, N, V> extends AbstractRocksDBState<K, N, V>
         implements InternalValueState<K, N, V> {
 
+    /** The cache of the backend, null if values are read and written directly. */
+    @Nullable private final RocksDBWriteBackCache writeBackCache;
+
     /**
      * Creates a new {@code RocksDBValueState}.
      *
@@ -59,6 +73,7 @@ class RocksDBValueState<K, N, V> extends AbstractRocksDBState<K, N, V>
             RocksDBKeyedStateBackend<K> backend) {
 
         super(columnFamily, namespaceSerializer, valueSerializer, defaultValue, backend);
+        this.writeBackCache = backend.getWriteBackCache();
     }
 
     @Override
@@ -79,14 +94,26 @@ class RocksDBValueState<K, N, V> extends AbstractRocksDBState<K, N, V>
     @Override
     public V value() {
         try {
-            byte[] valueBytes =
-                    backend.db.get(columnFamily, serializeCurrentKeyWithGroupAndNamespace());
+            byte[] key = serializeCurrentKeyWithGroupAndNamespace();
 
-            if (valueBytes == null) {
-                return getDefaultValue();
+            if (writeBackCache == null) {
+                byte[] valueBytes = backend.db.get(columnFamily, key);
+
+                return valueBytes != null ? deserializeStoredValue(valueBytes) : getDefaultValue();
             }
-            dataInputView.setBuffer(valueBytes);
-            return valueSerializer.deserialize(dataInputView);
+
+            RocksDBWriteBackCache.Entry<V> entry = writeBackCache.get(columnFamily, key);
+            V value;
+            if (entry != null) {
+                value = entry.getValue();
+            } else {
+                byte[] valueBytes = backend.db.get(columnFamily, key);
+                value = valueBytes != null ? deserializeStoredValue(valueBytes) : null;
+                writeBackCache.load(columnFamily, key, value, this);
+            }
+
+            // hand out a copy, so that modifications are only visible after an update
+            return value != null ? valueSerializer.copy(value) : getDefaultValue();
         } catch (IOException | RocksDBException e) {
             throw new FlinkRuntimeException("Error while retrieving data from RocksDB.", e);
         }
@@ -100,6 +127,13 @@ class RocksDBValueState<K, N, V> extends AbstractRocksDBState<K, N, V>
         }
 
         try {
+            if (writeBackCache != null) {
+                // like on the heap backends, the value must not be modified after the update
+                writeBackCache.write(
+                        columnFamily, serializeCurrentKeyWithGroupAndNamespace(), value, this);
+                return;
+            }
+
             backend.db.put(
                     columnFamily,
                     writeOptions,
@@ -110,6 +144,72 @@ class RocksDBValueState<K, N, V> extends AbstractRocksDBState<K, N, V>
         }
     }
 
+    @Override
+    public void clear() {
+        if (writeBackCache == null) {
+            super.clear();
+            return;
+        }
+
+        try {
+            writeBackCache.write(
+                    columnFamily, serializeCurrentKeyWithGroupAndNamespace(), null, this);
+        } catch (IOException | RocksDBException e) {
+            throw new FlinkRuntimeException("Error while removing entry from RocksDB", e);
+        }
+    }
+
+    @Override
+    public Map<K, V> getAll(Collection<K> keys) {
+        if (writeBackCache == null || keys.isEmpty()) {
+            return super.getAll(keys);
+        }
+
+        try {
+            Map<K, V> result = new HashMap<>(keys.size());
+            List<K> missedKeys = new ArrayList<>();
+            List<byte[]> missedRawKeys = new ArrayList<>();
+
+            Iterator<byte[]> rawKeyIterator = serializeKeysWithGroupAndNamespace(keys).iterator();
+            for (K key : keys) {
+                byte[] rawKey = rawKeyIterator.next();
+                RocksDBWriteBackCache.Entry<V> entry = writeBackCache.get(columnFamily, rawKey);
+                if (entry == null) {
+                    missedKeys.add(key);
+                    missedRawKeys.add(rawKey);
+                } else if (entry.getValue() != null) {
+                    result.put(key, valueSerializer.copy(entry.getValue()));
+                }
+            }
+
+            if (!missedKeys.isEmpty()) {
+                Map<K, byte[]> serializedValues =
+                        multiGetSerializedValues(missedKeys, missedRawKeys);
+                Iterator<byte[]> missedRawKeyIterator = missedRawKeys.iterator();
+                for (K key : missedKeys) {
+                    byte[] valueBytes = serializedValues.get(key);
+                    V value = valueBytes != null ? deserializeStoredValue(valueBytes) : null;
+                    writeBackCache.load(columnFamily, missedRawKeyIterator.next(), value, this);
+                    if (value != null) {
+                        result.put(key, valueSerializer.copy(value));
+                    }
+                }
+            }
+            return result;
+        } catch (IOException | RocksDBException e) {
+            throw new FlinkRuntimeException("Error while retrieving data from RocksDB.", e);
+        }
+    }
+
+    /**
+     * Returns the entry of the write-back cache for the given composite key, or null if the key is
+     * not cached or the cache is disabled.
+     */
+    @Nullable
+    RocksDBWriteBackCache.Entry<V> getCachedEntry(byte[] rawKey) {
+        return writeBackCache != null ? writeBackCache.get(columnFamily, rawKey) : null;
+    }
+
     @SuppressWarnings("unchecked")
     static <K, N, SV, S extends State, IS extends S> IS create(
             StateDescriptor<S, SV> stateDesc,
@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.util.Preconditions;
+
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteOptions;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of deserialized state values in front of the RocksDB instance of a {@link
+ * RocksDBKeyedStateBackend}. Values are addressed by column family and serialized composite key,
+ * updates only mark the cached entry as dirty and are written back to RocksDB when the entry is
+ * evicted or when the cache is flushed, which the backend does before every snapshot and before
+ * iterating the content of a column family.
+ *
+ * <p>The cache holds at most a configured number of entries and evicts the least recently used
+ * entry first. Absent values are cached as {@code null}, a dirty {@code null} entry deletes the
+ * value from RocksDB when it is written back.
+ *
+ * <p>The hit, miss and flush counts are exposed as metrics next to the native RocksDB metrics.
+ *
+ * <p>IMPORTANT: This class is not thread safe.
+ */
+class RocksDBWriteBackCache {
+
+    static final String HITS_METRIC = "rocksdb.write-back-cache.hits";
+
+    static final String MISSES_METRIC = "rocksdb.write-back-cache.misses";
+
+    static final String FLUSHES_METRIC = "rocksdb.write-back-cache.flushes";
+
+    static final String SIZE_METRIC = "rocksdb.write-back-cache.size";
+
+    private final RocksDB db;
+
+    private final WriteOptions writeOptions;
+
+    /** The batch that dirty entries are written to when the whole cache is flushed. */
+    private final RocksDBWriteBatchWrapper writeBatchWrapper;
+
+    private final int maxEntries;
+
+    /** The cached entries, in access order. */
+    private final LinkedHashMap<CacheKey, Entry<?>> entries;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    /** Counts the dirty entries that were written back to RocksDB. */
+    private final Counter flushes;
+
+    RocksDBWriteBackCache(
+            @Nonnull RocksDB db,
+            @Nonnull WriteOptions writeOptions,
+            @Nonnull RocksDBWriteBatchWrapper writeBatchWrapper,
+            int maxEntries,
+            @Nonnull MetricGroup metricGroup) {
+        Preconditions.checkArgument(
+                maxEntries > 0, "The maximum number of cached entries must be positive.");
+        this.db = db;
+        this.writeOptions = writeOptions;
+        this.writeBatchWrapper = writeBatchWrapper;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        this.hits = metricGroup.counter(HITS_METRIC, new SimpleCounter());
+        this.misses = metricGroup.counter(MISSES_METRIC, new SimpleCounter());
+        this.flushes = metricGroup.counter(FLUSHES_METRIC, new SimpleCounter());
+        metricGroup.gauge(SIZE_METRIC, (Gauge<Integer>) entries::size);
+    }
+
+    /**
+     * Returns the cached entry for the given key, or {@code null} if the value of the key is not
+     * cached and has to be read from RocksDB.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    <V> Entry<V> get(ColumnFamilyHandle columnFamily, byte[] key) {
+        Entry<V> entry = (Entry<V>) entries.get(new CacheKey(columnFamily, key));
+        if (entry != null) {
+            hits.inc();
+        } else {
+            misses.inc();
+        }
+        return entry;
+    }
+
+    /** Caches a value that was read from RocksDB, {@code null} if the key has no value. */
+    <V> void load(
+            ColumnFamilyHandle columnFamily,
+            byte[] key,
+            @Nullable V value,
+            AbstractRocksDBState<?, ?, V> owner)
+            throws IOException, RocksDBException {
+        put(columnFamily, key, value, owner, false);
+    }
+
+    /**
+     * Caches a new value for the given key that is written back to RocksDB later, {@code null}
+     * removes the value of the key.
+     */
+    <V> void write(
+            ColumnFamilyHandle columnFamily,
+            byte[] key,
+            @Nullable V value,
+            AbstractRocksDBState<?, ?, V> owner)
+            throws IOException, RocksDBException {
+        put(columnFamily, key, value, owner, true);
+    }
+
+    private <V> void put(
+            ColumnFamilyHandle columnFamily,
+            byte[] key,
+            @Nullable V value,
+            AbstractRocksDBState<?, ?, V> owner,
+            boolean dirty)
+            throws IOException, RocksDBException {
+        entries.put(new CacheKey(columnFamily, key), new Entry<>(value, owner, dirty));
+        evictIfNecessary();
+    }
+
+    /**
+     * Evicts the least recently used entries until the cache is within its bounds. Evicted dirty
+     * entries are written to RocksDB directly, so that a following miss reads them back.
+     */
+    private void evictIfNecessary() throws IOException, RocksDBException {
+        Iterator<Map.Entry<CacheKey, Entry<?>>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxEntries) {
+            Map.Entry<CacheKey, Entry<?>> eldest = iterator.next();
+            iterator.remove();
+
+            CacheKey cacheKey = eldest.getKey();
+            Entry<?> entry = eldest.getValue();
+            if (entry.dirty) {
+                if (entry.value == null) {
+                    db.delete(cacheKey.columnFamily, writeOptions, cacheKey.key);
+                } else {
+                    db.put(
+                            cacheKey.columnFamily,
+                            writeOptions,
+                            cacheKey.key,
+                            entry.serializeValue());
+                }
+                flushes.inc();
+            }
+        }
+    }
+
+    /** Writes all dirty entries back to RocksDB. The entries stay cached. */
+    void flush() throws IOException, RocksDBException {
+        for (Map.Entry<CacheKey, Entry<?>> cached : entries.entrySet()) {
+            Entry<?> entry = cached.getValue();
+            if (entry.dirty) {
+                CacheKey cacheKey = cached.getKey();
+                if (entry.value == null) {
+                    writeBatchWrapper.remove(cacheKey.columnFamily, cacheKey.key);
+                } else {
+                    writeBatchWrapper.put(
+                            cacheKey.columnFamily, cacheKey.key, entry.serializeValue());
+                }
+                entry.dirty = false;
+                flushes.inc();
+            }
+        }
+        writeBatchWrapper.flush();
+    }
+
+    /** Drops all entries without writing them back. */
+    void clear() {
+        entries.clear();
+    }
+
+    @VisibleForTesting
+    int size() {
+        return entries.size();
+    }
+
+    // ------------------------------------------------------------------------
+
+    /** A cached value and the state that it belongs to, which serializes it on write back. */
+    static final class Entry<V> {
+
+        @Nullable private final V value;
+
+        private final AbstractRocksDBState<?, ?, V> owner;
+
+        private boolean dirty;
+
+        private Entry(@Nullable V value, AbstractRocksDBState<?, ?, V> owner, boolean dirty) {
+            this.value = value;
+            this.owner = owner;
+            this.dirty = dirty;
+        }
+
+        @Nullable
+        V getValue() {
+            return value;
+        }
+
+        private byte[] serializeValue() throws IOException {
+            return owner.serializeValue(value);
+        }
+    }
+
+    /** The column family and serialized composite key that address a cached value. */
+    private static final class CacheKey {
+
+        private final ColumnFamilyHandle columnFamily;
+
+        private final byte[] key;
+
+        private final int hash;
+
+        private CacheKey(ColumnFamilyHandle columnFamily, byte[] key) {
+            this.columnFamily = columnFamily;
+            this.key = key;
+            this.hash = 31 * System.identityHashCode(columnFamily) + Arrays.hashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey that = (CacheKey) o;
+            return columnFamily == that.columnFamily && Arrays.equals(key, that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
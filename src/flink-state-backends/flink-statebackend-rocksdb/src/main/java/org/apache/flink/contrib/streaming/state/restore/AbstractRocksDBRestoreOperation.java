@@ -27,6 +27,7 @@ import org.apache.flink.contrib.streaming.state.RocksDBOperationUtils;
 import org.apache.flink.contrib.streaming.state.ttl.RocksDbTtlCompactFiltersManager;
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.metrics.Gauge;
 import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KeyedBackendSerializationProxy;
@@ -54,6 +55,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
@@ -65,6 +68,20 @@ public abstract class AbstractRocksDBRestoreOperation<K>
         implements RocksDBRestoreOperation, AutoCloseable {
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
+    /** Prefix of the metrics for the durations of the restore phases. */
+    static final String RESTORE_METRIC_PREFIX = "rocksdb.restore.";
+
+    /** The whole restore operation. */
+    static final String TOTAL_PHASE = "total";
+    /** Transferring the files of a remote state handle to local disk. */
+    static final String DOWNLOAD_PHASE = "download";
+    /** Restoring and clipping the initial instance when rescaling. */
+    static final String INITIAL_DB_PHASE = "initial-db";
+    /** Copying or exporting the key-groups of the other instances when rescaling. */
+    static final String RESCALE_PHASE = "rescale";
+    /** Ingesting exported SST files. */
+    static final String INGEST_PHASE = "ingest";
+
     protected final KeyGroupRange keyGroupRange;
     protected final int keyGroupPrefixBytes;
     protected final int numberOfTransferringThreads;
@@ -102,6 +119,9 @@ public abstract class AbstractRocksDBRestoreOperation<K>
     protected boolean isKeySerializerCompatibilityChecked;
     protected final Long writeBufferManagerCapacity;
 
+    /** The durations of the restore phases in milliseconds, by phase. */
+    private final Map<String, Long> phaseDurations = new ConcurrentHashMap<>();
+
     protected AbstractRocksDBRestoreOperation(
             KeyGroupRange keyGroupRange,
             int keyGroupPrefixBytes,
@@ -158,6 +178,24 @@ public abstract class AbstractRocksDBRestoreOperation<K>
                         : null;
     }
 
+    /**
+     * Adds the time since the given start to the duration of a restore phase. The duration of each
+     * phase is exposed as a gauge {@code rocksdb.restore.<phase>-duration} in milliseconds.
+     *
+     * @param phase The restore phase.
+     * @param startNanos The start of the phase, as given by {@link System#nanoTime()}.
+     */
+    void reportPhaseDuration(String phase, long startNanos) {
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (phaseDurations.put(phase, phaseDurations.getOrDefault(phase, 0L) + durationMillis)
+                == null) {
+            metricGroup.gauge(
+                    RESTORE_METRIC_PREFIX + phase + "-duration",
+                    (Gauge<Long>) () -> phaseDurations.get(phase));
+        }
+        logger.debug("Restore phase {} took {} ms.", phase, durationMillis);
+    }
+
     public RocksDB getDb() {
         return this.db;
     }
@@ -26,10 +26,10 @@ import org.apache.flink.contrib.streaming.state.RocksDBWriteBatchWrapper;
 import org.apache.flink.contrib.streaming.state.ttl.RocksDbTtlCompactFiltersManager;
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.core.fs.FSDataInputStream;
-import org.apache.flink.core.memory.DataInputView;
 import org.apache.flink.core.memory.DataInputViewStreamWrapper;
 import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeOffsets;
 import org.apache.flink.runtime.state.KeyGroupsStateHandle;
 import org.apache.flink.runtime.state.KeyedBackendSerializationProxy;
 import org.apache.flink.runtime.state.KeyedStateHandle;
@@ -42,6 +42,7 @@ import org.apache.flink.runtime.state.metainfo.StateMetaInfoSnapshot.BackendStat
 import org.apache.flink.util.IOUtils;
 import org.apache.flink.util.Preconditions;
 import org.apache.flink.util.StateMigrationException;
+import org.apache.flink.util.function.ThrowingRunnable;
 
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ColumnFamilyOptions;
@@ -66,30 +67,23 @@ import static org.apache.flink.contrib.streaming.state.snapshot.RocksSnapshotUti
 import static org.apache.flink.runtime.state.StateUtil.unexpectedStateHandleException;
 import static org.apache.flink.util.Preconditions.checkArgument;
 
-/** Encapsulates the process of restoring a RocksDB instance from a full snapshot. */
+/**
+ * Encapsulates the process of restoring a RocksDB instance from a full snapshot.
+ *
+ * <p>The key-groups of each state handle are restored by a configurable number of threads, each of
+ * which reads a disjoint range of key-groups through its own input stream and writes it to RocksDB
+ * through its own {@link RocksDBWriteBatchWrapper}.
+ */
 public class RocksDBFullRestoreOperation<K> extends AbstractRocksDBRestoreOperation<K> {
-    /** Current key-groups state handle from which we restore key-groups. */
-    private KeyGroupsStateHandle currentKeyGroupsStateHandle;
-    /** Current input stream we obtained from currentKeyGroupsStateHandle. */
-    private FSDataInputStream currentStateHandleInStream;
-    /** Current data input view that wraps currentStateHandleInStream. */
-    private DataInputView currentStateHandleInView;
-    /**
-     * Current list of ColumnFamilyHandles for all column families we restore from
-     * currentKeyGroupsStateHandle.
-     */
-    private List<ColumnFamilyHandle> currentStateHandleKVStateColumnFamilies;
-    /**
-     * The compression decorator that was used for writing the state, as determined by the meta
-     * data.
-     */
-    private StreamCompressionDecorator keygroupStreamCompressionDecorator;
 
     /** Write batch size used in {@link RocksDBWriteBatchWrapper}. */
     private final long writeBatchSize;
 
     private final PriorityQueueFlag queueRestoreEnabled;
 
+    /** The number of threads that restore the key-groups of a state handle. */
+    private final int numberOfRestoringThreads;
+
     public RocksDBFullRestoreOperation(
             KeyGroupRange keyGroupRange,
             int keyGroupPrefixBytes,
@@ -108,7 +102,8 @@ public class RocksDBFullRestoreOperation<K> extends AbstractRocksDBRestoreOperat
             @Nonnull RocksDbTtlCompactFiltersManager ttlCompactFiltersManager,
             @Nonnegative long writeBatchSize,
             Long writeBufferManagerCapacity,
-            PriorityQueueFlag queueRestoreEnabled) {
+            PriorityQueueFlag queueRestoreEnabled,
+            int numberOfRestoringThreads) {
         super(
                 keyGroupRange,
                 keyGroupPrefixBytes,
@@ -127,88 +122,117 @@ public class RocksDBFullRestoreOperation<K> extends AbstractRocksDBRestoreOperat
                 ttlCompactFiltersManager,
                 writeBufferManagerCapacity);
         checkArgument(writeBatchSize >= 0, "Write batch size have to be no negative.");
+        checkArgument(
+                numberOfRestoringThreads > 0, "The number of restoring threads must be positive.");
         this.writeBatchSize = writeBatchSize;
         this.queueRestoreEnabled = queueRestoreEnabled;
+        this.numberOfRestoringThreads = numberOfRestoringThreads;
     }
 
     /** Restores all key-groups data that is referenced by the passed state handles. */
     @Override
-    public RocksDBRestoreResult restore()
-            throws IOException, StateMigrationException, RocksDBException {
+    public RocksDBRestoreResult restore() throws Exception {
+        long restoreStartNanos = System.nanoTime();
         openDB();
-        for (KeyedStateHandle keyedStateHandle : restoreStateHandles) {
-            if (keyedStateHandle != null) {
+        try (RocksDBRestoreTaskExecutor restoreTaskExecutor =
+                new RocksDBRestoreTaskExecutor(numberOfRestoringThreads)) {
+            for (KeyedStateHandle keyedStateHandle : restoreStateHandles) {
+                if (keyedStateHandle != null) {
 
-                if (!(keyedStateHandle instanceof KeyGroupsStateHandle)) {
-                    throw unexpectedStateHandleException(
-                            KeyGroupsStateHandle.class, keyedStateHandle.getClass());
+                    if (!(keyedStateHandle instanceof KeyGroupsStateHandle)) {
+                        throw unexpectedStateHandleException(
+                                KeyGroupsStateHandle.class, keyedStateHandle.getClass());
+                    }
+                    restoreKeyGroupsInStateHandle(
+                            (KeyGroupsStateHandle) keyedStateHandle, restoreTaskExecutor);
                 }
-                this.currentKeyGroupsStateHandle = (KeyGroupsStateHandle) keyedStateHandle;
-                restoreKeyGroupsInStateHandle();
             }
         }
+        reportPhaseDuration(TOTAL_PHASE, restoreStartNanos);
         return new RocksDBRestoreResult(
                 this.db, defaultColumnFamilyHandle, nativeMetricMonitor, -1, null, null);
     }
 
     /** Restore one key groups state handle. */
-    private void restoreKeyGroupsInStateHandle()
-            throws IOException, StateMigrationException, RocksDBException {
-        try {
-            logger.info("Starting to restore from state handle: {}.", currentKeyGroupsStateHandle);
-            currentStateHandleInStream = currentKeyGroupsStateHandle.openInputStream();
-            cancelStreamRegistry.registerCloseable(currentStateHandleInStream);
-            currentStateHandleInView = new DataInputViewStreamWrapper(currentStateHandleInStream);
-            restoreKVStateMetaData();
-            restoreKVStateData();
-            logger.info("Finished restoring from state handle: {}.", currentKeyGroupsStateHandle);
-        } finally {
-            if (cancelStreamRegistry.unregisterCloseable(currentStateHandleInStream)) {
-                IOUtils.closeQuietly(currentStateHandleInStream);
-            }
+    private void restoreKeyGroupsInStateHandle(
+            KeyGroupsStateHandle keyGroupsStateHandle,
+            RocksDBRestoreTaskExecutor restoreTaskExecutor)
+            throws Exception {
+        logger.info("Starting to restore from state handle: {}.", keyGroupsStateHandle);
+        KeyGroupsRestoreMetaData restoreMetaData = restoreKVStateMetaData(keyGroupsStateHandle);
+
+        List<ThrowingRunnable<Exception>> restoreTasks = new ArrayList<>();
+        for (KeyGroupRange keyGroupSubRange :
+                splitKeyGroupRange(
+                        keyGroupsStateHandle.getKeyGroupRange(), numberOfRestoringThreads)) {
+            KeyGroupRangeOffsets keyGroupOffsets =
+                    keyGroupsStateHandle.getGroupRangeOffsets().getIntersection(keyGroupSubRange);
+            restoreTasks.add(
+                    () -> restoreKVStateData(keyGroupsStateHandle, keyGroupOffsets, restoreMetaData));
         }
+        restoreTaskExecutor.runAll(restoreTasks);
+        logger.info("Finished restoring from state handle: {}.", keyGroupsStateHandle);
     }
 
     /**
-     * Restore the KV-state / ColumnFamily meta data for all key-groups referenced by the current
+     * Restore the KV-state / ColumnFamily meta data for all key-groups referenced by the given
      * state handle.
      */
-    private void restoreKVStateMetaData() throws IOException, StateMigrationException {
-        KeyedBackendSerializationProxy<K> serializationProxy =
-                readMetaData(currentStateHandleInView);
+    private KeyGroupsRestoreMetaData restoreKVStateMetaData(
+            KeyGroupsStateHandle keyGroupsStateHandle)
+            throws IOException, StateMigrationException {
+        FSDataInputStream stateHandleInStream = keyGroupsStateHandle.openInputStream();
+        cancelStreamRegistry.registerCloseable(stateHandleInStream);
+        try {
+            KeyedBackendSerializationProxy<K> serializationProxy =
+                    readMetaData(new DataInputViewStreamWrapper(stateHandleInStream));
+
+            StreamCompressionDecorator keygroupStreamCompressionDecorator =
+                    serializationProxy.isUsingKeyGroupCompression()
+                            ? SnappyStreamCompressionDecorator.INSTANCE
+                            : UncompressedStreamCompressionDecorator.INSTANCE;
 
-        this.keygroupStreamCompressionDecorator =
-                serializationProxy.isUsingKeyGroupCompression()
-                        ? SnappyStreamCompressionDecorator.INSTANCE
-                        : UncompressedStreamCompressionDecorator.INSTANCE;
+            List<StateMetaInfoSnapshot> restoredMetaInfos =
+                    serializationProxy.getStateMetaInfoSnapshots();
+            List<ColumnFamilyHandle> kvStateColumnFamilies =
+                    new ArrayList<>(restoredMetaInfos.size());
 
-        List<StateMetaInfoSnapshot> restoredMetaInfos =
-                serializationProxy.getStateMetaInfoSnapshots();
-        currentStateHandleKVStateColumnFamilies = new ArrayList<>(restoredMetaInfos.size());
+            for (StateMetaInfoSnapshot restoredMetaInfo : restoredMetaInfos) {
+                if (restoredMetaInfo.getBackendStateType() == BackendStateType.PRIORITY_QUEUE
+                        && queueRestoreEnabled == PriorityQueueFlag.THROW_ON_PRIORITY_QUEUE) {
+                    throw new StateMigrationException(
+                            "Can not restore savepoint taken with RocksDB timers enabled with Heap timers!");
+                }
 
-        for (StateMetaInfoSnapshot restoredMetaInfo : restoredMetaInfos) {
-            if (restoredMetaInfo.getBackendStateType() == BackendStateType.PRIORITY_QUEUE
-                    && queueRestoreEnabled == PriorityQueueFlag.THROW_ON_PRIORITY_QUEUE) {
-                throw new StateMigrationException(
-                        "Can not restore savepoint taken with RocksDB timers enabled with Heap timers!");
+                RocksDbKvStateInfo registeredStateCFHandle =
+                        getOrRegisterStateColumnFamilyHandle(null, restoredMetaInfo);
+                kvStateColumnFamilies.add(registeredStateCFHandle.columnFamilyHandle);
             }
 
-            RocksDbKvStateInfo registeredStateCFHandle =
-                    getOrRegisterStateColumnFamilyHandle(null, restoredMetaInfo);
-            currentStateHandleKVStateColumnFamilies.add(registeredStateCFHandle.columnFamilyHandle);
+            return new KeyGroupsRestoreMetaData(
+                    kvStateColumnFamilies, keygroupStreamCompressionDecorator);
+        } finally {
+            if (cancelStreamRegistry.unregisterCloseable(stateHandleInStream)) {
+                IOUtils.closeQuietly(stateHandleInStream);
+            }
         }
     }
 
     /**
-     * Restore the KV-state / ColumnFamily data for all key-groups referenced by the current state
-     * handle.
+     * Restore the KV-state / ColumnFamily data for the given key-groups of the given state handle.
+     * This may run concurrently for disjoint key-groups of the same state handle.
      */
-    private void restoreKVStateData() throws IOException, RocksDBException {
+    private void restoreKVStateData(
+            KeyGroupsStateHandle keyGroupsStateHandle,
+            KeyGroupRangeOffsets keyGroupOffsets,
+            KeyGroupsRestoreMetaData restoreMetaData)
+            throws IOException, RocksDBException {
+        FSDataInputStream stateHandleInStream = keyGroupsStateHandle.openInputStream();
+        cancelStreamRegistry.registerCloseable(stateHandleInStream);
         // for all key-groups in the current state handle...
         try (RocksDBWriteBatchWrapper writeBatchWrapper =
                 new RocksDBWriteBatchWrapper(db, writeBatchSize)) {
-            for (Tuple2<Integer, Long> keyGroupOffset :
-                    currentKeyGroupsStateHandle.getGroupRangeOffsets()) {
+            for (Tuple2<Integer, Long> keyGroupOffset : keyGroupOffsets) {
                 int keyGroup = keyGroupOffset.f0;
 
                 // Check that restored key groups all belong to the backend
@@ -219,17 +243,16 @@ public class RocksDBFullRestoreOperation<K> extends AbstractRocksDBRestoreOperat
                 long offset = keyGroupOffset.f1;
                 // not empty key-group?
                 if (0L != offset) {
-                    currentStateHandleInStream.seek(offset);
+                    stateHandleInStream.seek(offset);
                     try (InputStream compressedKgIn =
-                            keygroupStreamCompressionDecorator.decorateWithCompression(
-                                    currentStateHandleInStream)) {
+                            restoreMetaData.compressionDecorator.decorateWithCompression(
+                                    stateHandleInStream)) {
                         DataInputViewStreamWrapper compressedKgInputView =
                                 new DataInputViewStreamWrapper(compressedKgIn);
                         // TODO this could be aware of keyGroupPrefixBytes and write only one byte
                         // if possible
                         int kvStateId = compressedKgInputView.readShort();
-                        ColumnFamilyHandle handle =
-                                currentStateHandleKVStateColumnFamilies.get(kvStateId);
+                        ColumnFamilyHandle handle = restoreMetaData.columnFamilies.get(kvStateId);
                         // insert all k/v pairs into DB
                         boolean keyGroupHasMoreKeys = true;
                         while (keyGroupHasMoreKeys) {
@@ -251,7 +274,7 @@ public class RocksDBFullRestoreOperation<K> extends AbstractRocksDBRestoreOperat
                                 if (END_OF_KEY_GROUP_MARK == kvStateId) {
                                     keyGroupHasMoreKeys = false;
                                 } else {
-                                    handle = currentStateHandleKVStateColumnFamilies.get(kvStateId);
+                                    handle = restoreMetaData.columnFamilies.get(kvStateId);
                                 }
                             } else {
                                 writeBatchWrapper.put(handle, key, value);
@@ -260,6 +283,43 @@ public class RocksDBFullRestoreOperation<K> extends AbstractRocksDBRestoreOperat
                     }
                 }
             }
+        } finally {
+            if (cancelStreamRegistry.unregisterCloseable(stateHandleInStream)) {
+                IOUtils.closeQuietly(stateHandleInStream);
+            }
+        }
+    }
+
+    /** Splits the given key-group range into at most the given number of contiguous ranges. */
+    static List<KeyGroupRange> splitKeyGroupRange(KeyGroupRange range, int maxNumberOfRanges) {
+        int numberOfKeyGroups = range.getNumberOfKeyGroups();
+        int numberOfRanges = Math.max(1, Math.min(maxNumberOfRanges, numberOfKeyGroups));
+        List<KeyGroupRange> ranges = new ArrayList<>(numberOfRanges);
+        for (int i = 0; i < numberOfRanges; i++) {
+            int start = range.getStartKeyGroup() + i * numberOfKeyGroups / numberOfRanges;
+            int end = range.getStartKeyGroup() + (i + 1) * numberOfKeyGroups / numberOfRanges - 1;
+            ranges.add(KeyGroupRange.of(start, end));
+        }
+        return ranges;
+    }
+
+    /** The column families and the compression of the key-groups of one state handle. */
+    private static final class KeyGroupsRestoreMetaData {
+
+        /** The column families of the k/v states, by the state ids used in the snapshot. */
+        private final List<ColumnFamilyHandle> columnFamilies;
+
+        /**
+         * The compression decorator that was used for writing the state, as determined by the
+         * meta data.
+         */
+        private final StreamCompressionDecorator compressionDecorator;
+
+        private KeyGroupsRestoreMetaData(
+                List<ColumnFamilyHandle> columnFamilies,
+                StreamCompressionDecorator compressionDecorator) {
+            this.columnFamilies = columnFamilies;
+            this.compressionDecorator = compressionDecorator;
         }
     }
 }
@@ -47,17 +47,23 @@ import org.apache.flink.runtime.state.metainfo.StateMetaInfoSnapshot;
 import org.apache.flink.util.FileUtils;
 import org.apache.flink.util.IOUtils;
 import org.apache.flink.util.StateMigrationException;
+import org.apache.flink.util.function.ThrowingRunnable;
 
 import org.rocksdb.ColumnFamilyDescriptor;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ColumnFamilyOptions;
 import org.rocksdb.DBOptions;
+import org.rocksdb.EnvOptions;
+import org.rocksdb.IngestExternalFileOptions;
+import org.rocksdb.Options;
 import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
+import org.rocksdb.SstFileWriter;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import java.io.File;
 import java.io.IOException;
@@ -68,6 +74,8 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -81,7 +89,15 @@ import static org.apache.flink.contrib.streaming.state.snapshot.RocksSnapshotUti
 import static org.apache.flink.runtime.state.StateUtil.unexpectedStateHandleException;
 import static org.apache.flink.util.Preconditions.checkArgument;
 
-/** Encapsulates the process of restoring a RocksDB instance from an incremental snapshot. */
+/**
+ * Encapsulates the process of restoring a RocksDB instance from an incremental snapshot.
+ *
+ * <p>When rescaling, the state handles whose key-groups are copied into the initial instance are
+ * restored by a configurable number of threads. Each thread downloads and opens the temporary
+ * instance of one state handle and either copies its key-groups through a {@link
+ * RocksDBWriteBatchWrapper} or, in the ingest restore mode, exports them into SST files that are
+ * ingested into the restored instance once all state handles are processed.
+ */
 public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestoreOperation<K> {
 
     private final String operatorIdentifier;
@@ -91,6 +107,12 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
     private UUID backendUID;
     private final long writeBatchSize;
 
+    /** The number of threads that restore the key-groups of state handles when rescaling. */
+    private final int numberOfRestoringThreads;
+
+    /** True if key-groups are ingested as SST files instead of copied when rescaling. */
+    private final boolean useIngestDbRestoreMode;
+
     public RocksDBIncrementalRestoreOperation(
             String operatorIdentifier,
             KeyGroupRange keyGroupRange,
@@ -110,7 +132,9 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
             @Nonnull RocksDbTtlCompactFiltersManager ttlCompactFiltersManager,
             @Nonnegative long writeBatchSize,
             Long writeBufferManagerCapacity,
-            PriorityQueueFlag queueRestoreEnabled) {
+            PriorityQueueFlag queueRestoreEnabled,
+            int numberOfRestoringThreads,
+            boolean useIngestDbRestoreMode) {
         super(
                 keyGroupRange,
                 keyGroupPrefixBytes,
@@ -134,7 +158,11 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
         this.backendUID = UUID.randomUUID();
         this.queueRestoreEnabled = queueRestoreEnabled;
         checkArgument(writeBatchSize >= 0, "Write batch size have to be no negative.");
+        checkArgument(
+                numberOfRestoringThreads > 0, "The number of restoring threads must be positive.");
         this.writeBatchSize = writeBatchSize;
+        this.numberOfRestoringThreads = numberOfRestoringThreads;
+        this.useIngestDbRestoreMode = useIngestDbRestoreMode;
     }
 
     /** Root method that branches for different implementations of {@link KeyedStateHandle}. */
@@ -145,6 +173,8 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
             return null;
         }
 
+        long restoreStartNanos = System.nanoTime();
+
         final KeyedStateHandle theFirstStateHandle = restoreStateHandles.iterator().next();
 
         boolean isRescaling =
@@ -156,6 +186,7 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
         } else {
             restoreWithoutRescaling(theFirstStateHandle);
         }
+        reportPhaseDuration(TOTAL_PHASE, restoreStartNanos);
         return new RocksDBRestoreResult(
                 this.db,
                 defaultColumnFamilyHandle,
@@ -251,11 +282,13 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
             Path temporaryRestoreInstancePath, IncrementalRemoteKeyedStateHandle restoreStateHandle)
             throws Exception {
 
+        long downloadStartNanos = System.nanoTime();
         try (RocksDBStateDownloader rocksDBStateDownloader =
                 new RocksDBStateDownloader(numberOfTransferringThreads)) {
             rocksDBStateDownloader.transferAllStateDataToDirectory(
                     restoreStateHandle, temporaryRestoreInstancePath, cancelStreamRegistry);
         }
+        reportPhaseDuration(DOWNLOAD_PHASE, downloadStartNanos);
 
         // since we transferred all remote state to a local directory, we can use the same code as
         // for
@@ -288,7 +321,8 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
     /**
      * Recovery from multi incremental states with rescaling. For rescaling, this method creates a
      * temporary RocksDB instance for a key-groups shard. All contents from the temporary instance
-     * are copied into the real restore instance and then the temporary instance is discarded.
+     * are copied (or exported and ingested) into the real restore instance and then the temporary
+     * instance is discarded.
      */
     private void restoreWithRescaling(Collection<KeyedStateHandle> restoreStateHandles)
             throws Exception {
@@ -299,12 +333,14 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
                         restoreStateHandles, keyGroupRange);
 
         // Init base DB instance
+        long initialDbStartNanos = System.nanoTime();
         if (initialHandle != null) {
             restoreStateHandles.remove(initialHandle);
             initDBWithRescaling(initialHandle);
         } else {
             openDB();
         }
+        reportPhaseDuration(INITIAL_DB_PHASE, initialDbStartNanos);
 
         // Transfer remaining key-groups from temporary instance into base DB
         byte[] startKeyGroupPrefixBytes = new byte[keyGroupPrefixBytes];
@@ -315,73 +351,250 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
         RocksDBKeySerializationUtils.serializeKeyGroup(
                 keyGroupRange.getEndKeyGroup() + 1, stopKeyGroupPrefixBytes);
 
-        for (KeyedStateHandle rawStateHandle : restoreStateHandles) {
+        final Path exportPath =
+                useIngestDbRestoreMode
+                        ? instanceBasePath
+                                .getAbsoluteFile()
+                                .toPath()
+                                .resolve(UUID.randomUUID().toString())
+                        : null;
+        List<RescalingStateHandle> rescalingStateHandles =
+                new ArrayList<>(restoreStateHandles.size());
+        try {
+            // the meta data is read and the column families are registered up front, because
+            // neither can be done concurrently
+            for (KeyedStateHandle rawStateHandle : restoreStateHandles) {
 
-            if (!(rawStateHandle instanceof IncrementalRemoteKeyedStateHandle)) {
-                throw unexpectedStateHandleException(
-                        IncrementalRemoteKeyedStateHandle.class, rawStateHandle.getClass());
+                if (!(rawStateHandle instanceof IncrementalRemoteKeyedStateHandle)) {
+                    throw unexpectedStateHandleException(
+                            IncrementalRemoteKeyedStateHandle.class, rawStateHandle.getClass());
+                }
+
+                rescalingStateHandles.add(
+                        prepareRescalingStateHandle(
+                                (IncrementalRemoteKeyedStateHandle) rawStateHandle));
             }
 
-            logger.info(
-                    "Starting to restore from state handle: {} with rescaling.", rawStateHandle);
-            Path temporaryRestoreInstancePath =
-                    instanceBasePath
-                            .getAbsoluteFile()
-                            .toPath()
-                            .resolve(UUID.randomUUID().toString());
-            try (RestoredDBInstance tmpRestoreDBInfo =
-                            restoreDBInstanceFromStateHandle(
-                                    (IncrementalRemoteKeyedStateHandle) rawStateHandle,
-                                    temporaryRestoreInstancePath);
-                    RocksDBWriteBatchWrapper writeBatchWrapper =
-                            new RocksDBWriteBatchWrapper(this.db, writeBatchSize)) {
-
-                List<ColumnFamilyDescriptor> tmpColumnFamilyDescriptors =
-                        tmpRestoreDBInfo.columnFamilyDescriptors;
-                List<ColumnFamilyHandle> tmpColumnFamilyHandles =
-                        tmpRestoreDBInfo.columnFamilyHandles;
-
-                // iterating only the requested descriptors automatically skips the default column
-                // family handle
-                for (int i = 0; i < tmpColumnFamilyDescriptors.size(); ++i) {
-                    ColumnFamilyHandle tmpColumnFamilyHandle = tmpColumnFamilyHandles.get(i);
-
-                    ColumnFamilyHandle targetColumnFamilyHandle =
-                            getOrRegisterStateColumnFamilyHandle(
-                                            null, tmpRestoreDBInfo.stateMetaInfoSnapshots.get(i))
-                                    .columnFamilyHandle;
-
-                    try (RocksIteratorWrapper iterator =
-                            RocksDBOperationUtils.getRocksIterator(
-                                    tmpRestoreDBInfo.db,
-                                    tmpColumnFamilyHandle,
-                                    tmpRestoreDBInfo.readOptions)) {
-
-                        iterator.seek(startKeyGroupPrefixBytes);
-
-                        while (iterator.isValid()) {
-
-                            if (RocksDBIncrementalCheckpointUtils.beforeThePrefixBytes(
-                                    iterator.key(), stopKeyGroupPrefixBytes)) {
-                                writeBatchWrapper.put(
-                                        targetColumnFamilyHandle, iterator.key(), iterator.value());
-                            } else {
-                                // Since the iterator will visit the record according to the sorted
-                                // order,
-                                // we can just break here.
-                                break;
-                            }
-
-                            iterator.next();
-                        }
-                    } // releases native iterator resources
+            if (exportPath != null) {
+                Files.createDirectories(exportPath);
+            }
+
+            long rescaleStartNanos = System.nanoTime();
+            try (RocksDBRestoreTaskExecutor restoreTaskExecutor =
+                    new RocksDBRestoreTaskExecutor(numberOfRestoringThreads)) {
+                List<ThrowingRunnable<Exception>> restoreTasks =
+                        new ArrayList<>(rescalingStateHandles.size());
+                for (int i = 0; i < rescalingStateHandles.size(); ++i) {
+                    RescalingStateHandle rescalingStateHandle = rescalingStateHandles.get(i);
+                    Path handleExportPath =
+                            exportPath != null ? exportPath.resolve(String.valueOf(i)) : null;
+                    restoreTasks.add(
+                            () ->
+                                    restoreKeyGroupsWithRescaling(
+                                            rescalingStateHandle,
+                                            startKeyGroupPrefixBytes,
+                                            stopKeyGroupPrefixBytes,
+                                            handleExportPath));
                 }
-                logger.info(
-                        "Finished restoring from state handle: {} with rescaling.", rawStateHandle);
-            } finally {
-                cleanUpPathQuietly(temporaryRestoreInstancePath);
+                restoreTaskExecutor.runAll(restoreTasks);
+            }
+            reportPhaseDuration(RESCALE_PHASE, rescaleStartNanos);
+
+            if (exportPath != null) {
+                ingestExportedFiles(rescalingStateHandles);
+            }
+        } finally {
+            rescalingStateHandles.forEach(RescalingStateHandle::close);
+            if (exportPath != null) {
+                cleanUpPathQuietly(exportPath);
+            }
+        }
+    }
+
+    /**
+     * Reads the meta data of a state handle to restore with rescaling and registers the column
+     * families of its states in the restored instance.
+     */
+    private RescalingStateHandle prepareRescalingStateHandle(
+            IncrementalRemoteKeyedStateHandle restoreStateHandle) throws Exception {
+
+        KeyedBackendSerializationProxy<K> serializationProxy =
+                readMetaData(restoreStateHandle.getMetaStateHandle());
+        // read meta data
+        List<StateMetaInfoSnapshot> stateMetaInfoSnapshots =
+                serializationProxy.getStateMetaInfoSnapshots();
+
+        RescalingStateHandle rescalingStateHandle =
+                new RescalingStateHandle(
+                        restoreStateHandle,
+                        instanceBasePath
+                                .getAbsoluteFile()
+                                .toPath()
+                                .resolve(UUID.randomUUID().toString()),
+                        stateMetaInfoSnapshots,
+                        createAndRegisterColumnFamilyDescriptors(
+                                stateMetaInfoSnapshots, false, writeBufferManagerCapacity),
+                        RocksDBOperationUtils.createColumnFamilyOptions(
+                                columnFamilyOptionsFactory, "default"));
+
+        for (StateMetaInfoSnapshot stateMetaInfoSnapshot : stateMetaInfoSnapshots) {
+            rescalingStateHandle.targetColumnFamilyHandles.add(
+                    getOrRegisterStateColumnFamilyHandle(null, stateMetaInfoSnapshot)
+                            .columnFamilyHandle);
+        }
+        return rescalingStateHandle;
+    }
+
+    /**
+     * Restores the key-groups of the backend from the temporary instance of the given state handle.
+     * This may run concurrently for different state handles.
+     *
+     * @param exportPath The directory to export the key-groups to as SST files, or null to copy the
+     *     key-groups into the restored instance directly.
+     */
+    private void restoreKeyGroupsWithRescaling(
+            RescalingStateHandle rescalingStateHandle,
+            byte[] startKeyGroupPrefixBytes,
+            byte[] stopKeyGroupPrefixBytes,
+            @Nullable Path exportPath)
+            throws Exception {
+
+        logger.info(
+                "Starting to restore from state handle: {} with rescaling.",
+                rescalingStateHandle.stateHandle);
+        try (RestoredDBInstance tmpRestoreDBInfo =
+                        restoreDBInstanceFromStateHandle(rescalingStateHandle);
+                RocksDBWriteBatchWrapper writeBatchWrapper =
+                        new RocksDBWriteBatchWrapper(this.db, writeBatchSize)) {
+
+            if (exportPath != null) {
+                Files.createDirectories(exportPath);
+            }
+
+            List<ColumnFamilyDescriptor> tmpColumnFamilyDescriptors =
+                    tmpRestoreDBInfo.columnFamilyDescriptors;
+            List<ColumnFamilyHandle> tmpColumnFamilyHandles = tmpRestoreDBInfo.columnFamilyHandles;
+
+            // iterating only the requested descriptors automatically skips the default column
+            // family handle
+            for (int i = 0; i < tmpColumnFamilyDescriptors.size(); ++i) {
+                ColumnFamilyHandle tmpColumnFamilyHandle = tmpColumnFamilyHandles.get(i);
+
+                ColumnFamilyHandle targetColumnFamilyHandle =
+                        rescalingStateHandle.targetColumnFamilyHandles.get(i);
+
+                try (RocksIteratorWrapper iterator =
+                        RocksDBOperationUtils.getRocksIterator(
+                                tmpRestoreDBInfo.db,
+                                tmpColumnFamilyHandle,
+                                tmpRestoreDBInfo.readOptions)) {
+
+                    iterator.seek(startKeyGroupPrefixBytes);
+
+                    if (exportPath != null) {
+                        String exportedFile =
+                                exportKeyGroups(
+                                        iterator,
+                                        stopKeyGroupPrefixBytes,
+                                        tmpColumnFamilyDescriptors.get(i).getOptions(),
+                                        exportPath.resolve(i + SST_FILE_SUFFIX));
+                        if (exportedFile != null) {
+                            rescalingStateHandle.exportedFiles.put(
+                                    targetColumnFamilyHandle, exportedFile);
+                        }
+                        continue;
+                    }
+
+                    while (iterator.isValid()) {
+
+                        if (RocksDBIncrementalCheckpointUtils.beforeThePrefixBytes(
+                                iterator.key(), stopKeyGroupPrefixBytes)) {
+                            writeBatchWrapper.put(
+                                    targetColumnFamilyHandle, iterator.key(), iterator.value());
+                        } else {
+                            // Since the iterator will visit the record according to the sorted
+                            // order,
+                            // we can just break here.
+                            break;
+                        }
+
+                        iterator.next();
+                    }
+                } // releases native iterator resources
+            }
+            logger.info(
+                    "Finished restoring from state handle: {} with rescaling.",
+                    rescalingStateHandle.stateHandle);
+        } finally {
+            cleanUpPathQuietly(rescalingStateHandle.instancePath);
+        }
+    }
+
+    /**
+     * Writes the entries from the current position of the given iterator up to the given key-group
+     * prefix into an SST file.
+     *
+     * @return The path of the written file, or null if there were no entries to write.
+     */
+    @Nullable
+    private String exportKeyGroups(
+            RocksIteratorWrapper iterator,
+            byte[] stopKeyGroupPrefixBytes,
+            ColumnFamilyOptions columnFamilyOptions,
+            Path exportFile)
+            throws RocksDBException {
+
+        if (!iterator.isValid()
+                || !RocksDBIncrementalCheckpointUtils.beforeThePrefixBytes(
+                        iterator.key(), stopKeyGroupPrefixBytes)) {
+            // RocksDB cannot write an SST file without entries
+            return null;
+        }
+
+        try (EnvOptions envOptions = new EnvOptions();
+                Options options = new Options(dbOptions, columnFamilyOptions);
+                SstFileWriter sstFileWriter = new SstFileWriter(envOptions, options)) {
+            sstFileWriter.open(exportFile.toString());
+            // the iterator visits the keys in sorted order, as required by the SST file writer
+            while (iterator.isValid()
+                    && RocksDBIncrementalCheckpointUtils.beforeThePrefixBytes(
+                            iterator.key(), stopKeyGroupPrefixBytes)) {
+                sstFileWriter.put(iterator.key(), iterator.value());
+                iterator.next();
             }
+            sstFileWriter.finish();
         }
+        return exportFile.toString();
+    }
+
+    /**
+     * Ingests the SST files exported from all state handles into the column families of the
+     * restored instance. The files of different state handles hold disjoint key-groups and
+     * therefore never overlap.
+     */
+    private void ingestExportedFiles(List<RescalingStateHandle> rescalingStateHandles)
+            throws RocksDBException {
+        long ingestStartNanos = System.nanoTime();
+
+        Map<ColumnFamilyHandle, List<String>> filesByColumnFamily = new IdentityHashMap<>();
+        for (RescalingStateHandle rescalingStateHandle : rescalingStateHandles) {
+            for (Map.Entry<ColumnFamilyHandle, String> exportedFile :
+                    rescalingStateHandle.exportedFiles.entrySet()) {
+                filesByColumnFamily
+                        .computeIfAbsent(exportedFile.getKey(), (ignored) -> new ArrayList<>())
+                        .add(exportedFile.getValue());
+            }
+        }
+
+        try (IngestExternalFileOptions ingestOptions = new IngestExternalFileOptions()) {
+            ingestOptions.setMoveFiles(true);
+            for (Map.Entry<ColumnFamilyHandle, List<String>> files :
+                    filesByColumnFamily.entrySet()) {
+                db.ingestExternalFile(files.getKey(), files.getValue(), ingestOptions);
+            }
+        }
+
+        reportPhaseDuration(INGEST_PHASE, ingestStartNanos);
     }
 
     private void initDBWithRescaling(KeyedStateHandle initialHandle) throws Exception {
@@ -451,39 +664,82 @@ public class RocksDBIncrementalRestoreOperation<K> extends AbstractRocksDBRestor
     }
 
     private RestoredDBInstance restoreDBInstanceFromStateHandle(
-            IncrementalRemoteKeyedStateHandle restoreStateHandle, Path temporaryRestoreInstancePath)
-            throws Exception {
+            RescalingStateHandle rescalingStateHandle) throws Exception {
 
         try (RocksDBStateDownloader rocksDBStateDownloader =
                 new RocksDBStateDownloader(numberOfTransferringThreads)) {
             rocksDBStateDownloader.transferAllStateDataToDirectory(
-                    restoreStateHandle, temporaryRestoreInstancePath, cancelStreamRegistry);
+                    rescalingStateHandle.stateHandle,
+                    rescalingStateHandle.instancePath,
+                    cancelStreamRegistry);
         }
 
-        KeyedBackendSerializationProxy<K> serializationProxy =
-                readMetaData(restoreStateHandle.getMetaStateHandle());
-        // read meta data
-        List<StateMetaInfoSnapshot> stateMetaInfoSnapshots =
-                serializationProxy.getStateMetaInfoSnapshots();
-
-        List<ColumnFamilyDescriptor> columnFamilyDescriptors =
-                createAndRegisterColumnFamilyDescriptors(
-                        stateMetaInfoSnapshots, false, writeBufferManagerCapacity);
-
         List<ColumnFamilyHandle> columnFamilyHandles =
-                new ArrayList<>(stateMetaInfoSnapshots.size() + 1);
+                new ArrayList<>(rescalingStateHandle.stateMetaInfoSnapshots.size() + 1);
 
         RocksDB restoreDb =
                 RocksDBOperationUtils.openDB(
-                        temporaryRestoreInstancePath.toString(),
-                        columnFamilyDescriptors,
+                        rescalingStateHandle.instancePath.toString(),
+                        rescalingStateHandle.columnFamilyDescriptors,
                         columnFamilyHandles,
-                        RocksDBOperationUtils.createColumnFamilyOptions(
-                                columnFamilyOptionsFactory, "default"),
+                        rescalingStateHandle.defaultColumnFamilyOptions,
                         dbOptions);
 
         return new RestoredDBInstance(
-                restoreDb, columnFamilyHandles, columnFamilyDescriptors, stateMetaInfoSnapshots);
+                restoreDb,
+                columnFamilyHandles,
+                rescalingStateHandle.columnFamilyDescriptors,
+                rescalingStateHandle.stateMetaInfoSnapshots);
+    }
+
+    /**
+     * A state handle to restore with rescaling, together with everything that is prepared for it
+     * before its key-groups are restored.
+     */
+    private static class RescalingStateHandle implements AutoCloseable {
+
+        @Nonnull private final IncrementalRemoteKeyedStateHandle stateHandle;
+
+        /** The directory of the temporary instance. */
+        @Nonnull private final Path instancePath;
+
+        @Nonnull private final List<StateMetaInfoSnapshot> stateMetaInfoSnapshots;
+
+        /** The descriptors of the column families of the temporary instance. */
+        @Nonnull private final List<ColumnFamilyDescriptor> columnFamilyDescriptors;
+
+        @Nonnull private final ColumnFamilyOptions defaultColumnFamilyOptions;
+
+        /** The column families of the restored instance, by state. */
+        @Nonnull private final List<ColumnFamilyHandle> targetColumnFamilyHandles;
+
+        /** The SST files exported for the column families of the restored instance. */
+        @Nonnull private final Map<ColumnFamilyHandle, String> exportedFiles;
+
+        private RescalingStateHandle(
+                @Nonnull IncrementalRemoteKeyedStateHandle stateHandle,
+                @Nonnull Path instancePath,
+                @Nonnull List<StateMetaInfoSnapshot> stateMetaInfoSnapshots,
+                @Nonnull List<ColumnFamilyDescriptor> columnFamilyDescriptors,
+                @Nonnull ColumnFamilyOptions defaultColumnFamilyOptions) {
+            this.stateHandle = stateHandle;
+            this.instancePath = instancePath;
+            this.stateMetaInfoSnapshots = stateMetaInfoSnapshots;
+            this.columnFamilyDescriptors = columnFamilyDescriptors;
+            this.defaultColumnFamilyOptions = defaultColumnFamilyOptions;
+            this.targetColumnFamilyHandles = new ArrayList<>(stateMetaInfoSnapshots.size());
+            this.exportedFiles = Collections.synchronizedMap(new IdentityHashMap<>());
+        }
+
+        /**
+         * Closes the column family options, in case the temporary instance was never opened.
+         * Closing them again is a no-op.
+         */
+        @Override
+        public void close() {
+            columnFamilyDescriptors.forEach((cfd) -> IOUtils.closeQuietly(cfd.getOptions()));
+            IOUtils.closeQuietly(defaultColumnFamilyOptions);
+        }
     }
 
     /**
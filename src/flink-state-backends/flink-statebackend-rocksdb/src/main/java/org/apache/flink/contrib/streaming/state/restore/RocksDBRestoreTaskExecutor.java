@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.contrib.streaming.state.restore;
+
+import org.apache.flink.runtime.concurrent.FutureUtils;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
+import org.apache.flink.util.ExceptionUtils;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.function.ThrowingRunnable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.apache.flink.runtime.concurrent.Executors.newDirectExecutorService;
+
+/**
+ * Runs the independent tasks of a restore operation, e.g. the restore of disjoint key-group
+ * ranges, with a fixed number of threads. With a single thread, the tasks run in the calling
+ * thread.
+ */
+class RocksDBRestoreTaskExecutor implements AutoCloseable {
+
+    private final ExecutorService executorService;
+
+    RocksDBRestoreTaskExecutor(int threadNum) {
+        if (threadNum > 1) {
+            executorService =
+                    Executors.newFixedThreadPool(
+                            threadNum, new ExecutorThreadFactory("Flink-RocksDBRestore"));
+        } else {
+            executorService = newDirectExecutorService();
+        }
+    }
+
+    /**
+     * Runs all given tasks and waits until they are finished.
+     *
+     * @throws Exception The first exception that a task failed with.
+     */
+    void runAll(List<ThrowingRunnable<Exception>> tasks) throws Exception {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(tasks.size());
+        for (ThrowingRunnable<Exception> task : tasks) {
+            futures.add(
+                    CompletableFuture.runAsync(ThrowingRunnable.unchecked(task), executorService));
+        }
+
+        try {
+            FutureUtils.waitForAll(futures).get();
+        } catch (ExecutionException e) {
+            Throwable throwable = ExceptionUtils.stripExecutionException(e);
+            throwable = ExceptionUtils.stripException(throwable, RuntimeException.class);
+            if (throwable instanceof Exception) {
+                throw (Exception) throwable;
+            } else {
+                throw new FlinkRuntimeException("Failed to restore RocksDB state.", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        executorService.shutdownNow();
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.state.StateTtlConfig;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.time.Time;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.runtime.state.AsyncStateAccessor;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.TestLocalRecoveryConfig;
+import org.apache.flink.runtime.state.UncompressedStreamCompressionDecorator;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.runtime.state.internal.InternalValueState;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Tests for the {@link RocksDBAsyncStateAccessor}. */
+public class RocksDBAsyncStateAccessorTest extends TestLogger {
+
+    @Rule public final TemporaryFolder tmp = new TemporaryFolder();
+
+    /** Plays the role of the mailbox, the completions are executed by the test thread. */
+    private final BlockingQueue<Runnable> mailbox = new LinkedBlockingQueue<>();
+
+    private RocksDBKeyedStateBackend<Integer> keyedStateBackend;
+
+    private AsyncStateAccessor<Integer> accessor;
+
+    @After
+    public void after() {
+        if (keyedStateBackend != null) {
+            keyedStateBackend.dispose();
+        }
+    }
+
+    @Test
+    public void testReadsValuesOfOtherKeys() throws Exception {
+        InternalValueState<Integer, VoidNamespace, String> state = createBackendAndState(0);
+        update(state, 1, "a");
+        update(state, 2, "b");
+        keyedStateBackend.setCurrentKey(3);
+
+        CompletableFuture<String> first = accessor.asyncValue(state, 1, VoidNamespace.INSTANCE);
+        CompletableFuture<String> second = accessor.asyncValue(state, 2, VoidNamespace.INSTANCE);
+        CompletableFuture<String> absent = accessor.asyncValue(state, 4, VoidNamespace.INSTANCE);
+        assertEquals(3, accessor.getNumberOfPendingReads());
+        runMailboxUntilNoPendingReads();
+
+        assertEquals("a", first.get());
+        assertEquals("b", second.get());
+        assertNull(absent.get());
+        assertEquals(Integer.valueOf(3), keyedStateBackend.getCurrentKey());
+    }
+
+    @Test
+    public void testReadsDoNotObserveLaterWrites() throws Exception {
+        InternalValueState<Integer, VoidNamespace, String> state = createBackendAndState(0);
+        update(state, 1, "a");
+
+        CompletableFuture<String> beforeUpdate =
+                accessor.asyncValue(state, 1, VoidNamespace.INSTANCE);
+        update(state, 1, "b");
+        CompletableFuture<String> afterUpdate =
+                accessor.asyncValue(state, 1, VoidNamespace.INSTANCE);
+        keyedStateBackend.setCurrentKey(1);
+        state.clear();
+        CompletableFuture<String> afterClear =
+                accessor.asyncValue(state, 1, VoidNamespace.INSTANCE);
+        runMailboxUntilNoPendingReads();
+
+        assertEquals("a", beforeUpdate.get());
+        assertEquals("b", afterUpdate.get());
+        assertNull(afterClear.get());
+    }
+
+    @Test
+    public void testReadsOfTheSameKeyCompleteInIssueOrder() throws Exception {
+        InternalValueState<Integer, VoidNamespace, String> state = createBackendAndState(1);
+        List<String> expected = new ArrayList<>();
+        List<String> completed = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String value = String.valueOf(i);
+            update(state, 1, value);
+            if (i % 2 == 0) {
+                // evicts key 1 from the cache, so that its value is read from RocksDB
+                update(state, 2, "other");
+            }
+            expected.add(value);
+            accessor.asyncValue(state, 1, VoidNamespace.INSTANCE).thenAccept(completed::add);
+        }
+        runMailboxUntilNoPendingReads();
+
+        assertEquals(expected, completed);
+    }
+
+    @Test
+    public void testReadsFromWriteBackCache() throws Exception {
+        InternalValueState<Integer, VoidNamespace, String> state = createBackendAndState(2);
+        update(state, 1, "a");
+
+        CompletableFuture<String> future = accessor.asyncValue(state, 1, VoidNamespace.INSTANCE);
+
+        // a cached value does not need a look up in RocksDB
+        assertTrue(future.isDone());
+        assertEquals(0, accessor.getNumberOfPendingReads());
+        assertEquals("a", future.get());
+    }
+
+    @Test
+    public void testCloseCompletesPendingReadsExceptionally() throws Exception {
+        InternalValueState<Integer, VoidNamespace, String> state = createBackendAndState(0);
+        update(state, 1, "a");
+        List<CompletableFuture<String>> futures =
+                Arrays.asList(
+                        accessor.asyncValue(state, 1, VoidNamespace.INSTANCE),
+                        accessor.asyncValue(state, 2, VoidNamespace.INSTANCE));
+
+        accessor.close();
+        // the completions of reads that were executed before closing are ignored
+        while (!mailbox.isEmpty()) {
+            mailbox.take().run();
+        }
+
+        assertEquals(0, accessor.getNumberOfPendingReads());
+        for (CompletableFuture<String> future : futures) {
+            try {
+                future.get();
+                fail("The read should have been completed exceptionally.");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        }
+    }
+
+    @Test
+    public void testBackendClosesAccessorsOnDispose() throws Exception {
+        InternalValueState<Integer, VoidNamespace, String> state = createBackendAndState(0);
+        CompletableFuture<String> future = accessor.asyncValue(state, 1, VoidNamespace.INSTANCE);
+
+        keyedStateBackend.dispose();
+
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStateWithTtlIsRejected() throws Exception {
+        createBackendAndState(0);
+        ValueStateDescriptor<String> descriptor =
+                new ValueStateDescriptor<>("ttl-state", StringSerializer.INSTANCE);
+        descriptor.enableTimeToLive(StateTtlConfig.newBuilder(Time.minutes(1)).build());
+        ValueState<String> state =
+                keyedStateBackend.getPartitionedState(
+                        VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, descriptor);
+
+        accessor.asyncValue(
+                (InternalValueState<Integer, VoidNamespace, String>) state,
+                1,
+                VoidNamespace.INSTANCE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private InternalValueState<Integer, VoidNamespace, String> createBackendAndState(
+            int writeBackCacheMaxEntries) throws Exception {
+        final RocksDBResourceContainer optionsContainer = new RocksDBResourceContainer();
+        keyedStateBackend =
+                new RocksDBKeyedStateBackendBuilder<>(
+                                "no-op",
+                                ClassLoader.getSystemClassLoader(),
+                                tmp.newFolder(),
+                                optionsContainer,
+                                stateName -> optionsContainer.getColumnOptions(),
+                                null,
+                                IntSerializer.INSTANCE,
+                                2,
+                                new KeyGroupRange(0, 1),
+                                new ExecutionConfig(),
+                                TestLocalRecoveryConfig.disabled(),
+                                RocksDBStateBackend.PriorityQueueStateType.HEAP,
+                                TtlTimeProvider.DEFAULT,
+                                new UnregisteredMetricsGroup(),
+                                Collections.emptyList(),
+                                UncompressedStreamCompressionDecorator.INSTANCE,
+                                new CloseableRegistry())
+                        .setWriteBackCacheMaxEntries(writeBackCacheMaxEntries)
+                        .setNumberOfAsyncReadThreads(2)
+                        .build();
+        accessor = keyedStateBackend.createAsyncStateAccessor(mailbox::add);
+        return (InternalValueState<Integer, VoidNamespace, String>)
+                keyedStateBackend.getPartitionedState(
+                        VoidNamespace.INSTANCE,
+                        VoidNamespaceSerializer.INSTANCE,
+                        new ValueStateDescriptor<>("test-state", StringSerializer.INSTANCE));
+    }
+
+    private void update(ValueState<String> state, int key, String value) throws Exception {
+        keyedStateBackend.setCurrentKey(key);
+        state.update(value);
+    }
+
+    private void runMailboxUntilNoPendingReads() throws InterruptedException {
+        while (accessor.getNumberOfPendingReads() > 0) {
+            mailbox.take().run();
+        }
+    }
+}
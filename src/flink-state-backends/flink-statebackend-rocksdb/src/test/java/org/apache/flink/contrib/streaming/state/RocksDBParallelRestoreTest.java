@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.state.StateBackendTestBase;
+import org.apache.flink.runtime.state.filesystem.FsStateBackend;
+
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Runs the {@link StateBackendTestBase} against a {@link RocksDBStateBackend} that restores
+ * key-groups with multiple threads and ingests SST files when rescaling.
+ */
+@RunWith(Parameterized.class)
+public class RocksDBParallelRestoreTest extends StateBackendTestBase<RocksDBStateBackend> {
+
+    @Parameterized.Parameters(name = "Incremental checkpointing: {0}")
+    public static Collection<Boolean> parameters() {
+        return Arrays.asList(false, true);
+    }
+
+    @Parameterized.Parameter public boolean enableIncrementalCheckpointing;
+
+    @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Override
+    protected RocksDBStateBackend getStateBackend() throws Exception {
+        String checkpointPath = tempFolder.newFolder().toURI().toString();
+        RocksDBStateBackend backend =
+                new RocksDBStateBackend(
+                        new FsStateBackend(checkpointPath), enableIncrementalCheckpointing);
+        Configuration configuration = new Configuration();
+        configuration.set(RocksDBOptions.RESTORE_THREAD_NUM, 4);
+        configuration.set(RocksDBOptions.USE_INGEST_DB_RESTORE_MODE, true);
+        backend = backend.configure(configuration, Thread.currentThread().getContextClassLoader());
+        backend.setDbStoragePath(tempFolder.newFolder().getAbsolutePath());
+        return backend;
+    }
+
+    @Override
+    protected boolean isSerializerPresenceRequiredOnRestore() {
+        return false;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.TestLocalRecoveryConfig;
+import org.apache.flink.runtime.state.UncompressedStreamCompressionDecorator;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.runtime.state.memory.MemCheckpointStreamFactory;
+import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rocksdb.RocksIterator;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/** Tests for the {@link RocksDBWriteBackCache} of the {@link RocksDBKeyedStateBackend}. */
+public class RocksDBWriteBackCacheTest {
+
+    private static final String STATE_NAME = "test-state";
+
+    @Rule public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private CountingMetricGroup metricGroup;
+
+    private RocksDBKeyedStateBackend<Integer> keyedStateBackend;
+
+    private ValueState<String> state;
+
+    @Before
+    public void before() throws Exception {
+        final RocksDBResourceContainer optionsContainer = new RocksDBResourceContainer();
+        metricGroup = new CountingMetricGroup();
+        keyedStateBackend =
+                new RocksDBKeyedStateBackendBuilder<>(
+                                "no-op",
+                                ClassLoader.getSystemClassLoader(),
+                                tmp.newFolder(),
+                                optionsContainer,
+                                stateName -> optionsContainer.getColumnOptions(),
+                                null,
+                                IntSerializer.INSTANCE,
+                                2,
+                                new KeyGroupRange(0, 1),
+                                new ExecutionConfig(),
+                                TestLocalRecoveryConfig.disabled(),
+                                RocksDBStateBackend.PriorityQueueStateType.HEAP,
+                                TtlTimeProvider.DEFAULT,
+                                metricGroup,
+                                Collections.emptyList(),
+                                UncompressedStreamCompressionDecorator.INSTANCE,
+                                new CloseableRegistry())
+                        .setWriteBackCacheMaxEntries(2)
+                        .build();
+        state =
+                keyedStateBackend.getPartitionedState(
+                        VoidNamespace.INSTANCE,
+                        VoidNamespaceSerializer.INSTANCE,
+                        new ValueStateDescriptor<>(STATE_NAME, StringSerializer.INSTANCE));
+    }
+
+    @After
+    public void after() {
+        if (keyedStateBackend != null) {
+            keyedStateBackend.dispose();
+        }
+    }
+
+    @Test
+    public void testUpdatesAreWrittenBackOnSnapshot() throws Exception {
+        keyedStateBackend.setCurrentKey(1);
+        state.update("a");
+        state.update("b");
+        assertEquals("b", state.value());
+        assertEquals(0, countStoredEntries());
+
+        keyedStateBackend
+                .snapshot(
+                        1L,
+                        1L,
+                        new MemCheckpointStreamFactory(4 * 1024 * 1024),
+                        CheckpointOptions.forCheckpointWithDefaultLocation())
+                .run();
+
+        assertEquals(1, countStoredEntries());
+        assertEquals(1L, metricGroup.getCount(RocksDBWriteBackCache.FLUSHES_METRIC));
+    }
+
+    @Test
+    public void testDirtyEntriesAreWrittenBackOnEviction() throws Exception {
+        for (int key = 0; key < 3; key++) {
+            keyedStateBackend.setCurrentKey(key);
+            state.update(String.valueOf(key));
+        }
+
+        assertEquals(2, keyedStateBackend.getWriteBackCache().size());
+        assertEquals(1, countStoredEntries());
+
+        // the evicted value is read back from RocksDB
+        keyedStateBackend.setCurrentKey(0);
+        assertEquals("0", state.value());
+        assertEquals(1L, metricGroup.getCount(RocksDBWriteBackCache.MISSES_METRIC));
+    }
+
+    @Test
+    public void testClearIsWrittenBack() throws Exception {
+        keyedStateBackend.setCurrentKey(1);
+        state.update("a");
+        keyedStateBackend.getWriteBackCache().flush();
+        assertEquals(1, countStoredEntries());
+
+        state.clear();
+        assertNull(state.value());
+        assertEquals(1, countStoredEntries());
+
+        keyedStateBackend.getWriteBackCache().flush();
+        assertEquals(0, countStoredEntries());
+    }
+
+    @Test
+    public void testHitsAndMisses() throws Exception {
+        keyedStateBackend.setCurrentKey(1);
+        assertNull(state.value());
+        assertNull(state.value());
+        state.update("a");
+        assertEquals("a", state.value());
+
+        assertEquals(1L, metricGroup.getCount(RocksDBWriteBackCache.MISSES_METRIC));
+        assertEquals(2L, metricGroup.getCount(RocksDBWriteBackCache.HITS_METRIC));
+    }
+
+    @Test
+    public void testGetAllReadsThroughCache() throws Exception {
+        keyedStateBackend.setCurrentKey(1);
+        state.update("a");
+        keyedStateBackend.getWriteBackCache().flush();
+        keyedStateBackend.setCurrentKey(2);
+        state.update("b");
+        keyedStateBackend.setCurrentKey(1);
+        state.update("c");
+
+        @SuppressWarnings("unchecked")
+        RocksDBValueState<Integer, VoidNamespace, String> internalState =
+                (RocksDBValueState<Integer, VoidNamespace, String>) state;
+        Map<Integer, String> expected = new HashMap<>();
+        expected.put(1, "c");
+        expected.put(2, "b");
+        assertEquals(expected, internalState.getAll(Arrays.asList(1, 2, 3)));
+    }
+
+    private int countStoredEntries() {
+        int count = 0;
+        try (RocksIterator iterator =
+                keyedStateBackend.db.newIterator(
+                        keyedStateBackend.getColumnFamilyHandle(STATE_NAME))) {
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** A metric group that keeps the registered counters. */
+    private static final class CountingMetricGroup extends UnregisteredMetricsGroup {
+
+        private final Map<String, Counter> counters = new HashMap<>();
+
+        @Override
+        public <C extends Counter> C counter(String name, C counter) {
+            counters.put(name, counter);
+            return counter;
+        }
+
+        long getCount(String name) {
+            return counters.get(name).getCount();
+        }
+    }
+}
@@ -20,15 +20,19 @@ package org.apache.flink.streaming.api.datastream;
 import org.apache.flink.annotation.PublicEvolving;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.api.java.Utils;
+import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.api.java.typeutils.TypeExtractor;
+import org.apache.flink.streaming.api.functions.async.AsyncBatchFunction;
 import org.apache.flink.streaming.api.functions.async.AsyncFunction;
 import org.apache.flink.streaming.api.operators.async.AsyncWaitOperator;
 import org.apache.flink.streaming.api.operators.async.AsyncWaitOperatorFactory;
 
+import javax.annotation.Nullable;
+
 import java.util.concurrent.TimeUnit;
 
 /**
- * A helper class to apply {@link AsyncFunction} to a data stream.
+ * A helper class to apply {@link AsyncFunction} or {@link AsyncBatchFunction} to a data stream.
  *
  * <pre>{@code
  * DataStream<String> input = ...
@@ -86,6 +90,65 @@ public class AsyncDataStream {
         return in.transform("async wait operator", outTypeInfo, operatorFactory);
     }
 
+    /**
+     * Add an AsyncWaitOperator that passes its inputs in batches to an {@link AsyncBatchFunction}.
+     *
+     * @param in The {@link DataStream} where the {@link AsyncWaitOperator} will be added.
+     * @param keySelector The selector of the lookup keys, or null to coalesce equal inputs.
+     * @param func {@link AsyncBatchFunction} wrapped inside {@link AsyncWaitOperator}.
+     * @param timeout for the asynchronous operation to complete
+     * @param bufSize The max number of inputs the {@link AsyncWaitOperator} can hold inside.
+     * @param mode Processing mode for {@link AsyncWaitOperator}.
+     * @param maxBatchSize The max number of distinct inputs or keys per batch.
+     * @param maxBatchDelay The max time in milliseconds that an input waits for its batch.
+     * @param <IN> Input type.
+     * @param <KEY> Lookup key type, the input type if there is no key selector.
+     * @param <OUT> Output type.
+     * @return A new {@link SingleOutputStreamOperator}
+     */
+    @SuppressWarnings("unchecked")
+    private static <IN, KEY, OUT> SingleOutputStreamOperator<OUT> addBatchOperator(
+            DataStream<IN> in,
+            @Nullable KeySelector<IN, KEY> keySelector,
+            AsyncBatchFunction<KEY, OUT> func,
+            long timeout,
+            int bufSize,
+            OutputMode mode,
+            int maxBatchSize,
+            long maxBatchDelay) {
+
+        TypeInformation<KEY> keyTypeInfo =
+                keySelector == null
+                        ? (TypeInformation<KEY>) in.getType()
+                        : TypeExtractor.getKeySelectorTypes(keySelector, in.getType());
+
+        TypeInformation<OUT> outTypeInfo =
+                TypeExtractor.getUnaryOperatorReturnType(
+                        func,
+                        AsyncBatchFunction.class,
+                        0,
+                        1,
+                        new int[] {1, 0, 0},
+                        keyTypeInfo,
+                        Utils.getCallLocationName(),
+                        true);
+
+        KeySelector<IN, KEY> cleanedKeySelector =
+                keySelector == null ? null : in.getExecutionEnvironment().clean(keySelector);
+
+        AsyncWaitOperatorFactory<IN, OUT> operatorFactory =
+                new AsyncWaitOperatorFactory<>(
+                        cleanedKeySelector,
+                        in.getExecutionEnvironment().clean(func),
+                        timeout,
+                        bufSize,
+                        mode,
+                        maxBatchSize,
+                        maxBatchDelay);
+
+        return in.transform("async wait operator", outTypeInfo, operatorFactory);
+    }
+
     /**
      * Add an AsyncWaitOperator. The order of output stream records may be reordered.
      *
@@ -163,4 +226,150 @@ public class AsyncDataStream {
         return addOperator(
                 in, func, timeUnit.toMillis(timeout), DEFAULT_QUEUE_CAPACITY, OutputMode.ORDERED);
     }
+
+    /**
+     * Add an AsyncWaitOperator that collects the inputs into batches for an {@link
+     * AsyncBatchFunction}. The order of output stream records may be reordered.
+     *
+     * @param in Input {@link DataStream}
+     * @param func {@link AsyncBatchFunction}
+     * @param timeout for the asynchronous operation to complete
+     * @param timeUnit of the given timeout and maximum batch delay
+     * @param capacity The max number of inputs that can be in flight
+     * @param maxBatchSize The max number of distinct inputs per batch
+     * @param maxBatchDelay The max time that an input waits for its batch to be triggered
+     * @param <IN> Type of input record
+     * @param <OUT> Type of output record
+     * @return A new {@link SingleOutputStreamOperator}.
+     */
+    public static <IN, OUT> SingleOutputStreamOperator<OUT> unorderedWaitBatched(
+            DataStream<IN> in,
+            AsyncBatchFunction<IN, OUT> func,
+            long timeout,
+            TimeUnit timeUnit,
+            int capacity,
+            int maxBatchSize,
+            long maxBatchDelay) {
+        return addBatchOperator(
+                in,
+                null,
+                func,
+                timeUnit.toMillis(timeout),
+                capacity,
+                OutputMode.UNORDERED,
+                maxBatchSize,
+                timeUnit.toMillis(maxBatchDelay));
+    }
+
+    /**
+     * Add an AsyncWaitOperator that collects the inputs into batches for an {@link
+     * AsyncBatchFunction}. The order to process input records is guaranteed to be the same as
+     * input ones.
+     *
+     * @param in Input {@link DataStream}
+     * @param func {@link AsyncBatchFunction}
+     * @param timeout for the asynchronous operation to complete
+     * @param timeUnit of the given timeout and maximum batch delay
+     * @param capacity The max number of inputs that can be in flight
+     * @param maxBatchSize The max number of distinct inputs per batch
+     * @param maxBatchDelay The max time that an input waits for its batch to be triggered
+     * @param <IN> Type of input record
+     * @param <OUT> Type of output record
+     * @return A new {@link SingleOutputStreamOperator}.
+     */
+    public static <IN, OUT> SingleOutputStreamOperator<OUT> orderedWaitBatched(
+            DataStream<IN> in,
+            AsyncBatchFunction<IN, OUT> func,
+            long timeout,
+            TimeUnit timeUnit,
+            int capacity,
+            int maxBatchSize,
+            long maxBatchDelay) {
+        return addBatchOperator(
+                in,
+                null,
+                func,
+                timeUnit.toMillis(timeout),
+                capacity,
+                OutputMode.ORDERED,
+                maxBatchSize,
+                timeUnit.toMillis(maxBatchDelay));
+    }
+
+    /**
+     * Add an AsyncWaitOperator that collects the inputs into batches for an {@link
+     * AsyncBatchFunction}, which is called with the distinct lookup keys of each batch. Every
+     * record gets the results of its key. The order of output stream records may be reordered.
+     *
+     * @param in Input {@link DataStream}
+     * @param keySelector The selector of the lookup key of each record
+     * @param func {@link AsyncBatchFunction}
+     * @param timeout for the asynchronous operation to complete
+     * @param timeUnit of the given timeout and maximum batch delay
+     * @param capacity The max number of inputs that can be in flight
+     * @param maxBatchSize The max number of distinct keys per batch
+     * @param maxBatchDelay The max time that an input waits for its batch to be triggered
+     * @param <IN> Type of input record
+     * @param <KEY> Type of the lookup key
+     * @param <OUT> Type of output record
+     * @return A new {@link SingleOutputStreamOperator}.
+     */
+    public static <IN, KEY, OUT> SingleOutputStreamOperator<OUT> unorderedWaitBatched(
+            DataStream<IN> in,
+            KeySelector<IN, KEY> keySelector,
+            AsyncBatchFunction<KEY, OUT> func,
+            long timeout,
+            TimeUnit timeUnit,
+            int capacity,
+            int maxBatchSize,
+            long maxBatchDelay) {
+        return addBatchOperator(
+                in,
+                keySelector,
+                func,
+                timeUnit.toMillis(timeout),
+                capacity,
+                OutputMode.UNORDERED,
+                maxBatchSize,
+                timeUnit.toMillis(maxBatchDelay));
+    }
+
+    /**
+     * Add an AsyncWaitOperator that collects the inputs into batches for an {@link
+     * AsyncBatchFunction}, which is called with the distinct lookup keys of each batch. Every
+     * record gets the results of its key. The order to process input records is guaranteed to be
+     * the same as input ones.
+     *
+     * @param in Input {@link DataStream}
+     * @param keySelector The selector of the lookup key of each record
+     * @param func {@link AsyncBatchFunction}
+     * @param timeout for the asynchronous operation to complete
+     * @param timeUnit of the given timeout and maximum batch delay
+     * @param capacity The max number of inputs that can be in flight
+     * @param maxBatchSize The max number of distinct keys per batch
+     * @param maxBatchDelay The max time that an input waits for its batch to be triggered
+     * @param <IN> Type of input record
+     * @param <KEY> Type of the lookup key
+     * @param <OUT> Type of output record
+     * @return A new {@link SingleOutputStreamOperator}.
+     */
+    public static <IN, KEY, OUT> SingleOutputStreamOperator<OUT> orderedWaitBatched(
+            DataStream<IN> in,
+            KeySelector<IN, KEY> keySelector,
+            AsyncBatchFunction<KEY, OUT> func,
+            long timeout,
+            TimeUnit timeUnit,
+            int capacity,
+            int maxBatchSize,
+            long maxBatchDelay) {
+        return addBatchOperator(
+                in,
+                keySelector,
+                func,
+                timeUnit.toMillis(timeout),
+                capacity,
+                OutputMode.ORDERED,
+                maxBatchSize,
+                timeUnit.toMillis(maxBatchDelay));
+    }
 }
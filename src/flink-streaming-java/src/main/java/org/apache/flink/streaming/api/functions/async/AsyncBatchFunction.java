@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.functions.async;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.api.common.functions.Function;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A function to trigger one Async I/O operation for a batch of inputs, e.g. a multi-get against a
+ * key-value store.
+ *
+ * <p>The operator collects inputs until the batch is full or the maximum batch delay has passed and
+ * then calls #asyncInvokeBatch once. Inputs that are equal to each other are only passed once per
+ * batch, the results of such an input are emitted for every one of the equal records. If the
+ * operator is given a {@link org.apache.flink.api.java.functions.KeySelector}, the function is
+ * instead passed the distinct lookup keys of the records, and every record gets the results of its
+ * key. Apart from that, the function behaves like an {@link AsyncFunction}: the order of the
+ * results follows the output mode of the operator, and the in-flight inputs are part of the
+ * operator state.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * public class MultiGetFunc implements AsyncBatchFunction<String, String> {
+ *
+ *   public void asyncInvokeBatch(List<String> keys, List<ResultFuture<String>> results) {
+ *     client.multiGet(keys).whenComplete((values, error) -> {
+ *       for (int i = 0; i < keys.size(); i++) {
+ *         if (error != null) {
+ *           results.get(i).completeExceptionally(error);
+ *         } else {
+ *           results.get(i).complete(Collections.singleton(values.get(i)));
+ *         }
+ *       }
+ *     });
+ *   }
+ * }
+ * }</pre>
+ *
+ * @param <IN> The type of the input elements, or of the lookup keys.
+ * @param <OUT> The type of the returned elements.
+ */
+@PublicEvolving
+public interface AsyncBatchFunction<IN, OUT> extends Function, Serializable {
+
+    /**
+     * Trigger async operation for a batch of stream inputs.
+     *
+     * @param inputs distinct elements coming from an upstream task, or their distinct keys
+     * @param resultFutures one future per input, at the same position as the input, to be
+     *     completed with the result data of that input
+     * @exception Exception in case of a user code error. An exception will make the task fail and
+     *     trigger fail-over process.
+     */
+    void asyncInvokeBatch(List<IN> inputs, List<ResultFuture<OUT>> resultFutures) throws Exception;
+
+    /**
+     * The async operation of a single input timed out. By default, the result future is
+     * exceptionally completed with a timeout exception.
+     *
+     * @param input element coming from an upstream task, or its key
+     * @param resultFuture to be completed with the result data
+     */
+    default void timeout(IN input, ResultFuture<OUT> resultFuture) throws Exception {
+        resultFuture.completeExceptionally(
+                new TimeoutException("Async function call has timed out."));
+    }
+}
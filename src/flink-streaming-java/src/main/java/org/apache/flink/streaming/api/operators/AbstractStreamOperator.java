@@ -621,6 +621,46 @@ public abstract class AbstractStreamOperator<OUT>
                 name, keyedStateBackend.getKeySerializer(), namespaceSerializer, triggerable);
     }
 
+    /**
+     * Returns a {@link InternalTimerService} like {@link #getInternalTimerService(String,
+     * TypeSerializer, Triggerable)}, which groups its timers into time slots of the given
+     * resolution. The timers of a slot fire together once the time reaches the end of the slot, so
+     * up to the resolution later than requested, but they keep their exact timestamps.
+     *
+     * <p>The slots are kept on the heap and checkpointed synchronously to raw keyed state, so an
+     * operator that uses them cannot write its own raw keyed state.
+     *
+     * @param name The name of the requested timer service.
+     * @param namespaceSerializer {@code TypeSerializer} for the timer namespace.
+     * @param triggerable The {@link Triggerable} that should be invoked when timers fire
+     * @param timerResolution The length of the time slots in milliseconds, or 0 for exact timers.
+     * @param <N> The type of the timer namespace.
+     */
+    public <K, N> InternalTimerService<N> getInternalTimerService(
+            String name,
+            TypeSerializer<N> namespaceSerializer,
+            Triggerable<K, N> triggerable,
+            long timerResolution) {
+        if (timerResolution == 0) {
+            return getInternalTimerService(name, namespaceSerializer, triggerable);
+        }
+        if (timeServiceManager == null) {
+            throw new RuntimeException("The timer service has not been initialized.");
+        }
+        @SuppressWarnings("unchecked")
+        InternalTimeServiceManager<K> keyedTimeServiceHandler =
+                (InternalTimeServiceManager<K>) timeServiceManager;
+        KeyedStateBackend<K> keyedStateBackend = getKeyedStateBackend();
+        checkState(keyedStateBackend != null, "Timers can only be used on keyed operators.");
+        return keyedTimeServiceHandler.getInternalTimerService(
+                name,
+                keyedStateBackend.getKeySerializer(),
+                namespaceSerializer,
+                triggerable,
+                timerResolution,
+                getRuntimeContext().getMaxNumberOfParallelSubtasks());
+    }
+
     public void processWatermark(Watermark mark) throws Exception {
         if (timeServiceManager != null) {
             timeServiceManager.advanceWatermark(mark);
@@ -49,6 +49,26 @@ public interface InternalTimeServiceManager<K> {
             TypeSerializer<N> namespaceSerializer,
             Triggerable<K, N> triggerable);
 
+    /**
+     * Creates an {@link InternalTimerService} like {@link #getInternalTimerService(String,
+     * TypeSerializer, TypeSerializer, Triggerable)}, which groups its timers into time slots of the
+     * given resolution. The timers of a slot fire together once the time reaches the end of the
+     * slot, but keep their exact timestamps. Managers that do not support time slots ignore the
+     * resolution.
+     *
+     * @param timerResolution the length of the time slots in milliseconds, 0 for exact timers
+     * @param maxParallelism the number of key groups of the keyed state
+     */
+    default <N> InternalTimerService<N> getInternalTimerService(
+            String name,
+            TypeSerializer<K> keySerializer,
+            TypeSerializer<N> namespaceSerializer,
+            Triggerable<K, N> triggerable,
+            long timerResolution,
+            int maxParallelism) {
+        return getInternalTimerService(name, keySerializer, namespaceSerializer, triggerable);
+    }
+
     /**
      * Advances the Watermark of all managed {@link InternalTimerService timer services},
      * potentially firing event time timers.
@@ -68,7 +88,7 @@ public interface InternalTimeServiceManager<K> {
 
     /**
      * Flag indicating whether or not the internal timer services should be checkpointed with legacy
-     * synchronous snapshots.
+     * synchronous snapshots. This is also the case if timers are grouped into time slots.
      *
      * <p><b>TODO:</b> This can be removed once heap-based timers are integrated with RocksDB
      * incremental snapshots.
@@ -157,6 +157,32 @@ public class InternalTimeServiceManagerImpl<K> implements InternalTimeServiceMan
         return timerService;
     }
 
+    @Override
+    public <N> InternalTimerService<N> getInternalTimerService(
+            String name,
+            TypeSerializer<K> keySerializer,
+            TypeSerializer<N> namespaceSerializer,
+            Triggerable<K, N> triggerable,
+            long timerResolution,
+            int maxParallelism) {
+        checkNotNull(keySerializer, "Timers can only be used on keyed operators.");
+
+        TimerSerializer<K, N> timerSerializer =
+                new TimerSerializer<>(keySerializer, namespaceSerializer);
+
+        InternalTimerServiceImpl<K, N> timerService =
+                registerOrGetTimerService(name, timerSerializer);
+
+        timerService.startTimerService(
+                timerSerializer.getKeySerializer(),
+                timerSerializer.getNamespaceSerializer(),
+                triggerable,
+                timerResolution,
+                maxParallelism);
+
+        return timerService;
+    }
+
     @SuppressWarnings("unchecked")
     <N> InternalTimerServiceImpl<K, N> registerOrGetTimerService(
             String name, TimerSerializer<K, N> timerSerializer) {
@@ -199,13 +225,30 @@ public class InternalTimeServiceManagerImpl<K> implements InternalTimeServiceMan
 
     @Override
     public boolean isUsingLegacyRawKeyedStateSnapshots() {
+        if (useLegacySynchronousSnapshots) {
+            return true;
+        }
+        // the timers of time slots are kept on the heap and only checkpointed to raw keyed state
+        for (InternalTimerServiceImpl<K, ?> timerService : timerServices.values()) {
+            if (timerService.getEventTimeBuckets() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the timers of the priority queues are written to raw keyed state, because the
+     * state backend does not snapshot them itself.
+     */
+    boolean isWritingQueuedTimersToRawKeyedState() {
         return useLegacySynchronousSnapshots;
     }
 
     @Override
     public void snapshotToRawKeyedState(KeyedStateCheckpointOutputStream out, String operatorName)
             throws Exception {
-        checkState(useLegacySynchronousSnapshots);
+        checkState(isUsingLegacyRawKeyedStateSnapshots());
 
         try {
             KeyGroupsList allKeyGroups = out.getKeyGroupList();
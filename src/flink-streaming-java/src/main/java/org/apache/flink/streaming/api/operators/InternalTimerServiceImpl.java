@@ -30,18 +30,43 @@ import org.apache.flink.util.FlinkRuntimeException;
 import org.apache.flink.util.Preconditions;
 import org.apache.flink.util.function.BiConsumerWithException;
 
+import javax.annotation.Nullable;
+
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
-/** {@link InternalTimerService} that stores timers on the Java heap. */
+/**
+ * {@link InternalTimerService} that stores timers in the priority queues of the state backend.
+ *
+ * <p>If the service is started with a timer resolution, the timers are instead kept on the Java
+ * heap in {@link TimerBuckets}, grouped into time slots of the length of the resolution. The timers
+ * of a slot fire together once the time passes the end of the slot, but with their own timestamps.
+ * The slots are checkpointed synchronously to raw keyed state, one unit per slot and key group.
+ */
 public class InternalTimerServiceImpl<K, N> implements InternalTimerService<N> {
 
+    /**
+     * The maximum number of due event-time timers that are drained at once for a {@link
+     * KeyIndependentTriggerable}.
+     */
+    @VisibleForTesting static final int MAX_EVENT_TIMERS_PER_BATCH = 1024;
+
+    private static final Comparator<InternalTimer<?, ?>> BATCH_TIMER_COMPARATOR =
+            InternalTimer.TIMER_COMPARATOR::comparePriority;
+
     private final ProcessingTimeService processingTimeService;
 
     private final KeyContext keyContext;
@@ -88,6 +113,34 @@ public class InternalTimerServiceImpl<K, N> implements InternalTimerService<N> {
     /** The restored timers snapshot, if any. */
     private InternalTimersSnapshot<K, N> restoredTimersSnapshot;
 
+    /**
+     * The event-time timers of the batch that is currently being fired, grouped by key. Null if no
+     * batch is being fired.
+     */
+    @Nullable private Map<K, PriorityQueue<TimerHeapInternalTimer<K, N>>> eventTimerBatch;
+
+    /** The timers of the current batch that have neither fired nor been deleted yet. */
+    @Nullable private Set<TimerHeapInternalTimer<K, N>> pendingBatchTimers;
+
+    /** The largest timestamp of the timers in the current batch. */
+    private long batchMaxTimestamp;
+
+    /** The length of the time slots of the timers, 0 if the timers are not grouped into slots. */
+    private long timerResolution;
+
+    /** The event-time timers grouped into time slots, null without a timer resolution. */
+    @Nullable private TimerBuckets<K, N> eventTimeBuckets;
+
+    /** The processing-time timers grouped into time slots, null without a timer resolution. */
+    @Nullable private TimerBuckets<K, N> processingTimeBuckets;
+
+    /** The restored timers of time slots, which are added when the service is started. */
+    private final List<TimerHeapInternalTimer<K, N>> restoredBucketedEventTimeTimers =
+            new ArrayList<>();
+
+    private final List<TimerHeapInternalTimer<K, N>> restoredBucketedProcessingTimeTimers =
+            new ArrayList<>();
+
     InternalTimerServiceImpl(
             KeyGroupRange localKeyGroupRange,
             KeyContext keyContext,
@@ -127,8 +180,28 @@ public class InternalTimerServiceImpl<K, N> implements InternalTimerService<N> {
             TypeSerializer<K> keySerializer,
             TypeSerializer<N> namespaceSerializer,
             Triggerable<K, N> triggerTarget) {
+        startTimerService(keySerializer, namespaceSerializer, triggerTarget, 0L, 0);
+    }
+
+    /**
+     * Starts the local {@link InternalTimerServiceImpl} like {@link
+     * #startTimerService(TypeSerializer, TypeSerializer, Triggerable)}. With a positive timer
+     * resolution, the timers are grouped into time slots of that length, including the timers that
+     * were restored into the priority queues.
+     *
+     * @param timerResolution the length of the time slots in milliseconds, or 0 to keep the timers
+     *     in the priority queues
+     * @param maxParallelism the number of key groups, which the timers of a slot are grouped by
+     */
+    public void startTimerService(
+            TypeSerializer<K> keySerializer,
+            TypeSerializer<N> namespaceSerializer,
+            Triggerable<K, N> triggerTarget,
+            long timerResolution,
+            int maxParallelism) {
 
         if (!isInitialized) {
+            checkArgument(timerResolution >= 0, "The timer resolution must not be negative.");
 
             if (keySerializer == null || namespaceSerializer == null) {
                 throw new IllegalArgumentException("The TimersService serializers cannot be null.");
@@ -184,12 +257,29 @@ public class InternalTimerServiceImpl<K, N> implements InternalTimerService<N> {
 
             this.triggerTarget = Preconditions.checkNotNull(triggerTarget);
 
+            this.timerResolution = timerResolution;
+            if (timerResolution > 0) {
+                eventTimeBuckets = new TimerBuckets<>(timerResolution, maxParallelism);
+                processingTimeBuckets = new TimerBuckets<>(timerResolution, maxParallelism);
+                moveToBuckets(
+                        eventTimeTimersQueue, restoredBucketedEventTimeTimers, eventTimeBuckets);
+                moveToBuckets(
+                        processingTimeTimersQueue,
+                        restoredBucketedProcessingTimeTimers,
+                        processingTimeBuckets);
+            } else {
+                eventTimeTimersQueue.addAll(restoredBucketedEventTimeTimers);
+                processingTimeTimersQueue.addAll(restoredBucketedProcessingTimeTimers);
+            }
+            restoredBucketedEventTimeTimers.clear();
+            restoredBucketedProcessingTimeTimers.clear();
+
             // re-register the restored timers (if any)
-            final InternalTimer<K, N> headTimer = processingTimeTimersQueue.peek();
-            if (headTimer != null) {
+            final Long nextProcessingTime = getNextProcessingTime();
+            if (nextProcessingTime != null) {
                 nextTimer =
                         processingTimeService.registerTimer(
-                                headTimer.getTimestamp(), this::onProcessingTime);
+                                nextProcessingTime, this::onProcessingTime);
             }
             this.isInitialized = true;
         } else {
@@ -199,9 +289,36 @@ public class InternalTimerServiceImpl<K, N> implements InternalTimerService<N> {
                         "Already initialized Timer Service "
                                 + "tried to be initialized with different key and namespace serializers.");
             }
+            if (this.timerResolution != timerResolution) {
+                throw new IllegalArgumentException(
+                        "Already initialized Timer Service "
+                                + "tried to be initialized with a different timer resolution.");
+            }
+        }
+    }
+
+    private void moveToBuckets(
+            KeyGroupedInternalPriorityQueue<TimerHeapInternalTimer<K, N>> queue,
+            List<TimerHeapInternalTimer<K, N>> restoredTimers,
+            TimerBuckets<K, N> buckets) {
+        TimerHeapInternalTimer<K, N> timer;
+        while ((timer = queue.poll()) != null) {
+            buckets.add(timer);
+        }
+        for (TimerHeapInternalTimer<K, N> restoredTimer : restoredTimers) {
+            buckets.add(restoredTimer);
         }
     }
 
+    @Nullable
+    private Long getNextProcessingTime() {
+        if (processingTimeBuckets != null) {
+            return processingTimeBuckets.getNextFiringTime();
+        }
+        final InternalTimer<K, N> headTimer = processingTimeTimersQueue.peek();
+        return headTimer != null ? headTimer.getTimestamp() : null;
+    }
+
     @Override
     public long currentProcessingTime() {
         return processingTimeService.getCurrentProcessingTime();
@@ -214,6 +331,10 @@ public class InternalTimerServiceImpl<K, N> implements InternalTimerService<N> {
 
     @Override
     public void registerProcessingTimeTimer(N namespace, long time) {
+        if (processingTimeBuckets != null) {
+            registerBucketedProcessingTimeTimer(namespace, time);
+            return;
+        }
         InternalTimer<K, N> oldHead = processingTimeTimersQueue.peek();
         if (processingTimeTimersQueue.add(
                 new TimerHeapInternalTimer<>(time, (K) keyContext.getCurrentKey(), namespace))) {
@@ -228,41 +349,75 @@ public class InternalTimerServiceImpl<K, N> implements InternalTimerService<N> {
         }
     }
 
+    private void registerBucketedProcessingTimeTimer(N namespace, long time) {
+        Long nextFiringTime = processingTimeBuckets.getNextFiringTime();
+        if (processingTimeBuckets.add(
+                new TimerHeapInternalTimer<>(time, (K) keyContext.getCurrentKey(), namespace))) {
+            long firingTime = processingTimeBuckets.getFiringTime(time);
+            // check if we need to re-schedule our timer to earlier
+            if (nextFiringTime == null || firingTime < nextFiringTime) {
+                if (nextTimer != null) {
+                    nextTimer.cancel(false);
+                }
+                nextTimer = processingTimeService.registerTimer(firingTime, this::onProcessingTime);
+            }
+        }
+    }
+
     @Override
     public void registerEventTimeTimer(N namespace, long time) {
-        eventTimeTimersQueue.add(
-                new TimerHeapInternalTimer<>(time, (K) keyContext.getCurrentKey(), namespace));
+        TimerHeapInternalTimer<K, N> timer =
+                new TimerHeapInternalTimer<>(time, (K) keyContext.getCurrentKey(), namespace);
+        if (eventTimeBuckets != null) {
+            eventTimeBuckets.add(timer);
+        } else if (eventTimerBatch == null || !addToEventTimerBatch(timer)) {
+            eventTimeTimersQueue.add(timer);
+        }
     }
 
     @Override
     public void deleteProcessingTimeTimer(N namespace, long time) {
-        processingTimeTimersQueue.remove(
-                new TimerHeapInternalTimer<>(time, (K) keyContext.getCurrentKey(), namespace));
+        TimerHeapInternalTimer<K, N> timer =
+                new TimerHeapInternalTimer<>(time, (K) keyContext.getCurrentKey(), namespace);
+        if (processingTimeBuckets != null) {
+            processingTimeBuckets.remove(timer);
+        } else {
+            processingTimeTimersQueue.remove(timer);
+        }
     }
 
     @Override
     public void deleteEventTimeTimer(N namespace, long time) {
-        eventTimeTimersQueue.remove(
-                new TimerHeapInternalTimer<>(time, (K) keyContext.getCurrentKey(), namespace));
+        TimerHeapInternalTimer<K, N> timer =
+                new TimerHeapInternalTimer<>(time, (K) keyContext.getCurrentKey(), namespace);
+        if (eventTimeBuckets != null) {
+            eventTimeBuckets.remove(timer);
+        } else if (pendingBatchTimers == null || !pendingBatchTimers.remove(timer)) {
+            eventTimeTimersQueue.remove(timer);
+        }
     }
 
     @Override
     public void forEachEventTimeTimer(BiConsumerWithException<N, Long, Exception> consumer)
             throws Exception {
-        foreachTimer(consumer, eventTimeTimersQueue);
+        foreachTimer(consumer, eventTimeTimersQueue, eventTimeBuckets);
     }
 
     @Override
     public void forEachProcessingTimeTimer(BiConsumerWithException<N, Long, Exception> consumer)
             throws Exception {
-        foreachTimer(consumer, processingTimeTimersQueue);
+        foreachTimer(consumer, processingTimeTimersQueue, processingTimeBuckets);
     }
 
     private void foreachTimer(
             BiConsumerWithException<N, Long, Exception> consumer,
-            KeyGroupedInternalPriorityQueue<TimerHeapInternalTimer<K, N>> queue)
+            KeyGroupedInternalPriorityQueue<TimerHeapInternalTimer<K, N>> queue,
+            @Nullable TimerBuckets<K, N> buckets)
             throws Exception {
-        try (final CloseableIterator<TimerHeapInternalTimer<K, N>> iterator = queue.iterator()) {
+        try (final CloseableIterator<TimerHeapInternalTimer<K, N>> iterator =
+                buckets != null
+                        ? CloseableIterator.adapterForIterator(buckets.iterator())
+                        : queue.iterator()) {
             while (iterator.hasNext()) {
                 final TimerHeapInternalTimer<K, N> timer = iterator.next();
                 keyContext.setCurrentKey(timer.getKey());
@@ -276,6 +431,23 @@ public class InternalTimerServiceImpl<K, N> implements InternalTimerService<N> {
         // inside the callback.
         nextTimer = null;
 
+        if (processingTimeBuckets != null) {
+            processingTimeBuckets.fireDueSlots(
+                    time,
+                    timer -> {
+                        keyContext.setCurrentKey(timer.getKey());
+                        triggerTarget.onProcessingTime(timer);
+                    });
+
+            Long nextFiringTime = processingTimeBuckets.getNextFiringTime();
+            if (nextFiringTime != null && nextTimer == null) {
+                nextTimer =
+                        processingTimeService.registerTimer(
+                                nextFiringTime, this::onProcessingTime);
+            }
+            return;
+        }
+
         InternalTimer<K, N> timer;
 
         while ((timer = processingTimeTimersQueue.peek()) != null && timer.getTimestamp() <= time) {
@@ -294,6 +466,21 @@ public class InternalTimerServiceImpl<K, N> implements InternalTimerService<N> {
     public void advanceWatermark(long time) throws Exception {
         currentWatermark = time;
 
+        if (eventTimeBuckets != null) {
+            eventTimeBuckets.fireDueSlots(
+                    time,
+                    timer -> {
+                        keyContext.setCurrentKey(timer.getKey());
+                        triggerTarget.onEventTime(timer);
+                    });
+            return;
+        }
+
+        if (triggerTarget instanceof KeyIndependentTriggerable) {
+            advanceWatermarkInBatches(time);
+            return;
+        }
+
         InternalTimer<K, N> timer;
 
         while ((timer = eventTimeTimersQueue.peek()) != null && timer.getTimestamp() <= time) {
@@ -303,6 +490,85 @@ public class InternalTimerServiceImpl<K, N> implements InternalTimerService<N> {
         }
     }
 
+    /**
+     * Fires the due event-time timers in batches of up to {@link #MAX_EVENT_TIMERS_PER_BATCH}
+     * timers, grouped by key. Timers that the callbacks register for a key of the batch are added
+     * to the batch if they are earlier than the latest timer in it, so that the timers of each key
+     * still fire in the order of their timestamps. Timers at the latest timestamp go to the queue,
+     * which may still hold equal timers if the batch was cut at the maximum size.
+     */
+    private void advanceWatermarkInBatches(long time) throws Exception {
+        eventTimerBatch = new LinkedHashMap<>();
+        pendingBatchTimers = new HashSet<>();
+
+        try {
+            TimerHeapInternalTimer<K, N> timer;
+            while ((timer = eventTimeTimersQueue.peek()) != null && timer.getTimestamp() <= time) {
+                int numTimers = 0;
+                do {
+                    eventTimeTimersQueue.poll();
+                    PriorityQueue<TimerHeapInternalTimer<K, N>> keyTimers =
+                            eventTimerBatch.get(timer.getKey());
+                    if (keyTimers == null) {
+                        keyTimers = new PriorityQueue<>(2, BATCH_TIMER_COMPARATOR);
+                        eventTimerBatch.put(timer.getKey(), keyTimers);
+                    }
+                    keyTimers.add(timer);
+                    pendingBatchTimers.add(timer);
+                    batchMaxTimestamp = timer.getTimestamp();
+                } while (++numTimers < MAX_EVENT_TIMERS_PER_BATCH
+                        && (timer = eventTimeTimersQueue.peek()) != null
+                        && timer.getTimestamp() <= time);
+
+                fireEventTimerBatch();
+            }
+        } finally {
+            eventTimerBatch = null;
+            pendingBatchTimers = null;
+        }
+    }
+
+    private void fireEventTimerBatch() throws Exception {
+        Iterator<Map.Entry<K, PriorityQueue<TimerHeapInternalTimer<K, N>>>> keyIterator =
+                eventTimerBatch.entrySet().iterator();
+
+        while (keyIterator.hasNext()) {
+            Map.Entry<K, PriorityQueue<TimerHeapInternalTimer<K, N>>> keyTimers =
+                    keyIterator.next();
+            K key = keyTimers.getKey();
+            keyContext.setCurrentKey(key);
+
+            TimerHeapInternalTimer<K, N> timer;
+            while ((timer = keyTimers.getValue().poll()) != null) {
+                // skip timers that were deleted after they had been added to the batch
+                if (pendingBatchTimers.remove(timer)) {
+                    if (keyContext.getCurrentKey() != key) {
+                        keyContext.setCurrentKey(key);
+                    }
+                    triggerTarget.onEventTime(timer);
+                }
+            }
+            keyIterator.remove();
+        }
+    }
+
+    private boolean addToEventTimerBatch(TimerHeapInternalTimer<K, N> timer) {
+        if (pendingBatchTimers.contains(timer)) {
+            return true;
+        }
+        if (timer.getTimestamp() >= batchMaxTimestamp) {
+            // the queue may still contain this timer, and deduplicates it
+            return false;
+        }
+        PriorityQueue<TimerHeapInternalTimer<K, N>> keyTimers = eventTimerBatch.get(timer.getKey());
+        if (keyTimers == null) {
+            return false;
+        }
+        keyTimers.add(timer);
+        pendingBatchTimers.add(timer);
+        return true;
+    }
+
     /**
      * Snapshots the timers (both processing and event time ones) for a given {@code keyGroupIdx}.
      *
@@ -318,6 +584,20 @@ public class InternalTimerServiceImpl<K, N> implements InternalTimerService<N> {
                 processingTimeTimersQueue.getSubsetForKeyGroup(keyGroupIdx));
     }
 
+    /** Returns the event-time timers grouped into time slots, null without a timer resolution. */
+    @Nullable
+    TimerBuckets<K, N> getEventTimeBuckets() {
+        return eventTimeBuckets;
+    }
+
+    /**
+     * Returns the processing-time timers grouped into time slots, null without a timer resolution.
+     */
+    @Nullable
+    TimerBuckets<K, N> getProcessingTimeBuckets() {
+        return processingTimeBuckets;
+    }
+
     public TypeSerializer<K> getKeySerializer() {
         return keySerializer;
     }
@@ -366,30 +646,55 @@ public class InternalTimerServiceImpl<K, N> implements InternalTimerService<N> {
         processingTimeTimersQueue.addAll(restoredTimersSnapshot.getProcessingTimeTimers());
     }
 
+    /**
+     * Restores the timers of time slots for a given {@code keyGroupIdx}. They are grouped into the
+     * slots of this service when it is started, or added to the priority queues if it is started
+     * without a timer resolution.
+     */
+    void restoreBucketedTimersForKeyGroup(
+            Collection<TimerHeapInternalTimer<K, N>> eventTimeTimers,
+            Collection<TimerHeapInternalTimer<K, N>> processingTimeTimers,
+            int keyGroupIdx) {
+        checkArgument(
+                localKeyGroupRange.contains(keyGroupIdx),
+                "Key Group " + keyGroupIdx + " does not belong to the local range.");
+
+        restoredBucketedEventTimeTimers.addAll(eventTimeTimers);
+        restoredBucketedProcessingTimeTimers.addAll(processingTimeTimers);
+    }
+
     @VisibleForTesting
     public int numProcessingTimeTimers() {
-        return this.processingTimeTimersQueue.size();
+        return this.processingTimeTimersQueue.size()
+                + (processingTimeBuckets != null ? processingTimeBuckets.size() : 0);
     }
 
     @VisibleForTesting
     public int numEventTimeTimers() {
-        return this.eventTimeTimersQueue.size();
+        return this.eventTimeTimersQueue.size()
+                + (eventTimeBuckets != null ? eventTimeBuckets.size() : 0);
     }
 
     @VisibleForTesting
     public int numProcessingTimeTimers(N namespace) {
-        return countTimersInNamespaceInternal(namespace, processingTimeTimersQueue);
+        return countTimersInNamespaceInternal(
+                namespace, processingTimeTimersQueue, processingTimeBuckets);
     }
 
     @VisibleForTesting
     public int numEventTimeTimers(N namespace) {
-        return countTimersInNamespaceInternal(namespace, eventTimeTimersQueue);
+        return countTimersInNamespaceInternal(namespace, eventTimeTimersQueue, eventTimeBuckets);
     }
 
     private int countTimersInNamespaceInternal(
-            N namespace, InternalPriorityQueue<TimerHeapInternalTimer<K, N>> queue) {
+            N namespace,
+            InternalPriorityQueue<TimerHeapInternalTimer<K, N>> queue,
+            @Nullable TimerBuckets<K, N> buckets) {
         int count = 0;
-        try (final CloseableIterator<TimerHeapInternalTimer<K, N>> iterator = queue.iterator()) {
+        try (final CloseableIterator<TimerHeapInternalTimer<K, N>> iterator =
+                buckets != null
+                        ? CloseableIterator.adapterForIterator(buckets.iterator())
+                        : queue.iterator()) {
             while (iterator.hasNext()) {
                 final TimerHeapInternalTimer<K, N> timer = iterator.next();
                 if (timer.getNamespace().equals(namespace)) {
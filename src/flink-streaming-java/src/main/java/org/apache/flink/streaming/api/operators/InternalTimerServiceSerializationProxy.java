@@ -24,16 +24,28 @@ import org.apache.flink.core.io.PostVersionedIOReadableWritable;
 import org.apache.flink.core.memory.DataInputView;
 import org.apache.flink.core.memory.DataOutputView;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
-/** Serialization proxy for the timer services for a given key-group. */
+/**
+ * Serialization proxy for the timer services for a given key-group.
+ *
+ * <p>Since version 3, the timers of each service are followed by its timers of time slots, see
+ * {@link TimerBuckets}. Each slot of the key-group is written as one unit: the time at which the
+ * slot fires, the number of its timers and the timers.
+ */
 @Internal
 public class InternalTimerServiceSerializationProxy<K> extends PostVersionedIOReadableWritable {
 
-    public static final int VERSION = 2;
+    public static final int VERSION = 3;
 
     /** The key-group timer services to write / read. */
     private final InternalTimeServiceManagerImpl<K> timerServicesManager;
@@ -68,7 +80,7 @@ public class InternalTimerServiceSerializationProxy<K> extends PostVersionedIORe
 
     @Override
     public int[] getCompatibleVersions() {
-        return new int[] {VERSION, 1};
+        return new int[] {VERSION, 2, 1};
     }
 
     @Override
@@ -85,12 +97,51 @@ public class InternalTimerServiceSerializationProxy<K> extends PostVersionedIORe
             InternalTimerServiceImpl<K, ?> timerService = entry.getValue();
 
             out.writeUTF(serviceName);
-            InternalTimersSnapshotReaderWriters.getWriterForVersion(
-                            VERSION,
-                            timerService.snapshotTimersForKeyGroup(keyGroupIdx),
-                            timerService.getKeySerializer(),
-                            (TypeSerializer) timerService.getNamespaceSerializer())
-                    .writeTimersSnapshot(out);
+            writeTimerService(out, timerService);
+        }
+    }
+
+    private <N> void writeTimerService(
+            DataOutputView out, InternalTimerServiceImpl<K, N> timerService) throws IOException {
+        final TypeSerializer<K> keySerializer = timerService.getKeySerializer();
+        final TypeSerializer<N> namespaceSerializer = timerService.getNamespaceSerializer();
+
+        // the timers of the priority queues are only written if the backend does not snapshot them
+        final InternalTimersSnapshot<K, N> timersSnapshot =
+                timerServicesManager.isWritingQueuedTimersToRawKeyedState()
+                        ? timerService.snapshotTimersForKeyGroup(keyGroupIdx)
+                        : new InternalTimersSnapshot<>(
+                                keySerializer, namespaceSerializer, null, null);
+        InternalTimersSnapshotReaderWriters.getWriterForVersion(
+                        VERSION, timersSnapshot, keySerializer, namespaceSerializer)
+                .writeTimersSnapshot(out);
+
+        writeBucketedTimers(
+                out, timerService.getEventTimeBuckets(), keySerializer, namespaceSerializer);
+        writeBucketedTimers(
+                out, timerService.getProcessingTimeBuckets(), keySerializer, namespaceSerializer);
+    }
+
+    private <N> void writeBucketedTimers(
+            DataOutputView out,
+            @Nullable TimerBuckets<K, N> buckets,
+            TypeSerializer<K> keySerializer,
+            TypeSerializer<N> namespaceSerializer)
+            throws IOException {
+        final Map<Long, Set<TimerHeapInternalTimer<K, N>>> slots = new LinkedHashMap<>();
+        if (buckets != null) {
+            buckets.forEachSlotOfKeyGroup(keyGroupIdx, slots::put);
+        }
+
+        out.writeInt(slots.size());
+        for (Map.Entry<Long, Set<TimerHeapInternalTimer<K, N>>> slot : slots.entrySet()) {
+            out.writeLong(slot.getKey());
+            out.writeInt(slot.getValue().size());
+            for (TimerHeapInternalTimer<K, N> timer : slot.getValue()) {
+                keySerializer.serialize(timer.getKey(), out);
+                namespaceSerializer.serialize(timer.getNamespace(), out);
+                out.writeLong(timer.getTimestamp());
+            }
         }
     }
 
@@ -114,7 +165,50 @@ public class InternalTimerServiceSerializationProxy<K> extends PostVersionedIORe
                     registerOrGetTimerService(serviceName, restoredTimersSnapshot);
 
             timerService.restoreTimersForKeyGroup(restoredTimersSnapshot, keyGroupIdx);
+
+            if (wasVersioned && getReadVersion() >= 3) {
+                readBucketedTimers(in, timerService, restoredTimersSnapshot);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <N> void readBucketedTimers(
+            DataInputView in,
+            InternalTimerServiceImpl<K, N> timerService,
+            InternalTimersSnapshot<?, ?> restoredTimersSnapshot)
+            throws IOException {
+        final TypeSerializer<K> keySerializer =
+                (TypeSerializer<K>)
+                        restoredTimersSnapshot.getKeySerializerSnapshot().restoreSerializer();
+        final TypeSerializer<N> namespaceSerializer =
+                (TypeSerializer<N>)
+                        restoredTimersSnapshot.getNamespaceSerializerSnapshot().restoreSerializer();
+
+        timerService.restoreBucketedTimersForKeyGroup(
+                readBucketedTimers(in, keySerializer, namespaceSerializer),
+                readBucketedTimers(in, keySerializer, namespaceSerializer),
+                keyGroupIdx);
+    }
+
+    private static <K, N> List<TimerHeapInternalTimer<K, N>> readBucketedTimers(
+            DataInputView in,
+            TypeSerializer<K> keySerializer,
+            TypeSerializer<N> namespaceSerializer)
+            throws IOException {
+        final List<TimerHeapInternalTimer<K, N>> timers = new ArrayList<>();
+        final int numSlots = in.readInt();
+        for (int i = 0; i < numSlots; i++) {
+            // the time at which the slot fires follows from the timestamps of its timers
+            in.readLong();
+            final int numTimers = in.readInt();
+            for (int j = 0; j < numTimers; j++) {
+                final K key = keySerializer.deserialize(in);
+                final N namespace = namespaceSerializer.deserialize(in);
+                timers.add(new TimerHeapInternalTimer<>(in.readLong(), key, namespace));
+            }
         }
+        return timers;
     }
 
     @SuppressWarnings("unchecked")
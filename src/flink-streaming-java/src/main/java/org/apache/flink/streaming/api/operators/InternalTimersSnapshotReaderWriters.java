@@ -55,6 +55,7 @@ public class InternalTimersSnapshotReaderWriters {
     //   - pre-versioned: Flink 1.4.0
     //   - v1: Flink 1.4.1
     //   - v2: Flink 1.8.0
+    //   - v3: same as v2, the proxy adds the timers of time slots after the snapshot
     // -------------------------------------------------------------------------------
 
     public static <K, N> InternalTimersSnapshotWriter getWriterForVersion(
@@ -72,6 +73,7 @@ public class InternalTimersSnapshotReaderWriters {
                 return new InternalTimersSnapshotWriterV1<>(
                         timersSnapshot, keySerializer, namespaceSerializer);
 
+            case 2:
             case InternalTimerServiceSerializationProxy.VERSION:
                 return new InternalTimersSnapshotWriterV2<>(
                         timersSnapshot, keySerializer, namespaceSerializer);
@@ -228,6 +230,7 @@ public class InternalTimersSnapshotReaderWriters {
             case 1:
                 return new InternalTimersSnapshotReaderV1<>(userCodeClassLoader);
 
+            case 2:
             case InternalTimerServiceSerializationProxy.VERSION:
                 return new InternalTimersSnapshotReaderV2<>(userCodeClassLoader);
 
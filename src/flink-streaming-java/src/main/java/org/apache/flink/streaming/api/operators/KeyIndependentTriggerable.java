@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.streaming.api.operators;
+
+import org.apache.flink.annotation.Internal;
+
+/**
+ * A {@link Triggerable} whose event-time callbacks for different keys are independent of each
+ * other, so that the order in which the timers of different keys fire does not matter.
+ *
+ * <p>When the watermark advances, the {@link InternalTimerServiceImpl} drains the due event-time
+ * timers of such a triggerable in batches and fires them grouped by key. The current key is set
+ * once per key and batch instead of once per timer. The timers of one key still fire in the order
+ * of their timestamps.
+ *
+ * @param <K> Type of the keys to which timers are scoped.
+ * @param <N> Type of the namespace to which timers are scoped.
+ */
+@Internal
+public interface KeyIndependentTriggerable<K, N> extends Triggerable<K, N> {}
@@ -56,7 +56,11 @@ public class KeyedProcessOperator<K, IN, OUT>
         collector = new TimestampedCollector<>(output);
 
         InternalTimerService<VoidNamespace> internalTimerService =
-                getInternalTimerService("user-timers", VoidNamespaceSerializer.INSTANCE, this);
+                getInternalTimerService(
+                        "user-timers",
+                        VoidNamespaceSerializer.INSTANCE,
+                        this,
+                        getExecutionConfig().getTimerResolution());
 
         TimerService timerService = new SimpleTimerService(internalTimerService);
 
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.util.function.ThrowingConsumer;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * The timers of one time domain of an {@link InternalTimerServiceImpl} with a timer resolution.
+ * The timers are grouped into time slots of the length of the resolution, and within a slot by key
+ * group. A slot is fired once the time reaches its end, and each key group of a slot is written to
+ * a checkpoint as one unit.
+ *
+ * <p>Every timer keeps its exact timestamp, so the timers of a slot fire in the order of their
+ * timestamps and deleting a timer does not affect the other timers of its slot.
+ */
+final class TimerBuckets<K, N> {
+
+    /** The length of a slot in milliseconds. */
+    private final long resolution;
+
+    private final int maxParallelism;
+
+    /** The timers of each slot by key group, with the slots keyed by the time they fire at. */
+    private final TreeMap<Long, Map<Integer, Set<TimerHeapInternalTimer<K, N>>>> slots;
+
+    /** The timers of the slot that is being fired that have neither fired nor been deleted. */
+    @Nullable private Set<TimerHeapInternalTimer<K, N>> firingTimers;
+
+    private int size;
+
+    TimerBuckets(long resolution, int maxParallelism) {
+        checkArgument(resolution > 0, "The timer resolution must be positive.");
+        this.resolution = resolution;
+        this.maxParallelism = maxParallelism;
+        this.slots = new TreeMap<>();
+    }
+
+    /** Adds the timer, returns false if it was already contained. */
+    boolean add(TimerHeapInternalTimer<K, N> timer) {
+        if (firingTimers != null && firingTimers.contains(timer)) {
+            return false;
+        }
+        int keyGroup = KeyGroupRangeAssignment.assignToKeyGroup(timer.getKey(), maxParallelism);
+        if (slots.computeIfAbsent(getFiringTime(timer.getTimestamp()), ignored -> new HashMap<>(4))
+                .computeIfAbsent(keyGroup, ignored -> new HashSet<>())
+                .add(timer)) {
+            size++;
+            return true;
+        }
+        return false;
+    }
+
+    /** Removes the timer, returns false if it was not contained. */
+    boolean remove(TimerHeapInternalTimer<K, N> timer) {
+        if (firingTimers != null && firingTimers.remove(timer)) {
+            return true;
+        }
+        long slot = getFiringTime(timer.getTimestamp());
+        Map<Integer, Set<TimerHeapInternalTimer<K, N>>> keyGroups = slots.get(slot);
+        if (keyGroups == null) {
+            return false;
+        }
+        int keyGroup = KeyGroupRangeAssignment.assignToKeyGroup(timer.getKey(), maxParallelism);
+        Set<TimerHeapInternalTimer<K, N>> timers = keyGroups.get(keyGroup);
+        if (timers == null || !timers.remove(timer)) {
+            return false;
+        }
+        size--;
+        if (timers.isEmpty()) {
+            keyGroups.remove(keyGroup);
+            if (keyGroups.isEmpty()) {
+                slots.remove(slot);
+            }
+        }
+        return true;
+    }
+
+    /** Returns the time at which the earliest slot fires, or null if there are no timers. */
+    @Nullable
+    Long getNextFiringTime() {
+        return slots.isEmpty() ? null : slots.firstKey();
+    }
+
+    /** Returns the time at which the slot of the given timestamp fires, the end of the slot. */
+    long getFiringTime(long timestamp) {
+        long remainingTime = resolution - 1 - Math.floorMod(timestamp, resolution);
+        return timestamp > Long.MAX_VALUE - remainingTime
+                ? Long.MAX_VALUE
+                : timestamp + remainingTime;
+    }
+
+    /**
+     * Fires the timers of all slots that end at or before the given time, slot by slot and within
+     * a slot in the order of the timestamps. Timers that are added for a due slot while it fires
+     * are fired as well.
+     */
+    void fireDueSlots(long time, ThrowingConsumer<TimerHeapInternalTimer<K, N>, Exception> action)
+            throws Exception {
+        Map.Entry<Long, Map<Integer, Set<TimerHeapInternalTimer<K, N>>>> slot;
+        while ((slot = slots.firstEntry()) != null && slot.getKey() <= time) {
+            slots.remove(slot.getKey());
+
+            List<TimerHeapInternalTimer<K, N>> timers = new ArrayList<>();
+            for (Set<TimerHeapInternalTimer<K, N>> keyGroupTimers : slot.getValue().values()) {
+                timers.addAll(keyGroupTimers);
+            }
+            size -= timers.size();
+            timers.sort(InternalTimer.TIMER_COMPARATOR::comparePriority);
+
+            firingTimers = new HashSet<>(timers);
+            try {
+                for (TimerHeapInternalTimer<K, N> timer : timers) {
+                    // skip timers that were deleted by an earlier timer of the slot
+                    if (firingTimers.remove(timer)) {
+                        action.accept(timer);
+                    }
+                }
+            } finally {
+                firingTimers = null;
+            }
+        }
+    }
+
+    /**
+     * Passes the timers of each slot of the given key group to the consumer, together with the time
+     * at which the slot fires.
+     */
+    void forEachSlotOfKeyGroup(
+            int keyGroup, BiConsumer<Long, Set<TimerHeapInternalTimer<K, N>>> consumer) {
+        for (Map.Entry<Long, Map<Integer, Set<TimerHeapInternalTimer<K, N>>>> slot :
+                slots.entrySet()) {
+            Set<TimerHeapInternalTimer<K, N>> timers = slot.getValue().get(keyGroup);
+            if (timers != null) {
+                consumer.accept(slot.getKey(), timers);
+            }
+        }
+    }
+
+    /** Returns an iterator over all timers that have not fired yet. */
+    Iterator<TimerHeapInternalTimer<K, N>> iterator() {
+        List<TimerHeapInternalTimer<K, N>> timers = new ArrayList<>(size);
+        for (Map<Integer, Set<TimerHeapInternalTimer<K, N>>> keyGroups : slots.values()) {
+            for (Set<TimerHeapInternalTimer<K, N>> keyGroupTimers : keyGroups.values()) {
+                timers.addAll(keyGroupTimers);
+            }
+        }
+        return timers.iterator();
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators.async;
+
+import org.apache.flink.api.common.functions.RuntimeContext;
+import org.apache.flink.api.common.functions.util.FunctionUtils;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.streaming.api.functions.async.AsyncBatchFunction;
+import org.apache.flink.streaming.api.functions.async.AsyncFunction;
+import org.apache.flink.streaming.api.functions.async.ResultFuture;
+import org.apache.flink.streaming.api.functions.async.RichAsyncFunction;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adapts an {@link AsyncBatchFunction} to the per-record {@link AsyncFunction} interface of the
+ * {@link AsyncWaitOperator}. Each invocation only adds the input to the pending batch; the operator
+ * decides when the batch is flushed to the batch function.
+ *
+ * <p>The records of a batch are coalesced by their lookup key, or by the records themselves if
+ * there is no key selector. Each distinct key is one input of the batch call, whose result is
+ * handed to the result futures of all records with that key.
+ *
+ * <p>The batch function gets the restricted runtime context of a {@link RichAsyncFunction}, because
+ * it may be called back from other threads as well.
+ *
+ * @param <IN> The type of the input elements.
+ * @param <KEY> The type of the lookup keys.
+ * @param <OUT> The type of the returned elements.
+ */
+final class AsyncBatchFunctionAdapter<IN, KEY, OUT> extends RichAsyncFunction<IN, OUT> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final AsyncBatchFunction<KEY, OUT> batchFunction;
+
+    /** Extracts the lookup key of a record, null to coalesce equal records. */
+    @Nullable private final KeySelector<IN, KEY> keySelector;
+
+    /** The distinct keys of the pending batch, mapped to the result futures of their records. */
+    private transient Map<KEY, List<ResultFuture<OUT>>> pendingInputs;
+
+    AsyncBatchFunctionAdapter(
+            AsyncBatchFunction<KEY, OUT> batchFunction,
+            @Nullable KeySelector<IN, KEY> keySelector) {
+        this.batchFunction = Preconditions.checkNotNull(batchFunction);
+        this.keySelector = keySelector;
+    }
+
+    @Override
+    public void setRuntimeContext(RuntimeContext runtimeContext) {
+        super.setRuntimeContext(runtimeContext);
+        FunctionUtils.setFunctionRuntimeContext(batchFunction, getRuntimeContext());
+    }
+
+    @Override
+    public void open(Configuration parameters) throws Exception {
+        FunctionUtils.openFunction(batchFunction, parameters);
+        pendingInputs = new LinkedHashMap<>();
+    }
+
+    @Override
+    public void close() throws Exception {
+        FunctionUtils.closeFunction(batchFunction);
+    }
+
+    @Override
+    public void asyncInvoke(IN input, ResultFuture<OUT> resultFuture) throws Exception {
+        pendingInputs
+                .computeIfAbsent(getKey(input), ignored -> new ArrayList<>(1))
+                .add(resultFuture);
+    }
+
+    @Override
+    public void timeout(IN input, ResultFuture<OUT> resultFuture) throws Exception {
+        batchFunction.timeout(getKey(input), resultFuture);
+    }
+
+    @SuppressWarnings("unchecked")
+    private KEY getKey(IN input) throws Exception {
+        return keySelector == null ? (KEY) input : keySelector.getKey(input);
+    }
+
+    /** Returns the number of distinct keys in the pending batch. */
+    int getNumPendingInputs() {
+        return pendingInputs.size();
+    }
+
+    /** Passes the pending batch, if any, to the batch function. */
+    void flush() throws Exception {
+        if (pendingInputs.isEmpty()) {
+            return;
+        }
+
+        final List<KEY> inputs = new ArrayList<>(pendingInputs.keySet());
+        final List<ResultFuture<OUT>> resultFutures = new ArrayList<>(inputs.size());
+        for (List<ResultFuture<OUT>> recordFutures : pendingInputs.values()) {
+            resultFutures.add(
+                    recordFutures.size() == 1
+                            ? recordFutures.get(0)
+                            : new CoalescedResultFuture<>(recordFutures));
+        }
+        pendingInputs = new LinkedHashMap<>();
+
+        batchFunction.asyncInvokeBatch(
+                Collections.unmodifiableList(inputs), Collections.unmodifiableList(resultFutures));
+    }
+
+    /** Hands the result of a coalesced input to the result futures of all its records. */
+    private static final class CoalescedResultFuture<OUT> implements ResultFuture<OUT> {
+
+        private final List<ResultFuture<OUT>> recordFutures;
+
+        CoalescedResultFuture(List<ResultFuture<OUT>> recordFutures) {
+            this.recordFutures = recordFutures;
+        }
+
+        @Override
+        public void complete(Collection<OUT> result) {
+            for (ResultFuture<OUT> recordFuture : recordFutures) {
+                recordFuture.complete(result);
+            }
+        }
+
+        @Override
+        public void completeExceptionally(Throwable error) {
+            for (ResultFuture<OUT> recordFuture : recordFutures) {
+                recordFuture.completeExceptionally(error);
+            }
+        }
+    }
+}
@@ -22,10 +22,12 @@ import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.state.ListState;
 import org.apache.flink.api.common.state.ListStateDescriptor;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.runtime.state.StateInitializationContext;
 import org.apache.flink.runtime.state.StateSnapshotContext;
 import org.apache.flink.streaming.api.datastream.AsyncDataStream;
 import org.apache.flink.streaming.api.datastream.AsyncDataStream.OutputMode;
+import org.apache.flink.streaming.api.functions.async.AsyncBatchFunction;
 import org.apache.flink.streaming.api.functions.async.AsyncFunction;
 import org.apache.flink.streaming.api.functions.async.ResultFuture;
 import org.apache.flink.streaming.api.graph.StreamConfig;
@@ -48,6 +50,7 @@ import org.apache.flink.streaming.runtime.tasks.StreamTask;
 import org.apache.flink.util.Preconditions;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -67,6 +70,11 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * {@link StreamElement} in it's operator state. Upon recovery the recorded set of stream elements
  * is replayed.
  *
+ * <p>With an {@link AsyncBatchFunction}, the operator collects the inputs into batches of at most
+ * the maximum batch size and flushes a batch once it is full, once the maximum batch delay has
+ * passed, or when the operator has to wait for in-flight elements. The collected inputs are already
+ * part of the queue, so the output modes and the stored state are the same as for single inputs.
+ *
  * <p>In case of chaining of this operator, it has to be made sure that the operators in the chain
  * are opened tail to head. The reason for this is that an opened {@link AsyncWaitOperator} starts
  * already emitting recovered {@link StreamElement} to downstream operators.
@@ -91,6 +99,18 @@ public class AsyncWaitOperator<IN, OUT>
     /** Timeout for the async collectors. */
     private final long timeout;
 
+    /** The batching adapter of the user function, null if the inputs are not batched. */
+    @Nullable private final AsyncBatchFunctionAdapter<IN, ?, OUT> batchFunction;
+
+    /** Maximum number of distinct inputs per batch. */
+    private final int maxBatchSize;
+
+    /** Maximum time in milliseconds that an input waits for its batch to be flushed. */
+    private final long maxBatchDelay;
+
+    /** Timer that flushes the pending batch, not null iff there are pending inputs. */
+    private transient ScheduledFuture<?> batchFlushTimer;
+
     /** {@link TypeSerializer} for inputs while making snapshots. */
     private transient StreamElementSerializer<IN> inStreamElementSerializer;
 
@@ -112,6 +132,55 @@ public class AsyncWaitOperator<IN, OUT>
             @Nonnull AsyncDataStream.OutputMode outputMode,
             @Nonnull ProcessingTimeService processingTimeService,
             @Nonnull MailboxExecutor mailboxExecutor) {
+        this(
+                asyncFunction,
+                timeout,
+                capacity,
+                outputMode,
+                1,
+                0L,
+                processingTimeService,
+                mailboxExecutor);
+    }
+
+    /**
+     * Creates an operator that passes the inputs in batches to the given {@link
+     * AsyncBatchFunction}.
+     *
+     * @param asyncBatchFunction the function called with the distinct inputs or keys of a batch
+     * @param keySelector extracts the lookup keys that the records are coalesced by, or null to
+     *     coalesce equal records, in which case the key type must be the input type
+     */
+    public <KEY> AsyncWaitOperator(
+            @Nonnull AsyncBatchFunction<KEY, OUT> asyncBatchFunction,
+            @Nullable KeySelector<IN, KEY> keySelector,
+            long timeout,
+            int capacity,
+            @Nonnull AsyncDataStream.OutputMode outputMode,
+            int maxBatchSize,
+            long maxBatchDelay,
+            @Nonnull ProcessingTimeService processingTimeService,
+            @Nonnull MailboxExecutor mailboxExecutor) {
+        this(
+                new AsyncBatchFunctionAdapter<>(asyncBatchFunction, keySelector),
+                timeout,
+                capacity,
+                outputMode,
+                maxBatchSize,
+                maxBatchDelay,
+                processingTimeService,
+                mailboxExecutor);
+    }
+
+    private AsyncWaitOperator(
+            AsyncFunction<IN, OUT> asyncFunction,
+            long timeout,
+            int capacity,
+            AsyncDataStream.OutputMode outputMode,
+            int maxBatchSize,
+            long maxBatchDelay,
+            ProcessingTimeService processingTimeService,
+            MailboxExecutor mailboxExecutor) {
         super(asyncFunction);
 
         setChainingStrategy(ChainingStrategy.ALWAYS);
@@ -124,6 +193,17 @@ public class AsyncWaitOperator<IN, OUT>
 
         this.timeout = timeout;
 
+        this.batchFunction =
+                asyncFunction instanceof AsyncBatchFunctionAdapter
+                        ? (AsyncBatchFunctionAdapter<IN, ?, OUT>) asyncFunction
+                        : null;
+        Preconditions.checkArgument(maxBatchSize > 0, "The maximum batch size must be positive.");
+        Preconditions.checkArgument(
+                batchFunction == null || maxBatchDelay > 0,
+                "The maximum batch delay must be positive.");
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchDelay = maxBatchDelay;
+
         this.processingTimeService = Preconditions.checkNotNull(processingTimeService);
 
         this.mailboxExecutor = mailboxExecutor;
@@ -179,6 +259,15 @@ public class AsyncWaitOperator<IN, OUT>
 
     @Override
     public void processElement(StreamRecord<IN> element) throws Exception {
+        if (batchFunction != null && getExecutionConfig().isObjectReuseEnabled()) {
+            // batched inputs are only read when the batch is flushed, so they must not be reused
+            element =
+                    element.copy(
+                            inStreamElementSerializer
+                                    .getContainedTypeSerializer()
+                                    .copy(element.getValue()));
+        }
+
         // add element first to the queue
         final ResultFuture<OUT> entry = addToWorkQueue(element);
 
@@ -190,6 +279,19 @@ public class AsyncWaitOperator<IN, OUT>
         }
 
         userFunction.asyncInvoke(element.getValue(), resultHandler);
+
+        if (batchFunction != null) {
+            if (batchFunction.getNumPendingInputs() >= maxBatchSize) {
+                flushBatch();
+            } else if (batchFlushTimer == null) {
+                batchFlushTimer =
+                        getProcessingTimeService()
+                                .registerTimer(
+                                        getProcessingTimeService().getCurrentProcessingTime()
+                                                + maxBatchDelay,
+                                        timestamp -> flushBatch());
+            }
+        }
     }
 
     @Override
@@ -248,32 +350,47 @@ public class AsyncWaitOperator<IN, OUT>
      * until the element has been added.
      *
      * <p>Between two insertion attempts, this method yields the execution to the mailbox, such that
-     * events as well as asynchronous results can be processed.
+     * events as well as asynchronous results can be processed. Pending batched inputs are flushed
+     * before yielding.
      *
      * @param streamElement to add to the operator's queue
      * @throws InterruptedException if the current thread has been interrupted while yielding to
      *     mailbox
+     * @throws Exception if the pending batch could not be passed to the batch function
      * @return a handle that allows to set the result of the async computation for the given
      *     element.
      */
-    private ResultFuture<OUT> addToWorkQueue(StreamElement streamElement)
-            throws InterruptedException {
+    private ResultFuture<OUT> addToWorkQueue(StreamElement streamElement) throws Exception {
 
         Optional<ResultFuture<OUT>> queueEntry;
         while (!(queueEntry = queue.tryPut(streamElement)).isPresent()) {
+            // the queue may be full of pending inputs that only complete once flushed
+            flushBatch();
             mailboxExecutor.yield();
         }
 
         return queueEntry.get();
     }
 
-    private void waitInFlightInputsFinished() throws InterruptedException {
+    private void waitInFlightInputsFinished() throws Exception {
+        flushBatch();
 
         while (!queue.isEmpty()) {
             mailboxExecutor.yield();
         }
     }
 
+    /** Passes the pending inputs, if any, to the {@link AsyncBatchFunction}. */
+    private void flushBatch() throws Exception {
+        if (batchFlushTimer != null) {
+            batchFlushTimer.cancel(false);
+            batchFlushTimer = null;
+        }
+        if (batchFunction != null) {
+            batchFunction.flush();
+        }
+    }
+
     /**
      * Outputs one completed element. Watermarks are always completed if it's their turn to be
      * processed.
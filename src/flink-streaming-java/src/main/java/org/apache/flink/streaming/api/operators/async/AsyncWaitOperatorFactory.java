@@ -17,7 +17,9 @@
 
 package org.apache.flink.streaming.api.operators.async;
 
+import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.streaming.api.datastream.AsyncDataStream;
+import org.apache.flink.streaming.api.functions.async.AsyncBatchFunction;
 import org.apache.flink.streaming.api.functions.async.AsyncFunction;
 import org.apache.flink.streaming.api.operators.AbstractStreamOperatorFactory;
 import org.apache.flink.streaming.api.operators.ChainingStrategy;
@@ -36,9 +38,13 @@ public class AsyncWaitOperatorFactory<IN, OUT> extends AbstractStreamOperatorFac
         implements OneInputStreamOperatorFactory<IN, OUT>, YieldingOperatorFactory<OUT> {
 
     private final AsyncFunction<IN, OUT> asyncFunction;
+    private final AsyncBatchFunction<?, OUT> asyncBatchFunction;
+    private final KeySelector<IN, ?> keySelector;
     private final long timeout;
     private final int capacity;
     private final AsyncDataStream.OutputMode outputMode;
+    private final int maxBatchSize;
+    private final long maxBatchDelay;
     private MailboxExecutor mailboxExecutor;
 
     public AsyncWaitOperatorFactory(
@@ -46,10 +52,63 @@ public class AsyncWaitOperatorFactory<IN, OUT> extends AbstractStreamOperatorFac
             long timeout,
             int capacity,
             AsyncDataStream.OutputMode outputMode) {
+        this(asyncFunction, null, null, timeout, capacity, outputMode, 1, 0L);
+    }
+
+    public AsyncWaitOperatorFactory(
+            AsyncBatchFunction<IN, OUT> asyncBatchFunction,
+            long timeout,
+            int capacity,
+            AsyncDataStream.OutputMode outputMode,
+            int maxBatchSize,
+            long maxBatchDelay) {
+        this(
+                null,
+                asyncBatchFunction,
+                null,
+                timeout,
+                capacity,
+                outputMode,
+                maxBatchSize,
+                maxBatchDelay);
+    }
+
+    public <KEY> AsyncWaitOperatorFactory(
+            KeySelector<IN, KEY> keySelector,
+            AsyncBatchFunction<KEY, OUT> asyncBatchFunction,
+            long timeout,
+            int capacity,
+            AsyncDataStream.OutputMode outputMode,
+            int maxBatchSize,
+            long maxBatchDelay) {
+        this(
+                null,
+                asyncBatchFunction,
+                keySelector,
+                timeout,
+                capacity,
+                outputMode,
+                maxBatchSize,
+                maxBatchDelay);
+    }
+
+    private AsyncWaitOperatorFactory(
+            AsyncFunction<IN, OUT> asyncFunction,
+            AsyncBatchFunction<?, OUT> asyncBatchFunction,
+            KeySelector<IN, ?> keySelector,
+            long timeout,
+            int capacity,
+            AsyncDataStream.OutputMode outputMode,
+            int maxBatchSize,
+            long maxBatchDelay) {
         this.asyncFunction = asyncFunction;
+        this.asyncBatchFunction = asyncBatchFunction;
+        this.keySelector = keySelector;
         this.timeout = timeout;
         this.capacity = capacity;
         this.outputMode = outputMode;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchDelay = maxBatchDelay;
         this.chainingStrategy = ChainingStrategy.ALWAYS;
     }
 
@@ -62,13 +121,24 @@ public class AsyncWaitOperatorFactory<IN, OUT> extends AbstractStreamOperatorFac
     public <T extends StreamOperator<OUT>> T createStreamOperator(
             StreamOperatorParameters<OUT> parameters) {
         AsyncWaitOperator asyncWaitOperator =
-                new AsyncWaitOperator(
-                        asyncFunction,
-                        timeout,
-                        capacity,
-                        outputMode,
-                        processingTimeService,
-                        mailboxExecutor);
+                asyncBatchFunction == null
+                        ? new AsyncWaitOperator(
+                                asyncFunction,
+                                timeout,
+                                capacity,
+                                outputMode,
+                                processingTimeService,
+                                mailboxExecutor)
+                        : new AsyncWaitOperator(
+                                asyncBatchFunction,
+                                keySelector,
+                                timeout,
+                                capacity,
+                                outputMode,
+                                maxBatchSize,
+                                maxBatchDelay,
+                                processingTimeService,
+                                mailboxExecutor);
         asyncWaitOperator.setup(
                 parameters.getContainingTask(),
                 parameters.getStreamConfig(),
@@ -92,6 +92,10 @@ public class SlidingEventTimeWindows extends WindowAssigner<Object, TimeWindow>
         return slide;
     }
 
+    public long getOffset() {
+        return offset;
+    }
+
     @Override
     public Trigger<Object, TimeWindow> getDefaultTrigger(StreamExecutionEnvironment env) {
         return EventTimeTrigger.create();
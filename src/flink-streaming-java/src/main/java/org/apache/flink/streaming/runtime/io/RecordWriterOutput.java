@@ -46,6 +46,8 @@ public class RecordWriterOutput<OUT> implements WatermarkGaugeExposingOutput<Str
 
     private RecordWriter<SerializationDelegate<StreamElement>> recordWriter;
 
+    private TypeSerializer<StreamElement> outRecordSerializer;
+
     private SerializationDelegate<StreamElement> serializationDelegate;
 
     private final StreamStatusProvider streamStatusProvider;
@@ -71,8 +73,7 @@ public class RecordWriterOutput<OUT> implements WatermarkGaugeExposingOutput<Str
         this.recordWriter =
                 (RecordWriter<SerializationDelegate<StreamElement>>) (RecordWriter<?>) recordWriter;
 
-        TypeSerializer<StreamElement> outRecordSerializer =
-                new StreamElementSerializer<>(outSerializer);
+        this.outRecordSerializer = new StreamElementSerializer<>(outSerializer);
 
         if (outSerializer != null) {
             serializationDelegate = new SerializationDelegate<StreamElement>(outRecordSerializer);
@@ -83,6 +84,28 @@ public class RecordWriterOutput<OUT> implements WatermarkGaugeExposingOutput<Str
         this.supportsUnalignedCheckpoints = supportsUnalignedCheckpoints;
     }
 
+    /**
+     * Lets the record writer hand over copies of the emitted elements to consumers in the same
+     * TaskManager, instead of serializing them. The copies are created with the element serializer,
+     * so the consumer never shares an instance with this task.
+     */
+    public void enableObjectHandover() {
+        if (serializationDelegate == null) {
+            return;
+        }
+
+        SerializationDelegate<StreamElement> placeholder =
+                new SerializationDelegate<>(outRecordSerializer);
+        placeholder.setInstance(StreamElementSerializer.HANDED_OVER);
+
+        try {
+            recordWriter.enableObjectHandover(
+                    delegate -> outRecordSerializer.copy(delegate.getInstance()), placeholder);
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
     @Override
     public void collect(StreamRecord<OUT> record) {
         if (this.outputTag != null) {
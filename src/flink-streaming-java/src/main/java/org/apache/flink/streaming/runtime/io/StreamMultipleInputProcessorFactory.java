@@ -107,7 +107,8 @@ public class StreamMultipleInputProcessorFactory {
                                 new StatusWatermarkValve(
                                         checkpointedInputGates[networkInput.getInputGateIndex()]
                                                 .getNumberOfInputChannels()),
-                                i);
+                                i,
+                                executionConfig.getInputBatchSize());
             } else if (configuredInput instanceof StreamConfig.SourceInputConfig) {
                 StreamConfig.SourceInputConfig sourceInput =
                         (StreamConfig.SourceInputConfig) configuredInput;
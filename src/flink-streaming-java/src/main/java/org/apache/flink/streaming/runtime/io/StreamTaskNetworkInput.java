@@ -31,7 +31,10 @@ import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer;
 import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer.DeserializationResult;
 import org.apache.flink.runtime.io.network.api.serialization.SpillingAdaptiveSpanningRecordDeserializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.partition.ObjectHandoverQueue;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
+import org.apache.flink.runtime.io.network.partition.consumer.InputChannel;
+import org.apache.flink.runtime.io.network.partition.consumer.LocalInputChannel;
 import org.apache.flink.runtime.plugable.DeserializationDelegate;
 import org.apache.flink.runtime.plugable.NonReusingDeserializationDelegate;
 import org.apache.flink.streaming.api.watermark.Watermark;
@@ -41,7 +44,10 @@ import org.apache.flink.streaming.runtime.streamstatus.StatusWatermarkValve;
 import org.apache.flink.streaming.runtime.streamstatus.StreamStatus;
 import org.apache.flink.util.Preconditions;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -87,12 +93,37 @@ public final class StreamTaskNetworkInput<T> implements StreamTaskInput<T> {
     private RecordDeserializer<DeserializationDelegate<StreamElement>> currentRecordDeserializer =
             null;
 
+    /** Objects handed over through {@link #lastChannel}, looked up on the first placeholder. */
+    @Nullable private ObjectHandoverQueue currentObjectHandoverQueue = null;
+
+    /**
+     * Reusable batch of the elements deserialized from the current buffer in one pass, or null if
+     * the elements are deserialized and processed one by one.
+     */
+    @Nullable private final StreamElement[] elementBatch;
+
     public StreamTaskNetworkInput(
             CheckpointedInputGate checkpointedInputGate,
             TypeSerializer<?> inputSerializer,
             IOManager ioManager,
             StatusWatermarkValve statusWatermarkValve,
             int inputIndex) {
+        this(
+                checkpointedInputGate,
+                inputSerializer,
+                ioManager,
+                statusWatermarkValve,
+                inputIndex,
+                1);
+    }
+
+    public StreamTaskNetworkInput(
+            CheckpointedInputGate checkpointedInputGate,
+            TypeSerializer<?> inputSerializer,
+            IOManager ioManager,
+            StatusWatermarkValve statusWatermarkValve,
+            int inputIndex,
+            int inputBatchSize) {
         this.checkpointedInputGate = checkpointedInputGate;
         this.deserializationDelegate =
                 new NonReusingDeserializationDelegate<>(
@@ -115,6 +146,7 @@ public final class StreamTaskNetworkInput<T> implements StreamTaskInput<T> {
 
         this.statusWatermarkValve = checkNotNull(statusWatermarkValve);
         this.inputIndex = inputIndex;
+        this.elementBatch = createElementBatch(inputBatchSize);
     }
 
     @VisibleForTesting
@@ -124,6 +156,23 @@ public final class StreamTaskNetworkInput<T> implements StreamTaskInput<T> {
             StatusWatermarkValve statusWatermarkValve,
             int inputIndex,
             RecordDeserializer<DeserializationDelegate<StreamElement>>[] recordDeserializers) {
+        this(
+                checkpointedInputGate,
+                inputSerializer,
+                statusWatermarkValve,
+                inputIndex,
+                recordDeserializers,
+                1);
+    }
+
+    @VisibleForTesting
+    StreamTaskNetworkInput(
+            CheckpointedInputGate checkpointedInputGate,
+            TypeSerializer<?> inputSerializer,
+            StatusWatermarkValve statusWatermarkValve,
+            int inputIndex,
+            RecordDeserializer<DeserializationDelegate<StreamElement>>[] recordDeserializers,
+            int inputBatchSize) {
         Preconditions.checkArgument(
                 checkpointedInputGate.getChannelInfos().stream()
                                 .map(InputChannelInfo::getGateIdx)
@@ -150,6 +199,13 @@ public final class StreamTaskNetworkInput<T> implements StreamTaskInput<T> {
 
         this.statusWatermarkValve = statusWatermarkValve;
         this.inputIndex = inputIndex;
+        this.elementBatch = createElementBatch(inputBatchSize);
+    }
+
+    @Nullable
+    private static StreamElement[] createElementBatch(int inputBatchSize) {
+        Preconditions.checkArgument(inputBatchSize > 0, "The input batch size must be positive.");
+        return inputBatchSize > 1 ? new StreamElement[inputBatchSize] : null;
     }
 
     @Override
@@ -158,20 +214,13 @@ public final class StreamTaskNetworkInput<T> implements StreamTaskInput<T> {
         while (true) {
             // get the stream element from the deserializer
             if (currentRecordDeserializer != null) {
-                DeserializationResult result;
-                try {
-                    result = currentRecordDeserializer.getNextRecord(deserializationDelegate);
-                } catch (IOException e) {
-                    throw new IOException(
-                            String.format("Can't get next record for channel %s", lastChannel), e);
-                }
-                if (result.isBufferConsumed()) {
-                    currentRecordDeserializer.getCurrentBuffer().recycleBuffer();
-                    currentRecordDeserializer = null;
-                }
-
-                if (result.isFullRecord()) {
-                    processElement(deserializationDelegate.getInstance(), output);
+                StreamElement element = readNextElement();
+                if (element != null) {
+                    if (elementBatch != null && currentRecordDeserializer != null) {
+                        processElementBatch(element, output);
+                    } else {
+                        processElement(element, output);
+                    }
                     return InputStatus.MORE_AVAILABLE;
                 }
             }
@@ -199,6 +248,61 @@ public final class StreamTaskNetworkInput<T> implements StreamTaskInput<T> {
         }
     }
 
+    /**
+     * Reads the next element from the current record deserializer and releases the deserializer's
+     * buffer once it is consumed.
+     *
+     * @return the next element, or null if the current buffer holds no more complete record
+     */
+    @Nullable
+    private StreamElement readNextElement() throws IOException {
+        DeserializationResult result;
+        try {
+            result = currentRecordDeserializer.getNextRecord(deserializationDelegate);
+        } catch (IOException e) {
+            throw new IOException(
+                    String.format("Can't get next record for channel %s", lastChannel), e);
+        }
+        if (result.isBufferConsumed()) {
+            currentRecordDeserializer.getCurrentBuffer().recycleBuffer();
+            currentRecordDeserializer = null;
+        }
+
+        if (!result.isFullRecord()) {
+            return null;
+        }
+        StreamElement element = deserializationDelegate.getInstance();
+        if (element == StreamElementSerializer.HANDED_OVER) {
+            element = takeHandedOverElement();
+        }
+        return element;
+    }
+
+    /**
+     * Deserializes the remaining complete records of the current buffer (up to the batch size) in
+     * one pass and processes them afterwards in their order. The whole batch is processed before
+     * returning, so no element is pending when the input is snapshotted.
+     */
+    private void processElementBatch(StreamElement first, DataOutput<T> output) throws Exception {
+        int numElements = 0;
+        elementBatch[numElements++] = first;
+        try {
+            while (numElements < elementBatch.length && currentRecordDeserializer != null) {
+                StreamElement element = readNextElement();
+                if (element == null) {
+                    break;
+                }
+                elementBatch[numElements++] = element;
+            }
+
+            for (int i = 0; i < numElements; i++) {
+                processElement(elementBatch[i], output);
+            }
+        } finally {
+            Arrays.fill(elementBatch, 0, numElements, null);
+        }
+    }
+
     private void processElement(StreamElement recordOrMark, DataOutput<T> output) throws Exception {
         if (recordOrMark.isRecord()) {
             output.emitRecord(recordOrMark.asRecord());
@@ -217,6 +321,23 @@ public final class StreamTaskNetworkInput<T> implements StreamTaskInput<T> {
         }
     }
 
+    private StreamElement takeHandedOverElement() {
+        if (currentObjectHandoverQueue == null) {
+            InputChannel channel =
+                    checkpointedInputGate.getChannel(flattenedChannelIndices.get(lastChannel));
+            checkState(
+                    channel instanceof LocalInputChannel,
+                    "Received a handed over element through the non-local channel %s.",
+                    lastChannel);
+            currentObjectHandoverQueue = ((LocalInputChannel) channel).getObjectHandoverQueue();
+            checkState(
+                    currentObjectHandoverQueue != null,
+                    "Channel %s did not request object handover.",
+                    lastChannel);
+        }
+        return (StreamElement) currentObjectHandoverQueue.take();
+    }
+
     private void processEvent(BufferOrEvent bufferOrEvent) {
         // Event received
         final AbstractEvent event = bufferOrEvent.getEvent();
@@ -232,6 +353,7 @@ public final class StreamTaskNetworkInput<T> implements StreamTaskInput<T> {
     private void processBuffer(BufferOrEvent bufferOrEvent) throws IOException {
         lastChannel = bufferOrEvent.getChannelInfo();
         checkState(lastChannel != null);
+        currentObjectHandoverQueue = null;
         currentRecordDeserializer = recordDeserializers.get(lastChannel);
         checkState(
                 currentRecordDeserializer != null,
@@ -81,7 +81,8 @@ public class StreamTwoInputProcessorFactory {
                         ioManager,
                         new StatusWatermarkValve(
                                 checkpointedInputGates[0].getNumberOfInputChannels()),
-                        0);
+                        0,
+                        executionConfig.getInputBatchSize());
         TypeSerializer<IN2> typeSerializer2 = streamConfig.getTypeSerializerIn(1, userClassloader);
         StreamTaskInput<IN2> input2 =
                 new StreamTaskNetworkInput<>(
@@ -90,7 +91,8 @@ public class StreamTwoInputProcessorFactory {
                         ioManager,
                         new StatusWatermarkValve(
                                 checkpointedInputGates[1].getNumberOfInputChannels()),
-                        1);
+                        1,
+                        executionConfig.getInputBatchSize());
 
         InputSelectable inputSelectable =
                 streamOperator instanceof InputSelectable ? (InputSelectable) streamOperator : null;
@@ -0,0 +1,331 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.streaming.runtime.operators.windowing;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.functions.AggregateFunction;
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.state.AppendingState;
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.runtime.state.internal.InternalAppendingState;
+import org.apache.flink.streaming.api.operators.InternalTimer;
+import org.apache.flink.streaming.api.windowing.assigners.WindowAssigner;
+import org.apache.flink.streaming.api.windowing.triggers.Trigger;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalWindowFunction;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.util.OutputTag;
+
+import java.io.Serializable;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A {@link WindowOperator} for aligned sliding time windows that shares state between the
+ * overlapping windows.
+ *
+ * <p>Instead of adding every element to each of the {@code size / slide} windows it belongs to,
+ * the operator cuts the time axis into slices of one slide and keeps a single partial aggregate
+ * per key and slice. A window is evaluated by combining the aggregates of its slices with a
+ * {@link SliceCombiner}. Slices are dropped once the last window that contains them has fired.
+ *
+ * <p>Per key, only the timer of the next window to fire is registered. When a window fires and
+ * some of its slices also belong to the following window, the timer of that window is registered.
+ *
+ * <p>The operator behaves like a {@link WindowOperator} with the default trigger of the window
+ * assigner and no allowed lateness. It is only used for windows whose size is a multiple of the
+ * slide and whose contents are reduced or aggregated.
+ *
+ * @param <K> The type of key returned by the {@code KeySelector}.
+ * @param <IN> The type of the incoming elements.
+ * @param <SV> The type of the partial aggregate that is kept per slice.
+ * @param <ACC> The type of the window contents that are handed to the window function.
+ * @param <OUT> The type of elements emitted by the {@code InternalWindowFunction}.
+ */
+@Internal
+public class SliceSharingWindowOperator<K, IN, SV, ACC, OUT>
+        extends WindowOperator<K, IN, ACC, OUT, TimeWindow> {
+
+    private static final long serialVersionUID = 1L;
+
+    // ------------------------------------------------------------------------
+    // these fields are set by the API stream graph builder to configure the operator
+
+    private final long size;
+
+    private final long slide;
+
+    private final long offset;
+
+    private final StateDescriptor<? extends AppendingState<IN, ACC>, SV> sliceStateDescriptor;
+
+    private final SliceCombiner<SV, ACC> sliceCombiner;
+
+    // ------------------------------------------------------------------------
+    // the fields below are instantiated once the operator runs in the runtime
+
+    /** The state that holds the partial aggregates. Each slice is a namespace. */
+    private transient InternalAppendingState<K, TimeWindow, IN, SV, ACC> sliceState;
+
+    private transient TypeSerializer<SV> sliceSerializer;
+
+    // ------------------------------------------------------------------------
+
+    public SliceSharingWindowOperator(
+            WindowAssigner<? super IN, TimeWindow> windowAssigner,
+            long size,
+            long slide,
+            long offset,
+            TypeSerializer<TimeWindow> windowSerializer,
+            KeySelector<IN, K> keySelector,
+            TypeSerializer<K> keySerializer,
+            StateDescriptor<? extends AppendingState<IN, ACC>, SV> sliceStateDescriptor,
+            SliceCombiner<SV, ACC> sliceCombiner,
+            InternalWindowFunction<ACC, OUT, K, TimeWindow> windowFunction,
+            Trigger<? super IN, ? super TimeWindow> trigger,
+            OutputTag<IN> lateDataOutputTag) {
+
+        super(
+                windowAssigner,
+                windowSerializer,
+                keySelector,
+                keySerializer,
+                null,
+                windowFunction,
+                trigger,
+                0L,
+                lateDataOutputTag);
+
+        checkArgument(slide > 0, "The slide must be positive.");
+        checkArgument(
+                size > slide && size % slide == 0,
+                "The window size must be a multiple of the slide that is larger than the slide.");
+
+        this.size = size;
+        this.slide = slide;
+        this.offset = offset;
+        this.sliceStateDescriptor = checkNotNull(sliceStateDescriptor);
+        this.sliceCombiner = checkNotNull(sliceCombiner);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void open() throws Exception {
+        super.open();
+
+        sliceState =
+                (InternalAppendingState<K, TimeWindow, IN, SV, ACC>)
+                        getOrCreateKeyedState(windowSerializer, sliceStateDescriptor);
+        sliceSerializer = sliceStateDescriptor.getSerializer();
+    }
+
+    @Override
+    public void processElement(StreamRecord<IN> element) throws Exception {
+        final long timestamp;
+        if (windowAssigner.isEventTime()) {
+            timestamp = element.getTimestamp();
+            if (timestamp == Long.MIN_VALUE) {
+                throw new RuntimeException(
+                        "Record has Long.MIN_VALUE timestamp (= no timestamp marker). "
+                                + "Is the time characteristic set to 'ProcessingTime', or "
+                                + "did you forget to call "
+                                + "'DataStream.assignTimestampsAndWatermarks(...)'?");
+            }
+        } else {
+            timestamp = internalTimerService.currentProcessingTime();
+        }
+
+        final long sliceStart = TimeWindow.getWindowStartWithOffset(timestamp, offset, slide);
+        final long sliceEnd = sliceStart + slide;
+
+        // the slice belongs to the windows ending in (sliceStart, sliceStart + size]
+        long firstWindowEnd = sliceEnd;
+        if (windowAssigner.isEventTime()) {
+            final long watermark = internalTimerService.currentWatermark();
+            if (sliceStart + size - 1 <= watermark) {
+                // all windows of the slice have fired already
+                if (isElementLate(element)) {
+                    if (lateDataOutputTag != null) {
+                        sideOutput(element);
+                    } else {
+                        this.numLateRecordsDropped.inc();
+                    }
+                }
+                return;
+            }
+            if (firstWindowEnd - 1 <= watermark) {
+                firstWindowEnd += ((watermark - firstWindowEnd + 1) / slide + 1) * slide;
+            }
+        }
+
+        sliceState.setCurrentNamespace(new TimeWindow(sliceStart, sliceEnd));
+        sliceState.add(element.getValue());
+
+        registerWindowTimer(new TimeWindow(firstWindowEnd - size, firstWindowEnd));
+    }
+
+    @Override
+    public void onEventTime(InternalTimer<K, TimeWindow> timer) throws Exception {
+        if (windowAssigner.isEventTime()) {
+            fireWindow(timer.getKey(), timer.getNamespace());
+        }
+    }
+
+    @Override
+    public void onProcessingTime(InternalTimer<K, TimeWindow> timer) throws Exception {
+        if (!windowAssigner.isEventTime()) {
+            fireWindow(timer.getKey(), timer.getNamespace());
+        }
+    }
+
+    /**
+     * Combines the slices of the given window and emits the result. The first slice of the window
+     * is not part of any later window and is dropped.
+     */
+    private void fireWindow(K key, TimeWindow window) throws Exception {
+        final long retainedSlicesStart = window.getStart() + slide;
+
+        SV accumulator = null;
+        boolean hasRetainedSlices = false;
+
+        for (long start = window.getStart(); start < window.getEnd(); start += slide) {
+            sliceState.setCurrentNamespace(new TimeWindow(start, start + slide));
+            SV slice = sliceState.getInternal();
+            if (slice == null) {
+                continue;
+            }
+
+            // the combiner may modify its arguments, which must not be the stored slices
+            accumulator =
+                    accumulator == null
+                            ? sliceSerializer.copy(slice)
+                            : sliceCombiner.merge(accumulator, sliceSerializer.copy(slice));
+
+            if (start < retainedSlicesStart) {
+                sliceState.clear();
+            } else {
+                hasRetainedSlices = true;
+            }
+        }
+
+        if (accumulator != null) {
+            timestampedCollector.setAbsoluteTimestamp(window.maxTimestamp());
+            processContext.window = window;
+            userFunction.process(
+                    key,
+                    window,
+                    processContext,
+                    sliceCombiner.getResult(accumulator),
+                    timestampedCollector);
+            processContext.clear();
+        }
+
+        if (hasRetainedSlices) {
+            registerWindowTimer(
+                    new TimeWindow(window.getStart() + slide, window.getEnd() + slide));
+        }
+    }
+
+    private void registerWindowTimer(TimeWindow window) {
+        if (windowAssigner.isEventTime()) {
+            internalTimerService.registerEventTimeTimer(window, window.maxTimestamp());
+        } else {
+            internalTimerService.registerProcessingTimeTimer(window, window.maxTimestamp());
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Slice combiners
+    // ------------------------------------------------------------------------
+
+    /**
+     * Combines the partial aggregates of two slices and turns a combined aggregate into the
+     * contents of a window.
+     *
+     * @param <SV> The type of the partial aggregate that is kept per slice.
+     * @param <ACC> The type of the window contents.
+     */
+    public interface SliceCombiner<SV, ACC> extends Serializable {
+
+        /** Combines two partial aggregates. Both of them may be modified and returned. */
+        SV merge(SV accumulator, SV slice) throws Exception;
+
+        /** Returns the window contents for the combined partial aggregate. */
+        ACC getResult(SV accumulator) throws Exception;
+    }
+
+    /** A {@link SliceCombiner} for slices that are reduced with a {@link ReduceFunction}. */
+    public static final class ReduceSliceCombiner<T> implements SliceCombiner<T, T> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ReduceFunction<T> reduceFunction;
+
+        public ReduceSliceCombiner(ReduceFunction<T> reduceFunction) {
+            this.reduceFunction = checkNotNull(reduceFunction);
+        }
+
+        @Override
+        public T merge(T accumulator, T slice) throws Exception {
+            return reduceFunction.reduce(accumulator, slice);
+        }
+
+        @Override
+        public T getResult(T accumulator) {
+            return accumulator;
+        }
+    }
+
+    /** A {@link SliceCombiner} for slices that are aggregated with an {@link AggregateFunction}. */
+    public static final class AggregateSliceCombiner<ACC, OUT> implements SliceCombiner<ACC, OUT> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final AggregateFunction<?, ACC, OUT> aggregateFunction;
+
+        public AggregateSliceCombiner(AggregateFunction<?, ACC, OUT> aggregateFunction) {
+            this.aggregateFunction = checkNotNull(aggregateFunction);
+        }
+
+        @Override
+        public ACC merge(ACC accumulator, ACC slice) {
+            return aggregateFunction.merge(accumulator, slice);
+        }
+
+        @Override
+        public OUT getResult(ACC accumulator) {
+            return aggregateFunction.getResult(accumulator);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Getters for testing
+    // ------------------------------------------------------------------------
+
+    @Override
+    @VisibleForTesting
+    public StateDescriptor<? extends AppendingState<IN, ACC>, ?> getStateDescriptor() {
+        return sliceStateDescriptor;
+    }
+}
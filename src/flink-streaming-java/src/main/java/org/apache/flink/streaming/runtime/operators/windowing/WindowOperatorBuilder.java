@@ -39,10 +39,15 @@ import org.apache.flink.streaming.api.functions.windowing.ReduceApplyWindowFunct
 import org.apache.flink.streaming.api.functions.windowing.WindowFunction;
 import org.apache.flink.streaming.api.windowing.assigners.BaseAlignedWindowAssigner;
 import org.apache.flink.streaming.api.windowing.assigners.MergingWindowAssigner;
+import org.apache.flink.streaming.api.windowing.assigners.SlidingEventTimeWindows;
+import org.apache.flink.streaming.api.windowing.assigners.SlidingProcessingTimeWindows;
 import org.apache.flink.streaming.api.windowing.assigners.WindowAssigner;
 import org.apache.flink.streaming.api.windowing.evictors.Evictor;
 import org.apache.flink.streaming.api.windowing.time.Time;
+import org.apache.flink.streaming.api.windowing.triggers.EventTimeTrigger;
+import org.apache.flink.streaming.api.windowing.triggers.ProcessingTimeTrigger;
 import org.apache.flink.streaming.api.windowing.triggers.Trigger;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
 import org.apache.flink.streaming.api.windowing.windows.Window;
 import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalAggregateProcessWindowFunction;
 import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalIterableProcessWindowFunction;
@@ -167,7 +172,9 @@ public class WindowOperatorBuilder<T, K, W extends Window> {
                             WINDOW_STATE_NAME, reduceFunction, inputType.createSerializer(config));
 
             return buildWindowOperator(
-                    stateDesc, new InternalSingleValueWindowFunction<>(function));
+                    stateDesc,
+                    new SliceSharingWindowOperator.ReduceSliceCombiner<>(reduceFunction),
+                    new InternalSingleValueWindowFunction<>(function));
         }
     }
 
@@ -191,7 +198,9 @@ public class WindowOperatorBuilder<T, K, W extends Window> {
                             WINDOW_STATE_NAME, reduceFunction, inputType.createSerializer(config));
 
             return buildWindowOperator(
-                    stateDesc, new InternalSingleValueProcessWindowFunction<>(function));
+                    stateDesc,
+                    new SliceSharingWindowOperator.ReduceSliceCombiner<>(reduceFunction),
+                    new InternalSingleValueProcessWindowFunction<>(function));
         }
     }
 
@@ -220,7 +229,9 @@ public class WindowOperatorBuilder<T, K, W extends Window> {
                             accumulatorType.createSerializer(config));
 
             return buildWindowOperator(
-                    stateDesc, new InternalSingleValueWindowFunction<>(windowFunction));
+                    stateDesc,
+                    new SliceSharingWindowOperator.AggregateSliceCombiner<>(aggregateFunction),
+                    new InternalSingleValueWindowFunction<>(windowFunction));
         }
     }
 
@@ -249,7 +260,9 @@ public class WindowOperatorBuilder<T, K, W extends Window> {
                             accumulatorType.createSerializer(config));
 
             return buildWindowOperator(
-                    stateDesc, new InternalSingleValueProcessWindowFunction<>(windowFunction));
+                    stateDesc,
+                    new SliceSharingWindowOperator.AggregateSliceCombiner<>(aggregateFunction),
+                    new InternalSingleValueProcessWindowFunction<>(windowFunction));
         }
     }
 
@@ -292,6 +305,61 @@ public class WindowOperatorBuilder<T, K, W extends Window> {
                 lateDataOutputTag);
     }
 
+    /**
+     * Builds a {@link SliceSharingWindowOperator} if slice sharing is enabled and the windows are
+     * aligned sliding time windows with their default trigger and no allowed lateness. Otherwise,
+     * builds a regular {@link WindowOperator}.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private <SV, ACC, R> WindowOperator<K, T, ACC, R, W> buildWindowOperator(
+            StateDescriptor<? extends AppendingState<T, ACC>, SV> stateDesc,
+            SliceSharingWindowOperator.SliceCombiner<SV, ACC> sliceCombiner,
+            InternalWindowFunction<ACC, R, K, W> function) {
+
+        if (!config.isWindowSliceSharingEnabled() || allowedLateness > 0) {
+            return buildWindowOperator(stateDesc, function);
+        }
+
+        final long size;
+        final long slide;
+        final long offset;
+        if (windowAssigner instanceof SlidingEventTimeWindows
+                && trigger instanceof EventTimeTrigger) {
+            SlidingEventTimeWindows assigner = (SlidingEventTimeWindows) windowAssigner;
+            size = assigner.getSize();
+            slide = assigner.getSlide();
+            offset = assigner.getOffset();
+        } else if (windowAssigner instanceof SlidingProcessingTimeWindows
+                && trigger instanceof ProcessingTimeTrigger) {
+            SlidingProcessingTimeWindows assigner = (SlidingProcessingTimeWindows) windowAssigner;
+            size = assigner.getSize();
+            slide = assigner.getSlide();
+            offset = assigner.getOffset();
+        } else {
+            return buildWindowOperator(stateDesc, function);
+        }
+
+        if (size <= slide || size % slide != 0) {
+            return buildWindowOperator(stateDesc, function);
+        }
+
+        // the window type is TimeWindow for both sliding window assigners
+        return (WindowOperator)
+                new SliceSharingWindowOperator<>(
+                        (WindowAssigner<? super T, TimeWindow>) windowAssigner,
+                        size,
+                        slide,
+                        offset,
+                        (TypeSerializer<TimeWindow>) windowAssigner.getWindowSerializer(config),
+                        keySelector,
+                        keyType.createSerializer(config),
+                        stateDesc,
+                        sliceCombiner,
+                        (InternalWindowFunction<ACC, R, K, TimeWindow>) function,
+                        (Trigger<? super T, ? super TimeWindow>) trigger,
+                        lateDataOutputTag);
+    }
+
     private <R> WindowOperator<K, T, Iterable<T>, R, W> buildEvictingWindowOperator(
             InternalWindowFunction<Iterable<T>, R, K, W> function) {
         @SuppressWarnings({"unchecked", "rawtypes"})
@@ -53,6 +53,14 @@ public final class StreamElementSerializer<T> extends TypeSerializer<StreamEleme
     private static final int TAG_WATERMARK = 2;
     private static final int TAG_LATENCY_MARKER = 3;
     private static final int TAG_STREAM_STATUS = 4;
+    private static final int TAG_HANDED_OVER = 5;
+
+    /**
+     * Placeholder for an element that was handed over as object to a consumer in the same
+     * TaskManager instead of being serialized. It carries no data, the consumer replaces it with
+     * the handed over object.
+     */
+    public static final StreamElement HANDED_OVER = new StreamElement() {};
 
     private final TypeSerializer<T> typeSerializer;
 
@@ -149,6 +157,8 @@ public final class StreamElementSerializer<T> extends TypeSerializer<StreamEleme
             target.writeLong(source.readLong());
             target.writeLong(source.readLong());
             target.writeInt(source.readInt());
+        } else if (tag == TAG_HANDED_OVER) {
+            // the placeholder has no payload
         } else {
             throw new IOException("Corrupt stream, found tag: " + tag);
         }
@@ -178,6 +188,8 @@ public final class StreamElementSerializer<T> extends TypeSerializer<StreamEleme
             target.writeLong(value.asLatencyMarker().getOperatorId().getLowerPart());
             target.writeLong(value.asLatencyMarker().getOperatorId().getUpperPart());
             target.writeInt(value.asLatencyMarker().getSubtaskIndex());
+        } else if (value == HANDED_OVER) {
+            target.write(TAG_HANDED_OVER);
         } else {
             throw new RuntimeException();
         }
@@ -200,6 +212,8 @@ public final class StreamElementSerializer<T> extends TypeSerializer<StreamEleme
                     source.readLong(),
                     new OperatorID(source.readLong(), source.readLong()),
                     source.readInt());
+        } else if (tag == TAG_HANDED_OVER) {
+            return HANDED_OVER;
         } else {
             throw new IOException("Corrupt stream, found tag: " + tag);
         }
@@ -226,6 +240,8 @@ public final class StreamElementSerializer<T> extends TypeSerializer<StreamEleme
                     source.readLong(),
                     new OperatorID(source.readLong(), source.readLong()),
                     source.readInt());
+        } else if (tag == TAG_HANDED_OVER) {
+            return HANDED_OVER;
         } else {
             throw new IOException("Corrupt stream, found tag: " + tag);
         }
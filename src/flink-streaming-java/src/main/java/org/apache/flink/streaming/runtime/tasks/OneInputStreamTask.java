@@ -158,7 +158,12 @@ public class OneInputStreamTask<IN, OUT> extends StreamTask<OUT, OneInputStreamO
         TypeSerializer<IN> inSerializer =
                 configuration.getTypeSerializerIn1(getUserCodeClassLoader());
         return new StreamTaskNetworkInput<>(
-                inputGate, inSerializer, getEnvironment().getIOManager(), statusWatermarkValve, 0);
+                inputGate,
+                inSerializer,
+                getEnvironment().getIOManager(),
+                statusWatermarkValve,
+                0,
+                getExecutionConfig().getInputBatchSize());
     }
 
     /**
@@ -715,13 +715,22 @@ public class OperatorChain<OUT, OP extends StreamOperator<OUT>>
                             taskEnvironment.getUserCodeClassLoader().asClassLoader());
         }
 
-        return closer.register(
+        RecordWriterOutput<OUT> output =
                 new RecordWriterOutput<OUT>(
                         recordWriter,
                         outSerializer,
                         sideOutputTag,
                         this,
-                        edge.supportsUnalignedCheckpoints()));
+                        edge.supportsUnalignedCheckpoints());
+
+        // the in-flight data persisted by unaligned checkpoints must not contain placeholders of
+        // handed over records
+        if (taskEnvironment.getExecutionConfig().isLocalObjectHandoverEnabled()
+                && !upStreamConfig.isUnalignedCheckpointsEnabled()) {
+            output.enableObjectHandover();
+        }
+
+        return closer.register(output);
     }
 
     /**
@@ -1300,6 +1300,10 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>> extends Ab
                 new RecordWriterBuilder<SerializationDelegate<StreamRecord<OUT>>>()
                         .setChannelSelector(outputPartitioner)
                         .setTimeout(bufferTimeout)
+                        .setAdaptiveTimeout(
+                                environment
+                                        .getExecutionConfig()
+                                        .isAdaptiveBufferTimeoutEnabled())
                         .setTaskName(taskName)
                         .build(bufferWriter);
         output.setMetricGroup(environment.getMetricGroup().getIOMetricGroup());
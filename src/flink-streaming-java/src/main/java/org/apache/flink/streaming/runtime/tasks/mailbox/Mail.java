@@ -44,6 +44,9 @@ public class Mail {
 
     private final StreamTaskActionExecutor actionExecutor;
 
+    /** The {@link System#nanoTime()} at which the mail was created, i.e. enqueued. */
+    private final long creationTimeNanos;
+
     public Mail(
             ThrowingRunnable<? extends Exception> runnable,
             int priority,
@@ -69,12 +72,17 @@ public class Mail {
                 descriptionFormat == null ? runnable.toString() : descriptionFormat;
         this.descriptionArgs = Preconditions.checkNotNull(descriptionArgs);
         this.actionExecutor = actionExecutor;
+        this.creationTimeNanos = System.nanoTime();
     }
 
     public int getPriority() {
         return priority;
     }
 
+    public long getCreationTimeNanos() {
+        return creationTimeNanos;
+    }
+
     public void tryCancel(boolean mayInterruptIfRunning) {
         if (runnable instanceof Future) {
             ((Future<?>) runnable).cancel(mayInterruptIfRunning);
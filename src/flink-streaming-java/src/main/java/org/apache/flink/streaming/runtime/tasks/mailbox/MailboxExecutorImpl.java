@@ -26,6 +26,7 @@ import org.apache.flink.util.WrappingRuntimeException;
 import org.apache.flink.util.function.ThrowingRunnable;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import java.util.Optional;
 import java.util.concurrent.RejectedExecutionException;
@@ -41,7 +42,7 @@ public final class MailboxExecutorImpl implements MailboxExecutor {
 
     private final StreamTaskActionExecutor actionExecutor;
 
-    private final MailboxProcessor mailboxProcessor;
+    @Nullable private final MailboxProcessor mailboxProcessor;
 
     public MailboxExecutorImpl(
             @Nonnull TaskMailbox mailbox, int priority, StreamTaskActionExecutor actionExecutor) {
@@ -52,7 +53,7 @@ public final class MailboxExecutorImpl implements MailboxExecutor {
             @Nonnull TaskMailbox mailbox,
             int priority,
             StreamTaskActionExecutor actionExecutor,
-            MailboxProcessor mailboxProcessor) {
+            @Nullable MailboxProcessor mailboxProcessor) {
         this.mailbox = mailbox;
         this.priority = priority;
         this.actionExecutor = Preconditions.checkNotNull(actionExecutor);
@@ -83,7 +84,7 @@ public final class MailboxExecutorImpl implements MailboxExecutor {
     public void yield() throws InterruptedException {
         Mail mail = mailbox.take(priority);
         try {
-            mail.run();
+            runMail(mail);
         } catch (Exception ex) {
             throw WrappingRuntimeException.wrapIfNecessary(ex);
         }
@@ -94,7 +95,7 @@ public final class MailboxExecutorImpl implements MailboxExecutor {
         Optional<Mail> optionalMail = mailbox.tryTake(priority);
         if (optionalMail.isPresent()) {
             try {
-                optionalMail.get().run();
+                runMail(optionalMail.get());
             } catch (Exception ex) {
                 throw WrappingRuntimeException.wrapIfNecessary(ex);
             }
@@ -103,4 +104,13 @@ public final class MailboxExecutorImpl implements MailboxExecutor {
             return false;
         }
     }
+
+    /** Runs the mail through the processor, if any, so that it is included in the mail metrics. */
+    private void runMail(Mail mail) throws Exception {
+        if (mailboxProcessor != null) {
+            mailboxProcessor.runMail(mail);
+        } else {
+            mail.run();
+        }
+    }
 }
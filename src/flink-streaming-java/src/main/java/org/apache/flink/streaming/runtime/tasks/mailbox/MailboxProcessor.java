@@ -19,9 +19,13 @@ package org.apache.flink.streaming.runtime.tasks.mailbox;
 
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.metrics.Histogram;
 import org.apache.flink.metrics.Meter;
 import org.apache.flink.metrics.MeterView;
+import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.runtime.metrics.DescriptiveStatisticsHistogram;
+import org.apache.flink.runtime.metrics.MetricNames;
 import org.apache.flink.runtime.metrics.groups.TaskMetricGroup;
 import org.apache.flink.streaming.api.operators.MailboxExecutor;
 import org.apache.flink.streaming.runtime.tasks.StreamTaskActionExecutor;
@@ -34,10 +38,16 @@ import org.apache.flink.util.function.RunnableWithException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 import java.io.Closeable;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
+import static org.apache.flink.streaming.runtime.tasks.mailbox.TaskMailbox.MAX_PRIORITY;
 import static org.apache.flink.streaming.runtime.tasks.mailbox.TaskMailbox.MIN_PRIORITY;
 
 /**
@@ -91,8 +101,32 @@ public class MailboxProcessor implements Closeable {
 
     private final StreamTaskActionExecutor actionExecutor;
 
+    /**
+     * The latency of every {@link #MAIL_LATENCY_SAMPLE_INTERVAL}-th mail of each priority is
+     * sampled.
+     */
+    @VisibleForTesting static final int MAIL_LATENCY_SAMPLE_INTERVAL = 16;
+
+    private static final int MAIL_LATENCY_WINDOW_SIZE = 128;
+
+    private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
     private Meter idleTime = new MeterView(new SimpleCounter());
 
+    private Meter mailTime = new MeterView(new SimpleCounter());
+
+    /** The group of the mail latency metrics, null until the metrics are initialized. */
+    @Nullable private MetricGroup mailLatencyMetricGroup;
+
+    /** The time that mails wait in the mailbox, by the priority of the mails. */
+    private final Map<Integer, MailLatency> mailLatencies = new HashMap<>();
+
+    /** Mail execution time in nanoseconds that has not been reported in milliseconds yet. */
+    private long unreportedMailTimeNanos;
+
+    /** Whether a mail is running, so that the mails run while it yields are not counted twice. */
+    private boolean isRunningMail;
+
     public MailboxProcessor(MailboxDefaultAction mailboxDefaultAction) {
         this(mailboxDefaultAction, StreamTaskActionExecutor.IMMEDIATE);
     }
@@ -114,7 +148,7 @@ public class MailboxProcessor implements Closeable {
     }
 
     public MailboxExecutor getMainMailboxExecutor() {
-        return new MailboxExecutorImpl(mailbox, MIN_PRIORITY, actionExecutor);
+        return new MailboxExecutorImpl(mailbox, MIN_PRIORITY, actionExecutor, this);
     }
 
     /**
@@ -126,8 +160,18 @@ public class MailboxProcessor implements Closeable {
         return new MailboxExecutorImpl(mailbox, priority, actionExecutor, this);
     }
 
+    /**
+     * Registers the mailbox metrics: the idle time, the time spent in mails, the number of queued
+     * mails and, for each priority of mails, a sampled histogram of the time mails wait in the
+     * queue. The mail time includes the mails that operators run while they yield from the default
+     * action. The time that an operator is blocked in {@link MailboxExecutor#yield()} until a mail
+     * arrives is neither mail time nor idle time.
+     */
     public void initMetric(TaskMetricGroup metricGroup) {
         idleTime = metricGroup.getIOMetricGroup().getIdleTimeMsPerSecond();
+        mailTime = metricGroup.getIOMetricGroup().getMailTimeMsPerSecond();
+        mailLatencyMetricGroup = metricGroup;
+        metricGroup.gauge(MetricNames.TASK_MAILBOX_SIZE, mailbox::size);
     }
 
     /** Lifecycle method to close the mailbox for action submission. */
@@ -294,7 +338,7 @@ public class MailboxProcessor implements Closeable {
         // Take mails in a non-blockingly and execute them.
         Optional<Mail> maybeMail;
         while (isMailboxLoopRunning() && (maybeMail = mailbox.tryTakeFromBatch()).isPresent()) {
-            maybeMail.get().run();
+            runMail(maybeMail.get());
             processed = true;
             if (singleStep) {
                 break;
@@ -314,13 +358,76 @@ public class MailboxProcessor implements Closeable {
                 maybeMail = Optional.of(mailbox.take(MIN_PRIORITY));
                 idleTime.markEvent(System.currentTimeMillis() - start);
             }
-            maybeMail.get().run();
+            runMail(maybeMail.get());
             processed = true;
         }
 
         return processed;
     }
 
+    /**
+     * Runs the given mail and records the mail metrics. All mails of this processor's mailbox must
+     * be run through this method, including those that a {@link MailboxExecutorImpl} runs while
+     * yielding.
+     */
+    void runMail(Mail mail) throws Exception {
+        final long start = System.nanoTime();
+        if (mailLatencyMetricGroup != null) {
+            getMailLatency(mail.getPriority()).sample(start - mail.getCreationTimeNanos());
+        }
+        if (isRunningMail) {
+            // a mail that is run while another mail yields is part of the time of the other mail
+            mail.run();
+            return;
+        }
+        isRunningMail = true;
+        try {
+            mail.run();
+        } finally {
+            isRunningMail = false;
+        }
+        // mails are usually much shorter than a millisecond, so the remainder is carried over
+        unreportedMailTimeNanos += System.nanoTime() - start;
+        if (unreportedMailTimeNanos >= NANOS_PER_MILLI) {
+            mailTime.markEvent(unreportedMailTimeNanos / NANOS_PER_MILLI);
+            unreportedMailTimeNanos %= NANOS_PER_MILLI;
+        }
+    }
+
+    private MailLatency getMailLatency(int priority) {
+        MailLatency mailLatency = mailLatencies.get(priority);
+        if (mailLatency == null) {
+            mailLatency =
+                    new MailLatency(
+                            mailLatencyMetricGroup
+                                    .addGroup(
+                                            MetricNames.TASK_MAILBOX_PRIORITY,
+                                            getPriorityName(priority))
+                                    .histogram(
+                                            MetricNames.TASK_MAILBOX_LATENCY,
+                                            new DescriptiveStatisticsHistogram(
+                                                    MAIL_LATENCY_WINDOW_SIZE)));
+            mailLatencies.put(priority, mailLatency);
+        }
+        return mailLatency;
+    }
+
+    /**
+     * Returns the name of the mails of the given priority in the metrics: "max" for control mails
+     * such as checkpoints, "min" for the mails of the main executor and otherwise the priority of
+     * the operator, e.g. for timers and asynchronous completions.
+     */
+    private static String getPriorityName(int priority) {
+        switch (priority) {
+            case MAX_PRIORITY:
+                return "max";
+            case MIN_PRIORITY:
+                return "min";
+            default:
+                return String.valueOf(priority);
+        }
+    }
+
     /**
      * Calling this method signals that the mailbox-thread should (temporarily) stop invoking the
      * default action, e.g. because there is currently no input available.
@@ -354,6 +461,11 @@ public class MailboxProcessor implements Closeable {
         return idleTime;
     }
 
+    @VisibleForTesting
+    public Meter getMailTime() {
+        return mailTime;
+    }
+
     @VisibleForTesting
     public boolean hasMail() {
         return mailbox.hasMail();
@@ -419,4 +531,24 @@ public class MailboxProcessor implements Closeable {
             }
         }
     }
+
+    /** The sampled time that the mails of one priority wait in the mailbox. */
+    private static final class MailLatency {
+
+        private final Histogram histogram;
+
+        /** Starts at the end of an interval, so that the first mail of a priority is sampled. */
+        private int numMailsSinceSample = MAIL_LATENCY_SAMPLE_INTERVAL - 1;
+
+        private MailLatency(Histogram histogram) {
+            this.histogram = histogram;
+        }
+
+        private void sample(long latencyNanos) {
+            if (++numMailsSinceSample >= MAIL_LATENCY_SAMPLE_INTERVAL) {
+                numMailsSinceSample = 0;
+                histogram.update(TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+            }
+        }
+    }
 }
@@ -95,6 +95,14 @@ public interface TaskMailbox {
      */
     boolean hasMail();
 
+    /**
+     * Returns the number of mails in the mailbox, including the mails of the current batch.
+     *
+     * <p>Can be called from any thread. The mails of the batch are owned by the mailbox thread, so
+     * the result is only an estimate if called from another thread.
+     */
+    int size();
+
     /**
      * Returns an optional with either the oldest mail from the mailbox (head of queue) if the
      * mailbox is not empty or an empty optional otherwise.
@@ -41,6 +41,7 @@ import org.mockito.stubbing.Answer;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
@@ -49,6 +50,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.junit.Assert.assertEquals;
@@ -498,6 +500,165 @@ public class InternalTimerServiceImplTest {
         assertEquals(0, timerService.numProcessingTimeTimers());
     }
 
+    @Test
+    public void testFireEventTimeTimersGroupedByKey() throws Exception {
+        TestKeyContext keyContext = new TestKeyContext();
+        List<Tuple3<Integer, String, Long>> firedTimers = new ArrayList<>();
+
+        // get two different keys
+        int key1 = getKeyInKeyGroupRange(testKeyGroupRange, maxParallelism);
+        int key2 = getKeyInKeyGroupRange(testKeyGroupRange, maxParallelism);
+        while (key2 == key1) {
+            key2 = getKeyInKeyGroupRange(testKeyGroupRange, maxParallelism);
+        }
+
+        AtomicReference<InternalTimerServiceImpl<Integer, String>> serviceReference =
+                new AtomicReference<>();
+        KeyIndependentTriggerable<Integer, String> triggerable =
+                new KeyIndependentTriggerable<Integer, String>() {
+                    @Override
+                    public void onEventTime(InternalTimer<Integer, String> timer) {
+                        assertEquals(timer.getKey(), keyContext.getCurrentKey());
+                        firedTimers.add(
+                                Tuple3.of(
+                                        timer.getKey(),
+                                        timer.getNamespace(),
+                                        timer.getTimestamp()));
+                        if (timer.getNamespace().equals("first")) {
+                            // due and earlier than the next timer of the key
+                            serviceReference.get().registerEventTimeTimer("second", 11);
+                            serviceReference.get().deleteEventTimeTimer("deleted", 12);
+                        }
+                    }
+
+                    @Override
+                    public void onProcessingTime(InternalTimer<Integer, String> timer) {}
+                };
+
+        InternalTimerServiceImpl<Integer, String> timerService =
+                createAndStartInternalTimerService(
+                        triggerable,
+                        keyContext,
+                        new TestProcessingTimeService(),
+                        testKeyGroupRange,
+                        createQueueFactory());
+        serviceReference.set(timerService);
+
+        keyContext.setCurrentKey(key1);
+        timerService.registerEventTimeTimer("first", 10);
+        timerService.registerEventTimeTimer("deleted", 12);
+        timerService.registerEventTimeTimer("third", 14);
+
+        keyContext.setCurrentKey(key2);
+        timerService.registerEventTimeTimer("other", 11);
+        timerService.registerEventTimeTimer("other", 13);
+
+        timerService.advanceWatermark(20);
+
+        // the timers of each key fire one after the other, in the order of their timestamps
+        assertEquals(
+                Arrays.asList(
+                        Tuple3.of(key1, "first", 10L),
+                        Tuple3.of(key1, "second", 11L),
+                        Tuple3.of(key1, "third", 14L),
+                        Tuple3.of(key2, "other", 11L),
+                        Tuple3.of(key2, "other", 13L)),
+                firedTimers);
+        assertEquals(0, timerService.numEventTimeTimers());
+    }
+
+    @Test
+    public void testFireEventTimeTimersRegisteredDuringBatch() throws Exception {
+        TestKeyContext keyContext = new TestKeyContext();
+        List<Long> firedTimestamps = new ArrayList<>();
+
+        AtomicReference<InternalTimerServiceImpl<Integer, String>> serviceReference =
+                new AtomicReference<>();
+        KeyIndependentTriggerable<Integer, String> triggerable =
+                new KeyIndependentTriggerable<Integer, String>() {
+                    @Override
+                    public void onEventTime(InternalTimer<Integer, String> timer) {
+                        firedTimestamps.add(timer.getTimestamp());
+                        // later timers that are due fire in the next batch
+                        serviceReference
+                                .get()
+                                .registerEventTimeTimer("chained", timer.getTimestamp() + 1);
+                    }
+
+                    @Override
+                    public void onProcessingTime(InternalTimer<Integer, String> timer) {}
+                };
+
+        InternalTimerServiceImpl<Integer, String> timerService =
+                createAndStartInternalTimerService(
+                        triggerable,
+                        keyContext,
+                        new TestProcessingTimeService(),
+                        testKeyGroupRange,
+                        createQueueFactory());
+        serviceReference.set(timerService);
+
+        keyContext.setCurrentKey(getKeyInKeyGroupRange(testKeyGroupRange, maxParallelism));
+        timerService.registerEventTimeTimer("chained", 1);
+
+        timerService.advanceWatermark(5);
+
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), firedTimestamps);
+        assertEquals(1, timerService.numEventTimeTimers());
+    }
+
+    @Test
+    public void testFireEqualEventTimeTimersInSeveralBatchesOnce() throws Exception {
+        TestKeyContext keyContext = new TestKeyContext();
+        Map<String, Integer> firedTimers = new HashMap<>();
+        int numTimers = InternalTimerServiceImpl.MAX_EVENT_TIMERS_PER_BATCH + 10;
+
+        AtomicReference<InternalTimerServiceImpl<Integer, String>> serviceReference =
+                new AtomicReference<>();
+        KeyIndependentTriggerable<Integer, String> triggerable =
+                new KeyIndependentTriggerable<Integer, String>() {
+                    @Override
+                    public void onEventTime(InternalTimer<Integer, String> timer) {
+                        if (firedTimers.isEmpty()) {
+                            // registers the timers of this batch and the ones still in the queue
+                            for (int i = 0; i < numTimers; i++) {
+                                if (!timer.getNamespace().equals("timer-" + i)) {
+                                    serviceReference
+                                            .get()
+                                            .registerEventTimeTimer("timer-" + i, 10);
+                                }
+                            }
+                        }
+                        firedTimers.merge(timer.getNamespace(), 1, Integer::sum);
+                    }
+
+                    @Override
+                    public void onProcessingTime(InternalTimer<Integer, String> timer) {}
+                };
+
+        InternalTimerServiceImpl<Integer, String> timerService =
+                createAndStartInternalTimerService(
+                        triggerable,
+                        keyContext,
+                        new TestProcessingTimeService(),
+                        testKeyGroupRange,
+                        createQueueFactory());
+        serviceReference.set(timerService);
+
+        keyContext.setCurrentKey(getKeyInKeyGroupRange(testKeyGroupRange, maxParallelism));
+        for (int i = 0; i < numTimers; i++) {
+            timerService.registerEventTimeTimer("timer-" + i, 10);
+        }
+
+        timerService.advanceWatermark(10);
+
+        assertEquals(numTimers, firedTimers.size());
+        for (int count : firedTimers.values()) {
+            assertEquals(1, count);
+        }
+        assertEquals(0, timerService.numEventTimeTimers());
+    }
+
     /**
      * This also verifies that we don't have leakage between keys/namespaces.
      *
@@ -189,6 +189,164 @@ public class KeyedProcessOperatorTest extends TestLogger {
         testHarness.close();
     }
 
+    @Test
+    public void testEventTimeTimersWithResolution() throws Exception {
+
+        OneInputStreamOperatorTestHarness<Integer, Integer> testHarness =
+                createTimerRegisteringHarness(TimeDomain.EVENT_TIME, 10L);
+
+        testHarness.setup();
+        testHarness.open();
+
+        // the timers at 3 and 7 fire together at the end of their slot, with their own timestamps
+        testHarness.processElement(new StreamRecord<>(3, 0L));
+        testHarness.processElement(new StreamRecord<>(7, 0L));
+        testHarness.processElement(new StreamRecord<>(12, 0L));
+        testHarness.processElement(new StreamRecord<>(20, 0L));
+
+        testHarness.processWatermark(new Watermark(8));
+        testHarness.processWatermark(new Watermark(9));
+        testHarness.processWatermark(new Watermark(20));
+
+        ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+
+        expectedOutput.add(new Watermark(8L));
+        expectedOutput.add(new StreamRecord<>(3, 3L));
+        expectedOutput.add(new StreamRecord<>(7, 7L));
+        expectedOutput.add(new Watermark(9L));
+        expectedOutput.add(new StreamRecord<>(12, 12L));
+        expectedOutput.add(new Watermark(20L));
+
+        TestHarnessUtil.assertOutputEquals(
+                "Output was not correct.", expectedOutput, testHarness.getOutput());
+
+        testHarness.close();
+    }
+
+    @Test
+    public void testDeleteEventTimeTimerWithResolution() throws Exception {
+
+        OneInputStreamOperatorTestHarness<Integer, Integer> testHarness =
+                createTimerRegisteringHarness(TimeDomain.EVENT_TIME, 10L);
+
+        testHarness.setup();
+        testHarness.open();
+
+        // deleting the timer at 3 keeps the timer at 7 of the same slot
+        testHarness.processElement(new StreamRecord<>(3, 0L));
+        testHarness.processElement(new StreamRecord<>(7, 0L));
+        testHarness.processElement(new StreamRecord<>(-3, 0L));
+        testHarness.processElement(new StreamRecord<>(12, 0L));
+
+        testHarness.processWatermark(new Watermark(20));
+
+        ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+
+        expectedOutput.add(new StreamRecord<>(7, 7L));
+        expectedOutput.add(new StreamRecord<>(12, 12L));
+        expectedOutput.add(new Watermark(20L));
+
+        TestHarnessUtil.assertOutputEquals(
+                "Output was not correct.", expectedOutput, testHarness.getOutput());
+
+        testHarness.close();
+    }
+
+    @Test
+    public void testProcessingTimeTimersWithResolution() throws Exception {
+
+        OneInputStreamOperatorTestHarness<Integer, Integer> testHarness =
+                createTimerRegisteringHarness(TimeDomain.PROCESSING_TIME, 10L);
+
+        testHarness.setup();
+        testHarness.open();
+
+        testHarness.processElement(new StreamRecord<>(3));
+        testHarness.processElement(new StreamRecord<>(7));
+        testHarness.processElement(new StreamRecord<>(-7));
+        testHarness.processElement(new StreamRecord<>(12));
+
+        testHarness.setProcessingTime(8);
+        assertTrue(testHarness.getOutput().isEmpty());
+
+        testHarness.setProcessingTime(9);
+        testHarness.setProcessingTime(20);
+
+        ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+
+        expectedOutput.add(new StreamRecord<>(3));
+        expectedOutput.add(new StreamRecord<>(12));
+
+        TestHarnessUtil.assertOutputEquals(
+                "Output was not correct.", expectedOutput, testHarness.getOutput());
+
+        testHarness.close();
+    }
+
+    @Test
+    public void testSnapshotAndRestoreTimersWithResolution() throws Exception {
+        testSnapshotAndRestoreTimersWithResolution(10L);
+    }
+
+    @Test
+    public void testSnapshotTimersWithResolutionAndRestoreExactTimers() throws Exception {
+        testSnapshotAndRestoreTimersWithResolution(0L);
+    }
+
+    private void testSnapshotAndRestoreTimersWithResolution(long restoredTimerResolution)
+            throws Exception {
+
+        OneInputStreamOperatorTestHarness<Integer, Integer> testHarness =
+                createTimerRegisteringHarness(TimeDomain.EVENT_TIME, 10L);
+
+        testHarness.setup();
+        testHarness.open();
+
+        testHarness.processElement(new StreamRecord<>(3, 0L));
+        testHarness.processElement(new StreamRecord<>(7, 0L));
+        testHarness.processElement(new StreamRecord<>(12, 0L));
+
+        // snapshot and restore from scratch
+        OperatorSubtaskState snapshot = testHarness.snapshot(0, 0);
+
+        testHarness.close();
+
+        testHarness =
+                createTimerRegisteringHarness(TimeDomain.EVENT_TIME, restoredTimerResolution);
+
+        testHarness.setup();
+        testHarness.initializeState(snapshot);
+        testHarness.open();
+
+        testHarness.processWatermark(new Watermark(9));
+        testHarness.processWatermark(new Watermark(20));
+
+        ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+
+        expectedOutput.add(new StreamRecord<>(3, 3L));
+        expectedOutput.add(new StreamRecord<>(7, 7L));
+        expectedOutput.add(new Watermark(9L));
+        expectedOutput.add(new StreamRecord<>(12, 12L));
+        expectedOutput.add(new Watermark(20L));
+
+        TestHarnessUtil.assertOutputEquals(
+                "Output was not correct.", expectedOutput, testHarness.getOutput());
+
+        testHarness.close();
+    }
+
+    private static OneInputStreamOperatorTestHarness<Integer, Integer>
+            createTimerRegisteringHarness(TimeDomain timeDomain, long timerResolution)
+                    throws Exception {
+        OneInputStreamOperatorTestHarness<Integer, Integer> testHarness =
+                new KeyedOneInputStreamOperatorTestHarness<>(
+                        new KeyedProcessOperator<>(new TimerRegisteringFunction(timeDomain)),
+                        value -> 0,
+                        BasicTypeInfo.INT_TYPE_INFO);
+        testHarness.getExecutionConfig().setTimerResolution(timerResolution);
+        return testHarness;
+    }
+
     @Test
     public void testProcessingTimeTimers() throws Exception {
 
@@ -439,6 +597,43 @@ public class KeyedProcessOperatorTest extends TestLogger {
         }
     }
 
+    /**
+     * Registers a timer at the value of each element, or deletes the timer at the negated value of
+     * a negative element, and emits the timestamps.
+     */
+    private static class TimerRegisteringFunction
+            extends KeyedProcessFunction<Integer, Integer, Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final TimeDomain timeDomain;
+
+        TimerRegisteringFunction(TimeDomain timeDomain) {
+            this.timeDomain = timeDomain;
+        }
+
+        @Override
+        public void processElement(Integer value, Context ctx, Collector<Integer> out)
+                throws Exception {
+            TimerService timerService = ctx.timerService();
+            if (timeDomain == TimeDomain.EVENT_TIME && value < 0) {
+                timerService.deleteEventTimeTimer(-value);
+            } else if (timeDomain == TimeDomain.EVENT_TIME) {
+                timerService.registerEventTimeTimer(value);
+            } else if (value < 0) {
+                timerService.deleteProcessingTimeTimer(-value);
+            } else {
+                timerService.registerProcessingTimeTimer(value);
+            }
+        }
+
+        @Override
+        public void onTimer(long timestamp, OnTimerContext ctx, Collector<Integer> out)
+                throws Exception {
+            out.collect((int) timestamp);
+        }
+    }
+
     private static class IdentityKeySelector<T> implements KeySelector<T, T> {
         private static final long serialVersionUID = 1L;
 
@@ -18,12 +18,17 @@
 
 package org.apache.flink.streaming.api.operators.async;
 
+import org.apache.flink.api.common.ExecutionConfig;
 import org.apache.flink.api.common.functions.MapFunction;
 import org.apache.flink.api.common.functions.RichMapFunction;
 import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.common.typeutils.base.IntSerializer;
 import org.apache.flink.api.java.Utils;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.api.java.typeutils.TupleTypeInfo;
 import org.apache.flink.api.java.typeutils.TypeExtractor;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.core.testutils.OneShotLatch;
@@ -41,6 +46,7 @@ import org.apache.flink.streaming.api.datastream.AsyncDataStream;
 import org.apache.flink.streaming.api.datastream.DataStream;
 import org.apache.flink.streaming.api.datastream.SingleOutputStreamOperator;
 import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.flink.streaming.api.functions.async.AsyncBatchFunction;
 import org.apache.flink.streaming.api.functions.async.AsyncFunction;
 import org.apache.flink.streaming.api.functions.async.ResultFuture;
 import org.apache.flink.streaming.api.functions.async.RichAsyncFunction;
@@ -246,6 +252,58 @@ public class AsyncWaitOperatorTest extends TestLogger {
         }
     }
 
+    /** Doubles the inputs of each batch synchronously and remembers the batches. */
+    private static class DoublingBatchFunction implements AsyncBatchFunction<Integer, Integer> {
+        private static final long serialVersionUID = 1L;
+
+        final List<List<Integer>> batches = new ArrayList<>();
+
+        @Override
+        public void asyncInvokeBatch(
+                List<Integer> inputs, List<ResultFuture<Integer>> resultFutures) {
+            batches.add(new ArrayList<>(inputs));
+            for (int i = 0; i < inputs.size(); i++) {
+                resultFutures.get(i).complete(Collections.singletonList(inputs.get(i) * 2));
+            }
+        }
+    }
+
+    /** Doubles the first field of the inputs of each batch and remembers the first fields. */
+    private static class FirstFieldDoublingBatchFunction
+            implements AsyncBatchFunction<Tuple2<Integer, String>, Integer> {
+        private static final long serialVersionUID = 1L;
+
+        final List<List<Integer>> batches = new ArrayList<>();
+
+        @Override
+        public void asyncInvokeBatch(
+                List<Tuple2<Integer, String>> inputs, List<ResultFuture<Integer>> resultFutures) {
+            batches.add(inputs.stream().map(input -> input.f0).collect(Collectors.toList()));
+            for (int i = 0; i < inputs.size(); i++) {
+                resultFutures.get(i).complete(Collections.singletonList(inputs.get(i).f0 * 2));
+            }
+        }
+    }
+
+    /** Never completes a batch and completes timed out inputs with their negated value. */
+    private static class NegatingOnTimeoutBatchFunction
+            implements AsyncBatchFunction<Integer, Integer> {
+        private static final long serialVersionUID = 1L;
+
+        final List<ResultFuture<Integer>> pendingResults = new ArrayList<>();
+
+        @Override
+        public void asyncInvokeBatch(
+                List<Integer> inputs, List<ResultFuture<Integer>> resultFutures) {
+            pendingResults.addAll(resultFutures);
+        }
+
+        @Override
+        public void timeout(Integer input, ResultFuture<Integer> resultFuture) {
+            resultFuture.complete(Collections.singletonList(-input));
+        }
+    }
+
     /** A {@link Comparator} to compare {@link StreamRecord} while sorting them. */
     private class StreamRecordComparator implements Comparator<Object> {
         @Override
@@ -334,6 +392,287 @@ public class AsyncWaitOperatorTest extends TestLogger {
         }
     }
 
+    /**
+     * Tests that the inputs are passed in batches of distinct inputs to an {@link
+     * AsyncBatchFunction} and that the results of equal inputs are emitted in order.
+     */
+    @Test
+    public void testBatchedOrdered() throws Exception {
+        final DoublingBatchFunction function = new DoublingBatchFunction();
+        final OneInputStreamOperatorTestHarness<Integer, Integer> testHarness =
+                new OneInputStreamOperatorTestHarness<>(
+                        new AsyncWaitOperatorFactory<>(
+                                function,
+                                TIMEOUT,
+                                10,
+                                AsyncDataStream.OutputMode.ORDERED,
+                                3,
+                                TIMEOUT),
+                        IntSerializer.INSTANCE);
+
+        testHarness.open();
+
+        synchronized (testHarness.getCheckpointLock()) {
+            testHarness.processElement(new StreamRecord<>(1, 1L));
+            testHarness.processElement(new StreamRecord<>(2, 2L));
+            testHarness.processElement(new StreamRecord<>(1, 3L));
+            testHarness.processWatermark(new Watermark(3L));
+            testHarness.processElement(new StreamRecord<>(3, 4L));
+            testHarness.processElement(new StreamRecord<>(4, 5L));
+        }
+
+        assertEquals(Collections.singletonList(Arrays.asList(1, 2, 3)), function.batches);
+
+        synchronized (testHarness.getCheckpointLock()) {
+            testHarness.endInput();
+            testHarness.close();
+        }
+
+        assertEquals(
+                Arrays.asList(Arrays.asList(1, 2, 3), Collections.singletonList(4)),
+                function.batches);
+
+        final ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+        expectedOutput.add(new StreamRecord<>(2, 1L));
+        expectedOutput.add(new StreamRecord<>(4, 2L));
+        expectedOutput.add(new StreamRecord<>(2, 3L));
+        expectedOutput.add(new Watermark(3L));
+        expectedOutput.add(new StreamRecord<>(6, 4L));
+        expectedOutput.add(new StreamRecord<>(8, 5L));
+
+        TestHarnessUtil.assertOutputEquals(
+                "Output was not correct.", expectedOutput, testHarness.getOutput());
+    }
+
+    /** Tests that a pending batch is passed to the function after the maximum batch delay. */
+    @Test
+    public void testBatchFlushedAfterMaxDelay() throws Exception {
+        final long maxBatchDelay = 100L;
+        final DoublingBatchFunction function = new DoublingBatchFunction();
+        final OneInputStreamOperatorTestHarness<Integer, Integer> testHarness =
+                new OneInputStreamOperatorTestHarness<>(
+                        new AsyncWaitOperatorFactory<>(
+                                function,
+                                TIMEOUT,
+                                10,
+                                AsyncDataStream.OutputMode.UNORDERED,
+                                10,
+                                maxBatchDelay),
+                        IntSerializer.INSTANCE);
+
+        testHarness.open();
+
+        synchronized (testHarness.getCheckpointLock()) {
+            testHarness.processElement(new StreamRecord<>(1, 1L));
+            testHarness.processElement(new StreamRecord<>(2, 2L));
+        }
+        assertTrue(function.batches.isEmpty());
+
+        testHarness.setProcessingTime(maxBatchDelay);
+
+        assertEquals(Collections.singletonList(Arrays.asList(1, 2)), function.batches);
+
+        synchronized (testHarness.getCheckpointLock()) {
+            testHarness.endInput();
+            testHarness.close();
+        }
+
+        assertEquals(1, function.batches.size());
+        TestHarnessUtil.assertOutputEqualsSorted(
+                "Output was not correct.",
+                Arrays.asList(new StreamRecord<>(2, 1L), new StreamRecord<>(4, 2L)),
+                testHarness.getOutput(),
+                new StreamRecordComparator());
+        assertEquals(0, testHarness.getProcessingTimeService().getNumActiveTimers());
+    }
+
+    /**
+     * Tests that the records are coalesced by the key of a key selector, and that every record gets
+     * the result of its key.
+     */
+    @Test
+    public void testBatchedWithKeySelector() throws Exception {
+        final DoublingBatchFunction function = new DoublingBatchFunction();
+        final OneInputStreamOperatorTestHarness<Tuple2<Integer, String>, Integer> testHarness =
+                createKeyedBatchTestHarness(function, 2);
+
+        testHarness.open();
+
+        synchronized (testHarness.getCheckpointLock()) {
+            testHarness.processElement(new StreamRecord<>(Tuple2.of(1, "a"), 1L));
+            testHarness.processElement(new StreamRecord<>(Tuple2.of(1, "b"), 2L));
+            testHarness.processElement(new StreamRecord<>(Tuple2.of(2, "c"), 3L));
+            testHarness.endInput();
+            testHarness.close();
+        }
+
+        assertEquals(Collections.singletonList(Arrays.asList(1, 2)), function.batches);
+
+        final ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+        expectedOutput.add(new StreamRecord<>(2, 1L));
+        expectedOutput.add(new StreamRecord<>(2, 2L));
+        expectedOutput.add(new StreamRecord<>(4, 3L));
+
+        TestHarnessUtil.assertOutputEquals(
+                "Output was not correct.", expectedOutput, testHarness.getOutput());
+    }
+
+    /**
+     * Tests that the batched inputs are copied if object reuse is enabled, because the upstream
+     * operator may change an input before its batch is flushed.
+     */
+    @Test
+    public void testBatchedWithObjectReuse() throws Exception {
+        final FirstFieldDoublingBatchFunction function = new FirstFieldDoublingBatchFunction();
+        final OneInputStreamOperatorTestHarness<Tuple2<Integer, String>, Integer> testHarness =
+                new OneInputStreamOperatorTestHarness<>(
+                        new AsyncWaitOperatorFactory<>(
+                                function,
+                                TIMEOUT,
+                                10,
+                                AsyncDataStream.OutputMode.ORDERED,
+                                10,
+                                TIMEOUT),
+                        createTupleSerializer());
+        testHarness.getExecutionConfig().enableObjectReuse();
+
+        testHarness.open();
+
+        final Tuple2<Integer, String> reused = Tuple2.of(1, "a");
+        final StreamRecord<Tuple2<Integer, String>> reusedRecord = new StreamRecord<>(reused, 1L);
+        synchronized (testHarness.getCheckpointLock()) {
+            testHarness.processElement(reusedRecord);
+            reused.f0 = 2;
+            reusedRecord.setTimestamp(2L);
+            testHarness.processElement(reusedRecord);
+            testHarness.endInput();
+            testHarness.close();
+        }
+
+        assertEquals(Collections.singletonList(Arrays.asList(1, 2)), function.batches);
+
+        final ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+        expectedOutput.add(new StreamRecord<>(2, 1L));
+        expectedOutput.add(new StreamRecord<>(4, 2L));
+
+        TestHarnessUtil.assertOutputEquals(
+                "Output was not correct.", expectedOutput, testHarness.getOutput());
+    }
+
+    /** Tests that the inputs of a batch that was not flushed yet are restored from a snapshot. */
+    @Test
+    public void testBatchedSnapshotAndRestore() throws Exception {
+        final OneInputStreamOperatorTestHarness<Integer, Integer> snapshotHarness =
+                new OneInputStreamOperatorTestHarness<>(
+                        new AsyncWaitOperatorFactory<>(
+                                new DoublingBatchFunction(),
+                                TIMEOUT,
+                                10,
+                                AsyncDataStream.OutputMode.ORDERED,
+                                10,
+                                TIMEOUT),
+                        IntSerializer.INSTANCE);
+
+        snapshotHarness.open();
+
+        final OperatorSubtaskState snapshot;
+        synchronized (snapshotHarness.getCheckpointLock()) {
+            snapshotHarness.processElement(new StreamRecord<>(1, 1L));
+            snapshotHarness.processElement(new StreamRecord<>(2, 2L));
+            snapshot = snapshotHarness.snapshot(0L, 0L);
+            snapshotHarness.close();
+        }
+
+        final DoublingBatchFunction function = new DoublingBatchFunction();
+        final OneInputStreamOperatorTestHarness<Integer, Integer> recoverHarness =
+                new OneInputStreamOperatorTestHarness<>(
+                        new AsyncWaitOperatorFactory<>(
+                                function,
+                                TIMEOUT,
+                                10,
+                                AsyncDataStream.OutputMode.ORDERED,
+                                10,
+                                TIMEOUT),
+                        IntSerializer.INSTANCE);
+
+        recoverHarness.initializeState(snapshot);
+
+        synchronized (recoverHarness.getCheckpointLock()) {
+            recoverHarness.open();
+            recoverHarness.processElement(new StreamRecord<>(3, 3L));
+            recoverHarness.endInput();
+            recoverHarness.close();
+        }
+
+        assertEquals(Collections.singletonList(Arrays.asList(1, 2, 3)), function.batches);
+
+        final ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+        expectedOutput.add(new StreamRecord<>(2, 1L));
+        expectedOutput.add(new StreamRecord<>(4, 2L));
+        expectedOutput.add(new StreamRecord<>(6, 3L));
+
+        TestHarnessUtil.assertOutputEquals(
+                "Output was not correct.", expectedOutput, recoverHarness.getOutput());
+    }
+
+    /**
+     * Tests that a batched input times out on its own and that a late result of its batch is
+     * ignored.
+     */
+    @Test
+    public void testBatchedTimeout() throws Exception {
+        final NegatingOnTimeoutBatchFunction function = new NegatingOnTimeoutBatchFunction();
+        final OneInputStreamOperatorTestHarness<Integer, Integer> testHarness =
+                new OneInputStreamOperatorTestHarness<>(
+                        new AsyncWaitOperatorFactory<>(
+                                function, 10L, 10, AsyncDataStream.OutputMode.ORDERED, 10, 5L),
+                        IntSerializer.INSTANCE);
+
+        testHarness.open();
+
+        synchronized (testHarness.getCheckpointLock()) {
+            testHarness.processElement(new StreamRecord<>(1, 1L));
+        }
+
+        testHarness.setProcessingTime(5L);
+        assertEquals(1, function.pendingResults.size());
+
+        testHarness.setProcessingTime(10L);
+        function.pendingResults.get(0).complete(Collections.singletonList(2));
+
+        synchronized (testHarness.getCheckpointLock()) {
+            testHarness.endInput();
+            testHarness.close();
+        }
+
+        final ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+        expectedOutput.add(new StreamRecord<>(-1, 1L));
+
+        TestHarnessUtil.assertOutputEquals(
+                "Output was not correct.", expectedOutput, testHarness.getOutput());
+    }
+
+    private static OneInputStreamOperatorTestHarness<Tuple2<Integer, String>, Integer>
+            createKeyedBatchTestHarness(DoublingBatchFunction function, int maxBatchSize)
+                    throws Exception {
+        return new OneInputStreamOperatorTestHarness<>(
+                new AsyncWaitOperatorFactory<>(
+                        (KeySelector<Tuple2<Integer, String>, Integer>) value -> value.f0,
+                        function,
+                        TIMEOUT,
+                        10,
+                        AsyncDataStream.OutputMode.ORDERED,
+                        maxBatchSize,
+                        TIMEOUT),
+                createTupleSerializer());
+    }
+
+    private static TypeSerializer<Tuple2<Integer, String>> createTupleSerializer() {
+        return new TupleTypeInfo<Tuple2<Integer, String>>(
+                        BasicTypeInfo.INT_TYPE_INFO, BasicTypeInfo.STRING_TYPE_INFO)
+                .createSerializer(new ExecutionConfig());
+    }
+
     /** Test the AsyncWaitOperator with ordered mode and processing time. */
     @Test
     public void testProcessingTimeOrdered() throws Exception {
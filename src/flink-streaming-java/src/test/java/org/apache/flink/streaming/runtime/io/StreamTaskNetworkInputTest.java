@@ -32,8 +32,17 @@ import org.apache.flink.runtime.io.network.api.serialization.SpillingAdaptiveSpa
 import org.apache.flink.runtime.io.network.api.writer.RecordWriter;
 import org.apache.flink.runtime.io.network.buffer.BufferBuilder;
 import org.apache.flink.runtime.io.network.buffer.BufferBuilderTestUtils;
+import org.apache.flink.runtime.io.network.api.writer.RecordWriterBuilder;
 import org.apache.flink.runtime.io.network.buffer.BufferConsumer;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
+import org.apache.flink.runtime.io.network.partition.ResultPartition;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionBuilder;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionManager;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
+import org.apache.flink.runtime.io.network.partition.consumer.InputChannelBuilder;
+import org.apache.flink.runtime.io.network.partition.consumer.LocalInputChannel;
+import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
+import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGateBuilder;
 import org.apache.flink.runtime.io.network.partition.consumer.StreamTestSingleInputGate;
 import org.apache.flink.runtime.operators.testutils.DummyCheckpointInvokable;
 import org.apache.flink.runtime.plugable.DeserializationDelegate;
@@ -65,6 +74,7 @@ import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -203,11 +213,101 @@ public class StreamTaskNetworkInputTest {
         }
     }
 
+    @Test
+    public void testHandedOverElementsFromLocalChannel() throws Exception {
+        ResultPartitionManager partitionManager = new ResultPartitionManager();
+        ResultPartition partition =
+                new ResultPartitionBuilder()
+                        .setResultPartitionManager(partitionManager)
+                        .setNetworkBufferPool(new NetworkBufferPool(2, PAGE_SIZE))
+                        .build();
+        partition.setup();
+
+        SingleInputGate inputGate = new SingleInputGateBuilder().build();
+        LocalInputChannel channel =
+                new InputChannelBuilder()
+                        .setPartitionId(partition.getPartitionId())
+                        .setPartitionManager(partitionManager)
+                        .buildLocalChannel(inputGate);
+        inputGate.setInputChannels(channel);
+        inputGate.requestPartitions();
+
+        RecordWriterOutput<Long> recordWriterOutput =
+                new RecordWriterOutput<>(
+                        new RecordWriterBuilder<SerializationDelegate<StreamRecord<Long>>>()
+                                .build(partition),
+                        LongSerializer.INSTANCE,
+                        null,
+                        () -> StreamStatus.ACTIVE,
+                        false);
+        recordWriterOutput.enableObjectHandover();
+
+        StreamRecord<Long> record = new StreamRecord<>(42L, 7L);
+        recordWriterOutput.collect(record);
+        recordWriterOutput.emitWatermark(new Watermark(7L));
+        partition.flushAll();
+        assertEquals(2, channel.getObjectHandoverQueue().size());
+
+        VerifyRecordsDataOutput<Long> output = new VerifyRecordsDataOutput<>();
+        StreamTaskNetworkInput<Long> input =
+                new StreamTaskNetworkInput<>(
+                        new CheckpointedInputGate(
+                                inputGate,
+                                new CheckpointBarrierTracker(1, new DummyCheckpointInvokable()),
+                                new SyncMailboxExecutor()),
+                        LongSerializer.INSTANCE,
+                        ioManager,
+                        new StatusWatermarkValve(1),
+                        0);
+
+        assertHasNextElement(input, output);
+        assertHasNextElement(input, output);
+
+        assertEquals(0, channel.getObjectHandoverQueue().size());
+        assertEquals(Collections.singletonList(record), output.getEmittedRecords());
+        assertNotSame(record, output.getEmittedRecords().get(0));
+        assertEquals(7L, output.getLastWatermark());
+    }
+
+    @Test
+    public void testBatchedDeserialization() throws Exception {
+        List<BufferOrEvent> buffers = Collections.singletonList(createDataBuffer(1L, 2L, 3L));
+
+        VerifyRecordsDataOutput<Long> output = new VerifyRecordsDataOutput<>();
+        StreamTaskNetworkInput<Long> input =
+                new StreamTaskNetworkInput<>(
+                        new CheckpointedInputGate(
+                                new MockInputGate(1, buffers, false),
+                                new CheckpointBarrierTracker(1, new DummyCheckpointInvokable()),
+                                new SyncMailboxExecutor()),
+                        LongSerializer.INSTANCE,
+                        ioManager,
+                        new StatusWatermarkValve(1),
+                        0,
+                        2);
+
+        // the first pass is bounded by the batch size, the second one by the buffer
+        assertHasNextElement(input, output);
+        assertEquals(2, output.getNumberOfEmittedRecords());
+
+        assertHasNextElement(input, output);
+        assertEquals(
+                Arrays.asList(
+                        new StreamRecord<>(1L), new StreamRecord<>(2L), new StreamRecord<>(3L)),
+                output.getEmittedRecords());
+        assertThat(input.emitNext(output), is(InputStatus.NOTHING_AVAILABLE));
+    }
+
     private BufferOrEvent createDataBuffer() throws IOException {
+        return createDataBuffer(42L, 44L);
+    }
+
+    private BufferOrEvent createDataBuffer(long... values) throws IOException {
         BufferBuilder bufferBuilder = BufferBuilderTestUtils.createEmptyBufferBuilder(PAGE_SIZE);
         BufferConsumer bufferConsumer = bufferBuilder.createBufferConsumer();
-        serializeRecord(42L, bufferBuilder);
-        serializeRecord(44L, bufferBuilder);
+        for (long value : values) {
+            serializeRecord(value, bufferBuilder);
+        }
 
         return new BufferOrEvent(bufferConsumer.build(), new InputChannelInfo(0, 0));
     }
@@ -280,15 +380,30 @@ public class StreamTaskNetworkInputTest {
 
     private static class VerifyRecordsDataOutput<T> extends NoOpDataOutput<T> {
 
-        private int numberOfEmittedRecords;
+        private final List<StreamRecord<T>> emittedRecords = new ArrayList<>();
+
+        private long lastWatermark = Long.MIN_VALUE;
 
         @Override
         public void emitRecord(StreamRecord<T> record) {
-            numberOfEmittedRecords++;
+            emittedRecords.add(record);
+        }
+
+        @Override
+        public void emitWatermark(Watermark watermark) {
+            lastWatermark = watermark.getTimestamp();
         }
 
         int getNumberOfEmittedRecords() {
-            return numberOfEmittedRecords;
+            return emittedRecords.size();
+        }
+
+        List<StreamRecord<T>> getEmittedRecords() {
+            return emittedRecords;
+        }
+
+        long getLastWatermark() {
+            return lastWatermark;
         }
     }
 }
@@ -19,7 +19,9 @@
 package org.apache.flink.streaming.runtime.operators.windowing;
 
 import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.functions.AggregateFunction;
 import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.state.AggregatingStateDescriptor;
 import org.apache.flink.api.common.state.ListStateDescriptor;
 import org.apache.flink.api.common.state.ReducingStateDescriptor;
 import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
@@ -250,6 +252,83 @@ public class WindowOperatorTest extends TestLogger {
         testSlidingEventTimeWindows(operator);
     }
 
+    @Test
+    public void testSlidingEventTimeWindowsReduceWithSliceSharing() throws Exception {
+        testSlidingEventTimeWindows(createSliceSharingReduceOperator(null));
+    }
+
+    @Test
+    public void testSlidingEventTimeWindowsAggregateWithSliceSharing() throws Exception {
+        AggregatingStateDescriptor<
+                        Tuple2<String, Integer>, Tuple2<String, Integer>, Tuple2<String, Integer>>
+                stateDesc =
+                        new AggregatingStateDescriptor<>(
+                                "window-contents",
+                                new SumAggregator(),
+                                STRING_INT_TUPLE.createSerializer(new ExecutionConfig()));
+
+        SliceSharingWindowOperator<
+                        String,
+                        Tuple2<String, Integer>,
+                        Tuple2<String, Integer>,
+                        Tuple2<String, Integer>,
+                        Tuple2<String, Integer>>
+                operator =
+                        new SliceSharingWindowOperator<>(
+                                SlidingEventTimeWindows.of(
+                                        Time.of(3, TimeUnit.SECONDS), Time.of(1, TimeUnit.SECONDS)),
+                                3000,
+                                1000,
+                                0,
+                                new TimeWindow.Serializer(),
+                                new TupleKeySelector(),
+                                BasicTypeInfo.STRING_TYPE_INFO.createSerializer(
+                                        new ExecutionConfig()),
+                                stateDesc,
+                                new SliceSharingWindowOperator.AggregateSliceCombiner<>(
+                                        new SumAggregator()),
+                                new InternalSingleValueWindowFunction<>(
+                                        new PassThroughWindowFunction<
+                                                String, TimeWindow, Tuple2<String, Integer>>()),
+                                EventTimeTrigger.create(),
+                                null /* late data output tag */);
+
+        testSlidingEventTimeWindows(operator);
+    }
+
+    private static SliceSharingWindowOperator<
+                    String,
+                    Tuple2<String, Integer>,
+                    Tuple2<String, Integer>,
+                    Tuple2<String, Integer>,
+                    Tuple2<String, Integer>>
+            createSliceSharingReduceOperator(
+                    OutputTag<Tuple2<String, Integer>> lateDataOutputTag) {
+
+        ReducingStateDescriptor<Tuple2<String, Integer>> stateDesc =
+                new ReducingStateDescriptor<>(
+                        "window-contents",
+                        new SumReducer(),
+                        STRING_INT_TUPLE.createSerializer(new ExecutionConfig()));
+
+        return new SliceSharingWindowOperator<>(
+                SlidingEventTimeWindows.of(
+                        Time.of(3, TimeUnit.SECONDS), Time.of(1, TimeUnit.SECONDS)),
+                3000,
+                1000,
+                0,
+                new TimeWindow.Serializer(),
+                new TupleKeySelector(),
+                BasicTypeInfo.STRING_TYPE_INFO.createSerializer(new ExecutionConfig()),
+                stateDesc,
+                new SliceSharingWindowOperator.ReduceSliceCombiner<>(new SumReducer()),
+                new InternalSingleValueWindowFunction<>(
+                        new PassThroughWindowFunction<
+                                String, TimeWindow, Tuple2<String, Integer>>()),
+                EventTimeTrigger.create(),
+                lateDataOutputTag);
+    }
+
     @Test
     public void testSlidingEventTimeWindowsApply() throws Exception {
         closeCalled.set(0);
@@ -2087,6 +2166,18 @@ public class WindowOperatorTest extends TestLogger {
                                 lateness,
                                 lateOutputTag /* late data output tag */);
 
+        testSideOutputDueToLatenessSliding(operator);
+    }
+
+    @Test
+    public void testSideOutputDueToLatenessSlidingWithSliceSharing() throws Exception {
+        testSideOutputDueToLatenessSliding(createSliceSharingReduceOperator(lateOutputTag));
+    }
+
+    private void testSideOutputDueToLatenessSliding(
+            OneInputStreamOperator<Tuple2<String, Integer>, Tuple2<String, Integer>> operator)
+            throws Exception {
+
         OneInputStreamOperatorTestHarness<Tuple2<String, Integer>, Tuple2<String, Integer>>
                 testHarness = createTestHarness(operator);
 
@@ -3101,6 +3192,36 @@ public class WindowOperatorTest extends TestLogger {
         }
     }
 
+    /** Sums up the counts, reusing the first accumulator when merging. */
+    private static class SumAggregator
+            implements AggregateFunction<
+                    Tuple2<String, Integer>, Tuple2<String, Integer>, Tuple2<String, Integer>> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Tuple2<String, Integer> createAccumulator() {
+            return new Tuple2<>(null, 0);
+        }
+
+        @Override
+        public Tuple2<String, Integer> add(
+                Tuple2<String, Integer> value, Tuple2<String, Integer> accumulator) {
+            return new Tuple2<>(value.f0, accumulator.f1 + value.f1);
+        }
+
+        @Override
+        public Tuple2<String, Integer> getResult(Tuple2<String, Integer> accumulator) {
+            return accumulator;
+        }
+
+        @Override
+        public Tuple2<String, Integer> merge(
+                Tuple2<String, Integer> a, Tuple2<String, Integer> b) {
+            a.f1 += b.f1;
+            return a;
+        }
+    }
+
     private static class RichSumReducer<W extends Window>
             extends RichWindowFunction<
                     Tuple2<String, Integer>, Tuple2<String, Integer>, String, W> {
@@ -269,6 +269,57 @@ public class WindowTranslationTest {
                 new Tuple2<>("hello", 1));
     }
 
+    @Test
+    @SuppressWarnings("rawtypes")
+    public void testReduceEventTimeWithSliceSharing() throws Exception {
+        StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+        env.getConfig().enableWindowSliceSharing();
+
+        DataStream<Tuple2<String, Integer>> source =
+                env.fromElements(Tuple2.of("hello", 1), Tuple2.of("hello", 2));
+
+        DataStream<Tuple2<String, Integer>> window1 =
+                source.keyBy(new TupleKeySelector())
+                        .window(
+                                SlidingEventTimeWindows.of(
+                                        Time.of(1, TimeUnit.SECONDS),
+                                        Time.of(100, TimeUnit.MILLISECONDS)))
+                        .reduce(new DummyReducer());
+
+        OneInputTransformation<Tuple2<String, Integer>, Tuple2<String, Integer>> transform =
+                (OneInputTransformation<Tuple2<String, Integer>, Tuple2<String, Integer>>)
+                        window1.getTransformation();
+        OneInputStreamOperator<Tuple2<String, Integer>, Tuple2<String, Integer>> operator =
+                transform.getOperator();
+        Assert.assertTrue(operator instanceof SliceSharingWindowOperator);
+        WindowOperator<String, Tuple2<String, Integer>, ?, ?, ?> winOperator =
+                (WindowOperator<String, Tuple2<String, Integer>, ?, ?, ?>) operator;
+        Assert.assertTrue(winOperator.getWindowAssigner() instanceof SlidingEventTimeWindows);
+        Assert.assertTrue(winOperator.getStateDescriptor() instanceof ReducingStateDescriptor);
+
+        processElementAndEnsureOutput(
+                winOperator,
+                winOperator.getKeySelector(),
+                BasicTypeInfo.STRING_TYPE_INFO,
+                new Tuple2<>("hello", 1));
+
+        // windows with a custom trigger do not share slices
+        DataStream<Tuple2<String, Integer>> window2 =
+                source.keyBy(new TupleKeySelector())
+                        .window(
+                                SlidingEventTimeWindows.of(
+                                        Time.of(1, TimeUnit.SECONDS),
+                                        Time.of(100, TimeUnit.MILLISECONDS)))
+                        .trigger(CountTrigger.of(1))
+                        .reduce(new DummyReducer());
+
+        operator =
+                ((OneInputTransformation<Tuple2<String, Integer>, Tuple2<String, Integer>>)
+                                window2.getTransformation())
+                        .getOperator();
+        Assert.assertFalse(operator instanceof SliceSharingWindowOperator);
+    }
+
     @Test
     @SuppressWarnings("rawtypes")
     public void testReduceProcessingTime() throws Exception {
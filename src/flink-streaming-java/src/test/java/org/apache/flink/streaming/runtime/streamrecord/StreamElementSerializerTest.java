@@ -33,6 +33,7 @@ import java.io.IOException;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -92,6 +93,10 @@ public class StreamElementSerializerTest {
         LatencyMarker latencyMarker =
                 new LatencyMarker(System.currentTimeMillis(), new OperatorID(-1, -1), 1);
         assertEquals(latencyMarker, serializeAndDeserialize(latencyMarker, serializer));
+
+        assertSame(
+                StreamElementSerializer.HANDED_OVER,
+                serializeAndDeserialize(StreamElementSerializer.HANDED_OVER, serializer));
     }
 
     @SuppressWarnings("unchecked")
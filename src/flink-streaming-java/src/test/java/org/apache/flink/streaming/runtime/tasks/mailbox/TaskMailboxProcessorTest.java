@@ -17,8 +17,17 @@
 
 package org.apache.flink.streaming.runtime.tasks.mailbox;
 
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.configuration.Configuration;
 import org.apache.flink.core.testutils.OneShotLatch;
+import org.apache.flink.metrics.Histogram;
 import org.apache.flink.runtime.concurrent.FutureTaskWithException;
+import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.metrics.groups.TaskManagerMetricGroup;
+import org.apache.flink.runtime.metrics.groups.TaskMetricGroup;
+import org.apache.flink.runtime.metrics.scope.ScopeFormats;
+import org.apache.flink.runtime.metrics.util.TestingMetricRegistry;
 import org.apache.flink.streaming.api.operators.MailboxExecutor;
 import org.apache.flink.util.FlinkException;
 import org.apache.flink.util.function.RunnableWithException;
@@ -29,8 +38,11 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -319,6 +331,113 @@ public class TaskMailboxProcessorTest {
         Assert.assertThat(mailboxProcessor.getIdleTime().getCount(), Matchers.greaterThan(0L));
     }
 
+    @Test
+    public void testMailTime() throws Exception {
+        final MailboxProcessor mailboxProcessor =
+                new MailboxProcessor(MailboxDefaultAction.Controller::allActionsCompleted);
+        final MailboxExecutor mailboxExecutor =
+                mailboxProcessor.getMailboxExecutor(DEFAULT_PRIORITY);
+        for (int i = 0; i < 3; i++) {
+            mailboxExecutor.execute(() -> Thread.sleep(2), "sleep");
+        }
+
+        mailboxProcessor.runMailboxLoop();
+
+        Assert.assertFalse(mailboxProcessor.hasMail());
+        Assert.assertThat(mailboxProcessor.getMailTime().getCount(), Matchers.greaterThan(4L));
+        Assert.assertEquals(0, mailboxProcessor.getIdleTime().getCount());
+    }
+
+    @Test
+    public void testMailTimeIncludesMailsRunWhileYielding() throws Exception {
+        final AtomicReference<MailboxExecutor> mailboxExecutor = new AtomicReference<>();
+        final MailboxProcessor mailboxProcessor =
+                new MailboxProcessor(
+                        controller -> {
+                            for (int i = 0; i < 3; i++) {
+                                mailboxExecutor.get().execute(() -> Thread.sleep(2), "sleep");
+                            }
+                            // run the mails from the default action instead of the mailbox loop
+                            while (mailboxExecutor.get().tryYield()) {}
+                            controller.allActionsCompleted();
+                        });
+        mailboxExecutor.set(mailboxProcessor.getMailboxExecutor(DEFAULT_PRIORITY));
+
+        mailboxProcessor.runMailboxLoop();
+
+        Assert.assertFalse(mailboxProcessor.hasMail());
+        Assert.assertThat(mailboxProcessor.getMailTime().getCount(), Matchers.greaterThan(4L));
+    }
+
+    @Test
+    public void testMailTimeOfYieldingMailIsNotCountedTwice() throws Exception {
+        final MailboxProcessor mailboxProcessor =
+                new MailboxProcessor(MailboxDefaultAction.Controller::allActionsCompleted);
+        final MailboxExecutor mailboxExecutor =
+                mailboxProcessor.getMailboxExecutor(DEFAULT_PRIORITY);
+        mailboxExecutor.execute(
+                () -> {
+                    mailboxExecutor.execute(() -> Thread.sleep(10), "sleep");
+                    mailboxExecutor.yield();
+                },
+                "yield");
+
+        final long start = System.nanoTime();
+        mailboxProcessor.runMailboxLoop();
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        final long mailTime = mailboxProcessor.getMailTime().getCount();
+        Assert.assertThat(mailTime, Matchers.greaterThanOrEqualTo(10L));
+        Assert.assertThat(mailTime, Matchers.lessThanOrEqualTo(elapsedMillis));
+    }
+
+    @Test
+    public void testMailLatencyPerPriority() throws Exception {
+        final Map<String, Histogram> histograms = new HashMap<>();
+        final TestingMetricRegistry registry =
+                TestingMetricRegistry.builder()
+                        .setRegisterConsumer(
+                                (metric, metricName, group) -> {
+                                    if (metric instanceof Histogram) {
+                                        histograms.put(
+                                                group.getMetricIdentifier(metricName),
+                                                (Histogram) metric);
+                                    }
+                                })
+                        .setScopeFormats(ScopeFormats.fromConfig(new Configuration()))
+                        .build();
+        final TaskMetricGroup metricGroup =
+                new TaskManagerMetricGroup(registry, "host", "taskmanager")
+                        .addTaskForJob(
+                                new JobID(),
+                                "job",
+                                new JobVertexID(),
+                                new ExecutionAttemptID(),
+                                "task",
+                                0,
+                                0);
+
+        final MailboxProcessor mailboxProcessor =
+                new MailboxProcessor(MailboxDefaultAction.Controller::allActionsCompleted);
+        mailboxProcessor.initMetric(metricGroup);
+        mailboxProcessor.getMailboxExecutor(DEFAULT_PRIORITY).execute(() -> {}, "operator");
+        mailboxProcessor.getMailboxExecutor(TaskMailbox.MAX_PRIORITY).execute(() -> {}, "control");
+        mailboxProcessor.getMainMailboxExecutor().execute(() -> {}, "main");
+
+        mailboxProcessor.runMailboxLoop();
+
+        Assert.assertEquals(3, histograms.size());
+        for (String priority : new String[] {String.valueOf(DEFAULT_PRIORITY), "max", "min"}) {
+            final String suffix = ".mailboxPriority." + priority + ".mailboxLatencyMs";
+            Assert.assertEquals(
+                    1L,
+                    histograms.entrySet().stream()
+                            .filter(entry -> entry.getKey().endsWith(suffix))
+                            .mapToLong(entry -> entry.getValue().getCount())
+                            .sum());
+        }
+    }
+
     private static MailboxProcessor start(MailboxThread mailboxThread) {
         mailboxThread.start();
         final MailboxProcessor mailboxProcessor = mailboxThread.getMailboxProcessor();
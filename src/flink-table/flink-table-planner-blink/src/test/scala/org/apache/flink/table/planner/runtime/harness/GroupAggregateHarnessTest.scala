@@ -19,24 +19,27 @@
 package org.apache.flink.table.planner.runtime.harness
 
 import org.apache.flink.api.scala._
+import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness
 import org.apache.flink.table.api.{EnvironmentSettings, _}
 import org.apache.flink.table.api.bridge.scala._
 import org.apache.flink.table.api.bridge.scala.internal.StreamTableEnvironmentImpl
 import org.apache.flink.table.api.config.ExecutionConfigOptions.{TABLE_EXEC_MINIBATCH_ALLOW_LATENCY, TABLE_EXEC_MINIBATCH_ENABLED, TABLE_EXEC_MINIBATCH_SIZE}
 import org.apache.flink.table.api.config.OptimizerConfigOptions.TABLE_OPTIMIZER_AGG_PHASE_STRATEGY
+import org.apache.flink.table.data.RowData
 import org.apache.flink.table.planner.runtime.utils.StreamingWithMiniBatchTestBase.{MiniBatchMode, MiniBatchOff, MiniBatchOn}
 import org.apache.flink.table.planner.runtime.utils.StreamingWithStateTestBase.{HEAP_BACKEND, ROCKSDB_BACKEND, StateBackendMode}
 import org.apache.flink.table.planner.runtime.utils.UserDefinedFunctionTestUtils.CountNullNonNull
-import org.apache.flink.table.runtime.util.RowDataHarnessAssertor
+import org.apache.flink.table.runtime.util.{NonBatchedLookupKeyedStateStore, RowDataHarnessAssertor}
 import org.apache.flink.table.runtime.util.StreamRecordUtils.binaryRecord
 import org.apache.flink.types.Row
 import org.apache.flink.types.RowKind._
 
+import org.junit.Assume.assumeTrue
 import org.junit.runner.RunWith
 import org.junit.runners.Parameterized
 import org.junit.{Before, Test}
 
-import java.lang.{Long => JLong}
+import java.lang.{Boolean => JBoolean, Long => JLong}
 import java.time.Duration
 import java.util.concurrent.ConcurrentLinkedQueue
 import java.util.{Collection => JCollection}
@@ -45,8 +48,11 @@ import scala.collection.JavaConversions._
 import scala.collection.mutable
 
 @RunWith(classOf[Parameterized])
-class GroupAggregateHarnessTest(mode: StateBackendMode, miniBatch: MiniBatchMode)
-    extends HarnessTestBase(mode) {
+class GroupAggregateHarnessTest(
+    mode: StateBackendMode,
+    miniBatch: MiniBatchMode,
+    batchedLookups: Boolean)
+  extends HarnessTestBase(mode) {
 
   @Before
   override def before(): Unit = {
@@ -92,7 +98,7 @@ class GroupAggregateHarnessTest(mode: StateBackendMode, miniBatch: MiniBatchMode
         DataTypes.STRING().getLogicalType,
         DataTypes.BIGINT().getLogicalType))
 
-    testHarness.open()
+    openHarness(testHarness)
 
     val expectedOutput = new ConcurrentLinkedQueue[Object]()
 
@@ -183,7 +189,7 @@ class GroupAggregateHarnessTest(mode: StateBackendMode, miniBatch: MiniBatchMode
         DataTypes.BIGINT().getLogicalType,
         DataTypes.BIGINT().getLogicalType))
 
-    testHarness.open()
+    openHarness(testHarness)
 
     val expectedOutput = new ConcurrentLinkedQueue[Object]()
 
@@ -240,17 +246,84 @@ class GroupAggregateHarnessTest(mode: StateBackendMode, miniBatch: MiniBatchMode
     testHarness.close()
   }
 
+  @Test
+  def testMiniBatchAggregateWithSeveralKeysPerBundle(): Unit = {
+    assumeTrue(miniBatch == MiniBatchOn)
+    tEnv.getConfig.getConfiguration.setLong(TABLE_EXEC_MINIBATCH_SIZE, 3L)
+
+    val data = new mutable.MutableList[(String, Long)]
+    val t = env.fromCollection(data).toTable(tEnv, 'a, 'c)
+    tEnv.createTemporaryView("T", t)
+
+    val t1 = tEnv.sqlQuery("SELECT a, SUM(c) FROM T GROUP BY a")
+
+    val testHarness = createHarnessTester(t1.toRetractStream[Row], "GroupAggregate")
+    val assertor = new RowDataHarnessAssertor(
+      Array(
+        DataTypes.STRING().getLogicalType,
+        DataTypes.BIGINT().getLogicalType))
+
+    openHarness(testHarness)
+
+    val expectedOutput = new ConcurrentLinkedQueue[Object]()
+
+    // first bundle, no key has accumulators yet
+    testHarness.processElement(binaryRecord(INSERT, "aaa", 1L: JLong))
+    testHarness.processElement(binaryRecord(INSERT, "bbb", 2L: JLong))
+    testHarness.processElement(binaryRecord(INSERT, "aaa", 3L: JLong))
+    expectedOutput.add(binaryRecord(INSERT, "aaa", 4L: JLong))
+    expectedOutput.add(binaryRecord(INSERT, "bbb", 2L: JLong))
+
+    // second bundle, the accumulators of "aaa" and "bbb" are read from the state
+    testHarness.processElement(binaryRecord(INSERT, "bbb", 4L: JLong))
+    testHarness.processElement(binaryRecord(INSERT, "ccc", 5L: JLong))
+    testHarness.processElement(binaryRecord(INSERT, "aaa", 6L: JLong))
+    expectedOutput.add(binaryRecord(UPDATE_BEFORE, "bbb", 2L: JLong))
+    expectedOutput.add(binaryRecord(UPDATE_AFTER, "bbb", 6L: JLong))
+    expectedOutput.add(binaryRecord(INSERT, "ccc", 5L: JLong))
+    expectedOutput.add(binaryRecord(UPDATE_BEFORE, "aaa", 4L: JLong))
+    expectedOutput.add(binaryRecord(UPDATE_AFTER, "aaa", 10L: JLong))
+
+    // third bundle, the accumulators of the second bundle were written to the state
+    testHarness.processElement(binaryRecord(INSERT, "ccc", 1L: JLong))
+    testHarness.processElement(binaryRecord(INSERT, "ddd", 1L: JLong))
+    testHarness.processElement(binaryRecord(INSERT, "ccc", 2L: JLong))
+    expectedOutput.add(binaryRecord(UPDATE_BEFORE, "ccc", 5L: JLong))
+    expectedOutput.add(binaryRecord(UPDATE_AFTER, "ccc", 8L: JLong))
+    expectedOutput.add(binaryRecord(INSERT, "ddd", 1L: JLong))
+
+    val result = testHarness.getOutput
+
+    assertor.assertOutputEqualsSorted("result mismatch", expectedOutput, result)
+
+    testHarness.close()
+  }
+
+  /**
+   * Opens the harness. Without batched lookups the value states of the operator do not support
+   * them, like the states of a state backend that cannot look up several keys at once.
+   */
+  private def openHarness(
+      testHarness: KeyedOneInputStreamOperatorTestHarness[RowData, RowData, RowData]): Unit = {
+    testHarness.initializeEmptyState()
+    if (!batchedLookups) {
+      NonBatchedLookupKeyedStateStore.install(testHarness)
+    }
+    testHarness.open()
+  }
 }
 
 object GroupAggregateHarnessTest {
 
-  @Parameterized.Parameters(name = "StateBackend={0}, MiniBatch={1}")
+  @Parameterized.Parameters(name = "StateBackend={0}, MiniBatch={1}, BatchedLookups={2}")
   def parameters(): JCollection[Array[java.lang.Object]] = {
     Seq[Array[AnyRef]](
-      Array(HEAP_BACKEND, MiniBatchOff),
-      Array(HEAP_BACKEND, MiniBatchOn),
-      Array(ROCKSDB_BACKEND, MiniBatchOff),
-      Array(ROCKSDB_BACKEND, MiniBatchOn)
+      Array(HEAP_BACKEND, MiniBatchOff, JBoolean.TRUE),
+      Array(HEAP_BACKEND, MiniBatchOn, JBoolean.TRUE),
+      Array(HEAP_BACKEND, MiniBatchOn, JBoolean.FALSE),
+      Array(ROCKSDB_BACKEND, MiniBatchOff, JBoolean.TRUE),
+      Array(ROCKSDB_BACKEND, MiniBatchOn, JBoolean.TRUE),
+      Array(ROCKSDB_BACKEND, MiniBatchOn, JBoolean.FALSE)
     )
   }
 }
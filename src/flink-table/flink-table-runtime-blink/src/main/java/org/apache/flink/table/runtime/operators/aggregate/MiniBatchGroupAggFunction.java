@@ -162,6 +162,8 @@ public class MiniBatchGroupAggFunction
     @Override
     public void finishBundle(Map<RowData, List<RowData>> buffer, Collector<RowData> out)
             throws Exception {
+        // look up the accumulators of all keys at once if the state backend supports it
+        Map<RowData, RowData> accumulators = getAll(accState, buffer.keySet());
         for (Map.Entry<RowData, List<RowData>> entry : buffer.entrySet()) {
             RowData currentKey = entry.getKey();
             List<RowData> inputRows = entry.getValue();
@@ -172,7 +174,7 @@ public class MiniBatchGroupAggFunction
 
             // set current key to access state under the key
             ctx.setCurrentKey(currentKey);
-            RowData acc = accState.value();
+            RowData acc = accumulators != null ? accumulators.get(currentKey) : accState.value();
             if (acc == null) {
                 // Don't create a new accumulator for a retraction message. This
                 // might happen if the retraction message is the first message for the
@@ -19,12 +19,15 @@
 package org.apache.flink.table.runtime.operators.bundle;
 
 import org.apache.flink.api.common.functions.Function;
+import org.apache.flink.api.common.state.State;
+import org.apache.flink.runtime.state.internal.InternalKvState;
 import org.apache.flink.table.runtime.context.ExecutionContext;
 import org.apache.flink.util.Collector;
 import org.apache.flink.util.Preconditions;
 
 import javax.annotation.Nullable;
 
+import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -41,8 +44,12 @@ public abstract class MapBundleFunction<K, V, IN, OUT> implements Function {
 
     protected transient ExecutionContext ctx;
 
+    /** Whether the keyed state rejected a batched look up, see {@link #getAll(State, Collection)}. */
+    private transient boolean batchedLookupUnsupported;
+
     public void open(ExecutionContext ctx) throws Exception {
         this.ctx = Preconditions.checkNotNull(ctx);
+        this.batchedLookupUnsupported = false;
     }
 
     /**
@@ -59,4 +66,28 @@ public abstract class MapBundleFunction<K, V, IN, OUT> implements Function {
     public abstract void finishBundle(Map<K, V> buffer, Collector<OUT> out) throws Exception;
 
     public void close() throws Exception {}
+
+    /**
+     * Looks up the states of the given bundle keys in one batch, see {@link
+     * InternalKvState#getAll(Collection)}. This only works for keyed bundles, whose keys are the
+     * keys of the keyed state.
+     *
+     * @param state The keyed state obtained from the runtime context.
+     * @param keys The keys of the bundle.
+     * @return The states of the keys that have a state, or null if the state backend does not
+     *     support batched look ups. In that case the state has to be read per key.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    protected <T> Map<K, T> getAll(State state, Collection<K> keys) throws Exception {
+        if (batchedLookupUnsupported || !(state instanceof InternalKvState)) {
+            return null;
+        }
+        try {
+            return ((InternalKvState<K, ?, T>) state).getAll(keys);
+        } catch (UnsupportedOperationException e) {
+            batchedLookupUnsupported = true;
+            return null;
+        }
+    }
 }
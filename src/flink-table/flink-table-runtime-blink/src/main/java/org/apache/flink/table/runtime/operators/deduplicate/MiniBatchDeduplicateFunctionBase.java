@@ -25,6 +25,10 @@ import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.table.runtime.context.ExecutionContext;
 import org.apache.flink.table.runtime.operators.bundle.MapBundleFunction;
 
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
 import static org.apache.flink.table.runtime.util.StateTtlConfigUtil.createTtlConfig;
 
 /**
@@ -61,4 +65,48 @@ abstract class MiniBatchDeduplicateFunctionBase<T, K, V, IN, OUT>
         }
         state = ctx.getRuntimeContext().getState(stateDesc);
     }
+
+    /**
+     * Prepares the processing of a bundle with the given keys. If the state backend supports it,
+     * the states of all keys are looked up in one batch, and the returned state serves the reads of
+     * the current key from that batch. Otherwise the keyed state itself is returned.
+     *
+     * @param keys The keys of the bundle.
+     * @return The state to use while the bundle is processed.
+     */
+    protected ValueState<T> prepareBundle(Collection<K> keys) throws Exception {
+        Map<K, T> bundleStates = getAll(state, keys);
+        return bundleStates == null ? state : new BundleValueState(bundleStates);
+    }
+
+    /**
+     * The state of a bundle whose states were looked up in one batch. Reads are served from the
+     * batch, writes go to the keyed state and the batch.
+     */
+    private final class BundleValueState implements ValueState<T> {
+
+        private final Map<K, T> bundleStates;
+
+        private BundleValueState(Map<K, T> bundleStates) {
+            this.bundleStates = bundleStates;
+        }
+
+        @Override
+        public T value() {
+            return bundleStates.get(ctx.currentKey());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void update(T value) throws IOException {
+            state.update(value);
+            bundleStates.put((K) ctx.currentKey(), value);
+        }
+
+        @Override
+        public void clear() {
+            state.clear();
+            bundleStates.remove(ctx.currentKey());
+        }
+    }
 }
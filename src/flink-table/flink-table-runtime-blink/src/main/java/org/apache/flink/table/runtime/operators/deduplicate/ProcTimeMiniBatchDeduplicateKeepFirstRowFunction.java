@@ -18,6 +18,7 @@
 
 package org.apache.flink.table.runtime.operators.deduplicate;
 
+import org.apache.flink.api.common.state.ValueState;
 import org.apache.flink.api.common.typeinfo.Types;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.table.data.RowData;
@@ -60,11 +61,12 @@ public class ProcTimeMiniBatchDeduplicateKeepFirstRowFunction
     @Override
     public void finishBundle(Map<RowData, RowData> buffer, Collector<RowData> out)
             throws Exception {
+        ValueState<Boolean> bundleState = prepareBundle(buffer.keySet());
         for (Map.Entry<RowData, RowData> entry : buffer.entrySet()) {
             RowData currentKey = entry.getKey();
             RowData currentRow = entry.getValue();
             ctx.setCurrentKey(currentKey);
-            processFirstRowOnProcTime(currentRow, state, out);
+            processFirstRowOnProcTime(currentRow, bundleState, out);
         }
     }
 }
@@ -18,6 +18,7 @@
 
 package org.apache.flink.table.runtime.operators.deduplicate;
 
+import org.apache.flink.api.common.state.ValueState;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
@@ -63,15 +64,20 @@ public class ProcTimeMiniBatchDeduplicateKeepLastRowFunction
     @Override
     public void finishBundle(Map<RowData, RowData> buffer, Collector<RowData> out)
             throws Exception {
+        // the previous rows are only read if they are needed for the output
+        ValueState<RowData> bundleState =
+                inputInsertOnly && !generateUpdateBefore && !generateInsert
+                        ? state
+                        : prepareBundle(buffer.keySet());
         for (Map.Entry<RowData, RowData> entry : buffer.entrySet()) {
             RowData currentKey = entry.getKey();
             RowData currentRow = entry.getValue();
             ctx.setCurrentKey(currentKey);
             if (inputInsertOnly) {
                 processLastRowOnProcTime(
-                        currentRow, generateUpdateBefore, generateInsert, state, out);
+                        currentRow, generateUpdateBefore, generateInsert, bundleState, out);
             } else {
-                processLastRowOnChangelog(currentRow, generateUpdateBefore, state, out);
+                processLastRowOnChangelog(currentRow, generateUpdateBefore, bundleState, out);
             }
         }
     }
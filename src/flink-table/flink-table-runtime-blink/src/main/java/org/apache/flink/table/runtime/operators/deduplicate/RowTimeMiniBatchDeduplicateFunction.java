@@ -75,12 +75,13 @@ public class RowTimeMiniBatchDeduplicateFunction
     @Override
     public void finishBundle(Map<RowData, List<RowData>> buffer, Collector<RowData> out)
             throws Exception {
+        ValueState<RowData> bundleState = prepareBundle(buffer.keySet());
         for (Map.Entry<RowData, List<RowData>> entry : buffer.entrySet()) {
             RowData currentKey = entry.getKey();
             List<RowData> bufferedRows = entry.getValue();
             ctx.setCurrentKey(currentKey);
             miniBatchDeduplicateOnRowTime(
-                    state,
+                    bundleState,
                     bufferedRows,
                     out,
                     generateUpdateBefore,
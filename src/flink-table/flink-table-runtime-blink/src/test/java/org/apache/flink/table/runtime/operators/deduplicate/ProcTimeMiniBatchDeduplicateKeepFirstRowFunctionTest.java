@@ -22,27 +22,38 @@ import org.apache.flink.api.common.ExecutionConfig;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
-import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.runtime.operators.bundle.KeyedMapBundleOperator;
 import org.apache.flink.table.runtime.operators.bundle.trigger.CountBundleTrigger;
+import org.apache.flink.table.runtime.util.NonBatchedLookupKeyedStateStore;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 
 import static org.apache.flink.table.runtime.util.StreamRecordUtils.insertRecord;
 
 /** Tests for {@link ProcTimeMiniBatchDeduplicateKeepFirstRowFunction}. */
+@RunWith(Parameterized.class)
 public class ProcTimeMiniBatchDeduplicateKeepFirstRowFunctionTest
         extends ProcTimeDeduplicateFunctionTestBase {
 
     private TypeSerializer<RowData> typeSerializer =
             inputRowType.createSerializer(new ExecutionConfig());
 
-    private OneInputStreamOperatorTestHarness<RowData, RowData> createTestHarness(
+    private final boolean batchedLookups;
+
+    public ProcTimeMiniBatchDeduplicateKeepFirstRowFunctionTest(boolean batchedLookups) {
+        this.batchedLookups = batchedLookups;
+    }
+
+    private KeyedOneInputStreamOperatorTestHarness<RowData, RowData, RowData> createTestHarness(
             ProcTimeMiniBatchDeduplicateKeepFirstRowFunction func) throws Exception {
         CountBundleTrigger<Tuple2<String, String>> trigger = new CountBundleTrigger<>(3);
         KeyedMapBundleOperator op = new KeyedMapBundleOperator(func, trigger);
@@ -50,13 +61,24 @@ public class ProcTimeMiniBatchDeduplicateKeepFirstRowFunctionTest
                 op, rowKeySelector, rowKeySelector.getProducedType());
     }
 
+    private void openTestHarness(
+            KeyedOneInputStreamOperatorTestHarness<RowData, RowData, RowData> testHarness)
+            throws Exception {
+        testHarness.initializeEmptyState();
+        if (!batchedLookups) {
+            NonBatchedLookupKeyedStateStore.install(testHarness);
+        }
+        testHarness.open();
+    }
+
     @Test
     public void testKeepFirstRowWithGenerateUpdateBefore() throws Exception {
         ProcTimeMiniBatchDeduplicateKeepFirstRowFunction func =
                 new ProcTimeMiniBatchDeduplicateKeepFirstRowFunction(
                         typeSerializer, minTime.toMilliseconds());
-        OneInputStreamOperatorTestHarness<RowData, RowData> testHarness = createTestHarness(func);
-        testHarness.open();
+        KeyedOneInputStreamOperatorTestHarness<RowData, RowData, RowData> testHarness =
+                createTestHarness(func);
+        openTestHarness(testHarness);
         testHarness.processElement(insertRecord("book", 1L, 12));
         testHarness.processElement(insertRecord("book", 2L, 11));
 
@@ -78,9 +100,10 @@ public class ProcTimeMiniBatchDeduplicateKeepFirstRowFunctionTest
         ProcTimeMiniBatchDeduplicateKeepFirstRowFunction func =
                 new ProcTimeMiniBatchDeduplicateKeepFirstRowFunction(
                         typeSerializer, minTime.toMilliseconds());
-        OneInputStreamOperatorTestHarness<RowData, RowData> testHarness = createTestHarness(func);
+        KeyedOneInputStreamOperatorTestHarness<RowData, RowData, RowData> testHarness =
+                createTestHarness(func);
         testHarness.setup();
-        testHarness.open();
+        openTestHarness(testHarness);
         testHarness.processElement(insertRecord("book", 1L, 12));
         testHarness.processElement(insertRecord("book", 2L, 11));
         // output is empty because bundle not trigger yet.
@@ -102,4 +125,37 @@ public class ProcTimeMiniBatchDeduplicateKeepFirstRowFunctionTest
         assertor.assertOutputEqualsSorted("output wrong.", expectedOutput, testHarness.getOutput());
         testHarness.close();
     }
+
+    @Test
+    public void testKeepFirstRowOfSeveralKeysPerBundle() throws Exception {
+        ProcTimeMiniBatchDeduplicateKeepFirstRowFunction func =
+                new ProcTimeMiniBatchDeduplicateKeepFirstRowFunction(
+                        typeSerializer, minTime.toMilliseconds());
+        KeyedOneInputStreamOperatorTestHarness<RowData, RowData, RowData> testHarness =
+                createTestHarness(func);
+        openTestHarness(testHarness);
+        testHarness.processElement(insertRecord("book", 1L, 12));
+        testHarness.processElement(insertRecord("book", 2L, 11));
+        testHarness.processElement(insertRecord("book", 3L, 10));
+        Assert.assertEquals(3, testHarness.numKeyedStateEntries());
+
+        // only the key without a state is emitted
+        testHarness.processElement(insertRecord("book", 1L, 13));
+        testHarness.processElement(insertRecord("book", 4L, 14));
+        testHarness.processElement(insertRecord("book", 2L, 15));
+        Assert.assertEquals(4, testHarness.numKeyedStateEntries());
+
+        List<Object> expectedOutput = new ArrayList<>();
+        expectedOutput.add(insertRecord("book", 1L, 12));
+        expectedOutput.add(insertRecord("book", 2L, 11));
+        expectedOutput.add(insertRecord("book", 3L, 10));
+        expectedOutput.add(insertRecord("book", 4L, 14));
+        assertor.assertOutputEqualsSorted("output wrong.", expectedOutput, testHarness.getOutput());
+        testHarness.close();
+    }
+
+    @Parameterized.Parameters(name = "batchedLookups = {0}")
+    public static Collection<Boolean[]> batchedLookups() {
+        return Arrays.asList(new Boolean[] {true}, new Boolean[] {false});
+    }
 }
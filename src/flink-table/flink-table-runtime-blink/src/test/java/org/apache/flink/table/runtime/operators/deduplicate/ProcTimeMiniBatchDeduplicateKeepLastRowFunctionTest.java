@@ -19,43 +19,65 @@
 package org.apache.flink.table.runtime.operators.deduplicate;
 
 import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.state.ValueState;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
-import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.runtime.operators.bundle.KeyedMapBundleOperator;
 import org.apache.flink.table.runtime.operators.bundle.trigger.CountBundleTrigger;
+import org.apache.flink.table.runtime.util.NonBatchedLookupKeyedStateStore;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 
+import static org.apache.flink.table.runtime.util.StreamRecordUtils.deleteRecord;
 import static org.apache.flink.table.runtime.util.StreamRecordUtils.insertRecord;
+import static org.apache.flink.table.runtime.util.StreamRecordUtils.row;
 import static org.apache.flink.table.runtime.util.StreamRecordUtils.updateAfterRecord;
 import static org.apache.flink.table.runtime.util.StreamRecordUtils.updateBeforeRecord;
 
 /** Tests for {@link ProcTimeMiniBatchDeduplicateKeepLastRowFunction}. */
+@RunWith(Parameterized.class)
 public class ProcTimeMiniBatchDeduplicateKeepLastRowFunctionTest
         extends ProcTimeDeduplicateFunctionTestBase {
 
     private TypeSerializer<RowData> typeSerializer =
             inputRowType.createSerializer(new ExecutionConfig());
 
+    private final boolean batchedLookups;
+
+    public ProcTimeMiniBatchDeduplicateKeepLastRowFunctionTest(boolean batchedLookups) {
+        this.batchedLookups = batchedLookups;
+    }
+
     private ProcTimeMiniBatchDeduplicateKeepLastRowFunction createFunction(
             boolean generateUpdateBefore, boolean generateInsert, long minRetentionTime) {
+        return createFunction(generateUpdateBefore, generateInsert, minRetentionTime, true);
+    }
+
+    private ProcTimeMiniBatchDeduplicateKeepLastRowFunction createFunction(
+            boolean generateUpdateBefore,
+            boolean generateInsert,
+            long minRetentionTime,
+            boolean inputInsertOnly) {
         return new ProcTimeMiniBatchDeduplicateKeepLastRowFunction(
                 inputRowType,
                 typeSerializer,
                 minRetentionTime,
                 generateUpdateBefore,
                 generateInsert,
-                true);
+                inputInsertOnly);
     }
 
-    private OneInputStreamOperatorTestHarness<RowData, RowData> createTestHarness(
+    private KeyedOneInputStreamOperatorTestHarness<RowData, RowData, RowData> createTestHarness(
             ProcTimeMiniBatchDeduplicateKeepLastRowFunction func) throws Exception {
         CountBundleTrigger<Tuple2<String, String>> trigger = new CountBundleTrigger<>(3);
         KeyedMapBundleOperator op = new KeyedMapBundleOperator(func, trigger);
@@ -63,12 +85,23 @@ public class ProcTimeMiniBatchDeduplicateKeepLastRowFunctionTest
                 op, rowKeySelector, rowKeySelector.getProducedType());
     }
 
+    private void openTestHarness(
+            KeyedOneInputStreamOperatorTestHarness<RowData, RowData, RowData> testHarness)
+            throws Exception {
+        testHarness.initializeEmptyState();
+        if (!batchedLookups) {
+            NonBatchedLookupKeyedStateStore.install(testHarness);
+        }
+        testHarness.open();
+    }
+
     @Test
     public void testWithoutGenerateUpdateBefore() throws Exception {
         ProcTimeMiniBatchDeduplicateKeepLastRowFunction func =
                 createFunction(false, true, minTime.toMilliseconds());
-        OneInputStreamOperatorTestHarness<RowData, RowData> testHarness = createTestHarness(func);
-        testHarness.open();
+        KeyedOneInputStreamOperatorTestHarness<RowData, RowData, RowData> testHarness =
+                createTestHarness(func);
+        openTestHarness(testHarness);
         testHarness.processElement(insertRecord("book", 1L, 10));
         testHarness.processElement(insertRecord("book", 2L, 11));
         // output is empty because bundle not trigger yet.
@@ -96,8 +129,9 @@ public class ProcTimeMiniBatchDeduplicateKeepLastRowFunctionTest
     public void testWithoutGenerateUpdateBeforeAndInsert() throws Exception {
         ProcTimeMiniBatchDeduplicateKeepLastRowFunction func =
                 createFunction(false, false, minTime.toMilliseconds());
-        OneInputStreamOperatorTestHarness<RowData, RowData> testHarness = createTestHarness(func);
-        testHarness.open();
+        KeyedOneInputStreamOperatorTestHarness<RowData, RowData, RowData> testHarness =
+                createTestHarness(func);
+        openTestHarness(testHarness);
         testHarness.processElement(insertRecord("book", 1L, 10));
         testHarness.processElement(insertRecord("book", 2L, 11));
         // output is empty because bundle not trigger yet.
@@ -125,8 +159,9 @@ public class ProcTimeMiniBatchDeduplicateKeepLastRowFunctionTest
     public void testWithGenerateUpdateBefore() throws Exception {
         ProcTimeMiniBatchDeduplicateKeepLastRowFunction func =
                 createFunction(true, true, minTime.toMilliseconds());
-        OneInputStreamOperatorTestHarness<RowData, RowData> testHarness = createTestHarness(func);
-        testHarness.open();
+        KeyedOneInputStreamOperatorTestHarness<RowData, RowData, RowData> testHarness =
+                createTestHarness(func);
+        openTestHarness(testHarness);
         testHarness.processElement(insertRecord("book", 1L, 10));
         testHarness.processElement(insertRecord("book", 2L, 11));
         // output is empty because bundle not trigger yet.
@@ -157,9 +192,10 @@ public class ProcTimeMiniBatchDeduplicateKeepLastRowFunctionTest
     public void testWithGenerateUpdateBeforeAndStateTtl() throws Exception {
         ProcTimeMiniBatchDeduplicateKeepLastRowFunction func =
                 createFunction(true, true, minTime.toMilliseconds());
-        OneInputStreamOperatorTestHarness<RowData, RowData> testHarness = createTestHarness(func);
+        KeyedOneInputStreamOperatorTestHarness<RowData, RowData, RowData> testHarness =
+                createTestHarness(func);
         testHarness.setup();
-        testHarness.open();
+        openTestHarness(testHarness);
 
         testHarness.processElement(insertRecord("book", 1L, 10));
         testHarness.processElement(insertRecord("book", 2L, 11));
@@ -180,4 +216,85 @@ public class ProcTimeMiniBatchDeduplicateKeepLastRowFunctionTest
         expectedOutput.add(insertRecord("book", 2L, 18));
         assertor.assertOutputEqualsSorted("output wrong.", expectedOutput, testHarness.getOutput());
     }
+
+    @Test
+    public void testWithChangelogInput() throws Exception {
+        ProcTimeMiniBatchDeduplicateKeepLastRowFunction func =
+                createFunction(true, true, minTime.toMilliseconds(), false);
+        KeyedOneInputStreamOperatorTestHarness<RowData, RowData, RowData> testHarness =
+                createTestHarness(func);
+        openTestHarness(testHarness);
+        testHarness.processElement(insertRecord("book", 1L, 10));
+        testHarness.processElement(insertRecord("book", 2L, 11));
+        testHarness.processElement(insertRecord("book", 3L, 12));
+        Assert.assertEquals(3, testHarness.numKeyedStateEntries());
+
+        // the deletion clears the state of key 1, the deletion of key 4 is ignored
+        testHarness.processElement(deleteRecord("book", 1L, 10));
+        testHarness.processElement(updateAfterRecord("book", 2L, 13));
+        testHarness.processElement(deleteRecord("book", 4L, 0));
+        Assert.assertEquals(2, testHarness.numKeyedStateEntries());
+
+        testHarness.processElement(insertRecord("book", 1L, 14));
+        testHarness.processElement(insertRecord("book", 2L, 15));
+        testHarness.processElement(updateBeforeRecord("book", 3L, 12));
+        Assert.assertEquals(2, testHarness.numKeyedStateEntries());
+
+        List<Object> expectedOutput = new ArrayList<>();
+        expectedOutput.add(insertRecord("book", 1L, 10));
+        expectedOutput.add(deleteRecord("book", 1L, 10));
+        expectedOutput.add(insertRecord("book", 1L, 14));
+        expectedOutput.add(insertRecord("book", 2L, 11));
+        expectedOutput.add(updateBeforeRecord("book", 2L, 11));
+        expectedOutput.add(updateAfterRecord("book", 2L, 13));
+        expectedOutput.add(updateBeforeRecord("book", 2L, 13));
+        expectedOutput.add(updateAfterRecord("book", 2L, 15));
+        expectedOutput.add(insertRecord("book", 3L, 12));
+        expectedOutput.add(deleteRecord("book", 3L, 12));
+        testHarness.close();
+        assertor.assertOutputEqualsSorted("output wrong.", expectedOutput, testHarness.getOutput());
+    }
+
+    @Test
+    public void testBundleState() throws Exception {
+        ProcTimeMiniBatchDeduplicateKeepLastRowFunction func =
+                createFunction(true, true, minTime.toMilliseconds());
+        KeyedOneInputStreamOperatorTestHarness<RowData, RowData, RowData> testHarness =
+                createTestHarness(func);
+        openTestHarness(testHarness);
+        testHarness.processElement(insertRecord("book", 1L, 10));
+        testHarness.processElement(insertRecord("book", 2L, 11));
+        testHarness.processElement(insertRecord("book", 3L, 12));
+
+        RowData key1 = rowKeySelector.getKey(row("book", 1L, 0));
+        RowData key2 = rowKeySelector.getKey(row("book", 2L, 0));
+        RowData key4 = rowKeySelector.getKey(row("book", 4L, 0));
+        ValueState<RowData> bundleState = func.prepareBundle(Arrays.asList(key1, key2, key4));
+
+        testHarness.getOperator().setCurrentKey(key1);
+        Assert.assertEquals(10, bundleState.value().getInt(2));
+        bundleState.clear();
+        Assert.assertNull(bundleState.value());
+        Assert.assertNull(func.state.value());
+
+        testHarness.getOperator().setCurrentKey(key4);
+        Assert.assertNull(bundleState.value());
+        bundleState.update(row("book", 4L, 13));
+        Assert.assertEquals(13, bundleState.value().getInt(2));
+        Assert.assertEquals(13, func.state.value().getInt(2));
+
+        testHarness.getOperator().setCurrentKey(key2);
+        bundleState.update(row("book", 2L, 14));
+        Assert.assertEquals(14, bundleState.value().getInt(2));
+        Assert.assertEquals(14, func.state.value().getInt(2));
+
+        // keys 2, 3 and 4 have a state
+        Assert.assertEquals(3, testHarness.numKeyedStateEntries());
+        testHarness.close();
+    }
+
+    @Parameterized.Parameters(name = "batchedLookups = {0}")
+    public static Collection<Boolean[]> batchedLookups() {
+        return Arrays.asList(new Boolean[] {true}, new Boolean[] {false});
+    }
 }
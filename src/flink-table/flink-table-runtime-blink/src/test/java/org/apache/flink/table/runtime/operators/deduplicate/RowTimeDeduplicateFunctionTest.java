@@ -24,19 +24,20 @@ import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
 import org.apache.flink.streaming.api.operators.KeyedProcessOperator;
 import org.apache.flink.streaming.api.watermark.Watermark;
 import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
-import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.runtime.operators.bundle.KeyedMapBundleOperator;
 import org.apache.flink.table.runtime.operators.bundle.trigger.CountBundleTrigger;
 import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
 import org.apache.flink.table.runtime.util.BinaryRowDataKeySelector;
 import org.apache.flink.table.runtime.util.GenericRowRecordSortComparator;
+import org.apache.flink.table.runtime.util.NonBatchedLookupKeyedStateStore;
 import org.apache.flink.table.runtime.util.RowDataHarnessAssertor;
 import org.apache.flink.table.types.logical.BigIntType;
 import org.apache.flink.table.types.logical.IntType;
 import org.apache.flink.table.types.logical.VarCharType;
 import org.apache.flink.types.RowKind;
 
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
@@ -46,6 +47,8 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 import static org.apache.flink.table.runtime.util.StreamRecordUtils.insertRecord;
 import static org.apache.flink.table.runtime.util.StreamRecordUtils.record;
 
@@ -73,9 +76,11 @@ public class RowTimeDeduplicateFunctionTest {
                             rowKeyIndex, inputRowType.toRowFieldTypes()[rowKeyIndex]));
 
     private final boolean miniBatchEnable;
+    private final boolean batchedLookups;
 
-    public RowTimeDeduplicateFunctionTest(boolean miniBacthEnable) {
+    public RowTimeDeduplicateFunctionTest(boolean miniBacthEnable, boolean batchedLookups) {
         this.miniBatchEnable = miniBacthEnable;
+        this.batchedLookups = batchedLookups;
     }
 
     @Test
@@ -171,7 +176,7 @@ public class RowTimeDeduplicateFunctionTest {
             boolean generateUpdateBefore, boolean generateInsert, List<Object> expectedOutput)
             throws Exception {
         final boolean keepLastRow = false;
-        OneInputStreamOperatorTestHarness<RowData, RowData> testHarness;
+        KeyedOneInputStreamOperatorTestHarness<RowData, RowData, RowData> testHarness;
         KeyedMapBundleOperator<RowData, RowData, RowData, RowData> keyedMapBundleOperator = null;
         KeyedProcessOperator keyedProcessOperator = null;
         if (miniBatchEnable) {
@@ -201,7 +206,7 @@ public class RowTimeDeduplicateFunctionTest {
         }
 
         List<Object> actualOutput = new ArrayList<>();
-        testHarness.open();
+        openTestHarness(testHarness, null);
 
         testHarness.processElement(insertRecord("key1", 13, 99L));
         testHarness.processElement(insertRecord("key1", 13, 99L));
@@ -211,6 +216,7 @@ public class RowTimeDeduplicateFunctionTest {
         // test 1: keep first row with row time
         testHarness.processWatermark(new Watermark(102));
         actualOutput.addAll(testHarness.getOutput());
+        Assert.assertEquals(2, testHarness.numKeyedStateEntries());
 
         // do a snapshot, close and restore again
         OperatorSubtaskState snapshot = testHarness.snapshot(0L, 0);
@@ -223,8 +229,7 @@ public class RowTimeDeduplicateFunctionTest {
         }
 
         testHarness.setup();
-        testHarness.initializeState(snapshot);
-        testHarness.open();
+        openTestHarness(testHarness, snapshot);
 
         testHarness.processElement(insertRecord("key1", 12, 300L));
         testHarness.processElement(insertRecord("key2", 11, 301L));
@@ -251,7 +256,7 @@ public class RowTimeDeduplicateFunctionTest {
             boolean generateUpdateBefore, boolean generateInsert, List<Object> expectedOutput)
             throws Exception {
         final boolean keepLastRow = true;
-        OneInputStreamOperatorTestHarness<RowData, RowData> testHarness;
+        KeyedOneInputStreamOperatorTestHarness<RowData, RowData, RowData> testHarness;
         KeyedMapBundleOperator<RowData, RowData, RowData, RowData> keyedMapBundleOperator = null;
         KeyedProcessOperator keyedProcessOperator = null;
         if (miniBatchEnable) {
@@ -281,7 +286,7 @@ public class RowTimeDeduplicateFunctionTest {
         }
 
         List<Object> actualOutput = new ArrayList<>();
-        testHarness.open();
+        openTestHarness(testHarness, null);
 
         testHarness.processElement(insertRecord("key1", 13, 99L));
         testHarness.processElement(insertRecord("key1", 12, 100L));
@@ -290,6 +295,7 @@ public class RowTimeDeduplicateFunctionTest {
         // test 1: keep last row with row time
         testHarness.processWatermark(new Watermark(102));
         actualOutput.addAll(testHarness.getOutput());
+        Assert.assertEquals(2, testHarness.numKeyedStateEntries());
 
         // do a snapshot, close and restore again
         OperatorSubtaskState snapshot = testHarness.snapshot(0L, 0);
@@ -302,8 +308,7 @@ public class RowTimeDeduplicateFunctionTest {
         }
 
         testHarness.setup();
-        testHarness.initializeState(snapshot);
-        testHarness.open();
+        openTestHarness(testHarness, snapshot);
 
         testHarness.processElement(insertRecord("key1", 12, 300L));
         testHarness.processElement(insertRecord("key2", 11, 301L));
@@ -326,20 +331,34 @@ public class RowTimeDeduplicateFunctionTest {
         testHarness.close();
     }
 
-    private OneInputStreamOperatorTestHarness<RowData, RowData> createTestHarness(
+    private void openTestHarness(
+            KeyedOneInputStreamOperatorTestHarness<RowData, RowData, RowData> testHarness,
+            @Nullable OperatorSubtaskState snapshot)
+            throws Exception {
+        testHarness.initializeState(snapshot);
+        if (!batchedLookups) {
+            NonBatchedLookupKeyedStateStore.install(testHarness);
+        }
+        testHarness.open();
+    }
+
+    private KeyedOneInputStreamOperatorTestHarness<RowData, RowData, RowData> createTestHarness(
             KeyedProcessOperator<RowData, RowData, RowData> operator) throws Exception {
         return new KeyedOneInputStreamOperatorTestHarness<>(
                 operator, rowKeySelector, rowKeySelector.getProducedType());
     }
 
-    private OneInputStreamOperatorTestHarness<RowData, RowData> createTestHarness(
+    private KeyedOneInputStreamOperatorTestHarness<RowData, RowData, RowData> createTestHarness(
             KeyedMapBundleOperator<RowData, RowData, RowData, RowData> operator) throws Exception {
         return new KeyedOneInputStreamOperatorTestHarness<>(
                 operator, rowKeySelector, rowKeySelector.getProducedType());
     }
 
-    @Parameterized.Parameters(name = "miniBatchEnable = {0}")
+    @Parameterized.Parameters(name = "miniBatchEnable = {0}, batchedLookups = {1}")
     public static Collection<Boolean[]> runMode() {
-        return Arrays.asList(new Boolean[] {false}, new Boolean[] {true});
+        return Arrays.asList(
+                new Boolean[] {false, true},
+                new Boolean[] {true, true},
+                new Boolean[] {true, false});
     }
 }
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.util;
+
+import org.apache.flink.api.common.state.AggregatingState;
+import org.apache.flink.api.common.state.AggregatingStateDescriptor;
+import org.apache.flink.api.common.state.KeyedStateStore;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ReducingState;
+import org.apache.flink.api.common.state.ReducingStateDescriptor;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.runtime.state.internal.InternalValueState;
+import org.apache.flink.streaming.api.operators.AbstractStreamOperator;
+import org.apache.flink.streaming.util.AbstractStreamOperatorTestHarness;
+
+import java.io.IOException;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A {@link KeyedStateStore} whose value states do not support batched look ups, like the states of
+ * a state backend without {@code InternalKvState#getAll}. All other states and accesses are served
+ * by the wrapped store.
+ */
+public class NonBatchedLookupKeyedStateStore implements KeyedStateStore {
+
+    private final KeyedStateStore keyedStateStore;
+
+    public NonBatchedLookupKeyedStateStore(KeyedStateStore keyedStateStore) {
+        this.keyedStateStore = checkNotNull(keyedStateStore);
+    }
+
+    /**
+     * Replaces the keyed state store of the operator of the given harness. This must be called
+     * after the state of the harness is initialized and before the harness is opened.
+     */
+    public static void install(AbstractStreamOperatorTestHarness<?> testHarness) {
+        AbstractStreamOperator<?> operator = testHarness.getOperator();
+        operator.getRuntimeContext()
+                .setKeyedStateStore(
+                        new NonBatchedLookupKeyedStateStore(
+                                checkNotNull(
+                                        operator.getKeyedStateStore(),
+                                        "The state of the harness is not initialized.")));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> ValueState<T> getState(ValueStateDescriptor<T> stateProperties) {
+        ValueState<T> state = keyedStateStore.getState(stateProperties);
+        return state instanceof InternalValueState
+                ? new NonBatchedLookupValueState<>((InternalValueState<Object, Object, T>) state)
+                : state;
+    }
+
+    @Override
+    public <T> ListState<T> getListState(ListStateDescriptor<T> stateProperties) {
+        return keyedStateStore.getListState(stateProperties);
+    }
+
+    @Override
+    public <T> ReducingState<T> getReducingState(ReducingStateDescriptor<T> stateProperties) {
+        return keyedStateStore.getReducingState(stateProperties);
+    }
+
+    @Override
+    public <IN, ACC, OUT> AggregatingState<IN, OUT> getAggregatingState(
+            AggregatingStateDescriptor<IN, ACC, OUT> stateProperties) {
+        return keyedStateStore.getAggregatingState(stateProperties);
+    }
+
+    @Override
+    public <UK, UV> MapState<UK, UV> getMapState(MapStateDescriptor<UK, UV> stateProperties) {
+        return keyedStateStore.getMapState(stateProperties);
+    }
+
+    /** A value state that keeps the default {@code getAll}, which does not support look ups. */
+    private static class NonBatchedLookupValueState<K, N, T>
+            implements InternalValueState<K, N, T> {
+
+        private final InternalValueState<K, N, T> state;
+
+        private NonBatchedLookupValueState(InternalValueState<K, N, T> state) {
+            this.state = state;
+        }
+
+        @Override
+        public TypeSerializer<K> getKeySerializer() {
+            return state.getKeySerializer();
+        }
+
+        @Override
+        public TypeSerializer<N> getNamespaceSerializer() {
+            return state.getNamespaceSerializer();
+        }
+
+        @Override
+        public TypeSerializer<T> getValueSerializer() {
+            return state.getValueSerializer();
+        }
+
+        @Override
+        public void setCurrentNamespace(N namespace) {
+            state.setCurrentNamespace(namespace);
+        }
+
+        @Override
+        public byte[] getSerializedValue(
+                byte[] serializedKeyAndNamespace,
+                TypeSerializer<K> safeKeySerializer,
+                TypeSerializer<N> safeNamespaceSerializer,
+                TypeSerializer<T> safeValueSerializer)
+                throws Exception {
+            return state.getSerializedValue(
+                    serializedKeyAndNamespace,
+                    safeKeySerializer,
+                    safeNamespaceSerializer,
+                    safeValueSerializer);
+        }
+
+        @Override
+        public StateIncrementalVisitor<K, N, T> getStateIncrementalVisitor(
+                int recommendedMaxNumberOfReturnedRecords) {
+            return state.getStateIncrementalVisitor(recommendedMaxNumberOfReturnedRecords);
+        }
+
+        @Override
+        public T value() throws IOException {
+            return state.value();
+        }
+
+        @Override
+        public void update(T value) throws IOException {
+            state.update(value);
+        }
+
+        @Override
+        public void clear() {
+            state.clear();
+        }
+    }
+}